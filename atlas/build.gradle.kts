@@ -76,3 +76,9 @@ testDependencies {
    api("us.ihmc:ihmc-simulation-toolkit-test:source")
    api("us.ihmc:simulation-construction-set-tools-test:source")
 }
+
+benchmarksDependencies {
+   api(ihmc.sourceSetProject("main"))
+   api(ihmc.sourceSetProject("test"))
+   api("us.ihmc:ihmc-avatar-interfaces-benchmarks:source")
+}
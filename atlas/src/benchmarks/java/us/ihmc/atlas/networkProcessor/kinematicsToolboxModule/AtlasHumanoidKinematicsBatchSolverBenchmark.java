@@ -0,0 +1,29 @@
+package us.ihmc.atlas.networkProcessor.kinematicsToolboxModule;
+
+import us.ihmc.atlas.AtlasRobotModel;
+import us.ihmc.atlas.AtlasRobotVersion;
+import us.ihmc.avatar.drcRobot.DRCRobotModel;
+import us.ihmc.avatar.drcRobot.RobotTarget;
+import us.ihmc.avatar.networkProcessor.kinematicsToolboxModule.HumanoidKinematicsBatchSolverBenchmark;
+
+public class AtlasHumanoidKinematicsBatchSolverBenchmark extends HumanoidKinematicsBatchSolverBenchmark
+{
+   private final DRCRobotModel robotModel = new AtlasRobotModel(AtlasRobotVersion.ATLAS_UNPLUGGED_V5_NO_HANDS, RobotTarget.SCS, false);
+
+   @Override
+   public DRCRobotModel getRobotModel()
+   {
+      return robotModel;
+   }
+
+   @Override
+   public String getSimpleRobotName()
+   {
+      return robotModel.getSimpleRobotName();
+   }
+
+   public static void main(String[] args) throws Exception
+   {
+      new AtlasHumanoidKinematicsBatchSolverBenchmark().runThroughputVersusNumberOfWorkers();
+   }
+}
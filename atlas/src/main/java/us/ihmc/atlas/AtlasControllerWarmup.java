@@ -11,6 +11,8 @@ import us.ihmc.simulationconstructionset.FloatingRootJointRobot;
 
 public class AtlasControllerWarmup extends HumanoidControllerWarmup
 {
+   private static final int maximumNumberOfCycles = 5;
+
    public AtlasControllerWarmup()
    {
       this(AtlasRobotVersion.ATLAS_UNPLUGGED_V5_NO_FOREARMS);
@@ -38,7 +40,7 @@ public class AtlasControllerWarmup extends HumanoidControllerWarmup
       getYoVariable("maxICPErrorBeforeSingleSupportOuterY").setValueFromDouble(Double.POSITIVE_INFINITY);
 
       simulate(1.0);
-      for (int i = 0; i < 5; i++)
+      for (int i = 0; i < maximumNumberOfCycles; i++)
       {
          submitMessage(HumanoidControllerWarumupTools.createStepsInPlace(referenceFrames));
          simulate(1.5);
@@ -49,6 +51,9 @@ public class AtlasControllerWarmup extends HumanoidControllerWarmup
          }
          submitMessage(HumanoidControllerWarumupTools.createChestMessage(referenceFrames));
          simulate(1.0);
+
+         if (completeWarmupCycle())
+            break;
       }
    }
 
@@ -3,11 +3,14 @@ package us.ihmc.atlas;
 import java.util.Arrays;
 import java.util.Collection;
 import java.util.EnumMap;
+import java.util.List;
 import java.util.Map;
 
 import org.apache.commons.lang3.mutable.MutableInt;
 import org.junit.jupiter.api.Test;
 
+import us.ihmc.avatar.warmup.HumanoidControllerWarmupReport;
+import us.ihmc.avatar.warmup.HumanoidControllerWarmupReport.WarmupCycle;
 import us.ihmc.avatar.warmup.HumanoidControllerWarumupTools;
 import us.ihmc.commonWalkingControlModules.highLevelHumanoidControl.highLevelStates.walkingController.states.WalkingStateEnum;
 import us.ihmc.robotics.Assert;
@@ -20,6 +23,7 @@ public class AtlasControllerWarmupTest
    public void testWarmup()
    {
       AtlasControllerWarmup controllerWarmup = new AtlasControllerWarmup();
+      controllerWarmup.setAdaptiveStopping(false);
 
       YoEnum<WalkingStateEnum> walkingState = (YoEnum<WalkingStateEnum>) controllerWarmup.getYoVariable("WalkingCurrentState");
       Map<WalkingStateEnum, MutableInt> ticksSpentInStateMap = new EnumMap<>(WalkingStateEnum.class);
@@ -42,6 +46,46 @@ public class AtlasControllerWarmupTest
       }
    }
 
+   @Test
+   public void testAdaptiveWarmupReport()
+   {
+      AtlasControllerWarmup fullWarmup = new AtlasControllerWarmup();
+      fullWarmup.setAdaptiveStopping(false);
+      HumanoidControllerWarumupTools.warmup(fullWarmup);
+
+      AtlasControllerWarmup adaptiveWarmup = new AtlasControllerWarmup();
+      HumanoidControllerWarumupTools.warmup(adaptiveWarmup);
+
+      HumanoidControllerWarmupReport fullReport = fullWarmup.getReport();
+      HumanoidControllerWarmupReport adaptiveReport = adaptiveWarmup.getReport();
+      Assert.assertFalse(fullReport.isStoppedEarly());
+      Assert.assertTrue(adaptiveReport.getNumberOfTicks() <= fullReport.getNumberOfTicks());
+      if (!adaptiveReport.isStoppedEarly())
+         Assert.assertEquals(fullReport.getNumberOfTicks(), adaptiveReport.getNumberOfTicks());
+
+      for (WarmupCycle cycle : adaptiveReport.getCycles())
+      {
+         Assert.assertTrue(cycle.getNumberOfTicks() > 0);
+
+         double previousTickTime = 0.0;
+         for (double percentile : HumanoidControllerWarmupReport.PERCENTILES)
+         {
+            Assert.assertTrue(cycle.getTickTime(percentile) >= previousTickTime);
+            previousTickTime = cycle.getTickTime(percentile);
+         }
+
+         // Each cycle of the scenario walks.
+         Assert.assertTrue(cycle.getTicksInWalkingState(WalkingStateEnum.WALKING_LEFT_SUPPORT) > 0);
+         Assert.assertTrue(cycle.getTicksInWalkingState(WalkingStateEnum.WALKING_RIGHT_SUPPORT) > 0);
+      }
+
+      if (adaptiveReport.isStoppedEarly())
+      {
+         List<WarmupCycle> cycles = adaptiveReport.getCycles();
+         Assert.assertTrue(cycles.get(cycles.size() - 1).getTickTime(99.9) <= adaptiveWarmup.getRobotModel().getControllerDT());
+      }
+   }
+
    private Collection<WalkingStateEnum> getWalkingStatesToCheck()
    {
       return Arrays.asList(new WalkingStateEnum[] {WalkingStateEnum.STANDING, WalkingStateEnum.TO_STANDING, WalkingStateEnum.TO_WALKING_LEFT_SUPPORT,
@@ -26,6 +26,13 @@ public class AtlasRobotConfigurationDataBufferTest extends RobotConfigurationDat
       super.testAddingStuff();
    }
 
+   @Override
+   @Test
+   public void testInterpolatedAndNearestData()
+   {
+      super.testInterpolatedAndNearestData();
+   }
+
    @Override
    @Test
    public void testWaitForTimestamp()
@@ -0,0 +1,33 @@
+package us.ihmc.atlas.networkProcessor.kinematicsToolboxModule;
+
+import org.junit.jupiter.api.Test;
+
+import us.ihmc.atlas.AtlasRobotModel;
+import us.ihmc.atlas.AtlasRobotVersion;
+import us.ihmc.avatar.drcRobot.DRCRobotModel;
+import us.ihmc.avatar.drcRobot.RobotTarget;
+import us.ihmc.avatar.networkProcessor.kinematicsToolboxModule.HumanoidKinematicsBatchSolverTest;
+
+public class AtlasHumanoidKinematicsBatchSolverTest extends HumanoidKinematicsBatchSolverTest
+{
+   private DRCRobotModel robotModel = new AtlasRobotModel(AtlasRobotVersion.ATLAS_UNPLUGGED_V5_NO_HANDS, RobotTarget.SCS, false);
+
+   @Override
+   @Test
+   public void testRandomHandPositions() throws Exception
+   {
+      super.testRandomHandPositions();
+   }
+
+   @Override
+   public DRCRobotModel getRobotModel()
+   {
+      return robotModel;
+   }
+
+   @Override
+   public String getSimpleRobotName()
+   {
+      return getRobotModel().getSimpleRobotName();
+   }
+}
@@ -0,0 +1,45 @@
+package us.ihmc.avatar.networkProcessor.kinematicsToolboxModule;
+
+import java.util.List;
+import java.util.Random;
+
+import us.ihmc.avatar.networkProcessor.kinematicsToolboxModule.HumanoidKinematicsBatchSolver.Query;
+import us.ihmc.log.LogTools;
+import us.ihmc.yoVariables.registry.YoVariableRegistry;
+
+/**
+ * Measures the throughput of the {@link HumanoidKinematicsBatchSolver} on the random hand position
+ * queries of {@link HumanoidKinematicsBatchSolverTest} for an increasing number of workers.
+ */
+public abstract class HumanoidKinematicsBatchSolverBenchmark extends HumanoidKinematicsBatchSolverTest
+{
+   public void runThroughputVersusNumberOfWorkers() throws Exception
+   {
+      Random random = new Random(45645);
+      List<Query> queries = createRandomHandPositionQueries(random, 40);
+      int maximumNumberOfWorkers = Math.max(2, Math.min(8, Runtime.getRuntime().availableProcessors()));
+
+      for (int numberOfWorkers = 1; numberOfWorkers <= maximumNumberOfWorkers; numberOfWorkers *= 2)
+      {
+         HumanoidKinematicsBatchSolver batchSolver = new HumanoidKinematicsBatchSolver(getRobotModel(), numberOfWorkers, new YoVariableRegistry("root"));
+
+         try
+         {
+            // Warm-up
+            batchSolver.solve(queries);
+            batchSolver.solve(queries);
+
+            if (batchSolver.getNumberOfQueries() != queries.size())
+               throw new RuntimeException("Solved " + batchSolver.getNumberOfQueries() + " queries out of " + queries.size() + ".");
+
+            LogTools.info(numberOfWorkers + " worker(s): " + batchSolver.getSolvesPerSecond() + " solves/s, converged "
+                  + batchSolver.getNumberOfConvergedSolutions() + "/" + batchSolver.getNumberOfQueries() + ", avg iterations "
+                  + batchSolver.getAverageNumberOfIterations() + ", batch time " + batchSolver.getBatchComputationTime() + " [s]");
+         }
+         finally
+         {
+            batchSolver.close();
+         }
+      }
+   }
+}
@@ -0,0 +1,78 @@
+package us.ihmc.avatar.networkProcessor.wholeBodyTrajectoryToolboxModule;
+
+import java.util.concurrent.atomic.AtomicReference;
+
+import controller_msgs.msg.dds.WholeBodyTrajectoryToolboxMessage;
+import controller_msgs.msg.dds.WholeBodyTrajectoryToolboxOutputStatus;
+import us.ihmc.humanoidRobotics.communication.packets.manipulation.wholeBodyTrajectory.WholeBodyTrajectoryToolboxSettings;
+import us.ihmc.log.LogTools;
+
+/**
+ * Measures the time the {@link WholeBodyTrajectoryToolboxController} takes to solve the one big
+ * circle problem of {@link AvatarWholeBodyTrajectoryToolboxControllerTest} for an increasing number
+ * of workers, and checks that each number of workers finds the same solution twice for the same
+ * seed.
+ */
+public abstract class AvatarWholeBodyTrajectoryToolboxControllerBenchmark extends AvatarWholeBodyTrajectoryToolboxControllerTest
+{
+   public void runOneBigCircleTimeToSolutionVersusNumberOfWorkers()
+   {
+      setup();
+
+      try
+      {
+         WholeBodyTrajectoryToolboxMessage message = createOneBigCircleMessage();
+         int numberOfCandidatesPerUpdate = 8;
+         int maximumNumberOfWorkers = Math.min(numberOfCandidatesPerUpdate, Math.max(2, Runtime.getRuntime().availableProcessors()));
+         int maxNumberOfIterations = 100000;
+
+         AtomicReference<WholeBodyTrajectoryToolboxOutputStatus> status = new AtomicReference<>(null);
+         statusOutputManager.attachStatusMessageListener(WholeBodyTrajectoryToolboxOutputStatus.class, status::set);
+         toolboxController.setNumberOfCandidatesPerUpdate(numberOfCandidatesPerUpdate);
+
+         double singleWorkerTime = Double.NaN;
+
+         for (int numberOfWorkers = 1; numberOfWorkers <= maximumNumberOfWorkers; numberOfWorkers *= 2)
+         {
+            toolboxController.setNumberOfWorkers(numberOfWorkers);
+            WholeBodyTrajectoryToolboxOutputStatus firstSolution = null;
+            double timeToSolution = Double.NaN;
+
+            // The first run warms up the workers, the second one has to find the same solution.
+            for (int run = 0; run < 2; run++)
+            {
+               WholeBodyTrajectoryToolboxSettings.randomManager.setSeed(1);
+               commandInputManager.submitMessage(message);
+               initializationSucceeded.set(false);
+               numberOfIterations.set(0);
+
+               long startTime = System.nanoTime();
+               do
+               {
+                  toolboxUpdater.doControl();
+               }
+               while (!toolboxController.isDone() && numberOfIterations.getIntegerValue() < maxNumberOfIterations);
+               timeToSolution = (System.nanoTime() - startTime) / 1.0e9;
+
+               WholeBodyTrajectoryToolboxOutputStatus solution = status.getAndSet(null);
+               if (solution == null || solution.getPlanningResult() != 4)
+                  throw new RuntimeException("The toolbox did not find a solution with " + numberOfWorkers + " worker(s).");
+
+               if (run == 0)
+                  firstSolution = new WholeBodyTrajectoryToolboxOutputStatus(solution);
+               else if (!firstSolution.epsilonEquals(solution, 0.0))
+                  throw new RuntimeException("The solution changed for the same seed with " + numberOfWorkers + " worker(s).");
+            }
+
+            if (numberOfWorkers == 1)
+               singleWorkerTime = timeToSolution;
+
+            LogTools.info(numberOfWorkers + " worker(s): time to solution " + timeToSolution + " s, speed-up " + singleWorkerTime / timeToSolution);
+         }
+      }
+      finally
+      {
+         tearDown();
+      }
+   }
+}
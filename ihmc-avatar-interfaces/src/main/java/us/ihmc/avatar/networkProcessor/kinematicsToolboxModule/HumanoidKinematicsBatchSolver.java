@@ -0,0 +1,342 @@
+package us.ihmc.avatar.networkProcessor.kinematicsToolboxModule;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import controller_msgs.msg.dds.HumanoidKinematicsToolboxConfigurationMessage;
+import controller_msgs.msg.dds.KinematicsToolboxCenterOfMassMessage;
+import controller_msgs.msg.dds.KinematicsToolboxOutputStatus;
+import controller_msgs.msg.dds.KinematicsToolboxRigidBodyMessage;
+import controller_msgs.msg.dds.RobotConfigurationData;
+import us.ihmc.commons.Conversions;
+import us.ihmc.graphicsDescription.yoGraphics.YoGraphicsListRegistry;
+import us.ihmc.robotModels.FullHumanoidRobotModelFactory;
+import us.ihmc.yoVariables.registry.YoVariableRegistry;
+import us.ihmc.yoVariables.variable.YoDouble;
+import us.ihmc.yoVariables.variable.YoInteger;
+
+/**
+ * Solves a batch of independent whole-body inverse kinematics problems.
+ * <p>
+ * Each worker owns a {@link HumanoidKinematicsSolver} and thus its own robot model. The queries are
+ * handed out to the workers as they become available, the calling thread being one of the workers,
+ * and each query is solved until convergence or until the solver gives up before the worker takes
+ * the next one.
+ * </p>
+ * <p>
+ * The solution of a query only depends on the query and on the previous queries solved by the same
+ * worker, such that results can slightly differ with the number of workers.
+ * </p>
+ */
+public class HumanoidKinematicsBatchSolver
+{
+   private final String name = getClass().getSimpleName();
+   private final YoVariableRegistry registry = new YoVariableRegistry(name);
+
+   private final List<HumanoidKinematicsSolver> workers = new ArrayList<>();
+   private final List<Future<?>> pendingTasks = new ArrayList<>();
+   private final ExecutorService executor;
+
+   private final AtomicInteger nextQuery = new AtomicInteger();
+
+   private final YoInteger numberOfQueries = new YoInteger("numberOfQueries", registry);
+   private final YoInteger numberOfConvergedSolutions = new YoInteger("numberOfConvergedSolutions", registry);
+   private final YoDouble averageNumberOfIterations = new YoDouble("averageNumberOfIterations", registry);
+   private final YoDouble batchComputationTime = new YoDouble("batchComputationTime", registry);
+   private final YoDouble solvesPerSecond = new YoDouble("solvesPerSecond", registry);
+
+   /**
+    * @param fullRobotModelFactory used to create the robot model of each worker.
+    * @param numberOfWorkers       the number of queries solved concurrently, including the calling
+    *                              thread.
+    * @param parentRegistry        the registry the statistics of this solver are attached to.
+    */
+   public HumanoidKinematicsBatchSolver(FullHumanoidRobotModelFactory fullRobotModelFactory, int numberOfWorkers, YoVariableRegistry parentRegistry)
+   {
+      if (numberOfWorkers < 1)
+         throw new IllegalArgumentException("The number of workers has to be at least 1, was " + numberOfWorkers);
+
+      for (int i = 0; i < numberOfWorkers; i++)
+      {
+         YoVariableRegistry workerRegistry = new YoVariableRegistry("worker" + i);
+         workers.add(new HumanoidKinematicsSolver(fullRobotModelFactory, new YoGraphicsListRegistry(), workerRegistry));
+         registry.addChild(workerRegistry);
+      }
+
+      if (numberOfWorkers > 1)
+      {
+         String threadName = name + "Worker";
+         executor = Executors.newFixedThreadPool(numberOfWorkers - 1, runnable ->
+         {
+            Thread thread = new Thread(runnable, threadName);
+            thread.setDaemon(true);
+            return thread;
+         });
+      }
+      else
+      {
+         executor = null;
+      }
+
+      parentRegistry.addChild(registry);
+   }
+
+   public int getNumberOfWorkers()
+   {
+      return workers.size();
+   }
+
+   /**
+    * Stops the threads of the additional workers, this solver cannot be used afterwards when it has
+    * more than one worker.
+    */
+   public void close()
+   {
+      if (executor != null)
+         executor.shutdown();
+   }
+
+   /**
+    * Solves the given queries and blocks until all of them are done.
+    *
+    * @param queries the problems to solve. Not modified.
+    * @return the results, in the same order as the queries.
+    */
+   public List<Result> solve(List<Query> queries)
+   {
+      long startTime = System.nanoTime();
+
+      Result[] results = new Result[queries.size()];
+      nextQuery.set(0);
+
+      for (int i = 1; i < workers.size(); i++)
+      {
+         HumanoidKinematicsSolver worker = workers.get(i);
+         pendingTasks.add(executor.submit(() -> solveQueries(worker, queries, results)));
+      }
+
+      solveQueries(workers.get(0), queries, results);
+      waitForPendingTasks();
+
+      batchComputationTime.set(Conversions.nanosecondsToSeconds(System.nanoTime() - startTime));
+      numberOfQueries.set(results.length);
+      numberOfConvergedSolutions.set(0);
+      int totalNumberOfIterations = 0;
+
+      for (Result result : results)
+      {
+         if (result.hasConverged())
+            numberOfConvergedSolutions.increment();
+         totalNumberOfIterations += result.getNumberOfIterations();
+      }
+
+      averageNumberOfIterations.set(results.length > 0 ? (double) totalNumberOfIterations / results.length : 0.0);
+      solvesPerSecond.set(results.length / batchComputationTime.getDoubleValue());
+
+      return Arrays.asList(results);
+   }
+
+   private void solveQueries(HumanoidKinematicsSolver worker, List<Query> queries, Result[] results)
+   {
+      while (true)
+      {
+         int queryIndex = nextQuery.getAndIncrement();
+
+         if (queryIndex >= queries.size())
+            return;
+
+         results[queryIndex] = solveQuery(worker, queries.get(queryIndex));
+      }
+   }
+
+   private static Result solveQuery(HumanoidKinematicsSolver worker, Query query)
+   {
+      worker.setInitialConfiguration(query.getInitialConfiguration());
+      worker.initialize();
+      worker.submit(query.getRigidBodyMessages());
+      if (query.getCenterOfMassMessage() != null)
+         worker.submit(query.getCenterOfMassMessage());
+      if (query.getConfigurationMessage() != null)
+         worker.submit(query.getConfigurationMessage());
+
+      worker.solve();
+
+      return new Result(new KinematicsToolboxOutputStatus(worker.getSolution()),
+                        worker.hasConverged(),
+                        worker.getNumberOfIterations(),
+                        worker.getSolutionQuality(),
+                        worker.getComputationTime());
+   }
+
+   private void waitForPendingTasks()
+   {
+      Throwable failure = null;
+
+      for (int i = 0; i < pendingTasks.size(); i++)
+      {
+         try
+         {
+            pendingTasks.get(i).get();
+         }
+         catch (ExecutionException e)
+         {
+            if (failure == null)
+               failure = e.getCause();
+         }
+         catch (InterruptedException e)
+         {
+            if (failure == null)
+               failure = e;
+         }
+      }
+
+      pendingTasks.clear();
+
+      if (failure instanceof RuntimeException)
+         throw (RuntimeException) failure;
+      else if (failure != null)
+         throw new RuntimeException(failure);
+   }
+
+   public int getNumberOfQueries()
+   {
+      return numberOfQueries.getIntegerValue();
+   }
+
+   public int getNumberOfConvergedSolutions()
+   {
+      return numberOfConvergedSolutions.getIntegerValue();
+   }
+
+   public double getAverageNumberOfIterations()
+   {
+      return averageNumberOfIterations.getDoubleValue();
+   }
+
+   /**
+    * @return the time in seconds spent in the last call to {@link #solve(List)}.
+    */
+   public double getBatchComputationTime()
+   {
+      return batchComputationTime.getDoubleValue();
+   }
+
+   /**
+    * @return the number of queries solved per second during the last call to {@link #solve(List)}.
+    */
+   public double getSolvesPerSecond()
+   {
+      return solvesPerSecond.getDoubleValue();
+   }
+
+   /**
+    * A single inverse kinematics problem: the configuration the solver starts from and the objectives
+    * to reach.
+    */
+   public static class Query
+   {
+      private final RobotConfigurationData initialConfiguration;
+      private final List<KinematicsToolboxRigidBodyMessage> rigidBodyMessages = new ArrayList<>();
+      private KinematicsToolboxCenterOfMassMessage centerOfMassMessage;
+      private HumanoidKinematicsToolboxConfigurationMessage configurationMessage;
+
+      public Query(RobotConfigurationData initialConfiguration)
+      {
+         this.initialConfiguration = initialConfiguration;
+      }
+
+      public void addRigidBodyMessage(KinematicsToolboxRigidBodyMessage rigidBodyMessage)
+      {
+         rigidBodyMessages.add(rigidBodyMessage);
+      }
+
+      public void setCenterOfMassMessage(KinematicsToolboxCenterOfMassMessage centerOfMassMessage)
+      {
+         this.centerOfMassMessage = centerOfMassMessage;
+      }
+
+      /**
+       * @param configurationMessage the configuration to use for this query, when {@code null} the
+       *                             defaults of the {@link HumanoidKinematicsToolboxController} are used.
+       */
+      public void setConfigurationMessage(HumanoidKinematicsToolboxConfigurationMessage configurationMessage)
+      {
+         this.configurationMessage = configurationMessage;
+      }
+
+      public RobotConfigurationData getInitialConfiguration()
+      {
+         return initialConfiguration;
+      }
+
+      public List<KinematicsToolboxRigidBodyMessage> getRigidBodyMessages()
+      {
+         return rigidBodyMessages;
+      }
+
+      public KinematicsToolboxCenterOfMassMessage getCenterOfMassMessage()
+      {
+         return centerOfMassMessage;
+      }
+
+      public HumanoidKinematicsToolboxConfigurationMessage getConfigurationMessage()
+      {
+         return configurationMessage;
+      }
+   }
+
+   /**
+    * The solution to a {@link Query} and the statistics of its convergence.
+    */
+   public static class Result
+   {
+      private final KinematicsToolboxOutputStatus solution;
+      private final boolean hasConverged;
+      private final int numberOfIterations;
+      private final double solutionQuality;
+      private final double computationTime;
+
+      private Result(KinematicsToolboxOutputStatus solution, boolean hasConverged, int numberOfIterations, double solutionQuality, double computationTime)
+      {
+         this.solution = solution;
+         this.hasConverged = hasConverged;
+         this.numberOfIterations = numberOfIterations;
+         this.solutionQuality = solutionQuality;
+         this.computationTime = computationTime;
+      }
+
+      public KinematicsToolboxOutputStatus getSolution()
+      {
+         return solution;
+      }
+
+      public boolean hasConverged()
+      {
+         return hasConverged;
+      }
+
+      public int getNumberOfIterations()
+      {
+         return numberOfIterations;
+      }
+
+      public double getSolutionQuality()
+      {
+         return solutionQuality;
+      }
+
+      /**
+       * @return the time in seconds spent solving this query.
+       */
+      public double getComputationTime()
+      {
+         return computationTime;
+      }
+   }
+}
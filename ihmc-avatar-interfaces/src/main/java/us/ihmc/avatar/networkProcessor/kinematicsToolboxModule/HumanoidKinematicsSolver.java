@@ -1,5 +1,6 @@
 package us.ihmc.avatar.networkProcessor.kinematicsToolboxModule;
 
+import controller_msgs.msg.dds.HumanoidKinematicsToolboxConfigurationMessage;
 import controller_msgs.msg.dds.KinematicsToolboxCenterOfMassMessage;
 import controller_msgs.msg.dds.KinematicsToolboxOutputStatus;
 import controller_msgs.msg.dds.KinematicsToolboxRigidBodyMessage;
@@ -99,6 +100,11 @@ public class HumanoidKinematicsSolver
       commandInputManager.submitMessage(centerOfMassMessage);
    }
 
+   public void submit(HumanoidKinematicsToolboxConfigurationMessage configurationMessage)
+   {
+      commandInputManager.submitMessage(configurationMessage);
+   }
+
    public void initialize()
    {
       controller.updateFootSupportState(true, true);
@@ -170,6 +176,29 @@ public class HumanoidKinematicsSolver
       return isSolutionGood;
    }
 
+   public int getNumberOfIterations()
+   {
+      return numberOfIterations.getIntegerValue();
+   }
+
+   public boolean hasConverged()
+   {
+      return hasConverged.getBooleanValue();
+   }
+
+   public double getSolutionQuality()
+   {
+      return solutionQuality.getDoubleValue();
+   }
+
+   /**
+    * @return the time in seconds spent in the last call to {@link #solve()}.
+    */
+   public double getComputationTime()
+   {
+      return computationTime.getDoubleValue();
+   }
+
    public FullHumanoidRobotModel getDesiredFullRobotModel()
    {
       return controller.getDesiredFullRobotModel();
@@ -11,6 +11,8 @@ import us.ihmc.euclid.tuple2D.Point2D;
 import us.ihmc.robotics.quadTree.Box;
 import us.ihmc.robotics.quadTree.QuadTreeForGround;
 import us.ihmc.robotics.quadTree.QuadTreeForGroundNode;
+import us.ihmc.robotics.quadTree.QuadTreeForGroundSnapshot;
+import us.ihmc.robotics.quadTree.QuadTreeForGroundSnapshotNode;
 
 public class HeightQuadTreeMessageConverter
 {
@@ -36,6 +38,37 @@ public class HeightQuadTreeMessageConverter
       return heightQuadTreeMessage;
    }
 
+   public static HeightQuadTreeMessage convertQuadTreeForGround(QuadTreeForGroundSnapshot quadTreeToConvert, Point2D boundingCircleCenter,
+                                                               double boundingCircleRadius)
+   {
+      List<QuadTreeForGroundSnapshotNode> leavesToConvert = quadTreeToConvert.getLeaves(new ArrayList<>());
+
+      List<HeightQuadTreeLeafMessage> leaves = new ArrayList<>();
+
+      for (QuadTreeForGroundSnapshotNode leafToConvert : leavesToConvert)
+      {
+         Box bounds = leafToConvert.getBounds();
+
+         if (boundingCircleCenter != null && !isInsideBoundingCircle(bounds.centreX, bounds.centreY, boundingCircleCenter, boundingCircleRadius))
+            continue;
+
+         HeightQuadTreeLeafMessage leaf = new HeightQuadTreeLeafMessage();
+         leaf.setCenterX((float) bounds.centreX);
+         leaf.setCenterY((float) bounds.centreY);
+         leaf.setHeight((float) leafToConvert.getAverageHeight());
+         leaves.add(leaf);
+      }
+
+      HeightQuadTreeMessage heightQuadTreeMessage = new HeightQuadTreeMessage();
+      MessageTools.copyData(leaves, heightQuadTreeMessage.getLeaves());
+      heightQuadTreeMessage.setDefaultHeight((float) quadTreeToConvert.getDefaultHeightWhenNoPoints());
+      heightQuadTreeMessage.setResolution((float) quadTreeToConvert.getResolution());
+      Box bounds = quadTreeToConvert.getBounds();
+      heightQuadTreeMessage.setSizeX((float) (bounds.maxX - bounds.minX));
+      heightQuadTreeMessage.setSizeY((float) (bounds.maxY - bounds.minY));
+      return heightQuadTreeMessage;
+   }
+
    private static void fullDepthCopy(QuadTreeForGroundNode original, Point2D boundingCircleCenter, double boundingCircleRadius,
                                      List<HeightQuadTreeLeafMessage> copyToPack)
    {
@@ -30,12 +30,13 @@ import us.ihmc.robotModels.FullHumanoidRobotModel;
 import us.ihmc.robotModels.FullRobotModelUtils;
 import us.ihmc.robotics.lists.FrameTupleArrayList;
 import us.ihmc.robotics.quadTree.Box;
+import us.ihmc.robotics.quadTree.ConcurrentQuadTreeForGround;
 import us.ihmc.robotics.quadTree.QuadTreeForGroundParameters;
+import us.ihmc.robotics.quadTree.QuadTreeForGroundSnapshot;
 import us.ihmc.robotics.robotSide.RobotSide;
 import us.ihmc.robotics.sensors.ForceSensorDefinition;
 import us.ihmc.robotics.sensors.IMUDefinition;
 import us.ihmc.sensorProcessing.communication.packets.dataobjects.RobotConfigurationDataFactory;
-import us.ihmc.sensorProcessing.pointClouds.combinationQuadTreeOctTree.QuadTreeForGroundHeightMap;
 import us.ihmc.yoVariables.registry.YoVariableRegistry;
 
 public class HeightQuadTreeToolboxController extends ToolboxController
@@ -45,7 +46,7 @@ public class HeightQuadTreeToolboxController extends ToolboxController
    private static final ReferenceFrame worldFrame = ReferenceFrame.getWorldFrame();
    private static final double QUAD_TREE_EXTENT = 200;
 
-   private final QuadTreeForGroundHeightMap quadTree;
+   private final ConcurrentQuadTreeForGround quadTree;
 
    private float quadtreeHeightThreshold = 0.02f;
    private float quadTreeMaxMultiLevelZChangeToFilterNoise = 0.2f;
@@ -88,7 +89,7 @@ public class HeightQuadTreeToolboxController extends ToolboxController
                                                                                        maxAllowableXYDistanceForAPointToBeConsideredClose,
                                                                                        maximumNumberOfPoints);
 
-      quadTree = new QuadTreeForGroundHeightMap(bounds, quadTreeParameters);
+      quadTree = new ConcurrentQuadTreeForGround(bounds, quadTreeParameters);
    }
 
    @Override
@@ -119,19 +120,27 @@ public class HeightQuadTreeToolboxController extends ToolboxController
          if (command.isClearQuadTreeRequested())
          {
             PrintTools.info("clearing the quad tree!");
-            quadTree.clearTree(Double.NaN);
+            quadTree.clear();
+            quadTree.setDefaultHeightWhenNoPoints(Double.NaN);
+            quadTree.publish();
             commandInputManager.clearAllCommands();
             return;
          }
       }
 
-      if (!quadTree.hasPoints())
+      if (quadTree.isEmpty())
       {
+         // Set the default height to the first point you see if it were not set (ie NaN)
+         if (Double.isNaN(quadTree.getDefaultHeightWhenNoPoints()))
+            quadTree.setDefaultHeightWhenNoPoints(contactPoints.get(0).getZ());
+
          for (int contactPointIndex = 0; contactPointIndex < contactPoints.size(); contactPointIndex++)
          {
             FramePoint3D contactPoint = contactPoints.get(contactPointIndex);
-            quadTree.addPoint(contactPoint.getX(), contactPoint.getY(), contactPoint.getZ());
+            quadTree.put(contactPoint.getX(), contactPoint.getY(), contactPoint.getZ());
          }
+
+         quadTree.publish();
       }
 
       if (!commandInputManager.isNewCommandAvailable(LidarScanCommand.class))
@@ -163,10 +172,13 @@ public class HeightQuadTreeToolboxController extends ToolboxController
             double x = scanPoint.getX();
             double y = scanPoint.getY();
             double z = scanPoint.getZ();
-            quadTree.addPoint(x, y, z);
+            quadTree.put(x, y, z);
          }
       }
 
+      // Makes the new points visible to the readers all at once.
+      quadTree.publish();
+
       if (DEBUG)
          PrintTools.debug("Done updating the QuadTree.");
 
@@ -177,11 +189,20 @@ public class HeightQuadTreeToolboxController extends ToolboxController
          Point3D rootJointPosition = new Point3D();
          rootJointPosition.set(rootJoint.getJointPose().getPosition());
          robotPosition2d.set(rootJointPosition.getX(), rootJointPosition.getY());
-         reportMessage(HeightQuadTreeMessageConverter.convertQuadTreeForGround(quadTree, robotPosition2d, quadTreeMessageMaxRadius));
+         reportMessage(HeightQuadTreeMessageConverter.convertQuadTreeForGround(quadTree.getSnapshot(), robotPosition2d, quadTreeMessageMaxRadius));
          quadTreeUpdateRequested.setValue(false);
       }
    }
 
+   /**
+    * Gets the last version of the height map. It can be called from any thread and never blocks the
+    * thread updating the height map.
+    */
+   public QuadTreeForGroundSnapshot getQuadTreeSnapshot()
+   {
+      return quadTree.getSnapshot();
+   }
+
    private final FramePoint2D contactPoint2d = new FramePoint2D();
 
    private void updateRobotContactPoints()
@@ -4,9 +4,13 @@ import java.util.ArrayList;
 import java.util.List;
 import java.util.Random;
 import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
 import java.util.concurrent.atomic.AtomicReference;
 
 import controller_msgs.msg.dds.KinematicsToolboxOutputStatus;
+import controller_msgs.msg.dds.KinematicsToolboxRigidBodyMessage;
 import controller_msgs.msg.dds.RobotConfigurationData;
 import controller_msgs.msg.dds.WholeBodyTrajectoryToolboxOutputStatus;
 import us.ihmc.avatar.drcRobot.DRCRobotModel;
@@ -57,8 +61,16 @@ public class WholeBodyTrajectoryToolboxController extends ToolboxController
 
    private final Random randomManager = new Random(1);
 
+   private final DRCRobotModel drcRobotModel;
    private final HumanoidKinematicsSolver humanoidKinematicsSolver;
 
+   /*
+    * Workers validating the candidates, the first one is the calling thread and uses humanoidKinematicsSolver.
+    */
+   private final List<HumanoidKinematicsSolver> workerKinematicsSolvers = new ArrayList<>();
+   private final List<Future<?>> pendingValidations = new ArrayList<>();
+   private ExecutorService workerExecutor = null;
+
    private final WholeBodyTrajectoryToolboxOutputStatus toolboxSolution;
 
    private WholeBodyTrajectoryToolboxData toolboxData;
@@ -129,6 +141,12 @@ public class WholeBodyTrajectoryToolboxController extends ToolboxController
 
    private YoInteger numberOfIterationForShortcutOptimization = new YoInteger("numberOfIterationForShortcutOptimization", registry);
 
+   // number of initial guesses or tree expansion candidates validated at each update.
+   private final YoInteger numberOfCandidatesPerUpdate = new YoInteger("numberOfCandidatesPerUpdate", registry);
+   private final List<SpatialNode> candidates = new ArrayList<>();
+   private final List<List<KinematicsToolboxRigidBodyMessage>> candidateMessages = new ArrayList<>();
+   private double[] candidateJointLimitScores = new double[0];
+
    /**
     * Toolbox state
     */
@@ -157,6 +175,7 @@ public class WholeBodyTrajectoryToolboxController extends ToolboxController
                                                YoGraphicsListRegistry yoGraphicsListRegistry, boolean visualize)
    {
       super(statusOutputManager, registry);
+      this.drcRobotModel = drcRobotModel;
       this.commandInputManager = commandInputManager;
 
       visualizedFullRobotModel = fullRobotModel;
@@ -185,8 +204,10 @@ public class WholeBodyTrajectoryToolboxController extends ToolboxController
       numberOfIterationForShortcutOptimization.set(DEFAULT_NUMBER_OF_ITERATIONS_FOR_SHORTCUT_OPTIMIZATION);
       maximumNumberOfIterations.set(DEFAULT_MAXIMUM_NUMBER_OF_ITERATIONS);
       terminalConditionNumberOfValidInitialGuesses.set(TERMINAL_CONDITION_NUMBER_OF_VALID_INITIAL_GUESSES);
+      numberOfCandidatesPerUpdate.set(1);
 
       humanoidKinematicsSolver = new HumanoidKinematicsSolver(drcRobotModel, yoGraphicsListRegistry, registry);
+      workerKinematicsSolvers.add(humanoidKinematicsSolver);
 
       toolboxSolution = new WholeBodyTrajectoryToolboxOutputStatus();
       toolboxSolution.setDestination(-1);
@@ -198,6 +219,80 @@ public class WholeBodyTrajectoryToolboxController extends ToolboxController
       yoGraphicsListRegistry.registerYoGraphic("testFrameYoGraphic", testFrameViz);
    }
 
+   /**
+    * Sets the number of threads validating the initial guesses and the tree expansion candidates.
+    * <p>
+    * Each additional worker has its own robot model and {@link HumanoidKinematicsSolver}. The
+    * candidates are still sampled, and attached to the tree, in order on the calling thread and each
+    * candidate is always validated by the same worker, such that the planned trajectory only depends
+    * on the random seed, the number of workers and {@link #setNumberOfCandidatesPerUpdate(int)}.
+    * </p>
+    * 
+    * @param numberOfWorkers the number of threads, including the calling thread.
+    */
+   public void setNumberOfWorkers(int numberOfWorkers)
+   {
+      if (numberOfWorkers < 1)
+         throw new IllegalArgumentException("The number of workers has to be at least 1, was " + numberOfWorkers);
+
+      if (workerExecutor != null)
+      {
+         workerExecutor.shutdown();
+         workerExecutor = null;
+      }
+
+      while (workerKinematicsSolvers.size() > numberOfWorkers)
+         workerKinematicsSolvers.remove(workerKinematicsSolvers.size() - 1);
+
+      while (workerKinematicsSolvers.size() < numberOfWorkers)
+      {
+         YoVariableRegistry workerRegistry = new YoVariableRegistry("worker" + workerKinematicsSolvers.size());
+         workerKinematicsSolvers.add(new HumanoidKinematicsSolver(drcRobotModel, new YoGraphicsListRegistry(), workerRegistry));
+      }
+
+      if (numberOfWorkers > 1)
+      {
+         String threadName = getClass().getSimpleName() + "Worker";
+         workerExecutor = Executors.newFixedThreadPool(numberOfWorkers - 1, runnable ->
+         {
+            Thread thread = new Thread(runnable, threadName);
+            thread.setDaemon(true);
+            return thread;
+         });
+      }
+   }
+
+   public int getNumberOfWorkers()
+   {
+      return workerKinematicsSolvers.size();
+   }
+
+   /**
+    * Stops the additional workers, this controller cannot be used afterwards when it has more than
+    * one worker.
+    */
+   public void close()
+   {
+      if (workerExecutor != null)
+         workerExecutor.shutdown();
+   }
+
+   /**
+    * Sets the number of initial guesses, or tree expansion candidates, validated at each update.
+    * <p>
+    * The tree expansion candidates of one update are all created from the tree as it was at the
+    * beginning of the update, so more candidates per update keep more workers busy but the tree grows
+    * from less recent nodes. With one candidate per update, the toolbox behaves as without workers.
+    * </p>
+    */
+   public void setNumberOfCandidatesPerUpdate(int numberOfCandidatesPerUpdate)
+   {
+      if (numberOfCandidatesPerUpdate < 1)
+         throw new IllegalArgumentException("The number of candidates per update has to be at least 1, was " + numberOfCandidatesPerUpdate);
+
+      this.numberOfCandidatesPerUpdate.set(numberOfCandidatesPerUpdate);
+   }
+
    @Override
    public void updateInternal() throws InterruptedException, ExecutionException
    {
@@ -384,84 +479,66 @@ public class WholeBodyTrajectoryToolboxController extends ToolboxController
    /**
     * state == EXPAND_TREE
     */
-   private void expandingTree()
+   private void expandingTree() throws InterruptedException, ExecutionException
    {
-      currentExpansionSize.increment();
-      boolean isExpandingTerminalCondition = false;
+      int numberOfCandidates = Math.min(numberOfCandidatesPerUpdate.getIntegerValue(),
+                                        maximumExpansionSize.getIntegerValue() - currentExpansionSize.getIntegerValue());
 
-      boolean randomNodeHasParentNode = false;
-      int maximumPatientCounter = 1000;
-      while (!randomNodeHasParentNode)
-      {
-         SpatialNode randomNode;
+      candidates.clear();
+      for (int i = 0; i < Math.max(1, numberOfCandidates); i++)
+         candidates.add(createExpansionCandidate());
 
-         SpatialData randomData = toolboxData.createRandomSpatialData();
-         double nextDouble = WholeBodyTrajectoryToolboxSettings.randomManager.nextDouble();
-         double randomTime = nextDouble * (1.0 + WholeBodyTrajectoryToolboxSettings.timeCoefficient * tree.getMostAdvancedTime());
+      updateValidity(candidates, false);
 
-         randomNode = new SpatialNode(randomTime, randomData);
+      boolean isExpandingTerminalCondition = false;
 
-         tree.setRandomNode(randomNode);
-         if (trajectoryCommands != null)
-            randomNodeHasParentNode = tree.findNearestValidNodeToCandidate(true);
-         if (manifoldCommands != null)
-            randomNodeHasParentNode = tree.findNearestValidNodeToCandidate(false);
+      for (int i = 0; i < candidates.size() && !isExpandingTerminalCondition; i++)
+      {
+         currentExpansionSize.increment();
+         SpatialNode candidate = candidates.get(i);
 
-         if (randomNodeHasParentNode)
-         {
-            tree.limitCandidateDistanceFromParent(toolboxData.getTrajectoryTime());
-            SpatialNode candidate = tree.getCandidate();
-            updateValidity(candidate);
+         /*
+          * visualize
+          */
+         visualizedNode = new SpatialNode(candidate);
+         nodePlotter.update(candidate, 1);
 
-            /*
-             * visualize
-             */
-            visualizedNode = new SpatialNode(candidate);
-            nodePlotter.update(candidate, 1);
+         if (candidate.isValid())
+         {
+            tree.attachCandidate(candidate);
+            numberOfValidPosture++;
 
-            if (candidate.isValid())
+            // TODO: generic terminal conditions.
+            if (trajectoryCommands != null)
             {
-               tree.attachCandidate();
-               numberOfValidPosture++;
-
-               // TODO: generic terminal conditions.
-               if (trajectoryCommands != null)
-               {
-                  if (tree.getMostAdvancedTime() >= toolboxData.getTrajectoryTime())
-                     isExpandingTerminalCondition = true;
-               }
-               else if (manifoldCommands != null)
-               {  
-                  Pose3D testFrame = toolboxData.getTestFrame(tree.getLastNodeAdded());
-
-                  testFramePose.setPosition(testFrame.getPosition());
-                  testFramePose.setOrientation(testFrame.getOrientation());
-                  testFrameViz.setVisible(true);
-                  testFrameViz.update();
-
-                  // TODO : terminal condition for manifold command.
-                  double maximumDistanceFromManifolds = toolboxData.getMaximumDistanceFromManifolds(tree.getLastNodeAdded());
-                  minimumDistanceFromManifold.set(maximumDistanceFromManifolds);
-                  if(maximumDistanceFromManifolds < 0.05)
-                     isExpandingTerminalCondition = true;
-               }
-               else
-               {
-                  if (VERBOSE)
-                     PrintTools.warn("any command is available");
-               }
+               if (tree.getMostAdvancedTime() >= toolboxData.getTrajectoryTime())
+                  isExpandingTerminalCondition = true;
+            }
+            else if (manifoldCommands != null)
+            {  
+               Pose3D testFrame = toolboxData.getTestFrame(tree.getLastNodeAdded());
+
+               testFramePose.setPosition(testFrame.getPosition());
+               testFramePose.setOrientation(testFrame.getOrientation());
+               testFrameViz.setVisible(true);
+               testFrameViz.update();
+
+               // TODO : terminal condition for manifold command.
+               double maximumDistanceFromManifolds = toolboxData.getMaximumDistanceFromManifolds(tree.getLastNodeAdded());
+               minimumDistanceFromManifold.set(maximumDistanceFromManifolds);
+               if(maximumDistanceFromManifolds < 0.05)
+                  isExpandingTerminalCondition = true;
             }
             else
             {
-               tree.dismissCandidate();
-               numberOfInvalidPosture++;
+               if (VERBOSE)
+                  PrintTools.warn("any command is available");
             }
          }
          else
          {
-            maximumPatientCounter--;
-            if (maximumPatientCounter == 0)
-               continue;
+            tree.dismissCandidate(candidate);
+            numberOfInvalidPosture++;
          }
       }
 
@@ -488,6 +565,41 @@ public class WholeBodyTrajectoryToolboxController extends ToolboxController
       shortcutStartTime = updateTimer(treeExpansionComputationTime, treeExpansionStartTime);
    }
 
+   /**
+    * Samples random nodes until one has a parent in the tree and returns the candidate towards it.
+    */
+   private SpatialNode createExpansionCandidate()
+   {
+      boolean randomNodeHasParentNode = false;
+      int maximumPatientCounter = 1000;
+      while (!randomNodeHasParentNode)
+      {
+         SpatialNode randomNode;
+
+         SpatialData randomData = toolboxData.createRandomSpatialData();
+         double nextDouble = WholeBodyTrajectoryToolboxSettings.randomManager.nextDouble();
+         double randomTime = nextDouble * (1.0 + WholeBodyTrajectoryToolboxSettings.timeCoefficient * tree.getMostAdvancedTime());
+
+         randomNode = new SpatialNode(randomTime, randomData);
+
+         tree.setRandomNode(randomNode);
+         if (trajectoryCommands != null)
+            randomNodeHasParentNode = tree.findNearestValidNodeToCandidate(true);
+         if (manifoldCommands != null)
+            randomNodeHasParentNode = tree.findNearestValidNodeToCandidate(false);
+
+         if (!randomNodeHasParentNode)
+         {
+            maximumPatientCounter--;
+            if (maximumPatientCounter == 0)
+               continue;
+         }
+      }
+
+      tree.limitCandidateDistanceFromParent(toolboxData.getTrajectoryTime());
+      return tree.getCandidate();
+   }
+
    /**
     * state == FIND_INITIAL_GUESS
     */
@@ -554,33 +666,45 @@ public class WholeBodyTrajectoryToolboxController extends ToolboxController
       treeExpansionStartTime = updateTimer(initialGuessComputationTime, initialGuessStartTime);
    }
 
-   private void findInitialGuess()
+   private void findInitialGuess() throws InterruptedException, ExecutionException
    {
-      SpatialData initialGuessData = toolboxData.createRandomSpatialData();
+      int numberOfCandidates = Math.min(numberOfCandidatesPerUpdate.getIntegerValue(),
+                                        desiredNumberOfInitialGuesses.getIntegerValue() - currentNumberOfInitialGuesses.getIntegerValue());
 
-      SpatialNode initialGuessNode = new SpatialNode(initialGuessData);
-      updateValidity(initialGuessNode);
+      candidates.clear();
+      for (int i = 0; i < Math.max(1, numberOfCandidates); i++)
+         candidates.add(new SpatialNode(toolboxData.createRandomSpatialData()));
 
-      visualizedNode = initialGuessNode;
+      updateValidity(candidates, true);
 
-      double jointScore = 0.0;
-      if (initialGuessNode.isValid())
+      boolean isTerminalCondition = false;
+
+      for (int i = 0; i < candidates.size() && !isTerminalCondition; i++)
       {
-         tree.addInitialNode(initialGuessNode);
-         currentNumberOfValidInitialGuesses.increment();
-         jointScore = computeArmJointsLimitScore(humanoidKinematicsSolver.getDesiredFullRobotModel());
-      }
-      jointlimitScore.set(jointScore);
+         SpatialNode initialGuessNode = candidates.get(i);
+         visualizedNode = initialGuessNode;
 
-      nodePlotter.update(initialGuessNode, 1);
+         double jointScore = 0.0;
+         if (initialGuessNode.isValid())
+         {
+            tree.addInitialNode(initialGuessNode);
+            currentNumberOfValidInitialGuesses.increment();
+            jointScore = candidateJointLimitScores[i];
+         }
+         jointlimitScore.set(jointScore);
+
+         nodePlotter.update(initialGuessNode, 1);
+
+         currentNumberOfInitialGuesses.increment();
+
+         isTerminalCondition = currentNumberOfInitialGuesses.getIntegerValue() >= desiredNumberOfInitialGuesses.getIntegerValue()
+               || currentNumberOfValidInitialGuesses.getIntegerValue() >= terminalConditionNumberOfValidInitialGuesses.getIntegerValue();
+      }
 
       /*
        * terminate finding initial guess.
        */
-      currentNumberOfInitialGuesses.increment();
-
-      if (currentNumberOfInitialGuesses.getIntegerValue() >= desiredNumberOfInitialGuesses.getIntegerValue()
-            || currentNumberOfValidInitialGuesses.getIntegerValue() >= terminalConditionNumberOfValidInitialGuesses.getIntegerValue())
+      if (isTerminalCondition)
       {
          if (tree.getValidNodes().size() == 0)
          {
@@ -651,6 +775,11 @@ public class WholeBodyTrajectoryToolboxController extends ToolboxController
       numberOfValidPosture = 0;
       numberOfInvalidPosture = 0;
 
+      currentNumberOfIterations.set(0);
+      currentExpansionSize.set(0);
+      currentNumberOfInitialGuesses.set(0);
+      currentNumberOfValidInitialGuesses.set(0);
+
       rootNode = null;
       nodePlotter = new SpatialNodePlotter(toolboxData, visualize);
 
@@ -808,29 +937,91 @@ public class WholeBodyTrajectoryToolboxController extends ToolboxController
     * update validity of input node.
     */
    private boolean updateValidity(SpatialNode node)
+   {
+      return updateValidity(humanoidKinematicsSolver, node, toolboxData.createMessages(node));
+   }
+
+   private boolean updateValidity(HumanoidKinematicsSolver kinematicsSolver, SpatialNode node, List<KinematicsToolboxRigidBodyMessage> messages)
    {
       if (node.getParent() != null && node.getParent().getConfiguration() != null)
       {
-         humanoidKinematicsSolver.setInitialConfiguration(node.getParent().getConfiguration());
+         kinematicsSolver.setInitialConfiguration(node.getParent().getConfiguration());
       }
       else
       {
-         humanoidKinematicsSolver.setInitialConfiguration(initialConfiguration);
+         kinematicsSolver.setInitialConfiguration(initialConfiguration);
       }
 
-      humanoidKinematicsSolver.initialize();
-      humanoidKinematicsSolver.submit(toolboxData.createMessages(node));
+      kinematicsSolver.initialize();
+      kinematicsSolver.submit(messages);
       /*
        * result
        */
-      boolean success = humanoidKinematicsSolver.solve();
+      boolean success = kinematicsSolver.solve();
 
-      node.setConfiguration(humanoidKinematicsSolver.getSolution());
+      node.setConfiguration(kinematicsSolver.getSolution());
       node.setValidity(success);
 
       return success;
    }
 
+   /**
+    * update validity of the candidates, the candidate {@code i} is always validated by the worker
+    * {@code i % numberOfWorkers}.
+    */
+   private void updateValidity(List<SpatialNode> nodes, boolean computeJointLimitScores) throws InterruptedException, ExecutionException
+   {
+      candidateMessages.clear();
+      for (int i = 0; i < nodes.size(); i++)
+         candidateMessages.add(toolboxData.createMessages(nodes.get(i)));
+
+      if (computeJointLimitScores && candidateJointLimitScores.length < nodes.size())
+         candidateJointLimitScores = new double[nodes.size()];
+
+      int numberOfWorkers = Math.min(workerKinematicsSolvers.size(), nodes.size());
+
+      for (int workerIndex = 1; workerIndex < numberOfWorkers; workerIndex++)
+      {
+         int firstNodeIndex = workerIndex;
+         pendingValidations.add(workerExecutor.submit(() -> updateValidity(firstNodeIndex, nodes, computeJointLimitScores)));
+      }
+
+      updateValidity(0, nodes, computeJointLimitScores);
+
+      ExecutionException failure = null;
+
+      for (int i = 0; i < pendingValidations.size(); i++)
+      {
+         try
+         {
+            pendingValidations.get(i).get();
+         }
+         catch (ExecutionException e)
+         {
+            if (failure == null)
+               failure = e;
+         }
+      }
+
+      pendingValidations.clear();
+
+      if (failure != null)
+         throw failure;
+   }
+
+   private void updateValidity(int workerIndex, List<SpatialNode> nodes, boolean computeJointLimitScores)
+   {
+      HumanoidKinematicsSolver kinematicsSolver = workerKinematicsSolvers.get(workerIndex);
+
+      for (int i = workerIndex; i < nodes.size(); i += workerKinematicsSolvers.size())
+      {
+         boolean success = updateValidity(kinematicsSolver, nodes.get(i), candidateMessages.get(i));
+
+         if (computeJointLimitScores)
+            candidateJointLimitScores[i] = success ? computeArmJointsLimitScore(kinematicsSolver.getDesiredFullRobotModel()) : 0.0;
+      }
+   }
+
    /**
     * set fullRobotModel.
     */
@@ -54,6 +54,13 @@ public class WholeBodyTrajectoryToolboxModule extends ToolboxModule
       return wholeBodyTrajectoryToolboxController;
    }
 
+   @Override
+   public void destroy()
+   {
+      super.destroy();
+      wholeBodyTrajectoryToolboxController.close();
+   }
+
    @Override
    public List<Class<? extends Command<?, ?>>> createListOfSupportedCommands()
    {
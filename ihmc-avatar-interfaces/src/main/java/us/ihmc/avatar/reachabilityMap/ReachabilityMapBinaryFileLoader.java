@@ -0,0 +1,320 @@
+package us.ihmc.avatar.reachabilityMap;
+
+import java.io.IOException;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.channels.FileChannel.MapMode;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+
+import us.ihmc.avatar.reachabilityMap.voxelPrimitiveShapes.SphereVoxelShape;
+import us.ihmc.avatar.reachabilityMap.voxelPrimitiveShapes.SphereVoxelShape.SphereVoxelType;
+import us.ihmc.euclid.referenceFrame.ReferenceFrame;
+import us.ihmc.euclid.transform.RigidBodyTransform;
+import us.ihmc.euclid.tuple3D.Point3D;
+import us.ihmc.euclid.tuple3D.interfaces.Point3DReadOnly;
+
+/**
+ * Loads a reachability map written by {@link ReachabilityMapBinaryFileWriter}.
+ * <p>
+ * The data is memory-mapped and is not copied into memory, such that the map is readily available
+ * regardless of its size. The queries only perform absolute reads and this loader can be used
+ * concurrently from multiple threads.
+ * </p>
+ */
+public class ReachabilityMapBinaryFileLoader
+{
+   /** "RMAP" */
+   static final int MAGIC_NUMBER = 0x524D4150;
+   static final int FORMAT_VERSION = 1;
+
+   private final String robotName;
+   private final String[] jointNames;
+   private final double[] jointLimitsLower;
+   private final double[] jointLimitsUpper;
+   private final String gridFrameName;
+   private final String parentFrameName;
+   private final RigidBodyTransform gridTransformToParent = new RigidBodyTransform();
+
+   private final int numberOfVoxelsPerDimension;
+   private final double voxelSize;
+   private final double gridSize;
+   private final int numberOfRays;
+   private final int numberOfRotationsAroundRay;
+
+   private final MappedByteBuffer buffer;
+   private final int rayCountOffset;
+   private final int poseBitsOffset;
+
+   public ReachabilityMapBinaryFileLoader(Path filePath) throws IOException
+   {
+      try (FileChannel fileChannel = FileChannel.open(filePath, StandardOpenOption.READ))
+      {
+         if (fileChannel.size() > Integer.MAX_VALUE)
+            throw new IOException("Reachability map is too large to be memory-mapped: " + fileChannel.size() + " bytes.");
+         // The mapping remains valid after the channel is closed.
+         buffer = fileChannel.map(MapMode.READ_ONLY, 0, fileChannel.size());
+      }
+
+      int magicNumber = buffer.getInt();
+      if (magicNumber != MAGIC_NUMBER)
+         throw new IOException("The file " + filePath + " is not a reachability map.");
+      int version = buffer.getInt();
+      if (version != FORMAT_VERSION)
+         throw new IOException("Unsupported reachability map version: " + version + ", expected: " + FORMAT_VERSION);
+
+      robotName = readString();
+
+      int numberOfJoints = buffer.getInt();
+      jointNames = new String[numberOfJoints];
+      jointLimitsLower = new double[numberOfJoints];
+      jointLimitsUpper = new double[numberOfJoints];
+
+      for (int i = 0; i < numberOfJoints; i++)
+      {
+         jointNames[i] = readString();
+         jointLimitsLower[i] = buffer.getDouble();
+         jointLimitsUpper[i] = buffer.getDouble();
+      }
+
+      gridFrameName = readString();
+      parentFrameName = readString();
+
+      double m00 = buffer.getDouble(), m01 = buffer.getDouble(), m02 = buffer.getDouble(), m03 = buffer.getDouble();
+      double m10 = buffer.getDouble(), m11 = buffer.getDouble(), m12 = buffer.getDouble(), m13 = buffer.getDouble();
+      double m20 = buffer.getDouble(), m21 = buffer.getDouble(), m22 = buffer.getDouble(), m23 = buffer.getDouble();
+      gridTransformToParent.set(m00, m01, m02, m03, m10, m11, m12, m13, m20, m21, m22, m23);
+
+      numberOfVoxelsPerDimension = buffer.getInt();
+      voxelSize = buffer.getDouble();
+      numberOfRays = buffer.getInt();
+      numberOfRotationsAroundRay = buffer.getInt();
+      gridSize = numberOfVoxelsPerDimension * voxelSize;
+
+      rayCountOffset = buffer.position();
+      long totalNumberOfVoxels = (long) numberOfVoxelsPerDimension * numberOfVoxelsPerDimension * numberOfVoxelsPerDimension;
+      poseBitsOffset = (int) (rayCountOffset + 2L * totalNumberOfVoxels);
+
+      long expectedSize = poseBitsOffset + (totalNumberOfVoxels * numberOfRays * numberOfRotationsAroundRay + 7L) / 8L;
+      if (buffer.capacity() < expectedSize)
+         throw new IOException("The file " + filePath + " is truncated, expected " + expectedSize + " bytes, got " + buffer.capacity() + " bytes.");
+   }
+
+   private String readString()
+   {
+      byte[] bytes = new byte[buffer.getInt()];
+      buffer.get(bytes);
+      return new String(bytes, StandardCharsets.UTF_8);
+   }
+
+   private int getLinearVoxelIndex(int xIndex, int yIndex, int zIndex)
+   {
+      return (xIndex * numberOfVoxelsPerDimension + yIndex) * numberOfVoxelsPerDimension + zIndex;
+   }
+
+   /**
+    * Gets the number of rays that have been reached at the given voxel.
+    */
+   public int getNumberOfReachableRays(int xIndex, int yIndex, int zIndex)
+   {
+      return buffer.getShort(rayCountOffset + 2 * getLinearVoxelIndex(xIndex, yIndex, zIndex));
+   }
+
+   /**
+    * Return the D reachability value in percent for this voxel based on the number of the rays that
+    * have been reached.
+    *
+    * @see Voxel3DGrid#getD(int, int, int)
+    */
+   public double getD(int xIndex, int yIndex, int zIndex)
+   {
+      return getNumberOfReachableRays(xIndex, yIndex, zIndex) / (double) numberOfRays;
+   }
+
+   /**
+    * Return the D0 reachability value in percent for this voxel based on the number of the
+    * orientations that have been reached.
+    *
+    * @see Voxel3DGrid#getD0(int, int, int)
+    */
+   public double getD0(int xIndex, int yIndex, int zIndex)
+   {
+      int numberOfReachablePoses = 0;
+
+      for (int rayIndex = 0; rayIndex < numberOfRays; rayIndex++)
+      {
+         for (int rotationIndex = 0; rotationIndex < numberOfRotationsAroundRay; rotationIndex++)
+         {
+            if (isPoseReachable(xIndex, yIndex, zIndex, rayIndex, rotationIndex))
+               numberOfReachablePoses++;
+         }
+      }
+
+      return numberOfReachablePoses / (double) (numberOfRays * numberOfRotationsAroundRay);
+   }
+
+   public boolean isPoseReachable(int xIndex, int yIndex, int zIndex, int rayIndex, int rotationAroundRayIndex)
+   {
+      long bitIndex = ((long) getLinearVoxelIndex(xIndex, yIndex, zIndex) * numberOfRays + rayIndex) * numberOfRotationsAroundRay + rotationAroundRayIndex;
+      byte value = buffer.get((int) (poseBitsOffset + (bitIndex >>> 3)));
+      return (value & (1 << (bitIndex & 7))) != 0;
+   }
+
+   /**
+    * Computes the index of the voxel containing the given coordinate expressed in the grid frame.
+    *
+    * @param coordinate the coordinate along any of the grid axes.
+    * @return the voxel index or {@code -1} if the coordinate is outside the grid.
+    */
+   public int getVoxelIndex(double coordinate)
+   {
+      double index = Math.floor((coordinate + 0.5 * gridSize) / voxelSize);
+      if (index < 0.0 || index >= numberOfVoxelsPerDimension)
+         return -1;
+      return (int) index;
+   }
+
+   /**
+    * Gets the D reachability value of the voxel containing the given point.
+    *
+    * @param pointInGridFrame the query expressed in the grid frame.
+    * @return the reachability in [0, 1], 0 when the query is outside the grid.
+    */
+   public double getReachability(Point3DReadOnly pointInGridFrame)
+   {
+      return getReachability(pointInGridFrame.getX(), pointInGridFrame.getY(), pointInGridFrame.getZ());
+   }
+
+   public double getReachability(double xInGridFrame, double yInGridFrame, double zInGridFrame)
+   {
+      int xIndex = getVoxelIndex(xInGridFrame);
+      int yIndex = getVoxelIndex(yInGridFrame);
+      int zIndex = getVoxelIndex(zInGridFrame);
+
+      if (xIndex < 0 || yIndex < 0 || zIndex < 0)
+         return 0.0;
+
+      return getD(xIndex, yIndex, zIndex);
+   }
+
+   /**
+    * Gets the D reachability value of the voxel containing the given point.
+    *
+    * @param pointInParentFrame the query expressed in the parent frame of the grid, see
+    *                           {@link #getParentFrameName()}.
+    * @return the reachability in [0, 1], 0 when the query is outside the grid.
+    */
+   public double getReachabilityInParentFrame(Point3DReadOnly pointInParentFrame)
+   {
+      Point3D pointInGridFrame = new Point3D(pointInParentFrame);
+      gridTransformToParent.inverseTransform(pointInGridFrame);
+      return getReachability(pointInGridFrame);
+   }
+
+   /**
+    * Whether at least one orientation is reachable at the voxel containing the given point.
+    *
+    * @param pointInGridFrame the query expressed in the grid frame.
+    */
+   public boolean isReachable(Point3DReadOnly pointInGridFrame)
+   {
+      return getReachability(pointInGridFrame) > 0.0;
+   }
+
+   /**
+    * Creates a {@link Voxel3DGrid} with the data of this map.
+    *
+    * @param gridFrame the frame to use for the grid, it should be consistent with
+    *                  {@link #getGridFrameName()}.
+    * @return the new grid.
+    */
+   public Voxel3DGrid createVoxel3DGrid(ReferenceFrame gridFrame)
+   {
+      SphereVoxelShape sphereVoxelShape = new SphereVoxelShape(gridFrame, voxelSize, numberOfRays, numberOfRotationsAroundRay, SphereVoxelType.graspOrigin);
+      Voxel3DGrid grid = new Voxel3DGrid(gridFrame, sphereVoxelShape, numberOfVoxelsPerDimension, voxelSize);
+
+      for (int xIndex = 0; xIndex < numberOfVoxelsPerDimension; xIndex++)
+      {
+         for (int yIndex = 0; yIndex < numberOfVoxelsPerDimension; yIndex++)
+         {
+            for (int zIndex = 0; zIndex < numberOfVoxelsPerDimension; zIndex++)
+            {
+               if (getNumberOfReachableRays(xIndex, yIndex, zIndex) == 0)
+                  continue;
+
+               for (int rayIndex = 0; rayIndex < numberOfRays; rayIndex++)
+               {
+                  for (int rotationIndex = 0; rotationIndex < numberOfRotationsAroundRay; rotationIndex++)
+                  {
+                     if (isPoseReachable(xIndex, yIndex, zIndex, rayIndex, rotationIndex))
+                        grid.registerReachablePose(xIndex, yIndex, zIndex, rayIndex, rotationIndex);
+                  }
+               }
+            }
+         }
+      }
+
+      return grid;
+   }
+
+   public String getRobotName()
+   {
+      return robotName;
+   }
+
+   public String[] getJointNames()
+   {
+      return jointNames;
+   }
+
+   public double[] getJointLimitsLower()
+   {
+      return jointLimitsLower;
+   }
+
+   public double[] getJointLimitsUpper()
+   {
+      return jointLimitsUpper;
+   }
+
+   public String getGridFrameName()
+   {
+      return gridFrameName;
+   }
+
+   public String getParentFrameName()
+   {
+      return parentFrameName;
+   }
+
+   public RigidBodyTransform getGridTransformToParent()
+   {
+      return gridTransformToParent;
+   }
+
+   public int getNumberOfVoxelsPerDimension()
+   {
+      return numberOfVoxelsPerDimension;
+   }
+
+   public double getVoxelSize()
+   {
+      return voxelSize;
+   }
+
+   public double getGridSize()
+   {
+      return gridSize;
+   }
+
+   public int getNumberOfRays()
+   {
+      return numberOfRays;
+   }
+
+   public int getNumberOfRotationsAroundRay()
+   {
+      return numberOfRotationsAroundRay;
+   }
+}
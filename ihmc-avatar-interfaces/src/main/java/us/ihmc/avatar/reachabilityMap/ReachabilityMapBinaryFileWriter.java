@@ -0,0 +1,183 @@
+package us.ihmc.avatar.reachabilityMap;
+
+import java.io.BufferedOutputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.text.DateFormat;
+import java.text.SimpleDateFormat;
+import java.util.Date;
+
+import us.ihmc.commons.nio.FileTools;
+import us.ihmc.euclid.referenceFrame.FramePose3D;
+import us.ihmc.euclid.referenceFrame.ReferenceFrame;
+import us.ihmc.euclid.transform.RigidBodyTransform;
+import us.ihmc.mecano.multiBodySystem.interfaces.OneDoFJointBasics;
+
+/**
+ * Writes a reachability map in a compact binary format that can be memory-mapped by
+ * {@link ReachabilityMapBinaryFileLoader}.
+ * <p>
+ * The file is made of a header describing the robot arm and the grid, followed by:
+ * <ul>
+ * <li>the number of reachable rays of each voxel stored as a {@code short}, the voxels are ordered
+ * x-major, then y, then z,
+ * <li>a bit-set with one bit per pose, i.e. per voxel, ray and rotation around the ray, in the same
+ * order.
+ * </ul>
+ * Compared to the Excel file written by {@link ReachabilityMapFileWriter}, the size of this file
+ * does not depend on the number of reachable poses and it can be queried without being parsed.
+ * </p>
+ */
+public class ReachabilityMapBinaryFileWriter
+{
+   public static final String FILE_EXTENSION = ".rmap";
+
+   private final String robotName;
+   private final Path filePath;
+
+   /**
+    * Creates a new writer that will export the map in the resources folder associated to the given
+    * class, see {@link ReachabilityMapFileWriter#deriveResourcesPath(Class)}.
+    *
+    * @param robotName        the robot name.
+    * @param classForFilePath this can be the class of the caller of this method.
+    */
+   public ReachabilityMapBinaryFileWriter(String robotName, Class<?> classForFilePath) throws IOException
+   {
+      this.robotName = robotName;
+      DateFormat dateFormat = new SimpleDateFormat("yyyyMMdd_HHmmss_");
+      String fileName = dateFormat.format(new Date()) + robotName + FILE_EXTENSION;
+      Path directory = ReachabilityMapFileWriter.deriveResourcesPath(classForFilePath);
+      FileTools.ensureDirectoryExists(directory);
+      filePath = directory.resolve(fileName);
+   }
+
+   public void export(OneDoFJointBasics[] robotArmJoints, Voxel3DGrid gridToWrite) throws IOException
+   {
+      write(filePath, robotName, robotArmJoints, gridToWrite);
+   }
+
+   public Path getFilePath()
+   {
+      return filePath;
+   }
+
+   /**
+    * Writes the given grid to file.
+    *
+    * @param filePath       the file to write to.
+    * @param robotName      the robot name.
+    * @param robotArmJoints the joints of the kinematic chain the map was computed for.
+    * @param gridToWrite    the grid to write.
+    * @throws IOException if an I/O error occurs.
+    */
+   public static void write(Path filePath, String robotName, OneDoFJointBasics[] robotArmJoints, Voxel3DGrid gridToWrite) throws IOException
+   {
+      int numberOfVoxelsPerDimension = gridToWrite.getNumberOfVoxelsPerDimension();
+      int numberOfRays = gridToWrite.getSphereVoxelShape().getNumberOfRays();
+      int numberOfRotationsAroundRay = gridToWrite.getSphereVoxelShape().getNumberOfRotationsAroundRay();
+
+      if (numberOfRays > Short.MAX_VALUE)
+         throw new IllegalArgumentException("Too many rays per voxel: " + numberOfRays);
+
+      try (DataOutputStream outputStream = new DataOutputStream(new BufferedOutputStream(Files.newOutputStream(filePath))))
+      {
+         outputStream.writeInt(ReachabilityMapBinaryFileLoader.MAGIC_NUMBER);
+         outputStream.writeInt(ReachabilityMapBinaryFileLoader.FORMAT_VERSION);
+         writeString(outputStream, robotName);
+
+         outputStream.writeInt(robotArmJoints.length);
+
+         for (OneDoFJointBasics joint : robotArmJoints)
+         {
+            writeString(outputStream, joint.getName());
+            outputStream.writeDouble(joint.getJointLimitLower());
+            outputStream.writeDouble(joint.getJointLimitUpper());
+         }
+
+         ReferenceFrame gridReferenceFrame = gridToWrite.getReferenceFrame();
+         writeString(outputStream, gridReferenceFrame.getName());
+         writeString(outputStream, gridReferenceFrame.isWorldFrame() ? "null" : gridReferenceFrame.getParent().getName());
+
+         FramePose3D poseToParent = new FramePose3D(gridReferenceFrame);
+         if (!gridReferenceFrame.isWorldFrame())
+            poseToParent.changeFrame(gridReferenceFrame.getParent());
+         RigidBodyTransform transformToParent = new RigidBodyTransform();
+         poseToParent.get(transformToParent);
+
+         double[] transformElements = {transformToParent.getM00(), transformToParent.getM01(), transformToParent.getM02(), transformToParent.getM03(),
+               transformToParent.getM10(), transformToParent.getM11(), transformToParent.getM12(), transformToParent.getM13(), transformToParent.getM20(),
+               transformToParent.getM21(), transformToParent.getM22(), transformToParent.getM23()};
+
+         for (double transformElement : transformElements)
+            outputStream.writeDouble(transformElement);
+
+         outputStream.writeInt(numberOfVoxelsPerDimension);
+         outputStream.writeDouble(gridToWrite.getVoxelSize());
+         outputStream.writeInt(numberOfRays);
+         outputStream.writeInt(numberOfRotationsAroundRay);
+
+         for (int xIndex = 0; xIndex < numberOfVoxelsPerDimension; xIndex++)
+         {
+            for (int yIndex = 0; yIndex < numberOfVoxelsPerDimension; yIndex++)
+            {
+               for (int zIndex = 0; zIndex < numberOfVoxelsPerDimension; zIndex++)
+               {
+                  int numberOfReachableRays = 0;
+
+                  for (int rayIndex = 0; rayIndex < numberOfRays; rayIndex++)
+                  {
+                     if (gridToWrite.isRayReachable(xIndex, yIndex, zIndex, rayIndex))
+                        numberOfReachableRays++;
+                  }
+
+                  outputStream.writeShort(numberOfReachableRays);
+               }
+            }
+         }
+
+         int currentByte = 0;
+         int currentBit = 0;
+
+         for (int xIndex = 0; xIndex < numberOfVoxelsPerDimension; xIndex++)
+         {
+            for (int yIndex = 0; yIndex < numberOfVoxelsPerDimension; yIndex++)
+            {
+               for (int zIndex = 0; zIndex < numberOfVoxelsPerDimension; zIndex++)
+               {
+                  for (int rayIndex = 0; rayIndex < numberOfRays; rayIndex++)
+                  {
+                     for (int rotationIndex = 0; rotationIndex < numberOfRotationsAroundRay; rotationIndex++)
+                     {
+                        if (gridToWrite.isPoseReachable(xIndex, yIndex, zIndex, rayIndex, rotationIndex))
+                           currentByte |= 1 << currentBit;
+
+                        currentBit++;
+
+                        if (currentBit == 8)
+                        {
+                           outputStream.writeByte(currentByte);
+                           currentByte = 0;
+                           currentBit = 0;
+                        }
+                     }
+                  }
+               }
+            }
+         }
+
+         if (currentBit != 0)
+            outputStream.writeByte(currentByte);
+      }
+   }
+
+   private static void writeString(DataOutputStream outputStream, String string) throws IOException
+   {
+      byte[] bytes = string.getBytes(StandardCharsets.UTF_8);
+      outputStream.writeInt(bytes.length);
+      outputStream.write(bytes);
+   }
+}
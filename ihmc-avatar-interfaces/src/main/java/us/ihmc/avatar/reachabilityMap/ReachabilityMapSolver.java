@@ -93,6 +93,20 @@ public class ReachabilityMapSolver
       angularSelection.setAxisSelection(selectX, selectY, selectZ);
    }
 
+   /**
+    * Resets the random generator used to pick the initial configurations of the arm.
+    * <p>
+    * Calling this method before every call to a {@code solveFor} method makes the result independent
+    * of the problems previously solved.
+    * </p>
+    *
+    * @param seed the new seed.
+    */
+   public void setRandomSeed(long seed)
+   {
+      random.setSeed(seed);
+   }
+
    public boolean solveFor(FramePoint3DReadOnly position, FrameQuaternionReadOnly orientation)
    {
       kinematicsToolboxController.requestInitialize();
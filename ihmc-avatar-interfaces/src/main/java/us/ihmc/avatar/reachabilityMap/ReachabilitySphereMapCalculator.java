@@ -2,6 +2,12 @@ package us.ihmc.avatar.reachabilityMap;
 
 import java.io.IOException;
 import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicInteger;
 
 import us.ihmc.avatar.reachabilityMap.voxelPrimitiveShapes.SphereVoxelShape;
 import us.ihmc.avatar.reachabilityMap.voxelPrimitiveShapes.SphereVoxelShape.SphereVoxelType;
@@ -16,7 +22,13 @@ import us.ihmc.graphicsDescription.appearance.YoAppearance;
 import us.ihmc.graphicsDescription.yoGraphics.YoGraphicCoordinateSystem;
 import us.ihmc.graphicsDescription.yoGraphics.YoGraphicPosition;
 import us.ihmc.graphicsDescription.yoGraphics.YoGraphicReferenceFrame;
+import us.ihmc.commons.thread.ThreadTools;
+import us.ihmc.euclid.referenceFrame.tools.ReferenceFrameTools;
+import us.ihmc.log.LogTools;
 import us.ihmc.mecano.multiBodySystem.interfaces.OneDoFJointBasics;
+import us.ihmc.mecano.multiBodySystem.interfaces.RigidBodyBasics;
+import us.ihmc.mecano.tools.MultiBodySystemFactories;
+import us.ihmc.mecano.tools.MultiBodySystemTools;
 import us.ihmc.robotics.referenceFrames.PoseReferenceFrame;
 import us.ihmc.simulationconstructionset.SimulationConstructionSet;
 import us.ihmc.yoVariables.registry.YoVariableRegistry;
@@ -36,8 +48,15 @@ public class ReachabilitySphereMapCalculator
    private final FramePoint3D modifiableVoxelLocation = new FramePoint3D();
    private final ArrayList<ReachabilityMapListener> reachabilityMapListeners = new ArrayList<>();
 
+   private final OneDoFJointBasics[] robotArmJoints;
    private final ReachabilityMapSolver solver;
    private ReachabilityMapFileWriter reachabilityMapFileWriter;
+   private ReachabilityMapBinaryFileWriter reachabilityMapBinaryFileWriter;
+
+   private int numberOfThreads = 1;
+   private long randomSeed = 645216L;
+   private final RigidBodyTransform controlFramePose = new RigidBodyTransform();
+   private boolean selectAngularX = true, selectAngularY = true, selectAngularZ = true;
 
    private final PoseReferenceFrame gridFrame = new PoseReferenceFrame("gridFrame", ReferenceFrame.getWorldFrame());
    private final YoGraphicReferenceFrame gridFrameViz = new YoGraphicReferenceFrame(gridFrame, registry, true, 0.5, YoAppearance.Blue());
@@ -49,6 +68,7 @@ public class ReachabilitySphereMapCalculator
    public ReachabilitySphereMapCalculator(OneDoFJointBasics[] robotArmJoints, SimulationConstructionSet scs)
    {
       this.scs = scs;
+      this.robotArmJoints = robotArmJoints;
       solver = new ReachabilityMapSolver(robotArmJoints, null, registry);
 
       FramePose3D gridFramePose = new FramePose3D(ReferenceFrame.getWorldFrame(), robotArmJoints[0].getFrameBeforeJoint().getTransformToWorldFrame());
@@ -96,6 +116,7 @@ public class ReachabilitySphereMapCalculator
     */
    public void setControlFramePose(RigidBodyTransform controlFramePose)
    {
+      this.controlFramePose.set(controlFramePose);
       solver.setControlFramePose(controlFramePose);
    }
 
@@ -109,9 +130,44 @@ public class ReachabilitySphereMapCalculator
     */
    public void setAngularSelection(boolean selectX, boolean selectY, boolean selectZ)
    {
+      selectAngularX = selectX;
+      selectAngularY = selectY;
+      selectAngularZ = selectZ;
       solver.setAngularSelection(selectX, selectY, selectZ);
    }
 
+   /**
+    * Sets the number of threads used to explore the grid.
+    * <p>
+    * When more than one thread is used, each thread explores its own copy of the arm and the voxels
+    * are distributed among the threads. In that mode, the evaluated poses are not visualized and the
+    * {@link ReachabilityMapListener}s are not notified, only the resulting voxels are displayed once
+    * the exploration is done.
+    * </p>
+    * <p>
+    * The result does not depend on the number of threads as the initial guesses used for each voxel
+    * are generated from a random seed that only depends on the index of the voxel.
+    * </p>
+    *
+    * @param numberOfThreads the number of threads to use, default value is 1.
+    */
+   public void setNumberOfThreads(int numberOfThreads)
+   {
+      if (numberOfThreads < 1)
+         throw new IllegalArgumentException("The number of threads has to be at least 1, was: " + numberOfThreads);
+      this.numberOfThreads = numberOfThreads;
+   }
+
+   /**
+    * Sets the seed used to generate the initial guesses of the inverse kinematics solver.
+    *
+    * @param randomSeed the new seed.
+    */
+   public void setRandomSeed(long randomSeed)
+   {
+      this.randomSeed = randomSeed;
+   }
+
    /**
     * Sets the center and orientation of the grid.
     * 
@@ -140,6 +196,23 @@ public class ReachabilitySphereMapCalculator
       reachabilityMapFileWriter = new ReachabilityMapFileWriter(robotName, classForFilePath);
    }
 
+   /**
+    * Sets up the calculator so it exports the result in a binary file. That file can later be
+    * loaded using {@link ReachabilityMapBinaryFileLoader}.
+    *
+    * @param robotName        the robot name.
+    * @param classForFilePath this can be the class of the caller of this method.
+    */
+   public void setupCalculatorToRecordInBinaryFile(String robotName, Class<?> classForFilePath) throws IOException
+   {
+      if (robotName == null || robotName.isEmpty())
+      {
+         System.err.println("Invalid robot name (either null or empty)");
+         return;
+      }
+      reachabilityMapBinaryFileWriter = new ReachabilityMapBinaryFileWriter(robotName, classForFilePath);
+   }
+
    /**
     * Attaches a listener that is to be notified every time a pose is successfully reached. Can be
     * used to visualize to robot doing something, decrease boredom when watching progress.
@@ -166,6 +239,12 @@ public class ReachabilitySphereMapCalculator
     */
    public void buildReachabilitySpace()
    {
+      if (numberOfThreads > 1)
+      {
+         buildReachabilitySpaceInParallel();
+         return;
+      }
+
       initialize();
 
       FrameVector3D translationFromVoxelOrigin = new FrameVector3D();
@@ -177,6 +256,8 @@ public class ReachabilitySphereMapCalculator
          {
             for (int zIndex = 0; zIndex < gridSizeInNumberOfVoxels; zIndex++)
             {
+               solver.setRandomSeed(randomSeed + getLinearVoxelIndex(xIndex, yIndex, zIndex));
+
                if (!isPositionReachable(xIndex, yIndex, zIndex))
                   continue;
 
@@ -225,11 +306,173 @@ public class ReachabilitySphereMapCalculator
          }
       }
 
+      exportResults();
+   }
+
+   private void buildReachabilitySpaceInParallel()
+   {
+      initialize();
+
+      int totalNumberOfVoxels = voxel3dGrid.getTotalNumberOfVoxels();
+      AtomicInteger nextVoxelIndex = new AtomicInteger(0);
+      // Computing the transform in the calling thread, the workers only read it afterwards.
+      RigidBodyTransform gridTransformToWorld = new RigidBodyTransform(gridFrame.getTransformToWorldFrame());
+
+      List<ReachabilityMapSolver> workerSolvers = new ArrayList<>();
+      for (int i = 0; i < numberOfThreads; i++)
+         workerSolvers.add(createWorkerSolver(i));
+
+      ExecutorService executor = Executors.newFixedThreadPool(numberOfThreads, ThreadTools.getNamedThreadFactory(getClass().getSimpleName()));
+      List<Future<?>> futures = new ArrayList<>();
+
+      for (ReachabilityMapSolver workerSolver : workerSolvers)
+      {
+         futures.add(executor.submit(() ->
+         {
+            int voxelIndex;
+            while ((voxelIndex = nextVoxelIndex.getAndIncrement()) < totalNumberOfVoxels)
+               exploreVoxel(workerSolver, gridTransformToWorld, voxelIndex);
+         }));
+      }
+
+      try
+      {
+         for (Future<?> future : futures)
+            future.get();
+      }
+      catch (InterruptedException | ExecutionException e)
+      {
+         throw new RuntimeException("Failed to build the reachability map.", e);
+      }
+      finally
+      {
+         executor.shutdownNow();
+      }
+
+      // Each voxel has been explored by a single worker, the grid is complete at this point.
+      for (int xIndex = 0; xIndex < gridSizeInNumberOfVoxels; xIndex++)
+      {
+         for (int yIndex = 0; yIndex < gridSizeInNumberOfVoxels; yIndex++)
+         {
+            for (int zIndex = 0; zIndex < gridSizeInNumberOfVoxels; zIndex++)
+            {
+               if (reachabilityMapFileWriter != null)
+               {
+                  for (int rayIndex = 0; rayIndex < numberOfRays; rayIndex++)
+                  {
+                     for (int rotationAroundRayIndex = 0; rotationAroundRayIndex < numberOfRotationsAroundRay; rotationAroundRayIndex++)
+                     {
+                        if (voxel3dGrid.isPoseReachable(xIndex, yIndex, zIndex, rayIndex, rotationAroundRayIndex))
+                           reachabilityMapFileWriter.registerReachablePose(xIndex, yIndex, zIndex, rayIndex, rotationAroundRayIndex);
+                     }
+                  }
+               }
+
+               double reachabilityValue = voxel3dGrid.getD(xIndex, yIndex, zIndex);
+
+               if (reachabilityValue > 1e-3)
+               {
+                  voxel3dGrid.getVoxel(voxelLocation, xIndex, yIndex, zIndex);
+                  Graphics3DObject voxelViz = sphereVoxelShape.createVisualization(voxelLocation, 0.25, reachabilityValue);
+                  scs.addStaticLinkGraphics(voxelViz);
+               }
+            }
+         }
+      }
+
+      exportResults();
+   }
+
+   /**
+    * Creates a solver working on its own copy of the arm such that it can be used concurrently with
+    * the other workers.
+    */
+   private ReachabilityMapSolver createWorkerSolver(int workerIndex)
+   {
+      String suffix = "Worker" + workerIndex;
+      RigidBodyBasics originalRootBody = robotArmJoints[0].getPredecessor();
+      ReferenceFrame originalRootFrame = originalRootBody.isRootBody() ? originalRootBody.getBodyFixedFrame()
+            : originalRootBody.getParentJoint().getFrameAfterJoint();
+      ReferenceFrame workerRootFrame = ReferenceFrameTools.constructFrameWithUnchangingTransformToParent(originalRootFrame.getName() + suffix,
+                                                                                                        ReferenceFrame.getWorldFrame(),
+                                                                                                        originalRootFrame.getTransformToWorldFrame());
+      OneDoFJointBasics[] workerArmJoints = MultiBodySystemTools.filterJoints(MultiBodySystemFactories.cloneKinematicChain(robotArmJoints,
+                                                                                                                           suffix,
+                                                                                                                           workerRootFrame),
+                                                                          OneDoFJointBasics.class);
+
+      ReachabilityMapSolver workerSolver = new ReachabilityMapSolver(workerArmJoints, null, new YoVariableRegistry(suffix));
+      workerSolver.setControlFramePose(controlFramePose);
+      workerSolver.setAngularSelection(selectAngularX, selectAngularY, selectAngularZ);
+      return workerSolver;
+   }
+
+   private void exploreVoxel(ReachabilityMapSolver workerSolver, RigidBodyTransform gridTransformToWorld, int voxelIndex)
+   {
+      int zIndex = voxelIndex % gridSizeInNumberOfVoxels;
+      int yIndex = (voxelIndex / gridSizeInNumberOfVoxels) % gridSizeInNumberOfVoxels;
+      int xIndex = voxelIndex / (gridSizeInNumberOfVoxels * gridSizeInNumberOfVoxels);
+
+      workerSolver.setRandomSeed(randomSeed + voxelIndex);
+
+      FramePoint3D voxelLocationInWorld = new FramePoint3D();
+      voxel3dGrid.getVoxel(voxelLocationInWorld, xIndex, yIndex, zIndex);
+      voxelLocationInWorld.applyTransform(gridTransformToWorld);
+      voxelLocationInWorld.setReferenceFrame(ReferenceFrame.getWorldFrame());
+
+      if (!workerSolver.solveFor(voxelLocationInWorld))
+         return;
+
+      FrameVector3D translationFromVoxelOrigin = new FrameVector3D();
+      FrameQuaternion orientation = new FrameQuaternion();
+      FramePoint3D position = new FramePoint3D();
+
+      for (int rayIndex = 0; rayIndex < numberOfRays; rayIndex++)
+      {
+         for (int rotationAroundRayIndex = 0; rotationAroundRayIndex < numberOfRotationsAroundRay; rotationAroundRayIndex++)
+         {
+            sphereVoxelShape.getPose(translationFromVoxelOrigin, orientation, rayIndex, rotationAroundRayIndex);
+            translationFromVoxelOrigin.applyTransform(gridTransformToWorld);
+            orientation.applyTransform(gridTransformToWorld);
+            orientation.setReferenceFrame(ReferenceFrame.getWorldFrame());
+            position.setIncludingFrame(voxelLocationInWorld);
+            position.add(translationFromVoxelOrigin.getX(), translationFromVoxelOrigin.getY(), translationFromVoxelOrigin.getZ());
+
+            if (workerSolver.solveFor(position, orientation))
+            {
+               // Each voxel is only processed by a single worker, the registration does not need to be synchronized.
+               voxel3dGrid.registerReachablePose(xIndex, yIndex, zIndex, rayIndex, rotationAroundRayIndex);
+               break;
+            }
+         }
+      }
+   }
+
+   private void exportResults()
+   {
       if (reachabilityMapFileWriter != null)
          reachabilityMapFileWriter.exportAndClose();
+
+      if (reachabilityMapBinaryFileWriter != null)
+      {
+         try
+         {
+            reachabilityMapBinaryFileWriter.export(robotArmJoints, voxel3dGrid);
+         }
+         catch (IOException e)
+         {
+            LogTools.error("Failed to export the reachability map to " + reachabilityMapBinaryFileWriter.getFilePath() + ": " + e.getMessage());
+         }
+      }
+
       System.out.println("Done!");
    }
 
+   private int getLinearVoxelIndex(int xIndex, int yIndex, int zIndex)
+   {
+      return (xIndex * gridSizeInNumberOfVoxels + yIndex) * gridSizeInNumberOfVoxels + zIndex;
+   }
+
    private boolean isPositionReachable(int xIndex, int yIndex, int zIndex)
    {
       voxel3dGrid.getVoxel(voxelLocation, xIndex, yIndex, zIndex);
@@ -1,11 +1,15 @@
 package us.ihmc.avatar.warmup;
 
+import java.lang.management.CompilationMXBean;
+import java.lang.management.ManagementFactory;
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.List;
 
 import org.ejml.data.DenseMatrix64F;
 
 import us.ihmc.avatar.drcRobot.DRCRobotModel;
+import us.ihmc.avatar.warmup.HumanoidControllerWarmupReport.WarmupCycle;
 import us.ihmc.commonWalkingControlModules.configurations.ICPWithTimeFreezingPlannerParameters;
 import us.ihmc.commonWalkingControlModules.configurations.WalkingControllerParameters;
 import us.ihmc.commonWalkingControlModules.controlModules.foot.FootControlModule.ConstraintType;
@@ -15,9 +19,11 @@ import us.ihmc.commonWalkingControlModules.highLevelHumanoidControl.factories.Co
 import us.ihmc.commonWalkingControlModules.highLevelHumanoidControl.factories.ControllerAPIDefinition;
 import us.ihmc.commonWalkingControlModules.highLevelHumanoidControl.factories.HighLevelControlManagerFactory;
 import us.ihmc.commonWalkingControlModules.highLevelHumanoidControl.highLevelStates.WalkingControllerState;
+import us.ihmc.commonWalkingControlModules.highLevelHumanoidControl.highLevelStates.walkingController.states.WalkingStateEnum;
 import us.ihmc.commonWalkingControlModules.messageHandlers.WalkingMessageHandler;
 import us.ihmc.commonWalkingControlModules.momentumBasedController.HighLevelHumanoidControllerToolbox;
 import us.ihmc.commonWalkingControlModules.sensors.footSwitch.KinematicsBasedFootSwitch;
+import us.ihmc.commons.Conversions;
 import us.ihmc.communication.controllerAPI.CommandInputManager;
 import us.ihmc.communication.controllerAPI.StatusMessageOutputManager;
 import us.ihmc.euclid.interfaces.Settable;
@@ -54,6 +60,17 @@ import us.ihmc.yoVariables.variable.YoDouble;
 import us.ihmc.yoVariables.variable.YoEnum;
 import us.ihmc.yoVariables.variable.YoVariable;
 
+/**
+ * Warms up the walking controller by running it on a simulated robot before the real controller
+ * starts, such that the JIT has compiled its hot paths.
+ * <p>
+ * The wall time of every controller tick and the time the JIT spends compiling are recorded in a
+ * {@link HumanoidControllerWarmupReport}. A warmup scenario that repeats the same cycle of
+ * motions can call {@link #completeWarmupCycle()} at the end of each cycle and stop as soon as it
+ * returns {@code true}: the JIT was idle during the cycle, the tick times did not change from the
+ * previous cycle, and the tick times are below the deadline of the real controller.
+ * </p>
+ */
 public abstract class HumanoidControllerWarmup
 {
    private static final double gravityZ = 9.81;
@@ -83,10 +100,29 @@ public abstract class HumanoidControllerWarmup
 
    private final List<Runnable> tickListeners = new ArrayList<>();
 
+   private final CompilationMXBean compilationMXBean = getCompilationMXBean();
+   private final HumanoidControllerWarmupReport report;
+   private YoEnum<WalkingStateEnum> walkingState;
+
+   private long[] tickDurations = new long[4096];
+   private int numberOfTicksInCycle = 0;
+   private final int[] ticksInWalkingStates = new int[WalkingStateEnum.values().length];
+   private double cycleStartTime;
+   private long cycleStartWallTime;
+   private long cycleStartCompilationTime;
+
+   private boolean adaptiveStopping = true;
+   private double tickTimeTolerance = 0.1;
+   private double maximumCompilationTimeFraction = 0.01;
+   private double tickDeadline;
+   private double tickDeadlinePercentile = 99.9;
+
    public HumanoidControllerWarmup(DRCRobotModel robotModel)
    {
       this.robotModel = robotModel;
       controlDT = robotModel.getControllerDT();
+      tickDeadline = controlDT;
+      report = new HumanoidControllerWarmupReport(controlDT);
 
       setupController();
       controllerToolbox.initialize();
@@ -100,12 +136,60 @@ public abstract class HumanoidControllerWarmup
       tickListeners.add(listener);
    }
 
+   /**
+    * Sets whether {@link #completeWarmupCycle()} can end the warmup before the end of its scenario.
+    * Enabled by default.
+    */
+   public void setAdaptiveStopping(boolean adaptiveStopping)
+   {
+      this.adaptiveStopping = adaptiveStopping;
+   }
+
+   /**
+    * Sets how much the 99th percentile of the tick times can change from one cycle to the next for
+    * the tick times to be considered stable, relative to the previous cycle. Default is 0.1.
+    */
+   public void setTickTimeTolerance(double tickTimeTolerance)
+   {
+      this.tickTimeTolerance = tickTimeTolerance;
+   }
+
+   /**
+    * Sets the time the JIT can spend compiling during a cycle for the JIT to be considered done with
+    * the controller, relative to the duration of the cycle. Default is 0.01.
+    */
+   public void setMaximumCompilationTimeFraction(double maximumCompilationTimeFraction)
+   {
+      this.maximumCompilationTimeFraction = maximumCompilationTimeFraction;
+   }
+
+   /**
+    * Sets the time in seconds the ticks have to complete in before the warmup can stop, and the
+    * percentile of the tick times checked against it. Default is the control DT at the 99.9th
+    * percentile.
+    */
+   public void setTickDeadline(double tickDeadline, double tickDeadlinePercentile)
+   {
+      this.tickDeadline = tickDeadline;
+      this.tickDeadlinePercentile = tickDeadlinePercentile;
+   }
+
+   public HumanoidControllerWarmupReport getReport()
+   {
+      return report;
+   }
+
    protected void simulate(double time)
    {
       double startTime = yoTime.getDoubleValue();
       while (yoTime.getDoubleValue() - startTime < time)
       {
+         if (numberOfTicksInCycle == 0)
+            startWarmupCycle();
+
+         long tickStartTime = System.nanoTime();
          doSingleTimeUpdate();
+         recordTick(System.nanoTime() - tickStartTime);
 
          for (Runnable listener : tickListeners)
          {
@@ -114,6 +198,103 @@ public abstract class HumanoidControllerWarmup
       }
    }
 
+   /**
+    * Ends the current cycle of the warmup scenario and adds it to the report. The ticks simulated
+    * since the previous call form the cycle.
+    *
+    * @return whether the controller is warmed up and the scenario can stop: the adaptive stopping is
+    *         enabled, and compared to the previous cycle the JIT was idle and the tick times did not
+    *         change, and the tick times meet the deadline.
+    */
+   protected boolean completeWarmupCycle()
+   {
+      if (numberOfTicksInCycle == 0)
+         return false;
+
+      double cycleDuration = Conversions.nanosecondsToSeconds(System.nanoTime() - cycleStartWallTime);
+      List<WarmupCycle> cycles = report.getCycles();
+      WarmupCycle previousCycle = cycles.isEmpty() ? null : cycles.get(cycles.size() - 1);
+      WarmupCycle cycle = endWarmupCycle();
+
+      boolean warmedUp = adaptiveStopping && isWarmedUp(previousCycle, cycle, cycleDuration);
+      report.setStoppedEarly(warmedUp);
+      return warmedUp;
+   }
+
+   /**
+    * Adds the ticks simulated since the last completed cycle to the report, called once the warmup
+    * scenario is over.
+    */
+   void finishReport()
+   {
+      if (numberOfTicksInCycle > 0)
+         endWarmupCycle();
+   }
+
+   private boolean isWarmedUp(WarmupCycle previousCycle, WarmupCycle cycle, double cycleDuration)
+   {
+      if (previousCycle == null)
+         return false;
+
+      if (!Double.isNaN(cycle.getCompilationTime()) && cycle.getCompilationTime() > maximumCompilationTimeFraction * cycleDuration)
+         return false;
+
+      double previousTickTime = previousCycle.getTickTime(99.0);
+      double tickTime = cycle.getTickTime(99.0);
+      if (Math.abs(tickTime - previousTickTime) > tickTimeTolerance * previousTickTime)
+         return false;
+
+      return cycle.getTickTime(tickDeadlinePercentile) <= tickDeadline;
+   }
+
+   private void startWarmupCycle()
+   {
+      cycleStartTime = yoTime.getDoubleValue();
+      cycleStartWallTime = System.nanoTime();
+      cycleStartCompilationTime = getTotalCompilationTime();
+   }
+
+   private WarmupCycle endWarmupCycle()
+   {
+      long compilationTime = getTotalCompilationTime();
+      double cycleCompilationTime = compilationTime < 0 ? Double.NaN : 1.0e-3 * (compilationTime - cycleStartCompilationTime);
+      WarmupCycle cycle = new WarmupCycle(cycleStartTime, tickDurations, numberOfTicksInCycle, cycleCompilationTime, ticksInWalkingStates);
+      report.addCycle(cycle);
+
+      numberOfTicksInCycle = 0;
+      Arrays.fill(ticksInWalkingStates, 0);
+      return cycle;
+   }
+
+   private void recordTick(long tickDuration)
+   {
+      if (numberOfTicksInCycle == tickDurations.length)
+         tickDurations = Arrays.copyOf(tickDurations, 2 * tickDurations.length);
+      tickDurations[numberOfTicksInCycle++] = tickDuration;
+
+      if (walkingState != null && walkingState.getEnumValue() != null)
+         ticksInWalkingStates[walkingState.getEnumValue().ordinal()]++;
+   }
+
+   /**
+    * @return the total time the JIT spent compiling in milliseconds, or -1 if the JVM does not
+    *         provide it.
+    */
+   private long getTotalCompilationTime()
+   {
+      return compilationMXBean == null ? -1 : compilationMXBean.getTotalCompilationTime();
+   }
+
+   private static CompilationMXBean getCompilationMXBean()
+   {
+      CompilationMXBean compilationMXBean = ManagementFactory.getCompilationMXBean();
+
+      if (compilationMXBean == null || !compilationMXBean.isCompilationTimeMonitoringSupported())
+         return null;
+      else
+         return compilationMXBean;
+   }
+
    protected <M extends Settable<M>> void submitMessage(M message)
    {
       commandInputManager.submitMessage(message);
@@ -287,6 +468,21 @@ public abstract class HumanoidControllerWarmup
                                                           robotModel.getHighLevelControllerParameters(), robotModel.getWalkingControllerParameters());
    }
 
+   /**
+    * @return the variable holding the state of the walking controller, or {@code null} if the
+    *         variable is missing or is not of the expected type, in which case the warmup report does
+    *         not count the ticks spent in each walking state.
+    */
+   @SuppressWarnings("unchecked")
+   private static YoEnum<WalkingStateEnum> findWalkingState(YoVariable<?> variable)
+   {
+      if (!(variable instanceof YoEnum))
+         return null;
+      if (!Arrays.equals(((YoEnum<?>) variable).getEnumValues(), WalkingStateEnum.values()))
+         return null;
+      return (YoEnum<WalkingStateEnum>) variable;
+   }
+
    @SuppressWarnings("unchecked")
    public void setupController()
    {
@@ -323,6 +519,8 @@ public abstract class HumanoidControllerWarmup
          footStates.put(robotSide, footState);
       }
 
+      walkingState = findWalkingState(registry.getVariable("WalkingCurrentState"));
+
       ParameterLoaderHelper.loadParameters(this, robotModel.getWholeBodyControllerParametersFile(), drcControllerThread);
 
       YoVariable<?> defaultHeight = registry.getVariable(PelvisHeightControlState.class.getSimpleName(),
@@ -0,0 +1,189 @@
+package us.ihmc.avatar.warmup;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
+import us.ihmc.commonWalkingControlModules.highLevelHumanoidControl.highLevelStates.walkingController.states.WalkingStateEnum;
+import us.ihmc.commons.Conversions;
+
+/**
+ * Record of a run of a {@link HumanoidControllerWarmup}: the controller tick times, the time the JIT
+ * spent compiling, and the walking states visited during each cycle of the warmup scenario.
+ */
+public class HumanoidControllerWarmupReport
+{
+   public static final double[] PERCENTILES = {50.0, 90.0, 99.0, 99.9, 100.0};
+
+   private final double controlDT;
+   private final List<WarmupCycle> cycles = new ArrayList<>();
+   private boolean stoppedEarly = false;
+
+   public HumanoidControllerWarmupReport(double controlDT)
+   {
+      this.controlDT = controlDT;
+   }
+
+   void addCycle(WarmupCycle cycle)
+   {
+      cycles.add(cycle);
+   }
+
+   void setStoppedEarly(boolean stoppedEarly)
+   {
+      this.stoppedEarly = stoppedEarly;
+   }
+
+   /**
+    * @return whether the warmup was stopped before the end of its scenario because the tick times had
+    *         stabilized.
+    */
+   public boolean isStoppedEarly()
+   {
+      return stoppedEarly;
+   }
+
+   public List<WarmupCycle> getCycles()
+   {
+      return Collections.unmodifiableList(cycles);
+   }
+
+   public int getNumberOfTicks()
+   {
+      int numberOfTicks = 0;
+      for (int i = 0; i < cycles.size(); i++)
+         numberOfTicks += cycles.get(i).getNumberOfTicks();
+      return numberOfTicks;
+   }
+
+   @Override
+   public String toString()
+   {
+      StringBuilder report = new StringBuilder();
+      report.append("Warmup of ").append(getNumberOfTicks()).append(" ticks in ").append(cycles.size()).append(" cycles");
+      report.append(stoppedEarly ? ", stopped once the tick times were stable" : ", full scenario").append('\n');
+      report.append(String.format("%5s %8s %6s %9s", "cycle", "time[s]", "ticks", "JIT[ms]"));
+      for (double percentile : PERCENTILES)
+         report.append(String.format(" %9s", percentile == 100.0 ? "max[ms]" : "p" + formatPercentile(percentile) + "[ms]"));
+      report.append(String.format(" %9s", "dt[ms]")).append("  walking states\n");
+
+      for (int i = 0; i < cycles.size(); i++)
+      {
+         WarmupCycle cycle = cycles.get(i);
+         report.append(String.format("%5d %8.3f %6d %9.1f", i, cycle.getStartTime(), cycle.getNumberOfTicks(), 1.0e3 * cycle.getCompilationTime()));
+         for (int j = 0; j < PERCENTILES.length; j++)
+            report.append(String.format(" %9.3f", 1.0e3 * cycle.getTickTimePercentile(j)));
+         report.append(String.format(" %9.3f", 1.0e3 * controlDT)).append("  ").append(cycle.getVisitedWalkingStates()).append('\n');
+      }
+
+      return report.toString();
+   }
+
+   private static String formatPercentile(double percentile)
+   {
+      return percentile == Math.rint(percentile) ? Integer.toString((int) percentile) : Double.toString(percentile);
+   }
+
+   public static class WarmupCycle
+   {
+      private final double startTime;
+      private final int numberOfTicks;
+      private final double compilationTime;
+      private final double[] tickTimePercentiles = new double[PERCENTILES.length];
+      private final int[] ticksInWalkingStates;
+
+      /**
+       * @param startTime the controller time at the start of the cycle.
+       * @param tickDurations the wall time of each tick in nanoseconds, sorted in place.
+       * @param numberOfTicks the number of ticks in {@code tickDurations}.
+       * @param compilationTime the time the JIT spent compiling during this cycle in seconds, or
+       *           {@code NaN} if not available.
+       * @param ticksInWalkingStates the number of ticks spent in each walking state, indexed by ordinal.
+       */
+      WarmupCycle(double startTime, long[] tickDurations, int numberOfTicks, double compilationTime, int[] ticksInWalkingStates)
+      {
+         this.startTime = startTime;
+         this.numberOfTicks = numberOfTicks;
+         this.compilationTime = compilationTime;
+         this.ticksInWalkingStates = ticksInWalkingStates.clone();
+
+         Arrays.sort(tickDurations, 0, numberOfTicks);
+
+         for (int i = 0; i < PERCENTILES.length; i++)
+         {
+            if (numberOfTicks == 0)
+            {
+               tickTimePercentiles[i] = Double.NaN;
+            }
+            else
+            {
+               int index = (int) Math.ceil(PERCENTILES[i] / 100.0 * numberOfTicks) - 1;
+               index = Math.max(0, Math.min(numberOfTicks - 1, index));
+               tickTimePercentiles[i] = Conversions.nanosecondsToSeconds(tickDurations[index]);
+            }
+         }
+      }
+
+      public double getStartTime()
+      {
+         return startTime;
+      }
+
+      public int getNumberOfTicks()
+      {
+         return numberOfTicks;
+      }
+
+      /**
+       * @return the time the JIT spent compiling during this cycle in seconds, {@code NaN} if the JVM
+       *         does not provide it.
+       */
+      public double getCompilationTime()
+      {
+         return compilationTime;
+      }
+
+      /**
+       * @param percentile one of {@link HumanoidControllerWarmupReport#PERCENTILES}.
+       * @return the tick time at that percentile in seconds.
+       */
+      public double getTickTime(double percentile)
+      {
+         for (int i = 0; i < PERCENTILES.length; i++)
+         {
+            if (PERCENTILES[i] == percentile)
+               return tickTimePercentiles[i];
+         }
+
+         throw new IllegalArgumentException("The tick time is not computed for the percentile " + percentile + ", available: " + Arrays.toString(PERCENTILES));
+      }
+
+      double getTickTimePercentile(int percentileIndex)
+      {
+         return tickTimePercentiles[percentileIndex];
+      }
+
+      public int getTicksInWalkingState(WalkingStateEnum walkingState)
+      {
+         return ticksInWalkingStates[walkingState.ordinal()];
+      }
+
+      public String getVisitedWalkingStates()
+      {
+         StringBuilder visitedStates = new StringBuilder();
+
+         for (WalkingStateEnum walkingState : WalkingStateEnum.values())
+         {
+            int ticks = ticksInWalkingStates[walkingState.ordinal()];
+            if (ticks == 0)
+               continue;
+            if (visitedStates.length() > 0)
+               visitedStates.append(", ");
+            visitedStates.append(walkingState).append('=').append(ticks);
+         }
+
+         return visitedStates.toString();
+      }
+   }
+}
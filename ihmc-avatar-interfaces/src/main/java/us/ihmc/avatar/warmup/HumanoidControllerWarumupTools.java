@@ -41,6 +41,9 @@ public class HumanoidControllerWarumupTools
       }
       double duration = 0.001 * (System.currentTimeMillis() - startTime);
       PrintTools.info("Warmup took " + duration + "s.");
+
+      controllerWarmup.finishReport();
+      PrintTools.info("Warmup report:\n" + controllerWarmup.getReport());
    }
 
    public static FootstepDataListMessage createStepsInPlace(HumanoidReferenceFrames referenceFrames)
@@ -0,0 +1,112 @@
+package us.ihmc.avatar.networkProcessor.kinematicsToolboxModule;
+
+import static us.ihmc.avatar.networkProcessor.kinematicsToolboxModule.HumanoidKinematicsToolboxControllerTest.computeCenterOfMass3D;
+import static us.ihmc.avatar.networkProcessor.kinematicsToolboxModule.HumanoidKinematicsToolboxControllerTest.createFullRobotModelAtInitialConfiguration;
+import static us.ihmc.avatar.networkProcessor.kinematicsToolboxModule.HumanoidKinematicsToolboxControllerTest.extractRobotConfigurationData;
+import static us.ihmc.avatar.networkProcessor.kinematicsToolboxModule.HumanoidKinematicsToolboxControllerTest.randomizeArmJointPositions;
+import static us.ihmc.robotics.Assert.*;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+
+import controller_msgs.msg.dds.HumanoidKinematicsToolboxConfigurationMessage;
+import controller_msgs.msg.dds.KinematicsToolboxCenterOfMassMessage;
+import controller_msgs.msg.dds.KinematicsToolboxRigidBodyMessage;
+import controller_msgs.msg.dds.RobotConfigurationData;
+import us.ihmc.avatar.MultiRobotTestInterface;
+import us.ihmc.avatar.networkProcessor.kinematicsToolboxModule.HumanoidKinematicsBatchSolver.Query;
+import us.ihmc.avatar.networkProcessor.kinematicsToolboxModule.HumanoidKinematicsBatchSolver.Result;
+import us.ihmc.communication.packets.MessageTools;
+import us.ihmc.euclid.referenceFrame.FramePoint3D;
+import us.ihmc.euclid.referenceFrame.ReferenceFrame;
+import us.ihmc.euclid.tools.EuclidCoreRandomTools;
+import us.ihmc.euclid.tuple2D.Point2D;
+import us.ihmc.mecano.multiBodySystem.interfaces.RigidBodyBasics;
+import us.ihmc.robotModels.FullHumanoidRobotModel;
+import us.ihmc.robotics.robotSide.RobotSide;
+import us.ihmc.robotics.screwTheory.SelectionMatrix3D;
+import us.ihmc.yoVariables.registry.YoVariableRegistry;
+
+@Tag("humanoid-toolbox")
+public abstract class HumanoidKinematicsBatchSolverTest implements MultiRobotTestInterface
+{
+   private static final ReferenceFrame worldFrame = ReferenceFrame.getWorldFrame();
+
+   @Test
+   public void testRandomHandPositions() throws Exception
+   {
+      Random random = new Random(2135);
+      List<Query> queries = createRandomHandPositionQueries(random, 20);
+
+      for (int numberOfWorkers = 1; numberOfWorkers <= 3; numberOfWorkers += 2)
+      {
+         HumanoidKinematicsBatchSolver batchSolver = new HumanoidKinematicsBatchSolver(getRobotModel(), numberOfWorkers, new YoVariableRegistry("root"));
+         List<Result> results = batchSolver.solve(queries);
+
+         assertEquals(queries.size(), results.size());
+         assertEquals(queries.size(), batchSolver.getNumberOfQueries());
+
+         for (int i = 0; i < results.size(); i++)
+         {
+            Result result = results.get(i);
+            assertTrue("Query " + i + " did not converge, solution quality: " + result.getSolutionQuality(), result.hasConverged());
+            assertEquals(result.getSolutionQuality(), result.getSolution().getSolutionQuality(), 1.0e-12);
+            assertTrue(result.getNumberOfIterations() > 0);
+         }
+
+         assertEquals(queries.size(), batchSolver.getNumberOfConvergedSolutions());
+         assertTrue(batchSolver.getSolvesPerSecond() > 0.0);
+         batchSolver.close();
+      }
+   }
+
+   List<Query> createRandomHandPositionQueries(Random random, int numberOfQueries)
+   {
+      double groundHeight = EuclidCoreRandomTools.nextDouble(random, 0.1);
+      Point2D offset = EuclidCoreRandomTools.nextPoint2D(random, 2.0);
+      double offsetYaw = EuclidCoreRandomTools.nextDouble(random, Math.PI);
+      FullHumanoidRobotModel initialFullRobotModel = createFullRobotModelAtInitialConfiguration(getRobotModel(), groundHeight, offset, offsetYaw);
+      RobotConfigurationData robotConfigurationData = extractRobotConfigurationData(initialFullRobotModel);
+
+      FullHumanoidRobotModel randomizedFullRobotModel = createFullRobotModelAtInitialConfiguration(getRobotModel(), groundHeight, offset, offsetYaw);
+
+      List<Query> queries = new ArrayList<>();
+
+      for (int i = 0; i < numberOfQueries; i++)
+      {
+         Query query = new Query(robotConfigurationData);
+
+         for (RobotSide robotSide : RobotSide.values)
+         {
+            randomizeArmJointPositions(random, robotSide, randomizedFullRobotModel, 0.6);
+            RigidBodyBasics hand = randomizedFullRobotModel.getHand(robotSide);
+            FramePoint3D desiredPosition = new FramePoint3D(hand.getBodyFixedFrame());
+            desiredPosition.changeFrame(worldFrame);
+            KinematicsToolboxRigidBodyMessage message = MessageTools.createKinematicsToolboxRigidBodyMessage(hand, desiredPosition);
+            message.getAngularWeightMatrix().set(MessageTools.createWeightMatrix3DMessage(20.0));
+            message.getLinearWeightMatrix().set(MessageTools.createWeightMatrix3DMessage(20.0));
+            query.addRigidBodyMessage(message);
+         }
+
+         KinematicsToolboxCenterOfMassMessage centerOfMassMessage = MessageTools.createKinematicsToolboxCenterOfMassMessage(computeCenterOfMass3D(randomizedFullRobotModel));
+         SelectionMatrix3D selectionMatrix = new SelectionMatrix3D();
+         selectionMatrix.selectZAxis(false);
+         centerOfMassMessage.getSelectionMatrix().set(MessageTools.createSelectionMatrix3DMessage(selectionMatrix));
+         centerOfMassMessage.getWeights().set(MessageTools.createWeightMatrix3DMessage(1.0));
+         query.setCenterOfMassMessage(centerOfMassMessage);
+
+         // Disable the support polygon constraint, the randomized model isn't constrained.
+         HumanoidKinematicsToolboxConfigurationMessage configurationMessage = new HumanoidKinematicsToolboxConfigurationMessage();
+         configurationMessage.setEnableSupportPolygonConstraint(false);
+         query.setConfigurationMessage(configurationMessage);
+
+         queries.add(query);
+      }
+
+      return queries;
+   }
+}
@@ -95,20 +95,20 @@ public abstract class AvatarWholeBodyTrajectoryToolboxControllerTest implements
       simulationTestingParameters.setDataBufferSize(1 << 16);
    }
 
-   private CommandInputManager commandInputManager;
-   private StatusMessageOutputManager statusOutputManager;
+   CommandInputManager commandInputManager;
+   StatusMessageOutputManager statusOutputManager;
    private YoVariableRegistry mainRegistry;
    private YoGraphicsListRegistry yoGraphicsListRegistry;
-   private WholeBodyTrajectoryToolboxController toolboxController;
+   WholeBodyTrajectoryToolboxController toolboxController;
 
-   private YoBoolean initializationSucceeded;
-   private YoInteger numberOfIterations;
+   YoBoolean initializationSucceeded;
+   YoInteger numberOfIterations;
 
    private SimulationConstructionSet scs;
 
    private HumanoidFloatingRootJointRobot robot;
    private HumanoidFloatingRootJointRobot ghost;
-   private RobotController toolboxUpdater;
+   RobotController toolboxUpdater;
 
    private WholeBodyTrajectoryToolboxCommandConverter commandConversionHelper;
    private KinematicsToolboxOutputConverter converter;
@@ -212,7 +212,11 @@ public abstract class AvatarWholeBodyTrajectoryToolboxControllerTest implements
       commandInputManager = null;
       statusOutputManager = null;
 
-      toolboxController = null;
+      if (toolboxController != null)
+      {
+         toolboxController.close();
+         toolboxController = null;
+      }
 
       robot = null;
       toolboxUpdater = null;
@@ -226,6 +230,12 @@ public abstract class AvatarWholeBodyTrajectoryToolboxControllerTest implements
 
    @Test
    public void testOneBigCircle() throws Exception, UnreasonableAccelerationException
+   {
+      // run toolbox
+      runTrajectoryTest(createOneBigCircleMessage(), 100000);
+   }
+
+   WholeBodyTrajectoryToolboxMessage createOneBigCircleMessage()
    {
       // Trajectory parameters
       double trajectoryTime = 10.0;
@@ -298,8 +308,7 @@ public abstract class AvatarWholeBodyTrajectoryToolboxControllerTest implements
                                                                                                                null,
                                                                                                                rigidBodyConfigurations);
 
-      // run toolbox
-      runTrajectoryTest(message, 100000);
+      return message;
    }
 
    @Test
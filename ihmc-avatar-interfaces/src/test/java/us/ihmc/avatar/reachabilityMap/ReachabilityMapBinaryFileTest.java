@@ -0,0 +1,116 @@
+package us.ihmc.avatar.reachabilityMap;
+
+import static us.ihmc.robotics.Assert.assertEquals;
+import static us.ihmc.robotics.Assert.assertFalse;
+import static us.ihmc.robotics.Assert.assertTrue;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Random;
+
+import org.junit.jupiter.api.Test;
+
+import us.ihmc.avatar.reachabilityMap.voxelPrimitiveShapes.SphereVoxelShape;
+import us.ihmc.avatar.reachabilityMap.voxelPrimitiveShapes.SphereVoxelShape.SphereVoxelType;
+import us.ihmc.euclid.referenceFrame.FramePoint3D;
+import us.ihmc.euclid.referenceFrame.ReferenceFrame;
+import us.ihmc.euclid.referenceFrame.tools.ReferenceFrameTools;
+import us.ihmc.euclid.tools.EuclidCoreRandomTools;
+import us.ihmc.euclid.transform.RigidBodyTransform;
+import us.ihmc.euclid.tuple3D.Point3D;
+import us.ihmc.mecano.multiBodySystem.interfaces.OneDoFJointBasics;
+import us.ihmc.mecano.tools.MultiBodySystemRandomTools;
+
+public class ReachabilityMapBinaryFileTest
+{
+   private static final long RANDOM_SEED = 8732L;
+   private static final double epsilon = 1.0e-12;
+
+   @Test
+   public void testWriteAndLoad() throws IOException
+   {
+      Random random = new Random(RANDOM_SEED);
+
+      OneDoFJointBasics[] armJoints = MultiBodySystemRandomTools.nextOneDoFJointChain(random, 4).toArray(new OneDoFJointBasics[0]);
+      RigidBodyTransform gridTransformToWorld = EuclidCoreRandomTools.nextRigidBodyTransform(random);
+      ReferenceFrame gridFrame = ReferenceFrameTools.constructFrameWithUnchangingTransformToParent("gridFrame",
+                                                                                                 ReferenceFrame.getWorldFrame(),
+                                                                                                 gridTransformToWorld);
+
+      int numberOfVoxelsPerDimension = 7;
+      double voxelSize = 0.05;
+      int numberOfRays = 13;
+      int numberOfRotationsAroundRay = 3;
+      SphereVoxelShape sphereVoxelShape = new SphereVoxelShape(gridFrame, voxelSize, numberOfRays, numberOfRotationsAroundRay, SphereVoxelType.graspOrigin);
+      Voxel3DGrid expectedGrid = new Voxel3DGrid(gridFrame, sphereVoxelShape, numberOfVoxelsPerDimension, voxelSize);
+
+      for (int i = 0; i < 500; i++)
+      {
+         expectedGrid.registerReachablePose(random.nextInt(numberOfVoxelsPerDimension),
+                                            random.nextInt(numberOfVoxelsPerDimension),
+                                            random.nextInt(numberOfVoxelsPerDimension),
+                                            random.nextInt(numberOfRays),
+                                            random.nextInt(numberOfRotationsAroundRay));
+      }
+
+      Path filePath = Files.createTempFile("reachabilityMap", ReachabilityMapBinaryFileWriter.FILE_EXTENSION);
+      filePath.toFile().deleteOnExit();
+      ReachabilityMapBinaryFileWriter.write(filePath, "testRobot", armJoints, expectedGrid);
+
+      ReachabilityMapBinaryFileLoader loader = new ReachabilityMapBinaryFileLoader(filePath);
+
+      assertEquals("testRobot", loader.getRobotName());
+      assertEquals(gridFrame.getName(), loader.getGridFrameName());
+      assertEquals(ReferenceFrame.getWorldFrame().getName(), loader.getParentFrameName());
+      assertTrue(loader.getGridTransformToParent().epsilonEquals(gridTransformToWorld, epsilon));
+      assertEquals(armJoints.length, loader.getJointNames().length);
+
+      for (int i = 0; i < armJoints.length; i++)
+      {
+         assertEquals(armJoints[i].getName(), loader.getJointNames()[i]);
+         assertEquals(armJoints[i].getJointLimitLower(), loader.getJointLimitsLower()[i], epsilon);
+         assertEquals(armJoints[i].getJointLimitUpper(), loader.getJointLimitsUpper()[i], epsilon);
+      }
+
+      assertEquals(numberOfVoxelsPerDimension, loader.getNumberOfVoxelsPerDimension());
+      assertEquals(voxelSize, loader.getVoxelSize(), epsilon);
+      assertEquals(numberOfRays, loader.getNumberOfRays());
+      assertEquals(numberOfRotationsAroundRay, loader.getNumberOfRotationsAroundRay());
+
+      Voxel3DGrid loadedGrid = loader.createVoxel3DGrid(gridFrame);
+      FramePoint3D voxelLocation = new FramePoint3D();
+
+      for (int xIndex = 0; xIndex < numberOfVoxelsPerDimension; xIndex++)
+      {
+         for (int yIndex = 0; yIndex < numberOfVoxelsPerDimension; yIndex++)
+         {
+            for (int zIndex = 0; zIndex < numberOfVoxelsPerDimension; zIndex++)
+            {
+               double expectedD = expectedGrid.getD(xIndex, yIndex, zIndex);
+               assertEquals(expectedD, loader.getD(xIndex, yIndex, zIndex), epsilon);
+               assertEquals(expectedGrid.getD0(xIndex, yIndex, zIndex), loader.getD0(xIndex, yIndex, zIndex), epsilon);
+               assertEquals(expectedD, loadedGrid.getD(xIndex, yIndex, zIndex), epsilon);
+
+               for (int rayIndex = 0; rayIndex < numberOfRays; rayIndex++)
+               {
+                  for (int rotationIndex = 0; rotationIndex < numberOfRotationsAroundRay; rotationIndex++)
+                  {
+                     boolean expected = expectedGrid.isPoseReachable(xIndex, yIndex, zIndex, rayIndex, rotationIndex);
+                     assertEquals(expected, loader.isPoseReachable(xIndex, yIndex, zIndex, rayIndex, rotationIndex));
+                     assertEquals(expected, loadedGrid.isPoseReachable(xIndex, yIndex, zIndex, rayIndex, rotationIndex));
+                  }
+               }
+
+               expectedGrid.getVoxel(voxelLocation, xIndex, yIndex, zIndex);
+               assertEquals(expectedD, loader.getReachability(voxelLocation), epsilon);
+               voxelLocation.changeFrame(ReferenceFrame.getWorldFrame());
+               assertEquals(expectedD, loader.getReachabilityInParentFrame(voxelLocation), epsilon);
+            }
+         }
+      }
+
+      assertFalse(loader.isReachable(new Point3D(loader.getGridSize(), 0.0, 0.0)));
+      assertEquals(0.0, loader.getReachability(0.0, -loader.getGridSize(), 0.0), epsilon);
+   }
+}
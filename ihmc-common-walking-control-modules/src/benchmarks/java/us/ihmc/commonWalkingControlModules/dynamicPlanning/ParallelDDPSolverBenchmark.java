@@ -0,0 +1,73 @@
+package us.ihmc.commonWalkingControlModules.dynamicPlanning;
+
+import java.util.function.BiFunction;
+
+import gnu.trove.list.array.TIntArrayList;
+import us.ihmc.commonWalkingControlModules.dynamicPlanning.ParallelDDPSolverTest.DDPProblem;
+import us.ihmc.log.LogTools;
+import us.ihmc.trajectoryOptimization.DDPSolver;
+import us.ihmc.trajectoryOptimization.DiscreteOptimizationSequence;
+
+/**
+ * Reports the time per iteration of the {@link DDPSolver} against the horizon length and the number
+ * of threads on the LIPM and SLIP problems of the {@link ParallelDDPSolverTest}.
+ */
+public class ParallelDDPSolverBenchmark
+{
+   private static final int[] horizons = {250, 1000, 4000};
+   private static final int warmupIterations = 5;
+   private static final int timedIterations = 10;
+
+   public static void main(String[] args)
+   {
+      runBenchmark("LIPM", ParallelDDPSolverTest::createLIPMProblem);
+      runBenchmark("SLIP", ParallelDDPSolverTest::createSLIPProblem);
+   }
+
+   private static void runBenchmark(String problemName, BiFunction<Integer, Integer, DDPProblem<?>> problemFactory)
+   {
+      for (int horizon : horizons)
+      {
+         DiscreteOptimizationSequence serialSolution = null;
+         double serialTime = Double.NaN;
+
+         for (int numberOfThreads : getNumbersOfThreads())
+         {
+            DDPProblem<?> problem = problemFactory.apply(horizon, numberOfThreads);
+
+            for (int i = 0; i < warmupIterations; i++)
+               problem.computeOnePass();
+
+            long startTime = System.nanoTime();
+            for (int i = 0; i < timedIterations; i++)
+               problem.computeOnePass();
+            double timePerIteration = (System.nanoTime() - startTime) / 1.0e6 / timedIterations;
+
+            if (serialSolution == null)
+            {
+               serialSolution = problem.copyOptimalSequence();
+               serialTime = timePerIteration;
+            }
+            else
+            {
+               ParallelDDPSolverTest.assertSequenceEquals(serialSolution, problem.getOptimalSequence());
+            }
+
+            problem.close();
+
+            LogTools.info(problemName + ", horizon " + horizon + ", " + numberOfThreads + " thread(s): " + String.format("%.3f", timePerIteration)
+                  + " ms per iteration, speed-up " + String.format("%.2f", serialTime / timePerIteration));
+         }
+      }
+   }
+
+   private static int[] getNumbersOfThreads()
+   {
+      int maximumNumberOfThreads = Math.max(2, Math.min(8, Runtime.getRuntime().availableProcessors()));
+      TIntArrayList numbersOfThreads = new TIntArrayList();
+      for (int numberOfThreads = 1; numberOfThreads < maximumNumberOfThreads; numberOfThreads *= 2)
+         numbersOfThreads.add(numberOfThreads);
+      numbersOfThreads.add(maximumNumberOfThreads);
+      return numbersOfThreads.toArray();
+   }
+}
@@ -111,7 +111,7 @@ public class LQRMomentumController
    private final LinearSolver<DenseMatrix64F> solver = LinearSolverFactory.linear(3);
 
    private final MatrixExponentialCalculator a2ExponentialCalculator = new MatrixExponentialCalculator(6);
-   private final CARESolver careSolver = new DefectCorrectionCARESolver(new SignFunctionCARESolver());
+   private final DefectCorrectionCARESolver careSolver = new DefectCorrectionCARESolver(new SignFunctionCARESolver(), 6);
 
    private boolean shouldUpdateS1 = true;
 
@@ -122,6 +122,9 @@ public class LQRMomentumController
 
    public LQRMomentumController(DoubleProvider omega, YoVariableRegistry parentRegistry)
    {
+      // the weights are typically tuned by small increments, the previous solution is then a good initial guess
+      careSolver.setUseWarmStart(true);
+
       computeDynamicsMatrix(omega.getValue());
 
       computeS1();
@@ -101,6 +101,7 @@ public class WholeBodyControlCoreToolbox
    private boolean enableInverseDynamicsModule = false;
    private boolean enableInverseKinematicsModule = false;
    private boolean enableVirtualModelControlModule = false;
+   private boolean enableProfiler = false;
 
    /**
     * Creates a new toolbox with the required parameters for running any of the controller core
@@ -257,6 +258,21 @@ public class WholeBodyControlCoreToolbox
       centroidalMomentumRateCalculator = new CentroidalMomentumRateCalculator(multiBodySystemInput, centerOfMassFrame);
    }
 
+   /**
+    * Enables the {@link WholeBodyControllerCoreProfiler} which measures the execution time and memory
+    * allocated by each stage of the controller core at every tick.
+    * <p>
+    * WARNING: This method has be to called BEFORE creating the {@link WholeBodyControllerCore}.
+    * </p>
+    *
+    * @param enableProfiler whether the controller core should be profiled, default value is
+    *                       {@code false}.
+    */
+   public void setEnableProfiler(boolean enableProfiler)
+   {
+      this.enableProfiler = enableProfiler;
+   }
+
    /**
     * Informs whereas the inverse dynamics module is setup for the controller core using this toolbox.
     *
@@ -289,6 +305,16 @@ public class WholeBodyControlCoreToolbox
       return enableVirtualModelControlModule;
    }
 
+   /**
+    * Informs whereas the controller core using this toolbox is to be profiled.
+    *
+    * @return {@code true} if the profiler is enabled, {@code false} otherwise.
+    */
+   public boolean isEnableProfiler()
+   {
+      return enableProfiler;
+   }
+
    public MultiBodySystemBasics getMultiBodySystemInput()
    {
       return multiBodySystemInput;
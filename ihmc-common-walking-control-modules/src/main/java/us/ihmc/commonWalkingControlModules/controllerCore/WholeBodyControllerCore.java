@@ -45,6 +45,7 @@ public class WholeBodyControllerCore
    private OneDoFJointBasics[] controlledOneDoFJoints;
    private final ExecutionTimer controllerCoreComputeTimer = new ExecutionTimer("controllerCoreComputeTimer", 1.0, registry);
    private final ExecutionTimer controllerCoreSubmitTimer = new ExecutionTimer("controllerCoreSubmitTimer", 1.0, registry);
+   private final WholeBodyControllerCoreProfiler profiler;
 
    public WholeBodyControllerCore(WholeBodyControlCoreToolbox toolbox, FeedbackControlCommandList allPossibleCommands, YoVariableRegistry parentRegistry)
    {
@@ -104,6 +105,11 @@ public class WholeBodyControllerCore
 
       controllerCoreOutput = new ControllerCoreOutput(desiredCenterOfPressureDataHolder, controlledOneDoFJoints, lowLevelControllerOutput);
 
+      if (toolbox.isEnableProfiler())
+         profiler = new WholeBodyControllerCoreProfiler(registry);
+      else
+         profiler = null;
+
       parentRegistry.addChild(registry);
    }
 
@@ -245,52 +251,97 @@ public class WholeBodyControllerCore
          controllerCoreOutput.setRootJointDesiredConfigurationData(rootJointDesiredConfigurationData);
       controllerCoreOutput.setLowLevelOneDoFJointDesiredDataHolder(jointDesiredOutputList);
       controllerCoreComputeTimer.stopMeasurement();
+
+      if (profiler != null)
+         profiler.update();
    }
 
    private void doInverseDynamics()
    {
+      if (profiler != null)
+         profiler.startFeedbackController();
       feedbackController.computeInverseDynamics();
       InverseDynamicsCommandList feedbackControllerOutput = feedbackController.getInverseDynamicsOutput();
       numberOfFBControllerEnabled.set(feedbackControllerOutput.getNumberOfCommands());
+      if (profiler != null)
+         profiler.stopFeedbackController();
+
+      if (profiler != null)
+         profiler.startOptimization();
       inverseDynamicsSolver.submitInverseDynamicsCommandList(feedbackControllerOutput);
       inverseDynamicsSolver.submitResetIntegratorRequests(jointDesiredOutputList);
       inverseDynamicsSolver.compute();
       feedbackController.computeAchievedAccelerations();
+      if (profiler != null)
+         profiler.stopOptimization();
+
+      if (profiler != null)
+         profiler.startJointDesiredOutput();
       LowLevelOneDoFJointDesiredDataHolder inverseDynamicsOutput = inverseDynamicsSolver.getOutput();
       RootJointDesiredConfigurationDataReadOnly inverseDynamicsOutputForRootJoint = inverseDynamicsSolver.getOutputForRootJoint();
       jointDesiredOutputList.completeWith(inverseDynamicsOutput);
       if (rootJointDesiredConfigurationData != null)
          rootJointDesiredConfigurationData.completeWith(inverseDynamicsOutputForRootJoint);
       controllerCoreOutput.setLinearMomentumRate(inverseDynamicsSolver.getAchievedMomentumRateLinear());
+      if (profiler != null)
+         profiler.stopJointDesiredOutput();
    }
 
    private void doInverseKinematics()
    {
+      if (profiler != null)
+         profiler.startFeedbackController();
       feedbackController.computeInverseKinematics();
       InverseKinematicsCommandList feedbackControllerOutput = feedbackController.getInverseKinematicsOutput();
       numberOfFBControllerEnabled.set(feedbackControllerOutput.getNumberOfCommands());
+      if (profiler != null)
+         profiler.stopFeedbackController();
+
+      if (profiler != null)
+         profiler.startOptimization();
       inverseKinematicsSolver.submitInverseKinematicsCommandList(feedbackControllerOutput);
       inverseKinematicsSolver.compute();
+      if (profiler != null)
+         profiler.stopOptimization();
+
+      if (profiler != null)
+         profiler.startJointDesiredOutput();
       LowLevelOneDoFJointDesiredDataHolder inverseKinematicsOutput = inverseKinematicsSolver.getOutput();
       RootJointDesiredConfigurationDataReadOnly inverseKinematicsOutputForRootJoint = inverseKinematicsSolver.getOutputForRootJoint();
       jointDesiredOutputList.completeWith(inverseKinematicsOutput);
       if (rootJointDesiredConfigurationData != null)
          rootJointDesiredConfigurationData.completeWith(inverseKinematicsOutputForRootJoint);
+      if (profiler != null)
+         profiler.stopJointDesiredOutput();
    }
 
    private void doVirtualModelControl()
    {
+      if (profiler != null)
+         profiler.startFeedbackController();
       feedbackController.computeVirtualModelControl();
       VirtualModelControlCommandList feedbackControllerOutput = feedbackController.getVirtualModelControlOutput();
       numberOfFBControllerEnabled.set(feedbackControllerOutput.getNumberOfCommands());
+      if (profiler != null)
+         profiler.stopFeedbackController();
+
+      if (profiler != null)
+         profiler.startOptimization();
       virtualModelControlSolver.submitVirtualModelControlCommandList(feedbackControllerOutput);
       virtualModelControlSolver.compute();
+      if (profiler != null)
+         profiler.stopOptimization();
+
+      if (profiler != null)
+         profiler.startJointDesiredOutput();
       LowLevelOneDoFJointDesiredDataHolder virtualModelControlOutput = virtualModelControlSolver.getOutput();
       RootJointDesiredConfigurationDataReadOnly virtualModelControlOutputForRootJoint = virtualModelControlSolver.getOutputForRootJoint();
       jointDesiredOutputList.completeWith(virtualModelControlOutput);
       if (rootJointDesiredConfigurationData != null)
          rootJointDesiredConfigurationData.completeWith(virtualModelControlOutputForRootJoint);
       controllerCoreOutput.setLinearMomentumRate(virtualModelControlSolver.getAchievedMomentumRateLinear());
+      if (profiler != null)
+         profiler.stopJointDesiredOutput();
    }
 
    private void doNothing()
@@ -323,4 +374,25 @@ public class WholeBodyControllerCore
    {
       return feedbackController.getWholeBodyFeedbackControllerDataHolder();
    }
+
+   /**
+    * Stops the thread writing the profiler reports, if any, to be called when the controller is shut
+    * down.
+    */
+   public void close()
+   {
+      if (profiler != null)
+         profiler.close();
+   }
+
+   /**
+    * Gets the profiler of this controller core.
+    *
+    * @return the profiler or {@code null} if it was not enabled, see
+    *         {@link WholeBodyControlCoreToolbox#setEnableProfiler(boolean)}.
+    */
+   public WholeBodyControllerCoreProfiler getProfiler()
+   {
+      return profiler;
+   }
 }
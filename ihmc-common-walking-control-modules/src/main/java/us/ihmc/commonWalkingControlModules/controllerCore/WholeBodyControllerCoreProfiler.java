@@ -0,0 +1,260 @@
+package us.ihmc.commonWalkingControlModules.controllerCore;
+
+import java.io.IOException;
+import java.io.PrintWriter;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.text.SimpleDateFormat;
+import java.util.Date;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import us.ihmc.log.LogTools;
+import us.ihmc.robotics.time.ExecutionProfiler;
+import us.ihmc.yoVariables.registry.YoVariableRegistry;
+import us.ihmc.yoVariables.variable.YoBoolean;
+
+/**
+ * Optional instrumentation of the {@link WholeBodyControllerCore} that measures, for each of its
+ * sub-stages, the execution time and the number of bytes allocated at every control tick.
+ * <p>
+ * The sub-stages profiled are:
+ * <ul>
+ * <li>the feedback controllers,
+ * <li>the optimization, i.e. the inverse dynamics QP, the inverse kinematics QP, or the virtual
+ * model control optimization depending on the active mode,
+ * <li>the joint desired output, i.e. the update of the low-level desired data from the optimization
+ * result.
+ * </ul>
+ * The measurements are available as {@code YoVariable}s and can be dumped to a text file either by
+ * calling {@link #writeReport(Path)} or by setting the variable
+ * {@code controllerCoreProfilerDumpRequested} to {@code true}. In the latter case the controller
+ * thread only copies the measurements into a preallocated snapshot, and the report is written from
+ * a background thread such that the control loop is never blocked on the file system.
+ * </p>
+ * <p>
+ * This profiler is only created when enabled via
+ * {@link WholeBodyControlCoreToolbox#setEnableProfiler(boolean)}. When not enabled, the controller
+ * core only performs a null-check per stage.
+ * </p>
+ */
+public class WholeBodyControllerCoreProfiler
+{
+   private static final Path DEFAULT_REPORT_DIRECTORY = Paths.get(System.getProperty("user.home"), ".ihmc", "logs");
+
+   private final YoVariableRegistry registry = new YoVariableRegistry(getClass().getSimpleName());
+
+   private final YoBoolean enabled = new YoBoolean("controllerCoreProfilerEnabled", registry);
+   private final YoBoolean dumpRequested = new YoBoolean("controllerCoreProfilerDumpRequested", registry);
+   private final YoBoolean resetRequested = new YoBoolean("controllerCoreProfilerResetRequested", registry);
+
+   private final ExecutionProfiler feedbackControllerProfiler = new ExecutionProfiler("controllerCoreFeedbackController", registry);
+   private final ExecutionProfiler optimizationProfiler = new ExecutionProfiler("controllerCoreOptimization", registry);
+   private final ExecutionProfiler jointDesiredOutputProfiler = new ExecutionProfiler("controllerCoreJointDesiredOutput", registry);
+   private final ExecutionProfiler[] allProfilers = {feedbackControllerProfiler, optimizationProfiler, jointDesiredOutputProfiler};
+
+   private final ExecutionProfiler[] snapshotProfilers = new ExecutionProfiler[allProfilers.length];
+   private final AtomicBoolean isWritingSnapshot = new AtomicBoolean(false);
+   private long snapshotTimestamp;
+   private final Runnable snapshotWriter = this::writeSnapshot;
+   private final ExecutorService reportExecutor;
+
+   private final Path reportDirectory;
+
+   public WholeBodyControllerCoreProfiler(YoVariableRegistry parentRegistry)
+   {
+      this(DEFAULT_REPORT_DIRECTORY, parentRegistry);
+   }
+
+   /**
+    * Creates a new profiler.
+    *
+    * @param reportDirectory the directory in which the reports are written upon request via
+    *                        {@code controllerCoreProfilerDumpRequested}.
+    * @param parentRegistry  the registry to which this profiler attaches its own registry.
+    */
+   public WholeBodyControllerCoreProfiler(Path reportDirectory, YoVariableRegistry parentRegistry)
+   {
+      this.reportDirectory = reportDirectory;
+      enabled.set(true);
+
+      YoVariableRegistry snapshotRegistry = new YoVariableRegistry("snapshot");
+      for (int i = 0; i < allProfilers.length; i++)
+      {
+         ExecutionProfiler profiler = allProfilers[i];
+         snapshotProfilers[i] = new ExecutionProfiler(profiler.getName(),
+                                                      profiler.getHistogramResolution(),
+                                                      profiler.getHistogramLength() - 1,
+                                                      ExecutionProfiler.DEFAULT_PERCENTILE_UPDATE_PERIOD,
+                                                      snapshotRegistry);
+      }
+
+      reportExecutor = Executors.newSingleThreadExecutor(runnable ->
+      {
+         Thread thread = new Thread(runnable, getClass().getSimpleName() + "ReportWriter");
+         thread.setDaemon(true);
+         return thread;
+      });
+
+      if (!ExecutionProfiler.isAllocationMeasurementSupported())
+         LogTools.warn("The JVM does not support the measurement of the thread allocated memory, only the execution times will be measured.");
+
+      parentRegistry.addChild(registry);
+   }
+
+   public void startFeedbackController()
+   {
+      if (enabled.getValue())
+         feedbackControllerProfiler.startMeasurement();
+   }
+
+   public void stopFeedbackController()
+   {
+      if (enabled.getValue())
+         feedbackControllerProfiler.stopMeasurement();
+   }
+
+   public void startOptimization()
+   {
+      if (enabled.getValue())
+         optimizationProfiler.startMeasurement();
+   }
+
+   public void stopOptimization()
+   {
+      if (enabled.getValue())
+         optimizationProfiler.stopMeasurement();
+   }
+
+   public void startJointDesiredOutput()
+   {
+      if (enabled.getValue())
+         jointDesiredOutputProfiler.startMeasurement();
+   }
+
+   public void stopJointDesiredOutput()
+   {
+      if (enabled.getValue())
+         jointDesiredOutputProfiler.stopMeasurement();
+   }
+
+   /**
+    * Processes the pending requests, this is to be called once per control tick after all the
+    * measurements.
+    * <p>
+    * A dump request is postponed while the previous report is still being written.
+    * </p>
+    */
+   public void update()
+   {
+      if (dumpRequested.getValue() && isWritingSnapshot.compareAndSet(false, true))
+      {
+         dumpRequested.set(false);
+
+         for (int i = 0; i < allProfilers.length; i++)
+            snapshotProfilers[i].set(allProfilers[i]);
+         snapshotTimestamp = System.currentTimeMillis();
+
+         reportExecutor.execute(snapshotWriter);
+      }
+
+      if (resetRequested.getValue())
+      {
+         resetRequested.set(false);
+         reset();
+      }
+   }
+
+   private void writeSnapshot()
+   {
+      try
+      {
+         String fileName = new SimpleDateFormat("yyyyMMdd_HHmmss").format(new Date(snapshotTimestamp)) + "_" + getClass().getSimpleName() + ".txt";
+         writeReport(reportDirectory.resolve(fileName), snapshotProfilers);
+      }
+      finally
+      {
+         isWritingSnapshot.set(false);
+      }
+   }
+
+   /**
+    * Stops the thread writing the reports requested via {@code controllerCoreProfilerDumpRequested}
+    * once the pending report is written.
+    */
+   public void close()
+   {
+      reportExecutor.shutdown();
+   }
+
+   public void reset()
+   {
+      for (ExecutionProfiler profiler : allProfilers)
+         profiler.reset();
+   }
+
+   /**
+    * Writes the summary and latency histograms of every sub-stage to the given file.
+    * <p>
+    * The file is written from the calling thread, this method is not meant to be called from the
+    * controller thread.
+    * </p>
+    *
+    * @param reportFile the file to write to, its parent directories are created if needed.
+    * @return whether the report was successfully written.
+    */
+   public boolean writeReport(Path reportFile)
+   {
+      return writeReport(reportFile, allProfilers);
+   }
+
+   private static boolean writeReport(Path reportFile, ExecutionProfiler[] profilers)
+   {
+      try
+      {
+         if (reportFile.getParent() != null)
+            Files.createDirectories(reportFile.getParent());
+
+         try (PrintWriter writer = new PrintWriter(Files.newBufferedWriter(reportFile)))
+         {
+            writer.println("# Allocation measurement supported: " + ExecutionProfiler.isAllocationMeasurementSupported());
+
+            for (ExecutionProfiler profiler : profilers)
+            {
+               profiler.writeReport(writer);
+               writer.println();
+            }
+         }
+
+         LogTools.info("Controller core profiler report written to: " + reportFile);
+         return true;
+      }
+      catch (IOException e)
+      {
+         LogTools.error("Could not write the controller core profiler report: " + e.getMessage());
+         return false;
+      }
+   }
+
+   public void setEnabled(boolean enabled)
+   {
+      this.enabled.set(enabled);
+   }
+
+   public ExecutionProfiler getFeedbackControllerProfiler()
+   {
+      return feedbackControllerProfiler;
+   }
+
+   public ExecutionProfiler getOptimizationProfiler()
+   {
+      return optimizationProfiler;
+   }
+
+   public ExecutionProfiler getJointDesiredOutputProfiler()
+   {
+      return jointDesiredOutputProfiler;
+   }
+}
@@ -169,6 +169,15 @@ public class HumanoidHighLevelControllerManager implements RobotController
       reportRobotDesiredConfigurationData();
    }
 
+   /**
+    * Closes every controller state, to be called when the controller is shut down.
+    */
+   public void close()
+   {
+      for (HighLevelControllerState highLevelControllerState : highLevelControllerStates.values())
+         highLevelControllerState.close();
+   }
+
    @Override
    public YoVariableRegistry getYoVariableRegistry()
    {
@@ -478,6 +478,9 @@ public class HighLevelHumanoidControllerFactory implements CloseableAndDisposabl
    public void closeAndDispose()
    {
       closeableAndDisposableRegistry.closeAndDispose();
+
+      if (humanoidHighLevelControllerManager != null)
+         humanoidHighLevelControllerManager.close();
    }
 
    public CommandInputManager getCommandInputManager()
@@ -69,6 +69,13 @@ public abstract class HighLevelControllerState implements State, JointLoadStatus
       return null;
    }
 
+   /**
+    * Releases the resources held by this state, such as threads, when the controller is shut down.
+    */
+   public void close()
+   {
+   }
+
    @Override
    public boolean isDone(double timeInState)
    {
@@ -227,6 +227,12 @@ public class WalkingControllerState extends HighLevelControllerState
       controllerToolbox.reportChangeOfRobotMotionStatus(RobotMotionStatus.UNKNOWN);
    }
 
+   @Override
+   public void close()
+   {
+      controllerCore.close();
+   }
+
    @Override
    public JointDesiredOutputListReadOnly getOutputForLowLevelController()
    {
@@ -1,13 +1,20 @@
 package us.ihmc.commonWalkingControlModules.momentumBasedController;
 
 import java.util.ArrayList;
+import java.util.LinkedHashSet;
 import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
 
 import gnu.trove.map.hash.TIntObjectHashMap;
 import us.ihmc.euclid.referenceFrame.ReferenceFrame;
 import us.ihmc.mecano.multiBodySystem.interfaces.JointBasics;
 import us.ihmc.mecano.multiBodySystem.interfaces.RigidBodyBasics;
 import us.ihmc.robotics.screwTheory.GeometricJacobian;
+import us.ihmc.robotics.screwTheory.KinematicTreeChangeTracker;
 import us.ihmc.robotics.screwTheory.ScrewTools;
 
 /*
@@ -15,6 +22,9 @@ import us.ihmc.robotics.screwTheory.ScrewTools;
  * The method compute() should be replaced a method reset() which should flip a boolean somehow linked to each jacobian indicating that they need to be updated.
  * When a getter is called, call GeometricJacobian.compute() only if needed.
  * That should allow the user to create as many jacobian as needed and update only the ones that are actually being used.
+ *
+ * When created with a KinematicTreeChangeTracker, the Jacobians whose joints have not moved are not recomputed, see GeometricJacobian.setChangeTracker(...).
+ * The Jacobians can also be distributed over several threads, which only pays off with many Jacobians of long kinematic chains.
  */
 public class GeometricJacobianHolder
 {
@@ -24,14 +34,129 @@ public class GeometricJacobianHolder
    private final List<GeometricJacobian> geometricJacobians = new ArrayList<GeometricJacobian>();
    private final JointBasics[] temporaryToStoreJointPath = new JointBasics[30];
 
+   private final KinematicTreeChangeTracker changeTracker;
+   private final int numberOfThreads;
+   private final Set<ReferenceFrame> framesToUpdate = new LinkedHashSet<>();
+   private final List<ReferenceFrame> framesToUpdateList = new ArrayList<>();
+   private final List<Runnable> workerTasks = new ArrayList<>();
+   private final List<Future<?>> pendingTasks = new ArrayList<>();
+   private final ExecutorService executor;
+
+   public GeometricJacobianHolder()
+   {
+      this(null, 1);
+   }
+
+   /**
+    * @param changeTracker the tracker of the robot the Jacobians are created for, used to reuse the Jacobians whose joints have not moved. Can be
+    *           {@code null}.
+    * @param numberOfThreads the number of threads computing the Jacobians, including the calling thread.
+    */
+   public GeometricJacobianHolder(KinematicTreeChangeTracker changeTracker, int numberOfThreads)
+   {
+      if (numberOfThreads < 1)
+         throw new IllegalArgumentException("The number of threads has to be at least 1, was " + numberOfThreads);
+
+      this.changeTracker = changeTracker;
+      this.numberOfThreads = numberOfThreads;
+
+      for (int i = 0; i < numberOfThreads; i++)
+      {
+         int workerIndex = i;
+         workerTasks.add(() -> computeJacobians(workerIndex));
+      }
+
+      if (numberOfThreads > 1)
+      {
+         String threadName = getClass().getSimpleName() + "Worker";
+         executor = Executors.newFixedThreadPool(numberOfThreads - 1, runnable ->
+         {
+            Thread thread = new Thread(runnable, threadName);
+            thread.setDaemon(true);
+            return thread;
+         });
+      }
+      else
+      {
+         executor = null;
+      }
+   }
+
    public void compute()
    {
-      for (int i = 0; i < geometricJacobians.size(); i++)
+      if (changeTracker != null)
+         changeTracker.update();
+
+      if (numberOfThreads == 1)
+      {
+         computeJacobians(0);
+         return;
+      }
+
+      // The frames compute their transform to root lazily, which is not safe to do concurrently.
+      for (int i = 0; i < framesToUpdateList.size(); i++)
+         framesToUpdateList.get(i).getTransformToRoot();
+
+      for (int i = 1; i < numberOfThreads; i++)
+         pendingTasks.add(executor.submit(workerTasks.get(i)));
+
+      workerTasks.get(0).run();
+      waitForPendingTasks();
+   }
+
+   private void computeJacobians(int workerIndex)
+   {
+      for (int i = workerIndex; i < geometricJacobians.size(); i += numberOfThreads)
       {
          geometricJacobians.get(i).compute();
       }
    }
 
+   private void waitForPendingTasks()
+   {
+      Throwable failure = null;
+
+      for (int i = 0; i < pendingTasks.size(); i++)
+      {
+         try
+         {
+            pendingTasks.get(i).get();
+         }
+         catch (ExecutionException e)
+         {
+            if (failure == null)
+               failure = e.getCause();
+         }
+         catch (InterruptedException e)
+         {
+            if (failure == null)
+               failure = e;
+         }
+      }
+
+      pendingTasks.clear();
+
+      if (failure instanceof RuntimeException)
+         throw (RuntimeException) failure;
+      else if (failure != null)
+         throw new RuntimeException(failure);
+   }
+
+   /**
+    * Stops the additional threads, {@link #compute()} cannot be called afterwards when this holder
+    * has more than one thread.
+    */
+   public void close()
+   {
+      if (executor != null)
+         executor.shutdown();
+   }
+
+   public int getNumberOfThreads()
+   {
+      return numberOfThreads;
+   }
+
    /**
     * Find or create a Jacobian and register it in the {@link HighLevelHumanoidControllerToolbox}.
     * It returns an jacobianId with which it is possible to find the Jacobian later with the method getJacobian(int jacobianId).
@@ -83,14 +208,28 @@ public class GeometricJacobianHolder
             System.arraycopy(joints, 0, jointsForNewJacobian, 0, numberOfJointsToConsider);
             jacobian = new GeometricJacobian(jointsForNewJacobian, jacobianFrame, allowChangeFrame);
          }
+         if (changeTracker != null)
+            jacobian.setChangeTracker(changeTracker);
          jacobian.compute(); // Compute in case you need it right away
          geometricJacobians.add(jacobian);
+         registerFramesToUpdate(jacobian);
          hashCodeToJacobianMap.put(jacobian.hashCode(), jacobian);
       }
 
       return jacobian.hashCode();
    }
 
+   private void registerFramesToUpdate(GeometricJacobian jacobian)
+   {
+      framesToUpdate.add(jacobian.getJacobianFrame());
+      framesToUpdate.add(jacobian.getBaseFrame());
+      for (JointBasics joint : jacobian.getJointsInOrder())
+         framesToUpdate.add(joint.getFrameAfterJoint());
+
+      framesToUpdateList.clear();
+      framesToUpdateList.addAll(framesToUpdate);
+   }
+
    /**
     * Return a jacobian previously created with the getOrCreate method using a jacobianId.
     * @param jacobianId
@@ -0,0 +1,381 @@
+package us.ihmc.commonWalkingControlModules.polygonWiggling;
+
+import org.ejml.data.DenseMatrix64F;
+import org.ejml.ops.CommonOps;
+
+import us.ihmc.convexOptimization.quadraticProgram.JavaQuadProgSolver;
+import us.ihmc.euclid.geometry.ConvexPolygon2D;
+import us.ihmc.euclid.geometry.interfaces.ConvexPolygon2DReadOnly;
+import us.ihmc.euclid.transform.RigidBodyTransform;
+import us.ihmc.euclid.tuple2D.interfaces.Point2DReadOnly;
+import us.ihmc.log.LogTools;
+import us.ihmc.matrixlib.MatrixTools;
+import us.ihmc.robotics.geometry.ConvexPolygonTools;
+import us.ihmc.robotics.geometry.PlanarRegion;
+
+/**
+ * Reusable version of the {@link PolygonWiggler}.
+ * <p>
+ * The {@link PolygonWiggler} creates a new solver and new matrices for every call which becomes
+ * expensive when wiggling hundreds of footholds as done in the footstep planners. This calculator
+ * formulates the same optimization problem but holds on to its solver and matrices such that no
+ * memory is allocated once it has been used for the largest problem size. The matrices are
+ * initially sized given the maximum expected number of vertices and grow if needed.
+ * </p>
+ * <p>
+ * Warm-starting can be enabled via {@link #setUseWarmStart(boolean)}, in which case the solver is
+ * initialized with the active set of the previous solution. This is beneficial when wiggling
+ * similar polygons into the same region successively, for instance when expanding a node in a
+ * footstep planner. The warm-start is automatically discarded when the problem size changes.
+ * </p>
+ */
+public class PolygonWiggleCalculator
+{
+   private static final boolean DEBUG = false;
+
+   /** Default maximum number of vertices of the polygon to wiggle. */
+   public static final int DEFAULT_MAXIMUM_NUMBER_OF_POLYGON_VERTICES = 8;
+   /** Default maximum number of vertices of the polygon to wiggle into. */
+   public static final int DEFAULT_MAXIMUM_NUMBER_OF_REGION_VERTICES = 30;
+
+   /** Weight associated with moving into the polygon. */
+   private static final double polygonWeight = 1.0e6;
+   /** Regularization weight preferring a zero solution. */
+   private static final double regularization = 1.0e-10;
+   /** Weight associated with moving the polygon. */
+   private static final double moveWeight = 1.0;
+
+   private static final int[] emptyArray = new int[0];
+   private static final int boundConstraints = 6;
+
+   private final JavaQuadProgSolver solver = new JavaQuadProgSolver();
+
+   private final DenseMatrix64F A;
+   private final DenseMatrix64F b;
+   private final DenseMatrix64F A_full;
+   private final DenseMatrix64F b_full;
+   private final DenseMatrix64F Aeq;
+   private final DenseMatrix64F beq;
+   private final DenseMatrix64F costMatrix;
+   private final DenseMatrix64F costVector;
+   private final DenseMatrix64F result;
+
+   private final ConvexPolygonTools convexPolygonTools = new ConvexPolygonTools();
+   private final ConvexPolygon2D intersection = new ConvexPolygon2D();
+
+   private boolean useWarmStart = false;
+   private int previousNumberOfVariables = -1;
+   private int previousNumberOfConstraints = -1;
+   private int numberOfIterations = 0;
+
+   public PolygonWiggleCalculator()
+   {
+      this(DEFAULT_MAXIMUM_NUMBER_OF_POLYGON_VERTICES, DEFAULT_MAXIMUM_NUMBER_OF_REGION_VERTICES);
+   }
+
+   /**
+    * Creates a new calculator and allocates the memory for the given problem size.
+    *
+    * @param maximumNumberOfPolygonVertices the maximum expected number of vertices of the polygons to
+    *                                       wiggle.
+    * @param maximumNumberOfRegionVertices  the maximum expected number of vertices of the polygons to
+    *                                       wiggle into.
+    */
+   public PolygonWiggleCalculator(int maximumNumberOfPolygonVertices, int maximumNumberOfRegionVertices)
+   {
+      // Lines and points are converted to 4 constraints.
+      int maxConstraintsPerPoint = Math.max(4, maximumNumberOfRegionVertices);
+      int maxSlackVariables = maxConstraintsPerPoint * maximumNumberOfPolygonVertices;
+      int maxVariables = 3 + maxSlackVariables;
+
+      A = new DenseMatrix64F(maxConstraintsPerPoint, 2);
+      b = new DenseMatrix64F(maxConstraintsPerPoint, 1);
+      A_full = new DenseMatrix64F(maxSlackVariables + boundConstraints, maxVariables);
+      b_full = new DenseMatrix64F(maxSlackVariables + boundConstraints, 1);
+      Aeq = new DenseMatrix64F(maxSlackVariables, maxVariables);
+      beq = new DenseMatrix64F(maxSlackVariables, 1);
+      costMatrix = new DenseMatrix64F(maxVariables, maxVariables);
+      costVector = new DenseMatrix64F(maxVariables, 1);
+      result = new DenseMatrix64F(maxVariables, 1);
+   }
+
+   /**
+    * Sets whether the solver should be initialized with the active set of the previous solution.
+    *
+    * @param useWarmStart whether to warm-start the solver, default value is {@code false}.
+    */
+   public void setUseWarmStart(boolean useWarmStart)
+   {
+      this.useWarmStart = useWarmStart;
+      solver.setUseWarmStart(useWarmStart);
+      if (!useWarmStart)
+         resetWarmStart();
+   }
+
+   /**
+    * Discards the active set of the previous solution such that the next problem is solved from
+    * scratch.
+    */
+   public void resetWarmStart()
+   {
+      previousNumberOfVariables = -1;
+      previousNumberOfConstraints = -1;
+   }
+
+   /**
+    * Computes the transform that moves the given polygon into the convex hull of a planar region.
+    *
+    * @param polygonToWiggleInRegionFrame the polygon to wiggle expressed in the region local frame.
+    *                                     Not modified.
+    * @param regionToWiggleInto           the region to wiggle into. Not modified.
+    * @param parameters                   the parameters for the wiggle. Not modified.
+    * @param wiggleTransformToPack        the transform that moves the polygon into the region.
+    *                                     Modified.
+    * @return whether the computation was successful.
+    */
+   public boolean wigglePolygonIntoConvexHullOfRegion(ConvexPolygon2DReadOnly polygonToWiggleInRegionFrame, PlanarRegion regionToWiggleInto,
+                                                      WiggleParameters parameters, RigidBodyTransform wiggleTransformToPack)
+   {
+      return findWiggleTransform(polygonToWiggleInRegionFrame, regionToWiggleInto.getConvexHull(), parameters, wiggleTransformToPack);
+   }
+
+   /**
+    * Computes the transform that moves the given polygon into the convex polygon of a planar region
+    * that has the biggest intersection with it. Problematic if the polygon overlaps multiple convex
+    * polygons of the region.
+    *
+    * @param polygonToWiggleInRegionFrame the polygon to wiggle expressed in the region local frame.
+    *                                     Not modified.
+    * @param regionToWiggleInto           the region to wiggle into. Not modified.
+    * @param parameters                   the parameters for the wiggle. Not modified.
+    * @param wiggleTransformToPack        the transform that moves the polygon into the region.
+    *                                     Modified.
+    * @return whether the computation was successful.
+    * @see PolygonWiggler#wigglePolygonIntoRegion(ConvexPolygon2D, PlanarRegion, WiggleParameters)
+    */
+   public boolean wigglePolygonIntoRegion(ConvexPolygon2DReadOnly polygonToWiggleInRegionFrame, PlanarRegion regionToWiggleInto, WiggleParameters parameters,
+                                          RigidBodyTransform wiggleTransformToPack)
+   {
+      // find the part of the region that has the biggest intersection with the polygon
+      ConvexPolygon2DReadOnly bestMatch = null;
+      double overlap = Double.NEGATIVE_INFINITY;
+      for (int i = 0; i < regionToWiggleInto.getNumberOfConvexPolygons(); i++)
+      {
+         intersection.clearAndUpdate();
+         convexPolygonTools.computeIntersectionOfPolygons(regionToWiggleInto.getConvexPolygon(i), polygonToWiggleInRegionFrame, intersection);
+         if (intersection.getArea() > overlap)
+         {
+            overlap = intersection.getArea();
+            bestMatch = regionToWiggleInto.getConvexPolygon(i);
+         }
+      }
+
+      if (bestMatch == null)
+         return false;
+
+      return findWiggleTransform(polygonToWiggleInRegionFrame, bestMatch, parameters, wiggleTransformToPack);
+   }
+
+   /**
+    * Moves a convex polygon into a given convex region.
+    *
+    * @param polygonToWiggle       the polygon to wiggle. Not modified.
+    * @param planeToWiggleInto     the polygon to wiggle into. Not modified.
+    * @param parameters            the parameters for the wiggle. Not modified.
+    * @param wiggledPolygonToPack  the result of the wiggle. Modified.
+    * @param wiggleTransformToPack the transform that moves {@code polygonToWiggle} into
+    *                              {@code planeToWiggleInto}. Modified.
+    * @return whether the computation was successful.
+    * @see PolygonWiggler#wigglePolygon(ConvexPolygon2D, ConvexPolygon2DReadOnly, WiggleParameters)
+    */
+   public boolean wigglePolygon(ConvexPolygon2DReadOnly polygonToWiggle, ConvexPolygon2DReadOnly planeToWiggleInto, WiggleParameters parameters,
+                                ConvexPolygon2D wiggledPolygonToPack, RigidBodyTransform wiggleTransformToPack)
+   {
+      return wigglePolygon(polygonToWiggle, planeToWiggleInto, parameters, emptyArray, wiggledPolygonToPack, wiggleTransformToPack);
+   }
+
+   /**
+    * Moves a convex polygon into a given convex region.
+    *
+    * @param polygonToWiggle          the polygon to wiggle. Not modified.
+    * @param planeToWiggleInto        the polygon to wiggle into. Not modified.
+    * @param parameters               the parameters for the wiggle. Not modified.
+    * @param startingVerticesToIgnore the indices of the edges of {@code planeToWiggleInto} for which
+    *                                 {@link WiggleParameters#deltaInside} is ignored.
+    * @param wiggledPolygonToPack     the result of the wiggle. Modified.
+    * @param wiggleTransformToPack    the transform that moves {@code polygonToWiggle} into
+    *                                 {@code planeToWiggleInto}. Modified.
+    * @return whether the computation was successful.
+    */
+   public boolean wigglePolygon(ConvexPolygon2DReadOnly polygonToWiggle, ConvexPolygon2DReadOnly planeToWiggleInto, WiggleParameters parameters,
+                                int[] startingVerticesToIgnore, ConvexPolygon2D wiggledPolygonToPack, RigidBodyTransform wiggleTransformToPack)
+   {
+      if (!findWiggleTransform(polygonToWiggle, planeToWiggleInto, parameters, startingVerticesToIgnore, wiggleTransformToPack))
+         return false;
+
+      wiggledPolygonToPack.set(polygonToWiggle);
+      wiggledPolygonToPack.applyTransform(wiggleTransformToPack, false);
+      return true;
+   }
+
+   public boolean findWiggleTransform(ConvexPolygon2DReadOnly polygonToWiggle, ConvexPolygon2DReadOnly planeToWiggleInto, WiggleParameters parameters,
+                                      RigidBodyTransform wiggleTransformToPack)
+   {
+      return findWiggleTransform(polygonToWiggle, planeToWiggleInto, parameters, emptyArray, wiggleTransformToPack);
+   }
+
+   /**
+    * Finds a transform that moves a convex polygon into a given convex region. The algorithm assumes
+    * a small rotation angle (it will linearize sin and cos around 0.0). For that reason it is possible
+    * to specify a maximum and a minimum rotation.
+    * <p>
+    * This formulates the same optimization problem as
+    * {@link PolygonWiggler#findWiggleTransform(ConvexPolygon2DReadOnly, ConvexPolygon2DReadOnly, WiggleParameters, int[])}.
+    * </p>
+    *
+    * @return whether the computation was successful.
+    */
+   public boolean findWiggleTransform(ConvexPolygon2DReadOnly polygonToWiggle, ConvexPolygon2DReadOnly planeToWiggleInto, WiggleParameters parameters,
+                                      int[] startingVerticesToIgnore, RigidBodyTransform wiggleTransformToPack)
+   {
+      int numberOfPoints = polygonToWiggle.getNumberOfVertices();
+      Point2DReadOnly pointToRotateAbout = polygonToWiggle.getCentroid();
+      double centroidX = pointToRotateAbout.getX();
+      double centroidY = pointToRotateAbout.getY();
+
+      // This creates inequality constraints for points to lie inside the desired polygon.
+      PolygonWiggler.convertToInequalityConstraints(planeToWiggleInto, A, b, parameters.deltaInside, startingVerticesToIgnore);
+
+      int constraintsPerPoint = A.getNumRows();
+      int numberOfSlackVariables = constraintsPerPoint * numberOfPoints;
+      int numberOfVariables = 3 + numberOfSlackVariables;
+      int numberOfConstraints = numberOfSlackVariables + boundConstraints;
+
+      // The inequality constraints of form
+      // Ax <= b
+      // are converted to new constraints with a new optimization vector s:
+      // Ax - s - b == 0.0
+      // s <= 0
+      // The equality constraint is converted to an objective causing the wiggler to do the best it can instead of failing when the wiggle is not possible.
+      A_full.reshape(numberOfConstraints, numberOfVariables);
+      b_full.reshape(numberOfConstraints, 1);
+      A_full.zero();
+      b_full.zero();
+
+      for (int i = 0; i < numberOfSlackVariables; i++)
+         A_full.set(i, 3 + i, 1.0);
+
+      // add limits on allowed rotation and translation
+      A_full.set(numberOfSlackVariables, 0, 1.0);
+      b_full.set(numberOfSlackVariables, parameters.maxX);
+      A_full.set(numberOfSlackVariables + 1, 0, -1.0);
+      b_full.set(numberOfSlackVariables + 1, -parameters.minX);
+      A_full.set(numberOfSlackVariables + 2, 1, 1.0);
+      b_full.set(numberOfSlackVariables + 2, parameters.maxY);
+      A_full.set(numberOfSlackVariables + 3, 1, -1.0);
+      b_full.set(numberOfSlackVariables + 3, -parameters.minY);
+      A_full.set(numberOfSlackVariables + 4, 2, 1.0);
+      b_full.set(numberOfSlackVariables + 4, parameters.maxYaw);
+      A_full.set(numberOfSlackVariables + 5, 2, -1.0);
+      b_full.set(numberOfSlackVariables + 5, -parameters.minYaw);
+
+      Aeq.reshape(numberOfSlackVariables, numberOfVariables);
+      beq.reshape(numberOfSlackVariables, 1);
+      Aeq.zero();
+
+      for (int i = 0; i < numberOfPoints; i++)
+      {
+         Point2DReadOnly vertex = polygonToWiggle.getVertex(i);
+         double dx = vertex.getX() - centroidX;
+         double dy = vertex.getY() - centroidY;
+
+         // inequality constraint becomes A*V * x <= b - A*p with V = [1 0 -dy; 0 1 dx]
+         for (int j = 0; j < constraintsPerPoint; j++)
+         {
+            int row = constraintsPerPoint * i + j;
+            double a0 = A.get(j, 0);
+            double a1 = A.get(j, 1);
+
+            Aeq.set(row, 0, a0);
+            Aeq.set(row, 1, a1);
+            Aeq.set(row, 2, -a0 * dy + a1 * dx);
+            Aeq.set(row, 3 + row, -1.0);
+            beq.set(row, b.get(j) - a0 * vertex.getX() - a1 * vertex.getY());
+         }
+      }
+
+      // Convert the inequality constraint for being inside the polygon to an objective.
+      costMatrix.reshape(numberOfVariables, numberOfVariables);
+      costVector.reshape(numberOfVariables, 1);
+      CommonOps.multInner(Aeq, costMatrix);
+      CommonOps.multTransA(Aeq, beq, costVector);
+      CommonOps.scale(polygonWeight, costMatrix);
+      CommonOps.scale(-polygonWeight, costVector);
+
+      // Add regularization
+      for (int i = 0; i < numberOfVariables; i++)
+         costMatrix.add(i, i, regularization);
+
+      // Add movement weight
+      costMatrix.add(0, 0, moveWeight);
+      costMatrix.add(1, 1, moveWeight);
+      costMatrix.add(2, 2, moveWeight * parameters.rotationWeight);
+
+      solver.clear();
+
+      if (!useWarmStart || numberOfVariables != previousNumberOfVariables || numberOfConstraints != previousNumberOfConstraints)
+         solver.resetActiveConstraints();
+
+      solver.setQuadraticCostFunction(costMatrix, costVector, 0.0);
+      solver.setLinearInequalityConstraints(A_full, b_full);
+      result.reshape(numberOfVariables, 1);
+
+      try
+      {
+         numberOfIterations = solver.solve(result);
+         if (DEBUG)
+         {
+            LogTools.info("Iterations: " + numberOfIterations);
+            LogTools.info("Result: " + result);
+         }
+      }
+      catch (Exception e)
+      {
+         e.printStackTrace();
+         resetWarmStart();
+         return false;
+      }
+
+      if (MatrixTools.containsNaN(result))
+      {
+         LogTools.info("Could not wiggle!");
+         resetWarmStart();
+         return false;
+      }
+
+      previousNumberOfVariables = numberOfVariables;
+      previousNumberOfConstraints = numberOfConstraints;
+
+      // assemble the transform: rotation about the centroid followed by the translation.
+      double theta = result.get(2);
+      double cosTheta = Math.cos(theta);
+      double sinTheta = Math.sin(theta);
+      double translationX = centroidX - (cosTheta * centroidX - sinTheta * centroidY) + result.get(0);
+      double translationY = centroidY - (sinTheta * centroidX + cosTheta * centroidY) + result.get(1);
+
+      wiggleTransformToPack.setRotationYawAndZeroTranslation(theta);
+      wiggleTransformToPack.getTranslation().set(translationX, translationY, 0.0);
+
+      return true;
+   }
+
+   /**
+    * Gets the number of iterations the solver used for the last wiggle.
+    *
+    * @return the number of iterations.
+    */
+   public int getNumberOfIterations()
+   {
+      return numberOfIterations;
+   }
+}
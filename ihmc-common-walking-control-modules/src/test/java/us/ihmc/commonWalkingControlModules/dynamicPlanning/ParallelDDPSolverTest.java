@@ -0,0 +1,276 @@
+package us.ihmc.commonWalkingControlModules.dynamicPlanning;
+
+import static us.ihmc.commonWalkingControlModules.dynamicPlanning.slipJumping.SLIPState.*;
+import static us.ihmc.robotics.Assert.assertEquals;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.function.BiFunction;
+
+import org.ejml.data.DenseMatrix64F;
+import org.junit.jupiter.api.Test;
+
+import gnu.trove.list.array.TIntArrayList;
+import us.ihmc.commonWalkingControlModules.dynamicPlanning.lipm.LIPMDynamics;
+import us.ihmc.commonWalkingControlModules.dynamicPlanning.lipm.LIPMSimpleCostFunction;
+import us.ihmc.commonWalkingControlModules.dynamicPlanning.lipm.LIPMTerminalCostFunction;
+import us.ihmc.commonWalkingControlModules.dynamicPlanning.slipJumping.SLIPState;
+import us.ihmc.commonWalkingControlModules.dynamicPlanning.slipJumping.SimpleReactionDynamics;
+import us.ihmc.commonWalkingControlModules.dynamicPlanning.slipJumping.costs.SLIPDesiredTrackingCost;
+import us.ihmc.commonWalkingControlModules.dynamicPlanning.slipJumping.costs.SLIPModelForceTrackingCost;
+import us.ihmc.commonWalkingControlModules.dynamicPlanning.slipJumping.costs.SLIPRegularizationCost;
+import us.ihmc.commonWalkingControlModules.dynamicPlanning.slipJumping.costs.SLIPTerminalCost;
+import us.ihmc.trajectoryOptimization.CompositeLQCostFunction;
+import us.ihmc.trajectoryOptimization.DDPSolver;
+import us.ihmc.trajectoryOptimization.DefaultDiscreteState;
+import us.ihmc.trajectoryOptimization.DiscreteOptimizationData;
+import us.ihmc.trajectoryOptimization.DiscreteOptimizationSequence;
+import us.ihmc.trajectoryOptimization.DiscreteSequence;
+import us.ihmc.trajectoryOptimization.DiscreteTimeVaryingTrackingLQRSolver;
+import us.ihmc.trajectoryOptimization.LQTrackingCostFunction;
+
+/**
+ * Checks that the solution of the {@link DDPSolver} does not depend on its number of threads.
+ */
+public class ParallelDDPSolverTest
+{
+   private static final int horizon = 200;
+   private static final int numberOfIterations = 5;
+   private static final int[] numbersOfThreads = {2, 3, 4};
+
+   private static final double deltaT = 0.01;
+   private static final double mass = 10.0;
+   private static final double gravityZ = 9.81;
+   private static final double nominalHeight = 1.0;
+
+   @Test
+   public void testLIPMSolutionDoesNotDependOnNumberOfThreads()
+   {
+      assertSolutionDoesNotDependOnNumberOfThreads(ParallelDDPSolverTest::createLIPMProblem);
+   }
+
+   @Test
+   public void testSLIPSolutionDoesNotDependOnNumberOfThreads()
+   {
+      assertSolutionDoesNotDependOnNumberOfThreads(ParallelDDPSolverTest::createSLIPProblem);
+   }
+
+   private static void assertSolutionDoesNotDependOnNumberOfThreads(BiFunction<Integer, Integer, DDPProblem<?>> problemFactory)
+   {
+      DDPProblem<?> serialProblem = problemFactory.apply(horizon, 1);
+      for (int i = 0; i < numberOfIterations; i++)
+         serialProblem.computeOnePass();
+      DiscreteOptimizationSequence serialSolution = serialProblem.copyOptimalSequence();
+      serialProblem.close();
+
+      for (int numberOfThreads : numbersOfThreads)
+      {
+         DDPProblem<?> problem = problemFactory.apply(horizon, numberOfThreads);
+         for (int i = 0; i < numberOfIterations; i++)
+            problem.computeOnePass();
+         assertSequenceEquals(serialSolution, problem.getOptimalSequence());
+         problem.close();
+      }
+   }
+
+   /**
+    * A {@link DDPSolver} ready to iterate on a problem with the given number of threads.
+    */
+   static class DDPProblem<E extends Enum>
+   {
+      private final DDPSolver<E> solver;
+      private final int stateVectorSize;
+      private final int controlVectorSize;
+      private final List<E> dynamicsStates = new ArrayList<>();
+      private final List<LQTrackingCostFunction<E>> costFunctions = new ArrayList<>();
+      private final List<LQTrackingCostFunction<E>> terminalCostFunctions = new ArrayList<>();
+      private final TIntArrayList startIndices = new TIntArrayList();
+      private final TIntArrayList endIndices = new TIntArrayList();
+
+      private DDPProblem(DDPSolver<E> solver, int stateVectorSize, int controlVectorSize)
+      {
+         this.solver = solver;
+         this.stateVectorSize = stateVectorSize;
+         this.controlVectorSize = controlVectorSize;
+      }
+
+      private void addSegment(E dynamicsState, int startIndex, int numberOfTimeSteps, LQTrackingCostFunction<E> costFunction,
+                              LQTrackingCostFunction<E> terminalCostFunction)
+      {
+         dynamicsStates.add(dynamicsState);
+         costFunctions.add(costFunction);
+         terminalCostFunctions.add(terminalCostFunction);
+         startIndices.add(startIndex);
+         endIndices.add(startIndex + numberOfTimeSteps - 1);
+      }
+
+      void computeOnePass()
+      {
+         solver.computeOnePass(dynamicsStates, costFunctions, terminalCostFunctions, startIndices, endIndices);
+      }
+
+      DiscreteOptimizationData getOptimalSequence()
+      {
+         return solver.getOptimalSequence();
+      }
+
+      DiscreteOptimizationSequence copyOptimalSequence()
+      {
+         DiscreteOptimizationSequence copy = new DiscreteOptimizationSequence(stateVectorSize, controlVectorSize);
+         copy.set(solver.getOptimalSequence());
+         return copy;
+      }
+
+      void close()
+      {
+         solver.close();
+      }
+   }
+
+   /**
+    * Creates a LIPM walking problem initialized from the LQR solution.
+    */
+   static DDPProblem<DefaultDiscreteState> createLIPMProblem(int horizon, int numberOfThreads)
+   {
+      LIPMDynamics dynamics = new LIPMDynamics(deltaT, mass, gravityZ);
+      LQTrackingCostFunction<DefaultDiscreteState> costFunction = new LIPMSimpleCostFunction();
+      LQTrackingCostFunction<DefaultDiscreteState> terminalCostFunction = new LIPMTerminalCostFunction();
+
+      DDPSolver<DefaultDiscreteState> solver = new DDPSolver<>(dynamics);
+      solver.setNumberOfThreads(numberOfThreads, () -> new LIPMDynamics(deltaT, mass, gravityZ), original -> new LIPMSimpleCostFunction());
+
+      DiscreteOptimizationSequence desiredSequence = new DiscreteOptimizationSequence(dynamics.getStateVectorSize(), dynamics.getControlVectorSize());
+      DiscreteSequence constantsSequence = new DiscreteSequence(dynamics.getConstantVectorSize());
+      DenseMatrix64F initialState = new DenseMatrix64F(dynamics.getStateVectorSize(), 1);
+      createLIPMDesireds(horizon, desiredSequence, constantsSequence, initialState);
+
+      DiscreteTimeVaryingTrackingLQRSolver<DefaultDiscreteState> lqrSolver = new DiscreteTimeVaryingTrackingLQRSolver<>(dynamics, costFunction,
+                                                                                                                          terminalCostFunction);
+      lqrSolver.setDesiredSequence(desiredSequence, constantsSequence, initialState);
+      lqrSolver.solveRiccatiEquation(DefaultDiscreteState.DEFAULT, 0, horizon - 1);
+      lqrSolver.computeOptimalSequences(DefaultDiscreteState.DEFAULT, 0, horizon - 1);
+      DiscreteOptimizationSequence lqrSequence = new DiscreteOptimizationSequence(dynamics.getStateVectorSize(), dynamics.getControlVectorSize());
+      lqrSolver.getOptimalSequence(lqrSequence);
+
+      solver.initializeFromLQRSolution(DefaultDiscreteState.DEFAULT, costFunction, lqrSequence, desiredSequence, constantsSequence,
+                                       lqrSolver.getOptimalFeedbackGainSequence(), lqrSolver.getOptimalFeedForwardControlSequence());
+
+      DDPProblem<DefaultDiscreteState> problem = new DDPProblem<>(solver, dynamics.getStateVectorSize(), dynamics.getControlVectorSize());
+      problem.addSegment(DefaultDiscreteState.DEFAULT, 0, horizon, costFunction, terminalCostFunction);
+      return problem;
+   }
+
+   /**
+    * Creates a SLIP jumping problem made of a stance, a flight and a second stance.
+    */
+   static DDPProblem<SLIPState> createSLIPProblem(int horizon, int numberOfThreads)
+   {
+      SimpleReactionDynamics dynamics = new SimpleReactionDynamics(deltaT, mass, gravityZ);
+      CompositeLQCostFunction<SLIPState> costFunction = createSLIPCostFunction();
+      LQTrackingCostFunction<SLIPState> terminalCostFunction = new SLIPTerminalCost();
+
+      DDPSolver<SLIPState> solver = new DDPSolver<>(dynamics);
+      solver.setNumberOfThreads(numberOfThreads, () -> new SimpleReactionDynamics(deltaT, mass, gravityZ), original -> createSLIPCostFunction());
+
+      DDPProblem<SLIPState> problem = new DDPProblem<>(solver, stateVectorSize, controlVectorSize);
+      int numberOfStanceTimeSteps = horizon / 3;
+      int numberOfFlightTimeSteps = horizon / 3;
+      problem.addSegment(STANCE, 0, numberOfStanceTimeSteps, costFunction, null);
+      problem.addSegment(FLIGHT, numberOfStanceTimeSteps, numberOfFlightTimeSteps, costFunction, null);
+      problem.addSegment(STANCE, numberOfStanceTimeSteps + numberOfFlightTimeSteps, horizon - numberOfStanceTimeSteps - numberOfFlightTimeSteps,
+                         costFunction, terminalCostFunction);
+
+      DiscreteOptimizationSequence desiredSequence = new DiscreteOptimizationSequence(stateVectorSize, controlVectorSize);
+      DiscreteSequence constantsSequence = new DiscreteSequence(constantVectorSize);
+      DenseMatrix64F initialState = new DenseMatrix64F(stateVectorSize, 1);
+      createSLIPDesireds(horizon, numberOfStanceTimeSteps, numberOfFlightTimeSteps, desiredSequence, constantsSequence, initialState);
+      solver.initializeSequencesFromDesireds(initialState, desiredSequence, constantsSequence);
+
+      return problem;
+   }
+
+   private static void createLIPMDesireds(int horizon, DiscreteOptimizationSequence desiredSequence, DiscreteSequence constantsSequence,
+                                          DenseMatrix64F initialState)
+   {
+      desiredSequence.setLength(horizon);
+      constantsSequence.setLength(horizon);
+
+      double copVelocity = 0.3;
+
+      for (int i = 0; i < horizon; i++)
+      {
+         double time = i * deltaT;
+         double copX = copVelocity * time;
+         double copY = 0.05 * Math.sin(Math.PI * time);
+
+         DenseMatrix64F desiredState = desiredSequence.getState(i);
+         desiredState.set(0, copX);
+         desiredState.set(1, copY);
+         desiredState.set(2, nominalHeight);
+         desiredState.set(3, copVelocity);
+         desiredState.set(4, 0.05 * Math.PI * Math.cos(Math.PI * time));
+
+         DenseMatrix64F desiredControl = desiredSequence.getControl(i);
+         desiredControl.set(0, copX);
+         desiredControl.set(1, copY);
+         desiredControl.set(2, mass * gravityZ);
+      }
+
+      initialState.set(desiredSequence.getState(0));
+   }
+
+   private static CompositeLQCostFunction<SLIPState> createSLIPCostFunction()
+   {
+      CompositeLQCostFunction<SLIPState> costFunction = new CompositeLQCostFunction<>();
+      costFunction.addLQCostFunction(new SLIPModelForceTrackingCost(mass, gravityZ));
+      costFunction.addLQCostFunction(new SLIPRegularizationCost());
+      costFunction.addLQTrackingCostFunction(new SLIPDesiredTrackingCost());
+      return costFunction;
+   }
+
+   private static void createSLIPDesireds(int horizon, int numberOfStanceTimeSteps, int numberOfFlightTimeSteps, DiscreteOptimizationSequence desiredSequence,
+                                          DiscreteSequence constantsSequence, DenseMatrix64F initialState)
+   {
+      desiredSequence.setLength(horizon);
+      constantsSequence.setLength(horizon);
+
+      double stiffness = 2000.0;
+      double nominalLength = nominalHeight + mass * gravityZ / stiffness;
+      double stepLength = 0.5;
+      double apexHeight = nominalHeight + 0.2;
+
+      for (int i = 0; i < horizon; i++)
+      {
+         boolean isFirstStance = i < numberOfStanceTimeSteps;
+         boolean isFlight = !isFirstStance && i < numberOfStanceTimeSteps + numberOfFlightTimeSteps;
+         double supportX = isFirstStance ? 0.0 : stepLength;
+
+         DenseMatrix64F desiredState = desiredSequence.getState(i);
+         desiredState.set(x, isFlight ? 0.5 * stepLength : supportX);
+         desiredState.set(z, isFlight ? apexHeight : nominalHeight);
+
+         DenseMatrix64F desiredControl = desiredSequence.getControl(i);
+         desiredControl.set(fz, isFlight ? 0.0 : mass * gravityZ);
+         desiredControl.set(xF, isFlight ? 0.0 : supportX);
+         desiredControl.set(k, isFlight ? 0.0 : stiffness);
+
+         if (!isFlight)
+            constantsSequence.get(i).set(SLIPState.nominalLength, nominalLength);
+      }
+
+      initialState.set(desiredSequence.getState(0));
+   }
+
+   static void assertSequenceEquals(DiscreteOptimizationData expected, DiscreteOptimizationData actual)
+   {
+      assertEquals(expected.size(), actual.size());
+
+      for (int t = 0; t < expected.size(); t++)
+      {
+         for (int i = 0; i < expected.getState(t).getNumElements(); i++)
+            assertEquals(expected.getState(t).get(i), actual.getState(t).get(i), 0.0);
+         for (int i = 0; i < expected.getControl(t).getNumElements(); i++)
+            assertEquals(expected.getControl(t).get(i), actual.getControl(t).get(i), 0.0);
+      }
+   }
+}
@@ -0,0 +1,49 @@
+package us.ihmc.communication.net;
+
+import java.util.Random;
+
+import com.esotericsoftware.kryo.Kryo;
+
+import us.ihmc.communication.net.KryoPacketPoolTest.ReceivedPacketHolder;
+import us.ihmc.communication.net.KryoPacketPoolTest.TestPacket;
+import us.ihmc.communication.packetCommunicator.KryoPacketCloningSendingTask;
+import us.ihmc.log.LogTools;
+
+/**
+ * Compares the bytes allocated per packet when deserializing and cloning packets, with and without
+ * a {@link KryoPacketPool}.
+ */
+public class KryoPacketPoolBenchmark
+{
+   public static void main(String[] args) throws Exception
+   {
+      int iterations = 100000;
+      com.sun.management.ThreadMXBean threadMXBean = KryoPacketPoolTest.getThreadMXBean();
+
+      if (threadMXBean == null)
+      {
+         LogTools.info("Allocation measurement not supported by this JVM.");
+         return;
+      }
+
+      NetClassList netClassList = new NetClassList(TestPacket.class);
+      TestPacket packet = KryoPacketPoolTest.nextPacket(new Random(6512L));
+      byte[] serializedPacket = KryoPacketPoolTest.serialize(packet);
+
+      double receiveBytes = KryoPacketPoolTest.measureReceiveAllocations(threadMXBean, KryoPacketPoolTest.createKryo(), serializedPacket, null, iterations);
+
+      KryoPacketPool receivePool = new KryoPacketPool(netClassList, 4);
+      Kryo pooledKryo = KryoPacketPoolTest.createKryo();
+      receivePool.registerWithKryo(pooledKryo);
+      double pooledReceiveBytes = KryoPacketPoolTest.measureReceiveAllocations(threadMXBean, pooledKryo, serializedPacket, receivePool, iterations);
+
+      ReceivedPacketHolder consumer = new ReceivedPacketHolder();
+      double cloneBytes = KryoPacketPoolTest.measureSendingAllocations(threadMXBean, new KryoPacketCloningSendingTask(netClassList, consumer), packet,
+                                                                       iterations);
+      KryoPacketCloningSendingTask pooledSendingTask = new KryoPacketCloningSendingTask(netClassList, consumer, new KryoPacketPool(netClassList, 4));
+      double pooledCloneBytes = KryoPacketPoolTest.measureSendingAllocations(threadMXBean, pooledSendingTask, packet, iterations);
+
+      LogTools.info(String.format("Receive: %.1f bytes/packet, pooled: %.1f bytes/packet", receiveBytes, pooledReceiveBytes));
+      LogTools.info(String.format("Clone: %.1f bytes/packet, pooled: %.1f bytes/packet", cloneBytes, pooledCloneBytes));
+   }
+}
@@ -4,6 +4,7 @@ import java.io.IOException;
 import java.net.InetAddress;
 import java.net.UnknownHostException;
 
+import com.esotericsoftware.kryo.Kryo;
 import com.esotericsoftware.kryonet.Client;
 import com.esotericsoftware.kryonet.Connection;
 import com.esotericsoftware.kryonet.KryoSerialization;
@@ -94,6 +95,12 @@ public class KryoObjectClient extends KryoObjectCommunicator
       this.reconnectAutomatically = reconnectAutomatically;
    }
 
+   @Override
+   protected Kryo getKryo()
+   {
+      return client.getKryo();
+   }
+
    @Override
    protected int sendUDP(Object object)
    {
@@ -4,8 +4,6 @@ import java.awt.Container;
 import java.io.IOException;
 import java.util.ArrayList;
 import java.util.LinkedHashMap;
-import java.util.concurrent.ExecutorService;
-import java.util.concurrent.Executors;
 import java.util.concurrent.atomic.AtomicBoolean;
 
 import javax.swing.JFrame;
@@ -13,24 +11,41 @@ import javax.swing.JScrollPane;
 import javax.swing.JTable;
 import javax.swing.table.DefaultTableModel;
 
+import com.esotericsoftware.kryo.Kryo;
 import com.esotericsoftware.kryonet.Connection;
 import com.esotericsoftware.kryonet.EndPoint;
 import com.esotericsoftware.kryonet.FrameworkMessage.KeepAlive;
 import com.esotericsoftware.kryonet.Listener;
 
 import us.ihmc.commons.FormattingTools;
-import us.ihmc.commons.thread.ThreadTools;
 
 public abstract class KryoObjectCommunicator implements NetworkedObjectCommunicator
 {
    private final AtomicBoolean throwExceptionForUnregisteredPackets = new AtomicBoolean(true);
-   private final LinkedHashMap<Class<?>, ExecutorService> listenerExecutors = new LinkedHashMap<Class<?>, ExecutorService>();
+   private final PacketDispatcher packetDispatcher = new PacketDispatcher("Kryo", new PacketDispatcher.PacketHandler()
+   {
+      @Override
+      public void handlePacket(Object packet)
+      {
+         dispatchToListeners(packet);
+      }
+
+      @Override
+      public void packetDropped(Object packet)
+      {
+         if (packetPool != null)
+            packetPool.release(packet);
+      }
+   });
    private final LinkedHashMap<Class<?>, ArrayList<ObjectConsumer<?>>> listeners = new LinkedHashMap<Class<?>, ArrayList<ObjectConsumer<?>>>();
 
    private final ArrayList<TcpNetStateListener> tcpStateListeners = new ArrayList<TcpNetStateListener>();
    private final ArrayList<ConnectionStateListener> stateListeners = new ArrayList<ConnectionStateListener>();
    
    private final ArrayList<GlobalObjectConsumer> globalListeners = new ArrayList<GlobalObjectConsumer>();
+
+   private NetClassList netClassList;
+   private KryoPacketPool packetPool = null;
    
    // Stuff for data count table 
    private DefaultTableModel dataRateTable;
@@ -70,6 +85,8 @@ public abstract class KryoObjectCommunicator implements NetworkedObjectCommunica
    
    protected void registerClassList(NetClassList classList)
    {
+      netClassList = classList;
+
 	   if(!listeners.containsKey(Object.class))
 	   {
 		   listeners.put(Object.class, new ArrayList<ObjectConsumer<?>>());
@@ -78,10 +95,117 @@ public abstract class KryoObjectCommunicator implements NetworkedObjectCommunica
 	   for(Class<?> clazz : classList.getPacketClassList())
 	   {
 		   listeners.put(clazz, new ArrayList<ObjectConsumer<?>>());
-		   listenerExecutors.put(clazz, Executors.newFixedThreadPool(1, ThreadTools.getNamedThreadFactory("Kryo" + clazz.getSimpleName() + "Listener")));
+		   packetDispatcher.registerPacketClass(clazz);
 	   }
    }
    
+   /**
+    * Enables the pooling of the received packets: each registered packet class gets a pool from which
+    * the received packets are deserialized into, see {@link KryoPacketPool}.
+    * <p>
+    * When enabled, the listeners own a received packet only for the duration of the callback. A
+    * listener that needs to keep a packet has to call {@code getPacketPool().retain(packet)} and
+    * later {@code getPacketPool().release(packet)}.
+    * </p>
+    * <p>
+    * This has to be called before connecting and is only supported with the default
+    * {@link com.esotericsoftware.kryonet.KryoSerialization}.
+    * </p>
+    *
+    * @param capacityPerClass the maximum number of packets kept around for reuse for each class.
+    */
+   public void enablePacketPooling(int capacityPerClass)
+   {
+      if (isConnected())
+         throw new IllegalStateException("The packet pooling has to be enabled before connecting.");
+
+      KryoPacketPool packetPool = new KryoPacketPool(netClassList, capacityPerClass);
+      packetPool.registerWithKryo(getKryo());
+      this.packetPool = packetPool;
+   }
+
+   /**
+    * @return the pool from which the received packets are obtained, or {@code null} if the packet
+    *         pooling has not been enabled.
+    */
+   public KryoPacketPool getPacketPool()
+   {
+      return packetPool;
+   }
+
+   /**
+    * Sets the priority with which the packets of the given class are dispatched to the listeners.
+    * Control-critical packets should use {@link PacketDispatcher.Priority#CRITICAL} such that they
+    * are not delayed by the listeners of other packets.
+    * <p>
+    * This has to be called before receiving the first packet.
+    * </p>
+    */
+   public void setDispatchPriority(Class<?> clazz, PacketDispatcher.Priority priority)
+   {
+      packetDispatcher.setPriority(clazz, priority);
+   }
+
+   /**
+    * Bounds the number of packets of the given class waiting to be dispatched, when full the oldest
+    * packet is dropped. By default the queues are unbounded.
+    * <p>
+    * This has to be called before receiving the first packet.
+    * </p>
+    */
+   public void setMaximumDispatchQueueDepth(Class<?> clazz, int maximumDepth)
+   {
+      packetDispatcher.setMaximumQueueDepth(clazz, maximumDepth);
+   }
+
+   /**
+    * Sets the number of threads used to call the listeners.
+    * <p>
+    * This has to be called before receiving the first packet.
+    * </p>
+    *
+    * @param numberOfSharedThreads   the number of threads dispatching all the packets.
+    * @param numberOfCriticalThreads the number of threads reserved to the packets with
+    *                                {@link PacketDispatcher.Priority#CRITICAL} priority.
+    */
+   public void setNumberOfDispatchThreads(int numberOfSharedThreads, int numberOfCriticalThreads)
+   {
+      packetDispatcher.setNumberOfWorkers(numberOfSharedThreads, numberOfCriticalThreads);
+   }
+
+   /**
+    * @return the queue depth and dispatch latency for the given class, or {@code null} if the class is
+    *         not registered.
+    */
+   public PacketDispatcher.DispatchStatistics getDispatchStatistics(Class<?> clazz)
+   {
+      return packetDispatcher.getStatistics(clazz);
+   }
+
+   @SuppressWarnings({"rawtypes", "unchecked"})
+   private void dispatchToListeners(Object object)
+   {
+      for (int i = 0; i < globalListeners.size(); i++)
+      {
+         globalListeners.get(i).consumeObject(object);
+      }
+
+      ArrayList<ObjectConsumer<?>> objectListeners = listeners.get(object.getClass());
+      if (objectListeners != null)
+      {
+         for (int i = 0; i < objectListeners.size(); i++)
+         {
+            ObjectConsumer listener = objectListeners.get(i);
+            listener.consumeObject(object);
+         }
+      }
+
+      if (packetPool != null)
+      {
+         packetPool.release(object);
+      }
+   }
+
    @Override
    public void attachStateListener(ConnectionStateListener stateListener)
    {
@@ -184,45 +308,14 @@ public abstract class KryoObjectCommunicator implements NetworkedObjectCommunica
       Listener listener = new Listener()
       {
          @Override
-         @SuppressWarnings("unchecked")
-         public void received(Connection connection, final Object object)
+         public void received(Connection connection, Object object)
          {
-            final Class<? extends Object> classType = object.getClass();
-            ExecutorService executorService = listenerExecutors.get(classType);
-            if(executorService != null)
+            if (!packetDispatcher.dispatch(object) && !(object instanceof KeepAlive))
             {
-               executorService.execute(new Runnable()
-               {
-                  
-                  @Override
-                  public void run()
-                  {
-                     for(int i = 0; i < globalListeners.size(); i++)
-                     {
-                        globalListeners.get(i).consumeObject(object);
-                     }
-                     
-                     ArrayList<ObjectConsumer<?>> objectListeners = listeners.get(classType);
-                     if (objectListeners != null)
-                     {
-                        for (int i = 0; i < objectListeners.size(); i++)
-                        {
-                           @SuppressWarnings("rawtypes")
-                           ObjectConsumer listener = objectListeners.get(i);
-                           listener.consumeObject(object);
-                        }
-                     }
-                  }
-               });
-            }
-            
-            else if (!(object instanceof KeepAlive))
-            {
-               System.err.println("Received unkown object of class " + classType);
+               System.err.println("Received unkown object of class " + object.getClass());
             }
          }
-         
-         
+
          @Override
          public void connected(Connection connection)
          {
@@ -265,13 +358,12 @@ public abstract class KryoObjectCommunicator implements NetworkedObjectCommunica
    public final void disconnect()
    {
       closeConnection();
-      for(ExecutorService executor : listenerExecutors.values())
-      {
-         executor.shutdownNow();
-      }
+      packetDispatcher.shutdown();
    }
    
    protected abstract void openConnection() throws IOException;
+
+   protected abstract Kryo getKryo();
    
    protected abstract int sendUDP(Object object);
 
@@ -69,6 +69,12 @@ public class KryoObjectServer extends KryoObjectCommunicator
       this.maximumNumberOfConnections = maximumNumberOfConnections;
    }
 
+   @Override
+   protected Kryo getKryo()
+   {
+      return server.getKryo();
+   }
+
    @Override
    protected int sendUDP(Object object)
    {
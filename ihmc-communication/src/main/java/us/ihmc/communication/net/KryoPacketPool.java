@@ -0,0 +1,146 @@
+package us.ihmc.communication.net;
+
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import org.objenesis.instantiator.ObjectInstantiator;
+
+import com.esotericsoftware.kryo.Kryo;
+import com.esotericsoftware.kryo.Registration;
+
+/**
+ * Holds one {@link ObjectPool} per packet class of a {@link NetClassList}.
+ * <p>
+ * Once registered with a {@link Kryo} instance, every top-level packet this Kryo deserializes is
+ * obtained from the pool of its class instead of being allocated. As Kryo deserializes the
+ * fields directly into the object it instantiated, the primitive fields of a packet are then read
+ * without any allocation. Fields holding objects are still created by their respective serializers.
+ * </p>
+ * <p>
+ * Packets nested in another packet, for instance the hand messages of a whole-body message, are not
+ * taken from the pool, whether or not the enclosing packet is pooled. Consumers only release the
+ * packet they received, nested packets obtained from the pool would never be returned to it. For the
+ * same reason, copies made with {@link Kryo#copy(Object)} are not taken from the pool, use
+ * {@link #acquire(Class)} instead.
+ * </p>
+ * <p>
+ * The packets are reference counted, see {@link ObjectPool}. Consumers that receive a packet from a
+ * pooled communicator only own it for the duration of the callback, use {@link #retain(Object)} and
+ * {@link #release(Object)} to keep it longer.
+ * </p>
+ */
+public class KryoPacketPool
+{
+   /** Default number of instances kept around for each packet class. */
+   public static final int DEFAULT_CAPACITY_PER_CLASS = 16;
+
+   /** Filled at construction only, such that it can safely be read from any thread. */
+   private final Map<Class<?>, ObjectPool<?>> pools = new HashMap<>();
+
+   public KryoPacketPool(NetClassList netClassList)
+   {
+      this(netClassList, DEFAULT_CAPACITY_PER_CLASS);
+   }
+
+   public KryoPacketPool(NetClassList netClassList, int capacityPerClass)
+   {
+      this(netClassList.getPacketClassList(), capacityPerClass);
+   }
+
+   public KryoPacketPool(List<Class<?>> packetClasses, int capacityPerClass)
+   {
+      for (int i = 0; i < packetClasses.size(); i++)
+      {
+         Class<?> packetClass = packetClasses.get(i);
+         pools.put(packetClass, createPool(packetClass, capacityPerClass));
+      }
+   }
+
+   private static <T> ObjectPool<T> createPool(Class<T> type, int capacity)
+   {
+      return new ObjectPool<>(type, capacity);
+   }
+
+   /**
+    * Overrides the instantiator of the pooled classes in the given Kryo such that the top-level
+    * packets it deserializes are obtained from this pool.
+    * <p>
+    * The classes should already be registered, see {@link NetClassList#registerWithKryo(Kryo)}.
+    * </p>
+    *
+    * @param kryo the Kryo to configure. Modified.
+    */
+   public void registerWithKryo(Kryo kryo)
+   {
+      for (ObjectPool<?> pool : pools.values())
+      {
+         Registration registration = kryo.getRegistration(pool.getType());
+         registration.setInstantiator(new ObjectInstantiator()
+         {
+            @Override
+            public Object newInstance()
+            {
+               // Only the top-level object is read at depth 1, nested objects are deeper whether or not their parent is pooled.
+               return kryo.getDepth() == 1 ? pool.acquire() : pool.newInstance();
+            }
+         });
+      }
+   }
+
+   /**
+    * Gets an instance of the given packet class, its reference count is 1.
+    *
+    * @param packetClass the class of the packet to get.
+    * @return the packet.
+    * @throws IllegalArgumentException if the class is not pooled.
+    */
+   public <T> T acquire(Class<T> packetClass)
+   {
+      ObjectPool<T> pool = getPool(packetClass);
+
+      if (pool == null)
+         throw new IllegalArgumentException("Class " + packetClass.getSimpleName() + " is not pooled.");
+
+      return pool.acquire();
+   }
+
+   /**
+    * Increments the reference count of the given packet.
+    *
+    * @param packet the packet to retain.
+    * @return {@code true} if the packet is pooled, {@code false} otherwise in which case this method
+    *         has no effect.
+    */
+   @SuppressWarnings("unchecked")
+   public boolean retain(Object packet)
+   {
+      ObjectPool<Object> pool = (ObjectPool<Object>) pools.get(packet.getClass());
+      return pool != null && pool.retain(packet);
+   }
+
+   /**
+    * Decrements the reference count of the given packet, it is returned to its pool once the count
+    * reaches zero.
+    *
+    * @param packet the packet to release.
+    * @return {@code true} if the packet was returned to its pool.
+    */
+   @SuppressWarnings("unchecked")
+   public boolean release(Object packet)
+   {
+      ObjectPool<Object> pool = (ObjectPool<Object>) pools.get(packet.getClass());
+      return pool != null && pool.release(packet);
+   }
+
+   public boolean isPooled(Class<?> packetClass)
+   {
+      return pools.containsKey(packetClass);
+   }
+
+   @SuppressWarnings("unchecked")
+   public <T> ObjectPool<T> getPool(Class<T> packetClass)
+   {
+      return (ObjectPool<T>) pools.get(packetClass);
+   }
+}
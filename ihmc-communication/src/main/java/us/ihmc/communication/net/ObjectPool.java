@@ -0,0 +1,224 @@
+package us.ihmc.communication.net;
+
+import java.lang.reflect.Constructor;
+import java.util.ArrayDeque;
+import java.util.IdentityHashMap;
+import java.util.function.Supplier;
+
+/**
+ * Thread-safe pool of reference counted instances of a single class.
+ * <p>
+ * An instance obtained with {@link #acquire()} starts with a reference count of 1. Every user that
+ * needs to keep the instance beyond the scope in which it was handed over calls
+ * {@link #retain(Object)} and later {@link #release(Object)}. Once the count reaches zero, the
+ * instance is returned to the pool and will be handed out again by a subsequent call to
+ * {@link #acquire()}.
+ * </p>
+ * <p>
+ * No memory is allocated when acquiring and releasing instances as long as the number of instances
+ * in use does not exceed the capacity of the pool and reference counts remain small.
+ * </p>
+ *
+ * @param <T> the type of the pooled instances.
+ */
+public class ObjectPool<T>
+{
+   private final Class<T> type;
+   private final Supplier<? extends T> factory;
+   private final int capacity;
+
+   private final ArrayDeque<T> availableObjects;
+   private final IdentityHashMap<T, Integer> referenceCounts;
+
+   private long numberOfObjectsCreated = 0;
+   private long numberOfObjectsRecycled = 0;
+
+   /**
+    * Creates a new pool which creates the new instances with the no-arg constructor of the given
+    * type.
+    *
+    * @param type     the type of the pooled instances.
+    * @param capacity the maximum number of instances kept around for reuse.
+    */
+   public ObjectPool(Class<T> type, int capacity)
+   {
+      this(type, createDefaultFactory(type), capacity);
+   }
+
+   /**
+    * Creates a new pool.
+    *
+    * @param type     the type of the pooled instances.
+    * @param factory  used to create new instances when the pool is empty.
+    * @param capacity the maximum number of instances kept around for reuse.
+    */
+   public ObjectPool(Class<T> type, Supplier<? extends T> factory, int capacity)
+   {
+      if (capacity <= 0)
+         throw new IllegalArgumentException("The capacity has to be strictly positive, was: " + capacity);
+
+      this.type = type;
+      this.factory = factory;
+      this.capacity = capacity;
+
+      availableObjects = new ArrayDeque<>(capacity);
+      referenceCounts = new IdentityHashMap<>(2 * capacity);
+   }
+
+   private static <T> Supplier<T> createDefaultFactory(Class<T> type)
+   {
+      try
+      {
+         Constructor<T> constructor = type.getDeclaredConstructor();
+         constructor.setAccessible(true);
+
+         return () ->
+         {
+            try
+            {
+               return constructor.newInstance();
+            }
+            catch (ReflectiveOperationException e)
+            {
+               throw new RuntimeException("Could not create an instance of " + type.getSimpleName(), e);
+            }
+         };
+      }
+      catch (NoSuchMethodException e)
+      {
+         throw new IllegalArgumentException("Class " + type.getSimpleName() + " does not have a no-arg constructor.", e);
+      }
+   }
+
+   /**
+    * Gets an instance from the pool, or creates a new one if the pool is empty.
+    * <p>
+    * The state of a recycled instance is whatever it was when it was last released, the caller is
+    * expected to overwrite it.
+    * </p>
+    *
+    * @return the instance with a reference count of 1.
+    */
+   public synchronized T acquire()
+   {
+      T object = availableObjects.pollLast();
+
+      if (object == null)
+      {
+         object = factory.get();
+         numberOfObjectsCreated++;
+      }
+
+      referenceCounts.put(object, 1);
+      return object;
+   }
+
+   /**
+    * Creates a new instance that is not tracked by this pool.
+    *
+    * @return the new instance.
+    */
+   public T newInstance()
+   {
+      return factory.get();
+   }
+
+   /**
+    * Increments the reference count of the given instance.
+    *
+    * @param object the instance to retain.
+    * @return {@code true} if the instance belongs to this pool and is in use, {@code false} otherwise
+    *         in which case this method has no effect.
+    */
+   public synchronized boolean retain(T object)
+   {
+      Integer referenceCount = referenceCounts.get(object);
+
+      if (referenceCount == null)
+         return false;
+
+      referenceCounts.put(object, referenceCount + 1);
+      return true;
+   }
+
+   /**
+    * Decrements the reference count of the given instance and returns it to the pool when the count
+    * reaches zero.
+    *
+    * @param object the instance to release.
+    * @return {@code true} if the instance was returned to the pool, {@code false} if it is still in use
+    *         or does not belong to this pool.
+    */
+   public synchronized boolean release(T object)
+   {
+      Integer referenceCount = referenceCounts.get(object);
+
+      if (referenceCount == null)
+         return false;
+
+      if (referenceCount > 1)
+      {
+         referenceCounts.put(object, referenceCount - 1);
+         return false;
+      }
+
+      referenceCounts.remove(object);
+
+      if (availableObjects.size() < capacity)
+      {
+         availableObjects.addLast(object);
+         numberOfObjectsRecycled++;
+         return true;
+      }
+      else
+      {
+         return false;
+      }
+   }
+
+   /**
+    * Gets the reference count of the given instance.
+    *
+    * @param object the query.
+    * @return the reference count, or 0 if the instance is not in use.
+    */
+   public synchronized int getReferenceCount(T object)
+   {
+      Integer referenceCount = referenceCounts.get(object);
+      return referenceCount == null ? 0 : referenceCount;
+   }
+
+   public Class<T> getType()
+   {
+      return type;
+   }
+
+   public int getCapacity()
+   {
+      return capacity;
+   }
+
+   public synchronized int getNumberOfAvailableObjects()
+   {
+      return availableObjects.size();
+   }
+
+   public synchronized int getNumberOfObjectsInUse()
+   {
+      return referenceCounts.size();
+   }
+
+   /**
+    * @return the total number of instances created by this pool, should plateau once the pool is
+    *         warmed up.
+    */
+   public synchronized long getNumberOfObjectsCreated()
+   {
+      return numberOfObjectsCreated;
+   }
+
+   public synchronized long getNumberOfObjectsRecycled()
+   {
+      return numberOfObjectsRecycled;
+   }
+}
@@ -0,0 +1,611 @@
+package us.ihmc.communication.net;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.ThreadFactory;
+
+import us.ihmc.commons.Conversions;
+import us.ihmc.commons.thread.ThreadTools;
+
+/**
+ * Dispatches received packets to their listeners using a small, fixed number of worker threads
+ * shared by all the packet classes.
+ * <p>
+ * Each registered class has its own queue. A queue is only processed by one worker at a time such
+ * that the packets of a given class are dispatched in the order they were received, while packets
+ * of different classes are dispatched concurrently. A worker processes at most
+ * {@link #setMaximumBatchSize(int) a batch} of packets from a queue before moving on to the next
+ * pending queue, such that a busy class cannot starve the others.
+ * </p>
+ * <p>
+ * Classes registered with {@link Priority#CRITICAL} go through a separate lane: their queues are
+ * always served first and some workers are reserved to this lane only, such that control-critical
+ * packets are not delayed by slow listeners of other packets.
+ * </p>
+ * <p>
+ * For each class, the queue depth and the dispatch latency, i.e. the time between the reception of
+ * a packet and the call to its handler, are measured and available from
+ * {@link #getStatistics(Class)}.
+ * </p>
+ */
+public class PacketDispatcher
+{
+   /** Default number of workers serving both the critical and normal lanes. */
+   public static final int DEFAULT_NUMBER_OF_SHARED_WORKERS = Math.max(1, Math.min(4, Runtime.getRuntime().availableProcessors() / 2));
+   /** Default number of workers reserved to the critical lane. */
+   public static final int DEFAULT_NUMBER_OF_CRITICAL_WORKERS = 1;
+   /** Default maximum number of packets dispatched from one queue before moving to the next queue. */
+   public static final int DEFAULT_MAXIMUM_BATCH_SIZE = 16;
+
+   public enum Priority
+   {
+      /** Served first and by dedicated workers, for control-critical packets. */
+      CRITICAL,
+      /** Default priority. */
+      NORMAL
+   }
+
+   /**
+    * Receives the packets once dispatched.
+    */
+   public interface PacketHandler
+   {
+      /**
+       * Called from a worker thread, the packets of a given class are handed in order.
+       *
+       * @param packet the packet to dispatch.
+       */
+      void handlePacket(Object packet);
+
+      /**
+       * Called when a packet is dropped because its queue is full or the dispatcher has been shutdown.
+       *
+       * @param packet the dropped packet.
+       */
+      default void packetDropped(Object packet)
+      {
+      }
+   }
+
+   private final String name;
+   private final PacketHandler handler;
+   /** Filled before starting the workers only, such that it can be read without synchronization after. */
+   private final Map<Class<?>, PacketQueue> packetQueues = new LinkedHashMap<>();
+
+   private final Object readyLock = new Object();
+   private final ArrayDeque<PacketQueue> criticalReadyQueues = new ArrayDeque<>();
+   private final ArrayDeque<PacketQueue> normalReadyQueues = new ArrayDeque<>();
+
+   private int numberOfSharedWorkers = DEFAULT_NUMBER_OF_SHARED_WORKERS;
+   private int numberOfCriticalWorkers = DEFAULT_NUMBER_OF_CRITICAL_WORKERS;
+   private int maximumBatchSize = DEFAULT_MAXIMUM_BATCH_SIZE;
+
+   private final ArrayList<Thread> workers = new ArrayList<>();
+   private volatile boolean started = false;
+   private volatile boolean shutdown = false;
+
+   /**
+    * Creates a new dispatcher. The worker threads are only started when the first packet is
+    * dispatched.
+    *
+    * @param name    used to name the worker threads.
+    * @param handler called for each dispatched packet.
+    */
+   public PacketDispatcher(String name, PacketHandler handler)
+   {
+      this.name = name;
+      this.handler = handler;
+   }
+
+   /**
+    * Registers a new class of packets with {@link Priority#NORMAL} and an unbounded queue.
+    */
+   public void registerPacketClass(Class<?> packetClass)
+   {
+      registerPacketClass(packetClass, Priority.NORMAL, Integer.MAX_VALUE);
+   }
+
+   /**
+    * Registers a new class of packets, or updates the settings of a class already registered.
+    *
+    * @param packetClass  the class of packets.
+    * @param priority     the lane used for this class.
+    * @param maximumDepth the maximum number of pending packets for this class, when the queue is full
+    *                     the oldest packet is dropped.
+    */
+   public synchronized void registerPacketClass(Class<?> packetClass, Priority priority, int maximumDepth)
+   {
+      checkNotStarted();
+
+      if (maximumDepth <= 0)
+         throw new IllegalArgumentException("The maximum depth has to be strictly positive, was: " + maximumDepth);
+
+      PacketQueue packetQueue = packetQueues.get(packetClass);
+
+      if (packetQueue == null)
+         packetQueues.put(packetClass, new PacketQueue(packetClass, priority, maximumDepth));
+      else
+         packetQueue.setSettings(priority, maximumDepth);
+   }
+
+   public synchronized void setPriority(Class<?> packetClass, Priority priority)
+   {
+      PacketQueue packetQueue = getPacketQueueOrThrow(packetClass);
+      registerPacketClass(packetClass, priority, packetQueue.maximumDepth);
+   }
+
+   public synchronized void setMaximumQueueDepth(Class<?> packetClass, int maximumDepth)
+   {
+      PacketQueue packetQueue = getPacketQueueOrThrow(packetClass);
+      registerPacketClass(packetClass, packetQueue.priority, maximumDepth);
+   }
+
+   /**
+    * Sets the number of workers for this dispatcher.
+    *
+    * @param numberOfSharedWorkers   the number of workers serving all the packets, critical first.
+    * @param numberOfCriticalWorkers the number of workers reserved to the critical packets.
+    */
+   public synchronized void setNumberOfWorkers(int numberOfSharedWorkers, int numberOfCriticalWorkers)
+   {
+      checkNotStarted();
+
+      if (numberOfSharedWorkers <= 0)
+         throw new IllegalArgumentException("Need at least one shared worker, was: " + numberOfSharedWorkers);
+      if (numberOfCriticalWorkers < 0)
+         throw new IllegalArgumentException("The number of critical workers cannot be negative, was: " + numberOfCriticalWorkers);
+
+      this.numberOfSharedWorkers = numberOfSharedWorkers;
+      this.numberOfCriticalWorkers = numberOfCriticalWorkers;
+   }
+
+   public synchronized void setMaximumBatchSize(int maximumBatchSize)
+   {
+      checkNotStarted();
+
+      if (maximumBatchSize <= 0)
+         throw new IllegalArgumentException("The batch size has to be strictly positive, was: " + maximumBatchSize);
+
+      this.maximumBatchSize = maximumBatchSize;
+   }
+
+   private PacketQueue getPacketQueueOrThrow(Class<?> packetClass)
+   {
+      PacketQueue packetQueue = packetQueues.get(packetClass);
+      if (packetQueue == null)
+         throw new IllegalArgumentException("Class " + packetClass.getSimpleName() + " is not registered with this dispatcher.");
+      return packetQueue;
+   }
+
+   private void checkNotStarted()
+   {
+      if (started)
+         throw new IllegalStateException("The dispatcher has already been started.");
+   }
+
+   public boolean isRegistered(Class<?> packetClass)
+   {
+      return packetQueues.containsKey(packetClass);
+   }
+
+   /**
+    * Queues the given packet for dispatch.
+    *
+    * @param packet the packet to dispatch.
+    * @return {@code false} if the class of the packet is not registered or this dispatcher has been
+    *         shutdown, in which case the packet is ignored.
+    */
+   public boolean dispatch(Object packet)
+   {
+      PacketQueue packetQueue = packetQueues.get(packet.getClass());
+
+      if (packetQueue == null || shutdown)
+         return false;
+
+      if (!started)
+         start();
+
+      if (packetQueue.offer(packet, System.nanoTime()))
+         schedule(packetQueue);
+
+      return true;
+   }
+
+   private synchronized void start()
+   {
+      if (started || shutdown)
+         return;
+
+      ThreadFactory sharedThreadFactory = ThreadTools.getNamedThreadFactory(name + "Dispatcher");
+      for (int i = 0; i < numberOfSharedWorkers; i++)
+         workers.add(sharedThreadFactory.newThread(new Worker(false)));
+
+      ThreadFactory criticalThreadFactory = ThreadTools.getNamedThreadFactory(name + "CriticalDispatcher");
+      for (int i = 0; i < numberOfCriticalWorkers; i++)
+         workers.add(criticalThreadFactory.newThread(new Worker(true)));
+
+      for (int i = 0; i < workers.size(); i++)
+      {
+         workers.get(i).setDaemon(true);
+         workers.get(i).start();
+      }
+
+      started = true;
+   }
+
+   /**
+    * Stops the workers. The pending packets are discarded and handed to
+    * {@link PacketHandler#packetDropped(Object)}, such that pooled packets can be released.
+    */
+   public void shutdown()
+   {
+      shutdown = true;
+
+      synchronized (readyLock)
+      {
+         criticalReadyQueues.clear();
+         normalReadyQueues.clear();
+         readyLock.notifyAll();
+      }
+
+      for (PacketQueue packetQueue : packetQueues.values())
+         packetQueue.discardPendingPackets();
+
+      synchronized (this)
+      {
+         for (int i = 0; i < workers.size(); i++)
+            workers.get(i).interrupt();
+      }
+   }
+
+   public boolean isShutdown()
+   {
+      return shutdown;
+   }
+
+   private void schedule(PacketQueue packetQueue)
+   {
+      synchronized (readyLock)
+      {
+         if (packetQueue.priority == Priority.CRITICAL)
+            criticalReadyQueues.addLast(packetQueue);
+         else
+            normalReadyQueues.addLast(packetQueue);
+         readyLock.notifyAll();
+      }
+   }
+
+   private PacketQueue takeReadyQueue(boolean criticalOnly) throws InterruptedException
+   {
+      synchronized (readyLock)
+      {
+         while (!shutdown)
+         {
+            PacketQueue packetQueue = criticalReadyQueues.pollFirst();
+
+            if (packetQueue == null && !criticalOnly)
+               packetQueue = normalReadyQueues.pollFirst();
+
+            if (packetQueue != null)
+               return packetQueue;
+
+            readyLock.wait();
+         }
+
+         return null;
+      }
+   }
+
+   /**
+    * Gets the statistics for the given class of packets.
+    *
+    * @param packetClass the class of interest.
+    * @return the statistics or {@code null} if the class is not registered.
+    */
+   public DispatchStatistics getStatistics(Class<?> packetClass)
+   {
+      PacketQueue packetQueue = packetQueues.get(packetClass);
+      return packetQueue == null ? null : packetQueue.statistics;
+   }
+
+   public Collection<Class<?>> getRegisteredPacketClasses()
+   {
+      return Collections.unmodifiableCollection(packetQueues.keySet());
+   }
+
+   public int getNumberOfWorkers()
+   {
+      return numberOfSharedWorkers + numberOfCriticalWorkers;
+   }
+
+   private class Worker implements Runnable
+   {
+      private final boolean criticalOnly;
+
+      private Worker(boolean criticalOnly)
+      {
+         this.criticalOnly = criticalOnly;
+      }
+
+      @Override
+      public void run()
+      {
+         try
+         {
+            PacketQueue packetQueue;
+            while ((packetQueue = takeReadyQueue(criticalOnly)) != null)
+            {
+               if (packetQueue.process(maximumBatchSize))
+                  schedule(packetQueue);
+            }
+         }
+         catch (InterruptedException e)
+         {
+            // Shutting down.
+         }
+      }
+   }
+
+   /**
+    * Circular buffer of pending packets for one class, along with their reception times.
+    */
+   private class PacketQueue
+   {
+      private final DispatchStatistics statistics;
+
+      private Priority priority;
+      private int maximumDepth;
+
+      private Object[] packets = new Object[16];
+      private long[] receptionTimes = new long[16];
+      private int head = 0;
+      private int size = 0;
+      /** Whether this queue is in a ready queue or being processed by a worker. */
+      private boolean scheduled = false;
+
+      private PacketQueue(Class<?> packetClass, Priority priority, int maximumDepth)
+      {
+         statistics = new DispatchStatistics(packetClass, priority);
+         setSettings(priority, maximumDepth);
+      }
+
+      private synchronized void setSettings(Priority priority, int maximumDepth)
+      {
+         this.priority = priority;
+         this.maximumDepth = maximumDepth;
+         statistics.priority = priority;
+      }
+
+      /**
+       * @return {@code true} if this queue needs to be scheduled.
+       */
+      private boolean offer(Object packet, long receptionTime)
+      {
+         Object droppedPacket = null;
+         boolean needsScheduling = false;
+
+         synchronized (this)
+         {
+            if (shutdown)
+            { // Raced with the shutdown after it discarded the pending packets of this queue.
+               droppedPacket = packet;
+            }
+            else
+            {
+               if (size == maximumDepth)
+               {
+                  droppedPacket = packets[head];
+                  packets[head] = null;
+                  head = (head + 1) % packets.length;
+                  size--;
+                  statistics.numberOfDroppedPackets++;
+               }
+               else if (size == packets.length)
+               {
+                  grow();
+               }
+
+               int tail = (head + size) % packets.length;
+               packets[tail] = packet;
+               receptionTimes[tail] = receptionTime;
+               size++;
+
+               statistics.queueDepth = size;
+               if (size > statistics.maximumQueueDepth)
+                  statistics.maximumQueueDepth = size;
+
+               needsScheduling = !scheduled;
+               scheduled = true;
+            }
+         }
+
+         if (droppedPacket != null)
+            handler.packetDropped(droppedPacket);
+
+         return needsScheduling;
+      }
+
+      /**
+       * Removes all the pending packets and hands them to {@link PacketHandler#packetDropped(Object)}.
+       */
+      private void discardPendingPackets()
+      {
+         Object[] discardedPackets;
+
+         synchronized (this)
+         {
+            discardedPackets = new Object[size];
+
+            for (int i = 0; i < size; i++)
+            {
+               int index = (head + i) % packets.length;
+               discardedPackets[i] = packets[index];
+               packets[index] = null;
+            }
+
+            head = 0;
+            size = 0;
+            statistics.queueDepth = 0;
+         }
+
+         for (Object discardedPacket : discardedPackets)
+            handler.packetDropped(discardedPacket);
+      }
+
+      private void grow()
+      {
+         int newLength = packets.length * 2;
+         Object[] newPackets = new Object[newLength];
+         long[] newReceptionTimes = new long[newLength];
+
+         for (int i = 0; i < size; i++)
+         {
+            int index = (head + i) % packets.length;
+            newPackets[i] = packets[index];
+            newReceptionTimes[i] = receptionTimes[index];
+         }
+
+         packets = newPackets;
+         receptionTimes = newReceptionTimes;
+         head = 0;
+      }
+
+      /**
+       * Dispatches up to {@code maximumBatchSize} packets.
+       *
+       * @return {@code true} if packets remain in this queue and it needs to be rescheduled.
+       */
+      private boolean process(int maximumBatchSize)
+      {
+         for (int i = 0; i < maximumBatchSize; i++)
+         {
+            Object packet;
+
+            synchronized (this)
+            {
+               if (size == 0)
+               {
+                  scheduled = false;
+                  return false;
+               }
+
+               packet = packets[head];
+               long latency = System.nanoTime() - receptionTimes[head];
+               packets[head] = null;
+               head = (head + 1) % packets.length;
+               size--;
+
+               statistics.queueDepth = size;
+               statistics.recordLatency(latency);
+            }
+
+            try
+            {
+               handler.handlePacket(packet);
+            }
+            catch (Throwable e)
+            {
+               e.printStackTrace();
+            }
+         }
+
+         synchronized (this)
+         {
+            if (size == 0)
+            {
+               scheduled = false;
+               return false;
+            }
+
+            return true;
+         }
+      }
+   }
+
+   /**
+    * Queue depth and dispatch latency measured for one class of packets.
+    */
+   public static class DispatchStatistics
+   {
+      private final Class<?> packetClass;
+      private volatile Priority priority;
+
+      private volatile int queueDepth = 0;
+      private volatile int maximumQueueDepth = 0;
+      private volatile long numberOfDispatchedPackets = 0;
+      private volatile long numberOfDroppedPackets = 0;
+      private volatile long totalLatency = 0;
+      private volatile long maximumLatency = 0;
+
+      private DispatchStatistics(Class<?> packetClass, Priority priority)
+      {
+         this.packetClass = packetClass;
+         this.priority = priority;
+      }
+
+      private void recordLatency(long latency)
+      {
+         numberOfDispatchedPackets++;
+         totalLatency += latency;
+         if (latency > maximumLatency)
+            maximumLatency = latency;
+      }
+
+      public Class<?> getPacketClass()
+      {
+         return packetClass;
+      }
+
+      public Priority getPriority()
+      {
+         return priority;
+      }
+
+      /** @return the current number of packets waiting to be dispatched. */
+      public int getQueueDepth()
+      {
+         return queueDepth;
+      }
+
+      /** @return the largest number of packets that were waiting to be dispatched at once. */
+      public int getMaximumQueueDepth()
+      {
+         return maximumQueueDepth;
+      }
+
+      public long getNumberOfDispatchedPackets()
+      {
+         return numberOfDispatchedPackets;
+      }
+
+      public long getNumberOfDroppedPackets()
+      {
+         return numberOfDroppedPackets;
+      }
+
+      /** @return the average time in seconds between the reception and the dispatch of a packet. */
+      public double getAverageLatency()
+      {
+         long numberOfDispatchedPackets = this.numberOfDispatchedPackets;
+         return numberOfDispatchedPackets == 0 ? 0.0 : Conversions.nanosecondsToSeconds(totalLatency) / numberOfDispatchedPackets;
+      }
+
+      /** @return the maximum time in seconds between the reception and the dispatch of a packet. */
+      public double getMaximumLatency()
+      {
+         return Conversions.nanosecondsToSeconds(maximumLatency);
+      }
+
+      @Override
+      public String toString()
+      {
+         return packetClass.getSimpleName() + " (" + priority + "): depth " + queueDepth + ", max depth " + maximumQueueDepth + ", dispatched "
+               + numberOfDispatchedPackets + ", dropped " + numberOfDroppedPackets + ", latency avg " + getAverageLatency() + " s, max "
+               + getMaximumLatency() + " s";
+      }
+   }
+}
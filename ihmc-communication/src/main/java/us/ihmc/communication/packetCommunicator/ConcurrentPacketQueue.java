@@ -1,53 +1,95 @@
 package us.ihmc.communication.packetCommunicator;
 
-import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.ArrayDeque;
 
+import us.ihmc.communication.net.KryoPacketPool;
 import us.ihmc.communication.net.PacketConsumer;
 import us.ihmc.communication.packets.Packet;
 
 /**
- * 
+ *
  * Make sure you need this. Do you want to keep all packets? Or do you just need the latest.
- * 
- * Remeber, this interface generates garbage
- * 
+ * <p>
+ * The queue itself does not allocate once it has grown to its working size. When created with a
+ * {@link KryoPacketPool}, the received packets are retained until polled and the user is responsible
+ * for calling {@link #release(Packet)} once done with a packet such that it can be recycled.
+ * </p>
+ *
  */
 public class ConcurrentPacketQueue<T extends Packet> implements PacketConsumer<T>
 {
-   private final ConcurrentLinkedQueue<T> packetQueue = new ConcurrentLinkedQueue<T>();
+   /** Guarded by itself. */
+   private final ArrayDeque<T> packetQueue = new ArrayDeque<T>();
+   private final KryoPacketPool packetPool;
 
    public ConcurrentPacketQueue()
    {
+      this(null);
+   }
+
+   public ConcurrentPacketQueue(KryoPacketPool packetPool)
+   {
+      this.packetPool = packetPool;
    }
 
    public boolean isNewPacketAvailable()
    {
-      return !packetQueue.isEmpty();
+      synchronized (packetQueue)
+      {
+         return !packetQueue.isEmpty();
+      }
    }
 
    public T getPacket()
    {
-      return packetQueue.poll();
+      synchronized (packetQueue)
+      {
+         return packetQueue.poll();
+      }
    }
-   
+
    public void put(T object)
    {
-      packetQueue.add(object);
+      synchronized (packetQueue)
+      {
+         packetQueue.add(object);
+      }
+   }
+
+   /**
+    * Returns a packet obtained from {@link #getPacket()} to the pool. Has no effect if this queue was
+    * not created with a pool.
+    */
+   public void release(T packet)
+   {
+      if (packetPool != null && packet != null)
+         packetPool.release(packet);
    }
 
    public void clear()
    {
-      packetQueue.clear();
+      synchronized (packetQueue)
+      {
+         T packet;
+         while ((packet = packetQueue.poll()) != null)
+            release(packet);
+      }
    }
 
    @Override
    public void receivedPacket(T packet)
    {
-      packetQueue.add(packet);
+      if (packetPool != null)
+         packetPool.retain(packet);
+
+      put(packet);
    }
-   
+
    public int size()
    {
-      return packetQueue.size();
+      synchronized (packetQueue)
+      {
+         return packetQueue.size();
+      }
    }
 }
@@ -1,29 +1,51 @@
 package us.ihmc.communication.packetCommunicator;
 
+import java.util.ArrayDeque;
 import java.util.ArrayList;
 import java.util.concurrent.Callable;
-import java.util.concurrent.ConcurrentLinkedQueue;
 import java.util.concurrent.atomic.AtomicBoolean;
 
 import com.esotericsoftware.kryo.Kryo;
 
+import us.ihmc.communication.net.KryoPacketPool;
 import us.ihmc.communication.net.NetClassList;
 import us.ihmc.communication.net.PacketConsumer;
 import us.ihmc.communication.packets.Packet;
+import us.ihmc.euclid.interfaces.Settable;
 
 public class KryoPacketCloningSendingTask implements Callable<Void>
 {
    private PacketConsumer consumer;
-   private final ConcurrentLinkedQueue<Packet> packetQueue = new ConcurrentLinkedQueue<Packet>();
+   /** Guarded by itself, an {@link ArrayDeque} does not allocate a node per packet. */
+   private final ArrayDeque<Packet> packetQueue = new ArrayDeque<Packet>();
    private Packet packetToSend;
    private final AtomicBoolean isRunning = new AtomicBoolean();
    private final Kryo kryo = new Kryo();
    private final ArrayList<Class<?>> packetList = new ArrayList<Class<?>>();
    private final boolean clonePackets = true;
+   private final KryoPacketPool packetPool;
+
 
-   
    //should just populate the class list using the passed in classes instead of the whole classlist
    public KryoPacketCloningSendingTask(NetClassList classList, PacketConsumer consumer)
+   {
+      this(classList, consumer, null);
+   }
+
+   /**
+    * Creates a sending task that clones the packets into pooled instances instead of allocating a new
+    * copy for each packet.
+    * <p>
+    * The consumer owns a cloned packet only for the duration of
+    * {@link PacketConsumer#receivedPacket(Packet)}, it has to use {@link KryoPacketPool#retain(Object)}
+    * and {@link KryoPacketPool#release(Object)} to keep it longer.
+    * </p>
+    *
+    * @param classList  the packets to clone.
+    * @param consumer   the consumer to forward the cloned packets to.
+    * @param packetPool the pool for the cloned packets, can be {@code null} to disable pooling.
+    */
+   public KryoPacketCloningSendingTask(NetClassList classList, PacketConsumer consumer, KryoPacketPool packetPool)
    {
       classList.getPacketClassList(packetList);
       for (Class<?> clazz : packetList)
@@ -35,6 +57,7 @@ public class KryoPacketCloningSendingTask implements Callable<Void>
          kryo.register(type);
       }
       this.consumer = consumer;
+      this.packetPool = packetPool;
    }
 
    public void setConsumer(PacketConsumer consumer)
@@ -47,31 +70,71 @@ public class KryoPacketCloningSendingTask implements Callable<Void>
       return this.consumer;
    }
 
+   public KryoPacketPool getPacketPool()
+   {
+      return packetPool;
+   }
+
    public void submitPacket(Packet packet)
    {
-      packetQueue.add(packet);
+      synchronized (packetQueue)
+      {
+         packetQueue.add(packet);
+      }
+   }
+
+   private Packet pollPacket()
+   {
+      synchronized (packetQueue)
+      {
+         return packetQueue.poll();
+      }
    }
 
    @Override
    public Void call() throws Exception
    {
       isRunning.set(true);
-      while ((packetToSend = packetQueue.poll()) != null)
+      while ((packetToSend = pollPacket()) != null)
       {
-         if (packetList.contains(packetToSend.getClass()) && clonePackets )
+         if (packetList.contains(packetToSend.getClass()) && clonePackets)
          {
-            Packet<?> clonedPacket = kryo.copy(packetToSend);
-            consumer.receivedPacket(clonedPacket);
+            if (packetPool != null && packetPool.isPooled(packetToSend.getClass()) && packetToSend instanceof Settable)
+            {
+               sendPooledCopy(packetToSend);
+            }
+            else
+            {
+               Packet<?> clonedPacket = kryo.copy(packetToSend);
+               consumer.receivedPacket(clonedPacket);
+            }
          }
          else
          {
             consumer.receivedPacket(packetToSend);
          }
       }
+      packetToSend = null;
       isRunning.set(false);
       return null;
    }
 
+   @SuppressWarnings({"rawtypes", "unchecked"})
+   private void sendPooledCopy(Packet packet)
+   {
+      Packet clonedPacket = packetPool.acquire(packet.getClass());
+
+      try
+      {
+         ((Settable) clonedPacket).set(packet);
+         consumer.receivedPacket(clonedPacket);
+      }
+      finally
+      {
+         packetPool.release(clonedPacket);
+      }
+   }
+
    public boolean isRunning()
    {
       return isRunning.get();
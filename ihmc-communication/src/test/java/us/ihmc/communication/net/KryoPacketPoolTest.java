@@ -0,0 +1,387 @@
+package us.ihmc.communication.net;
+
+import static us.ihmc.robotics.Assert.assertEquals;
+import static us.ihmc.robotics.Assert.assertFalse;
+import static us.ihmc.robotics.Assert.assertTrue;
+
+import java.lang.management.ManagementFactory;
+import java.util.Collections;
+import java.util.Random;
+
+import org.junit.jupiter.api.Test;
+
+import com.esotericsoftware.kryo.Kryo;
+import com.esotericsoftware.kryo.io.Input;
+import com.esotericsoftware.kryo.io.Output;
+
+import us.ihmc.communication.packetCommunicator.KryoPacketCloningSendingTask;
+import us.ihmc.communication.packets.Packet;
+
+public class KryoPacketPoolTest
+{
+   private static final int ITERATIONS = 10000;
+   /** Below the size of the smallest object, tolerates a few allocations in total over the iterations but none per packet. */
+   private static final double MAXIMUM_POOLED_BYTES_PER_PACKET = 4.0;
+
+   @Test
+   public void testReferenceCounting()
+   {
+      ObjectPool<TestPacket> pool = new ObjectPool<>(TestPacket.class, 2);
+
+      TestPacket first = pool.acquire();
+      assertEquals(1, pool.getReferenceCount(first));
+      assertTrue(pool.retain(first));
+      assertEquals(2, pool.getReferenceCount(first));
+
+      assertFalse(pool.release(first));
+      assertEquals(0, pool.getNumberOfAvailableObjects());
+      assertTrue(pool.release(first));
+      assertEquals(1, pool.getNumberOfAvailableObjects());
+      assertEquals(0, pool.getReferenceCount(first));
+
+      // Releasing an object that is not in use has no effect.
+      assertFalse(pool.release(first));
+      assertFalse(pool.retain(new TestPacket()));
+
+      assertTrue(first == pool.acquire());
+      assertEquals(1L, pool.getNumberOfObjectsCreated());
+
+      // Objects in excess of the capacity are dropped.
+      TestPacket second = pool.acquire();
+      TestPacket third = pool.acquire();
+      assertTrue(pool.release(first));
+      assertTrue(pool.release(second));
+      assertFalse(pool.release(third));
+      assertEquals(2, pool.getNumberOfAvailableObjects());
+      assertEquals(0, pool.getNumberOfObjectsInUse());
+   }
+
+   @Test
+   public void testDeserializationIntoPooledInstances()
+   {
+      Random random = new Random(3451L);
+      KryoPacketPool packetPool = new KryoPacketPool(new NetClassList(TestPacket.class), 4);
+      Kryo kryo = createKryo();
+      packetPool.registerWithKryo(kryo);
+
+      Output output = new Output(1024);
+      Input input = new Input();
+      TestPacket previous = null;
+
+      for (int i = 0; i < 100; i++)
+      {
+         TestPacket expected = nextPacket(random);
+         output.clear();
+         kryo.writeClassAndObject(output, expected);
+         input.setBuffer(output.getBuffer(), 0, output.position());
+
+         TestPacket actual = (TestPacket) kryo.readClassAndObject(input);
+         assertTrue(expected.epsilonEquals(actual, 0.0));
+         assertEquals(1, packetPool.getPool(TestPacket.class).getReferenceCount(actual));
+
+         if (previous != null)
+            assertTrue(previous == actual);
+
+         assertTrue(packetPool.release(actual));
+         previous = actual;
+      }
+
+      assertEquals(1L, packetPool.getPool(TestPacket.class).getNumberOfObjectsCreated());
+   }
+
+   @Test
+   public void testNestedPacketsAreNotPooled()
+   {
+      Random random = new Random(5631L);
+      NetClassList netClassList = new NetClassList(TestPacket.class, NestedTestPacket.class);
+      KryoPacketPool packetPool = new KryoPacketPool(netClassList, 4);
+      Kryo kryo = new Kryo();
+      netClassList.registerWithKryo(kryo);
+      packetPool.registerWithKryo(kryo);
+
+      Output output = new Output(1024);
+      Input input = new Input();
+
+      for (int i = 0; i < 100; i++)
+      {
+         NestedTestPacket expected = new NestedTestPacket();
+         expected.first = nextPacket(random);
+         expected.second = nextPacket(random);
+         output.clear();
+         kryo.writeClassAndObject(output, expected);
+         input.setBuffer(output.getBuffer(), 0, output.position());
+
+         NestedTestPacket actual = (NestedTestPacket) kryo.readClassAndObject(input);
+         assertTrue(expected.epsilonEquals(actual, 0.0));
+         assertEquals(1, packetPool.getPool(NestedTestPacket.class).getReferenceCount(actual));
+         assertEquals(0, packetPool.getPool(TestPacket.class).getReferenceCount(actual.first));
+         assertEquals(0, packetPool.getPool(TestPacket.class).getReferenceCount(actual.second));
+
+         // Copies are never taken from the pool.
+         NestedTestPacket copy = kryo.copy(actual);
+         assertTrue(expected.epsilonEquals(copy, 0.0));
+         assertEquals(0, packetPool.getPool(NestedTestPacket.class).getReferenceCount(copy));
+         assertEquals(0, packetPool.getPool(TestPacket.class).getReferenceCount(copy.first));
+
+         assertTrue(packetPool.release(actual));
+         assertFalse(packetPool.release(copy));
+      }
+
+      assertEquals(0, packetPool.getPool(NestedTestPacket.class).getNumberOfObjectsInUse());
+      assertEquals(0, packetPool.getPool(TestPacket.class).getNumberOfObjectsInUse());
+      assertEquals(0L, packetPool.getPool(TestPacket.class).getNumberOfObjectsCreated());
+      assertEquals(1L, packetPool.getPool(NestedTestPacket.class).getNumberOfObjectsCreated());
+
+      // A packet read at the top level is still pooled.
+      TestPacket expected = nextPacket(random);
+      output.clear();
+      kryo.writeClassAndObject(output, expected);
+      input.setBuffer(output.getBuffer(), 0, output.position());
+      TestPacket actual = (TestPacket) kryo.readClassAndObject(input);
+      assertEquals(1, packetPool.getPool(TestPacket.class).getReferenceCount(actual));
+      assertTrue(packetPool.release(actual));
+   }
+
+   @Test
+   public void testPooledCloningSendingTask() throws Exception
+   {
+      Random random = new Random(9823L);
+      NetClassList netClassList = new NetClassList(TestPacket.class);
+      KryoPacketPool packetPool = new KryoPacketPool(netClassList, 4);
+      ReceivedPacketHolder consumer = new ReceivedPacketHolder();
+      KryoPacketCloningSendingTask sendingTask = new KryoPacketCloningSendingTask(netClassList, consumer, packetPool);
+
+      for (int i = 0; i < 100; i++)
+      {
+         TestPacket packet = nextPacket(random);
+         sendingTask.submitPacket(packet);
+         sendingTask.call();
+
+         assertTrue(consumer.lastPacket != packet);
+         assertTrue(packet.epsilonEquals(consumer.lastPacketCopy, 0.0));
+      }
+
+      ObjectPool<TestPacket> pool = packetPool.getPool(TestPacket.class);
+      assertEquals(1L, pool.getNumberOfObjectsCreated());
+      assertEquals(0, pool.getNumberOfObjectsInUse());
+   }
+
+   @Test
+   public void testPooledPacketNestedInNonPooledPacket()
+   {
+      Random random = new Random(2309L);
+      NetClassList netClassList = new NetClassList(TestPacket.class, NestedTestPacket.class);
+      KryoPacketPool packetPool = new KryoPacketPool(Collections.singletonList(TestPacket.class), 4);
+      Kryo kryo = new Kryo();
+      netClassList.registerWithKryo(kryo);
+      packetPool.registerWithKryo(kryo);
+
+      Output output = new Output(1024);
+      Input input = new Input();
+
+      for (int i = 0; i < 100; i++)
+      {
+         NestedTestPacket expected = new NestedTestPacket();
+         expected.first = nextPacket(random);
+         expected.second = nextPacket(random);
+         output.clear();
+         kryo.writeClassAndObject(output, expected);
+         input.setBuffer(output.getBuffer(), 0, output.position());
+
+         NestedTestPacket actual = (NestedTestPacket) kryo.readClassAndObject(input);
+         assertTrue(expected.epsilonEquals(actual, 0.0));
+         assertFalse(packetPool.release(actual));
+      }
+
+      // The nested packets could never be released, none should have been taken from the pool.
+      assertEquals(0, packetPool.getPool(TestPacket.class).getNumberOfObjectsInUse());
+      assertEquals(0L, packetPool.getPool(TestPacket.class).getNumberOfObjectsCreated());
+   }
+
+   @Test
+   public void testPooledAllocationsPerPacket() throws Exception
+   {
+      com.sun.management.ThreadMXBean threadMXBean = getThreadMXBean();
+      if (threadMXBean == null)
+         return; // Allocation measurement not supported by this JVM.
+
+      Random random = new Random(6512L);
+      NetClassList netClassList = new NetClassList(TestPacket.class);
+      TestPacket packet = nextPacket(random);
+      byte[] serializedPacket = serialize(packet);
+
+      KryoPacketPool receivePool = new KryoPacketPool(netClassList, 4);
+      Kryo pooledKryo = createKryo();
+      receivePool.registerWithKryo(pooledKryo);
+      double receiveBytes = measureReceiveAllocations(threadMXBean, pooledKryo, serializedPacket, receivePool, ITERATIONS);
+
+      KryoPacketCloningSendingTask sendingTask = new KryoPacketCloningSendingTask(netClassList, new ReceivedPacketHolder(), new KryoPacketPool(netClassList, 4));
+      double cloneBytes = measureSendingAllocations(threadMXBean, sendingTask, packet, ITERATIONS);
+
+      // Once warmed up, the pooled paths should not allocate anything per packet.
+      assertTrue("Pooled receive allocates " + receiveBytes + " bytes per packet", receiveBytes < MAXIMUM_POOLED_BYTES_PER_PACKET);
+      assertTrue("Pooled clone allocates " + cloneBytes + " bytes per packet", cloneBytes < MAXIMUM_POOLED_BYTES_PER_PACKET);
+   }
+
+   /**
+    * Measures the average number of bytes allocated per packet by the current thread when
+    * deserializing the given packet, after a warmup run.
+    */
+   static double measureReceiveAllocations(com.sun.management.ThreadMXBean threadMXBean, Kryo kryo, byte[] serializedPacket, KryoPacketPool packetPool,
+                                           int iterations)
+   {
+      Input input = new Input();
+      long threadId = Thread.currentThread().getId();
+      long allocatedBytes = 0L;
+
+      for (int run = 0; run < 2; run++)
+      { // The first run is the warmup.
+         long start = threadMXBean.getThreadAllocatedBytes(threadId);
+
+         for (int i = 0; i < iterations; i++)
+         {
+            input.setBuffer(serializedPacket);
+            Object packet = kryo.readClassAndObject(input);
+            if (packetPool != null)
+               packetPool.release(packet);
+         }
+
+         allocatedBytes = threadMXBean.getThreadAllocatedBytes(threadId) - start;
+      }
+
+      return (double) allocatedBytes / iterations;
+   }
+
+   /**
+    * Measures the average number of bytes allocated per packet by the current thread when cloning
+    * the given packet, after a warmup run.
+    */
+   static double measureSendingAllocations(com.sun.management.ThreadMXBean threadMXBean, KryoPacketCloningSendingTask sendingTask, TestPacket packet,
+                                           int iterations)
+         throws Exception
+   {
+      long threadId = Thread.currentThread().getId();
+      long allocatedBytes = 0L;
+
+      for (int run = 0; run < 2; run++)
+      { // The first run is the warmup.
+         long start = threadMXBean.getThreadAllocatedBytes(threadId);
+
+         for (int i = 0; i < iterations; i++)
+         {
+            sendingTask.submitPacket(packet);
+            sendingTask.call();
+         }
+
+         allocatedBytes = threadMXBean.getThreadAllocatedBytes(threadId) - start;
+      }
+
+      return (double) allocatedBytes / iterations;
+   }
+
+   static com.sun.management.ThreadMXBean getThreadMXBean()
+   {
+      java.lang.management.ThreadMXBean threadMXBean = ManagementFactory.getThreadMXBean();
+
+      if (!(threadMXBean instanceof com.sun.management.ThreadMXBean))
+         return null;
+
+      com.sun.management.ThreadMXBean sunThreadMXBean = (com.sun.management.ThreadMXBean) threadMXBean;
+      if (!sunThreadMXBean.isThreadAllocatedMemorySupported())
+         return null;
+
+      sunThreadMXBean.setThreadAllocatedMemoryEnabled(true);
+      return sunThreadMXBean;
+   }
+
+   static byte[] serialize(TestPacket packet)
+   {
+      Output output = new Output(1024);
+      createKryo().writeClassAndObject(output, packet);
+      return output.toBytes();
+   }
+
+   static Kryo createKryo()
+   {
+      Kryo kryo = new Kryo();
+      new NetClassList(TestPacket.class).registerWithKryo(kryo);
+      return kryo;
+   }
+
+   static TestPacket nextPacket(Random random)
+   {
+      TestPacket packet = new TestPacket();
+      packet.timestamp = random.nextLong();
+      packet.x = random.nextDouble();
+      packet.y = random.nextDouble();
+      packet.z = random.nextDouble();
+      packet.valid = random.nextBoolean();
+      return packet;
+   }
+
+   static class ReceivedPacketHolder implements PacketConsumer<TestPacket>
+   {
+      private TestPacket lastPacket;
+      private final TestPacket lastPacketCopy = new TestPacket();
+
+      @Override
+      public void receivedPacket(TestPacket packet)
+      {
+         lastPacket = packet;
+         lastPacketCopy.set(packet);
+      }
+   }
+
+   public static class TestPacket extends Packet<TestPacket>
+   {
+      public long timestamp;
+      public double x, y, z;
+      public boolean valid;
+
+      public TestPacket()
+      {
+      }
+
+      @Override
+      public void set(TestPacket other)
+      {
+         timestamp = other.timestamp;
+         x = other.x;
+         y = other.y;
+         z = other.z;
+         valid = other.valid;
+         setPacketInformation(other);
+      }
+
+      @Override
+      public boolean epsilonEquals(TestPacket other, double epsilon)
+      {
+         return timestamp == other.timestamp && Math.abs(x - other.x) <= epsilon && Math.abs(y - other.y) <= epsilon && Math.abs(z - other.z) <= epsilon
+               && valid == other.valid;
+      }
+   }
+
+   public static class NestedTestPacket extends Packet<NestedTestPacket>
+   {
+      public TestPacket first = new TestPacket();
+      public TestPacket second = new TestPacket();
+
+      public NestedTestPacket()
+      {
+      }
+
+      @Override
+      public void set(NestedTestPacket other)
+      {
+         first.set(other.first);
+         second.set(other.second);
+         setPacketInformation(other);
+      }
+
+      @Override
+      public boolean epsilonEquals(NestedTestPacket other, double epsilon)
+      {
+         return first.epsilonEquals(other.first, epsilon) && second.epsilonEquals(other.second, epsilon);
+      }
+   }
+}
@@ -0,0 +1,298 @@
+package us.ihmc.communication.net;
+
+import static us.ihmc.robotics.Assert.assertEquals;
+import static us.ihmc.robotics.Assert.assertFalse;
+import static us.ihmc.robotics.Assert.assertTrue;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.junit.jupiter.api.Test;
+
+import us.ihmc.communication.net.PacketDispatcher.DispatchStatistics;
+import us.ihmc.communication.net.PacketDispatcher.Priority;
+
+public class PacketDispatcherTest
+{
+   @Test
+   public void testPacketsOfSameClassAreDispatchedInOrder() throws InterruptedException
+   {
+      int numberOfClasses = 3;
+      int numberOfPacketsPerClass = 20000;
+      List<List<Integer>> receivedSequences = new ArrayList<>();
+      for (int i = 0; i < numberOfClasses; i++)
+         receivedSequences.add(new ArrayList<>());
+
+      AtomicInteger concurrentHandlersForSameClass = new AtomicInteger();
+      CountDownLatch done = new CountDownLatch(numberOfClasses * numberOfPacketsPerClass);
+
+      PacketDispatcher dispatcher = new PacketDispatcher("Test", packet ->
+      {
+         SequencedPacket sequencedPacket = (SequencedPacket) packet;
+         List<Integer> sequence = receivedSequences.get(sequencedPacket.getClassIndex());
+
+         // No lock here on purpose: only one worker at a time may process a given class.
+         int sizeBefore = sequence.size();
+         sequence.add(sequencedPacket.sequenceNumber);
+         if (sequence.size() != sizeBefore + 1)
+            concurrentHandlersForSameClass.incrementAndGet();
+
+         done.countDown();
+      });
+      dispatcher.setNumberOfWorkers(4, 0);
+      dispatcher.setMaximumBatchSize(3);
+      dispatcher.registerPacketClass(PacketA.class);
+      dispatcher.registerPacketClass(PacketB.class);
+      dispatcher.registerPacketClass(PacketC.class);
+
+      for (int i = 0; i < numberOfPacketsPerClass; i++)
+      {
+         assertTrue(dispatcher.dispatch(new PacketA(i)));
+         assertTrue(dispatcher.dispatch(new PacketB(i)));
+         assertTrue(dispatcher.dispatch(new PacketC(i)));
+      }
+
+      assertTrue(done.await(30, TimeUnit.SECONDS));
+      dispatcher.shutdown();
+
+      assertEquals(0, concurrentHandlersForSameClass.get());
+
+      for (int classIndex = 0; classIndex < numberOfClasses; classIndex++)
+      {
+         List<Integer> sequence = receivedSequences.get(classIndex);
+         assertEquals(numberOfPacketsPerClass, sequence.size());
+         for (int i = 0; i < numberOfPacketsPerClass; i++)
+            assertEquals(i, sequence.get(i).intValue());
+      }
+
+      DispatchStatistics statistics = dispatcher.getStatistics(PacketA.class);
+      assertEquals((long) numberOfPacketsPerClass, statistics.getNumberOfDispatchedPackets());
+      assertEquals(0, statistics.getQueueDepth());
+      assertTrue(statistics.getMaximumQueueDepth() >= 1);
+      assertTrue(statistics.getMaximumLatency() >= statistics.getAverageLatency());
+   }
+
+   @Test
+   public void testCriticalPacketsAreNotBlockedBySlowListeners() throws InterruptedException
+   {
+      CountDownLatch slowListenerStarted = new CountDownLatch(1);
+      CountDownLatch releaseSlowListener = new CountDownLatch(1);
+      CountDownLatch criticalPacketReceived = new CountDownLatch(1);
+
+      PacketDispatcher dispatcher = new PacketDispatcher("Test", packet ->
+      {
+         try
+         {
+            if (packet instanceof PacketA)
+            {
+               slowListenerStarted.countDown();
+               releaseSlowListener.await();
+            }
+            else if (packet instanceof PacketC)
+               criticalPacketReceived.countDown();
+         }
+         catch (InterruptedException e)
+         {
+            Thread.currentThread().interrupt();
+         }
+      });
+      dispatcher.setNumberOfWorkers(1, 1);
+      dispatcher.registerPacketClass(PacketA.class);
+      dispatcher.registerPacketClass(PacketC.class, Priority.CRITICAL, Integer.MAX_VALUE);
+
+      // Occupies the only shared worker.
+      dispatcher.dispatch(new PacketA(0));
+      assertTrue(slowListenerStarted.await(5, TimeUnit.SECONDS));
+      dispatcher.dispatch(new PacketC(0));
+
+      boolean received = criticalPacketReceived.await(5, TimeUnit.SECONDS);
+      releaseSlowListener.countDown();
+      dispatcher.shutdown();
+
+      assertTrue(received);
+   }
+
+   @Test
+   public void testBoundedQueueDropsOldestPackets() throws InterruptedException
+   {
+      CountDownLatch listenerStarted = new CountDownLatch(1);
+      CountDownLatch releaseListener = new CountDownLatch(1);
+      List<Integer> received = new ArrayList<>();
+      List<Integer> dropped = new ArrayList<>();
+      CountDownLatch done = new CountDownLatch(4);
+
+      PacketDispatcher dispatcher = new PacketDispatcher("Test", new PacketDispatcher.PacketHandler()
+      {
+         @Override
+         public void handlePacket(Object packet)
+         {
+            try
+            {
+               listenerStarted.countDown();
+               releaseListener.await();
+            }
+            catch (InterruptedException e)
+            {
+               Thread.currentThread().interrupt();
+            }
+            synchronized (received)
+            {
+               received.add(((SequencedPacket) packet).sequenceNumber);
+            }
+            done.countDown();
+         }
+
+         @Override
+         public void packetDropped(Object packet)
+         {
+            synchronized (dropped)
+            {
+               dropped.add(((SequencedPacket) packet).sequenceNumber);
+            }
+         }
+      });
+      dispatcher.setNumberOfWorkers(1, 0);
+      dispatcher.registerPacketClass(PacketA.class, Priority.NORMAL, 3);
+
+      dispatcher.dispatch(new PacketA(0));
+      assertTrue(listenerStarted.await(5, TimeUnit.SECONDS)); // Packet 0 is being processed.
+      for (int i = 1; i <= 5; i++)
+         dispatcher.dispatch(new PacketA(i));
+
+      releaseListener.countDown();
+      assertTrue(done.await(5, TimeUnit.SECONDS));
+      dispatcher.shutdown();
+
+      assertEquals(4, received.size());
+      assertEquals(0, received.get(0).intValue());
+      assertEquals(3, received.get(1).intValue());
+      assertEquals(4, received.get(2).intValue());
+      assertEquals(5, received.get(3).intValue());
+      assertEquals(2, dropped.size());
+      assertEquals(2L, dispatcher.getStatistics(PacketA.class).getNumberOfDroppedPackets());
+      assertEquals(3, dispatcher.getStatistics(PacketA.class).getMaximumQueueDepth());
+   }
+
+   @Test
+   public void testPendingPacketsAreDroppedOnShutdown() throws InterruptedException
+   {
+      CountDownLatch listenerStarted = new CountDownLatch(1);
+      CountDownLatch releaseListener = new CountDownLatch(1);
+      List<Integer> dropped = new ArrayList<>();
+
+      PacketDispatcher dispatcher = new PacketDispatcher("Test", new PacketDispatcher.PacketHandler()
+      {
+         @Override
+         public void handlePacket(Object packet)
+         {
+            try
+            {
+               listenerStarted.countDown();
+               releaseListener.await();
+            }
+            catch (InterruptedException e)
+            {
+               Thread.currentThread().interrupt();
+            }
+         }
+
+         @Override
+         public void packetDropped(Object packet)
+         {
+            synchronized (dropped)
+            {
+               dropped.add(((SequencedPacket) packet).sequenceNumber);
+            }
+         }
+      });
+      dispatcher.setNumberOfWorkers(1, 0);
+      dispatcher.registerPacketClass(PacketA.class);
+
+      dispatcher.dispatch(new PacketA(0));
+      assertTrue(listenerStarted.await(5, TimeUnit.SECONDS)); // Packet 0 is being processed.
+      for (int i = 1; i <= 3; i++)
+         dispatcher.dispatch(new PacketA(i));
+
+      dispatcher.shutdown();
+      releaseListener.countDown();
+
+      synchronized (dropped)
+      {
+         assertEquals(3, dropped.size());
+         for (int i = 0; i < 3; i++)
+            assertEquals(i + 1, dropped.get(i).intValue());
+      }
+      assertEquals(0, dispatcher.getStatistics(PacketA.class).getQueueDepth());
+   }
+
+   @Test
+   public void testUnregisteredPacketsAreRejected()
+   {
+      PacketDispatcher dispatcher = new PacketDispatcher("Test", packet ->
+      {
+      });
+      dispatcher.registerPacketClass(PacketA.class);
+
+      assertFalse(dispatcher.dispatch(new PacketB(0)));
+      assertTrue(dispatcher.dispatch(new PacketA(0)));
+      dispatcher.shutdown();
+      assertFalse(dispatcher.dispatch(new PacketA(1)));
+   }
+
+   private static abstract class SequencedPacket
+   {
+      private final int sequenceNumber;
+
+      SequencedPacket(int sequenceNumber)
+      {
+         this.sequenceNumber = sequenceNumber;
+      }
+
+      abstract int getClassIndex();
+   }
+
+   private static class PacketA extends SequencedPacket
+   {
+      PacketA(int sequenceNumber)
+      {
+         super(sequenceNumber);
+      }
+
+      @Override
+      int getClassIndex()
+      {
+         return 0;
+      }
+   }
+
+   private static class PacketB extends SequencedPacket
+   {
+      PacketB(int sequenceNumber)
+      {
+         super(sequenceNumber);
+      }
+
+      @Override
+      int getClassIndex()
+      {
+         return 1;
+      }
+   }
+
+   private static class PacketC extends SequencedPacket
+   {
+      PacketC(int sequenceNumber)
+      {
+         super(sequenceNumber);
+      }
+
+      @Override
+      int getClassIndex()
+      {
+         return 2;
+      }
+   }
+}
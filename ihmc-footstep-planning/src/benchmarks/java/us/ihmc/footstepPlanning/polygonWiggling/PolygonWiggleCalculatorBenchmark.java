@@ -0,0 +1,84 @@
+package us.ihmc.footstepPlanning.polygonWiggling;
+
+import static us.ihmc.footstepPlanning.polygonWiggling.PolygonWiggleCalculatorTest.RANDOM_SEED;
+import static us.ihmc.footstepPlanning.polygonWiggling.PolygonWiggleCalculatorTest.numberOfFootholds;
+
+import java.util.Random;
+
+import us.ihmc.commonWalkingControlModules.polygonWiggling.PolygonWiggleCalculator;
+import us.ihmc.commonWalkingControlModules.polygonWiggling.PolygonWiggler;
+import us.ihmc.commonWalkingControlModules.polygonWiggling.WiggleParameters;
+import us.ihmc.commons.Conversions;
+import us.ihmc.euclid.geometry.ConvexPolygon2D;
+import us.ihmc.euclid.transform.RigidBodyTransform;
+import us.ihmc.log.LogTools;
+
+/**
+ * Compares the throughput of the static {@link PolygonWiggler} with the reusable
+ * {@link PolygonWiggleCalculator}, with and without warm start, on realistic footholds.
+ */
+public class PolygonWiggleCalculatorBenchmark
+{
+   private static final int warmupIterations = 2000;
+   private static final int benchmarkIterations = 20000;
+
+   public static void main(String[] args)
+   {
+      Random random = new Random(RANDOM_SEED);
+      WiggleParameters wiggleParameters = new WiggleParameters();
+      wiggleParameters.deltaInside = 0.01;
+
+      ConvexPolygon2D[] regions = new ConvexPolygon2D[numberOfFootholds];
+      ConvexPolygon2D[] footholds = new ConvexPolygon2D[numberOfFootholds];
+      PolygonWiggleCalculatorTest.createRealisticFootholds(random, regions, footholds);
+
+      PolygonWiggleCalculator calculator = new PolygonWiggleCalculator();
+      PolygonWiggleCalculator warmStartedCalculator = new PolygonWiggleCalculator();
+      warmStartedCalculator.setUseWarmStart(true);
+      RigidBodyTransform transform = new RigidBodyTransform();
+
+      for (int i = 0; i < warmupIterations; i++)
+      {
+         int index = i % numberOfFootholds;
+         PolygonWiggler.findWiggleTransform(footholds[index], regions[index], wiggleParameters);
+         calculator.findWiggleTransform(footholds[index], regions[index], wiggleParameters, transform);
+         warmStartedCalculator.findWiggleTransform(footholds[index], regions[index], wiggleParameters, transform);
+      }
+
+      long staticTime = 0;
+      long reusableTime = 0;
+      long warmStartedTime = 0;
+      long reusableIterations = 0;
+      long warmStartedIterations = 0;
+
+      for (int i = 0; i < benchmarkIterations; i++)
+      {
+         int index = i % numberOfFootholds;
+
+         staticTime -= System.nanoTime();
+         PolygonWiggler.findWiggleTransform(footholds[index], regions[index], wiggleParameters);
+         staticTime += System.nanoTime();
+
+         reusableTime -= System.nanoTime();
+         calculator.findWiggleTransform(footholds[index], regions[index], wiggleParameters, transform);
+         reusableTime += System.nanoTime();
+         reusableIterations += calculator.getNumberOfIterations();
+
+         warmStartedTime -= System.nanoTime();
+         warmStartedCalculator.findWiggleTransform(footholds[index], regions[index], wiggleParameters, transform);
+         warmStartedTime += System.nanoTime();
+         warmStartedIterations += warmStartedCalculator.getNumberOfIterations();
+      }
+
+      LogTools.info("PolygonWiggler: " + callsPerSecond(staticTime) + " calls per second.");
+      LogTools.info("PolygonWiggleCalculator: " + callsPerSecond(reusableTime) + " calls per second, "
+            + (double) reusableIterations / benchmarkIterations + " solver iterations on average.");
+      LogTools.info("PolygonWiggleCalculator with warm start: " + callsPerSecond(warmStartedTime) + " calls per second, "
+            + (double) warmStartedIterations / benchmarkIterations + " solver iterations on average.");
+   }
+
+   private static long callsPerSecond(long totalTimeNanos)
+   {
+      return Math.round(benchmarkIterations / Conversions.nanosecondsToSeconds(totalTimeNanos));
+   }
+}
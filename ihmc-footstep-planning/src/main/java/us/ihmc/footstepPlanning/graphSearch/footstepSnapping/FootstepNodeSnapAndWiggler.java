@@ -1,6 +1,6 @@
 package us.ihmc.footstepPlanning.graphSearch.footstepSnapping;
 
-import us.ihmc.commonWalkingControlModules.polygonWiggling.PolygonWiggler;
+import us.ihmc.commonWalkingControlModules.polygonWiggling.PolygonWiggleCalculator;
 import us.ihmc.commonWalkingControlModules.polygonWiggling.WiggleParameters;
 import us.ihmc.euclid.geometry.ConvexPolygon2D;
 import us.ihmc.euclid.transform.RigidBodyTransform;
@@ -31,6 +31,8 @@ public class FootstepNodeSnapAndWiggler extends FootstepNodeSnapper
    private final DoubleSupplier maximumZPenetrationOnValleyRegions;
 
    private final WiggleParameters wiggleParameters = new WiggleParameters();
+   private final PolygonWiggleCalculator polygonWiggleCalculator = new PolygonWiggleCalculator();
+   private final RigidBodyTransform wiggleTransform = new RigidBodyTransform();
    private final PlanarRegion planarRegionToPack = new PlanarRegion();
    private final ConvexPolygon2D footPolygon = new ConvexPolygon2D();
 
@@ -57,6 +59,9 @@ public class FootstepNodeSnapAndWiggler extends FootstepNodeSnapper
       this.maximumXYWiggleDistance = maximumXYWiggleDistance;
       this.maximumYawWiggle = maximumYawWiggle;
       this.maximumZPenetrationOnValleyRegions = maximumZPenetrationOnValleyRegions;
+
+      // Consecutive nodes are wiggled into the same regions, the previous active set is a good initial guess.
+      polygonWiggleCalculator.setUseWarmStart(true);
    }
 
    @Override
@@ -166,10 +171,13 @@ public class FootstepNodeSnapAndWiggler extends FootstepNodeSnapper
    {
       updateWiggleParameters();
 
+      boolean success;
       if (wiggleIntoConvexHullOfPlanarRegions.getAsBoolean())
-         return PolygonWiggler.wigglePolygonIntoConvexHullOfRegion(footholdPolygon, planarRegionToPack, wiggleParameters);
+         success = polygonWiggleCalculator.wigglePolygonIntoConvexHullOfRegion(footholdPolygon, planarRegionToPack, wiggleParameters, wiggleTransform);
       else
-         return PolygonWiggler.wigglePolygonIntoRegion(footholdPolygon, planarRegionToPack, wiggleParameters);
+         success = polygonWiggleCalculator.wigglePolygonIntoRegion(footholdPolygon, planarRegionToPack, wiggleParameters, wiggleTransform);
+
+      return success ? wiggleTransform : null;
    }
 
    private void updateWiggleParameters()
@@ -0,0 +1,159 @@
+package us.ihmc.footstepPlanning.polygonWiggling;
+
+import static us.ihmc.robotics.Assert.assertEquals;
+import static us.ihmc.robotics.Assert.assertFalse;
+import static us.ihmc.robotics.Assert.assertTrue;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+import org.junit.jupiter.api.Test;
+
+import us.ihmc.commonWalkingControlModules.polygonWiggling.PolygonWiggleCalculator;
+import us.ihmc.commonWalkingControlModules.polygonWiggling.PolygonWiggler;
+import us.ihmc.commonWalkingControlModules.polygonWiggling.WiggleParameters;
+import us.ihmc.euclid.geometry.ConvexPolygon2D;
+import us.ihmc.euclid.geometry.tools.EuclidGeometryRandomTools;
+import us.ihmc.euclid.transform.RigidBodyTransform;
+import us.ihmc.footstepPlanning.tools.PlannerTools;
+import us.ihmc.robotics.geometry.PlanarRegion;
+
+public class PolygonWiggleCalculatorTest
+{
+   static final long RANDOM_SEED = 429L;
+   private static final double epsilon = 1.0e-4;
+
+   static final int numberOfFootholds = 200;
+
+   @Test
+   public void testAgainstPolygonWiggler()
+   {
+      Random random = new Random(RANDOM_SEED);
+      WiggleParameters wiggleParameters = new WiggleParameters();
+      wiggleParameters.deltaInside = 0.01;
+
+      PolygonWiggleCalculator calculator = new PolygonWiggleCalculator();
+      PolygonWiggleCalculator warmStartedCalculator = new PolygonWiggleCalculator(4, 4);
+      warmStartedCalculator.setUseWarmStart(true);
+
+      ConvexPolygon2D[] regions = new ConvexPolygon2D[numberOfFootholds];
+      ConvexPolygon2D[] footholds = new ConvexPolygon2D[numberOfFootholds];
+      createRealisticFootholds(random, regions, footholds);
+
+      RigidBodyTransform actualTransform = new RigidBodyTransform();
+      ConvexPolygon2D actualPolygon = new ConvexPolygon2D();
+
+      for (int i = 0; i < numberOfFootholds; i++)
+      {
+         ConvexPolygon2D expectedPolygon = PolygonWiggler.wigglePolygon(footholds[i], regions[i], wiggleParameters);
+
+         for (PolygonWiggleCalculator calculatorToTest : new PolygonWiggleCalculator[] {calculator, warmStartedCalculator})
+         {
+            boolean success = calculatorToTest.wigglePolygon(footholds[i], regions[i], wiggleParameters, actualPolygon, actualTransform);
+
+            if (expectedPolygon == null)
+            {
+               assertFalse(success);
+               continue;
+            }
+
+            assertTrue(success);
+            assertEquals(expectedPolygon.getNumberOfVertices(), actualPolygon.getNumberOfVertices());
+
+            for (int vertexIndex = 0; vertexIndex < expectedPolygon.getNumberOfVertices(); vertexIndex++)
+            {
+               assertEquals(expectedPolygon.getVertex(vertexIndex).getX(), actualPolygon.getVertex(vertexIndex).getX(), epsilon);
+               assertEquals(expectedPolygon.getVertex(vertexIndex).getY(), actualPolygon.getVertex(vertexIndex).getY(), epsilon);
+            }
+         }
+      }
+   }
+
+   @Test
+   public void testWigglePolygonIntoRegionAgainstPolygonWiggler()
+   {
+      Random random = new Random(RANDOM_SEED);
+      WiggleParameters wiggleParameters = new WiggleParameters();
+      wiggleParameters.deltaInside = 0.01;
+
+      PolygonWiggleCalculator calculator = new PolygonWiggleCalculator();
+      RigidBodyTransform actualTransform = new RigidBodyTransform();
+
+      for (int i = 0; i < numberOfFootholds; i++)
+      {
+         // a region made of a few convex polygons that may overlap the foothold
+         List<ConvexPolygon2D> convexPolygons = new ArrayList<>();
+         for (int polygonIndex = 0; polygonIndex < 3; polygonIndex++)
+         {
+            ConvexPolygon2D convexPolygon = EuclidGeometryRandomTools.nextConvexPolygon2D(random, 0.3, 12);
+            RigidBodyTransform polygonTransform = new RigidBodyTransform();
+            polygonTransform.getTranslation().set(0.4 * (2.0 * random.nextDouble() - 1.0), 0.4 * (2.0 * random.nextDouble() - 1.0), 0.0);
+            convexPolygon.applyTransform(polygonTransform, false);
+            convexPolygons.add(convexPolygon);
+         }
+         PlanarRegion region = new PlanarRegion(new RigidBodyTransform(), convexPolygons);
+
+         ConvexPolygon2D foothold = PlannerTools.createDefaultFootPolygon();
+         RigidBodyTransform footholdTransform = new RigidBodyTransform();
+         footholdTransform.setRotationYawAndZeroTranslation(Math.toRadians(30.0) * (2.0 * random.nextDouble() - 1.0));
+         footholdTransform.getTranslation().set(0.3 * (2.0 * random.nextDouble() - 1.0), 0.3 * (2.0 * random.nextDouble() - 1.0), 0.0);
+         foothold.applyTransform(footholdTransform, false);
+
+         RigidBodyTransform expectedTransform = PolygonWiggler.wigglePolygonIntoRegion(foothold, region, wiggleParameters);
+         boolean success = calculator.wigglePolygonIntoRegion(foothold, region, wiggleParameters, actualTransform);
+
+         if (expectedTransform == null)
+         {
+            assertFalse(success);
+            continue;
+         }
+
+         assertTrue(success);
+         assertTrue("Test number " + i + " failed.", expectedTransform.epsilonEquals(actualTransform, epsilon));
+      }
+   }
+
+   @Test
+   public void testInvalidLimits()
+   {
+      ConvexPolygon2D plane = new ConvexPolygon2D();
+      plane.addVertex(0.0, 0.0);
+      plane.addVertex(0.5, 0.0);
+      plane.addVertex(0.0, 0.5);
+      plane.addVertex(0.5, 0.5);
+      plane.update();
+
+      WiggleParameters wiggleParameters = new WiggleParameters();
+      wiggleParameters.minX = 0.1;
+      wiggleParameters.maxX = -0.1;
+
+      PolygonWiggleCalculator calculator = new PolygonWiggleCalculator();
+      assertFalse(calculator.findWiggleTransform(PlannerTools.createDefaultFootPolygon(), plane, wiggleParameters, new RigidBodyTransform()));
+   }
+
+   /**
+    * Creates footholds as encountered when snapping a footstep: a foot polygon slightly rotated and
+    * hanging over the edge of a convex region of about the size of a cinder block or a stair step.
+    */
+   static void createRealisticFootholds(Random random, ConvexPolygon2D[] regionsToPack, ConvexPolygon2D[] footholdsToPack)
+   {
+      for (int i = 0; i < regionsToPack.length; i++)
+      {
+         ConvexPolygon2D region = EuclidGeometryRandomTools.nextConvexPolygon2D(random, 0.3, 12);
+         while (region.getNumberOfVertices() < 3 || region.getArea() < 0.03)
+            region = EuclidGeometryRandomTools.nextConvexPolygon2D(random, 0.3, 12);
+
+         ConvexPolygon2D foothold = PlannerTools.createDefaultFootPolygon();
+         RigidBodyTransform footholdTransform = new RigidBodyTransform();
+         footholdTransform.setRotationYawAndZeroTranslation(Math.toRadians(30.0) * (2.0 * random.nextDouble() - 1.0));
+         footholdTransform.getTranslation().set(region.getCentroid().getX() + 0.15 * (2.0 * random.nextDouble() - 1.0),
+                                                region.getCentroid().getY() + 0.15 * (2.0 * random.nextDouble() - 1.0),
+                                                0.0);
+         foothold.applyTransform(footholdTransform, false);
+
+         regionsToPack[i] = region;
+         footholdsToPack[i] = foothold;
+      }
+   }
+}
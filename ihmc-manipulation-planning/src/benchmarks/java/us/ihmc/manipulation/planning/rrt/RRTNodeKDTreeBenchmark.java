@@ -0,0 +1,42 @@
+package us.ihmc.manipulation.planning.rrt;
+
+import java.util.Random;
+
+import us.ihmc.commons.Conversions;
+import us.ihmc.log.LogTools;
+
+/**
+ * Compares the time per expansion of a {@link RRTTree} using a linear search and using the
+ * {@link RRTNodeKDTree} to find the nearest node, for trees of increasing size.
+ */
+public class RRTNodeKDTreeBenchmark
+{
+   public static void main(String[] args)
+   {
+      int numberOfExpansions = 200;
+
+      for (int numberOfNodes : new int[] {1000, 10000, 100000})
+      {
+         Random random = new Random(numberOfNodes);
+         RRTTree tree = RRTNodeKDTreeTest.createTree();
+
+         while (tree.getWholeNode().size() < numberOfNodes)
+            tree.expandTree(RRTNodeKDTreeTest.nextNode(random));
+
+         tree.setUseLinearSearch(true);
+         long linearTime = -System.nanoTime();
+         for (int i = 0; i < numberOfExpansions; i++)
+            tree.expandTree(RRTNodeKDTreeTest.nextNode(random));
+         linearTime += System.nanoTime();
+
+         tree.setUseLinearSearch(false);
+         long kdTreeTime = -System.nanoTime();
+         for (int i = 0; i < numberOfExpansions; i++)
+            tree.expandTree(RRTNodeKDTreeTest.nextNode(random));
+         kdTreeTime += System.nanoTime();
+
+         LogTools.info(numberOfNodes + " nodes: linear search " + Conversions.nanosecondsToMilliseconds((double) linearTime / numberOfExpansions)
+               + " ms per expansion, KD-tree " + Conversions.nanosecondsToMilliseconds((double) kdTreeTime / numberOfExpansions) + " ms per expansion.");
+      }
+   }
+}
@@ -0,0 +1,217 @@
+package us.ihmc.manipulation.planning.rrt;
+
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * Incremental KD-tree over the node data of {@link RRTNode}s used to speed up the nearest neighbor
+ * search of {@link RRTTree}.
+ * <p>
+ * The distance used is the weighted Euclidean distance: {@code sqrt(sum_i w_i * (a_i - b_i)^2)}.
+ * With all the weights set to 1, it is equivalent to {@link RRTNode#getDistance(RRTNode)}.
+ * </p>
+ * <p>
+ * The tree is not rebalanced when inserting nodes. As the nodes of a RRT are generated from random
+ * samples, the tree remains reasonably balanced in practice. The data of a node should not be
+ * modified once the node has been inserted.
+ * </p>
+ */
+public class RRTNodeKDTree
+{
+   private final int dimension;
+   private final double[] weights;
+
+   private KDNode root = null;
+   private int size = 0;
+
+   private RRTNode nearestNode;
+   private double nearestDistanceSquared;
+
+   public RRTNodeKDTree(int dimension)
+   {
+      this.dimension = dimension;
+      weights = new double[dimension];
+      Arrays.fill(weights, 1.0);
+   }
+
+   /**
+    * Sets the weight of each dimension of the node data. The weights only affect the queries and can
+    * be changed at any time.
+    *
+    * @param weights the new weights, one per dimension. Not modified.
+    */
+   public void setWeights(double... weights)
+   {
+      if (weights.length != dimension)
+         throw new IllegalArgumentException("Expected " + dimension + " weights, got " + weights.length);
+
+      for (int i = 0; i < dimension; i++)
+      {
+         if (weights[i] < 0.0)
+            throw new IllegalArgumentException("The weights have to be positive, weight[" + i + "] = " + weights[i]);
+         this.weights[i] = weights[i];
+      }
+   }
+
+   public double getWeight(int index)
+   {
+      return weights[index];
+   }
+
+   public void clear()
+   {
+      root = null;
+      size = 0;
+   }
+
+   public int size()
+   {
+      return size;
+   }
+
+   public void insert(RRTNode node)
+   {
+      if (node.getDimensionOfNodeData() != dimension)
+         throw new IllegalArgumentException("Expected a node of dimension " + dimension + ", got " + node.getDimensionOfNodeData());
+
+      size++;
+
+      if (root == null)
+      {
+         root = new KDNode(node, 0);
+         return;
+      }
+
+      KDNode current = root;
+
+      while (true)
+      {
+         if (node.getNodeData(current.axis) < current.split)
+         {
+            if (current.left == null)
+            {
+               current.left = new KDNode(node, nextAxis(current.axis));
+               return;
+            }
+            current = current.left;
+         }
+         else
+         {
+            if (current.right == null)
+            {
+               current.right = new KDNode(node, nextAxis(current.axis));
+               return;
+            }
+            current = current.right;
+         }
+      }
+   }
+
+   private int nextAxis(int axis)
+   {
+      return axis + 1 == dimension ? 0 : axis + 1;
+   }
+
+   /**
+    * Finds the node of this tree the closest to the given target.
+    *
+    * @param target the query. Not modified.
+    * @return the nearest node or {@code null} if the tree is empty.
+    */
+   public RRTNode findNearest(RRTNode target)
+   {
+      nearestNode = null;
+      nearestDistanceSquared = Double.POSITIVE_INFINITY;
+      findNearest(root, target);
+      return nearestNode;
+   }
+
+   private void findNearest(KDNode kdNode, RRTNode target)
+   {
+      if (kdNode == null)
+         return;
+
+      double distanceSquared = distanceSquared(kdNode.node, target);
+
+      if (distanceSquared < nearestDistanceSquared)
+      {
+         nearestDistanceSquared = distanceSquared;
+         nearestNode = kdNode.node;
+      }
+
+      double delta = target.getNodeData(kdNode.axis) - kdNode.split;
+      KDNode nearSide = delta < 0.0 ? kdNode.left : kdNode.right;
+      KDNode farSide = delta < 0.0 ? kdNode.right : kdNode.left;
+
+      findNearest(nearSide, target);
+
+      if (weights[kdNode.axis] * delta * delta < nearestDistanceSquared)
+         findNearest(farSide, target);
+   }
+
+   /**
+    * Finds all the nodes of this tree that are within the given distance of the target, as needed for
+    * the rewiring step of RRT*.
+    *
+    * @param target       the query. Not modified.
+    * @param radius       the maximum distance, inclusive.
+    * @param nodesToPack the list to which the nodes found are added. Modified.
+    */
+   public void findWithinRadius(RRTNode target, double radius, List<RRTNode> nodesToPack)
+   {
+      findWithinRadius(root, target, radius * radius, nodesToPack);
+   }
+
+   private void findWithinRadius(KDNode kdNode, RRTNode target, double radiusSquared, List<RRTNode> nodesToPack)
+   {
+      if (kdNode == null)
+         return;
+
+      if (distanceSquared(kdNode.node, target) <= radiusSquared)
+         nodesToPack.add(kdNode.node);
+
+      double delta = target.getNodeData(kdNode.axis) - kdNode.split;
+      double planeDistanceSquared = weights[kdNode.axis] * delta * delta;
+
+      if (delta < 0.0 || planeDistanceSquared <= radiusSquared)
+         findWithinRadius(kdNode.left, target, radiusSquared, nodesToPack);
+      if (delta >= 0.0 || planeDistanceSquared <= radiusSquared)
+         findWithinRadius(kdNode.right, target, radiusSquared, nodesToPack);
+   }
+
+   /**
+    * Computes the weighted distance between two nodes.
+    */
+   public double distance(RRTNode nodeOne, RRTNode nodeTwo)
+   {
+      return Math.sqrt(distanceSquared(nodeOne, nodeTwo));
+   }
+
+   private double distanceSquared(RRTNode nodeOne, RRTNode nodeTwo)
+   {
+      double distanceSquared = 0.0;
+
+      for (int i = 0; i < dimension; i++)
+      {
+         double delta = nodeOne.getNodeData(i) - nodeTwo.getNodeData(i);
+         distanceSquared += weights[i] * delta * delta;
+      }
+
+      return distanceSquared;
+   }
+
+   private static class KDNode
+   {
+      private final RRTNode node;
+      private final int axis;
+      private final double split;
+      private KDNode left, right;
+
+      private KDNode(RRTNode node, int axis)
+      {
+         this.node = node;
+         this.axis = axis;
+         split = node.getNodeData(axis);
+      }
+   }
+}
@@ -1,6 +1,7 @@
 package us.ihmc.manipulation.planning.rrt;
 
 import java.util.ArrayList;
+import java.util.List;
 import java.util.Random;
 
 import us.ihmc.commons.PrintTools;
@@ -41,6 +42,10 @@ public class RRTTree
    public ArrayList<RRTNode> failNodes = new ArrayList<RRTNode>();
 
    protected RRTNode nodeCreator;
+
+   protected final RRTNodeKDTree nodeKDTree;
+   private boolean useMetricWeights = false;
+   private boolean useLinearSearch = false;
    
    // numberOfNodes, ArrayList<RRTNode> nodes. every node of the nodes has its parent node.
 
@@ -49,6 +54,8 @@ public class RRTTree
       this.rootNode = rootNode;
       nodeCreator = rootNode.createNode();
       wholeNodes.add(this.rootNode);
+      nodeKDTree = new RRTNodeKDTree(rootNode.getDimensionOfNodeData());
+      nodeKDTree.insert(this.rootNode);
    }
 
    public void setStepLength(double length)
@@ -71,10 +78,37 @@ public class RRTTree
       this.lowerBoundNode = lowerBoundNode;
    }
 
-   // User can override
+   /**
+    * Sets the weight of each dimension of the node data used in {@link #getMatric(RRTNode, RRTNode)}.
+    * 
+    * @param weights the weights, one per dimension of the node data.
+    */
+   public void setMetricWeights(double... weights)
+   {
+      nodeKDTree.setWeights(weights);
+      useMetricWeights = true;
+   }
+
+   /**
+    * The nearest node is by default found using a KD-tree which assumes that
+    * {@link #getMatric(RRTNode, RRTNode)} is a weighted Euclidean distance, see
+    * {@link #setMetricWeights(double...)}. When overriding {@link #getMatric(RRTNode, RRTNode)} with a
+    * different metric, the linear search over all the nodes has to be used instead.
+    * 
+    * @param useLinearSearch whether to visit every node of the tree for the nearest neighbor search.
+    */
+   public void setUseLinearSearch(boolean useLinearSearch)
+   {
+      this.useLinearSearch = useLinearSearch;
+   }
+
+   // User can override, see setUseLinearSearch(boolean)
    public double getMatric(RRTNode nodeOne, RRTNode nodeTwo)
    {
-      return nodeOne.getDistance(nodeTwo);
+      if (useMetricWeights)
+         return nodeKDTree.distance(nodeOne, nodeTwo);
+      else
+         return nodeOne.getDistance(nodeTwo);
    }
 
    public RRTNode getRandomNode()
@@ -109,6 +143,12 @@ public class RRTTree
 
    public void updateNearNodeForTargetNode(RRTNode targetNode)
    {
+      if (!useLinearSearch)
+      {
+         this.nearNode = nodeKDTree.findNearest(targetNode);
+         return;
+      }
+
       RRTNode optNode = this.wholeNodes.get(0);
       RRTNode curNode;
 
@@ -128,7 +168,31 @@ public class RRTTree
       
       this.nearNode = optNode;
    }
-   
+
+   /**
+    * Finds all the nodes of the tree within the given distance of the target, e.g. for the rewiring
+    * step of RRT*.
+    * 
+    * @param targetNode the query.
+    * @param radius the maximum distance, according to {@link #getMatric(RRTNode, RRTNode)}.
+    * @param nodesToPack the list in which the nodes found are stored. Modified.
+    */
+   public void getNodesWithinRadius(RRTNode targetNode, double radius, List<RRTNode> nodesToPack)
+   {
+      nodesToPack.clear();
+
+      if (!useLinearSearch)
+      {
+         nodeKDTree.findWithinRadius(targetNode, radius, nodesToPack);
+         return;
+      }
+
+      for (int i = 0; i < this.wholeNodes.size(); i++)
+      {
+         if (getMatric(this.wholeNodes.get(i), targetNode) <= radius)
+            nodesToPack.add(this.wholeNodes.get(i));
+      }
+   }
 
    public RRTNode getNewNode(RRTNode targetNode)
    {
@@ -157,6 +221,7 @@ public class RRTTree
          {
             nearNode.addChildNode(this.newNode);
             wholeNodes.add(newNode);
+            nodeKDTree.insert(newNode);
             return true;
          }
       }
@@ -128,6 +128,12 @@ public class SpatialNodeTree
       invalidNodes.add(currentCandidate);
    }
 
+   public void dismissCandidate(SpatialNode node)
+   {
+      node.clearParent();
+      invalidNodes.add(node);
+   }
+
    public SpatialNode getLastNodeAdded()
    {
       return validNodes.get(validNodes.size() - 1);
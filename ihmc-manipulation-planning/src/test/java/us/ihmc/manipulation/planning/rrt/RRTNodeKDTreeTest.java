@@ -0,0 +1,141 @@
+package us.ihmc.manipulation.planning.rrt;
+
+import static us.ihmc.robotics.Assert.assertEquals;
+import static us.ihmc.robotics.Assert.assertTrue;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+import org.junit.jupiter.api.Test;
+
+public class RRTNodeKDTreeTest
+{
+   private static final int DIMENSION = 7;
+   private static final double epsilon = 1.0e-12;
+
+   @Test
+   public void testNearestAndRadiusAgainstLinearSearch()
+   {
+      Random random = new Random(3452L);
+      double[] weights = new double[DIMENSION];
+      for (int i = 0; i < DIMENSION; i++)
+         weights[i] = 0.1 + random.nextDouble();
+
+      RRTNodeKDTree kdTree = new RRTNodeKDTree(DIMENSION);
+      kdTree.setWeights(weights);
+      List<RRTNode> nodes = new ArrayList<>();
+
+      for (int i = 0; i < 2000; i++)
+      {
+         RRTNode node = nextNode(random);
+         nodes.add(node);
+         kdTree.insert(node);
+      }
+
+      assertEquals(nodes.size(), kdTree.size());
+
+      List<RRTNode> nodesWithinRadius = new ArrayList<>();
+
+      for (int i = 0; i < 500; i++)
+      {
+         RRTNode target = nextNode(random);
+
+         RRTNode expectedNearest = null;
+         double expectedDistance = Double.POSITIVE_INFINITY;
+         for (RRTNode node : nodes)
+         {
+            double distance = kdTree.distance(node, target);
+            if (distance < expectedDistance)
+            {
+               expectedDistance = distance;
+               expectedNearest = node;
+            }
+         }
+
+         RRTNode actualNearest = kdTree.findNearest(target);
+         assertEquals(expectedDistance, kdTree.distance(actualNearest, target), epsilon);
+         assertTrue(expectedNearest == actualNearest);
+
+         double radius = 1.5 * random.nextDouble();
+         nodesWithinRadius.clear();
+         kdTree.findWithinRadius(target, radius, nodesWithinRadius);
+
+         int expectedNumberOfNodes = 0;
+         for (RRTNode node : nodes)
+         {
+            if (kdTree.distance(node, target) <= radius)
+            {
+               expectedNumberOfNodes++;
+               assertTrue(nodesWithinRadius.contains(node));
+            }
+         }
+         assertEquals(expectedNumberOfNodes, nodesWithinRadius.size());
+      }
+   }
+
+   @Test
+   public void testTreeExpansionMatchesLinearSearch()
+   {
+      Random random = new Random(9851L);
+      RRTTree kdTree = createTree();
+      RRTTree linearTree = createTree();
+      linearTree.setUseLinearSearch(true);
+
+      for (int i = 0; i < 1000; i++)
+      {
+         RRTNode target = nextNode(random);
+         kdTree.updateNearNodeForTargetNode(target);
+         linearTree.updateNearNodeForTargetNode(target);
+         assertEquals(linearTree.getMatric(linearTree.getNearNode(), target), kdTree.getMatric(kdTree.getNearNode(), target), epsilon);
+
+         // The target may be added to the tree, each tree needs its own copy.
+         RRTNode targetCopy = new TestNode();
+         targetCopy.setNodeData(target);
+         kdTree.expandTree(target);
+         linearTree.expandTree(targetCopy);
+      }
+
+      assertEquals(linearTree.getWholeNode().size(), kdTree.getWholeNode().size());
+   }
+
+   static RRTTree createTree()
+   {
+      RRTTree tree = new RRTTree(new TestNode());
+      tree.setStepLength(0.1);
+      return tree;
+   }
+
+   static RRTNode nextNode(Random random)
+   {
+      RRTNode node = new TestNode();
+      for (int i = 0; i < DIMENSION; i++)
+         node.setNodeData(i, 2.0 * random.nextDouble() - 1.0);
+      return node;
+   }
+
+   static class TestNode extends RRTNode
+   {
+      public TestNode()
+      {
+         super(DIMENSION);
+      }
+
+      @Override
+      public boolean isValidNode()
+      {
+         return true;
+      }
+
+      @Override
+      public RRTNode createNode()
+      {
+         return new TestNode();
+      }
+
+      @Override
+      public void setRandomNodeData()
+      {
+      }
+   }
+}
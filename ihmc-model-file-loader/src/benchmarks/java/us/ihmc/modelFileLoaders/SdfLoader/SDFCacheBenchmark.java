@@ -0,0 +1,68 @@
+package us.ihmc.modelFileLoaders.SdfLoader;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+
+import javax.xml.bind.JAXBException;
+
+import us.ihmc.commons.Conversions;
+import us.ihmc.log.LogTools;
+import us.ihmc.robotics.robotDescription.RobotDescription;
+
+/**
+ * Measures the time from the SDF file to the {@link RobotDescription} with a cold {@link SDFCache},
+ * a warm disk cache, a warm memory cache, and without cache.
+ */
+public class SDFCacheBenchmark
+{
+   private static final String SDF_FILE = "sdfRobotTest.sdf";
+   private static final String MODEL_NAME = "atlas";
+
+   public static void main(String[] args) throws IOException, JAXBException
+   {
+      Path cacheDirectory = Files.createTempDirectory("sdfCache");
+      SDFCache coldCache = new SDFCache(cacheDirectory);
+
+      try
+      {
+         double coldDuration = measureTimeToRobotDescription(coldCache);
+         double warmMemoryDuration = measureTimeToRobotDescription(coldCache);
+         SDFCache warmDiskCache = new SDFCache(cacheDirectory);
+         double warmDiskDuration = measureTimeToRobotDescription(warmDiskCache);
+         double uncachedDuration = measureTimeToRobotDescription(null);
+
+         if (coldCache.getNumberOfParsedFiles() != 1 || warmDiskCache.getNumberOfParsedFiles() != 0)
+            throw new RuntimeException("Unexpected number of parsed files, cold cache: " + coldCache.getNumberOfParsedFiles() + ", warm disk cache: "
+                  + warmDiskCache.getNumberOfParsedFiles());
+
+         LogTools.info("Time to the robot description: cold cache " + coldDuration + " s, warm disk cache " + warmDiskDuration + " s, warm memory cache "
+               + warmMemoryDuration + " s, no cache " + uncachedDuration + " s");
+      }
+      finally
+      {
+         coldCache.clear();
+         Files.deleteIfExists(cacheDirectory);
+      }
+   }
+
+   private static double measureTimeToRobotDescription(SDFCache sdfCache) throws IOException, JAXBException
+   {
+      long startTime = System.nanoTime();
+
+      JaxbSDFLoader loader;
+      try (InputStream inputStream = SDFCacheBenchmark.class.getClassLoader().getResourceAsStream(SDF_FILE))
+      {
+         loader = new JaxbSDFLoader(inputStream, (List<String>) null, null, null, sdfCache);
+      }
+
+      GeneralizedSDFRobotModel generalizedSDFRobotModel = loader.getGeneralizedSDFRobotModel(MODEL_NAME);
+      RobotDescription robotDescription = new RobotDescriptionFromSDFLoader().loadRobotDescriptionFromSDF(generalizedSDFRobotModel, null, null, true);
+      if (!MODEL_NAME.equals(robotDescription.getName()))
+         throw new RuntimeException("Unexpected robot name: " + robotDescription.getName());
+
+      return Conversions.nanosecondsToSeconds(System.nanoTime() - startTime);
+   }
+}
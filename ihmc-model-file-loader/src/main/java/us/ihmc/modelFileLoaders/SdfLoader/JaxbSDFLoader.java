@@ -6,7 +6,6 @@ import java.io.FileNotFoundException;
 import java.io.InputStream;
 import java.util.*;
 
-import javax.xml.bind.JAXBContext;
 import javax.xml.bind.JAXBException;
 import javax.xml.bind.Unmarshaller;
 
@@ -58,14 +57,32 @@ public class JaxbSDFLoader
 
    public JaxbSDFLoader(InputStream inputStream, List<String> resourceDirectories, ClassLoader resourceClassLoader, SDFDescriptionMutator mutator)
          throws JAXBException, FileNotFoundException
+   {
+      this(inputStream, resourceDirectories, resourceClassLoader, mutator, SDFCache.getDefaultCache());
+   }
+
+   /**
+    * @param sdfCache the cache of the parsed SDF files to use, {@code null} to always parse the file.
+    */
+   public JaxbSDFLoader(InputStream inputStream, List<String> resourceDirectories, ClassLoader resourceClassLoader, SDFDescriptionMutator mutator,
+                        SDFCache sdfCache)
+         throws JAXBException, FileNotFoundException
    {
       if (inputStream == null)
       {
          throw new RuntimeException("inputStream is null");
       }
-      JAXBContext context = JAXBContext.newInstance(SDFRoot.class);
-      Unmarshaller um = context.createUnmarshaller();
-      SDFRoot sdfRoot = (SDFRoot) um.unmarshal(inputStream);
+
+      SDFRoot sdfRoot;
+      if (sdfCache != null)
+      {
+         sdfRoot = sdfCache.loadSDFRoot(inputStream);
+      }
+      else
+      {
+         Unmarshaller um = SDFCache.getSDFRootContext().createUnmarshaller();
+         sdfRoot = (SDFRoot) um.unmarshal(inputStream);
+      }
 
       List<SDFModel> models;
       if (sdfRoot.getWorld() != null)
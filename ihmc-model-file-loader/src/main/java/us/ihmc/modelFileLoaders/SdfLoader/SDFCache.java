@@ -0,0 +1,369 @@
+package us.ihmc.modelFileLoaders.SdfLoader;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InvalidClassException;
+import java.io.ObjectInputStream;
+import java.io.ObjectOutputStream;
+import java.io.ObjectStreamClass;
+import java.nio.file.AtomicMoveNotSupportedException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.ArrayList;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import javax.xml.bind.JAXBContext;
+import javax.xml.bind.JAXBException;
+import javax.xml.bind.Unmarshaller;
+
+import us.ihmc.commons.PrintTools;
+import us.ihmc.modelFileLoaders.SdfLoader.xmlDescription.SDFRoot;
+
+/**
+ * Cache of parsed SDF files, to avoid parsing the XML of the same robot model again in every
+ * process and every time it is loaded.
+ * <p>
+ * The parsed {@link SDFRoot} is kept in a binary form, in memory and in a directory shared by the
+ * processes, keyed by a hash of the content of the SDF file. Every call to
+ * {@link #loadSDFRoot(InputStream)} returns a new copy, the {@link SDFDescriptionMutator}s are
+ * applied afterwards by {@link GeneralizedSDFRobotModel} and can modify it.
+ * </p>
+ * <p>
+ * The default cache only keeps the parsed files in memory. The cache on disk is enabled by setting
+ * the system property {@value #CACHE_DIRECTORY_PROPERTY} to the directory to use, for instance
+ * {@code ~/.ihmc/sdfCache}. The cache files are named after the hash of the SDF content and the
+ * version of the cache format. A cache file that cannot be read, for instance written by a different
+ * version of the SDF description classes, is replaced. Only the SDF description classes are
+ * accepted when reading a cache file, any other class makes it be treated as unreadable.
+ * </p>
+ */
+public class SDFCache
+{
+   public static final String CACHE_DIRECTORY_PROPERTY = "ihmc.sdfCacheDirectory";
+   private static final String CACHE_FILE_EXTENSION = ".sdfcache";
+   /** To be incremented when the content of the cache files changes in a way the serialization does not detect. */
+   private static final int CACHE_FORMAT_VERSION = 1;
+
+   private static final SDFCache defaultCache = new SDFCache(getDefaultCacheDirectory());
+   private static JAXBContext sdfRootContext = null;
+
+   private final Path cacheDirectory;
+   private final ConcurrentHashMap<String, byte[]> memoryCache = new ConcurrentHashMap<>();
+
+   private final AtomicInteger numberOfParsedFiles = new AtomicInteger();
+   private final AtomicInteger numberOfDiskCacheHits = new AtomicInteger();
+   private final AtomicInteger numberOfMemoryCacheHits = new AtomicInteger();
+
+   public static SDFCache getDefaultCache()
+   {
+      return defaultCache;
+   }
+
+   /**
+    * The JAXB context is expensive to create and thread-safe, it is shared by all the loaders.
+    */
+   public static synchronized JAXBContext getSDFRootContext() throws JAXBException
+   {
+      if (sdfRootContext == null)
+         sdfRootContext = JAXBContext.newInstance(SDFRoot.class);
+      return sdfRootContext;
+   }
+
+   private static Path getDefaultCacheDirectory()
+   {
+      String cacheDirectory = System.getProperty(CACHE_DIRECTORY_PROPERTY);
+
+      if (cacheDirectory == null || cacheDirectory.isEmpty() || cacheDirectory.equalsIgnoreCase("none"))
+         return null;
+      else
+         return Paths.get(cacheDirectory);
+   }
+
+   /**
+    * @param cacheDirectory the directory to store the parsed files in, {@code null} to only keep them
+    *           in memory.
+    */
+   public SDFCache(Path cacheDirectory)
+   {
+      this.cacheDirectory = cacheDirectory;
+   }
+
+   public Path getCacheDirectory()
+   {
+      return cacheDirectory;
+   }
+
+   /**
+    * Reads the SDF file from the stream and returns its description, parsing it only if it is not in
+    * the cache yet.
+    *
+    * @param inputStream the SDF file. It is read entirely but not closed.
+    * @return a new copy of the description of the SDF file.
+    */
+   public SDFRoot loadSDFRoot(InputStream inputStream) throws JAXBException
+   {
+      byte[] sdfContent;
+      try
+      {
+         sdfContent = readAllBytes(inputStream);
+      }
+      catch (IOException e)
+      {
+         throw new JAXBException("Could not read the SDF file", e);
+      }
+
+      String key = computeKey(sdfContent);
+
+      byte[] serializedRoot = memoryCache.get(key);
+      if (serializedRoot != null)
+      {
+         SDFRoot sdfRoot = deserialize(serializedRoot);
+         if (sdfRoot != null)
+         {
+            numberOfMemoryCacheHits.incrementAndGet();
+            return sdfRoot;
+         }
+      }
+
+      serializedRoot = readCacheFile(key);
+      if (serializedRoot != null)
+      {
+         SDFRoot sdfRoot = deserialize(serializedRoot);
+         if (sdfRoot != null)
+         {
+            memoryCache.put(key, serializedRoot);
+            numberOfDiskCacheHits.incrementAndGet();
+            return sdfRoot;
+         }
+      }
+
+      Unmarshaller unmarshaller = getSDFRootContext().createUnmarshaller();
+      SDFRoot sdfRoot = (SDFRoot) unmarshaller.unmarshal(new ByteArrayInputStream(sdfContent));
+      numberOfParsedFiles.incrementAndGet();
+
+      serializedRoot = serialize(sdfRoot);
+      if (serializedRoot != null)
+      {
+         memoryCache.put(key, serializedRoot);
+         writeCacheFile(key, serializedRoot);
+      }
+
+      return sdfRoot;
+   }
+
+   /**
+    * Clears the cache in memory, the cache files remain.
+    */
+   public void clearMemoryCache()
+   {
+      memoryCache.clear();
+   }
+
+   /**
+    * Clears the cache in memory and deletes the cache files.
+    */
+   public void clear()
+   {
+      clearMemoryCache();
+
+      if (cacheDirectory == null || !Files.isDirectory(cacheDirectory))
+         return;
+
+      try
+      {
+         Files.list(cacheDirectory).filter(path -> path.toString().endsWith(CACHE_FILE_EXTENSION)).forEach(path ->
+         {
+            try
+            {
+               Files.deleteIfExists(path);
+            }
+            catch (IOException e)
+            {
+               PrintTools.warn(this, "Could not delete the SDF cache file " + path + ": " + e.getMessage());
+            }
+         });
+      }
+      catch (IOException e)
+      {
+         PrintTools.warn(this, "Could not clear the SDF cache directory " + cacheDirectory + ": " + e.getMessage());
+      }
+   }
+
+   /**
+    * @return the number of SDF files that were not found in the cache and had to be parsed.
+    */
+   public int getNumberOfParsedFiles()
+   {
+      return numberOfParsedFiles.get();
+   }
+
+   public int getNumberOfDiskCacheHits()
+   {
+      return numberOfDiskCacheHits.get();
+   }
+
+   public int getNumberOfMemoryCacheHits()
+   {
+      return numberOfMemoryCacheHits.get();
+   }
+
+   private byte[] readCacheFile(String key)
+   {
+      if (cacheDirectory == null)
+         return null;
+
+      Path cacheFile = cacheDirectory.resolve(key + CACHE_FILE_EXTENSION);
+
+      if (!Files.isRegularFile(cacheFile))
+         return null;
+
+      try
+      {
+         return Files.readAllBytes(cacheFile);
+      }
+      catch (IOException e)
+      {
+         return null;
+      }
+   }
+
+   /**
+    * Writes to a temporary file first, such that other processes never read a file partially
+    * written.
+    */
+   private void writeCacheFile(String key, byte[] serializedRoot)
+   {
+      if (cacheDirectory == null)
+         return;
+
+      Path temporaryFile = null;
+
+      try
+      {
+         Files.createDirectories(cacheDirectory);
+         Path cacheFile = cacheDirectory.resolve(key + CACHE_FILE_EXTENSION);
+         temporaryFile = Files.createTempFile(cacheDirectory, key, ".tmp");
+         Files.write(temporaryFile, serializedRoot);
+
+         try
+         {
+            Files.move(temporaryFile, cacheFile, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+         }
+         catch (AtomicMoveNotSupportedException e)
+         {
+            Files.move(temporaryFile, cacheFile, StandardCopyOption.REPLACE_EXISTING);
+         }
+      }
+      catch (IOException e)
+      {
+         PrintTools.warn(this, "Could not write the SDF cache file in " + cacheDirectory + ": " + e.getMessage());
+
+         try
+         {
+            if (temporaryFile != null)
+               Files.deleteIfExists(temporaryFile);
+         }
+         catch (IOException deleteException)
+         {
+            // Nothing else to do.
+         }
+      }
+   }
+
+   private byte[] serialize(SDFRoot sdfRoot)
+   {
+      try
+      {
+         ByteArrayOutputStream byteArrayOutputStream = new ByteArrayOutputStream();
+         try (ObjectOutputStream objectOutputStream = new ObjectOutputStream(byteArrayOutputStream))
+         {
+            objectOutputStream.writeObject(sdfRoot);
+         }
+         return byteArrayOutputStream.toByteArray();
+      }
+      catch (IOException e)
+      {
+         PrintTools.warn(this, "Could not serialize the SDF description, it will not be cached: " + e.getMessage());
+         return null;
+      }
+   }
+
+   /**
+    * @return the deserialized description or {@code null} if the data cannot be read.
+    */
+   private static SDFRoot deserialize(byte[] serializedRoot)
+   {
+      try (ObjectInputStream objectInputStream = new SDFRootInputStream(new ByteArrayInputStream(serializedRoot)))
+      {
+         return (SDFRoot) objectInputStream.readObject();
+      }
+      catch (IOException | ClassNotFoundException | ClassCastException e)
+      {
+         return null;
+      }
+   }
+
+   /**
+    * Only resolves the classes an {@link SDFRoot} is made of, such that a cache file cannot make this
+    * process instantiate anything else.
+    */
+   private static class SDFRootInputStream extends ObjectInputStream
+   {
+      private static final String SDF_DESCRIPTION_PACKAGE = SDFRoot.class.getPackage().getName() + ".";
+
+      private SDFRootInputStream(InputStream inputStream) throws IOException
+      {
+         super(inputStream);
+      }
+
+      @Override
+      protected Class<?> resolveClass(ObjectStreamClass description) throws IOException, ClassNotFoundException
+      {
+         String className = description.getName();
+
+         if (!className.startsWith(SDF_DESCRIPTION_PACKAGE) && !className.equals(String.class.getName())
+               && !className.equals(ArrayList.class.getName()))
+            throw new InvalidClassException(className, "Not a class of the SDF description");
+
+         return super.resolveClass(description);
+      }
+   }
+
+   private static String computeKey(byte[] sdfContent)
+   {
+      try
+      {
+         MessageDigest digest = MessageDigest.getInstance("SHA-256");
+         digest.update((byte) CACHE_FORMAT_VERSION);
+         byte[] hash = digest.digest(sdfContent);
+
+         StringBuilder key = new StringBuilder(2 * hash.length);
+         for (byte b : hash)
+            key.append(String.format("%02x", b));
+         return key.toString();
+      }
+      catch (NoSuchAlgorithmException e)
+      {
+         throw new RuntimeException(e);
+      }
+   }
+
+   private static byte[] readAllBytes(InputStream inputStream) throws IOException
+   {
+      ByteArrayOutputStream byteArrayOutputStream = new ByteArrayOutputStream();
+      byte[] buffer = new byte[8192];
+      int length;
+
+      while ((length = inputStream.read(buffer)) != -1)
+         byteArrayOutputStream.write(buffer, 0, length);
+
+      return byteArrayOutputStream.toByteArray();
+   }
+}
@@ -1,27 +1,37 @@
 package us.ihmc.modelFileLoaders.SdfLoader.xmlDescription;
 
+import java.io.Serializable;
+
 import javax.xml.bind.annotation.XmlAttribute;
 import javax.xml.bind.annotation.XmlElement;
 
 import us.ihmc.modelFileLoaders.SdfLoader.xmlDescription.SDFVisual.SDFMaterial;
 
-public class Collision implements AbstractSDFMesh
+public class Collision implements AbstractSDFMesh, Serializable
 {
+   private static final long serialVersionUID = 1L;
+
    private String name;
    private String pose;
    private Surface surface;
    private SDFGeometry geometry;
 
-   public static class Surface
+   public static class Surface implements Serializable
    {
+      private static final long serialVersionUID = 1L;
+
       private Contact contact;
 
-      public static class Contact
+      public static class Contact implements Serializable
       {
+         private static final long serialVersionUID = 1L;
+
          private Ode ode;
 
-         public static class Ode
+         public static class Ode implements Serializable
          {
+            private static final long serialVersionUID = 1L;
+
             private String kp;
             private String kd;
             private String maxVel;
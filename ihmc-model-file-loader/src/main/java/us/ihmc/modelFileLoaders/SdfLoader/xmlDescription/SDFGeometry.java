@@ -1,11 +1,14 @@
 package us.ihmc.modelFileLoaders.SdfLoader.xmlDescription;
 
+import java.io.Serializable;
 import java.util.List;
 
 import javax.xml.bind.annotation.XmlElement;
 
-public class SDFGeometry
+public class SDFGeometry implements Serializable
 {
+   private static final long serialVersionUID = 1L;
+
    private Box box;
    private Sphere sphere;
    private Cylinder cylinder;
@@ -91,8 +94,10 @@ public class SDFGeometry
       this.heightMap = heightMap;
    }
 
-   public static class Box
+   public static class Box implements Serializable
    {
+      private static final long serialVersionUID = 1L;
+
       private String size;
 
       public String getSize()
@@ -107,8 +112,10 @@ public class SDFGeometry
       }
    }
 
-   public static class Sphere
+   public static class Sphere implements Serializable
    {
+      private static final long serialVersionUID = 1L;
+
       private String radius;
 
       public String getRadius()
@@ -123,8 +130,10 @@ public class SDFGeometry
       }
    }
 
-   public static class Cylinder
+   public static class Cylinder implements Serializable
    {
+      private static final long serialVersionUID = 1L;
+
       private String radius;
       private String length;
 
@@ -151,8 +160,10 @@ public class SDFGeometry
       }
    }
 
-   public static class Mesh
+   public static class Mesh implements Serializable
    {
+      private static final long serialVersionUID = 1L;
+
       private String uri;
       private String scale;
       private SubMesh submesh;
@@ -190,8 +201,10 @@ public class SDFGeometry
          this.submesh = submesh;
       }
 
-      public static class SubMesh
+      public static class SubMesh implements Serializable
       {
+         private static final long serialVersionUID = 1L;
+
          private String name;
          private String center;
 
@@ -221,8 +234,10 @@ public class SDFGeometry
 
    }
 
-   public static class Plane
+   public static class Plane implements Serializable
    {
+      private static final long serialVersionUID = 1L;
+
       private String normal;
       private String size;
 
@@ -249,8 +264,10 @@ public class SDFGeometry
       }
    }
 
-   public static class GeometryImage
+   public static class GeometryImage implements Serializable
    {
+      private static final long serialVersionUID = 1L;
+
       private String uri;
       private String scale;
       private String threshold;
@@ -314,8 +331,10 @@ public class SDFGeometry
 
    }
 
-   public static class HeightMap
+   public static class HeightMap implements Serializable
    {
+      private static final long serialVersionUID = 1L;
+
       private String uri;
       private String size;
       private String pos;
@@ -378,8 +397,10 @@ public class SDFGeometry
          this.blends = blends;
       }
 
-      public static class Texture
+      public static class Texture implements Serializable
       {
+         private static final long serialVersionUID = 1L;
+
          private String size;
          private String diffuse;
          private String normal;
@@ -419,8 +440,10 @@ public class SDFGeometry
 
       }
 
-      public static class Blend
+      public static class Blend implements Serializable
       {
+         private static final long serialVersionUID = 1L;
+
          private String minHeight;
          private String fadeDist;
 
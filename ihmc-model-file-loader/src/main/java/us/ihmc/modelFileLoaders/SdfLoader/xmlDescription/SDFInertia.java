@@ -1,9 +1,13 @@
 package us.ihmc.modelFileLoaders.SdfLoader.xmlDescription;
 
+import java.io.Serializable;
+
 import javax.xml.bind.annotation.XmlElement;
 
-public class SDFInertia
+public class SDFInertia implements Serializable
 {
+   private static final long serialVersionUID = 1L;
+
    private String ixx;
    private String ixy;
    private String ixz;
@@ -1,10 +1,14 @@
 package us.ihmc.modelFileLoaders.SdfLoader.xmlDescription;
 
+import java.io.Serializable;
+
 import javax.xml.bind.annotation.XmlAttribute;
 import javax.xml.bind.annotation.XmlElement;
 
-public class SDFJoint
+public class SDFJoint implements Serializable
 {
+   private static final long serialVersionUID = 1L;
+
    private String name;
    private String type;
 
@@ -94,8 +98,10 @@ public class SDFJoint
       this.axis2 = axis2;
    }
 
-   public static class Axis
+   public static class Axis implements Serializable
    {
+      private static final long serialVersionUID = 1L;
+
       private String xyz;
 
       private Dynamics dynamics;
@@ -134,8 +140,10 @@ public class SDFJoint
          this.limit = limit;
       }
 
-      public static class Dynamics
+      public static class Dynamics implements Serializable
       {
+         private static final long serialVersionUID = 1L;
+
          private String damping;
          private String friction;
 
@@ -163,8 +171,10 @@ public class SDFJoint
 
       }
 
-      public static class Limit
+      public static class Limit implements Serializable
       {
+         private static final long serialVersionUID = 1L;
+
          private String lower;
          private String upper;
 
@@ -1,12 +1,15 @@
 package us.ihmc.modelFileLoaders.SdfLoader.xmlDescription;
 
+import java.io.Serializable;
 import java.util.List;
 
 import javax.xml.bind.annotation.XmlAttribute;
 import javax.xml.bind.annotation.XmlElement;
 
-public class SDFLink
+public class SDFLink implements Serializable
 {
+   private static final long serialVersionUID = 1L;
+
    private String name;
    private String pose;
    private Inertial inertial;
@@ -80,8 +83,10 @@ public class SDFLink
       this.sensors = sensors;
    }
    
-   public static class Inertial
+   public static class Inertial implements Serializable
    {
+      private static final long serialVersionUID = 1L;
+
       private String mass;
       private String pose;
       private SDFInertia inertia;
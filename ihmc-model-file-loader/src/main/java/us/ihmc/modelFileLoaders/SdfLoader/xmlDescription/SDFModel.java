@@ -1,12 +1,15 @@
 package us.ihmc.modelFileLoaders.SdfLoader.xmlDescription;
 
+import java.io.Serializable;
 import java.util.List;
 
 import javax.xml.bind.annotation.XmlAttribute;
 import javax.xml.bind.annotation.XmlElement;
 
-public class SDFModel
+public class SDFModel implements Serializable
 {
+   private static final long serialVersionUID = 1L;
+
    private String name;
 
    private String pose;
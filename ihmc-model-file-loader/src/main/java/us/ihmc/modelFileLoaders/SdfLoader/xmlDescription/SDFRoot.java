@@ -1,6 +1,7 @@
 package us.ihmc.modelFileLoaders.SdfLoader.xmlDescription;
 
 
+import java.io.Serializable;
 import java.util.List;
 
 import javax.xml.bind.annotation.XmlAttribute;
@@ -8,8 +9,10 @@ import javax.xml.bind.annotation.XmlElement;
 import javax.xml.bind.annotation.XmlRootElement;
 
 @XmlRootElement(name="sdf")
-public class SDFRoot
+public class SDFRoot implements Serializable
 {
+   private static final long serialVersionUID = 1L;
+
    private String version;
    
    private SDFWorld world;
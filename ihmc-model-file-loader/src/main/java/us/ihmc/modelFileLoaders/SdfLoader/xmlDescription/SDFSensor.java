@@ -1,12 +1,15 @@
 package us.ihmc.modelFileLoaders.SdfLoader.xmlDescription;
 
+import java.io.Serializable;
 import java.util.List;
 
 import javax.xml.bind.annotation.XmlAttribute;
 import javax.xml.bind.annotation.XmlElement;
 
-public class SDFSensor
+public class SDFSensor implements Serializable
 {
+   private static final long serialVersionUID = 1L;
+
    private String name;
    private String type;
    private String updateRate;
@@ -92,8 +95,10 @@ public class SDFSensor
       this.imu = imu;
    }
 
-   public static class Ray
+   public static class Ray implements Serializable
    {
+      private static final long serialVersionUID = 1L;
+
       /*
        * <ray> <scan> <horizontal> <samples>720</samples>
        * <resolution>1.000000</resolution> <min_angle>-1.570796</min_angle>
@@ -153,8 +158,10 @@ public class SDFSensor
          this.noise = noise;
       }
 
-      public static class Range
+      public static class Range implements Serializable
       {
+         private static final long serialVersionUID = 1L;
+
          private String min;
 
          private String max;
@@ -195,8 +202,10 @@ public class SDFSensor
          }
       }
 
-      public static class Scan
+      public static class Scan implements Serializable
       {
+         private static final long serialVersionUID = 1L;
+
          private HorizontalScan horizontal;
          private VerticalScan vertical;
 
@@ -222,8 +231,10 @@ public class SDFSensor
             this.vertical = vertical;
          }
 
-         public static class HorizontalScan
+         public static class HorizontalScan implements Serializable
          {
+            private static final long serialVersionUID = 1L;
+
             private String samples;
 
             private String resolution;
@@ -277,8 +288,10 @@ public class SDFSensor
             }
          }
          
-         public static class VerticalScan
+         public static class VerticalScan implements Serializable
          {
+            private static final long serialVersionUID = 1L;
+
             private String samples;
 
             private String resolution;
@@ -333,8 +346,10 @@ public class SDFSensor
          }
       }
 
-      public static class Noise
+      public static class Noise implements Serializable
       {
+         private static final long serialVersionUID = 1L;
+
          //            <noise>
          //            <type>gaussian</type>
          //            <mean>0.000000</mean>
@@ -381,8 +396,10 @@ public class SDFSensor
       }
    }
 
-   public static class Camera
+   public static class Camera implements Serializable
    {
+      private static final long serialVersionUID = 1L;
+
       private String name;
       private String pose;
       private String horizontalFov;
@@ -444,8 +461,10 @@ public class SDFSensor
          this.name = name;
       }
 
-      public static class SensorImage
+      public static class SensorImage implements Serializable
       {
+         private static final long serialVersionUID = 1L;
+
          private String width;
          private String height;
          private String format;
@@ -484,8 +503,10 @@ public class SDFSensor
          }
       }
 
-      public static class Clip
+      public static class Clip implements Serializable
       {
+         private static final long serialVersionUID = 1L;
+
          private String near;
          private String far;
 
@@ -513,8 +534,10 @@ public class SDFSensor
       }
    }
 
-   public static class IMU
+   public static class IMU implements Serializable
    {
+      private static final long serialVersionUID = 1L;
+
       //      <imu>
       //      <noise>
       //        <type>gaussian</type>
@@ -535,8 +558,10 @@ public class SDFSensor
 
       private IMUNoise noise;
 
-      public static class IMUNoise
+      public static class IMUNoise implements Serializable
       {
+         private static final long serialVersionUID = 1L;
+
          private String type;
          private NoiseParameters rate;
          private NoiseParameters accel;
@@ -574,8 +599,10 @@ public class SDFSensor
             this.accel = accel;
          }
 
-         public static class NoiseParameters
+         public static class NoiseParameters implements Serializable
          {
+            private static final long serialVersionUID = 1L;
+
             private String mean;
             private String stddev;
             private String bias_mean;
@@ -1,12 +1,15 @@
 package us.ihmc.modelFileLoaders.SdfLoader.xmlDescription;
 
+import java.io.Serializable;
 import java.util.List;
 
 import javax.xml.bind.annotation.XmlAttribute;
 import javax.xml.bind.annotation.XmlElement;
 
-public class SDFVisual implements AbstractSDFMesh
+public class SDFVisual implements AbstractSDFMesh, Serializable
 {
+   private static final long serialVersionUID = 1L;
+
    private String name;
    private String castShadows;
    private String laserRetro;
@@ -92,8 +95,10 @@ public class SDFVisual implements AbstractSDFMesh
       this.material = material;
    }
 
-   public static class SDFMaterial
+   public static class SDFMaterial implements Serializable
    {
+      private static final long serialVersionUID = 1L;
+
       private SDFScript script;
       
       private String lighting;
@@ -169,8 +174,10 @@ public class SDFVisual implements AbstractSDFMesh
          this.emissive = emissive;
       }
 
-      public static class SDFScript
+      public static class SDFScript implements Serializable
       {
+         private static final long serialVersionUID = 1L;
+
          private List<String> uri;
          private String name;
 
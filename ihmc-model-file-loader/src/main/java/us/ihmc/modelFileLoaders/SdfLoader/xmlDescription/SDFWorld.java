@@ -1,12 +1,15 @@
 package us.ihmc.modelFileLoaders.SdfLoader.xmlDescription;
 
+import java.io.Serializable;
 import java.util.List;
 
 import javax.xml.bind.annotation.XmlAttribute;
 import javax.xml.bind.annotation.XmlElement;
 
-public class SDFWorld
+public class SDFWorld implements Serializable
 {
+   private static final long serialVersionUID = 1L;
+
    private List<SDFModel> models;
    private List<Road> roads;
 
@@ -37,8 +40,10 @@ public class SDFWorld
       return models.toString();
    }
 
-   public static class Road
+   public static class Road implements Serializable
    {
+      private static final long serialVersionUID = 1L;
+
       private String name;
       private String width;
       private List<String> points;
@@ -0,0 +1,136 @@
+package us.ihmc.modelFileLoaders.SdfLoader;
+
+import static us.ihmc.robotics.Assert.*;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.ObjectOutputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.List;
+import java.util.stream.Stream;
+
+import javax.xml.bind.JAXBException;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+
+import us.ihmc.modelFileLoaders.SdfLoader.xmlDescription.SDFRoot;
+
+public class SDFCacheTest
+{
+   private static final String SDF_FILE = "sdfRobotTest.sdf";
+   private static final String MODEL_NAME = "atlas";
+
+   private final List<Path> cacheDirectories = new ArrayList<>();
+
+   @AfterEach
+   public void deleteCacheDirectories() throws IOException
+   {
+      for (Path cacheDirectory : cacheDirectories)
+      {
+         try (Stream<Path> paths = Files.walk(cacheDirectory))
+         {
+            for (Path path : (Iterable<Path>) paths.sorted(Comparator.reverseOrder())::iterator)
+               Files.delete(path);
+         }
+      }
+
+      cacheDirectories.clear();
+   }
+
+   @Test
+   public void testCachedDescriptionIsSameAsParsedDescription() throws IOException, JAXBException
+   {
+      Path cacheDirectory = createCacheDirectory();
+      SDFCache sdfCache = new SDFCache(cacheDirectory);
+
+      SDFRoot parsedRoot = loadSDFRoot(null);
+      SDFRoot coldRoot = loadSDFRoot(sdfCache);
+      SDFRoot memoryRoot = loadSDFRoot(sdfCache);
+      SDFRoot diskRoot = loadSDFRoot(new SDFCache(cacheDirectory));
+
+      assertEquals(1, sdfCache.getNumberOfParsedFiles());
+      assertEquals(1, sdfCache.getNumberOfMemoryCacheHits());
+      assertTrue(Arrays.equals(serialize(parsedRoot), serialize(coldRoot)));
+      assertTrue(Arrays.equals(serialize(parsedRoot), serialize(memoryRoot)));
+      assertTrue(Arrays.equals(serialize(parsedRoot), serialize(diskRoot)));
+
+      sdfCache.clear();
+   }
+
+   @Test
+   public void testModifyingTheDescriptionDoesNotModifyTheCache() throws IOException, JAXBException
+   {
+      SDFCache sdfCache = new SDFCache(null);
+
+      SDFRoot firstRoot = loadSDFRoot(sdfCache);
+      String modelName = firstRoot.getModels().get(0).getName();
+      firstRoot.getModels().get(0).setName("modified");
+      firstRoot.getModels().get(0).getLinks().clear();
+
+      SDFRoot secondRoot = loadSDFRoot(sdfCache);
+      assertEquals(modelName, secondRoot.getModels().get(0).getName());
+      assertFalse(secondRoot.getModels().get(0).getLinks().isEmpty());
+      assertTrue(Arrays.equals(serialize(loadSDFRoot(null)), serialize(secondRoot)));
+   }
+
+   @Test
+   public void testCorruptCacheFileIsReplaced() throws IOException, JAXBException
+   {
+      Path cacheDirectory = createCacheDirectory();
+      loadSDFRoot(new SDFCache(cacheDirectory));
+
+      Path cacheFile;
+      try (Stream<Path> paths = Files.list(cacheDirectory))
+      {
+         cacheFile = paths.filter(path -> path.toString().endsWith(".sdfcache")).findFirst().get();
+      }
+      Files.write(cacheFile, new byte[] {1, 2, 3, 4});
+
+      SDFCache sdfCache = new SDFCache(cacheDirectory);
+      SDFRoot sdfRoot = loadSDFRoot(sdfCache);
+      assertEquals(1, sdfCache.getNumberOfParsedFiles());
+      assertEquals(0, sdfCache.getNumberOfDiskCacheHits());
+      assertTrue(Arrays.equals(serialize(loadSDFRoot(null)), serialize(sdfRoot)));
+
+      sdfCache = new SDFCache(cacheDirectory);
+      loadSDFRoot(sdfCache);
+      assertEquals(0, sdfCache.getNumberOfParsedFiles());
+      assertEquals(1, sdfCache.getNumberOfDiskCacheHits());
+
+      sdfCache.clear();
+   }
+
+   private Path createCacheDirectory() throws IOException
+   {
+      Path cacheDirectory = Files.createTempDirectory("sdfCache");
+      cacheDirectories.add(cacheDirectory);
+      return cacheDirectory;
+   }
+
+   private SDFRoot loadSDFRoot(SDFCache sdfCache) throws IOException, JAXBException
+   {
+      try (InputStream inputStream = getClass().getClassLoader().getResourceAsStream(SDF_FILE))
+      {
+         if (sdfCache == null)
+            return (SDFRoot) SDFCache.getSDFRootContext().createUnmarshaller().unmarshal(inputStream);
+         else
+            return sdfCache.loadSDFRoot(inputStream);
+      }
+   }
+
+   private static byte[] serialize(SDFRoot sdfRoot) throws IOException
+   {
+      ByteArrayOutputStream byteArrayOutputStream = new ByteArrayOutputStream();
+      try (ObjectOutputStream objectOutputStream = new ObjectOutputStream(byteArrayOutputStream))
+      {
+         objectOutputStream.writeObject(sdfRoot);
+      }
+      return byteArrayOutputStream.toByteArray();
+   }
+}
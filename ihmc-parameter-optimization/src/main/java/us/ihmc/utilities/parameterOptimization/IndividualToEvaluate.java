@@ -5,6 +5,7 @@ public abstract class IndividualToEvaluate
    private boolean fitnessAlreadyComputed = false;
    private double cachedFitness = -1.0;
    private String name = "notNamed";
+   private long evaluationSeed = 0L;
    
    public abstract IndividualToEvaluate createNewIndividual();
    
@@ -60,9 +61,33 @@ public abstract class IndividualToEvaluate
       return cachedFitness;
    }
    
-   protected synchronized void setFitness(double fitness)
+   public synchronized void setFitness(double fitness)
    {
       fitnessAlreadyComputed = true;
       cachedFitness = fitness;
    }
+
+   public synchronized boolean isFitnessAlreadyComputed()
+   {
+      return fitnessAlreadyComputed;
+   }
+
+   /**
+    * Sets the seed to be used by a stochastic fitness function, e.g. for randomizing a simulation.
+    * <p>
+    * The optimizer assigns the seeds such that a run can be reproduced independently of the order in
+    * which the individuals are evaluated.
+    * </p>
+    * 
+    * @param evaluationSeed the seed to use when computing the fitness of this individual.
+    */
+   public void setEvaluationSeed(long evaluationSeed)
+   {
+      this.evaluationSeed = evaluationSeed;
+   }
+
+   public long getEvaluationSeed()
+   {
+      return evaluationSeed;
+   }
 }
@@ -0,0 +1,97 @@
+package us.ihmc.utilities.parameterOptimization.geneticAlgorithm;
+
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Remembers the fitness of the genotypes that have already been evaluated such that the individuals
+ * that are bred more than once are not evaluated again.
+ * <p>
+ * This should only be used when the fitness is a deterministic function of the genotype.
+ * </p>
+ */
+public class GenotypeFitnessCache
+{
+   private final Map<GenotypeKey, Double> fitnesses = new HashMap<>();
+   private int numberOfHits = 0;
+   private int numberOfMisses = 0;
+
+   public synchronized boolean containsFitness(Genotype genotype)
+   {
+      boolean contains = fitnesses.containsKey(new GenotypeKey(genotype));
+
+      if (contains)
+         numberOfHits++;
+      else
+         numberOfMisses++;
+
+      return contains;
+   }
+
+   public synchronized double getFitness(Genotype genotype)
+   {
+      Double fitness = fitnesses.get(new GenotypeKey(genotype));
+      return fitness == null ? Double.NaN : fitness.doubleValue();
+   }
+
+   public synchronized void putFitness(Genotype genotype, double fitness)
+   {
+      fitnesses.put(new GenotypeKey(genotype), fitness);
+   }
+
+   public synchronized int size()
+   {
+      return fitnesses.size();
+   }
+
+   public synchronized int getNumberOfHits()
+   {
+      return numberOfHits;
+   }
+
+   public synchronized int getNumberOfMisses()
+   {
+      return numberOfMisses;
+   }
+
+   public synchronized void clear()
+   {
+      fitnesses.clear();
+      numberOfHits = 0;
+      numberOfMisses = 0;
+   }
+
+   /**
+    * Immutable copy of the bits of a genotype, used as key in the cache and to detect duplicates
+    * within a population.
+    */
+   static class GenotypeKey
+   {
+      private final int[] bits;
+      private final int hashCode;
+
+      GenotypeKey(Genotype genotype)
+      {
+         bits = Arrays.copyOf(genotype.getBits(), genotype.getTotalNumberOfBits());
+         hashCode = Arrays.hashCode(bits);
+      }
+
+      @Override
+      public int hashCode()
+      {
+         return hashCode;
+      }
+
+      @Override
+      public boolean equals(Object object)
+      {
+         if (object == this)
+            return true;
+         else if (!(object instanceof GenotypeKey))
+            return false;
+         else
+            return Arrays.equals(bits, ((GenotypeKey) object).bits);
+      }
+   }
+}
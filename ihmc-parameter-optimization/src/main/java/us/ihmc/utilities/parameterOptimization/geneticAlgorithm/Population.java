@@ -3,10 +3,20 @@ package us.ihmc.utilities.parameterOptimization.geneticAlgorithm;
 import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.Comparator;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
 import java.util.Random;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Future;
 
 import us.ihmc.utilities.parameterOptimization.EvaluatedIndividualListener;
 import us.ihmc.utilities.parameterOptimization.IndividualToEvaluate;
+import us.ihmc.utilities.parameterOptimization.geneticAlgorithm.GenotypeFitnessCache.GenotypeKey;
 
 /**
  * <p>Title: Genetic Algorithm Library </p>
@@ -34,6 +44,10 @@ public class Population
    private final int popNumber;
 
    private final Comparator<GeneticAlgorithmIndividualToEvaluate> comparator;
+
+   private final ExecutorService fitnessEvaluationExecutor;
+   private final GenotypeFitnessCache fitnessCache;
+   private final long evaluationSeed;
    
    private boolean allIndividualsEvaluated = false;
 
@@ -57,6 +71,10 @@ public class Population
       this.popName = name;
       this.popNumber = popNumber;
       this.comparator = comparator;
+
+      fitnessEvaluationExecutor = populationParameters.getFitnessEvaluationExecutor();
+      fitnessCache = populationParameters.getFitnessCache();
+      evaluationSeed = populationParameters.getEvaluationSeed();
       
       generation = new GeneticAlgorithmIndividualToEvaluate[numIndividuals];
 
@@ -112,13 +130,17 @@ public class Population
 //      // evaluateAllIndividuals();
 //   }
 
-   private Population(Random random, int numberOfIndividuals, Comparator<GeneticAlgorithmIndividualToEvaluate> comparator, String name, int popNumber)
+   private Population(Random random, int numberOfIndividuals, Comparator<GeneticAlgorithmIndividualToEvaluate> comparator, String name, int popNumber,
+                      ExecutorService fitnessEvaluationExecutor, GenotypeFitnessCache fitnessCache, long evaluationSeed)
    {
       this.random = random;
       
       this.popName = name;
       this.popNumber = popNumber;
       this.comparator = comparator;
+      this.fitnessEvaluationExecutor = fitnessEvaluationExecutor;
+      this.fitnessCache = fitnessCache;
+      this.evaluationSeed = evaluationSeed;
       
       generation = new GeneticAlgorithmIndividualToEvaluate[numberOfIndividuals];
 
@@ -147,34 +169,146 @@ public class Population
       if (allIndividualsEvaluated)
          return;
 
-      // System.out.println("Starting the Evals");
-      for (int i = 0; i < generation.length; i++)
-      {
-         if (!generation[i].isEvaluationDone())
-            generation[i].startEvaluation();
-      }
+      // The seeds and cached fitnesses are resolved upfront such that the outcome does not depend on the order of the evaluations.
+      List<GeneticAlgorithmIndividualToEvaluate> individualsToEvaluate = new ArrayList<>();
+      // The same individual can be selected more than once when breeding.
+      Set<GeneticAlgorithmIndividualToEvaluate> individualsSet = Collections.newSetFromMap(new IdentityHashMap<>());
+      Map<GenotypeKey, GeneticAlgorithmIndividualToEvaluate> genotypesToEvaluate = new HashMap<>();
+      Map<GeneticAlgorithmIndividualToEvaluate, GeneticAlgorithmIndividualToEvaluate> duplicates = new HashMap<>();
 
-      // System.out.println("Waiting for the Evals to finish");
       for (int i = 0; i < generation.length; i++)
       {
-         while (!generation[i].isEvaluationDone())
+         GeneticAlgorithmIndividualToEvaluate individual = generation[i];
+
+         if (individual.getIndividualToEvaluate().isFitnessAlreadyComputed())
+            continue;
+
+         individual.getIndividualToEvaluate().setEvaluationSeed(computeEvaluationSeed(i));
+
+         Genotype genotype = individual.getGenotype();
+
+         if (fitnessCache != null && genotype != null)
          {
-            try
+            if (fitnessCache.containsFitness(genotype))
             {
-               Thread.sleep(1000);
+               individual.getIndividualToEvaluate().setFitness(fitnessCache.getFitness(genotype));
+               continue;
             }
-            catch (InterruptedException e)
+
+            GenotypeKey genotypeKey = new GenotypeKey(genotype);
+            GeneticAlgorithmIndividualToEvaluate original = genotypesToEvaluate.get(genotypeKey);
+
+            if (original != null)
             {
+               if (original != individual)
+                  duplicates.put(individual, original);
+               continue;
             }
+
+            genotypesToEvaluate.put(genotypeKey, individual);
+         }
+         else if (individualsSet.contains(individual))
+         {
+            continue;
+         }
+
+         individualsSet.add(individual);
+         individualsToEvaluate.add(individual);
+      }
+
+      if (fitnessEvaluationExecutor == null)
+         evaluateIndividualsOnCallingThread(individualsToEvaluate);
+      else
+         evaluateIndividualsInParallel(individualsToEvaluate);
+
+      for (Map.Entry<GeneticAlgorithmIndividualToEvaluate, GeneticAlgorithmIndividualToEvaluate> duplicate : duplicates.entrySet())
+      {
+         duplicate.getKey().getIndividualToEvaluate().setFitness(duplicate.getValue().getFitness());
+      }
+
+      if (fitnessCache != null)
+      {
+         for (int i = 0; i < individualsToEvaluate.size(); i++)
+         {
+            GeneticAlgorithmIndividualToEvaluate individual = individualsToEvaluate.get(i);
+            if (individual.getGenotype() != null)
+               fitnessCache.putFitness(individual.getGenotype(), individual.getFitness());
          }
-         
-         
-         notifyEvaluatedIndividualListeners(generation[i].getIndividualToEvaluate());  
+      }
+
+      for (int i = 0; i < generation.length; i++)
+      {
+         notifyEvaluatedIndividualListeners(generation[i].getIndividualToEvaluate());
       }
 
       allIndividualsEvaluated = true;
    }
-   
+
+   private void evaluateIndividualsOnCallingThread(List<GeneticAlgorithmIndividualToEvaluate> individualsToEvaluate)
+   {
+      // System.out.println("Starting the Evals");
+      for (int i = 0; i < individualsToEvaluate.size(); i++)
+      {
+         if (!individualsToEvaluate.get(i).isEvaluationDone())
+            individualsToEvaluate.get(i).startEvaluation();
+      }
+
+      // System.out.println("Waiting for the Evals to finish");
+      for (int i = 0; i < individualsToEvaluate.size(); i++)
+      {
+         waitForEvaluation(individualsToEvaluate.get(i));
+         individualsToEvaluate.get(i).getFitness();
+      }
+   }
+
+   private void evaluateIndividualsInParallel(List<GeneticAlgorithmIndividualToEvaluate> individualsToEvaluate)
+   {
+      List<Future<Double>> futures = new ArrayList<>(individualsToEvaluate.size());
+
+      for (int i = 0; i < individualsToEvaluate.size(); i++)
+      {
+         GeneticAlgorithmIndividualToEvaluate individual = individualsToEvaluate.get(i);
+
+         futures.add(fitnessEvaluationExecutor.submit(() ->
+         {
+            if (!individual.isEvaluationDone())
+               individual.startEvaluation();
+            waitForEvaluation(individual);
+            return individual.getFitness();
+         }));
+      }
+
+      for (int i = 0; i < futures.size(); i++)
+      {
+         try
+         {
+            futures.get(i).get();
+         }
+         catch (InterruptedException | ExecutionException e)
+         {
+            throw new RuntimeException("Failed to evaluate " + individualsToEvaluate.get(i).getName(), e);
+         }
+      }
+   }
+
+   private static void waitForEvaluation(GeneticAlgorithmIndividualToEvaluate individual)
+   {
+      while (!individual.isEvaluationDone())
+      {
+         try
+         {
+            Thread.sleep(1000);
+         }
+         catch (InterruptedException e)
+         {
+         }
+      }
+   }
+
+   private long computeEvaluationSeed(int individualIndex)
+   {
+      return 31L * (31L * evaluationSeed + popNumber) + individualIndex;
+   }
 
    public int getNumberOfIndividuals()
    {
@@ -199,7 +333,8 @@ public class Population
 
    public Population breed(double crossoverRate, double mutationRate)
    {
-      Population retPop = new Population(this.random, generation.length, this.comparator, this.popName, this.popNumber + 1);
+      Population retPop = new Population(this.random, generation.length, this.comparator, this.popName, this.popNumber + 1, this.fitnessEvaluationExecutor,
+                                         this.fitnessCache, this.evaluationSeed);
 
       GeneticAlgorithmIndividualToEvaluate parent1, parent2;
       GeneticAlgorithmIndividualToEvaluate[] children = new GeneticAlgorithmIndividualToEvaluate[2];
@@ -2,6 +2,7 @@ package us.ihmc.utilities.parameterOptimization.geneticAlgorithm;
 
 import java.util.Comparator;
 import java.util.Random;
+import java.util.concurrent.ExecutorService;
 
 import us.ihmc.utilities.parameterOptimization.IndividualToEvaluate;
 
@@ -17,6 +18,10 @@ public class PopulationParameters
    
    private int numberOfSeedIndividualsToCopyIntoFirstPopulation = 0;
    private double mutationRateForCopiedIndividuals = 0.0;
+
+   private ExecutorService fitnessEvaluationExecutor = null;
+   private GenotypeFitnessCache fitnessCache = null;
+   private long evaluationSeed = 0L;
    
    public PopulationParameters(String name, Random random, int populationSize)
    {
@@ -75,6 +80,60 @@ public class PopulationParameters
    {
       return random;
    }
+
+   /**
+    * Sets the executor used to evaluate the individuals of each generation in parallel.
+    * <p>
+    * The breeding is still performed on the calling thread with {@link #getRandom()}, such that the
+    * result of the optimization does not depend on the number of threads used. The executor is not
+    * shutdown by the genetic algorithm.
+    * </p>
+    * 
+    * @param fitnessEvaluationExecutor the executor to use, or {@code null} to evaluate the individuals
+    *           on the calling thread. Default value is {@code null}.
+    */
+   public void setFitnessEvaluationExecutor(ExecutorService fitnessEvaluationExecutor)
+   {
+      this.fitnessEvaluationExecutor = fitnessEvaluationExecutor;
+   }
+
+   public ExecutorService getFitnessEvaluationExecutor()
+   {
+      return fitnessEvaluationExecutor;
+   }
+
+   /**
+    * Sets the cache used to avoid evaluating twice individuals with the same genotype. Only use when
+    * the fitness is deterministic.
+    * 
+    * @param fitnessCache the cache to use, or {@code null} to evaluate every individual. Default
+    *           value is {@code null}.
+    */
+   public void setFitnessCache(GenotypeFitnessCache fitnessCache)
+   {
+      this.fitnessCache = fitnessCache;
+   }
+
+   public GenotypeFitnessCache getFitnessCache()
+   {
+      return fitnessCache;
+   }
+
+   /**
+    * Sets the seed from which the evaluation seed of each individual is derived, see
+    * {@link IndividualToEvaluate#setEvaluationSeed(long)}.
+    * 
+    * @param evaluationSeed the base seed. Default value is 0.
+    */
+   public void setEvaluationSeed(long evaluationSeed)
+   {
+      this.evaluationSeed = evaluationSeed;
+   }
+
+   public long getEvaluationSeed()
+   {
+      return evaluationSeed;
+   }
   
 
 }
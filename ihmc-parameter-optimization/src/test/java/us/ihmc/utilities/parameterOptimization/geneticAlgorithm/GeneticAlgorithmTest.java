@@ -2,7 +2,10 @@ package us.ihmc.utilities.parameterOptimization.geneticAlgorithm;
 
 import static us.ihmc.robotics.Assert.*;
 
+import java.util.Arrays;
 import java.util.Random;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
 
 import org.junit.jupiter.api.Test;
 
@@ -51,6 +54,43 @@ public class GeneticAlgorithmTest
 
    }
    
+
+   @Test
+   public void testParallelEvaluationIsDeterministic()
+   {
+      GeneticAlgorithmIndividualToEvaluate expected = optimizeExampleIndividualOne(null, null);
+
+      ExecutorService executor = Executors.newFixedThreadPool(4);
+      GenotypeFitnessCache fitnessCache = new GenotypeFitnessCache();
+
+      try
+      {
+         GeneticAlgorithmIndividualToEvaluate actual = optimizeExampleIndividualOne(executor, fitnessCache);
+
+         assertEquals(expected.getFitness(), actual.getFitness(), 0.0);
+         assertTrue(Arrays.equals(expected.getGenotype().getBits(), actual.getGenotype().getBits()));
+         assertTrue(fitnessCache.getNumberOfHits() > 0);
+      }
+      finally
+      {
+         executor.shutdownNow();
+      }
+   }
+
+   private static GeneticAlgorithmIndividualToEvaluate optimizeExampleIndividualOne(ExecutorService executor, GenotypeFitnessCache fitnessCache)
+   {
+      int populationSize = 50;
+      PopulationParameters populationParameters = new PopulationParameters("GeneticAlgorithmTestParallel", new Random(1492L), populationSize);
+      populationParameters.setSeedIndividualsToCopyIntoFirstPopulation(populationSize / 2, 0.01);
+      populationParameters.setFitnessEvaluationExecutor(executor);
+      populationParameters.setFitnessCache(fitnessCache);
+
+      GeneticAlgorithm geneticAlgorithm = new GeneticAlgorithm(populationParameters, 0.8, 0.01);
+      // Unreachable cutoff such that both runs evolve the same number of generations.
+      OptimizationProblem optimizationProblem = new OptimizationProblem(new ExampleIndividualToEvaluateOne(), true, 100.0, 20 * populationSize);
+      geneticAlgorithm.optimize(optimizationProblem);
+      return geneticAlgorithm.getFittestIndividual();
+   }
    
 //   @Test
    public void testOptimizeExampleIndividualTwo()
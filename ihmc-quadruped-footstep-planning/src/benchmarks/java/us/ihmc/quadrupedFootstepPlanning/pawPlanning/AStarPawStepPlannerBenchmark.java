@@ -0,0 +1,54 @@
+package us.ihmc.quadrupedFootstepPlanning.pawPlanning;
+
+import java.util.List;
+
+import us.ihmc.log.LogTools;
+import us.ihmc.pathPlanning.DataSet;
+import us.ihmc.quadrupedFootstepPlanning.pawPlanning.graphSearch.AStarPawStepPlanner;
+import us.ihmc.quadrupedFootstepPlanning.pawPlanning.graphSearch.parameters.PawStepPlannerParametersBasics;
+import us.ihmc.quadrupedPlanning.QuadrupedXGaitSettings;
+import us.ihmc.yoVariables.registry.YoVariableRegistry;
+import us.ihmc.yoVariables.variable.YoLong;
+
+/**
+ * Measures the planning time of the {@link AStarPawStepPlanner} on the testable data sets for an
+ * increasing number of snapping threads, and the planning time of a second request on the same
+ * planar regions which reuses the snap data of the first one.
+ */
+public class AStarPawStepPlannerBenchmark
+{
+   public static void main(String[] args)
+   {
+      AStarPawStepPlannerDataSetTest dataSetTest = new AStarPawStepPlannerDataSetTest();
+      QuadrupedXGaitSettings xGaitSettings = dataSetTest.getXGaitSettings();
+      PawStepPlannerParametersBasics plannerParameters = dataSetTest.getPlannerParameters();
+      List<DataSet> dataSets = AStarPawStepPlannerDataSetTest.loadTestableDataSets();
+
+      int maximumNumberOfThreads = Math.max(2, Math.min(8, Runtime.getRuntime().availableProcessors()));
+
+      for (DataSet dataSet : dataSets)
+      {
+         for (int numberOfThreads = 1; numberOfThreads <= maximumNumberOfThreads; numberOfThreads *= 2)
+         {
+            YoVariableRegistry registry = new YoVariableRegistry("benchmark");
+            AStarPawStepPlanner planner = AStarPawStepPlanner.createPlanner(plannerParameters, xGaitSettings, null, numberOfThreads, registry);
+            YoLong numberOfSnappedPawPositions = (YoLong) registry.getVariable(AStarPawStepPlanner.class.getSimpleName(), "NumberOfSnappedPawPositions");
+
+            // The second request is on equal planar regions, the snap data of the first one is reused.
+            AStarPawStepPlannerDataSetTest.setPlanningRequest(planner, dataSet);
+            PawStepPlanningResult firstResult = planner.plan();
+            double firstPlanningDuration = planner.getPlanningDuration();
+            long snappedAfterFirstRequest = numberOfSnappedPawPositions.getLongValue();
+
+            AStarPawStepPlannerDataSetTest.setPlanningRequest(planner, dataSet);
+            PawStepPlanningResult secondResult = planner.plan();
+            double secondPlanningDuration = planner.getPlanningDuration();
+
+            LogTools.info(dataSet.getName() + ", " + numberOfThreads + " thread(s): " + firstResult + " in " + firstPlanningDuration + " [s], " + secondResult
+                  + " in " + secondPlanningDuration + " [s] with the persisted snap data, " + snappedAfterFirstRequest + " -> "
+                  + numberOfSnappedPawPositions.getLongValue() + " snapped paw positions");
+            planner.close();
+         }
+      }
+   }
+}
@@ -56,6 +56,7 @@ public class AStarPawStepPlanner implements BodyPathAndPawPlanner
 
    private static final ReferenceFrame worldFrame = ReferenceFrame.getWorldFrame();
    private static final RobotQuadrant defaultFirstQuadrant = RobotQuadrant.FRONT_LEFT;
+   private static final int defaultNumberOfSnapThreads = 1;
 
    private RobotQuadrant startQuadrant;
    private final String name = getClass().getSimpleName();
@@ -83,6 +84,7 @@ public class AStarPawStepPlanner implements BodyPathAndPawPlanner
    private final PawNodeExpansion nodeExpansion;
    private final PawNodeCost stepCostCalculator;
    private final PawNodeSnapper snapper;
+   private final ParallelPawNodeSnapper parallelSnapper;
 
    private final ArrayList<StartAndGoalPawListener> startAndGoalListeners = new ArrayList<>();
 
@@ -92,6 +94,7 @@ public class AStarPawStepPlanner implements BodyPathAndPawPlanner
    private final YoLong numberOfExpandedNodes = new YoLong("NumberOfExpandedNodes", registry);
    private final YoDouble percentRejectedNodes = new YoDouble("PercentRejectedNodes", registry);
    private final YoLong iterationCount = new YoLong("IterationCount", registry);
+   private final YoLong numberOfSnappedPawPositions = new YoLong("NumberOfSnappedPawPositions", registry);
 
    private final YoBoolean initialize = new YoBoolean("initialize", registry);
 
@@ -106,6 +109,19 @@ public class AStarPawStepPlanner implements BodyPathAndPawPlanner
                               PawNodeTransitionChecker nodeTransitionChecker, PawPlanningCostToGoHeuristics heuristics, PawNodeExpansion nodeExpansion,
                               PawNodeCost stepCostCalculator, PawNodeSnapper snapper,
                               PawStepPlannerListener listener, YoVariableRegistry parentRegistry)
+   {
+      this(parameters, xGaitSettings, nodeChecker, nodeTransitionChecker, heuristics, nodeExpansion, stepCostCalculator, snapper, null, listener,
+           parentRegistry);
+   }
+
+   /**
+    * @param parallelSnapper if not {@code null}, snaps the neighbors of each expanded node in parallel
+    *           before they are checked. It has to hold its snap data in {@code snapper}.
+    */
+   public AStarPawStepPlanner(PawStepPlannerParametersReadOnly parameters, QuadrupedXGaitSettingsReadOnly xGaitSettings, PawNodeChecker nodeChecker,
+                              PawNodeTransitionChecker nodeTransitionChecker, PawPlanningCostToGoHeuristics heuristics, PawNodeExpansion nodeExpansion,
+                              PawNodeCost stepCostCalculator, PawNodeSnapper snapper, ParallelPawNodeSnapper parallelSnapper,
+                              PawStepPlannerListener listener, YoVariableRegistry parentRegistry)
    {
       this.parameters = parameters;
       this.xGaitSettings = xGaitSettings;
@@ -116,6 +132,7 @@ public class AStarPawStepPlanner implements BodyPathAndPawPlanner
       this.stepCostCalculator = stepCostCalculator;
       this.listener = listener;
       this.snapper = snapper;
+      this.parallelSnapper = parallelSnapper;
       this.graph = new PawStepGraph();
       timeout.set(Double.POSITIVE_INFINITY);
       this.initialize.set(true);
@@ -608,6 +625,16 @@ public class AStarPawStepPlanner implements BodyPathAndPawPlanner
       abortPlanning.set(true);
    }
 
+   /**
+    * Stops the threads used for snapping, if any. This planner cannot be used afterwards when it
+    * snaps on more than one thread.
+    */
+   public void close()
+   {
+      if (parallelSnapper != null)
+         parallelSnapper.close();
+   }
+
    public void requestInitialize()
    {
       initialize.set(true);
@@ -662,6 +689,11 @@ public class AStarPawStepPlanner implements BodyPathAndPawPlanner
 
          HashSet<PawNode> neighbors = nodeExpansion.expandNode(nodeToExpand);
          expandedNodesCount += neighbors.size();
+
+         // Snapping is the expensive part of checking a node, the checks then only use the cached snap data.
+         if (parallelSnapper != null)
+            parallelSnapper.snapPawNodes(neighbors);
+
          for (PawNode neighbor : neighbors)
          {
             if (listener != null)
@@ -709,6 +741,7 @@ public class AStarPawStepPlanner implements BodyPathAndPawPlanner
       percentRejectedNodes.set(100.0 * rejectedNodesCount / expandedNodesCount);
       iterationCount.set(iterations);
       numberOfExpandedNodes.set(expandedNodesCount / Math.max(iterations, 1));
+      numberOfSnappedPawPositions.set(snapper.getNumberOfSnappedPawPositions());
 
       return true;
    }
@@ -811,8 +844,23 @@ public class AStarPawStepPlanner implements BodyPathAndPawPlanner
 
    public static AStarPawStepPlanner createPlanner(PawStepPlannerParametersReadOnly parameters, QuadrupedXGaitSettingsReadOnly xGaitSettings,
                                                    PawStepPlannerListener listener, YoVariableRegistry registry)
+   {
+      return createPlanner(parameters, xGaitSettings, listener, defaultNumberOfSnapThreads, registry);
+   }
+
+   /**
+    * @param numberOfSnapThreads the number of threads snapping the neighbors of each expanded node,
+    *           including the planning thread. Snapping is done on the planning thread only if 1.
+    *           When more than 1, {@link #close()} has to be called once the planner is no longer
+    *           used.
+    */
+   public static AStarPawStepPlanner createPlanner(PawStepPlannerParametersReadOnly parameters, QuadrupedXGaitSettingsReadOnly xGaitSettings,
+                                                   PawStepPlannerListener listener, int numberOfSnapThreads, YoVariableRegistry registry)
    {
       PawNodeSnapper snapper = new CliffAvoidancePlanarRegionFootstepNodeSnapper(parameters, true);
+      ParallelPawNodeSnapper parallelSnapper = null;
+      if (numberOfSnapThreads > 1)
+         parallelSnapper = new ParallelPawNodeSnapper(snapper, () -> new CliffAvoidancePlanarRegionFootstepNodeSnapper(parameters, true), numberOfSnapThreads);
       PawNodeExpansion expansion = new ParameterBasedPawNodeExpansion(parameters, xGaitSettings);
 
       SnapBasedPawNodeTransitionChecker snapBasedNodeTransitionChecker = new SnapBasedPawNodeTransitionChecker(parameters, snapper);
@@ -841,7 +889,7 @@ public class AStarPawStepPlanner implements BodyPathAndPawPlanner
       PawNodeCost pawNodeCost = costBuilder.buildCost();
 
       AStarPawStepPlanner planner = new AStarPawStepPlanner(parameters, xGaitSettings, nodeChecker, nodeTransitionChecker, heuristics,
-                                                            expansion, pawNodeCost, snapper, listener, registry);
+                                                            expansion, pawNodeCost, snapper, parallelSnapper, listener, registry);
 
       return planner;
    }
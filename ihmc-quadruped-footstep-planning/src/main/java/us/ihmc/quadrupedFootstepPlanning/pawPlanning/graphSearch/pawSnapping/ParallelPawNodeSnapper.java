@@ -0,0 +1,232 @@
+package us.ihmc.quadrupedFootstepPlanning.pawPlanning.graphSearch.pawSnapping;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashSet;
+import java.util.List;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Supplier;
+
+import us.ihmc.quadrupedFootstepPlanning.pawPlanning.graphSearch.graph.PawNode;
+import us.ihmc.robotics.geometry.PlanarRegionsList;
+import us.ihmc.robotics.robotSide.RobotQuadrant;
+
+/**
+ * Snaps the paw positions of a set of nodes on several threads and stores the result in the cache of
+ * a {@link PawNodeSnapper}, such that the node checkers, costs and heuristics using that snapper
+ * only read the cached data afterwards.
+ * <p>
+ * The calling thread snaps using the given snapper, each other thread uses its own snapper created
+ * by the factory and a copy of the planar regions, as the snappers and the planar regions are not
+ * thread-safe. The snap data is the same as when snapping the nodes one at a time in the iteration
+ * order of the collection.
+ * </p>
+ */
+public class ParallelPawNodeSnapper
+{
+   private final PawNodeSnapper snapper;
+   private final List<PawNodeSnapper> workerSnappers = new ArrayList<>();
+   private final List<Future<?>> pendingTasks = new ArrayList<>();
+   private final ExecutorService executor;
+
+   private PlanarRegionsList workerPlanarRegionsSource = null;
+   private int workerPlanarRegionsSize = -1;
+
+   private final HashSet<Long> pawPositionsToSnap = new HashSet<>();
+   private final List<PawNode> nodesToSnap = new ArrayList<>();
+   private PawNodeSnapData[] snapResults = new PawNodeSnapData[0];
+   private final AtomicInteger nextNode = new AtomicInteger();
+
+   private long numberOfSnappedPawPositions = 0;
+
+   /**
+    * @param snapper the snapper used by the planner, it holds the snap data.
+    * @param snapperFactory creates the snapper of each additional thread, it has to compute the same
+    *           snap data as {@code snapper}.
+    * @param numberOfThreads the number of threads, including the calling thread.
+    */
+   public ParallelPawNodeSnapper(PawNodeSnapper snapper, Supplier<? extends PawNodeSnapper> snapperFactory, int numberOfThreads)
+   {
+      if (numberOfThreads < 1)
+         throw new IllegalArgumentException("The number of threads has to be at least 1, was " + numberOfThreads);
+
+      this.snapper = snapper;
+
+      for (int i = 1; i < numberOfThreads; i++)
+      {
+         PawNodeSnapper workerSnapper = snapperFactory.get();
+         workerSnapper.setPersistSnapData(false);
+         workerSnappers.add(workerSnapper);
+      }
+
+      if (numberOfThreads > 1)
+      {
+         String threadName = getClass().getSimpleName() + "Worker";
+         executor = Executors.newFixedThreadPool(numberOfThreads - 1, runnable ->
+         {
+            Thread thread = new Thread(runnable, threadName);
+            thread.setDaemon(true);
+            return thread;
+         });
+      }
+      else
+      {
+         executor = null;
+      }
+   }
+
+   /**
+    * Stops the additional threads, this snapper cannot be used afterwards when it has more than one
+    * thread.
+    */
+   public void close()
+   {
+      if (executor != null)
+         executor.shutdown();
+   }
+
+   public int getNumberOfThreads()
+   {
+      return workerSnappers.size() + 1;
+   }
+
+   /**
+    * @return the number of paw positions snapped by this since its creation, not counting the ones
+    *         that were already cached.
+    */
+   public long getNumberOfSnappedPawPositions()
+   {
+      return numberOfSnappedPawPositions;
+   }
+
+   /**
+    * Snaps the moving paw of each node that is not cached yet in the snapper.
+    */
+   public void snapPawNodes(Collection<PawNode> nodes)
+   {
+      if (!snapper.hasPlanarRegions())
+         return;
+
+      pawPositionsToSnap.clear();
+      nodesToSnap.clear();
+
+      for (PawNode node : nodes)
+      {
+         RobotQuadrant movingQuadrant = node.getMovingQuadrant();
+         int xIndex = node.getXIndex(movingQuadrant);
+         int yIndex = node.getYIndex(movingQuadrant);
+
+         // As when snapping one node at a time, the first node at a given paw position is the one snapped.
+         if (snapper.getSnapData(xIndex, yIndex) == null && pawPositionsToSnap.add(computeKey(xIndex, yIndex)))
+            nodesToSnap.add(node);
+      }
+
+      int numberOfNodes = nodesToSnap.size();
+
+      if (numberOfNodes == 0)
+         return;
+
+      numberOfSnappedPawPositions += numberOfNodes;
+
+      if (executor == null || numberOfNodes == 1)
+      {
+         for (int i = 0; i < numberOfNodes; i++)
+            snapper.snapPawNode(nodesToSnap.get(i));
+         return;
+      }
+
+      updateWorkerPlanarRegions();
+
+      if (snapResults.length < numberOfNodes)
+         snapResults = new PawNodeSnapData[numberOfNodes];
+      nextNode.set(0);
+
+      int numberOfWorkers = Math.min(workerSnappers.size(), numberOfNodes - 1);
+
+      for (int i = 0; i < numberOfWorkers; i++)
+      {
+         PawNodeSnapper workerSnapper = workerSnappers.get(i);
+         pendingTasks.add(executor.submit(() -> snapNodes(workerSnapper, numberOfNodes)));
+      }
+
+      snapNodes(snapper, numberOfNodes);
+      waitForPendingTasks();
+
+      for (int i = 0; i < numberOfNodes; i++)
+      {
+         PawNode node = nodesToSnap.get(i);
+         RobotQuadrant movingQuadrant = node.getMovingQuadrant();
+         snapper.cacheSnapData(node.getXIndex(movingQuadrant), node.getYIndex(movingQuadrant), snapResults[i]);
+         snapResults[i] = null;
+      }
+   }
+
+   private void snapNodes(PawNodeSnapper snapperToUse, int numberOfNodes)
+   {
+      int index;
+
+      while ((index = nextNode.getAndIncrement()) < numberOfNodes)
+      {
+         PawNode node = nodesToSnap.get(index);
+         RobotQuadrant movingQuadrant = node.getMovingQuadrant();
+         snapResults[index] = snapperToUse.snapInternal(movingQuadrant, node.getXIndex(movingQuadrant), node.getYIndex(movingQuadrant), node.getStepYaw());
+      }
+   }
+
+   /**
+    * Gives a copy of the planar regions to the worker snappers whenever the planar regions of the
+    * snapper change, including when regions are added to the same list.
+    */
+   private void updateWorkerPlanarRegions()
+   {
+      PlanarRegionsList planarRegionsList = snapper.getPlanarRegionsList();
+
+      if (planarRegionsList == workerPlanarRegionsSource && planarRegionsList.getNumberOfPlanarRegions() == workerPlanarRegionsSize)
+         return;
+
+      for (PawNodeSnapper workerSnapper : workerSnappers)
+         workerSnapper.setPlanarRegions(planarRegionsList.copy());
+
+      workerPlanarRegionsSource = planarRegionsList;
+      workerPlanarRegionsSize = planarRegionsList.getNumberOfPlanarRegions();
+   }
+
+   private void waitForPendingTasks()
+   {
+      Throwable failure = null;
+
+      for (int i = 0; i < pendingTasks.size(); i++)
+      {
+         try
+         {
+            pendingTasks.get(i).get();
+         }
+         catch (ExecutionException e)
+         {
+            if (failure == null)
+               failure = e.getCause();
+         }
+         catch (InterruptedException e)
+         {
+            if (failure == null)
+               failure = e;
+         }
+      }
+
+      pendingTasks.clear();
+
+      if (failure instanceof RuntimeException)
+         throw (RuntimeException) failure;
+      else if (failure != null)
+         throw new RuntimeException(failure);
+   }
+
+   private static long computeKey(int xIndex, int yIndex)
+   {
+      return ((long) xIndex << 32) | (yIndex & 0xFFFFFFFFL);
+   }
+}
@@ -5,13 +5,23 @@ import us.ihmc.quadrupedFootstepPlanning.pawPlanning.graphSearch.parameters.PawS
 import us.ihmc.robotics.geometry.PlanarRegionsList;
 import us.ihmc.robotics.robotSide.RobotQuadrant;
 
+import java.util.ArrayList;
 import java.util.HashMap;
+import java.util.List;
 
 public abstract class PawNodeSnapper implements PawNodeSnapperReadOnly
 {
+   private static final double planarRegionsEpsilon = 1.0e-7;
+
    private final HashMap<SnapKey, PawNodeSnapData> snapDataHolder = new HashMap<>();
+   private final HashMap<SnapKey, PawNodeSnapData> addedSnapDataHolder = new HashMap<>();
    protected PlanarRegionsList planarRegionsList;
 
+   private boolean persistSnapData = true;
+   /** Copy of the planar regions and parameters the computed snap data is valid for. */
+   private PlanarRegionsList snapDataPlanarRegions = null;
+   private List<Object> snapDataParameters = null;
+
    protected final PawStepPlannerParametersReadOnly parameters;
 
    public PawNodeSnapper()
@@ -24,11 +34,83 @@ public abstract class PawNodeSnapper implements PawNodeSnapperReadOnly
       this.parameters = parameters;
    }
 
+   /**
+    * Sets the planar regions to snap to.
+    * <p>
+    * The snap data added with {@link #addSnapData(int, int, PawNodeSnapData)} is always cleared. The
+    * computed snap data is kept if persisting it is enabled and neither the planar regions nor the
+    * parameters changed since it was computed, such that consecutive planning requests on the same
+    * environment do not snap the same paw positions again.
+    * </p>
+    */
    public void setPlanarRegions(PlanarRegionsList planarRegionsList)
    {
+      addedSnapDataHolder.clear();
+
+      List<Object> parameterValues = parameters == null ? null : new ArrayList<>(parameters.getAll());
+
+      if (!persistSnapData || !isSnapDataValid(planarRegionsList, parameterValues))
+      {
+         snapDataHolder.clear();
+         snapDataPlanarRegions = persistSnapData && planarRegionsList != null ? planarRegionsList.copy() : null;
+         snapDataParameters = parameterValues;
+      }
+
       this.planarRegionsList = planarRegionsList;
+   }
 
+   private boolean isSnapDataValid(PlanarRegionsList newPlanarRegionsList, List<Object> newParameterValues)
+   {
+      if (snapDataPlanarRegions == null || newPlanarRegionsList == null)
+         return false;
+      // The previous regions were modified after being set, the planner adds regions under the start for instance.
+      if (planarRegionsList == null || planarRegionsList.getNumberOfPlanarRegions() != snapDataPlanarRegions.getNumberOfPlanarRegions())
+         return false;
+      if (newParameterValues != null && !newParameterValues.equals(snapDataParameters))
+         return false;
+
+      return epsilonEquals(snapDataPlanarRegions, newPlanarRegionsList, planarRegionsEpsilon);
+   }
+
+   private static boolean epsilonEquals(PlanarRegionsList planarRegionsListA, PlanarRegionsList planarRegionsListB, double epsilon)
+   {
+      if (planarRegionsListA.getNumberOfPlanarRegions() != planarRegionsListB.getNumberOfPlanarRegions())
+         return false;
+
+      for (int i = 0; i < planarRegionsListA.getNumberOfPlanarRegions(); i++)
+      {
+         if (!planarRegionsListA.getPlanarRegion(i).epsilonEquals(planarRegionsListB.getPlanarRegion(i), epsilon))
+            return false;
+      }
+
+      return true;
+   }
+
+   /**
+    * Whether the computed snap data should be kept between calls to
+    * {@link #setPlanarRegions(PlanarRegionsList)} with the same planar regions. Enabled by default.
+    */
+   public void setPersistSnapData(boolean persistSnapData)
+   {
+      this.persistSnapData = persistSnapData;
+
+      if (!persistSnapData)
+         snapDataPlanarRegions = null;
+   }
+
+   /**
+    * Clears all the snap data, including the data persisted from the previous planar regions.
+    */
+   public void clearSnapData()
+   {
       snapDataHolder.clear();
+      addedSnapDataHolder.clear();
+      snapDataPlanarRegions = null;
+   }
+
+   public int getNumberOfSnappedPawPositions()
+   {
+      return snapDataHolder.size();
    }
 
    public PlanarRegionsList getPlanarRegionsList()
@@ -49,9 +131,11 @@ public abstract class PawNodeSnapper implements PawNodeSnapperReadOnly
    public PawNodeSnapData snapPawNode(RobotQuadrant movingQuadrant, int xIndex, int yIndex, double yaw)
    {
       SnapKey key = new SnapKey(xIndex, yIndex);
-      if (snapDataHolder.containsKey(key))
+      PawNodeSnapData snapData = getSnapData(key);
+
+      if (snapData != null)
       {
-         return snapDataHolder.get(key);
+         return snapData;
       }
       else if (planarRegionsList == null || planarRegionsList.isEmpty())
       {
@@ -59,25 +143,42 @@ public abstract class PawNodeSnapper implements PawNodeSnapperReadOnly
       }
       else
       {
-         PawNodeSnapData snapData = snapInternal(movingQuadrant, xIndex, yIndex, yaw);
-         addSnapData(xIndex, yIndex, snapData);
+         snapData = snapInternal(movingQuadrant, xIndex, yIndex, yaw);
+         snapDataHolder.put(key, snapData);
          return snapData;
       }
    }
 
+   /**
+    * Stores snap data computed outside of this snapper, by a {@link ParallelPawNodeSnapper} worker.
+    */
+   void cacheSnapData(int xIndex, int yIndex, PawNodeSnapData snapData)
+   {
+      snapDataHolder.put(new SnapKey(xIndex, yIndex), snapData);
+   }
+
 
    /**
-    * Can manually add snap data for a paw node to bypass the snapper.
+    * Can manually add snap data for a paw node to bypass the snapper. This data only lasts until the
+    * next call to {@link #setPlanarRegions(PlanarRegionsList)}.
     */
    public void addSnapData(int xIndex, int yIndex, PawNodeSnapData snapData)
    {
-      snapDataHolder.put(new SnapKey(xIndex, yIndex), snapData);
+      addedSnapDataHolder.put(new SnapKey(xIndex, yIndex), snapData);
    }
 
    @Override
    public PawNodeSnapData getSnapData(int xIndex, int yIndex)
    {
-      return snapDataHolder.get(new SnapKey(xIndex, yIndex));
+      return getSnapData(new SnapKey(xIndex, yIndex));
+   }
+
+   private PawNodeSnapData getSnapData(SnapKey key)
+   {
+      PawNodeSnapData snapData = addedSnapDataHolder.get(key);
+      if (snapData == null)
+         snapData = snapDataHolder.get(key);
+      return snapData;
    }
 
    protected abstract PawNodeSnapData snapInternal(RobotQuadrant movingQuadrant, int xIndex, int yIndex, double yaw);
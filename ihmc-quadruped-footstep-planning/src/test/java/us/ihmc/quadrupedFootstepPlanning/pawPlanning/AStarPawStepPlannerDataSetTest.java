@@ -2,7 +2,12 @@ package us.ihmc.quadrupedFootstepPlanning.pawPlanning;
 
 import org.junit.jupiter.api.Test;
 import us.ihmc.commons.thread.ThreadTools;
+import us.ihmc.euclid.referenceFrame.FramePose3D;
+import us.ihmc.euclid.tuple4D.Quaternion;
+import us.ihmc.pathPlanning.DataSet;
+import us.ihmc.pathPlanning.DataSetIOTools;
 import us.ihmc.pathPlanning.DataSetName;
+import us.ihmc.pathPlanning.PlannerInput;
 import us.ihmc.quadrupedFootstepPlanning.pawPlanning.graphSearch.AStarPawStepPlanner;
 import us.ihmc.quadrupedFootstepPlanning.pawPlanning.graphSearch.parameters.DefaultPawStepPlannerParameters;
 import us.ihmc.quadrupedFootstepPlanning.pawPlanning.graphSearch.parameters.PawStepPlannerParametersBasics;
@@ -13,6 +18,9 @@ import us.ihmc.quadrupedPlanning.QuadrupedSpeed;
 import us.ihmc.quadrupedPlanning.QuadrupedXGaitSettings;
 import us.ihmc.yoVariables.registry.YoVariableRegistry;
 
+import java.util.List;
+
+import static us.ihmc.robotics.Assert.assertEquals;
 import static us.ihmc.robotics.Assert.assertTrue;
 
 public class AStarPawStepPlannerDataSetTest extends PawStepPlannerDataSetTest
@@ -64,6 +72,79 @@ public class AStarPawStepPlannerDataSetTest extends PawStepPlannerDataSetTest
       super.testDataSets();
    }
 
+   @Test
+   public void testParallelSnappingGivesSamePlan()
+   {
+      List<DataSet> dataSets = loadTestableDataSets();
+      int numberOfComparedPlans = 0;
+
+      for (DataSet dataSet : dataSets)
+      {
+         AStarPawStepPlanner serialPlanner = AStarPawStepPlanner.createPlanner(plannerParameters, xGaitSettings, null, 1, new YoVariableRegistry("test"));
+         AStarPawStepPlanner parallelPlanner = AStarPawStepPlanner.createPlanner(plannerParameters, xGaitSettings, null, 3, new YoVariableRegistry("test"));
+
+         setPlanningRequest(serialPlanner, dataSet);
+         PawStepPlanningResult serialResult = serialPlanner.plan();
+         setPlanningRequest(parallelPlanner, dataSet);
+         PawStepPlanningResult parallelResult = parallelPlanner.plan();
+         parallelPlanner.close();
+
+         // The search is deterministic given the snap data, only the plans that did not depend on a timeout can be compared.
+         if (serialResult != PawStepPlanningResult.OPTIMAL_SOLUTION || parallelResult != PawStepPlanningResult.OPTIMAL_SOLUTION)
+            continue;
+
+         PawStepPlan serialPlan = serialPlanner.getPlan();
+         PawStepPlan parallelPlan = parallelPlanner.getPlan();
+         assertEquals(dataSet.getName(), serialPlan.getNumberOfSteps(), parallelPlan.getNumberOfSteps());
+
+         for (int i = 0; i < serialPlan.getNumberOfSteps(); i++)
+            assertTrue(dataSet.getName() + ", step " + i, serialPlan.getPawStep(i).epsilonEquals(parallelPlan.getPawStep(i), 1.0e-10));
+
+         numberOfComparedPlans++;
+      }
+
+      assertTrue("No plan to compare.", numberOfComparedPlans > 0);
+   }
+
+   static List<DataSet> loadTestableDataSets()
+   {
+      List<DataSet> dataSets = DataSetIOTools.loadDataSets(dataSet ->
+                                                           {
+                                                              if (!dataSet.hasPlannerInput())
+                                                                 return false;
+                                                              return dataSet.getPlannerInput().getQuadrupedPlannerIsTestable();
+                                                           });
+      assertTrue("Did not find any datasets to test.", !dataSets.isEmpty());
+      return dataSets;
+   }
+
+   static void setPlanningRequest(AStarPawStepPlanner planner, DataSet dataSet)
+   {
+      PlannerInput plannerInput = dataSet.getPlannerInput();
+      FramePose3D startPose = new FramePose3D();
+      FramePose3D goalPose = new FramePose3D();
+
+      startPose.getPosition().set(plannerInput.getQuadrupedStartPosition());
+      goalPose.getPosition().set(plannerInput.getQuadrupedGoalPosition());
+
+      if (plannerInput.getHasQuadrupedStartYaw())
+         startPose.getOrientation().set(new Quaternion(plannerInput.getQuadrupedStartYaw(), 0.0, 0.0));
+      if (plannerInput.getHasQuadrupedGoalYaw())
+         goalPose.getOrientation().set(new Quaternion(plannerInput.getQuadrupedGoalYaw(), 0.0, 0.0));
+
+      PawStepPlannerStart start = new PawStepPlannerStart();
+      PawStepPlannerGoal goal = new PawStepPlannerGoal();
+      start.setStartPose(startPose);
+      goal.setGoalPose(goalPose);
+
+      // As received by the toolbox, a new list for each request.
+      planner.setPlanarRegionsList(dataSet.getPlanarRegionsList().copy());
+      planner.setStart(start);
+      planner.setGoal(goal);
+      planner.setTimeout(bambooTimeScaling * plannerInput.getQuadrupedTimeout());
+      planner.setBestEffortTimeout(bambooTimeScaling * plannerInput.getQuadrupedTimeout());
+   }
+
    public static void main(String[] args)
    {
       AStarPawStepPlannerDataSetTest test = new AStarPawStepPlannerDataSetTest();
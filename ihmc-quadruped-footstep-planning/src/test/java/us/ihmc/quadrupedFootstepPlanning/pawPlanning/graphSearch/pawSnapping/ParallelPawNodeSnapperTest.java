@@ -0,0 +1,87 @@
+package us.ihmc.quadrupedFootstepPlanning.pawPlanning.graphSearch.pawSnapping;
+
+import org.junit.jupiter.api.Test;
+import us.ihmc.euclid.Axis3D;
+import us.ihmc.euclid.tools.EuclidCoreRandomTools;
+import us.ihmc.euclid.transform.RigidBodyTransform;
+import us.ihmc.quadrupedFootstepPlanning.pawPlanning.graphSearch.graph.PawNode;
+import us.ihmc.quadrupedFootstepPlanning.pawPlanning.graphSearch.parameters.DefaultPawStepPlannerParameters;
+import us.ihmc.robotics.geometry.PlanarRegionsList;
+import us.ihmc.robotics.geometry.PlanarRegionsListGenerator;
+import us.ihmc.robotics.robotSide.RobotQuadrant;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+import static us.ihmc.robotics.Assert.*;
+
+public class ParallelPawNodeSnapperTest
+{
+   @Test
+   public void testSameSnapDataAsSerialSnapping()
+   {
+      Random random = new Random(7612L);
+      DefaultPawStepPlannerParameters parameters = new DefaultPawStepPlannerParameters();
+      PlanarRegionsList planarRegionsList = createTerrain();
+
+      PawNodeSnapper serialSnapper = new CliffAvoidancePlanarRegionFootstepNodeSnapper(parameters, true);
+      serialSnapper.setPlanarRegions(planarRegionsList);
+
+      PawNodeSnapper snapper = new CliffAvoidancePlanarRegionFootstepNodeSnapper(parameters, true);
+      snapper.setPlanarRegions(planarRegionsList);
+      ParallelPawNodeSnapper parallelSnapper = new ParallelPawNodeSnapper(snapper, () -> new CliffAvoidancePlanarRegionFootstepNodeSnapper(parameters, true), 4);
+
+      for (int batch = 0; batch < 10; batch++)
+      {
+         List<PawNode> nodes = new ArrayList<>();
+         for (int i = 0; i < 100; i++)
+            nodes.add(nextPawNode(random));
+
+         for (PawNode node : nodes)
+            serialSnapper.snapPawNode(node);
+         parallelSnapper.snapPawNodes(nodes);
+
+         for (PawNode node : nodes)
+         {
+            RobotQuadrant movingQuadrant = node.getMovingQuadrant();
+            int xIndex = node.getXIndex(movingQuadrant);
+            int yIndex = node.getYIndex(movingQuadrant);
+            RigidBodyTransform expected = serialSnapper.getSnapData(xIndex, yIndex).getSnapTransform();
+            RigidBodyTransform actual = snapper.getSnapData(xIndex, yIndex).getSnapTransform();
+
+            if (expected.containsNaN())
+               assertTrue(actual.containsNaN());
+            else
+               assertTrue(expected.epsilonEquals(actual, 0.0));
+         }
+      }
+
+      assertEquals(serialSnapper.getNumberOfSnappedPawPositions(), snapper.getNumberOfSnappedPawPositions());
+      assertEquals((long) serialSnapper.getNumberOfSnappedPawPositions(), parallelSnapper.getNumberOfSnappedPawPositions());
+      parallelSnapper.close();
+   }
+
+   private static PlanarRegionsList createTerrain()
+   {
+      PlanarRegionsListGenerator generator = new PlanarRegionsListGenerator();
+      generator.addRectangle(6.0, 6.0);
+      generator.translate(1.0, 1.0, 0.0);
+      generator.addCubeReferencedAtBottomMiddle(1.0, 1.0, 0.2);
+      generator.translate(-2.0, 0.0, 0.0);
+      generator.addRampReferencedAtBottomMiddle(1.5, 1.0, 0.3);
+      generator.translate(0.0, -2.0, 0.1);
+      generator.rotate(0.2, Axis3D.X);
+      generator.addRectangle(1.0, 1.0);
+      return generator.getPlanarRegionsList();
+   }
+
+   private static PawNode nextPawNode(Random random)
+   {
+      RobotQuadrant movingQuadrant = RobotQuadrant.generateRandomRobotQuadrant(random);
+      double x = EuclidCoreRandomTools.nextDouble(random, 2.5);
+      double y = EuclidCoreRandomTools.nextDouble(random, 2.5);
+      double yaw = EuclidCoreRandomTools.nextDouble(random, Math.PI);
+      return new PawNode(movingQuadrant, x + 0.5, y + 0.25, x + 0.5, y - 0.25, x - 0.5, y + 0.25, x - 0.5, y - 0.25, yaw, 1.0, 0.5);
+   }
+}
@@ -222,6 +222,47 @@ public class PawNodeSnapperTest
    }
 
 
+   @Test
+   public void testSnapDataPersistsWithUnchangedPlanarRegions()
+   {
+      TestSnapper testSnapper = new TestSnapper();
+      PlanarRegionsList planarRegionsList = PlanarRegionsList.flatGround(10.0);
+      testSnapper.setPlanarRegions(planarRegionsList);
+
+      testSnapper.snapPawNode(RobotQuadrant.FRONT_LEFT, 3, 4, 0.0);
+      assertTrue(testSnapper.dirtyBit);
+      testSnapper.addSnapData(5, 6, PawNodeSnapData.identityData());
+
+      // Same regions in a new list, the computed snap data is kept but not the one added manually.
+      testSnapper.dirtyBit = false;
+      testSnapper.setPlanarRegions(planarRegionsList.copy());
+      testSnapper.snapPawNode(RobotQuadrant.FRONT_LEFT, 3, 4, 0.0);
+      assertFalse(testSnapper.dirtyBit);
+      assertEquals(1, testSnapper.getNumberOfSnappedPawPositions());
+      assertNull(testSnapper.getSnapData(5, 6));
+
+      // Regions added to the list after it was set, the snap data may be out of date.
+      testSnapper.getPlanarRegionsList().addPlanarRegion(new PlanarRegion());
+      testSnapper.setPlanarRegions(planarRegionsList.copy());
+      testSnapper.snapPawNode(RobotQuadrant.FRONT_LEFT, 3, 4, 0.0);
+      assertTrue(testSnapper.dirtyBit);
+
+      // Different regions
+      testSnapper.dirtyBit = false;
+      RigidBodyTransform transform = new RigidBodyTransform();
+      transform.setTranslationZ(0.1);
+      testSnapper.setPlanarRegions(PlanarRegionsList.flatGround(10.0, transform));
+      testSnapper.snapPawNode(RobotQuadrant.FRONT_LEFT, 3, 4, 0.0);
+      assertTrue(testSnapper.dirtyBit);
+
+      // Persistence disabled
+      testSnapper.setPersistSnapData(false);
+      testSnapper.dirtyBit = false;
+      testSnapper.setPlanarRegions(PlanarRegionsList.flatGround(10.0, transform));
+      testSnapper.snapPawNode(RobotQuadrant.FRONT_LEFT, 3, 4, 0.0);
+      assertTrue(testSnapper.dirtyBit);
+   }
+
    private class TestSnapper extends PawNodeSnapper
    {
       boolean dirtyBit = false;
@@ -0,0 +1,95 @@
+package us.ihmc.robotDataVisualizer.logger;
+
+import java.io.File;
+import java.io.IOException;
+import java.lang.management.ManagementFactory;
+import java.lang.management.MemoryMXBean;
+import java.nio.file.Files;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+
+import us.ihmc.log.LogTools;
+import us.ihmc.yoVariables.registry.YoVariableRegistry;
+import us.ihmc.yoVariables.variable.YoDouble;
+import us.ihmc.yoVariables.variable.YoVariable;
+
+/**
+ * Measures the export time and the peak heap increase of the {@link YoVariableColumnarExporter} for
+ * two log lengths, the peak heap should not grow with the length of the log.
+ */
+public class YoVariableColumnarExporterBenchmark
+{
+   public static void main(String[] args) throws IOException, InterruptedException
+   {
+      YoVariableRegistry registry = new YoVariableRegistry("test");
+      List<YoVariable<?>> variables = new ArrayList<>();
+      for (int i = 0; i < 200; i++)
+         variables.add(new YoDouble("variable" + i, registry));
+      List<YoVariable<?>> selectedVariables = new ArrayList<>();
+      for (int i = 0; i < variables.size(); i += 10)
+         selectedVariables.add(variables.get(i));
+
+      for (int numberOfTicks : new int[] {25000, 100000})
+      {
+         File directory = Files.createTempDirectory("columnarExportBenchmark").toFile();
+         MemoryMappedYoVariableLogReader logReader = YoVariableColumnarExporterTest.writeLog(directory, variables.size(), numberOfTicks);
+         File exportFile = new File(directory, "export.ycol");
+
+         try (YoVariableColumnarExporter exporter = new YoVariableColumnarExporter(logReader, variables))
+         {
+            HeapMonitor heapMonitor = new HeapMonitor();
+            long start = System.nanoTime();
+            exporter.exportTicks(exportFile, 0, numberOfTicks, selectedVariables, null);
+            long exportTime = System.nanoTime() - start;
+            long peakHeap = heapMonitor.stop();
+
+            LogTools.info("Exported " + selectedVariables.size() + " of " + variables.size() + " variables over " + numberOfTicks + " ticks in "
+                  + exportTime / 1.0e6 + " ms, peak heap increase " + peakHeap / (1 << 20) + " MiB, file size " + exportFile.length() / 1024 + " KiB.");
+         }
+
+         YoVariableColumnarExporterTest.deleteDirectory(directory);
+      }
+   }
+
+   private static class HeapMonitor
+   {
+      private final MemoryMXBean memoryBean = ManagementFactory.getMemoryMXBean();
+      private final AtomicBoolean running = new AtomicBoolean(true);
+      private final AtomicLong peakHeap = new AtomicLong();
+      private final long initialHeap;
+      private final Thread thread;
+
+      private HeapMonitor()
+      {
+         for (int i = 0; i < 3; i++)
+            System.gc();
+         initialHeap = memoryBean.getHeapMemoryUsage().getUsed();
+
+         thread = new Thread(() ->
+         {
+            while (running.get())
+            {
+               peakHeap.accumulateAndGet(memoryBean.getHeapMemoryUsage().getUsed(), Math::max);
+               try
+               {
+                  Thread.sleep(1);
+               }
+               catch (InterruptedException e)
+               {
+                  return;
+               }
+            }
+         });
+         thread.start();
+      }
+
+      private long stop() throws InterruptedException
+      {
+         running.set(false);
+         thread.join();
+         return Math.max(0, peakHeap.get() - initialHeap);
+      }
+   }
+}
@@ -0,0 +1,83 @@
+package us.ihmc.robotDataVisualizer.logger.lidar;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+import controller_msgs.msg.dds.LidarScanMessage;
+import us.ihmc.log.LogTools;
+
+/**
+ * Logs scans at twice the rate of a Multisense SL, reporting the longest write call and the
+ * compression ratio, then measures the sustained rate when the scans are written back-to-back.
+ */
+public class LidarScanLogFileWriterBenchmark
+{
+   /** Scan rate of a Multisense SL. */
+   private static final double NOMINAL_SCAN_RATE = 40.0;
+
+   public static void main(String[] args) throws IOException, InterruptedException
+   {
+      File directory = Files.createTempDirectory("lidarLog").toFile();
+      File logFile = new File(directory, "lidar.log");
+      Random random = new Random(9872L);
+
+      // Pre-generated such that the producer only measures the logging.
+      LidarScanMessage[] scans = new LidarScanMessage[20];
+      for (int i = 0; i < scans.length; i++)
+         scans[i] = LidarScanLogFileWriterTest.nextLidarScanMessage(random, 0, LidarScanLogFileWriterTest.POINTS_PER_SCAN);
+
+      double scanRate = 2.0 * NOMINAL_SCAN_RATE;
+      long period = (long) (1.0e9 / scanRate);
+      int numberOfScans = (int) (3.0 * scanRate);
+      long maximumWriteTime = 0;
+      double compressionRatio;
+
+      try (LidarScanLogFileWriter writer = new LidarScanLogFileWriter(logFile, 1 << 18, TimeUnit.MILLISECONDS.toNanos(100)))
+      {
+         long startTime = System.nanoTime();
+
+         for (int i = 0; i < numberOfScans; i++)
+         {
+            long nextScanTime = startTime + i * period;
+            while (System.nanoTime() < nextScanTime)
+               Thread.sleep(0, 100000);
+
+            LidarScanMessage scan = scans[i % scans.length];
+            scan.setRobotTimestamp(i * period);
+            long writeStart = System.nanoTime();
+            writer.write(scan);
+            maximumWriteTime = Math.max(maximumWriteTime, System.nanoTime() - writeStart);
+         }
+
+         compressionRatio = writer.getCompressionRatio();
+      }
+
+      LogTools.info("Logged " + numberOfScans + " scans at " + scanRate + " Hz, longest write call " + maximumWriteTime / 1.0e6 + " ms, compressed size "
+            + (int) (100.0 * compressionRatio) + "% of the raw size.");
+
+      // Burst: the producer only pays for the serialization, the background thread has to keep up on average.
+      int numberOfBurstScans = 5000;
+      long startTime;
+      long endTime;
+
+      try (LidarScanLogFileWriter writer = new LidarScanLogFileWriter(logFile))
+      {
+         startTime = System.nanoTime();
+         for (int i = 0; i < numberOfBurstScans; i++)
+         {
+            scans[i % scans.length].setRobotTimestamp(i);
+            writer.write(scans[i % scans.length]);
+         }
+         writer.flush();
+         endTime = System.nanoTime();
+      }
+
+      double burstScanRate = numberOfBurstScans / ((endTime - startTime) / 1.0e9);
+      LogTools.info("Sustained " + (int) burstScanRate + " scans/s, nominal rate " + NOMINAL_SCAN_RATE + " scans/s.");
+
+      LidarScanLogFileWriterTest.deleteDirectory(directory);
+   }
+}
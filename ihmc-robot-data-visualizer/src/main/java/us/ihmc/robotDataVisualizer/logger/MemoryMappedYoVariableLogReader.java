@@ -0,0 +1,549 @@
+package us.ihmc.robotDataVisualizer.logger;
+
+import java.io.Closeable;
+import java.io.DataInputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.ByteBuffer;
+import java.nio.LongBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.channels.FileChannel.MapMode;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.LongPredicate;
+
+import us.ihmc.commons.thread.ThreadTools;
+import us.ihmc.robotDataLogger.LogProperties;
+import us.ihmc.robotDataLogger.handshake.YoVariableHandshakeParser;
+import us.ihmc.robotDataVisualizer.logger.converters.LogFormatUpdater;
+import us.ihmc.tools.compression.SnappyUtils;
+
+/**
+ * Random access reader for YoVariable logs based on memory-mapped files.
+ * <p>
+ * The data file and the index are mapped in memory, the index holds the timestamp and the offset in
+ * the data file of every tick. For compressed logs, the index is the one written by the logger. For
+ * uncompressed logs, the index is generated on the first use and stored next to the data file.
+ * </p>
+ * <p>
+ * A tick is read with a {@link LogLineReader}, one per thread. The reader itself is thread-safe and
+ * can decompress independent segments of the log in parallel, for instance to search for the next
+ * transition of a state machine or to extract a variable over the whole log.
+ * </p>
+ * <p>
+ * In a log line, the timestamp is at index 0 and the i<sup>th</sup> variable is at index
+ * {@code i + 1}, followed by the joint states.
+ * </p>
+ */
+public class MemoryMappedYoVariableLogReader implements Closeable
+{
+   /** Suffix of the index generated for uncompressed logs. */
+   public static final String UNCOMPRESSED_INDEX_SUFFIX = ".index";
+
+   /** Mapped buffers are limited to {@link Integer#MAX_VALUE} bytes, the data file is split in segments. */
+   private static final long MAXIMUM_SEGMENT_SIZE = 1L << 30;
+   private static final int DEFAULT_TICKS_PER_TASK = 4096;
+   private static final int INDEX_ENTRY_SIZE = 16;
+
+   private final boolean compressed;
+   private final int logLineLength;
+   private final int numberOfTicks;
+   private final long dataSize;
+
+   private final RandomAccessFile dataFile;
+   private final MappedByteBuffer[] segments;
+   private final long[] segmentOffsets;
+   private final int[] segmentFirstTicks;
+
+   private final RandomAccessFile indexFile;
+   /** Pairs of timestamp and data offset for each tick. */
+   private final LongBuffer index;
+
+   private int ticksPerTask = DEFAULT_TICKS_PER_TASK;
+   private ExecutorService executor = null;
+
+   /**
+    * Opens the variable data of a log directory, updating the log format if needed.
+    *
+    * @param logDirectory the directory of the log.
+    * @param logProperties the properties of the log.
+    * @throws IOException if the files cannot be read or the index cannot be generated.
+    */
+   public MemoryMappedYoVariableLogReader(File logDirectory, LogProperties logProperties) throws IOException
+   {
+      this(logDirectory, logProperties, readLogLineLength(logDirectory, logProperties));
+   }
+
+   private MemoryMappedYoVariableLogReader(File logDirectory, LogProperties logProperties, int logLineLength) throws IOException
+   {
+      this(getDataFile(logDirectory, logProperties), getIndexFile(logDirectory, logProperties), logProperties.getVariables().getCompressed(), logLineLength);
+   }
+
+   /**
+    * @param dataFile the file holding the variable data.
+    * @param indexFile the index of the timestamps and offsets. For uncompressed logs, it is generated
+    *           if it does not exist yet.
+    * @param compressed whether the log lines are compressed with Snappy.
+    * @param logLineLength the number of {@code long}s in a log line: the timestamp, the variables and
+    *           the joint states.
+    * @throws IOException if the files cannot be read or the index cannot be generated.
+    */
+   public MemoryMappedYoVariableLogReader(File dataFile, File indexFile, boolean compressed, int logLineLength) throws IOException
+   {
+      if (!dataFile.exists())
+         throw new IOException("Cannot find " + dataFile);
+
+      this.compressed = compressed;
+      this.logLineLength = logLineLength;
+
+      this.dataFile = new RandomAccessFile(dataFile, "r");
+      FileChannel dataChannel = this.dataFile.getChannel();
+      dataSize = dataChannel.size();
+
+      if (!compressed && (!indexFile.exists() || indexFile.length() != INDEX_ENTRY_SIZE * (dataSize / getLogLineSize())))
+         generateUncompressedIndex(dataChannel, indexFile, getLogLineSize());
+      else if (!indexFile.exists())
+         throw new IOException("Cannot find " + indexFile);
+
+      this.indexFile = new RandomAccessFile(indexFile, "r");
+      FileChannel indexChannel = this.indexFile.getChannel();
+      numberOfTicks = (int) (indexChannel.size() / INDEX_ENTRY_SIZE);
+      index = indexChannel.map(MapMode.READ_ONLY, 0, (long) numberOfTicks * INDEX_ENTRY_SIZE).asLongBuffer();
+
+      // Splits the data file at tick boundaries such that a log line never spans two segments.
+      List<MappedByteBuffer> segmentList = new ArrayList<>();
+      List<Long> segmentOffsetList = new ArrayList<>();
+      List<Integer> segmentFirstTickList = new ArrayList<>();
+      int firstTick = 0;
+
+      for (int tick = 0; tick < numberOfTicks; tick++)
+      {
+         long segmentStart = getDataOffset(firstTick);
+         boolean isLastTick = tick == numberOfTicks - 1;
+
+         if (isLastTick || getDataOffset(tick + 2) - segmentStart > MAXIMUM_SEGMENT_SIZE)
+         {
+            long segmentEnd = getDataOffset(tick + 1);
+            segmentList.add(dataChannel.map(MapMode.READ_ONLY, segmentStart, segmentEnd - segmentStart));
+            segmentOffsetList.add(segmentStart);
+            segmentFirstTickList.add(firstTick);
+            firstTick = tick + 1;
+         }
+      }
+
+      segments = segmentList.toArray(new MappedByteBuffer[segmentList.size()]);
+      segmentOffsets = segmentOffsetList.stream().mapToLong(Long::longValue).toArray();
+      segmentFirstTicks = segmentFirstTickList.stream().mapToInt(Integer::intValue).toArray();
+   }
+
+   private static File getDataFile(File logDirectory, LogProperties logProperties)
+   {
+      return new File(logDirectory, logProperties.getVariables().getDataAsString());
+   }
+
+   private static File getIndexFile(File logDirectory, LogProperties logProperties)
+   {
+      if (logProperties.getVariables().getCompressed())
+         return new File(logDirectory, logProperties.getVariables().getIndexAsString());
+      else
+         return new File(logDirectory, logProperties.getVariables().getDataAsString() + UNCOMPRESSED_INDEX_SUFFIX);
+   }
+
+   private static int readLogLineLength(File logDirectory, LogProperties logProperties) throws IOException
+   {
+      LogFormatUpdater.updateLogs(logDirectory, logProperties);
+
+      File handshake = new File(logDirectory, logProperties.getVariables().getHandshakeAsString());
+      if (!handshake.exists())
+      {
+         throw new IOException("Cannot find " + logProperties.getVariables().getHandshakeAsString());
+      }
+
+      DataInputStream handshakeStream = new DataInputStream(new FileInputStream(handshake));
+      byte[] handshakeData = new byte[(int) handshake.length()];
+      handshakeStream.readFully(handshakeData);
+      handshakeStream.close();
+
+      return YoVariableHandshakeParser.getNumberOfStateVariables(logProperties.getVariables().getHandshakeFileType(), handshakeData);
+   }
+
+   /**
+    * Writes the index of an uncompressed log, the timestamp is the first element of each line.
+    */
+   private static void generateUncompressedIndex(FileChannel dataChannel, File indexFile, int logLineSize) throws IOException
+   {
+      long numberOfTicks = dataChannel.size() / logLineSize;
+      ByteBuffer timestamp = ByteBuffer.allocate(8);
+
+      try (RandomAccessFile output = new RandomAccessFile(indexFile, "rw"))
+      {
+         output.setLength(numberOfTicks * INDEX_ENTRY_SIZE);
+         MappedByteBuffer outputBuffer = output.getChannel().map(MapMode.READ_WRITE, 0, numberOfTicks * INDEX_ENTRY_SIZE);
+
+         for (long tick = 0; tick < numberOfTicks; tick++)
+         {
+            long offset = tick * logLineSize;
+            timestamp.clear();
+            dataChannel.read(timestamp, offset);
+            outputBuffer.putLong(timestamp.getLong(0));
+            outputBuffer.putLong(offset);
+         }
+
+         outputBuffer.force();
+      }
+   }
+
+   private int getLogLineSize()
+   {
+      return logLineLength * 8;
+   }
+
+   public int getNumberOfTicks()
+   {
+      return numberOfTicks;
+   }
+
+   public int getLogLineLength()
+   {
+      return logLineLength;
+   }
+
+   public boolean isCompressed()
+   {
+      return compressed;
+   }
+
+   public long getTimestamp(int tick)
+   {
+      return index.get(2 * tick);
+   }
+
+   public long getInitialTimestamp()
+   {
+      return getTimestamp(0);
+   }
+
+   public long getFinalTimestamp()
+   {
+      return getTimestamp(numberOfTicks - 1);
+   }
+
+   private long getDataOffset(int tick)
+   {
+      return tick == numberOfTicks ? dataSize : index.get(2 * tick + 1);
+   }
+
+   /**
+    * Binary searches the index for the last tick recorded at or before the given timestamp.
+    *
+    * @param timestamp the timestamp to search for.
+    * @return the tick, or -1 if the log starts after {@code timestamp}.
+    */
+   public int getTickAtOrBefore(long timestamp)
+   {
+      int low = 0;
+      int high = numberOfTicks - 1;
+      int tick = -1;
+
+      while (low <= high)
+      {
+         int mid = (low + high) >>> 1;
+         if (getTimestamp(mid) <= timestamp)
+         {
+            tick = mid;
+            low = mid + 1;
+         }
+         else
+         {
+            high = mid - 1;
+         }
+      }
+
+      return tick;
+   }
+
+   /**
+    * Sets the number of ticks decompressed by a single task when processing the log in parallel.
+    */
+   public void setTicksPerTask(int ticksPerTask)
+   {
+      this.ticksPerTask = Math.max(1, ticksPerTask);
+   }
+
+   /**
+    * Creates a new reader for log lines, a reader must not be shared between threads.
+    */
+   public LogLineReader createLogLineReader()
+   {
+      return new LogLineReader();
+   }
+
+   /**
+    * Searches for the first tick in {@code [fromTick, toTick)} for which the given entry of the log
+    * line matches the condition. The log is decompressed in parallel.
+    *
+    * @param fromTick first tick to search, inclusive.
+    * @param toTick last tick to search, exclusive.
+    * @param lineIndex the index of the entry to test in the log line.
+    * @param condition the condition on the raw bits of the entry.
+    * @return the first matching tick or -1 if there is none.
+    */
+   public int findFirstTick(int fromTick, int toTick, int lineIndex, LongPredicate condition)
+   {
+      AtomicInteger firstTick = new AtomicInteger(Integer.MAX_VALUE);
+
+      processInParallel(fromTick, toTick, (reader, segmentStart, segmentEnd) ->
+      {
+         for (int tick = segmentStart; tick < segmentEnd; tick++)
+         {
+            if (tick >= firstTick.get())
+               return null; // An earlier segment already matched.
+
+            reader.read(tick);
+            if (condition.test(reader.get(lineIndex)))
+            {
+               firstTick.accumulateAndGet(tick, Math::min);
+               return null;
+            }
+         }
+         return null;
+      });
+
+      return firstTick.get() == Integer.MAX_VALUE ? -1 : firstTick.get();
+   }
+
+   /**
+    * Searches for the first tick after {@code tick} at which the given entry of the log line changes,
+    * for instance the transition of a state machine.
+    *
+    * @param tick the tick to start from.
+    * @param lineIndex the index of the entry in the log line.
+    * @return the first tick at which the entry differs from its value at {@code tick}, or -1 if it
+    *         does not change until the end of the log.
+    */
+   public int findNextChange(int tick, int lineIndex)
+   {
+      LogLineReader reader = createLogLineReader();
+      reader.read(tick);
+      long value = reader.get(lineIndex);
+      return findFirstTick(tick + 1, numberOfTicks, lineIndex, other -> other != value);
+   }
+
+   /**
+    * Extracts the raw bits of an entry of the log line for every tick in {@code [fromTick, toTick)}.
+    * The log is decompressed in parallel.
+    */
+   public long[] extractData(int fromTick, int toTick, int lineIndex)
+   {
+      long[] data = new long[Math.max(0, toTick - fromTick)];
+
+      processInParallel(fromTick, toTick, (reader, segmentStart, segmentEnd) ->
+      {
+         for (int tick = segmentStart; tick < segmentEnd; tick++)
+         {
+            reader.read(tick);
+            data[tick - fromTick] = reader.get(lineIndex);
+         }
+         return null;
+      });
+
+      return data;
+   }
+
+   /**
+    * Splits {@code [fromTick, toTick)} in independent segments and processes them in parallel.
+    *
+    * @return the results of the processor for each segment, in the order of the segments.
+    */
+   public <T> List<T> processInParallel(int fromTick, int toTick, LogSegmentProcessor<T> processor)
+   {
+      fromTick = Math.max(0, fromTick);
+      toTick = Math.min(numberOfTicks, toTick);
+
+      List<Future<T>> futures = new ArrayList<>();
+      ThreadLocal<LogLineReader> readers = ThreadLocal.withInitial(LogLineReader::new);
+
+      for (int segmentStart = fromTick; segmentStart < toTick; segmentStart += ticksPerTask)
+      {
+         int start = segmentStart;
+         int end = Math.min(toTick, segmentStart + ticksPerTask);
+         futures.add(getExecutor().submit(() -> processor.process(readers.get(), start, end)));
+      }
+
+      List<T> results = new ArrayList<>(futures.size());
+
+      try
+      {
+         for (Future<T> future : futures)
+            results.add(future.get());
+      }
+      catch (InterruptedException e)
+      {
+         futures.forEach(future -> future.cancel(true));
+         Thread.currentThread().interrupt();
+         throw new RuntimeException(e);
+      }
+      catch (ExecutionException e)
+      {
+         futures.forEach(future -> future.cancel(true));
+         throw new RuntimeException(e.getCause());
+      }
+
+      return results;
+   }
+
+   private synchronized ExecutorService getExecutor()
+   {
+      if (executor == null)
+      {
+         int numberOfThreads = Runtime.getRuntime().availableProcessors();
+         executor = Executors.newFixedThreadPool(numberOfThreads, ThreadTools.getNamedThreadFactory(getClass().getSimpleName()));
+      }
+      return executor;
+   }
+
+   @Override
+   public synchronized void close() throws IOException
+   {
+      if (executor != null)
+      {
+         executor.shutdownNow();
+         executor = null;
+      }
+
+      dataFile.close();
+      indexFile.close();
+   }
+
+   private int getSegmentIndex(int tick)
+   {
+      int low = 0;
+      int high = segmentFirstTicks.length - 1;
+
+      while (low < high)
+      {
+         int mid = (low + high + 1) >>> 1;
+         if (segmentFirstTicks[mid] <= tick)
+            low = mid;
+         else
+            high = mid - 1;
+      }
+
+      return low;
+   }
+
+   /**
+    * Processes a segment of the log, see {@link MemoryMappedYoVariableLogReader#processInParallel}.
+    */
+   public static interface LogSegmentProcessor<T>
+   {
+      /**
+       * @param reader the reader to use, owned by the calling thread.
+       * @param fromTick the first tick of the segment, inclusive.
+       * @param toTick the last tick of the segment, exclusive.
+       */
+      T process(LogLineReader reader, int fromTick, int toTick);
+   }
+
+   /**
+    * Decompresses single log lines. Not thread-safe, create one per thread.
+    */
+   public class LogLineReader
+   {
+      private final ByteBuffer[] segmentViews = new ByteBuffer[segments.length];
+      private final ByteBuffer compressedBuffer;
+      private final ByteBuffer logLine = ByteBuffer.allocate(getLogLineSize());
+      private final LongBuffer logLongArray = logLine.asLongBuffer();
+      private int currentTick = -1;
+
+      private LogLineReader()
+      {
+         for (int i = 0; i < segments.length; i++)
+            segmentViews[i] = segments[i].duplicate();
+
+         compressedBuffer = compressed ? ByteBuffer.allocate(SnappyUtils.maxCompressedLength(getLogLineSize())) : null;
+      }
+
+      /**
+       * Reads the log line of the given tick.
+       *
+       * @throws IndexOutOfBoundsException if the tick is not in the log.
+       */
+      public void read(int tick)
+      {
+         if (tick < 0 || tick >= numberOfTicks)
+            throw new IndexOutOfBoundsException("Tick " + tick + " is not in [0, " + numberOfTicks + "[");
+
+         if (tick == currentTick)
+            return;
+
+         int segmentIndex = getSegmentIndex(tick);
+         ByteBuffer segmentView = segmentViews[segmentIndex];
+         int start = (int) (getDataOffset(tick) - segmentOffsets[segmentIndex]);
+         int end = (int) (getDataOffset(tick + 1) - segmentOffsets[segmentIndex]);
+
+         logLine.clear();
+         logLongArray.clear();
+         segmentView.limit(end);
+         segmentView.position(start);
+
+         if (compressed)
+         {
+            compressedBuffer.clear();
+            compressedBuffer.put(segmentView);
+            compressedBuffer.flip();
+
+            try
+            {
+               SnappyUtils.uncompress(compressedBuffer, logLine);
+            }
+            catch (IOException e)
+            {
+               currentTick = -1;
+               throw new RuntimeException("Cannot decompress tick " + tick, e);
+            }
+         }
+         else
+         {
+            segmentView.limit(start + getLogLineSize());
+            logLine.put(segmentView);
+         }
+
+         currentTick = tick;
+      }
+
+      /**
+       * @return the raw bits of the entry of the last read log line.
+       */
+      public long get(int lineIndex)
+      {
+         return logLongArray.get(lineIndex);
+      }
+
+      public long getTimestamp()
+      {
+         return logLongArray.get(0);
+      }
+
+      /**
+       * @return the last read log line, its position and limit are reset on each read.
+       */
+      public LongBuffer getLogLine()
+      {
+         return logLongArray;
+      }
+
+      public int getCurrentTick()
+      {
+         return currentTick;
+      }
+   }
+}
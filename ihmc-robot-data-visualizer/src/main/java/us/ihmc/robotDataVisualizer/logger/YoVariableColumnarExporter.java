@@ -0,0 +1,371 @@
+package us.ihmc.robotDataVisualizer.logger;
+
+import java.io.BufferedOutputStream;
+import java.io.Closeable;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.util.ArrayList;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+
+import us.ihmc.robotDataLogger.LogProperties;
+import us.ihmc.robotDataVisualizer.logger.MemoryMappedYoVariableLogReader.LogLineReader;
+import us.ihmc.robotDataVisualizer.logger.util.ProgressMonitorInterface;
+import us.ihmc.tools.compression.SnappyUtils;
+import us.ihmc.yoVariables.variable.YoBoolean;
+import us.ihmc.yoVariables.variable.YoDouble;
+import us.ihmc.yoVariables.variable.YoEnum;
+import us.ihmc.yoVariables.variable.YoInteger;
+import us.ihmc.yoVariables.variable.YoLong;
+import us.ihmc.yoVariables.variable.YoVariable;
+
+/**
+ * Exports selected variables of a log to a columnar file while streaming through the log, such that
+ * the memory used does not depend on the length of the log.
+ * <p>
+ * The log is processed in chunks of rows. For each chunk, only the entries of the selected variables
+ * are read from the log lines and are stored per column with their own type, each column chunk is
+ * then compressed independently. The chunks are encoded in parallel, a bounded number of them at a
+ * time, and written in order.
+ * </p>
+ * <p>
+ * File layout, see {@link YoVariableColumnarReader} to read it back:
+ *
+ * <pre>
+ * int magic, int version, int numberOfColumns
+ * for each column: UTF name, byte type, if enum: int numberOfConstants, UTF constants
+ * for each chunk: int numberOfRows, for each column: int compressedSize, compressed bytes
+ * int 0, long numberOfRows
+ * </pre>
+ *
+ * The first column is the timestamp. {@code long} columns are delta-encoded within a chunk, which
+ * makes the timestamps compress to almost nothing.
+ * </p>
+ */
+public class YoVariableColumnarExporter implements Closeable
+{
+   public static final int MAGIC = 0x59434F4C; // "YCOL"
+   public static final int VERSION = 1;
+   public static final String TIMESTAMP_COLUMN = "timestamp";
+
+   /** Target size of the uncompressed data of a chunk, bounds the memory used per thread. */
+   private static final int TARGET_CHUNK_SIZE_IN_BYTES = 1 << 22;
+   private static final int MINIMUM_ROWS_PER_CHUNK = 256;
+
+   public enum ColumnType
+   {
+      DOUBLE(8), LONG(8), INTEGER(4), BOOLEAN(1), ENUM(4);
+
+      private final int sizeInBytes;
+
+      private ColumnType(int sizeInBytes)
+      {
+         this.sizeInBytes = sizeInBytes;
+      }
+
+      public int getSizeInBytes()
+      {
+         return sizeInBytes;
+      }
+
+      public static ColumnType fromVariable(YoVariable<?> variable)
+      {
+         if (variable instanceof YoDouble)
+            return DOUBLE;
+         else if (variable instanceof YoLong)
+            return LONG;
+         else if (variable instanceof YoInteger)
+            return INTEGER;
+         else if (variable instanceof YoBoolean)
+            return BOOLEAN;
+         else if (variable instanceof YoEnum<?>)
+            return ENUM;
+         else
+            throw new RuntimeException("Unknown YoVariable type " + variable.getClass().getSimpleName());
+      }
+   }
+
+   /** Index of each variable in the handshake, the entry of a variable in a log line is at index + 1. */
+   private final Map<YoVariable<?>, Integer> variableIndices;
+   private final MemoryMappedYoVariableLogReader logReader;
+   private int numberOfThreads = Runtime.getRuntime().availableProcessors();
+
+   /**
+    * @param logDirectory the directory of the log.
+    * @param logProperties the properties of the log.
+    * @param variables all the variables of the log, in the order of the handshake.
+    * @throws IOException if the log cannot be opened.
+    */
+   public YoVariableColumnarExporter(File logDirectory, LogProperties logProperties, List<YoVariable<?>> variables) throws IOException
+   {
+      this(new MemoryMappedYoVariableLogReader(logDirectory, logProperties), variables);
+   }
+
+   /**
+    * @param logReader the log to export, closed with this exporter.
+    * @param variables all the variables of the log, in the order of the handshake.
+    */
+   public YoVariableColumnarExporter(MemoryMappedYoVariableLogReader logReader, List<YoVariable<?>> variables)
+   {
+      this.logReader = logReader;
+
+      variableIndices = new IdentityHashMap<>(variables.size());
+      for (int i = 0; i < variables.size(); i++)
+         variableIndices.put(variables.get(i), i);
+   }
+
+   /**
+    * Sets the number of chunks encoded at the same time, the memory used is proportional to it.
+    */
+   public void setNumberOfThreads(int numberOfThreads)
+   {
+      this.numberOfThreads = Math.max(1, numberOfThreads);
+   }
+
+   /**
+    * Exports the given variables from {@code startTimestamp} to {@code endTimestamp}, both inclusive.
+    *
+    * @param file the file to write.
+    * @param startTimestamp the timestamp of the first row to export.
+    * @param endTimestamp the timestamp of the last row to export.
+    * @param selectedVariables the variables to export, each has to be in the variables of the log.
+    * @param monitor monitor to report the progress to, can be {@code null}.
+    * @return the number of exported rows.
+    * @throws IOException if the file cannot be written.
+    */
+   public long export(File file, long startTimestamp, long endTimestamp, List<YoVariable<?>> selectedVariables, ProgressMonitorInterface monitor)
+         throws IOException
+   {
+      int startTick = Math.max(0, logReader.getTickAtOrBefore(startTimestamp));
+      int endTick = logReader.getTickAtOrBefore(endTimestamp);
+      return exportTicks(file, startTick, endTick + 1, selectedVariables, monitor);
+   }
+
+   /**
+    * Exports the given variables for the ticks in {@code [fromTick, toTick)}.
+    *
+    * @param file the file to write.
+    * @param fromTick the index of the first tick to export, inclusive.
+    * @param toTick the index of the last tick to export, exclusive.
+    * @param selectedVariables the variables to export, each has to be in the variables of the log.
+    * @param monitor monitor to report the progress to, can be {@code null}.
+    * @return the number of exported rows.
+    * @throws IOException if the file cannot be written.
+    */
+   public long exportTicks(File file, int fromTick, int toTick, List<YoVariable<?>> selectedVariables, ProgressMonitorInterface monitor) throws IOException
+   {
+      fromTick = Math.max(0, fromTick);
+      toTick = Math.min(logReader.getNumberOfTicks(), toTick);
+
+      // Only the entries of the selected variables are read from the log lines.
+      int numberOfColumns = selectedVariables.size() + 1;
+      int[] lineIndices = new int[numberOfColumns];
+      ColumnType[] types = new ColumnType[numberOfColumns];
+      lineIndices[0] = 0;
+      types[0] = ColumnType.LONG;
+
+      for (int i = 0; i < selectedVariables.size(); i++)
+      {
+         YoVariable<?> variable = selectedVariables.get(i);
+         Integer index = variableIndices.get(variable);
+         if (index == null)
+            throw new IllegalArgumentException(variable.getFullNameWithNameSpace() + " is not a variable of the log.");
+         lineIndices[i + 1] = index + 1;
+         types[i + 1] = ColumnType.fromVariable(variable);
+      }
+
+      int rowSizeInBytes = 0;
+      for (ColumnType type : types)
+         rowSizeInBytes += type.getSizeInBytes();
+      int rowsPerChunk = Math.max(MINIMUM_ROWS_PER_CHUNK, TARGET_CHUNK_SIZE_IN_BYTES / rowSizeInBytes);
+
+      if (monitor != null)
+         monitor.initialize("Export columnar data", "Exporting " + selectedVariables.size() + " variables", fromTick, toTick);
+
+      long numberOfRows = 0;
+      ThreadLocal<ChunkEncoder> encoders = ThreadLocal.withInitial(() -> new ChunkEncoder(types, lineIndices, rowsPerChunk));
+      logReader.setTicksPerTask(rowsPerChunk);
+
+      try (DataOutputStream output = new DataOutputStream(new BufferedOutputStream(new FileOutputStream(file), 1 << 16)))
+      {
+         writeHeader(output, selectedVariables, types);
+
+         // A bounded number of chunks is in memory at any time.
+         int ticksPerBatch = rowsPerChunk * numberOfThreads;
+
+         for (int batchStart = fromTick; batchStart < toTick; batchStart += ticksPerBatch)
+         {
+            int batchEnd = Math.min(toTick, batchStart + ticksPerBatch);
+            List<EncodedChunk> chunks = logReader.processInParallel(batchStart, batchEnd,
+                                                                    (reader, start, end) -> encoders.get().encode(reader, start, end));
+
+            for (EncodedChunk chunk : chunks)
+            {
+               chunk.write(output);
+               numberOfRows += chunk.numberOfRows;
+            }
+
+            if (monitor != null)
+               monitor.setProgress(batchEnd);
+         }
+
+         output.writeInt(0);
+         output.writeLong(numberOfRows);
+      }
+      finally
+      {
+         if (monitor != null)
+            monitor.close();
+      }
+
+      return numberOfRows;
+   }
+
+   private static void writeHeader(DataOutputStream output, List<YoVariable<?>> selectedVariables, ColumnType[] types) throws IOException
+   {
+      output.writeInt(MAGIC);
+      output.writeInt(VERSION);
+      output.writeInt(types.length);
+
+      output.writeUTF(TIMESTAMP_COLUMN);
+      output.writeByte(ColumnType.LONG.ordinal());
+
+      for (int i = 0; i < selectedVariables.size(); i++)
+      {
+         YoVariable<?> variable = selectedVariables.get(i);
+         output.writeUTF(variable.getFullNameWithNameSpace());
+         output.writeByte(types[i + 1].ordinal());
+
+         if (types[i + 1] == ColumnType.ENUM)
+         {
+            String[] constants = ((YoEnum<?>) variable).getEnumValuesAsString();
+            output.writeInt(constants.length);
+            for (String constant : constants)
+               output.writeUTF(constant);
+         }
+      }
+   }
+
+   @Override
+   public void close() throws IOException
+   {
+      logReader.close();
+   }
+
+   /**
+    * Buffers reused by a thread to encode chunks.
+    */
+   private static class ChunkEncoder
+   {
+      private final ColumnType[] types;
+      private final int[] lineIndices;
+      private final ByteBuffer[] columns;
+      private final ByteBuffer compressedColumn;
+
+      private ChunkEncoder(ColumnType[] types, int[] lineIndices, int rowsPerChunk)
+      {
+         this.types = types;
+         this.lineIndices = lineIndices;
+
+         columns = new ByteBuffer[types.length];
+         int maximumColumnSize = 0;
+         for (int i = 0; i < types.length; i++)
+         {
+            columns[i] = ByteBuffer.allocate(types[i].getSizeInBytes() * rowsPerChunk);
+            maximumColumnSize = Math.max(maximumColumnSize, columns[i].capacity());
+         }
+         compressedColumn = ByteBuffer.allocate(SnappyUtils.maxCompressedLength(maximumColumnSize));
+      }
+
+      private EncodedChunk encode(LogLineReader reader, int fromTick, int toTick)
+      {
+         long[] previousValues = new long[types.length];
+         for (ByteBuffer column : columns)
+            column.clear();
+
+         for (int tick = fromTick; tick < toTick; tick++)
+         {
+            reader.read(tick);
+
+            for (int i = 0; i < types.length; i++)
+            {
+               long entry = reader.get(lineIndices[i]);
+
+               switch (types[i])
+               {
+               case DOUBLE:
+                  columns[i].putLong(entry);
+                  break;
+               case LONG:
+                  columns[i].putLong(entry - previousValues[i]);
+                  previousValues[i] = entry;
+                  break;
+               case INTEGER:
+               case ENUM:
+                  columns[i].putInt((int) entry);
+                  break;
+               case BOOLEAN:
+                  columns[i].put((byte) (entry == 0L ? 0 : 1));
+                  break;
+               default:
+                  throw new IllegalStateException("Unexpected column type " + types[i]);
+               }
+            }
+         }
+
+         byte[][] compressedColumns = new byte[types.length][];
+
+         for (int i = 0; i < types.length; i++)
+         {
+            columns[i].flip();
+            compressedColumn.clear();
+
+            try
+            {
+               compress(columns[i], compressedColumn);
+            }
+            catch (IOException e)
+            {
+               throw new RuntimeException(e);
+            }
+
+            compressedColumn.flip();
+            compressedColumns[i] = new byte[compressedColumn.remaining()];
+            compressedColumn.get(compressedColumns[i]);
+         }
+
+         return new EncodedChunk(toTick - fromTick, compressedColumns);
+      }
+
+      private static void compress(ByteBuffer uncompressed, ByteBuffer compressed) throws IOException
+      {
+         SnappyUtils.compress(uncompressed, compressed);
+      }
+   }
+
+   private static class EncodedChunk
+   {
+      private final int numberOfRows;
+      private final byte[][] compressedColumns;
+
+      private EncodedChunk(int numberOfRows, byte[][] compressedColumns)
+      {
+         this.numberOfRows = numberOfRows;
+         this.compressedColumns = compressedColumns;
+      }
+
+      private void write(DataOutputStream output) throws IOException
+      {
+         output.writeInt(numberOfRows);
+         for (byte[] compressedColumn : compressedColumns)
+         {
+            output.writeInt(compressedColumn.length);
+            output.write(compressedColumn);
+         }
+      }
+   }
+}
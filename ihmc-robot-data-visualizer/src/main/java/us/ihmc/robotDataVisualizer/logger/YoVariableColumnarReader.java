@@ -0,0 +1,214 @@
+package us.ihmc.robotDataVisualizer.logger;
+
+import java.io.Closeable;
+import java.io.File;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.ByteBuffer;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+import us.ihmc.robotDataVisualizer.logger.YoVariableColumnarExporter.ColumnType;
+import us.ihmc.tools.compression.SnappyUtils;
+
+/**
+ * Reads back the files written by {@link YoVariableColumnarExporter}.
+ * <p>
+ * The positions of the column chunks are read when opening the file such that reading a column only
+ * reads and decompresses the chunks of that column.
+ * </p>
+ */
+public class YoVariableColumnarReader implements Closeable
+{
+   private final RandomAccessFile file;
+   private final List<String> columnNames = new ArrayList<>();
+   private final List<ColumnType> columnTypes = new ArrayList<>();
+   private final List<String[]> enumConstants = new ArrayList<>();
+
+   private final int[] rowsPerChunk;
+   /** Offset in the file of each column chunk, indexed by chunk then column. */
+   private final long[][] columnChunkOffsets;
+   private final int[][] columnChunkSizes;
+   private final long numberOfRows;
+
+   public YoVariableColumnarReader(File file) throws IOException
+   {
+      this.file = new RandomAccessFile(file, "r");
+
+      try
+      {
+         if (this.file.readInt() != YoVariableColumnarExporter.MAGIC)
+            throw new IOException(file + " is not a columnar YoVariable file.");
+         int version = this.file.readInt();
+         if (version != YoVariableColumnarExporter.VERSION)
+            throw new IOException("Unsupported version " + version + " of " + file);
+
+         int numberOfColumns = this.file.readInt();
+
+         for (int i = 0; i < numberOfColumns; i++)
+         {
+            columnNames.add(this.file.readUTF());
+            ColumnType type = ColumnType.values()[this.file.readByte()];
+            columnTypes.add(type);
+
+            if (type == ColumnType.ENUM)
+            {
+               String[] constants = new String[this.file.readInt()];
+               for (int j = 0; j < constants.length; j++)
+                  constants[j] = this.file.readUTF();
+               enumConstants.add(constants);
+            }
+            else
+            {
+               enumConstants.add(null);
+            }
+         }
+
+         List<Integer> rowsPerChunkList = new ArrayList<>();
+         List<long[]> offsetList = new ArrayList<>();
+         List<int[]> sizeList = new ArrayList<>();
+         long rows = 0;
+         int rowsInChunk;
+
+         while ((rowsInChunk = this.file.readInt()) != 0)
+         {
+            long[] offsets = new long[numberOfColumns];
+            int[] sizes = new int[numberOfColumns];
+
+            for (int column = 0; column < numberOfColumns; column++)
+            {
+               sizes[column] = this.file.readInt();
+               offsets[column] = this.file.getFilePointer();
+               this.file.seek(offsets[column] + sizes[column]);
+            }
+
+            rowsPerChunkList.add(rowsInChunk);
+            offsetList.add(offsets);
+            sizeList.add(sizes);
+            rows += rowsInChunk;
+         }
+
+         numberOfRows = this.file.readLong();
+         if (rows != numberOfRows)
+            throw new IOException("Corrupted file " + file + ", expected " + numberOfRows + " rows, found " + rows);
+
+         rowsPerChunk = rowsPerChunkList.stream().mapToInt(Integer::intValue).toArray();
+         columnChunkOffsets = offsetList.toArray(new long[offsetList.size()][]);
+         columnChunkSizes = sizeList.toArray(new int[sizeList.size()][]);
+      }
+      catch (IOException | RuntimeException e)
+      {
+         this.file.close();
+         throw e;
+      }
+   }
+
+   public List<String> getColumnNames()
+   {
+      return Collections.unmodifiableList(columnNames);
+   }
+
+   public int getColumnIndex(String name)
+   {
+      return columnNames.indexOf(name);
+   }
+
+   public ColumnType getColumnType(int column)
+   {
+      return columnTypes.get(column);
+   }
+
+   /**
+    * @return the names of the constants of an enum column, or {@code null} for other columns.
+    */
+   public String[] getEnumConstants(int column)
+   {
+      return enumConstants.get(column);
+   }
+
+   public long getNumberOfRows()
+   {
+      return numberOfRows;
+   }
+
+   /**
+    * Reads a column as the raw values of the entries: the long bits of doubles, the value of longs and
+    * integers, the ordinal of enums and 0 or 1 for booleans.
+    */
+   public synchronized long[] readColumn(int column) throws IOException
+   {
+      if (numberOfRows > Integer.MAX_VALUE)
+         throw new IOException("The column is too large to be read in an array: " + numberOfRows + " rows.");
+
+      ColumnType type = columnTypes.get(column);
+      int maximumRowsPerChunk = 0;
+      for (int rows : rowsPerChunk)
+         maximumRowsPerChunk = Math.max(maximumRowsPerChunk, rows);
+
+      long[] values = new long[(int) numberOfRows];
+      ByteBuffer compressed = ByteBuffer.allocate(SnappyUtils.maxCompressedLength(maximumRowsPerChunk * type.getSizeInBytes()));
+      ByteBuffer uncompressed = ByteBuffer.allocate(maximumRowsPerChunk * type.getSizeInBytes());
+      int row = 0;
+
+      for (int chunk = 0; chunk < rowsPerChunk.length; chunk++)
+      {
+         int compressedSize = columnChunkSizes[chunk][column];
+         file.seek(columnChunkOffsets[chunk][column]);
+         file.readFully(compressed.array(), 0, compressedSize);
+
+         compressed.clear();
+         compressed.limit(compressedSize);
+         uncompressed.clear();
+         SnappyUtils.uncompress(compressed, uncompressed);
+         uncompressed.flip();
+
+         long previousValue = 0;
+         for (int i = 0; i < rowsPerChunk[chunk]; i++, row++)
+         {
+            switch (type)
+            {
+            case DOUBLE:
+               values[row] = uncompressed.getLong();
+               break;
+            case LONG:
+               previousValue += uncompressed.getLong();
+               values[row] = previousValue;
+               break;
+            case INTEGER:
+            case ENUM:
+               values[row] = uncompressed.getInt();
+               break;
+            case BOOLEAN:
+               values[row] = uncompressed.get();
+               break;
+            default:
+               throw new IllegalStateException("Unexpected column type " + type);
+            }
+         }
+      }
+
+      return values;
+   }
+
+   /**
+    * Reads a column converting the entries to {@code double}s.
+    */
+   public double[] readColumnAsDoubles(int column) throws IOException
+   {
+      long[] values = readColumn(column);
+      double[] doubles = new double[values.length];
+      boolean isDouble = columnTypes.get(column) == ColumnType.DOUBLE;
+
+      for (int i = 0; i < values.length; i++)
+         doubles[i] = isDouble ? Double.longBitsToDouble(values[i]) : values[i];
+
+      return doubles;
+   }
+
+   @Override
+   public void close() throws IOException
+   {
+      file.close();
+   }
+}
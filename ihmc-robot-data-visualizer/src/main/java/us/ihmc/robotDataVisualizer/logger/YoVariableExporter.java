@@ -29,14 +29,19 @@ public class YoVariableExporter extends YoVariableLogReader
    private final List<YoVariable<?>> variables;
    private final Map<String, YoVariable<?>> fullnameToVariableMap;
    private final Map<String, List<YoVariable<?>>> nameToVariablesMap = new HashMap<>();
+   /** Index of each variable in the handshake, the offset of its entry in a log line is the index + 1. */
+   private final Map<YoVariable<?>, Integer> variableIndices = new IdentityHashMap<>();
 
    public YoVariableExporter(SimulationConstructionSet scs, File logDirectory, LogProperties logProperties, List<YoVariable<?>> variables)
    {
       super(logDirectory, logProperties);
       this.variables = variables;
       fullnameToVariableMap = variables.stream().collect(Collectors.toMap(YoVariable::getFullNameWithNameSpace, Function.identity()));
-      for (YoVariable<?> variable : variables)
+      for (int i = 0; i < variables.size(); i++)
       {
+         YoVariable<?> variable = variables.get(i);
+         variableIndices.put(variable, i);
+
          String name = variable.getName();
          List<YoVariable<?>> variableList = nameToVariablesMap.get(name);
 
@@ -118,45 +123,53 @@ public class YoVariableExporter extends YoVariableLogReader
    {
       List<DataHolder<?>> dataHolders = new ArrayList<>();
 
-      if (vargroup == null)
+      for (YoVariable<?> variable : selectVariables(vargroup))
       {
-         for (int i = 0; i < variables.size(); i++)
-         {
-            dataHolders.add(createDataHolder(i + 1, elements, variables.get(i)));
-         }
+         Integer index = variableIndices.get(variable);
+         if (index == null)
+            throw new IllegalStateException("Should not get here");
+         int offset = index + 1;
+         dataHolders.add(createDataHolder(offset, elements, variable));
       }
+
+      if (dataHolders.isEmpty())
+         return null;
       else
-      {
-         for (String varname : vargroup.getVars())
-         {
-            List<YoVariable<?>> variableList = findVariable(varname);
+         return dataHolders;
+   }
 
-            if (variableList == null || variableList.isEmpty())
-            {
-               LogTools.warn("Could not find variable for " + varname);
-               continue;
-            }
+   /**
+    * Finds the variables of a var group, matching first the full names then the short names.
+    *
+    * @param vargroup the var group, {@code null} to select all the variables.
+    * @return the selected variables.
+    */
+   public List<YoVariable<?>> selectVariables(VarGroup vargroup)
+   {
+      if (vargroup == null)
+         return new ArrayList<>(variables);
 
-            if (variableList.size() > 1)
-            {
-               LogTools.info("Found multiple variables for " + varname);
-            }
+      List<YoVariable<?>> selectedVariables = new ArrayList<>();
 
-            for (YoVariable<?> variable : variableList)
-            {
-               int offset = variables.indexOf(variable);
-               if (offset == -1)
-                  throw new IllegalStateException("Should not get here");
-               offset++;
-               dataHolders.add(createDataHolder(offset, elements, variable));
-            }
+      for (String varname : vargroup.getVars())
+      {
+         List<YoVariable<?>> variableList = findVariable(varname);
+
+         if (variableList == null || variableList.isEmpty())
+         {
+            LogTools.warn("Could not find variable for " + varname);
+            continue;
          }
+
+         if (variableList.size() > 1)
+         {
+            LogTools.info("Found multiple variables for " + varname);
+         }
+
+         selectedVariables.addAll(variableList);
       }
 
-      if (dataHolders.isEmpty())
-         return null;
-      else
-         return dataHolders;
+      return selectedVariables;
    }
 
    private List<YoVariable<?>> findVariable(String varName)
@@ -5,6 +5,7 @@ import java.awt.event.ActionEvent;
 import java.awt.event.ActionListener;
 import java.io.File;
 import java.io.IOException;
+import java.util.List;
 
 import javax.swing.*;
 import javax.swing.event.ChangeEvent;
@@ -12,6 +13,8 @@ import javax.swing.event.ChangeListener;
 
 import us.ihmc.robotDataLogger.LogProperties;
 import us.ihmc.robotDataLogger.handshake.YoVariableHandshakeParser;
+import us.ihmc.robotDataVisualizer.logger.util.CustomProgressMonitor;
+import us.ihmc.robotDataVisualizer.logger.util.ProgressMonitorInterface;
 import us.ihmc.yoVariables.listener.VariableChangedListener;
 import us.ihmc.yoVariables.variable.YoInteger;
 import us.ihmc.yoVariables.variable.YoVariable;
@@ -26,6 +29,8 @@ import us.ihmc.simulationconstructionset.videos.VideoFileFilter;
 public class YoVariableLogVisualizerGUI extends JPanel
 {
    private static final long serialVersionUID = 6414551517161321596L;
+   private static final String MATLAB_FORMAT = "Matlab (.mat)";
+   private static final String COLUMNAR_FORMAT = "Columnar (.ycol)";
 
    private final MultiVideoDataPlayer multiPlayer;
    private final YoVariableLogPlaybackRobot robot;
@@ -38,6 +43,8 @@ public class YoVariableLogVisualizerGUI extends JPanel
    private boolean isSeeking = false;
 
    private final YoVariableExporter exporter;
+   private final LogProperties properties;
+   private final List<YoVariable<?>> variables;
 
    public YoVariableLogVisualizerGUI(File directory, LogProperties properties, MultiVideoDataPlayer player, YoVariableHandshakeParser parser,
                                      YoVariableLogPlaybackRobot robot, SimulationConstructionSet scs)
@@ -48,6 +55,8 @@ public class YoVariableLogVisualizerGUI extends JPanel
       this.robot = robot;
       this.scs = scs;
       this.directory = directory;
+      this.properties = properties;
+      this.variables = parser.getYoVariablesList();
 
       if (properties.getVariables().getCompressed())
       {
@@ -152,7 +161,7 @@ public class YoVariableLogVisualizerGUI extends JPanel
          return;
 
       JFrame jFrame = scs.getJFrame();
-      JDialog jDialog = new JDialog(jFrame, "Export Matlab Data");
+      JDialog jDialog = new JDialog(jFrame, "Export Data");
 
       Container contentPane = jDialog.getContentPane();
 
@@ -170,6 +179,12 @@ public class YoVariableLogVisualizerGUI extends JPanel
       optionsPanel.setLayout(new BoxLayout(optionsPanel, BoxLayout.LINE_AXIS));
       optionsPanel.add(varGroupJLabel);
       optionsPanel.add(varGroupComboBox);
+
+      JComboBox<String> formatComboBox = new JComboBox<String>(new String[] {MATLAB_FORMAT, COLUMNAR_FORMAT});
+      formatComboBox.setToolTipText("The columnar format is streamed to disk and suited to long logs.");
+      optionsPanel.add(Box.createRigidArea(new Dimension(10, 0)));
+      optionsPanel.add(new JLabel("Format:   "));
+      optionsPanel.add(formatComboBox);
       optionsPanel.setBorder(BorderFactory.createEmptyBorder(10, 10, 10, 10));
       contentPane.add(optionsPanel, BorderLayout.CENTER);
 
@@ -184,7 +199,10 @@ public class YoVariableLogVisualizerGUI extends JPanel
             varGroup = createVarGroupFromGraphs();
          else
             varGroup = scs.getVarGroupList().getVarGroup((String) varGroupComboBox.getSelectedItem());
-         exportMatlabData(start, end, varGroup);
+         if (COLUMNAR_FORMAT.equals(formatComboBox.getSelectedItem()))
+            exportColumnarData(start, end, varGroup);
+         else
+            exportMatlabData(start, end, varGroup);
       });
       JButton cancelButton = new JButton("Cancel");
       cancelButton.addActionListener(e -> jDialog.setVisible(false));
@@ -279,6 +297,50 @@ public class YoVariableLogVisualizerGUI extends JPanel
       }
    }
 
+   private void exportColumnarData(int start, int end, VarGroup varGroup)
+   {
+      if (start == -1 || end == -1)
+      {
+         return;
+      }
+      if (exporter != null)
+      {
+         final long startTimestamp = robot.getTimestamp(start);
+         final long endTimestamp = robot.getTimestamp(end);
+
+         new Thread("IHMC-LogVisualizerGUI")
+         {
+            @Override
+            public void run()
+            {
+               FileDialog fd = new FileDialog((Frame) null, "Select .ycol file to save to", FileDialog.SAVE);
+               fd.setFilenameFilter((dir, name) -> name.toLowerCase().endsWith(".ycol"));
+               fd.setFile("*.ycol");
+               fd.setVisible(true);
+               String filename = fd.getFile();
+
+               if (filename == null)
+               {
+                  System.out.println("No file selected, not exporting data.");
+                  return;
+               }
+
+               File file = new File(fd.getDirectory(), filename);
+               try (YoVariableColumnarExporter columnarExporter = new YoVariableColumnarExporter(directory, properties, variables))
+               {
+                  ProgressMonitorInterface monitor = new CustomProgressMonitor();
+                  columnarExporter.export(file, startTimestamp, endTimestamp, exporter.selectVariables(varGroup), monitor);
+               }
+               catch (IOException | SecurityException e)
+               {
+                  e.printStackTrace();
+                  JOptionPane.showMessageDialog(null, "Cannot export data: " + e.getMessage(), "Failure to export", JOptionPane.ERROR_MESSAGE);
+               }
+            }
+         }.start();
+      }
+   }
+
    private void crop(int start, int end)
    {
       if (start == -1 || end == -1)
@@ -453,7 +515,7 @@ public class YoVariableLogVisualizerGUI extends JPanel
          }
       });
 
-      final JButton exportData = new JButton("Export Matlab data");
+      final JButton exportData = new JButton("Export data");
       exportData.setToolTipText("Export variables that are graphed in the main window from the in point till the out point");
       exportData.addActionListener(event -> exportMatlabDataDialog(slider.getStart(), slider.getEnd()));
 
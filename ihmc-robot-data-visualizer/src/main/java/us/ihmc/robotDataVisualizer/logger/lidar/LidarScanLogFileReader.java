@@ -0,0 +1,371 @@
+package us.ihmc.robotDataVisualizer.logger.lidar;
+
+import java.io.BufferedInputStream;
+import java.io.Closeable;
+import java.io.DataInputStream;
+import java.io.EOFException;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+
+import controller_msgs.msg.dds.LidarScanMessage;
+import gnu.trove.list.array.TIntArrayList;
+import gnu.trove.list.array.TLongArrayList;
+import us.ihmc.log.LogTools;
+import us.ihmc.tools.compression.LZ4CompressionImplementation;
+
+/**
+ * Reads the lidar scan logs written by {@link LidarScanLogFileWriter}, and the uncompressed logs
+ * written before it.
+ * <p>
+ * For compressed logs, the index gives random access to the scans by number or by timestamp. If the
+ * index is missing or incomplete, for instance when the logger was killed, it is rebuilt from the
+ * data file. The last decompressed block is kept such that replaying the scans in order decompresses
+ * each block once.
+ * </p>
+ * <p>
+ * Uncompressed logs can only be read in order.
+ * </p>
+ */
+public class LidarScanLogFileReader implements Closeable
+{
+   private final boolean isIndexed;
+
+   // Compressed logs
+   private final RandomAccessFile dataFile;
+   private final FileChannel dataChannel;
+   private final TLongArrayList timestamps = new TLongArrayList();
+   private final TLongArrayList blockOffsets = new TLongArrayList();
+   private final TIntArrayList offsetsInBlock = new TIntArrayList();
+   private final LZ4CompressionImplementation decompressor = new LZ4CompressionImplementation();
+   private final ByteBuffer blockHeader = ByteBuffer.allocate(LidarScanLogFileWriter.BLOCK_HEADER_SIZE);
+   private ByteBuffer compressedBlock = ByteBuffer.allocate(0);
+   private ByteBuffer block = ByteBuffer.allocate(0);
+   private long currentBlockOffset = -1;
+   private int nextScanIndex = 0;
+
+   // Uncompressed logs
+   private final DataInputStream uncompressedInputStream;
+
+   public LidarScanLogFileReader(File logFile) throws IOException
+   {
+      isIndexed = hasCompressedFormat(logFile);
+
+      if (isIndexed)
+      {
+         dataFile = new RandomAccessFile(logFile, "r");
+         dataChannel = dataFile.getChannel();
+         uncompressedInputStream = null;
+
+         try
+         {
+            loadIndex(LidarScanLogFileWriter.getIndexFile(logFile));
+         }
+         catch (IOException | RuntimeException e)
+         {
+            dataFile.close();
+            throw e;
+         }
+      }
+      else
+      {
+         dataFile = null;
+         dataChannel = null;
+         uncompressedInputStream = new DataInputStream(new BufferedInputStream(new FileInputStream(logFile)));
+      }
+   }
+
+   private static boolean hasCompressedFormat(File logFile) throws IOException
+   {
+      if (logFile.length() < LidarScanLogFileWriter.FILE_HEADER_SIZE)
+         return false;
+
+      try (DataInputStream input = new DataInputStream(new FileInputStream(logFile)))
+      {
+         return input.readInt() == LidarScanLogFileWriter.MAGIC && input.readInt() == LidarScanLogFileWriter.VERSION;
+      }
+   }
+
+   private void loadIndex(File indexFile) throws IOException
+   {
+      long indexedDataEnd = LidarScanLogFileWriter.FILE_HEADER_SIZE;
+
+      if (indexFile.exists())
+      {
+         try (DataInputStream input = new DataInputStream(new BufferedInputStream(new FileInputStream(indexFile))))
+         {
+            long numberOfEntries = indexFile.length() / LidarScanLogFileWriter.INDEX_ENTRY_SIZE;
+
+            for (long i = 0; i < numberOfEntries; i++)
+            {
+               timestamps.add(input.readLong());
+               blockOffsets.add(input.readLong());
+               offsetsInBlock.add(input.readInt());
+            }
+         }
+
+         // The index is written after the block, only keep the entries of complete blocks.
+         if (!timestamps.isEmpty())
+         {
+            long lastBlockOffset = blockOffsets.get(blockOffsets.size() - 1);
+            readBlockHeader(lastBlockOffset);
+            int numberOfScansInLastBlock = blockHeader.getInt(8);
+            long lastBlockEnd = lastBlockOffset + LidarScanLogFileWriter.BLOCK_HEADER_SIZE + blockHeader.getInt(4);
+            int firstScanOfLastBlock = blockOffsets.indexOf(lastBlockOffset);
+
+            if (lastBlockEnd > dataChannel.size() || blockOffsets.size() - firstScanOfLastBlock != numberOfScansInLastBlock)
+            {
+               truncateIndex(firstScanOfLastBlock);
+               indexedDataEnd = lastBlockOffset;
+            }
+            else
+            {
+               indexedDataEnd = lastBlockEnd;
+            }
+         }
+      }
+
+      if (indexedDataEnd < dataChannel.size())
+      {
+         LogTools.info("Rebuilding the index of the lidar log from its data.");
+         indexBlocks(indexedDataEnd);
+      }
+   }
+
+   private void truncateIndex(int numberOfScans)
+   {
+      timestamps.remove(numberOfScans, timestamps.size() - numberOfScans);
+      blockOffsets.remove(numberOfScans, blockOffsets.size() - numberOfScans);
+      offsetsInBlock.remove(numberOfScans, offsetsInBlock.size() - numberOfScans);
+   }
+
+   private void indexBlocks(long blockOffset) throws IOException
+   {
+      while (blockOffset + LidarScanLogFileWriter.BLOCK_HEADER_SIZE <= dataChannel.size())
+      {
+         readBlockHeader(blockOffset);
+         int compressedSize = blockHeader.getInt(4);
+         if (blockOffset + LidarScanLogFileWriter.BLOCK_HEADER_SIZE + compressedSize > dataChannel.size())
+            break; // Incomplete block
+
+         loadBlock(blockOffset);
+         int numberOfScans = blockHeader.getInt(8);
+         block.position(0);
+
+         for (int i = 0; i < numberOfScans; i++)
+         {
+            timestamps.add(block.getLong(block.position()));
+            blockOffsets.add(blockOffset);
+            offsetsInBlock.add(block.position());
+            int scanLength = block.getInt(block.position() + 8 + 7 * 4);
+            block.position(block.position() + 8 + 8 * 4 + 4 * scanLength);
+         }
+
+         blockOffset += LidarScanLogFileWriter.BLOCK_HEADER_SIZE + compressedSize;
+      }
+   }
+
+   private void readBlockHeader(long blockOffset) throws IOException
+   {
+      blockHeader.clear();
+      while (blockHeader.hasRemaining())
+      {
+         if (dataChannel.read(blockHeader, blockOffset + blockHeader.position()) < 0)
+            throw new EOFException("Unexpected end of the lidar log.");
+      }
+   }
+
+   private void loadBlock(long blockOffset) throws IOException
+   {
+      if (blockOffset == currentBlockOffset)
+         return;
+
+      readBlockHeader(blockOffset);
+      int uncompressedSize = blockHeader.getInt(0);
+      int compressedSize = blockHeader.getInt(4);
+
+      if (compressedBlock.capacity() < compressedSize)
+         compressedBlock = ByteBuffer.allocate(compressedSize);
+      if (block.capacity() < uncompressedSize)
+         block = ByteBuffer.allocate(uncompressedSize);
+
+      compressedBlock.clear();
+      compressedBlock.limit(compressedSize);
+      long position = blockOffset + LidarScanLogFileWriter.BLOCK_HEADER_SIZE;
+      while (compressedBlock.hasRemaining())
+      {
+         if (dataChannel.read(compressedBlock, position + compressedBlock.position()) < 0)
+            throw new EOFException("Unexpected end of the lidar log.");
+      }
+      compressedBlock.flip();
+
+      block.clear();
+      currentBlockOffset = -1;
+      decompressor.decompress(compressedBlock, block, uncompressedSize);
+      block.clear();
+      block.limit(uncompressedSize);
+      currentBlockOffset = blockOffset;
+   }
+
+   /**
+    * @return whether the log is compressed and indexed, if not, it can only be read in order.
+    */
+   public boolean isIndexed()
+   {
+      return isIndexed;
+   }
+
+   /**
+    * @return the number of scans in an indexed log.
+    */
+   public int getNumberOfScans()
+   {
+      checkIndexed();
+      return timestamps.size();
+   }
+
+   public long getTimestamp(int scanIndex)
+   {
+      checkIndexed();
+      return timestamps.get(scanIndex);
+   }
+
+   /**
+    * @return the index of the last scan at or before {@code timestamp}, or -1 if the log starts after.
+    */
+   public int getScanIndex(long timestamp)
+   {
+      checkIndexed();
+      int low = 0;
+      int high = timestamps.size() - 1;
+      int scanIndex = -1;
+
+      while (low <= high)
+      {
+         int mid = (low + high) >>> 1;
+         if (timestamps.get(mid) <= timestamp)
+         {
+            scanIndex = mid;
+            low = mid + 1;
+         }
+         else
+         {
+            high = mid - 1;
+         }
+      }
+
+      return scanIndex;
+   }
+
+   /**
+    * Sets the next scan returned by {@link #readNext(LidarScanMessage)}.
+    */
+   public void seek(int scanIndex)
+   {
+      checkIndexed();
+      nextScanIndex = Math.max(0, Math.min(timestamps.size(), scanIndex));
+   }
+
+   /**
+    * Reads the next scan.
+    *
+    * @param lidarScanMessage the message to pack the scan in.
+    * @return {@code false} at the end of the log.
+    * @throws IOException if the log cannot be read.
+    */
+   public boolean readNext(LidarScanMessage lidarScanMessage) throws IOException
+   {
+      if (!isIndexed)
+         return readUncompressed(lidarScanMessage);
+
+      if (nextScanIndex >= timestamps.size())
+         return false;
+
+      read(nextScanIndex, lidarScanMessage);
+      nextScanIndex++;
+      return true;
+   }
+
+   /**
+    * Reads a scan of an indexed log.
+    */
+   public void read(int scanIndex, LidarScanMessage lidarScanMessage) throws IOException
+   {
+      checkIndexed();
+      loadBlock(blockOffsets.get(scanIndex));
+      block.position(offsetsInBlock.get(scanIndex));
+      readScan(block, lidarScanMessage);
+   }
+
+   private boolean readUncompressed(LidarScanMessage lidarScanMessage) throws IOException
+   {
+      try
+      {
+         lidarScanMessage.setRobotTimestamp(uncompressedInputStream.readLong());
+
+         lidarScanMessage.getLidarPosition().setX(uncompressedInputStream.readFloat());
+         lidarScanMessage.getLidarPosition().setY(uncompressedInputStream.readFloat());
+         lidarScanMessage.getLidarPosition().setZ(uncompressedInputStream.readFloat());
+
+         double x = uncompressedInputStream.readFloat();
+         double y = uncompressedInputStream.readFloat();
+         double z = uncompressedInputStream.readFloat();
+         double w = uncompressedInputStream.readFloat();
+         lidarScanMessage.getLidarOrientation().set(x, y, z, w);
+
+         int scanLength = uncompressedInputStream.readInt();
+         lidarScanMessage.getScan().resetQuick();
+
+         for (int i = 0; i < scanLength; i++)
+         {
+            lidarScanMessage.getScan().add(uncompressedInputStream.readFloat());
+         }
+         return true;
+      }
+      catch (EOFException e)
+      {
+         return false;
+      }
+   }
+
+   static void readScan(ByteBuffer buffer, LidarScanMessage lidarScanMessage)
+   {
+      lidarScanMessage.setRobotTimestamp(buffer.getLong());
+
+      lidarScanMessage.getLidarPosition().setX(buffer.getFloat());
+      lidarScanMessage.getLidarPosition().setY(buffer.getFloat());
+      lidarScanMessage.getLidarPosition().setZ(buffer.getFloat());
+
+      double x = buffer.getFloat();
+      double y = buffer.getFloat();
+      double z = buffer.getFloat();
+      double w = buffer.getFloat();
+      lidarScanMessage.getLidarOrientation().set(x, y, z, w);
+
+      int scanLength = buffer.getInt();
+      lidarScanMessage.getScan().resetQuick();
+
+      for (int i = 0; i < scanLength; i++)
+      {
+         lidarScanMessage.getScan().add(buffer.getFloat());
+      }
+   }
+
+   private void checkIndexed()
+   {
+      if (!isIndexed)
+         throw new UnsupportedOperationException("The uncompressed lidar logs can only be read in order.");
+   }
+
+   @Override
+   public void close() throws IOException
+   {
+      if (isIndexed)
+         dataFile.close();
+      else
+         uncompressedInputStream.close();
+   }
+}
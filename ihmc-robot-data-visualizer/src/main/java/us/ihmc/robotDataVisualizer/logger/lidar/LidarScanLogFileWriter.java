@@ -0,0 +1,410 @@
+package us.ihmc.robotDataVisualizer.logger.lidar;
+
+import java.io.Closeable;
+import java.io.File;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+
+import controller_msgs.msg.dds.LidarScanMessage;
+import gnu.trove.list.array.TIntArrayList;
+import gnu.trove.list.array.TLongArrayList;
+import us.ihmc.commons.thread.ThreadTools;
+import us.ihmc.log.LogTools;
+import us.ihmc.tools.compression.LZ4CompressionImplementation;
+
+/**
+ * Writes lidar scans to a log file without blocking the thread producing the scans.
+ * <p>
+ * The scans are serialized in a block of memory which, once full or old enough, is handed over to a
+ * background thread that compresses it with LZ4 and writes it to disk. Two blocks are used in turn,
+ * and if the background thread is still busy with the previous block when the current one is full,
+ * the current block grows instead of dropping scans or blocking the producer.
+ * </p>
+ * <p>
+ * Data file layout:
+ *
+ * <pre>
+ * int magic, int version
+ * for each block: int uncompressedSize, int compressedSize, int numberOfScans, compressed scans
+ * </pre>
+ *
+ * A scan is serialized as in the uncompressed log format: the timestamp, the lidar position and
+ * orientation, the number of scan values and the values. An index is written next to the data
+ * file, with the suffix {@link #INDEX_FILE_SUFFIX}, holding for each scan its timestamp, the offset
+ * of its block in the data file and its offset in the uncompressed block. See
+ * {@link LidarScanLogFileReader} to read the log.
+ * </p>
+ */
+public class LidarScanLogFileWriter implements Closeable
+{
+   static final int MAGIC = 0x4C534C34; // "LSL4"
+   static final int VERSION = 1;
+   static final int FILE_HEADER_SIZE = 8;
+   static final int BLOCK_HEADER_SIZE = 12;
+   static final int INDEX_ENTRY_SIZE = 20;
+   public static final String INDEX_FILE_SUFFIX = ".index";
+
+   private static final int DEFAULT_BLOCK_SIZE = 1 << 20;
+   private static final long DEFAULT_MAXIMUM_BLOCK_AGE = TimeUnit.MILLISECONDS.toNanos(500);
+
+   private final int blockSize;
+   private final long maximumBlockAge;
+
+   private final RandomAccessFile dataFile;
+   private final RandomAccessFile indexFile;
+   private final FileChannel dataChannel;
+   private final FileChannel indexChannel;
+
+   private final ExecutorService writerThread = Executors.newSingleThreadExecutor(ThreadTools.getNamedThreadFactory(getClass().getSimpleName()));
+   private final BlockingQueue<Block> freeBlocks = new ArrayBlockingQueue<>(2);
+   private Block currentBlock;
+   private boolean closed = false;
+   private volatile IOException writeError = null;
+
+   // Only accessed by the writer thread.
+   private final LZ4CompressionImplementation compressor = new LZ4CompressionImplementation();
+   private ByteBuffer compressedBuffer = ByteBuffer.allocate(0);
+   private ByteBuffer indexBuffer = ByteBuffer.allocate(0);
+   private final ByteBuffer blockHeader = ByteBuffer.allocate(BLOCK_HEADER_SIZE);
+
+   private long numberOfScans = 0;
+   private long numberOfBlocksGrown = 0;
+   private volatile long uncompressedSize = 0;
+   private volatile long compressedSize = 0;
+
+   public LidarScanLogFileWriter(File logFile) throws IOException
+   {
+      this(logFile, DEFAULT_BLOCK_SIZE, DEFAULT_MAXIMUM_BLOCK_AGE);
+   }
+
+   /**
+    * @param logFile the data file, the index is written next to it.
+    * @param blockSize the size in bytes of the uncompressed blocks.
+    * @param maximumBlockAge the maximum time in nanoseconds a scan stays in memory before its block is
+    *           written, such that a log is mostly complete if the process is killed.
+    * @throws IOException if the files cannot be created.
+    */
+   public LidarScanLogFileWriter(File logFile, int blockSize, long maximumBlockAge) throws IOException
+   {
+      this.blockSize = blockSize;
+      this.maximumBlockAge = maximumBlockAge;
+
+      dataFile = new RandomAccessFile(logFile, "rw");
+      dataFile.setLength(0);
+      indexFile = new RandomAccessFile(getIndexFile(logFile), "rw");
+      indexFile.setLength(0);
+      dataChannel = dataFile.getChannel();
+      indexChannel = indexFile.getChannel();
+
+      ByteBuffer fileHeader = ByteBuffer.allocate(FILE_HEADER_SIZE);
+      fileHeader.putInt(MAGIC);
+      fileHeader.putInt(VERSION);
+      fileHeader.flip();
+      dataChannel.write(fileHeader);
+
+      currentBlock = new Block(blockSize);
+      freeBlocks.add(new Block(blockSize));
+   }
+
+   public static File getIndexFile(File logFile)
+   {
+      return new File(logFile.getPath() + INDEX_FILE_SUFFIX);
+   }
+
+   /**
+    * Adds a scan to the log. Only serializes the scan, the compression and the disk access are done by
+    * a background thread.
+    *
+    * @param lidarScanMessage the scan to write.
+    * @return {@code false} if the writer is closed or failed to write to disk, {@code true} otherwise.
+    */
+   public synchronized boolean write(LidarScanMessage lidarScanMessage)
+   {
+      if (closed || writeError != null)
+         return false;
+
+      currentBlock.add(lidarScanMessage);
+      numberOfScans++;
+
+      if (currentBlock.size() >= blockSize || System.nanoTime() - currentBlock.creationTime >= maximumBlockAge)
+      {
+         Block nextBlock = freeBlocks.poll();
+
+         if (nextBlock != null)
+         {
+            submit(currentBlock);
+            currentBlock = nextBlock;
+            currentBlock.creationTime = System.nanoTime();
+         }
+         else if (currentBlock.size() >= blockSize && !currentBlock.hasGrown)
+         {
+            // The disk is slower than the producer, keep the scans in memory until the previous block is written.
+            currentBlock.hasGrown = true;
+            numberOfBlocksGrown++;
+         }
+      }
+
+      return true;
+   }
+
+   private void submit(Block block)
+   {
+      writerThread.execute(() ->
+      {
+         try
+         {
+            writeBlock(block);
+         }
+         catch (IOException | RuntimeException e)
+         {
+            LogTools.error("Failed to write lidar scans: " + e.getMessage());
+            writeError = e instanceof IOException ? (IOException) e : new IOException(e);
+         }
+         finally
+         {
+            block.clear();
+            freeBlocks.offer(block);
+         }
+      });
+   }
+
+   private void writeBlock(Block block) throws IOException
+   {
+      if (block.numberOfScans() == 0)
+         return;
+
+      ByteBuffer data = block.data;
+      int uncompressedBlockSize = data.position();
+      data.flip();
+
+      int maximumCompressedSize = uncompressedBlockSize + uncompressedBlockSize / 255 + 16;
+      if (compressedBuffer.capacity() < maximumCompressedSize)
+         compressedBuffer = ByteBuffer.allocate(maximumCompressedSize);
+      compressedBuffer.clear();
+      int compressedBlockSize = compressor.compress(data, compressedBuffer);
+      compressedBuffer.clear();
+      compressedBuffer.limit(compressedBlockSize);
+
+      long blockOffset = dataChannel.position();
+      blockHeader.clear();
+      blockHeader.putInt(uncompressedBlockSize);
+      blockHeader.putInt(compressedBlockSize);
+      blockHeader.putInt(block.numberOfScans());
+      blockHeader.flip();
+      writeFully(dataChannel, blockHeader);
+      writeFully(dataChannel, compressedBuffer);
+
+      int indexSize = INDEX_ENTRY_SIZE * block.numberOfScans();
+      if (indexBuffer.capacity() < indexSize)
+         indexBuffer = ByteBuffer.allocate(indexSize);
+      indexBuffer.clear();
+      for (int i = 0; i < block.numberOfScans(); i++)
+      {
+         indexBuffer.putLong(block.timestamps.get(i));
+         indexBuffer.putLong(blockOffset);
+         indexBuffer.putInt(block.offsets.get(i));
+      }
+      indexBuffer.flip();
+      writeFully(indexChannel, indexBuffer);
+
+      uncompressedSize += uncompressedBlockSize;
+      compressedSize += BLOCK_HEADER_SIZE + compressedBlockSize;
+   }
+
+   private static void writeFully(FileChannel channel, ByteBuffer buffer) throws IOException
+   {
+      while (buffer.hasRemaining())
+         channel.write(buffer);
+   }
+
+   /**
+    * Writes the scans in memory and waits for them to be on disk.
+    */
+   public void flush() throws IOException
+   {
+      Block nextBlock;
+
+      try
+      {
+         // Waiting for the free block guarantees that the previous block has been written.
+         nextBlock = freeBlocks.take();
+      }
+      catch (InterruptedException e)
+      {
+         Thread.currentThread().interrupt();
+         throw new IOException(e);
+      }
+
+      synchronized (this)
+      {
+         if (closed)
+         {
+            freeBlocks.offer(nextBlock);
+            return;
+         }
+
+         submit(currentBlock);
+         currentBlock = nextBlock;
+         currentBlock.creationTime = System.nanoTime();
+      }
+
+      try
+      {
+         freeBlocks.put(freeBlocks.take());
+      }
+      catch (InterruptedException e)
+      {
+         Thread.currentThread().interrupt();
+         throw new IOException(e);
+      }
+
+      if (writeError != null)
+         throw writeError;
+   }
+
+   /**
+    * Writes the remaining scans and closes the files.
+    */
+   @Override
+   public void close() throws IOException
+   {
+      synchronized (this)
+      {
+         if (closed)
+            return;
+         closed = true;
+         submit(currentBlock);
+         currentBlock = null;
+      }
+
+      writerThread.shutdown();
+
+      try
+      {
+         writerThread.awaitTermination(1, TimeUnit.MINUTES);
+      }
+      catch (InterruptedException e)
+      {
+         Thread.currentThread().interrupt();
+      }
+
+      dataChannel.force(false);
+      indexChannel.force(false);
+      dataFile.close();
+      indexFile.close();
+
+      if (writeError != null)
+         throw writeError;
+   }
+
+   /**
+    * @return the number of scans passed to {@link #write(LidarScanMessage)}.
+    */
+   public synchronized long getNumberOfScans()
+   {
+      return numberOfScans;
+   }
+
+   /**
+    * @return the number of times a block had to grow because the disk was slower than the producer.
+    */
+   public synchronized long getNumberOfBlocksGrown()
+   {
+      return numberOfBlocksGrown;
+   }
+
+   /**
+    * @return the ratio between the size of the written data and the size of the serialized scans.
+    */
+   public double getCompressionRatio()
+   {
+      return uncompressedSize == 0 ? 1.0 : (double) compressedSize / (double) uncompressedSize;
+   }
+
+   static void writeScan(LidarScanMessage lidarScanMessage, ByteBuffer buffer)
+   {
+      buffer.putLong(lidarScanMessage.getRobotTimestamp());
+
+      buffer.putFloat(lidarScanMessage.getLidarPosition().getX32());
+      buffer.putFloat(lidarScanMessage.getLidarPosition().getY32());
+      buffer.putFloat(lidarScanMessage.getLidarPosition().getZ32());
+
+      buffer.putFloat(lidarScanMessage.getLidarOrientation().getX32());
+      buffer.putFloat(lidarScanMessage.getLidarOrientation().getY32());
+      buffer.putFloat(lidarScanMessage.getLidarOrientation().getZ32());
+      buffer.putFloat(lidarScanMessage.getLidarOrientation().getS32());
+
+      int scanLength = lidarScanMessage.getScan().size();
+      buffer.putInt(scanLength);
+
+      for (int i = 0; i < scanLength; i++)
+         buffer.putFloat(lidarScanMessage.getScan().get(i));
+   }
+
+   static int getSerializedSize(LidarScanMessage lidarScanMessage)
+   {
+      return 8 + 7 * 4 + 4 + 4 * lidarScanMessage.getScan().size();
+   }
+
+   private static class Block
+   {
+      private ByteBuffer data;
+      private final TLongArrayList timestamps = new TLongArrayList();
+      private final TIntArrayList offsets = new TIntArrayList();
+      private long creationTime = System.nanoTime();
+      private boolean hasGrown = false;
+
+      private final int blockSize;
+
+      private Block(int blockSize)
+      {
+         this.blockSize = blockSize;
+         data = ByteBuffer.allocate(blockSize);
+      }
+
+      private void add(LidarScanMessage lidarScanMessage)
+      {
+         int scanSize = getSerializedSize(lidarScanMessage);
+
+         if (data.remaining() < scanSize)
+         {
+            ByteBuffer newData = ByteBuffer.allocate(Math.max(2 * data.capacity(), data.position() + scanSize));
+            data.flip();
+            newData.put(data);
+            data = newData;
+         }
+
+         timestamps.add(lidarScanMessage.getRobotTimestamp());
+         offsets.add(data.position());
+         writeScan(lidarScanMessage, data);
+      }
+
+      private int size()
+      {
+         return data.position();
+      }
+
+      private int numberOfScans()
+      {
+         return timestamps.size();
+      }
+
+      private void clear()
+      {
+         if (hasGrown)
+            data = ByteBuffer.allocate(blockSize);
+         else
+            data.clear();
+         timestamps.resetQuick();
+         offsets.resetQuick();
+         hasGrown = false;
+      }
+   }
+}
@@ -1,10 +1,6 @@
 package us.ihmc.robotDataVisualizer.logger.lidar;
 
-import java.io.DataInputStream;
-import java.io.EOFException;
 import java.io.File;
-import java.io.FileInputStream;
-import java.io.FileNotFoundException;
 import java.io.IOException;
 import java.util.concurrent.Executors;
 import java.util.concurrent.ScheduledExecutorService;
@@ -27,7 +23,7 @@ public class LidarScanLogReader
 {
    private static final boolean DEBUG = true;
 
-   private DataInputStream logDataInputStream = null;
+   private LidarScanLogFileReader logFileReader = null;
 
    private final String threadName = getClass().getSimpleName();
    private final ScheduledExecutorService executorService = Executors.newSingleThreadScheduledExecutor(ThreadTools.getNamedThreadFactory(threadName));
@@ -42,6 +38,7 @@ public class LidarScanLogReader
    private final AtomicBoolean reloadLog = new AtomicBoolean(false);
    private final AtomicBoolean waitForListener = new AtomicBoolean(false);
    private final AtomicReference<File> currentLogFileReference = new AtomicReference<>(null);
+   private final AtomicReference<Long> seekTimestamp = new AtomicReference<>(null);
 
    private final AtomicBoolean receivedLidarScanRequest = new AtomicBoolean(true);
 
@@ -110,6 +107,15 @@ public class LidarScanLogReader
       reloadLog.set(true);
    }
 
+   /**
+    * Resumes the replay from the last scan recorded at or before the given timestamp. Only supported
+    * by the compressed logs, which are indexed.
+    */
+   public void seek(long robotTimestamp)
+   {
+      seekTimestamp.set(robotTimestamp);
+   }
+
    public void waitForListener(boolean value)
    {
       waitForListener.set(value);
@@ -145,15 +151,14 @@ public class LidarScanLogReader
 
       try
       {
-         FileInputStream fileInputStream = new FileInputStream(logFile);
-         logDataInputStream = new DataInputStream(fileInputStream);
+         logFileReader = new LidarScanLogFileReader(logFile);
          loggingEnabled.set(true);
          LogTools.info("Reading lidar log: " + logFile.getPath());
       }
-      catch (FileNotFoundException e)
+      catch (IOException e)
       {
          e.printStackTrace();
-         logDataInputStream = null;
+         logFileReader = null;
          loggingEnabled.set(false);
       }
    }
@@ -169,18 +174,30 @@ public class LidarScanLogReader
       {
          if (reloadLog.get())
          {
-            closeDataInputStream();
+            closeLogFileReader();
             startReading(currentLogFileReference.get());
             reloadLog.set(false);
             return;
          }
 
-         if (pauseReading.get() || logDataInputStream == null)
+         if (logFileReader == null)
+            return;
+
+         Long timestamp = seekTimestamp.getAndSet(null);
+         if (timestamp != null)
+         {
+            if (logFileReader.isIndexed())
+               logFileReader.seek(Math.max(0, logFileReader.getScanIndex(timestamp)));
+            else
+               LogTools.error("Cannot seek in an uncompressed lidar log.");
+         }
+
+         if (pauseReading.get())
             return;
 
          if (!loggingEnabled.get())
          {
-            closeDataInputStream();
+            closeLogFileReader();
             return;
          }
 
@@ -202,61 +219,42 @@ public class LidarScanLogReader
 
    private LidarScanMessage readMessage()
    {
-      if (!loggingEnabled.get() || logDataInputStream == null)
+      if (!loggingEnabled.get() || logFileReader == null)
          return null;
 
       try
       {
          LidarScanMessage lidarScanMessage = new LidarScanMessage();
-         lidarScanMessage.setRobotTimestamp(logDataInputStream.readLong());
-
-         lidarScanMessage.getLidarPosition().setX(logDataInputStream.readFloat());
-         lidarScanMessage.getLidarPosition().setY(logDataInputStream.readFloat());
-         lidarScanMessage.getLidarPosition().setZ(logDataInputStream.readFloat());
-
-         double x = logDataInputStream.readFloat();
-         double y = logDataInputStream.readFloat();
-         double z = logDataInputStream.readFloat();
-         double w = logDataInputStream.readFloat();
-         lidarScanMessage.getLidarOrientation().set(x, y, z, w);
-
-         int scanLength = logDataInputStream.readInt();
+         if (logFileReader.readNext(lidarScanMessage))
+            return lidarScanMessage;
 
-         for (int i = 0; i < scanLength; i++)
-         {
-            lidarScanMessage.getScan().add(logDataInputStream.readFloat());
-         }
-         return lidarScanMessage;
-      }
-      catch (EOFException e)
-      {
-         closeDataInputStream();
+         closeLogFileReader();
          return null;
       }
       catch (IOException e)
       {
          if (DEBUG)
             e.printStackTrace();
-         closeDataInputStream();
+         closeLogFileReader();
          return null;
       }
    }
 
-   private void closeDataInputStream()
+   private void closeLogFileReader()
    {
       try
       {
-         if (logDataInputStream != null)
+         if (logFileReader != null)
          {
-            logDataInputStream.close();
-            logDataInputStream = null;
+            logFileReader.close();
+            logFileReader = null;
             LogTools.info("Finish loading.");
             loggingEnabled.set(false);
          }
       }
       catch (IOException e)
       {
-         throw new RuntimeException("Could not close the input stream", e);
+         throw new RuntimeException("Could not close the log file", e);
       }
    }
 }
@@ -1,9 +1,6 @@
 package us.ihmc.robotDataVisualizer.logger.lidar;
 
-import java.io.DataOutputStream;
 import java.io.File;
-import java.io.FileNotFoundException;
-import java.io.FileOutputStream;
 import java.io.IOException;
 import java.util.concurrent.Executors;
 import java.util.concurrent.ScheduledExecutorService;
@@ -22,9 +19,7 @@ import us.ihmc.ros2.Ros2Subscription;
 
 public class LidarScanLogWriter
 {
-   private static final boolean DEBUG = false;
-
-   private DataOutputStream logDataOutputStream = null;
+   private final AtomicReference<LidarScanLogFileWriter> logFileWriter = new AtomicReference<>(null);
 
    private final String threadName = getClass().getSimpleName();
    private final ScheduledExecutorService executorService = Executors.newSingleThreadScheduledExecutor(ThreadTools.getNamedThreadFactory(threadName));
@@ -106,15 +101,14 @@ public class LidarScanLogWriter
 
       try
       {
-         FileOutputStream fileOutputStream = new FileOutputStream(logFile);
-         logDataOutputStream = new DataOutputStream(fileOutputStream);
+         logFileWriter.set(new LidarScanLogFileWriter(logFile));
          loggingEnabled.set(true);
          LogTools.info("Recording lidar log: " + logFile.getPath());
       }
-      catch (FileNotFoundException e)
+      catch (IOException e)
       {
          e.printStackTrace();
-         logDataOutputStream = null;
+         logFileWriter.set(null);
          loggingEnabled.set(false);
       }
    }
@@ -122,6 +116,10 @@ public class LidarScanLogWriter
    public void stopWriting()
    {
       loggingEnabled.set(false);
+      LidarScanLogFileWriter writer = logFileWriter.getAndSet(null);
+      // Flushing the last scans to disk is done on the executor to not block the caller.
+      if (writer != null)
+         executorService.execute(() -> closeLogFileWriter(writer));
    }
 
    private void writeData()
@@ -131,69 +129,45 @@ public class LidarScanLogWriter
 
       LidarScanMessage lidarScanMessage = newMessage.getAndSet(null);
 
-      if (!loggingEnabled.get())
-         closeDataOutputStream();
-
       if (lidarScanMessage == null)
          return;
 
-      writeMessage(lidarScanMessage);
       lidarScanConsumer.receivedPacket(lidarScanMessage);
    }
 
-   private void closeDataOutputStream()
+   private void closeLogFileWriter(LidarScanLogFileWriter writer)
    {
       try
       {
-         if (logDataOutputStream != null)
-         {
-            logDataOutputStream.close();
-            logDataOutputStream = null;
-            LogTools.info("Finish recording.");
-         }
+         writer.close();
+         LogTools.info("Finish recording, " + writer.getNumberOfScans() + " scans.");
       }
       catch (IOException e)
       {
-         throw new RuntimeException("Could not close the output stream", e);
+         throw new RuntimeException("Could not close the log file", e);
       }
    }
 
    private void writeMessage(LidarScanMessage lidarScanMessage)
    {
-      if (!loggingEnabled.get() || logDataOutputStream == null)
-         return;
-
-      try
-      {
-         logDataOutputStream.writeLong(lidarScanMessage.getRobotTimestamp());
-
-         logDataOutputStream.writeFloat(lidarScanMessage.getLidarPosition().getX32());
-         logDataOutputStream.writeFloat(lidarScanMessage.getLidarPosition().getY32());
-         logDataOutputStream.writeFloat(lidarScanMessage.getLidarPosition().getZ32());
-
-         logDataOutputStream.writeFloat(lidarScanMessage.getLidarOrientation().getX32());
-         logDataOutputStream.writeFloat(lidarScanMessage.getLidarOrientation().getY32());
-         logDataOutputStream.writeFloat(lidarScanMessage.getLidarOrientation().getZ32());
-         logDataOutputStream.writeFloat(lidarScanMessage.getLidarOrientation().getS32());
+      LidarScanLogFileWriter writer = logFileWriter.get();
 
-         logDataOutputStream.writeInt(lidarScanMessage.getScan().size());
+      if (!loggingEnabled.get() || writer == null)
+         return;
 
-         for (float scanPoint : lidarScanMessage.getScan().toArray())
-         {
-            logDataOutputStream.writeFloat(scanPoint);
-         }
-      }
-      catch (IOException e)
+      // Only serializes the scan, the compression and disk access are done by the writer thread.
+      if (!writer.write(lidarScanMessage) && logFileWriter.compareAndSet(writer, null))
       {
-         if (DEBUG)
-            e.printStackTrace();
-         closeDataOutputStream();
+         LogTools.error("Could not write lidar scan, stopping the recording.");
          loggingEnabled.set(false);
+         executorService.execute(() -> closeLogFileWriter(writer));
       }
    }
 
    private void receiveLidarScanMessage(LidarScanMessage message)
    {
+      // Every scan is logged, only the newest one is forwarded to the consumer.
+      writeMessage(message);
       newMessage.set(message);
    }
 }
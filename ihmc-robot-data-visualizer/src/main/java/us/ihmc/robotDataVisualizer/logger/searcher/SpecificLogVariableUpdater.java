@@ -1,25 +1,21 @@
 package us.ihmc.robotDataVisualizer.logger.searcher;
 
 import java.io.File;
-import java.io.FileInputStream;
 import java.io.IOException;
-import java.nio.ByteBuffer;
-import java.nio.LongBuffer;
-import java.nio.channels.FileChannel;
 import java.util.HashMap;
 import java.util.List;
 import java.util.concurrent.atomic.AtomicInteger;
 
 import us.ihmc.commons.Conversions;
-import us.ihmc.robotDataLogger.LogIndex;
 import us.ihmc.robotDataLogger.jointState.JointState;
 import us.ihmc.robotDataLogger.logger.LogPropertiesReader;
+import us.ihmc.robotDataVisualizer.logger.MemoryMappedYoVariableLogReader;
+import us.ihmc.robotDataVisualizer.logger.MemoryMappedYoVariableLogReader.LogLineReader;
 import us.ihmc.yoVariables.registry.YoVariableRegistry;
 import us.ihmc.yoVariables.variable.YoDouble;
 import us.ihmc.yoVariables.variable.YoLong;
 import us.ihmc.yoVariables.variable.YoVariable;
 import us.ihmc.robotics.robotDescription.RobotDescription;
-import us.ihmc.tools.compression.SnappyUtils;
 
 public class SpecificLogVariableUpdater
 {
@@ -27,18 +23,12 @@ public class SpecificLogVariableUpdater
    private final YoLong timestamp = new YoLong("timestamp", registry);
    private final YoDouble robotTime = new YoDouble("robotTime", registry);
 
-   private final FileChannel logChannel;
    private final List<YoVariable<?>> variables;
 
-   // Compressed data helpers
-   private final boolean compressed;
-   private final LogIndex logIndex;
-   private final ByteBuffer compressedBuffer;
+   private final MemoryMappedYoVariableLogReader logReader;
+   private final LogLineReader logLineReader;
    private int index = 0;
 
-   private final ByteBuffer logLine;
-   private final LongBuffer logLongArray;
-
    private final long initialTimestamp;
 
    private YoVariable<?>[] variablesToUpdate;
@@ -58,175 +48,136 @@ public class SpecificLogVariableUpdater
 
       int jointStateOffset = variables.size();
       int numberOfJointStates = JointState.getNumberOfJointStates(jointStates);
-      int bufferSize = (1 + jointStateOffset + numberOfJointStates) * 8;
+      int logLineLength = 1 + jointStateOffset + numberOfJointStates;
 
       File logdata = new File(selectedFile, logProperties.getVariables().getDataAsString());
       if (!logdata.exists())
       {
          throw new RuntimeException("Cannot find " + logProperties.getVariables().getDataAsString());
       }
-      this.logChannel = new FileInputStream(logdata).getChannel();
 
-      this.compressed = logProperties.getVariables().getCompressed();
-      if (this.compressed)
+      File indexData;
+      if (logProperties.getVariables().getCompressed())
       {
-         File indexData = new File(selectedFile, logProperties.getVariables().getIndexAsString());
+         indexData = new File(selectedFile, logProperties.getVariables().getIndexAsString());
          if (!indexData.exists())
          {
             throw new RuntimeException("Cannot find " + logProperties.getVariables().getIndexAsString());
          }
-         logIndex = new LogIndex(indexData, logChannel.size());
-         compressedBuffer = ByteBuffer.allocate(SnappyUtils.maxCompressedLength(bufferSize));
       }
       else
       {
-         logIndex = null;
-         compressedBuffer = null;
+         // Generated on the first use and kept next to the log for the next runs.
+         indexData = new File(selectedFile, logProperties.getVariables().getDataAsString() + MemoryMappedYoVariableLogReader.UNCOMPRESSED_INDEX_SUFFIX);
       }
 
-      logLine = ByteBuffer.allocate(bufferSize);
-      logLongArray = logLine.asLongBuffer();
+      logReader = new MemoryMappedYoVariableLogReader(logdata, indexData, logProperties.getVariables().getCompressed(), logLineLength);
+      logLineReader = logReader.createLogLineReader();
+      initialTimestamp = logReader.getNumberOfTicks() > 0 ? logReader.getInitialTimestamp() : 0;
 
-      try
-      {
-      	if(this.compressed)
-      	{
-         	initialTimestamp = logIndex.getInitialTimestamp();
-         	positionChannel(0);
-         }
-         else
-         {
-         	readLogLine();
-         	initialTimestamp = logLine.getLong(0);
-         	positionChannel(0);
-         }
-      }
-      catch (IOException e)
-      {
-         throw new RuntimeException(e);
-      }
-      
       getIndexes();
    }
 
    public void getIndexes()
    {
-      timestamp.set(logLongArray.get());
-      int startPositoin = logLongArray.position();
-         
+      if (logReader.getNumberOfTicks() == 0)
+         return;
+
+      logLineReader.read(0);
+      timestamp.set(logLineReader.getTimestamp());
+
       for (int i = 0; i < variables.size(); i++)
       {
          YoVariable<?> variable = variables.get(i);
          if(indexes.containsKey(variable))
          {
-            indexes.get(variable).set(logLongArray.position());
+            indexes.get(variable).set(i + 1);
          }
-         variable.setValueFromLongBits(logLongArray.get(), true);
+         variable.setValueFromLongBits(logLineReader.get(i + 1), true);
       }
-      logLongArray.position(startPositoin);
    }
 
    public boolean readAndProcessALogLineReturnTrueIfDone(double DT)
    {
-      try
+      if (index >= logReader.getNumberOfTicks())
       {
-         if (!readLogLine())
-         {
-            return true;
-         }
+         return true;
+      }
 
-         timestamp.set(logLongArray.get());
-         robotTime.set(Conversions.nanosecondsToSeconds(timestamp.getLongValue() - initialTimestamp));
+      logLineReader.read(index);
+      ++index;
 
-         for (int i = 0; i < variablesToUpdate.length; i++)
-         {
-            YoVariable<?> variable = variablesToUpdate[i];
-            AtomicInteger position = indexes.get(variable);
-            
-            variable.setValueFromLongBits(logLongArray.get(position.get()), false);
-         }
-      }
-      catch (IOException e)
+      timestamp.set(logLineReader.getTimestamp());
+      robotTime.set(Conversions.nanosecondsToSeconds(timestamp.getLongValue() - initialTimestamp));
+
+      for (int i = 0; i < variablesToUpdate.length; i++)
       {
-         e.printStackTrace();
+         YoVariable<?> variable = variablesToUpdate[i];
+         AtomicInteger position = indexes.get(variable);
+
+         variable.setValueFromLongBits(logLineReader.get(position.get()), false);
       }
 
       return false;
    }
 
-   private void positionChannel(int position) throws IOException
+   /**
+    * Sets the next log line to be processed.
+    */
+   public void seek(int position)
    {
-      if (compressed)
-      {
-         index = position;
-         if(index < logIndex.dataOffsets.length)
-         {
-            logChannel.position(logIndex.dataOffsets[position]);
-         }
-      }
-      else
-      {
-         logChannel.position(((long)position) * ((long)logLine.capacity()));
-      }
+      index = Math.max(0, Math.min(logReader.getNumberOfTicks(), position));
    }
 
-   private boolean readLogLine() throws IOException
+   /**
+    * Sets the next log line to be processed to the last one recorded at or before the given timestamp.
+    */
+   public void seekToTimestamp(long timestamp)
    {
-      logLine.clear();
-      logLongArray.clear();
+      seek(Math.max(0, logReader.getTickAtOrBefore(timestamp)));
+   }
 
-      if (compressed)
+   /**
+    * Sets the next log line to be processed to the next change of the given variable, for instance a
+    * state machine transition. The log is searched in parallel.
+    *
+    * @param variable one of the variables to update.
+    * @return whether the variable changes before the end of the log, if not, the next log line is
+    *         the end of the log.
+    */
+   public boolean seekToNextChange(YoVariable<?> variable)
+   {
+      AtomicInteger position = indexes.get(variable);
+      if (position == null)
       {
-         if(index >= logIndex.getNumberOfEntries())
-         {
-            return false;
-         }
-         int size = logIndex.compressedSizes[index];
-         compressedBuffer.clear();
-         compressedBuffer.limit(size);
-
-         int read = logChannel.read(compressedBuffer);
-
-         if(read != size)
-         {
-            throw new RuntimeException("Expected read of " + size + ", got " + read + ". TODO: Implement loop for reading the full log line.");
-         }
-         compressedBuffer.flip();
-
-         SnappyUtils.uncompress(compressedBuffer, logLine);
-         ++index;
-
-         return true;
+         throw new IllegalArgumentException(variable.getName() + " is not updated from the log.");
       }
-      else
-      {
-         int read = logChannel.read(logLine);
-         if(read < 0)
-         {
-            return false;
-         }
-         else if (read != logLine.capacity())
-         {
-            throw new RuntimeException("Expected read of " + logLine.capacity() + ", got " + read + ". TODO: Implement loop for reading the full log line.");
-         }
-         else
-         {
-            return true;
-         }
 
-      }
+      int nextChange = logReader.findNextChange(Math.max(0, index - 1), position.get());
+      seek(nextChange == -1 ? logReader.getNumberOfTicks() : nextChange);
+      return nextChange != -1;
    }
-   
+
+   public long getTimestamp(int position)
+   {
+      return logReader.getTimestamp(position);
+   }
+
    public int getNumberOfEntries()
    {
-      return logIndex.getNumberOfEntries();
+      return logReader.getNumberOfTicks();
+   }
+
+   public MemoryMappedYoVariableLogReader getLogReader()
+   {
+      return logReader;
    }
 
    public void close()
    {
       try
       {
-         logChannel.close();
+         logReader.close();
       }
       catch (IOException e)
       {
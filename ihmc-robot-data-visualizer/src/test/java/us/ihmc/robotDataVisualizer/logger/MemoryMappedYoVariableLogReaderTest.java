@@ -0,0 +1,183 @@
+package us.ihmc.robotDataVisualizer.logger;
+
+import static us.ihmc.robotics.Assert.*;
+
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.util.List;
+
+import org.junit.jupiter.api.Test;
+
+import us.ihmc.robotDataVisualizer.logger.MemoryMappedYoVariableLogReader.LogLineReader;
+import us.ihmc.tools.compression.SnappyUtils;
+
+public class MemoryMappedYoVariableLogReaderTest
+{
+   private static final int LOG_LINE_LENGTH = 4;
+   private static final int STATE_LINE_INDEX = 2;
+   private static final long INITIAL_TIMESTAMP = 1000000000L;
+   private static final long DT = 1000000L;
+
+   @Test
+   public void testCompressedLog() throws IOException
+   {
+      File directory = Files.createTempDirectory("compressedLog").toFile();
+      File dataFile = new File(directory, "robotData.log");
+      File indexFile = new File(directory, "robotData.dat");
+      int numberOfTicks = 20000;
+      writeLog(dataFile, indexFile, numberOfTicks, true);
+
+      try (MemoryMappedYoVariableLogReader reader = new MemoryMappedYoVariableLogReader(dataFile, indexFile, true, LOG_LINE_LENGTH))
+      {
+         reader.setTicksPerTask(1000);
+         assertLogIsCorrect(reader, numberOfTicks);
+      }
+
+      deleteDirectory(directory);
+   }
+
+   @Test
+   public void testUncompressedLogIndexIsGeneratedOnce() throws IOException
+   {
+      File directory = Files.createTempDirectory("uncompressedLog").toFile();
+      File dataFile = new File(directory, "robotData.log");
+      File indexFile = new File(directory, "robotData.log" + MemoryMappedYoVariableLogReader.UNCOMPRESSED_INDEX_SUFFIX);
+      int numberOfTicks = 5000;
+      writeLog(dataFile, null, numberOfTicks, false);
+
+      try (MemoryMappedYoVariableLogReader reader = new MemoryMappedYoVariableLogReader(dataFile, indexFile, false, LOG_LINE_LENGTH))
+      {
+         assertTrue(indexFile.exists());
+         reader.setTicksPerTask(700);
+         assertLogIsCorrect(reader, numberOfTicks);
+      }
+
+      long lastModified = indexFile.lastModified();
+      try (MemoryMappedYoVariableLogReader reader = new MemoryMappedYoVariableLogReader(dataFile, indexFile, false, LOG_LINE_LENGTH))
+      {
+         assertEquals(lastModified, indexFile.lastModified());
+         assertLogIsCorrect(reader, numberOfTicks);
+      }
+
+      deleteDirectory(directory);
+   }
+
+   private static void assertLogIsCorrect(MemoryMappedYoVariableLogReader reader, int numberOfTicks)
+   {
+      assertEquals(numberOfTicks, reader.getNumberOfTicks());
+      assertEquals(INITIAL_TIMESTAMP, reader.getInitialTimestamp());
+      assertEquals(timestamp(numberOfTicks - 1), reader.getFinalTimestamp());
+
+      // Random access in both directions.
+      LogLineReader logLineReader = reader.createLogLineReader();
+      for (int tick = numberOfTicks - 1; tick >= 0; tick -= 7)
+      {
+         logLineReader.read(tick);
+         assertEquals(timestamp(tick), logLineReader.getTimestamp());
+         for (int i = 1; i < LOG_LINE_LENGTH; i++)
+            assertEquals(expectedValue(tick, i), logLineReader.get(i));
+      }
+
+      assertEquals(-1, reader.getTickAtOrBefore(INITIAL_TIMESTAMP - 1));
+      assertEquals(0, reader.getTickAtOrBefore(INITIAL_TIMESTAMP));
+      assertEquals(123, reader.getTickAtOrBefore(timestamp(123) + DT / 2));
+      assertEquals(numberOfTicks - 1, reader.getTickAtOrBefore(Long.MAX_VALUE));
+
+      // The state changes every 1500 ticks.
+      assertEquals(1500, reader.findNextChange(0, STATE_LINE_INDEX));
+      assertEquals(3000, reader.findNextChange(1500, STATE_LINE_INDEX));
+      int lastTransition = (numberOfTicks - 1) / 1500 * 1500;
+      assertEquals(-1, reader.findNextChange(lastTransition, STATE_LINE_INDEX));
+      assertEquals(77, reader.findFirstTick(0, numberOfTicks, 1, value -> value == expectedValue(77, 1)));
+
+      long[] data = reader.extractData(10, numberOfTicks, 3);
+      assertEquals(numberOfTicks - 10, data.length);
+      for (int i = 0; i < data.length; i++)
+         assertEquals(expectedValue(i + 10, 3), data[i]);
+
+      List<Long> sums = reader.processInParallel(0, numberOfTicks, (logLine, fromTick, toTick) ->
+      {
+         long sum = 0;
+         for (int tick = fromTick; tick < toTick; tick++)
+         {
+            logLine.read(tick);
+            sum += logLine.get(1);
+         }
+         return sum;
+      });
+      long sum = 0;
+      for (long segmentSum : sums)
+         sum += segmentSum;
+      assertEquals((long) numberOfTicks * (numberOfTicks - 1) / 2, sum);
+   }
+
+   private static long timestamp(int tick)
+   {
+      return INITIAL_TIMESTAMP + tick * DT;
+   }
+
+   private static long expectedValue(int tick, int lineIndex)
+   {
+      switch (lineIndex)
+      {
+      case 1:
+         return tick;
+      case STATE_LINE_INDEX:
+         return tick / 1500;
+      default:
+         return Double.doubleToLongBits(Math.sin(0.01 * tick));
+      }
+   }
+
+   private static void writeLog(File dataFile, File indexFile, int numberOfTicks, boolean compress) throws IOException
+   {
+      ByteBuffer logLine = ByteBuffer.allocate(LOG_LINE_LENGTH * 8);
+      ByteBuffer compressedLogLine = ByteBuffer.allocate(SnappyUtils.maxCompressedLength(logLine.capacity()));
+      ByteBuffer indexEntry = ByteBuffer.allocate(16);
+
+      try (FileChannel dataChannel = new FileOutputStream(dataFile).getChannel();
+            FileChannel indexChannel = indexFile == null ? null : new FileOutputStream(indexFile).getChannel())
+      {
+         for (int tick = 0; tick < numberOfTicks; tick++)
+         {
+            logLine.clear();
+            logLine.putLong(timestamp(tick));
+            for (int i = 1; i < LOG_LINE_LENGTH; i++)
+               logLine.putLong(expectedValue(tick, i));
+            logLine.flip();
+
+            if (indexChannel != null)
+            {
+               indexEntry.clear();
+               indexEntry.putLong(timestamp(tick));
+               indexEntry.putLong(dataChannel.position());
+               indexEntry.flip();
+               indexChannel.write(indexEntry);
+            }
+
+            if (compress)
+            {
+               compressedLogLine.clear();
+               SnappyUtils.compress(logLine, compressedLogLine);
+               compressedLogLine.flip();
+               dataChannel.write(compressedLogLine);
+            }
+            else
+            {
+               dataChannel.write(logLine);
+            }
+         }
+      }
+   }
+
+   private static void deleteDirectory(File directory)
+   {
+      for (File file : directory.listFiles())
+         file.delete();
+      directory.delete();
+   }
+}
@@ -0,0 +1,156 @@
+package us.ihmc.robotDataVisualizer.logger;
+
+import static us.ihmc.robotics.Assert.*;
+
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.util.ArrayList;
+import java.util.List;
+
+import org.junit.jupiter.api.Test;
+
+import us.ihmc.robotDataVisualizer.logger.YoVariableColumnarExporter.ColumnType;
+import us.ihmc.tools.compression.SnappyUtils;
+import us.ihmc.yoVariables.registry.YoVariableRegistry;
+import us.ihmc.yoVariables.variable.YoBoolean;
+import us.ihmc.yoVariables.variable.YoDouble;
+import us.ihmc.yoVariables.variable.YoEnum;
+import us.ihmc.yoVariables.variable.YoInteger;
+import us.ihmc.yoVariables.variable.YoLong;
+import us.ihmc.yoVariables.variable.YoVariable;
+
+public class YoVariableColumnarExporterTest
+{
+   private static final long INITIAL_TIMESTAMP = 1000000000L;
+   private static final long DT = 1000000L;
+
+   private enum TestState
+   {
+      STANDING, WALKING, FALLING
+   }
+
+   @Test
+   public void testExportSelectedVariables() throws IOException
+   {
+      YoVariableRegistry registry = new YoVariableRegistry("test");
+      List<YoVariable<?>> variables = new ArrayList<>();
+      variables.add(new YoDouble("doubleVariable", registry));
+      variables.add(new YoLong("longVariable", registry));
+      variables.add(new YoInteger("integerVariable", registry));
+      variables.add(new YoBoolean("booleanVariable", registry));
+      variables.add(new YoEnum<>("enumVariable", registry, TestState.class, true));
+      for (int i = 0; i < 5; i++)
+         variables.add(new YoDouble("otherVariable" + i, registry));
+
+      File directory = Files.createTempDirectory("columnarExport").toFile();
+      int numberOfTicks = 12345;
+      MemoryMappedYoVariableLogReader logReader = writeLog(directory, variables.size(), numberOfTicks);
+      File exportFile = new File(directory, "export.ycol");
+
+      List<YoVariable<?>> selectedVariables = variables.subList(0, 5);
+
+      try (YoVariableColumnarExporter exporter = new YoVariableColumnarExporter(logReader, variables))
+      {
+         exporter.setNumberOfThreads(3);
+         assertEquals((long) numberOfTicks, exporter.exportTicks(exportFile, 0, numberOfTicks, selectedVariables, null));
+      }
+
+      try (YoVariableColumnarReader reader = new YoVariableColumnarReader(exportFile))
+      {
+         assertEquals((long) numberOfTicks, reader.getNumberOfRows());
+         assertEquals(selectedVariables.size() + 1, reader.getColumnNames().size());
+         assertEquals(YoVariableColumnarExporter.TIMESTAMP_COLUMN, reader.getColumnNames().get(0));
+         assertEquals(ColumnType.LONG, reader.getColumnType(0));
+         assertEquals(ColumnType.DOUBLE, reader.getColumnType(1));
+         assertEquals(ColumnType.LONG, reader.getColumnType(2));
+         assertEquals(ColumnType.INTEGER, reader.getColumnType(3));
+         assertEquals(ColumnType.BOOLEAN, reader.getColumnType(4));
+         assertEquals(ColumnType.ENUM, reader.getColumnType(5));
+         assertEquals(TestState.values().length, reader.getEnumConstants(5).length);
+         assertEquals(TestState.WALKING.name(), reader.getEnumConstants(5)[1]);
+
+         long[] timestamps = reader.readColumn(0);
+         for (int tick = 0; tick < numberOfTicks; tick++)
+            assertEquals(INITIAL_TIMESTAMP + tick * DT, timestamps[tick]);
+
+         for (int column = 1; column <= selectedVariables.size(); column++)
+         {
+            assertEquals(selectedVariables.get(column - 1).getFullNameWithNameSpace(), reader.getColumnNames().get(column));
+            long[] values = reader.readColumn(column);
+            for (int tick = 0; tick < numberOfTicks; tick++)
+               assertEquals(expectedValue(tick, column), values[tick]);
+         }
+
+         double[] doubles = reader.readColumnAsDoubles(1);
+         assertEquals(Math.sin(0.001 * 42), doubles[42], 0.0);
+      }
+
+      deleteDirectory(directory);
+   }
+
+   private static long expectedValue(int tick, int lineIndex)
+   {
+      switch (lineIndex)
+      {
+      case 1:
+         return Double.doubleToLongBits(Math.sin(0.001 * tick));
+      case 2:
+         return 1000L * tick - 5000000L;
+      case 3:
+         return tick % 1000 - 500;
+      case 4:
+         return (tick / 100) % 2;
+      case 5:
+         return tick % 4000 < 100 ? -1 : (tick / 1000) % 3; // The enum is sometimes null.
+      default:
+         return Double.doubleToLongBits(lineIndex + 0.001 * tick);
+      }
+   }
+
+   static MemoryMappedYoVariableLogReader writeLog(File directory, int numberOfVariables, int numberOfTicks) throws IOException
+   {
+      File dataFile = new File(directory, "robotData.log");
+      File indexFile = new File(directory, "robotData.dat");
+      int logLineLength = numberOfVariables + 1;
+      ByteBuffer logLine = ByteBuffer.allocate(logLineLength * 8);
+      ByteBuffer compressedLogLine = ByteBuffer.allocate(SnappyUtils.maxCompressedLength(logLine.capacity()));
+      ByteBuffer indexEntry = ByteBuffer.allocate(16);
+
+      try (FileChannel dataChannel = new FileOutputStream(dataFile).getChannel(); FileChannel indexChannel = new FileOutputStream(indexFile).getChannel())
+      {
+         for (int tick = 0; tick < numberOfTicks; tick++)
+         {
+            long timestamp = INITIAL_TIMESTAMP + tick * DT;
+            logLine.clear();
+            logLine.putLong(timestamp);
+            for (int i = 1; i < logLineLength; i++)
+               logLine.putLong(expectedValue(tick, i));
+            logLine.flip();
+
+            indexEntry.clear();
+            indexEntry.putLong(timestamp);
+            indexEntry.putLong(dataChannel.position());
+            indexEntry.flip();
+            indexChannel.write(indexEntry);
+
+            compressedLogLine.clear();
+            SnappyUtils.compress(logLine, compressedLogLine);
+            compressedLogLine.flip();
+            dataChannel.write(compressedLogLine);
+         }
+      }
+
+      return new MemoryMappedYoVariableLogReader(dataFile, indexFile, true, logLineLength);
+   }
+
+   static void deleteDirectory(File directory)
+   {
+      for (File file : directory.listFiles())
+         file.delete();
+      directory.delete();
+   }
+}
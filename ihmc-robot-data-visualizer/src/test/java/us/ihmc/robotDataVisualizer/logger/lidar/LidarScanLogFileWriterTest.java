@@ -0,0 +1,222 @@
+package us.ihmc.robotDataVisualizer.logger.lidar;
+
+import static us.ihmc.robotics.Assert.*;
+
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.file.Files;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+import org.junit.jupiter.api.Test;
+
+import controller_msgs.msg.dds.LidarScanMessage;
+
+public class LidarScanLogFileWriterTest
+{
+   /** Scan size of a Multisense SL. */
+   static final int POINTS_PER_SCAN = 1081;
+   private static final long DT = TimeUnit.MILLISECONDS.toNanos(25);
+
+   @Test
+   public void testWriteAndReadIndexedLog() throws IOException
+   {
+      File directory = Files.createTempDirectory("lidarLog").toFile();
+      File logFile = new File(directory, "lidar.log");
+      Random random = new Random(5461L);
+      int numberOfScans = 500;
+      LidarScanMessage[] scans = new LidarScanMessage[numberOfScans];
+
+      // Small blocks such that the log spans many of them.
+      try (LidarScanLogFileWriter writer = new LidarScanLogFileWriter(logFile, 50000, Long.MAX_VALUE))
+      {
+         for (int i = 0; i < numberOfScans; i++)
+         {
+            scans[i] = nextLidarScanMessage(random, i * DT, 1 + random.nextInt(POINTS_PER_SCAN));
+            assertTrue(writer.write(scans[i]));
+         }
+
+         assertEquals((long) numberOfScans, writer.getNumberOfScans());
+      }
+
+      try (LidarScanLogFileReader reader = new LidarScanLogFileReader(logFile))
+      {
+         assertTrue(reader.isIndexed());
+         assertEquals(numberOfScans, reader.getNumberOfScans());
+         assertReadsInOrder(reader, scans, 0);
+
+         // Random access, going back and forth between blocks.
+         LidarScanMessage scan = new LidarScanMessage();
+         for (int i = 0; i < 100; i++)
+         {
+            int scanIndex = random.nextInt(numberOfScans);
+            reader.read(scanIndex, scan);
+            assertScanEquals(scans[scanIndex], scan);
+         }
+
+         assertEquals(-1, reader.getScanIndex(-1L));
+         assertEquals(123, reader.getScanIndex(123 * DT + DT / 2));
+         assertEquals(numberOfScans - 1, reader.getScanIndex(Long.MAX_VALUE));
+
+         reader.seek(reader.getScanIndex(321 * DT));
+         assertReadsInOrder(reader, scans, 321);
+      }
+
+      // A logger killed while writing leaves an incomplete index, which is rebuilt from the data.
+      File indexFile = LidarScanLogFileWriter.getIndexFile(logFile);
+      long truncatedIndexSize = indexFile.length() / 3 + 7;
+      try (RandomAccessFile index = new RandomAccessFile(indexFile, "rw"))
+      {
+         index.setLength(truncatedIndexSize);
+      }
+
+      try (LidarScanLogFileReader reader = new LidarScanLogFileReader(logFile))
+      {
+         assertEquals(numberOfScans, reader.getNumberOfScans());
+         assertReadsInOrder(reader, scans, 0);
+      }
+
+      deleteDirectory(directory);
+   }
+
+   @Test
+   public void testReadUncompressedLog() throws IOException
+   {
+      File directory = Files.createTempDirectory("lidarLog").toFile();
+      File logFile = new File(directory, "lidar.log");
+      Random random = new Random(2367L);
+      LidarScanMessage[] scans = new LidarScanMessage[50];
+
+      // Format written by the LidarScanLogWriter before the logs were compressed.
+      try (DataOutputStream output = new DataOutputStream(new FileOutputStream(logFile)))
+      {
+         for (int i = 0; i < scans.length; i++)
+         {
+            scans[i] = nextLidarScanMessage(random, i * DT, 100);
+            output.writeLong(scans[i].getRobotTimestamp());
+            output.writeFloat(scans[i].getLidarPosition().getX32());
+            output.writeFloat(scans[i].getLidarPosition().getY32());
+            output.writeFloat(scans[i].getLidarPosition().getZ32());
+            output.writeFloat(scans[i].getLidarOrientation().getX32());
+            output.writeFloat(scans[i].getLidarOrientation().getY32());
+            output.writeFloat(scans[i].getLidarOrientation().getZ32());
+            output.writeFloat(scans[i].getLidarOrientation().getS32());
+            output.writeInt(scans[i].getScan().size());
+            for (int j = 0; j < scans[i].getScan().size(); j++)
+               output.writeFloat(scans[i].getScan().get(j));
+         }
+      }
+
+      try (LidarScanLogFileReader reader = new LidarScanLogFileReader(logFile))
+      {
+         assertFalse(reader.isIndexed());
+         assertReadsInOrder(reader, scans, 0);
+      }
+
+      deleteDirectory(directory);
+   }
+
+   @Test
+   public void testNoDropsWhenTheDiskIsSlowerThanTheProducer() throws IOException
+   {
+      File directory = Files.createTempDirectory("lidarLog").toFile();
+      File logFile = new File(directory, "lidar.log");
+      Random random = new Random(9872L);
+
+      LidarScanMessage[] scans = new LidarScanMessage[20];
+      for (int i = 0; i < scans.length; i++)
+         scans[i] = nextLidarScanMessage(random, 0, POINTS_PER_SCAN);
+
+      // Blocks of a few scans written back-to-back, whether the background thread keeps up or not no scan should be lost.
+      int numberOfScans = 2000;
+
+      try (LidarScanLogFileWriter writer = new LidarScanLogFileWriter(logFile, 1 << 15, Long.MAX_VALUE))
+      {
+         for (int i = 0; i < numberOfScans; i++)
+         {
+            LidarScanMessage scan = scans[i % scans.length];
+            scan.setRobotTimestamp(i * DT);
+            assertTrue(writer.write(scan));
+         }
+
+         writer.flush();
+         assertEquals((long) numberOfScans, writer.getNumberOfScans());
+         assertTrue(writer.getCompressionRatio() < 1.0);
+      }
+
+      try (LidarScanLogFileReader reader = new LidarScanLogFileReader(logFile))
+      {
+         assertEquals(numberOfScans, reader.getNumberOfScans());
+
+         LidarScanMessage scan = new LidarScanMessage();
+         for (int i = 0; i < numberOfScans; i++)
+         {
+            assertTrue(reader.readNext(scan));
+            assertScanEquals(scans[i % scans.length], scan, i * DT);
+         }
+         assertFalse(reader.readNext(scan));
+      }
+
+      deleteDirectory(directory);
+   }
+
+   private static void assertReadsInOrder(LidarScanLogFileReader reader, LidarScanMessage[] expectedScans, int firstScan) throws IOException
+   {
+      LidarScanMessage scan = new LidarScanMessage();
+
+      for (int i = firstScan; i < expectedScans.length; i++)
+      {
+         assertTrue(reader.readNext(scan));
+         assertScanEquals(expectedScans[i], scan);
+      }
+
+      assertFalse(reader.readNext(scan));
+   }
+
+   private static void assertScanEquals(LidarScanMessage expected, LidarScanMessage actual)
+   {
+      assertScanEquals(expected, actual, expected.getRobotTimestamp());
+   }
+
+   private static void assertScanEquals(LidarScanMessage expected, LidarScanMessage actual, long expectedTimestamp)
+   {
+      assertEquals(expectedTimestamp, actual.getRobotTimestamp());
+      assertTrue(expected.getLidarPosition().epsilonEquals(actual.getLidarPosition(), 1.0e-6));
+      assertTrue(expected.getLidarOrientation().epsilonEquals(actual.getLidarOrientation(), 1.0e-6));
+      assertEquals(expected.getScan().size(), actual.getScan().size());
+      for (int i = 0; i < expected.getScan().size(); i++)
+         assertEquals(expected.getScan().get(i), actual.getScan().get(i), 0.0);
+   }
+
+   static LidarScanMessage nextLidarScanMessage(Random random, long timestamp, int numberOfPoints)
+   {
+      LidarScanMessage message = new LidarScanMessage();
+      message.setRobotTimestamp(timestamp);
+      message.getLidarPosition().set((float) random.nextDouble(), (float) random.nextDouble(), (float) random.nextDouble());
+      message.getLidarOrientation().setYawPitchRoll(random.nextDouble(), 0.1 * random.nextDouble(), 0.1 * random.nextDouble());
+      message.getLidarOrientation().set(message.getLidarOrientation().getX32(), message.getLidarOrientation().getY32(),
+                                        message.getLidarOrientation().getZ32(), message.getLidarOrientation().getS32());
+
+      // Points on a wall a few meters away, quantized as a real sensor would.
+      for (int i = 0; i < numberOfPoints; i++)
+      {
+         double angle = -Math.PI / 2.0 + Math.PI * i / numberOfPoints;
+         double range = Math.round((3.0 + 0.01 * random.nextGaussian()) * 1000.0) / 1000.0;
+         message.getScan().add((float) (range * Math.cos(angle)));
+         message.getScan().add((float) (range * Math.sin(angle)));
+         message.getScan().add((float) (1.0 + 0.001 * random.nextInt(10)));
+      }
+
+      return message;
+   }
+
+   static void deleteDirectory(File directory)
+   {
+      for (File file : directory.listFiles())
+         file.delete();
+      directory.delete();
+   }
+}
@@ -0,0 +1,85 @@
+package us.ihmc.robotics.dataStructures;
+
+import java.util.Random;
+
+import us.ihmc.log.LogTools;
+
+/**
+ * Compares the insertion time, query time and memory footprint of the {@link LongHashHeightMap} and
+ * the {@link DoubleHashHeightMap} on a height map of a million cells.
+ */
+public class LongHashHeightMapBenchmark
+{
+   private static final double RESOLUTION = 0.1;
+
+   public static void main(String[] args)
+   {
+      int cellsPerSide = 1000; // A million cells.
+      int numberOfCells = cellsPerSide * cellsPerSide;
+      Random random = new Random(4569L);
+
+      float[] pointCloud = new float[3 * numberOfCells];
+      for (int i = 0; i < numberOfCells; i++)
+      {
+         pointCloud[3 * i] = (float) ((i / cellsPerSide) * RESOLUTION);
+         pointCloud[3 * i + 1] = (float) ((i % cellsPerSide) * RESOLUTION);
+         pointCloud[3 * i + 2] = random.nextFloat();
+      }
+
+      int numberOfQueries = 1000000;
+      double[] queries = new double[2 * numberOfQueries];
+      for (int i = 0; i < queries.length; i++)
+         queries[i] = (cellsPerSide - 1) * RESOLUTION * random.nextDouble();
+
+      for (int run = 0; run < 2; run++)
+      { // The first run is the warmup.
+         long memoryBefore = usedMemory();
+         long start = System.nanoTime();
+         DoubleHashHeightMap doubleHashHeightMap = new DoubleHashHeightMap(RESOLUTION);
+         for (int i = 0; i < numberOfCells; i++)
+            doubleHashHeightMap.addPoint(pointCloud[3 * i], pointCloud[3 * i + 1], pointCloud[3 * i + 2]);
+         long doubleHashInsertionTime = System.nanoTime() - start;
+         long doubleHashMemory = usedMemory() - memoryBefore;
+
+         start = System.nanoTime();
+         double doubleHashSum = 0.0;
+         for (int i = 0; i < numberOfQueries; i++)
+            doubleHashSum += doubleHashHeightMap.getHeightAtPoint(queries[2 * i], queries[2 * i + 1]);
+         long doubleHashQueryTime = System.nanoTime() - start;
+         doubleHashHeightMap = null;
+
+         memoryBefore = usedMemory();
+         start = System.nanoTime();
+         LongHashHeightMap longHashHeightMap = new LongHashHeightMap(RESOLUTION);
+         longHashHeightMap.addPoints(pointCloud, numberOfCells);
+         long longHashInsertionTime = System.nanoTime() - start;
+         long longHashMemory = usedMemory() - memoryBefore;
+
+         start = System.nanoTime();
+         double longHashSum = 0.0;
+         for (int i = 0; i < numberOfQueries; i++)
+            longHashSum += longHashHeightMap.getHeightAtPoint(queries[2 * i], queries[2 * i + 1]);
+         long longHashQueryTime = System.nanoTime() - start;
+
+         if (Math.abs(doubleHashSum - longHashSum) > 1.0e-6 * numberOfQueries)
+            throw new RuntimeException("The height maps disagree, sum of the queried heights: " + doubleHashSum + " vs " + longHashSum);
+
+         if (run == 1)
+         {
+            LogTools.info("Insertion of " + numberOfCells + " cells: DoubleHashHeightMap " + doubleHashInsertionTime / 1.0e6 + " ms, LongHashHeightMap "
+                  + longHashInsertionTime / 1.0e6 + " ms.");
+            LogTools.info("Query: DoubleHashHeightMap " + (double) doubleHashQueryTime / numberOfQueries + " ns, LongHashHeightMap "
+                  + (double) longHashQueryTime / numberOfQueries + " ns.");
+            LogTools.info("Memory: DoubleHashHeightMap " + doubleHashMemory / (1 << 20) + " MiB, LongHashHeightMap " + longHashMemory / (1 << 20) + " MiB.");
+         }
+      }
+   }
+
+   private static long usedMemory()
+   {
+      Runtime runtime = Runtime.getRuntime();
+      for (int i = 0; i < 3; i++)
+         System.gc();
+      return runtime.totalMemory() - runtime.freeMemory();
+   }
+}
@@ -0,0 +1,116 @@
+package us.ihmc.robotics.kinematics;
+
+import static us.ihmc.robotics.kinematics.ParallelRandomRestartInverseKinematicsCalculatorTest.*;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+import org.apache.commons.math3.stat.descriptive.SummaryStatistics;
+
+import us.ihmc.commons.Conversions;
+import us.ihmc.euclid.transform.RigidBodyTransform;
+import us.ihmc.log.LogTools;
+import us.ihmc.mecano.multiBodySystem.RevoluteJoint;
+import us.ihmc.mecano.tools.MultiBodySystemRandomTools.RandomFloatingRevoluteJointChain;
+import us.ihmc.robotics.screwTheory.GeometricJacobian;
+
+/**
+ * Compares the success rate and the time per solve of {@link RandomRestartInverseKinematicsCalculator}
+ * and {@link ParallelRandomRestartInverseKinematicsCalculator} for an increasing number of threads.
+ */
+public class ParallelRandomRestartInverseKinematicsCalculatorBenchmark
+{
+   public static void main(String[] args)
+   {
+      int numberOfTargets = 200;
+      int maxIterations = 100;
+      int maximumNumberOfThreads = Math.max(2, Math.min(8, Runtime.getRuntime().availableProcessors()));
+
+      Random random = new Random(9834L);
+      RandomFloatingRevoluteJointChain arm = new RandomFloatingRevoluteJointChain(random, ARM_JOINT_AXES);
+      GeometricJacobian jacobian = createJacobian(arm);
+      List<RevoluteJoint> revoluteJoints = arm.getRevoluteJoints();
+
+      List<RigidBodyTransform> desiredTransforms = new ArrayList<>();
+      List<double[]> initialPositions = new ArrayList<>();
+      for (int i = 0; i < numberOfTargets; i++)
+      {
+         desiredTransforms.add(nextReachableTransform(random, jacobian, revoluteJoints));
+         setRandomPositions(random, revoluteJoints, 0.5 * Math.PI);
+         initialPositions.add(revoluteJoints.stream().mapToDouble(RevoluteJoint::getQ).toArray());
+      }
+
+      List<BenchmarkReport> reports = new ArrayList<>();
+
+      NumericalInverseKinematicsCalculator numericalCalculator = createNumericalCalculator(jacobian, maxIterations);
+      RandomRestartInverseKinematicsCalculator sequentialCalculator = new RandomRestartInverseKinematicsCalculator(MAX_RESTARTS, RESTART_TOLERANCE, jacobian,
+                                                                                                                   numericalCalculator);
+      reports.add(runBenchmark("sequential", sequentialCalculator, revoluteJoints, desiredTransforms, initialPositions));
+
+      for (int numberOfThreads = 1; numberOfThreads <= maximumNumberOfThreads; numberOfThreads *= 2)
+      {
+         ParallelRandomRestartInverseKinematicsCalculator calculator = createParallelCalculator(jacobian, maxIterations, numberOfThreads);
+         reports.add(runBenchmark(numberOfThreads + " thread(s)", calculator, revoluteJoints, desiredTransforms, initialPositions));
+         calculator.close();
+      }
+
+      for (BenchmarkReport report : reports)
+         LogTools.info(report.toString());
+   }
+
+   private static BenchmarkReport runBenchmark(String name, InverseKinematicsCalculator calculator, List<RevoluteJoint> revoluteJoints,
+                                               List<RigidBodyTransform> desiredTransforms, List<double[]> initialPositions)
+   {
+      // Warm-up
+      for (int i = 0; i < desiredTransforms.size(); i++)
+      {
+         setPositions(revoluteJoints, initialPositions.get(i));
+         calculator.solve(desiredTransforms.get(i));
+      }
+
+      BenchmarkReport report = new BenchmarkReport(name);
+
+      for (int i = 0; i < desiredTransforms.size(); i++)
+      {
+         setPositions(revoluteJoints, initialPositions.get(i));
+
+         long t0 = System.nanoTime();
+         boolean success = calculator.solve(desiredTransforms.get(i));
+         report.addSolve(success, Conversions.nanosecondsToSeconds(System.nanoTime() - t0));
+      }
+
+      return report;
+   }
+
+   private static class BenchmarkReport
+   {
+      private final String name;
+      private final SummaryStatistics timeStatistics = new SummaryStatistics();
+      private int numberOfSuccesses = 0;
+
+      public BenchmarkReport(String name)
+      {
+         this.name = name;
+      }
+
+      public void addSolve(boolean success, double solveTime)
+      {
+         if (success)
+            numberOfSuccesses++;
+         timeStatistics.addValue(solveTime);
+      }
+
+      public double getSuccessRate()
+      {
+         return (double) numberOfSuccesses / timeStatistics.getN();
+      }
+
+      @Override
+      public String toString()
+      {
+         return name + ": success rate " + getSuccessRate() + ", avg time per solve " + timeStatistics.getMean() + " [s], max time per solve "
+               + timeStatistics.getMax() + " [s]";
+      }
+   }
+}
@@ -0,0 +1,80 @@
+package us.ihmc.robotics.linearAlgebra.careSolvers;
+
+import org.ejml.data.DenseMatrix64F;
+
+import us.ihmc.log.LogTools;
+
+/**
+ * Times every CARE solver, with and without warm starting, on the CoM Riccati problem of the
+ * {@code LQRMomentumController} with one, two and three axes, while the VRP tracking weight is
+ * slowly varied.
+ */
+public class CARESolversBenchmark
+{
+   public static void main(String[] args)
+   {
+      int numberOfSolves = 500;
+
+      for (int axes = 1; axes <= 3; axes++)
+      {
+         int n = 2 * axes;
+         DenseMatrix64F A = new DenseMatrix64F(n, n);
+         DenseMatrix64F B = new DenseMatrix64F(n, axes);
+         DenseMatrix64F Q = new DenseMatrix64F(n, n);
+         DenseMatrix64F R = new DenseMatrix64F(axes, axes);
+
+         for (boolean useWarmStart : new boolean[] {false, true})
+         {
+            for (CARESolver solver : CARESolversTest.getSolvers())
+            {
+               if (useWarmStart && !(solver instanceof AbstractIterativeCARESolver))
+                  continue;
+               if (solver instanceof AbstractIterativeCARESolver)
+                  ((AbstractIterativeCARESolver) solver).setUseWarmStart(useWarmStart);
+
+               String name = getName(solver) + (useWarmStart ? " warm started" : "");
+
+               try
+               {
+                  long totalDuration = 0;
+                  int totalIterations = 0;
+                  double maximumResidual = 0.0;
+
+                  // the first half of the solves warms up the JIT and the solver storage
+                  for (int i = 0; i < 2 * numberOfSolves; i++)
+                  {
+                     CARESolversTest.packCoMDynamics(axes, 3.0, 1e2 * (1.0 + 0.01 * Math.sin(0.1 * i)), 1e-4, A, B, Q, R);
+
+                     long startTime = System.nanoTime();
+                     solver.setMatrices(A, B, null, Q, R);
+                     solver.computeP();
+                     long duration = System.nanoTime() - startTime;
+
+                     if (i >= numberOfSolves)
+                     {
+                        totalDuration += duration;
+                        totalIterations += solver.getNumberOfIterations();
+                        maximumResidual = Math.max(maximumResidual, solver.getResidual());
+                     }
+                  }
+
+                  LogTools.info(String.format("n = %d, %s: %.1f us/solve, %.1f iterations, max residual %.2e", n, name, 1.0e-3 * totalDuration / numberOfSolves,
+                                              (double) totalIterations / numberOfSolves, maximumResidual));
+               }
+               catch (IllegalArgumentException e)
+               {
+                  LogTools.info(String.format("n = %d, %s: not applicable, %s", n, name, e.getMessage()));
+               }
+            }
+         }
+      }
+   }
+
+   private static String getName(CARESolver solver)
+   {
+      if (solver instanceof AbstractIterativeCARESolver)
+         return solver.getClass().getSimpleName() + "(" + ((AbstractIterativeCARESolver) solver).backendSolver.getClass().getSimpleName() + ")";
+      else
+         return solver.getClass().getSimpleName();
+   }
+}
@@ -0,0 +1,89 @@
+package us.ihmc.robotics.quadTree;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.DoubleBinaryOperator;
+
+import us.ihmc.commons.Conversions;
+import us.ihmc.commons.RandomNumbers;
+import us.ihmc.euclid.tuple3D.Point3D;
+import us.ihmc.log.LogTools;
+
+/**
+ * Compares the insertion throughput of the synchronized {@link QuadTreeForGround} with the
+ * {@link ConcurrentQuadTreeForGround} while several threads are querying heights.
+ */
+public class ConcurrentQuadTreeForGroundBenchmark
+{
+   private static final Box BOUNDS = new Box(-10.0, -10.0, 10.0, 10.0);
+
+   public static void main(String[] args) throws InterruptedException
+   {
+      int numberOfReaders = Math.max(2, Runtime.getRuntime().availableProcessors() - 1);
+      int numberOfBatches = 100;
+      int batchSize = 2000;
+      Random random = new Random(4576L);
+      List<List<Point3D>> batches = new ArrayList<>();
+      for (int i = 0; i < numberOfBatches; i++)
+         batches.add(ConcurrentQuadTreeForGroundTest.generateRandomPoints(random, batchSize, new Box(-5.0, -5.0, 5.0, 5.0)));
+
+      QuadTreeForGroundParameters parameters = new QuadTreeForGroundParameters(0.03, 0.02, 0.2, 4, 0.2, 300000);
+
+      QuadTreeForGround synchronizedTree = new QuadTreeForGround(BOUNDS, parameters);
+      runBenchmark("synchronized", batches, numberOfReaders, () ->
+      {
+         for (List<Point3D> batch : batches)
+         {
+            for (Point3D point : batch)
+               synchronizedTree.put(point.getX(), point.getY(), point.getZ());
+         }
+      }, synchronizedTree::getHeightAtPoint);
+
+      ConcurrentQuadTreeForGround concurrentTree = new ConcurrentQuadTreeForGround(BOUNDS, parameters);
+      runBenchmark("snapshot", batches, numberOfReaders, () ->
+      {
+         for (List<Point3D> batch : batches)
+            concurrentTree.putBatch(batch);
+      }, (x, y) -> concurrentTree.getSnapshot().getHeightAtPoint(x, y));
+   }
+
+   private static void runBenchmark(String name, List<List<Point3D>> batches, int numberOfReaders, Runnable writer, DoubleBinaryOperator heightQuery)
+         throws InterruptedException
+   {
+      AtomicBoolean stop = new AtomicBoolean(false);
+      AtomicLong numberOfQueries = new AtomicLong();
+      List<Thread> readers = new ArrayList<>();
+
+      for (int i = 0; i < numberOfReaders; i++)
+      {
+         Random random = new Random(i);
+         Thread reader = new Thread(() ->
+         {
+            long count = 0;
+            while (!stop.get())
+            {
+               heightQuery.applyAsDouble(RandomNumbers.nextDouble(random, -5.0, 5.0), RandomNumbers.nextDouble(random, -5.0, 5.0));
+               count++;
+            }
+            numberOfQueries.addAndGet(count);
+         }, name + "Reader" + i);
+         reader.start();
+         readers.add(reader);
+      }
+
+      long startTime = System.nanoTime();
+      writer.run();
+      double writeDuration = Conversions.nanosecondsToSeconds(System.nanoTime() - startTime);
+
+      stop.set(true);
+      for (Thread reader : readers)
+         reader.join();
+
+      int numberOfPoints = batches.stream().mapToInt(List::size).sum();
+      LogTools.info(name + ": " + numberOfPoints / writeDuration + " inserts/s with " + numberOfReaders + " readers doing "
+            + numberOfQueries.get() / writeDuration + " queries/s");
+   }
+}
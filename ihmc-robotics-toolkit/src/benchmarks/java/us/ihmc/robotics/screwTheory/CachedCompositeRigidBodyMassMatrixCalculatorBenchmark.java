@@ -0,0 +1,88 @@
+package us.ihmc.robotics.screwTheory;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+import org.ejml.ops.MatrixFeatures;
+
+import us.ihmc.euclid.referenceFrame.ReferenceFrame;
+import us.ihmc.log.LogTools;
+import us.ihmc.mecano.algorithms.CompositeRigidBodyMassMatrixCalculator;
+import us.ihmc.mecano.multiBodySystem.RevoluteJoint;
+import us.ihmc.mecano.multiBodySystem.RigidBody;
+import us.ihmc.mecano.multiBodySystem.interfaces.RigidBodyBasics;
+import us.ihmc.mecano.tools.JointStateType;
+import us.ihmc.mecano.tools.MultiBodySystemRandomTools;
+import us.ihmc.robotics.screwTheory.CachedCompositeRigidBodyMassMatrixCalculatorTest.Humanoid;
+
+/**
+ * Times the mass matrix computation of a humanoid with the mecano calculator and the
+ * {@link CachedCompositeRigidBodyMassMatrixCalculator} with one, two and four threads, when the whole
+ * body, one arm or only the floating base moves.
+ */
+public class CachedCompositeRigidBodyMassMatrixCalculatorBenchmark
+{
+   private static final double EPSILON = 1.0e-10;
+
+   public static void main(String[] args)
+   {
+      Random random = new Random(2345L);
+      RigidBodyBasics elevator = new RigidBody("elevator", ReferenceFrame.getWorldFrame());
+      Humanoid humanoid = new Humanoid(random, elevator);
+      List<RevoluteJoint> armJoints = humanoid.revoluteJoints.subList(humanoid.revoluteJoints.size() - 7, humanoid.revoluteJoints.size());
+      int numberOfComputations = 20000;
+
+      DifferentialIDMassMatrixCalculator expectedCalculator = new DifferentialIDMassMatrixCalculator(ReferenceFrame.getWorldFrame(), elevator);
+      CompositeRigidBodyMassMatrixCalculator mecanoCalculator = new CompositeRigidBodyMassMatrixCalculator(elevator);
+      List<CachedCompositeRigidBodyMassMatrixCalculator> calculators = new ArrayList<>();
+      for (int numberOfThreads = 1; numberOfThreads <= 4; numberOfThreads *= 2)
+         calculators.add(new CachedCompositeRigidBodyMassMatrixCalculator(elevator, new KinematicTreeChangeTracker(elevator), numberOfThreads));
+
+      int numberOfDoFs = calculators.get(0).getMassMatrix().getNumRows();
+      LogTools.info("Mass matrix of a humanoid with " + numberOfDoFs + " DoFs, average time per computation in microseconds:");
+
+      for (String motion : new String[] {"whole body", "one arm", "floating base"})
+      {
+         long mecanoDuration = 0;
+         long[] durations = new long[calculators.size()];
+
+         for (int i = 0; i < numberOfComputations; i++)
+         {
+            if (motion.equals("whole body"))
+               MultiBodySystemRandomTools.nextState(random, JointStateType.CONFIGURATION, -Math.PI / 2.0, Math.PI / 2.0, humanoid.revoluteJoints);
+            else if (motion.equals("one arm"))
+               MultiBodySystemRandomTools.nextState(random, JointStateType.CONFIGURATION, -Math.PI / 2.0, Math.PI / 2.0, armJoints);
+            MultiBodySystemRandomTools.nextState(random, JointStateType.CONFIGURATION, humanoid.rootJoint);
+            elevator.updateFramesRecursively();
+
+            long startTime = System.nanoTime();
+            mecanoCalculator.reset();
+            mecanoCalculator.getMassMatrix();
+            mecanoDuration += System.nanoTime() - startTime;
+
+            for (int j = 0; j < calculators.size(); j++)
+            {
+               startTime = System.nanoTime();
+               calculators.get(j).compute();
+               durations[j] += System.nanoTime() - startTime;
+            }
+         }
+
+         StringBuilder result = new StringBuilder("Motion of the " + motion + ": mecano " + 1.0e-3 * mecanoDuration / numberOfComputations);
+         for (int j = 0; j < calculators.size(); j++)
+            result.append(", cached with " + calculators.get(j).getNumberOfThreads() + " thread(s) " + 1.0e-3 * durations[j] / numberOfComputations);
+         LogTools.info(result.toString());
+
+         expectedCalculator.compute();
+         for (int j = 0; j < calculators.size(); j++)
+         {
+            if (!MatrixFeatures.isEquals(expectedCalculator.getMassMatrix(), calculators.get(j).getMassMatrix(), EPSILON))
+               throw new RuntimeException("The mass matrix computed with " + calculators.get(j).getNumberOfThreads() + " thread(s) is wrong.");
+         }
+      }
+
+      for (CachedCompositeRigidBodyMassMatrixCalculator calculator : calculators)
+         calculator.close();
+   }
+}
@@ -0,0 +1,404 @@
+package us.ihmc.robotics.dataStructures;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import us.ihmc.euclid.tuple3D.Point3D;
+import us.ihmc.euclid.tuple3D.interfaces.Point3DReadOnly;
+import us.ihmc.robotics.geometry.InclusionFunction;
+
+/**
+ * Height map with the same behavior as {@link DoubleHashHeightMap} but which stores its cells in an
+ * open-addressing hash table of primitives.
+ * <p>
+ * Each cell is identified by a single {@code long} key that packs its x and y indices, and the
+ * heights are stored in a {@code double[]}, such that adding or querying a cell does not allocate
+ * and only requires a single hash lookup. The table uses linear probing, an empty slot is marked by
+ * a {@code NaN} height as only finite heights are stored.
+ * </p>
+ * <p>
+ * The map can optionally be restricted to a sliding window, see
+ * {@link #setSlidingWindow(double, double)}, in which case the points outside the window are
+ * ignored and the cells leaving the window when re-centering it are removed.
+ * </p>
+ * <p>
+ * All the methods are synchronized such that the map can be shared between a thread adding points
+ * and threads querying it.
+ * </p>
+ */
+public class LongHashHeightMap implements HeightMapWithPoints
+{
+   private static final int DEFAULT_INITIAL_CAPACITY = 1024;
+   private static final double MAXIMUM_LOAD_FACTOR = 0.5;
+
+   private final double gridSize;
+
+   private long[] keys;
+   private double[] heights;
+   private int mask;
+   private int size = 0;
+
+   /** Buffers used to rebuild the table when re-centering the sliding window, swapped with the current ones. */
+   private long[] spareKeys = new long[0];
+   private double[] spareHeights = new double[0];
+
+   private boolean useSlidingWindow = false;
+   private double windowXExtent, windowYExtent;
+   private int windowXIndexMin, windowXIndexMax, windowYIndexMin, windowYIndexMax;
+
+   public LongHashHeightMap(double gridSize)
+   {
+      this(gridSize, DEFAULT_INITIAL_CAPACITY);
+   }
+
+   /**
+    * @param gridSize the size of a cell.
+    * @param expectedNumberOfCells the number of cells the map should hold without growing.
+    */
+   public LongHashHeightMap(double gridSize, int expectedNumberOfCells)
+   {
+      this.gridSize = gridSize;
+      allocate(tableCapacityFor(expectedNumberOfCells));
+   }
+
+   private static int tableCapacityFor(int numberOfCells)
+   {
+      int capacity = Integer.highestOneBit(Math.max(16, (int) Math.ceil(numberOfCells / MAXIMUM_LOAD_FACTOR)) - 1) << 1;
+      if (capacity <= 0)
+         throw new IllegalArgumentException("Too many cells: " + numberOfCells);
+      return capacity;
+   }
+
+   private void allocate(int capacity)
+   {
+      keys = new long[capacity];
+      heights = new double[capacity];
+      Arrays.fill(heights, Double.NaN);
+      mask = capacity - 1;
+      size = 0;
+   }
+
+   /**
+    * Restricts this map to a window of the given size. The window is centered at the origin until
+    * {@link #recenter(double, double)} is called.
+    *
+    * @param xExtent the size of the window along the x-axis.
+    * @param yExtent the size of the window along the y-axis.
+    */
+   public synchronized void setSlidingWindow(double xExtent, double yExtent)
+   {
+      useSlidingWindow = true;
+      windowXExtent = xExtent;
+      windowYExtent = yExtent;
+      recenter(0.0, 0.0);
+   }
+
+   public synchronized void disableSlidingWindow()
+   {
+      useSlidingWindow = false;
+      spareKeys = new long[0];
+      spareHeights = new double[0];
+   }
+
+   /**
+    * Moves the sliding window such that it is centered at the given coordinates and removes the cells
+    * that are now outside of it.
+    *
+    * @throws IllegalStateException if the sliding window has not been enabled.
+    */
+   public synchronized void recenter(double xCenter, double yCenter)
+   {
+      if (!useSlidingWindow)
+         throw new IllegalStateException("The sliding window has not been enabled.");
+
+      windowXIndexMin = index(xCenter - 0.5 * windowXExtent);
+      windowXIndexMax = index(xCenter + 0.5 * windowXExtent);
+      windowYIndexMin = index(yCenter - 0.5 * windowYExtent);
+      windowYIndexMax = index(yCenter + 0.5 * windowYExtent);
+
+      rehash(keys.length);
+   }
+
+   private boolean isInsideWindow(int xIndex, int yIndex)
+   {
+      if (!useSlidingWindow)
+         return true;
+      return xIndex >= windowXIndexMin && xIndex <= windowXIndexMax && yIndex >= windowYIndexMin && yIndex <= windowYIndexMax;
+   }
+
+   @Override
+   public synchronized double getHeightAtPoint(double x, double y)
+   {
+      int slot = findSlot(key(index(x), index(y)));
+      return heights[slot];
+   }
+
+   @Override
+   public synchronized boolean containsPoint(double x, double y)
+   {
+      int slot = findSlot(key(index(x), index(y)));
+      return !Double.isNaN(heights[slot]);
+   }
+
+   @Override
+   public synchronized boolean addPoint(double x, double y, double z)
+   {
+      return addPoint(index(x), index(y), z);
+   }
+
+   /**
+    * Adds all the points of a point cloud, the height of a cell is the height of the last point
+    * falling in it.
+    *
+    * @param points the points to add.
+    * @return the number of points that were added.
+    */
+   public synchronized int addPoints(List<? extends Point3DReadOnly> points)
+   {
+      int numberOfPointsAdded = 0;
+
+      for (int i = 0; i < points.size(); i++)
+      {
+         Point3DReadOnly point = points.get(i);
+         if (addPoint(index(point.getX()), index(point.getY()), point.getZ()))
+            numberOfPointsAdded++;
+      }
+
+      return numberOfPointsAdded;
+   }
+
+   /**
+    * Adds all the points of a point cloud packed as {@code [x0, y0, z0, x1, y1, z1, ...]}, the height
+    * of a cell is the height of the last point falling in it.
+    *
+    * @param pointCloud the coordinates of the points.
+    * @param numberOfPoints the number of points to read from {@code pointCloud}.
+    * @return the number of points that were added.
+    */
+   public synchronized int addPoints(float[] pointCloud, int numberOfPoints)
+   {
+      int numberOfPointsAdded = 0;
+
+      for (int i = 0; i < numberOfPoints; i++)
+      {
+         int offset = 3 * i;
+         if (addPoint(index(pointCloud[offset]), index(pointCloud[offset + 1]), pointCloud[offset + 2]))
+            numberOfPointsAdded++;
+      }
+
+      return numberOfPointsAdded;
+   }
+
+   private boolean addPoint(int xIndex, int yIndex, double z)
+   {
+      if (!Double.isFinite(z) || !isInsideWindow(xIndex, yIndex))
+         return false;
+
+      long key = key(xIndex, yIndex);
+      int slot = findSlot(key);
+
+      if (Double.isNaN(heights[slot]))
+      {
+         if (size + 1 > MAXIMUM_LOAD_FACTOR * keys.length)
+         {
+            rehash(keys.length << 1);
+            slot = findSlot(key);
+         }
+
+         keys[slot] = key;
+         size++;
+      }
+
+      heights[slot] = z;
+      return true;
+   }
+
+   /**
+    * @return the slot holding the key, or the empty slot where it would be inserted.
+    */
+   private int findSlot(long key)
+   {
+      int slot = hash(key) & mask;
+
+      while (!Double.isNaN(heights[slot]) && keys[slot] != key)
+         slot = (slot + 1) & mask;
+
+      return slot;
+   }
+
+   /**
+    * Rebuilds the table with the given capacity, dropping the cells outside of the sliding window.
+    */
+   private void rehash(int capacity)
+   {
+      long[] oldKeys = keys;
+      double[] oldHeights = heights;
+
+      if (spareKeys.length == capacity)
+      {
+         keys = spareKeys;
+         heights = spareHeights;
+         Arrays.fill(heights, Double.NaN);
+         mask = capacity - 1;
+         size = 0;
+      }
+      else
+      {
+         allocate(capacity);
+      }
+
+      for (int i = 0; i < oldKeys.length; i++)
+      {
+         if (Double.isNaN(oldHeights[i]))
+            continue;
+
+         long key = oldKeys[i];
+         if (!isInsideWindow(xIndex(key), yIndex(key)))
+            continue;
+
+         int slot = findSlot(key);
+         keys[slot] = key;
+         heights[slot] = oldHeights[i];
+         size++;
+      }
+
+      if (useSlidingWindow && oldKeys.length == capacity)
+      {
+         spareKeys = oldKeys;
+         spareHeights = oldHeights;
+      }
+      else
+      {
+         spareKeys = new long[0];
+         spareHeights = new double[0];
+      }
+   }
+
+   @Override
+   public synchronized void clear()
+   {
+      Arrays.fill(heights, Double.NaN);
+      size = 0;
+   }
+
+   /**
+    * @return the number of cells holding a height.
+    */
+   public synchronized int size()
+   {
+      return size;
+   }
+
+   public double gridSize()
+   {
+      return gridSize;
+   }
+
+   @Override
+   public List<Point3D> getAllPointsWithinArea(double xCenter, double yCenter, double xExtent, double yExtent)
+   {
+      return getAllPointsWithin(index(xCenter - (xExtent * 0.5)), index(xCenter + (xExtent * 0.5)), index(yCenter - (yExtent * 0.5)),
+                                index(yCenter + (yExtent * 0.5)));
+   }
+
+   @Override
+   public List<Point3D> getAllPointsWithinArea(double xCenter, double yCenter, double xExtent, double yExtent,
+                                               InclusionFunction<Point3D> maskFunctionAboutCenter)
+   {
+      List<Point3D> allPointsInArea = getAllPointsWithinArea(xCenter, yCenter, xExtent, yExtent);
+      List<Point3D> pointsToReturn = new ArrayList<Point3D>();
+      for (Point3D point : allPointsInArea)
+      {
+         if (maskFunctionAboutCenter.isIncluded(point))
+            pointsToReturn.add(point);
+      }
+      return pointsToReturn;
+   }
+
+   /**
+    * Packs the points in the given index bounds, sorted by x index then y index.
+    */
+   private synchronized List<Point3D> getAllPointsWithin(int xMin, int xMax, int yMin, int yMax)
+   {
+      ArrayList<Point3D> points = new ArrayList<Point3D>();
+      if (xMax < xMin || yMax < yMin)
+         return points;
+
+      long numberOfCellsInArea = (long) (xMax - xMin + 1) * (long) (yMax - yMin + 1);
+
+      if (numberOfCellsInArea <= keys.length)
+      { // Probing every cell of the area is cheaper than going through the table.
+         for (int x = xMin; x <= xMax; x++)
+         {
+            for (int y = yMin; y <= yMax; y++)
+            {
+               int slot = findSlot(key(x, y));
+               if (!Double.isNaN(heights[slot]))
+                  points.add(new Point3D(x * gridSize, y * gridSize, heights[slot]));
+            }
+         }
+      }
+      else
+      {
+         long[] keysInArea = new long[size];
+         int numberOfKeysInArea = 0;
+
+         for (int i = 0; i < keys.length; i++)
+         {
+            if (Double.isNaN(heights[i]))
+               continue;
+
+            int x = xIndex(keys[i]);
+            int y = yIndex(keys[i]);
+            if (x >= xMin && x <= xMax && y >= yMin && y <= yMax)
+               keysInArea[numberOfKeysInArea++] = keys[i];
+         }
+
+         // The keys are ordered by x index then y index.
+         Arrays.sort(keysInArea, 0, numberOfKeysInArea);
+
+         for (int i = 0; i < numberOfKeysInArea; i++)
+         {
+            long key = keysInArea[i];
+            points.add(new Point3D(xIndex(key) * gridSize, yIndex(key) * gridSize, heights[findSlot(key)]));
+         }
+      }
+
+      return points;
+   }
+
+   private int index(double coordinate)
+   {
+      double quotient = coordinate / gridSize;
+      int closestIndex = (int) Math.round(quotient);
+
+      return closestIndex;
+   }
+
+   /**
+    * Packs the indices such that the natural ordering of the keys sorts the cells by x index then y
+    * index.
+    */
+   private static long key(int xIndex, int yIndex)
+   {
+      return ((long) xIndex << 32) | ((yIndex ^ Integer.MIN_VALUE) & 0xFFFFFFFFL);
+   }
+
+   private static int xIndex(long key)
+   {
+      return (int) (key >> 32);
+   }
+
+   private static int yIndex(long key)
+   {
+      return (int) key ^ Integer.MIN_VALUE;
+   }
+
+   private static int hash(long key)
+   {
+      // Spreads the bits of both indices, neighboring cells are otherwise clustered in the table.
+      long hash = key * 0x9E3779B97F4A7C15L;
+      return (int) (hash ^ (hash >>> 32));
+   }
+}
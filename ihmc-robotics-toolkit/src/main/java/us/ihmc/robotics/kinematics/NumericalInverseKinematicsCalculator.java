@@ -119,6 +119,15 @@ public class NumericalInverseKinematicsCalculator implements InverseKinematicsCa
    {
       this.limitJointAngles = limitJointAngles;
    }
+
+   /**
+    * Resets the random generator scaling the joint angle corrections, such that the next solve only
+    * depends on the seed, the initial joint angles and the desired transform.
+    */
+   public void setRandomSeed(long seed)
+   {
+      random.setSeed(seed);
+   }
    
    public void setSelectionMatrix(DenseMatrix64F selectionMatrix)
    {
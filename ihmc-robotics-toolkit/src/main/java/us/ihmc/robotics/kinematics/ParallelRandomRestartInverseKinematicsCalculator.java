@@ -0,0 +1,300 @@
+package us.ihmc.robotics.kinematics;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Function;
+
+import org.ejml.data.DenseMatrix64F;
+
+import us.ihmc.euclid.referenceFrame.ReferenceFrame;
+import us.ihmc.euclid.referenceFrame.tools.ReferenceFrameTools;
+import us.ihmc.euclid.transform.RigidBodyTransform;
+import us.ihmc.mecano.multiBodySystem.interfaces.JointBasics;
+import us.ihmc.mecano.multiBodySystem.interfaces.OneDoFJointBasics;
+import us.ihmc.mecano.multiBodySystem.interfaces.RigidBodyBasics;
+import us.ihmc.mecano.tools.JointStateType;
+import us.ihmc.mecano.tools.MultiBodySystemFactories;
+import us.ihmc.mecano.tools.MultiBodySystemRandomTools;
+import us.ihmc.mecano.tools.MultiBodySystemTools;
+import us.ihmc.robotics.screwTheory.GeometricJacobian;
+
+/**
+ * Random restart inverse kinematics solving the restarts concurrently.
+ * <p>
+ * As for {@link RandomRestartInverseKinematicsCalculator}, the first restart starts from the current
+ * joint angles and the next ones from random joint angles. Each thread solves on its own copy of the
+ * kinematic chain with its own {@link NumericalInverseKinematicsCalculator}, the restarts are started
+ * in order and no restart is started after one has met the tolerance.
+ * </p>
+ * <p>
+ * The random numbers used by a restart only depend on the seed, the number of previous solves and
+ * the index of the restart, and the solution is picked among the restarts up to the first successful
+ * one. So the result for a given seed does not depend on the number of threads.
+ * </p>
+ */
+public class ParallelRandomRestartInverseKinematicsCalculator implements InverseKinematicsCalculator
+{
+   private static final long DEFAULT_SEED = 1984L;
+
+   private final Random random = new Random(DEFAULT_SEED);
+   private final OneDoFJointBasics[] joints;
+   private final int maxRestarts;
+   private final double restartTolerance;
+
+   private final List<Worker> workers = new ArrayList<>();
+   private final List<Future<?>> pendingTasks = new ArrayList<>();
+   private final ExecutorService executor;
+
+   private final DenseMatrix64F initialJointAngles;
+   private final DenseMatrix64F[] restartSolutions;
+   private final double[] restartErrorScalars;
+   private final int[] restartNumberOfIterations;
+
+   private final AtomicInteger nextRestart = new AtomicInteger();
+   private final AtomicInteger firstSuccessfulRestart = new AtomicInteger();
+   private long solveSeed;
+
+   private int numberOfRestarts = 0;
+   private int bestRestart = -1;
+
+   /**
+    * @param maxRestarts the maximum number of restarts per solve.
+    * @param restartTolerance the error below which a restart is considered successful.
+    * @param jacobian the Jacobian of the kinematic chain to solve for, the joint angles of this chain
+    *           are used as the first restart and are set to the solution.
+    * @param calculatorFactory creates the calculator of a thread for its copy of the Jacobian.
+    * @param numberOfThreads the number of threads, including the calling thread.
+    */
+   public ParallelRandomRestartInverseKinematicsCalculator(int maxRestarts, double restartTolerance, GeometricJacobian jacobian,
+                                                           Function<GeometricJacobian, NumericalInverseKinematicsCalculator> calculatorFactory,
+                                                           int numberOfThreads)
+   {
+      if (maxRestarts < 1)
+         throw new IllegalArgumentException("The maximum number of restarts has to be at least 1, was " + maxRestarts);
+      if (numberOfThreads < 1)
+         throw new IllegalArgumentException("The number of threads has to be at least 1, was " + numberOfThreads);
+
+      this.joints = MultiBodySystemTools.filterJoints(jacobian.getJointsInOrder(), OneDoFJointBasics.class);
+      this.maxRestarts = maxRestarts;
+      this.restartTolerance = restartTolerance;
+
+      initialJointAngles = new DenseMatrix64F(joints.length, 1);
+      restartSolutions = new DenseMatrix64F[maxRestarts];
+      for (int i = 0; i < maxRestarts; i++)
+         restartSolutions[i] = new DenseMatrix64F(joints.length, 1);
+      restartErrorScalars = new double[maxRestarts];
+      restartNumberOfIterations = new int[maxRestarts];
+
+      for (int i = 0; i < numberOfThreads; i++)
+         workers.add(new Worker(jacobian, calculatorFactory, "Worker" + i));
+
+      if (numberOfThreads > 1)
+      {
+         String threadName = getClass().getSimpleName() + "Worker";
+         AtomicInteger threadIndex = new AtomicInteger(1);
+         executor = Executors.newFixedThreadPool(numberOfThreads - 1, runnable ->
+         {
+            Thread thread = new Thread(runnable, threadName + threadIndex.getAndIncrement());
+            thread.setDaemon(true);
+            return thread;
+         });
+      }
+      else
+      {
+         executor = null;
+      }
+   }
+
+   public void setRandomSeed(long seed)
+   {
+      random.setSeed(seed);
+   }
+
+   public int getNumberOfThreads()
+   {
+      return workers.size();
+   }
+
+   @Override
+   public boolean solve(RigidBodyTransform desiredTransform)
+   {
+      for (int i = 0; i < joints.length; i++)
+         initialJointAngles.set(i, 0, joints[i].getQ());
+
+      solveSeed = random.nextLong();
+      nextRestart.set(0);
+      firstSuccessfulRestart.set(maxRestarts);
+
+      for (int i = 1; i < workers.size(); i++)
+      {
+         Worker worker = workers.get(i);
+         pendingTasks.add(executor.submit(() -> worker.solveRestarts(desiredTransform)));
+      }
+
+      workers.get(0).solveRestarts(desiredTransform);
+      waitForPendingTasks();
+
+      boolean foundSolution = firstSuccessfulRestart.get() < maxRestarts;
+      numberOfRestarts = foundSolution ? firstSuccessfulRestart.get() + 1 : maxRestarts;
+
+      bestRestart = 0;
+      for (int restart = 1; restart < numberOfRestarts; restart++)
+      {
+         if (restartErrorScalars[restart] < restartErrorScalars[bestRestart])
+            bestRestart = restart;
+      }
+
+      DenseMatrix64F best = restartSolutions[bestRestart];
+      for (int i = 0; i < joints.length; i++)
+      {
+         joints[i].setQ(best.get(i, 0));
+         joints[i].getFrameAfterJoint().update();
+      }
+
+      return foundSolution;
+   }
+
+   private void waitForPendingTasks()
+   {
+      Throwable failure = null;
+
+      for (int i = 0; i < pendingTasks.size(); i++)
+      {
+         try
+         {
+            pendingTasks.get(i).get();
+         }
+         catch (ExecutionException e)
+         {
+            if (failure == null)
+               failure = e.getCause();
+         }
+         catch (InterruptedException e)
+         {
+            if (failure == null)
+               failure = e;
+         }
+      }
+
+      pendingTasks.clear();
+
+      if (failure instanceof RuntimeException)
+         throw (RuntimeException) failure;
+      else if (failure != null)
+         throw new RuntimeException(failure);
+   }
+
+   /**
+    * Stops the additional threads, this calculator cannot be used afterwards when it has more than
+    * one thread.
+    */
+   public void close()
+   {
+      if (executor != null)
+         executor.shutdown();
+   }
+
+   /**
+    * @return the number of restarts the last solution was picked from.
+    */
+   public int getNumberOfRestarts()
+   {
+      return numberOfRestarts;
+   }
+
+   @Override
+   public double getErrorScalar()
+   {
+      return bestRestart < 0 ? Double.NaN : restartErrorScalars[bestRestart];
+   }
+
+   @Override
+   public int getNumberOfIterations()
+   {
+      return bestRestart < 0 ? 0 : restartNumberOfIterations[bestRestart];
+   }
+
+   /**
+    * The listener is notified by all the threads.
+    */
+   @Override
+   public void attachInverseKinematicsStepListener(InverseKinematicsStepListener stepListener)
+   {
+      for (int i = 0; i < workers.size(); i++)
+         workers.get(i).calculator.attachInverseKinematicsStepListener(stepListener);
+   }
+
+   @Override
+   public void setLimitJointAngles(boolean limitJointAngles)
+   {
+      for (int i = 0; i < workers.size(); i++)
+         workers.get(i).calculator.setLimitJointAngles(limitJointAngles);
+   }
+
+   private class Worker
+   {
+      private final OneDoFJointBasics[] workerJoints;
+      private final NumericalInverseKinematicsCalculator calculator;
+      private final Random restartRandom = new Random();
+
+      private Worker(GeometricJacobian jacobian, Function<GeometricJacobian, NumericalInverseKinematicsCalculator> calculatorFactory, String suffix)
+      {
+         JointBasics[] originalJoints = jacobian.getJointsInOrder();
+         RigidBodyBasics originalBase = jacobian.getBase();
+         ReferenceFrame originalBaseFrame = originalBase.isRootBody() ? originalBase.getBodyFixedFrame() : originalBase.getParentJoint().getFrameAfterJoint();
+         ReferenceFrame workerBaseFrame = ReferenceFrameTools.constructFrameWithUnchangingTransformToParent(originalBaseFrame.getName() + suffix,
+                                                                                                           ReferenceFrame.getWorldFrame(),
+                                                                                                           originalBaseFrame.getTransformToWorldFrame());
+         JointBasics[] clonedJoints = MultiBodySystemFactories.cloneKinematicChain(originalJoints, suffix, workerBaseFrame);
+         ReferenceFrame clonedEndEffectorFrame = clonedJoints[clonedJoints.length - 1].getSuccessor().getBodyFixedFrame();
+
+         workerJoints = MultiBodySystemTools.filterJoints(clonedJoints, OneDoFJointBasics.class);
+         calculator = calculatorFactory.apply(new GeometricJacobian(clonedJoints, clonedEndEffectorFrame));
+      }
+
+      private void solveRestarts(RigidBodyTransform desiredTransform)
+      {
+         while (true)
+         {
+            int restart = nextRestart.getAndIncrement();
+
+            if (restart >= maxRestarts || restart > firstSuccessfulRestart.get())
+               return;
+
+            restartRandom.setSeed(solveSeed ^ (restart * 0x9E3779B97F4A7C15L));
+            calculator.setRandomSeed(restartRandom.nextLong());
+
+            if (restart == 0)
+            {
+               for (int i = 0; i < workerJoints.length; i++)
+                  workerJoints[i].setQ(initialJointAngles.get(i, 0));
+            }
+            else
+            {
+               MultiBodySystemRandomTools.nextState(restartRandom, JointStateType.CONFIGURATION, -Math.PI / 2.0, Math.PI / 2.0, workerJoints);
+            }
+
+            for (int i = 0; i < workerJoints.length; i++)
+               workerJoints[i].getFrameAfterJoint().update();
+
+            boolean foundSolution = calculator.solve(desiredTransform);
+
+            double errorScalar = calculator.getErrorScalar();
+            foundSolution = foundSolution || (errorScalar < restartTolerance);
+
+            restartErrorScalars[restart] = errorScalar;
+            restartNumberOfIterations[restart] = calculator.getNumberOfIterations();
+            calculator.getBest(restartSolutions[restart]);
+
+            if (foundSolution)
+               firstSuccessfulRestart.accumulateAndGet(restart, Math::min);
+         }
+      }
+   }
+}
@@ -2,6 +2,7 @@ package us.ihmc.robotics.linearAlgebra.careSolvers;
 
 import org.ejml.data.DenseMatrix64F;
 import org.ejml.ops.CommonOps;
+import org.ejml.ops.NormOps;
 import us.ihmc.matrixlib.NativeCommonOps;
 
 /**
@@ -19,6 +20,9 @@ public abstract class AbstractCARESolver implements CARESolver
    private final DenseMatrix64F QHat = new DenseMatrix64F(0, 0);
    private final DenseMatrix64F BTranspose = new DenseMatrix64F(0, 0);
 
+   private final DenseMatrix64F residualPE = new DenseMatrix64F(0, 0);
+   private final DenseMatrix64F residualMatrix = new DenseMatrix64F(0, 0);
+
    protected int n;
    protected final DenseMatrix64F M = new DenseMatrix64F(0, 0);
    protected final DenseMatrix64F A = new DenseMatrix64F(0, 0);
@@ -29,17 +33,17 @@ public abstract class AbstractCARESolver implements CARESolver
    protected final DenseMatrix64F P = new DenseMatrix64F(0, 0);
 
    protected boolean isUpToDate = false;
+   protected int numberOfIterations = 0;
 
    /** {inheritDoc} */
    @Override
    public void setMatrices(DenseMatrix64F A, DenseMatrix64F B, DenseMatrix64F C, DenseMatrix64F E, DenseMatrix64F Q, DenseMatrix64F R, DenseMatrix64F S)
    {
-      int m = Rinv.getNumRows();
+      int m = R.getNumRows();
       int n = B.getNumRows();
 
-
-      BTranspose.set(B);
-      CommonOps.transpose(BTranspose);
+      BTranspose.reshape(B.getNumCols(), B.getNumRows());
+      CommonOps.transpose(B, BTranspose);
 
       Rinv.reshape(m, m);
       M.reshape(n, n);
@@ -107,12 +111,12 @@ public abstract class AbstractCARESolver implements CARESolver
    @Override
    public void setMatrices(DenseMatrix64F A, DenseMatrix64F B, DenseMatrix64F E, DenseMatrix64F Q, DenseMatrix64F R)
    {
-      int m = Rinv.getNumRows();
+      int m = R.getNumRows();
       int n = B.getNumRows();
       Rinv.reshape(m, m);
 
-      BTranspose.set(B);
-      CommonOps.transpose(BTranspose);
+      BTranspose.reshape(B.getNumCols(), B.getNumRows());
+      CommonOps.transpose(B, BTranspose);
 
       M.reshape(n, n);
 
@@ -151,4 +155,34 @@ public abstract class AbstractCARESolver implements CARESolver
    {
       return isUpToDate ? P : computeP();
    }
+
+   /** {inheritDoc} */
+   @Override
+   public int getNumberOfIterations()
+   {
+      return numberOfIterations;
+   }
+
+   /** {inheritDoc} */
+   @Override
+   public double getResidual()
+   {
+      DenseMatrix64F P = getP();
+
+      residualPE.reshape(n, n);
+      if (hasE)
+         CommonOps.mult(P, E, residualPE);
+      else
+         residualPE.set(P);
+
+      // Q + A' P E + E' P A - E' P M P E
+      residualMatrix.reshape(n, n);
+      NativeCommonOps.multQuad(residualPE, M, residualMatrix);
+      CommonOps.scale(-1.0, residualMatrix);
+      CommonOps.multAddTransA(residualPE, A, residualMatrix);
+      CommonOps.multAddTransA(A, residualPE, residualMatrix);
+      CommonOps.addEquals(residualMatrix, Q);
+
+      return NormOps.normF(residualMatrix);
+   }
 }
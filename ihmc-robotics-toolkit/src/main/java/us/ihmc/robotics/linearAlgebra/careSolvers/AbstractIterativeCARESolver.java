@@ -0,0 +1,228 @@
+package us.ihmc.robotics.linearAlgebra.careSolvers;
+
+import org.ejml.data.DenseMatrix64F;
+import org.ejml.factory.DecompositionFactory;
+import org.ejml.interfaces.decomposition.CholeskyDecomposition;
+import org.ejml.ops.CommonOps;
+import org.ejml.ops.MatrixFeatures;
+import us.ihmc.matrixlib.NativeCommonOps;
+
+/**
+ * Base class of the solvers that iteratively refine an initial estimate of the solution to the algebraic Riccati equation.
+ *
+ * <p>
+ *    The initial estimate is calculated using the backend solver provided at construction. When warm starting is enabled, and the matrices of the problem
+ *    are close to the ones of the previous solve, the previous solution is used as initial estimate instead, which typically converges in a couple of
+ *    iterations when the dynamics change only slightly. If the iterations started from the previous solution do not converge, or converge to a solution
+ *    that does not stabilize the closed loop system, the solver falls back on the backend solver.
+ * </p>
+ */
+public abstract class AbstractIterativeCARESolver extends AbstractCARESolver
+{
+   private static final double defaultWarmStartTolerance = 0.1;
+   private static final int defaultMaxWarmStartIterations = 20;
+
+   protected final CARESolver backendSolver;
+   protected final int maxIterations;
+   protected final double convergenceEpsilon;
+
+   private boolean useWarmStart = false;
+   private double warmStartTolerance = defaultWarmStartTolerance;
+   private int maxWarmStartIterations = defaultMaxWarmStartIterations;
+   private boolean isWarmStarted = false;
+
+   private boolean hasPreviousSolution = false;
+   private boolean previousHasE = false;
+   private final DenseMatrix64F previousA = new DenseMatrix64F(0, 0);
+   private final DenseMatrix64F previousE = new DenseMatrix64F(0, 0);
+   private final DenseMatrix64F previousM = new DenseMatrix64F(0, 0);
+   private final DenseMatrix64F previousQ = new DenseMatrix64F(0, 0);
+   private final DenseMatrix64F previousP = new DenseMatrix64F(0, 0);
+
+   private final DenseMatrix64F PE;
+   private final DenseMatrix64F EInverse;
+   private final DenseMatrix64F closedLoopA;
+   private final DenseMatrix64F closedLoopEA;
+   private final DenseMatrix64F identity;
+   private final LyapunovEquationSolver closedLoopLyapunovSolver = new LyapunovEquationSolver();
+   private final CholeskyDecomposition<DenseMatrix64F> closedLoopCholesky;
+
+   public AbstractIterativeCARESolver(CARESolver backendSolver, int maxIterations, double convergenceEpsilon)
+   {
+      this(backendSolver, maxIterations, convergenceEpsilon, 0);
+   }
+
+   /**
+    * @param expectedSize the expected number of states of the problem, used to preallocate the storage of the stability check done on warm started
+    *           solutions.
+    */
+   public AbstractIterativeCARESolver(CARESolver backendSolver, int maxIterations, double convergenceEpsilon, int expectedSize)
+   {
+      this.backendSolver = backendSolver;
+      this.maxIterations = maxIterations;
+      this.convergenceEpsilon = convergenceEpsilon;
+
+      PE = new DenseMatrix64F(expectedSize, expectedSize);
+      EInverse = new DenseMatrix64F(expectedSize, expectedSize);
+      closedLoopA = new DenseMatrix64F(expectedSize, expectedSize);
+      closedLoopEA = new DenseMatrix64F(expectedSize, expectedSize);
+      identity = new DenseMatrix64F(expectedSize, expectedSize);
+      closedLoopCholesky = DecompositionFactory.chol(expectedSize, true);
+   }
+
+   /**
+    * Enables starting the iterations from the previous solution when the matrices of the problem changed by less than the warm start tolerance.
+    */
+   public void setUseWarmStart(boolean useWarmStart)
+   {
+      this.useWarmStart = useWarmStart;
+   }
+
+   /**
+    * Sets the maximum change of the matrices of the problem for which the previous solution is used as initial estimate. The change of each matrix is
+    * measured by the Frobenius norm of the difference, relative to the norm of the previous matrix when larger than one.
+    */
+   public void setWarmStartTolerance(double warmStartTolerance)
+   {
+      this.warmStartTolerance = warmStartTolerance;
+   }
+
+   /**
+    * Sets the number of iterations after which the iterations started from the previous solution are abandoned for the backend solver.
+    */
+   public void setMaxWarmStartIterations(int maxWarmStartIterations)
+   {
+      this.maxWarmStartIterations = maxWarmStartIterations;
+   }
+
+   /**
+    * Returns whether the last solution was computed from the previous solution rather than from the backend solver.
+    */
+   public boolean isWarmStarted()
+   {
+      return isWarmStarted;
+   }
+
+   /**
+    * Discards the previous solution, such that the next solve starts from the backend solver.
+    */
+   public void resetWarmStart()
+   {
+      hasPreviousSolution = false;
+   }
+
+   /** {@inheritDoc} */
+   @Override
+   public DenseMatrix64F computeP()
+   {
+      numberOfIterations = 0;
+      isWarmStarted = false;
+
+      if (useWarmStart && isCloseToPreviousProblem())
+      {
+         P.set(previousP);
+         isWarmStarted = iterate(maxWarmStartIterations) && !MatrixFeatures.hasUncountable(P) && isStabilizing();
+      }
+
+      if (!isWarmStarted)
+      {
+         backendSolver.setMatrices(A, hasE ? E : null, M, Q);
+         P.set(backendSolver.computeP());
+
+         if (!iterate(maxIterations) || MatrixFeatures.hasUncountable(P))
+            throw new RuntimeException("Convergence failed.");
+      }
+
+      hasPreviousSolution = true;
+      previousHasE = hasE;
+      previousA.set(A);
+      previousE.set(E);
+      previousM.set(M);
+      previousQ.set(Q);
+      previousP.set(P);
+
+      isUpToDate = true;
+      return P;
+   }
+
+   /**
+    * Refines the estimate of the solution stored in P until convergence, incrementing the number of iterations.
+    *
+    * @param maxIterations the number of iterations after which the refinement is abandoned.
+    * @return whether the refinement converged.
+    */
+   protected abstract boolean iterate(int maxIterations);
+
+   /**
+    * Checks that the solution stored in P is the stabilizing one, i.e. that the closed loop dynamics E x' = (A - M P E) x have all their eigenvalues
+    * in the open left half plane. The iterations converge to the solution closest to their initial estimate, which is not necessarily the stabilizing one
+    * when starting from the previous solution.
+    * <p>
+    * The closed loop is stable if and only if the solution X of the Lyapunov equation A<sub>cl</sub>' X + X A<sub>cl</sub> + I = 0 is positive definite.
+    * Unlike an eigen decomposition, this check does not allocate once the storage has grown to the problem size.
+    * </p>
+    */
+   private boolean isStabilizing()
+   {
+      PE.reshape(n, n);
+      if (hasE)
+         CommonOps.mult(P, E, PE);
+      else
+         PE.set(P);
+
+      // closed loop A = A - M P E
+      closedLoopA.reshape(n, n);
+      CommonOps.mult(-1.0, M, PE, closedLoopA);
+      CommonOps.addEquals(closedLoopA, A);
+
+      DenseMatrix64F closedLoopDynamics = closedLoopA;
+      if (hasE)
+      {
+         EInverse.reshape(n, n);
+         closedLoopEA.reshape(n, n);
+         NativeCommonOps.invert(E, EInverse);
+         CommonOps.mult(EInverse, closedLoopA, closedLoopEA);
+         closedLoopDynamics = closedLoopEA;
+      }
+
+      identity.reshape(n, n);
+      CommonOps.setIdentity(identity);
+      closedLoopLyapunovSolver.setMatrices(closedLoopDynamics, identity);
+      DenseMatrix64F X = closedLoopLyapunovSolver.solve();
+
+      // A singular Lyapunov equation means that the closed loop has eigenvalues on the imaginary axis.
+      if (MatrixFeatures.hasUncountable(X))
+         return false;
+
+      return closedLoopCholesky.decompose(X);
+   }
+
+   private boolean isCloseToPreviousProblem()
+   {
+      if (!hasPreviousSolution || previousHasE != hasE)
+         return false;
+
+      if (hasE && !isClose(E, previousE, warmStartTolerance))
+         return false;
+
+      return isClose(A, previousA, warmStartTolerance) && isClose(M, previousM, warmStartTolerance) && isClose(Q, previousQ, warmStartTolerance);
+   }
+
+   private static boolean isClose(DenseMatrix64F matrix, DenseMatrix64F previousMatrix, double tolerance)
+   {
+      if (matrix.getNumRows() != previousMatrix.getNumRows() || matrix.getNumCols() != previousMatrix.getNumCols())
+         return false;
+
+      double differenceNormSquared = 0.0;
+      double previousNormSquared = 0.0;
+
+      for (int i = 0; i < matrix.getNumElements(); i++)
+      {
+         double difference = matrix.get(i) - previousMatrix.get(i);
+         differenceNormSquared += difference * difference;
+         previousNormSquared += previousMatrix.get(i) * previousMatrix.get(i);
+      }
+
+      return differenceNormSquared <= tolerance * tolerance * Math.max(previousNormSquared, 1.0);
+   }
+}
@@ -129,4 +129,18 @@ public interface CARESolver
     * Returns the P matrix, which is the solution to the Algebraic Riccati equation.
     */
    DenseMatrix64F getP();
+
+   /**
+    * Returns the number of iterations performed during the last call to {@link #computeP()}. Direct solvers return zero, solvers refining the solution of a
+    * backend solver do not count the iterations of the backend solver.
+    */
+   int getNumberOfIterations();
+
+   /**
+    * Returns the Frobenius norm of the residual of the Algebraic Riccati equation for the current solution,
+    * <p>
+    * A' P E + E' P A - E' P M P E + Q.
+    * </p>
+    */
+   double getResidual();
 }
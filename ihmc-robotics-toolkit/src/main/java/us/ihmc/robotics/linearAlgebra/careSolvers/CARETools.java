@@ -10,10 +10,11 @@ public class CARETools
    public static void computeM(DenseMatrix64F BTranspose, DenseMatrix64F R, DenseMatrix64F RinvToPack, DenseMatrix64F SToPack)
    {
       int n = BTranspose.getNumCols();
+      int m = R.getNumRows();
       if (RinvToPack == null)
-         RinvToPack = new DenseMatrix64F(n, n);
+         RinvToPack = new DenseMatrix64F(m, m);
       else
-         RinvToPack.reshape(n, n);
+         RinvToPack.reshape(m, m);
       SToPack.reshape(n, n);
 
       NativeCommonOps.invert(R, RinvToPack);
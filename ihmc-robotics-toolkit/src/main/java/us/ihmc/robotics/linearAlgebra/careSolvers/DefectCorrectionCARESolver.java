@@ -10,16 +10,14 @@ import us.ihmc.matrixlib.NativeCommonOps;
  * correct for numerical inaccuracies in the original CARE solver, and is not meant as a standalone solver on its own.
  *
  * <p>
- *    An initial estimate of the solution is required, and calculated using the backend solver provided at construction.
+ *    An initial estimate of the solution is required, and calculated using the backend solver provided at construction, or taken from the previous
+ *    solution when warm starting, see {@link AbstractIterativeCARESolver}.
  * </p>
  */
-public class DefectCorrectionCARESolver extends AbstractCARESolver
+public class DefectCorrectionCARESolver extends AbstractIterativeCARESolver
 {
   private static final int defaultMaxIterations = 1000;
-  private final int maxIterations;
-
   private static final double defaultConvergenceEpsilon = 1e-12;
-  private final double convergenceEpsilon;
 
   private final DenseMatrix64F X = new DenseMatrix64F(0, 0);
 
@@ -27,22 +25,34 @@ public class DefectCorrectionCARESolver extends AbstractCARESolver
   private final DenseMatrix64F ASquiggle = new DenseMatrix64F(0, 0);
   private final DenseMatrix64F QSquiggle = new DenseMatrix64F(0, 0);
 
-  private final CARESolver backendSolver;
-
   public DefectCorrectionCARESolver(CARESolver backendSolver)
   {
-     this.backendSolver = backendSolver;
-     this.maxIterations = defaultMaxIterations;
-     this.convergenceEpsilon = defaultConvergenceEpsilon;
+     this(backendSolver, defaultMaxIterations, defaultConvergenceEpsilon);
   }
 
-  /** {@inheritDoc} */
-  public DenseMatrix64F computeP()
+  /**
+   * @param expectedSize the expected number of states of the problem, used to preallocate the storage of the stability check done on warm started
+   *           solutions.
+   */
+  public DefectCorrectionCARESolver(CARESolver backendSolver, int expectedSize)
   {
-     backendSolver.setMatrices(A, hasE ? E : null, M, Q);
+     this(backendSolver, defaultMaxIterations, defaultConvergenceEpsilon, expectedSize);
+  }
 
-     P.set(backendSolver.getP());
+  public DefectCorrectionCARESolver(CARESolver backendSolver, int maxIterations, double convergenceEpsilon)
+  {
+     this(backendSolver, maxIterations, convergenceEpsilon, 0);
+  }
 
+  public DefectCorrectionCARESolver(CARESolver backendSolver, int maxIterations, double convergenceEpsilon, int expectedSize)
+  {
+     super(backendSolver, maxIterations, convergenceEpsilon, expectedSize);
+  }
+
+  /** {@inheritDoc} */
+  @Override
+  protected boolean iterate(int maxIterations)
+  {
      int iterations = 0;
      boolean converged = false;
      while (!converged)
@@ -53,13 +63,13 @@ public class DefectCorrectionCARESolver extends AbstractCARESolver
         converged = MatrixToolsLocal.isZero(X, convergenceEpsilon);
 
         if (iterations > maxIterations)
-           throw new RuntimeException("Failed to converge.");
+           return false;
 
+        numberOfIterations++;
         iterations++;
      }
 
-     isUpToDate = true;
-     return P;
+     return true;
   }
 
   private DenseMatrix64F computeErrorEstimate(DenseMatrix64F currentValue)
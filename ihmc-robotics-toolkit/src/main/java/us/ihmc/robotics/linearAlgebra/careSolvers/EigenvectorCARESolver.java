@@ -20,6 +20,9 @@ import us.ihmc.matrixlib.NativeCommonOps;
  *    NOTE: This solver is fast, but requires that the Hamiltonian has only REAL eigen values, so that the eigen vector decomposition is possible. In general,
  *    this is not a valid assumption. If you know for your system that it is, then this returns a fast solution.
  * </p>
+ * <p>
+ *    The EJML eigen decomposition used by this solver allocates on every call, so it should not be used on a real-time thread.
+ * </p>
  */
 public class EigenvectorCARESolver extends AbstractCARESolver
 {
@@ -49,7 +52,7 @@ public class EigenvectorCARESolver extends AbstractCARESolver
          EInverseA.reshape(n, n);
          EInverseTranspose.reshape(n, n);
          NativeCommonOps.invert(E, EInverse);
-         CommonOps.mult(E, A, EInverseA);
+         CommonOps.mult(EInverse, A, EInverseA);
 
          CommonOps.transpose(EInverse, EInverseTranspose);
          NativeCommonOps.multQuad(EInverseTranspose, M, EInverseMEInverseTranspose);
@@ -69,6 +72,7 @@ public class EigenvectorCARESolver extends AbstractCARESolver
       MatrixTools.setMatrixBlock(hamiltonian, n, n, EInverseATranspose, 0, 0, n, n, -1.0);
 
       // Eigen decomposition
+      numberOfIterations = 0;
       eigen.decompose(hamiltonian);
       u.reshape(2 * n, n);
       u1.reshape(n, n);
@@ -9,54 +9,49 @@ import us.ihmc.matrixlib.NativeCommonOps;
  * "The Autonomous Linear Quadratic Control Problem." This method is different than the one performed by {@link NewtonCARESolver}.
  *
  * <p>
- *    An initial estimate of the solution is required, and calculated using the backend solver provided at construction.
+ *    An initial estimate of the solution is required, and calculated using the backend solver provided at construction, or taken from the previous
+ *    solution when warm starting, see {@link AbstractIterativeCARESolver}.
  * </p>
  * <p>
  *    The maximum number of iterations can be set using the maxIterations value in the constructor. The convergence epsilon, which says when the value of P
  *    stops changing, can be set in the constructor as well.
  * </p>
  */
-public class Newton2CARESolver extends AbstractCARESolver
+public class Newton2CARESolver extends AbstractIterativeCARESolver
 {
   private static final int defaultMaxIterations = 10000;
   private static final double defaultConvergenceEpsilon = 1e-12;
 
-  private final int maxIterations;
-  private final double convergenceEpsilon;
-
   private final DenseMatrix64F PE = new DenseMatrix64F(0, 0);
   private final DenseMatrix64F PDotk = new DenseMatrix64F(0, 0);
 
    private final DenseMatrix64F EInverse = new DenseMatrix64F(0, 0);
    private final DenseMatrix64F Ak = new DenseMatrix64F(0, 0);
 
-  private final CARESolver backendSolver;
-
   private final LyapunovEquationSolver lyapunovSolver = new LyapunovEquationSolver();
 
   public Newton2CARESolver(CARESolver backendSolver)
   {
-     this.backendSolver = backendSolver;
-     this.maxIterations = defaultMaxIterations;
-     this.convergenceEpsilon = defaultConvergenceEpsilon;
+     this(backendSolver, defaultMaxIterations, defaultConvergenceEpsilon);
   }
 
+  public Newton2CARESolver(CARESolver backendSolver, int maxIterations, double convergenceEpsilon)
+  {
+     super(backendSolver, maxIterations, convergenceEpsilon);
+  }
 
   /** {@inheritDoc} */
-  public DenseMatrix64F computeP()
+  @Override
+  protected boolean iterate(int maxIterations)
   {
-     int n = A.getNumRows();
-
-
      Ak.reshape(n, n);
      PDotk.reshape(n, n);
      PE.reshape(n, n);
 
-     backendSolver.setMatrices(A, hasE ? E : null, M, Q);
      if (hasE)
-        CommonOps.mult(backendSolver.getP(), E, PE);
+        CommonOps.mult(P, E, PE);
      else
-        PE.set(backendSolver.getP());
+        PE.set(P);
 
      int iteration = 0;
      boolean converged = false;
@@ -76,9 +71,10 @@ public class Newton2CARESolver extends AbstractCARESolver
 
         CommonOps.addEquals(PE, Pk);
 
+        numberOfIterations++;
         iteration++;
         if (iteration > maxIterations)
-           throw new RuntimeException("Convergence failed.");
+           return false;
      }
 
      if (hasE)
@@ -93,7 +89,6 @@ public class Newton2CARESolver extends AbstractCARESolver
         P.set(PE);
      }
 
-     isUpToDate = true;
-     return P;
+     return true;
   }
 }
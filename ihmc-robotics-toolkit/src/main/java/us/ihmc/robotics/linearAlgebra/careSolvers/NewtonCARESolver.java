@@ -9,20 +9,18 @@ import us.ihmc.matrixlib.NativeCommonOps;
  * http://et.engr.iupui.edu//~skoskie/ECE684/Riccati_algorithms.pdf.
  *
  * <p>
- *    An initial estimate of the solution is required, and calculated using the backend solver provided at construction.
+ *    An initial estimate of the solution is required, and calculated using the backend solver provided at construction, or taken from the previous
+ *    solution when warm starting, see {@link AbstractIterativeCARESolver}.
  * </p>
  * <p>
  *    The maximum number of iterations can be set using the maxIterations value in the constructor. The convergence epsilon, which says when the value of P
  *    stops changing, can be set in the constructor as well.
  * </p>
  */
-public class NewtonCARESolver extends AbstractCARESolver
+public class NewtonCARESolver extends AbstractIterativeCARESolver
 {
   private static final int defaultMaxIterations = 100000;
-  private final int maxIterations;
-
   private static final double defaultConvergenceEpsilon = 1e-8;
-  private final double convergenceEpsilon;
 
   private final DenseMatrix64F PE = new DenseMatrix64F(0, 0);
 
@@ -33,8 +31,6 @@ public class NewtonCARESolver extends AbstractCARESolver
 
   private final LyapunovEquationSolver lyapunovSolver = new LyapunovEquationSolver();
 
-  private final CARESolver backendSolver;
-
   public NewtonCARESolver()
   {
      this(new EigenvectorCARESolver());
@@ -47,24 +43,18 @@ public class NewtonCARESolver extends AbstractCARESolver
 
   public NewtonCARESolver(CARESolver backendSolver, int maxIterations, double convergenceEpsilon)
   {
-     this.backendSolver = backendSolver;
-     this.maxIterations = maxIterations;
-     this.convergenceEpsilon = convergenceEpsilon;
+     super(backendSolver, maxIterations, convergenceEpsilon);
   }
 
   /** {@inheritDoc} */
-  public DenseMatrix64F computeP()
+  @Override
+  protected boolean iterate(int maxIterations)
   {
-     backendSolver.setMatrices(A, hasE ? E : null, M, Q);
-     backendSolver.computeP();
-
+     PE.reshape(n, n);
      if (hasE)
-     {
-        PE.reshape(n, n);
-        CommonOps.mult(backendSolver.getP(), E, PE);
-     }
+        CommonOps.mult(P, E, PE);
      else
-        PE.set(backendSolver.getP());
+        PE.set(P);
 
      Ak.reshape(n, n);
      Qk.reshape(n, n);
@@ -80,19 +70,18 @@ public class NewtonCARESolver extends AbstractCARESolver
         // Qk = Q + K' R K
         NativeCommonOps.multQuad(PE, M, Qk);
         CommonOps.addEquals(Qk, Q);
-        CommonOps.scale(-1.0, Q);
 
         lyapunovSolver.setMatrices(Ak, Qk);
-        lyapunovSolver.solve();
-        DenseMatrix64F Pk = lyapunovSolver.getX();
+        DenseMatrix64F Pk = lyapunovSolver.solve();
 
         // error = normSquared(P - P1);
         error = MatrixToolsLocal.distance(PE, Pk);
 
         PE.set(Pk);
+        numberOfIterations++;
         i++;
         if (i > maxIterations)
-           throw new RuntimeException("Convergence failed.");
+           return false;
      }
 
      if (hasE)
@@ -107,7 +96,6 @@ public class NewtonCARESolver extends AbstractCARESolver
         P.set(PE);
      }
 
-     isUpToDate = true;
-     return P;
+     return true;
   }
 }
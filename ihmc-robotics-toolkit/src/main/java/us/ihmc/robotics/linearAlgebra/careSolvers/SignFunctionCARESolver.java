@@ -48,7 +48,7 @@ public class SignFunctionCARESolver extends AbstractCARESolver
          EInverseA.reshape(n, n);
          EInverseTranspose.reshape(n, n);
          NativeCommonOps.invert(E, EInverse);
-         CommonOps.mult(E, A, EInverseA);
+         CommonOps.mult(EInverse, A, EInverseA);
 
          CommonOps.transpose(EInverse, EInverseTranspose);
          NativeCommonOps.multQuad(EInverseTranspose, M, EInverseMEInverseTranspose);
@@ -67,7 +67,9 @@ public class SignFunctionCARESolver extends AbstractCARESolver
       MatrixTools.setMatrixBlock(hamiltonian, n, 0, Q, 0, 0, n, n, 1.0);
       MatrixTools.setMatrixBlock(hamiltonian, n, n, EInverseATranspose, 0, 0, n, n, -1.0);
 
-      if (!signFunction.compute(hamiltonian))
+      boolean converged = signFunction.compute(hamiltonian);
+      numberOfIterations = signFunction.getNumberOfIterations();
+      if (!converged)
          throw new RuntimeException("Error.");
 
       W.reshape(2 * n, 2 * n);
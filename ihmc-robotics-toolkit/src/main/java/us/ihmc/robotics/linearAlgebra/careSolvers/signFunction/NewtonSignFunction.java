@@ -11,6 +11,7 @@ public class NewtonSignFunction implements SignFunction
    private static final boolean debug = false;
    private int maxIterations = Integer.MAX_VALUE;
    private double epsilon = 1e-12;
+   private int numberOfIterations = 0;
 
    private final DenseMatrix64F Wlocal = new DenseMatrix64F(0, 0);
    private final DenseMatrix64F W = new DenseMatrix64F(0, 0);
@@ -38,11 +39,11 @@ public class NewtonSignFunction implements SignFunction
       WInverse.reshape(size, size);
 
       boolean converged = false;
-      int iterations = 0;
+      numberOfIterations = 0;
 
       while (!converged)
       {
-         if (iterations > maxIterations)
+         if (numberOfIterations > maxIterations)
             return false;
 
          NativeCommonOps.invert(Wlocal, WInverse);
@@ -56,7 +57,7 @@ public class NewtonSignFunction implements SignFunction
          converged = MatrixToolsLocal.distance(W, Wlocal) < epsilon;
 
          Wlocal.set(W);
-         iterations++;
+         numberOfIterations++;
       }
 
       return true;
@@ -79,6 +80,12 @@ public class NewtonSignFunction implements SignFunction
       }
    }
 
+   @Override
+   public int getNumberOfIterations()
+   {
+      return numberOfIterations;
+   }
+
    @Override
    public DenseMatrix64F getW(DenseMatrix64F WToPack)
    {
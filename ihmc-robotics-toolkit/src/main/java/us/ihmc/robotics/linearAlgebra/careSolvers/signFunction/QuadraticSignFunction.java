@@ -1,6 +1,8 @@
 package us.ihmc.robotics.linearAlgebra.careSolvers.signFunction;
 
 import org.ejml.data.DenseMatrix64F;
+import org.ejml.factory.DecompositionFactory;
+import org.ejml.interfaces.decomposition.LUDecomposition;
 import org.ejml.ops.CommonOps;
 import us.ihmc.matrixlib.NativeCommonOps;
 import us.ihmc.robotics.linearAlgebra.careSolvers.MatrixToolsLocal;
@@ -9,6 +11,7 @@ public class QuadraticSignFunction implements SignFunction
 {
    private int maxIterations = Integer.MAX_VALUE;
    private double epsilon = 1e-12;
+   private int numberOfIterations = 0;
 
    private final DenseMatrix64F Wprev = new DenseMatrix64F(0, 0);
    private final DenseMatrix64F W = new DenseMatrix64F(0, 0);
@@ -16,6 +19,8 @@ public class QuadraticSignFunction implements SignFunction
    private final DenseMatrix64F Z = new DenseMatrix64F(0, 0);
    private final DenseMatrix64F ZDiff = new DenseMatrix64F(0, 0);
 
+   private final LUDecomposition<DenseMatrix64F> luDecomposition = DecompositionFactory.lu(0, 0);
+
    public void setMaxIterations(int maxIterations)
    {
       this.maxIterations = maxIterations;
@@ -38,14 +43,16 @@ public class QuadraticSignFunction implements SignFunction
       ZDiff.reshape(size, size);
 
       boolean converged = false;
-      int iterations = 0;
+      numberOfIterations = 0;
 
       while (!converged)
       {
-         if (iterations > maxIterations)
+         if (numberOfIterations > maxIterations)
             return false;
 
-         double determinate = CommonOps.det(Wprev);
+         // CommonOps.det creates a new decomposition for large matrices
+         luDecomposition.decompose(Wprev);
+         double determinate = luDecomposition.computeDeterminant().getReal();
          double c = Math.pow(Math.abs(determinate), -1.0 / (2 * size));
          Z.set(Wprev);
          CommonOps.scale(c, Z);
@@ -58,12 +65,18 @@ public class QuadraticSignFunction implements SignFunction
          converged = MatrixToolsLocal.distance(W, Wprev) < epsilon;
 
          Wprev.set(W);
-         iterations++;
+         numberOfIterations++;
       }
 
       return true;
    }
 
+   @Override
+   public int getNumberOfIterations()
+   {
+      return numberOfIterations;
+   }
+
    @Override
    public DenseMatrix64F getW(DenseMatrix64F WToPack)
    {
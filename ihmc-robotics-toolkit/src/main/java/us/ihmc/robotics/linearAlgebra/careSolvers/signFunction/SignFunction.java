@@ -21,4 +21,9 @@ public interface SignFunction
    boolean compute(DenseMatrix64F K);
 
    DenseMatrix64F getW(DenseMatrix64F WToPack);
+
+   /**
+    * Returns the number of iterations performed during the last call to {@link #compute(DenseMatrix64F)}.
+    */
+   int getNumberOfIterations();
 }
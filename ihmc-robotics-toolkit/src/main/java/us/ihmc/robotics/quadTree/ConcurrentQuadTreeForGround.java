@@ -0,0 +1,312 @@
+package us.ihmc.robotics.quadTree;
+
+import us.ihmc.euclid.tuple3D.interfaces.Point3DReadOnly;
+
+/**
+ * A quad tree for representing ground height maps that can be queried while being updated.
+ * <p>
+ * The points are inserted and filtered as in {@link QuadTreeForGround}, but the nodes are never
+ * modified once published: the writer copies the path from the root down to the leaf it modifies
+ * and the unchanged subtrees are shared with the previous version. The readers work on
+ * {@link QuadTreeForGroundSnapshot}s which are immutable, so they never block the writer and never
+ * see a batch half inserted.
+ * </p>
+ * <p>
+ * This class is meant to have a single writer: {@link #put(double, double, double)},
+ * {@link #clear()} and {@link #publish()} have to be called from the same thread, or externally
+ * synchronized. {@link #getSnapshot()} can be called from any thread.
+ * </p>
+ * <p>
+ * When the parameters specify a maximum number of points, the points older than the last
+ * {@code maximumNumberOfPoints} insertions are removed from the tree.
+ * </p>
+ */
+public class ConcurrentQuadTreeForGround
+{
+   /**
+    * Nodes wider than this many times the resolution are subdivided before receiving points, leaves
+    * end up between half of and this many times the resolution wide. Has to match
+    * {@link QuadTreeForGroundNode} for both trees to hold the same leaves.
+    */
+   private static final double MAXIMUM_LEAF_SIZE_TO_RESOLUTION_RATIO = 4.1;
+
+   private final Box bounds;
+   private final QuadTreeForGroundParameters parameters;
+
+   private volatile QuadTreeForGroundSnapshot snapshot;
+
+   private QuadTreeForGroundSnapshotNode workingRoot;
+   private long workingVersion;
+   private double defaultHeightWhenNoPoints = Double.NaN;
+   private boolean hasUnpublishedChanges = false;
+
+   /** Coordinates of the most recent insertions, used to limit the number of points. */
+   private final double[] insertionHistory;
+   private int insertionHistoryStart = 0;
+   private int insertionHistorySize = 0;
+
+   public ConcurrentQuadTreeForGround(Box bounds, QuadTreeForGroundParameters parameters)
+   {
+      this.bounds = bounds;
+      this.parameters = parameters;
+
+      if (parameters.getMaximumNumberOfPoints() > 0)
+         insertionHistory = new double[3 * parameters.getMaximumNumberOfPoints()];
+      else
+         insertionHistory = null;
+
+      workingVersion = 0;
+      workingRoot = new QuadTreeForGroundSnapshotNode(bounds, workingVersion);
+      snapshot = createSnapshot();
+      workingVersion++;
+   }
+
+   /**
+    * Gets the last published version of this tree. This method never blocks.
+    */
+   public QuadTreeForGroundSnapshot getSnapshot()
+   {
+      return snapshot;
+   }
+
+   public QuadTreeForGroundParameters getQuadTreeParameters()
+   {
+      return parameters;
+   }
+
+   public Box getBounds()
+   {
+      return bounds;
+   }
+
+   /**
+    * @return whether the tree the writer is working on is empty, including the unpublished changes.
+    */
+   public boolean isEmpty()
+   {
+      return workingRoot.isEmpty();
+   }
+
+   public double getDefaultHeightWhenNoPoints()
+   {
+      return defaultHeightWhenNoPoints;
+   }
+
+   public void setDefaultHeightWhenNoPoints(double defaultHeightWhenNoPoints)
+   {
+      if (Double.compare(this.defaultHeightWhenNoPoints, defaultHeightWhenNoPoints) == 0)
+         return;
+
+      this.defaultHeightWhenNoPoints = defaultHeightWhenNoPoints;
+      hasUnpublishedChanges = true;
+   }
+
+   /**
+    * Inserts the points and publishes the result.
+    *
+    * @param points the points to insert. Not modified.
+    * @return the new snapshot.
+    */
+   public QuadTreeForGroundSnapshot putBatch(Iterable<? extends Point3DReadOnly> points)
+   {
+      for (Point3DReadOnly point : points)
+         put(point.getX(), point.getY(), point.getZ());
+
+      return publish();
+   }
+
+   /**
+    * Inserts a point, it will only be visible to the readers after the next call to
+    * {@link #publish()}.
+    *
+    * @return whether the tree changed.
+    */
+   public boolean put(double x, double y, double z)
+   {
+      if (!bounds.containsOrEquals(x, y))
+         return false;
+
+      if (!isPointAccepted(x, y, z))
+         return false;
+
+      workingRoot = put(workingRoot, x, y, z);
+      hasUnpublishedChanges = true;
+
+      if (insertionHistory != null)
+         recordInsertion(x, y, z);
+
+      return true;
+   }
+
+   /**
+    * Removes all the points, the readers will only see an empty tree after the next call to
+    * {@link #publish()}.
+    */
+   public void clear()
+   {
+      workingRoot = new QuadTreeForGroundSnapshotNode(bounds, workingVersion);
+      insertionHistoryStart = 0;
+      insertionHistorySize = 0;
+      hasUnpublishedChanges = true;
+   }
+
+   /**
+    * Makes all the changes done since the last call to this method visible to the readers.
+    *
+    * @return the new snapshot, or the current one if nothing changed.
+    */
+   public QuadTreeForGroundSnapshot publish()
+   {
+      if (hasUnpublishedChanges)
+      {
+         snapshot = createSnapshot();
+         workingVersion++;
+         hasUnpublishedChanges = false;
+      }
+
+      return snapshot;
+   }
+
+   private QuadTreeForGroundSnapshot createSnapshot()
+   {
+      return new QuadTreeForGroundSnapshot(this,
+                                           workingRoot,
+                                           workingVersion,
+                                           defaultHeightWhenNoPoints,
+                                           parameters.getResolution(),
+                                           parameters.getMaxAllowableXYDistanceForAPointToBeConsideredClose());
+   }
+
+   /**
+    * Checks ahead whether inserting the point would change the tree to avoid copying nodes for
+    * nothing.
+    */
+   private boolean isPointAccepted(double x, double y, double z)
+   {
+      QuadTreeForGroundSnapshotNode node = workingRoot;
+
+      while (node.hasChildren())
+         node = node.getChild(node.getQuadrant(x, y));
+
+      if (node.isLeaf() && node.isAtSmallestResolution(parameters.getResolution()))
+         return isHeightAppropriate(node, z);
+      else
+         return true;
+   }
+
+   private QuadTreeForGroundSnapshotNode put(QuadTreeForGroundSnapshotNode node, double x, double y, double z)
+   {
+      node = getWritableNode(node);
+
+      if (node.hasChildren())
+      {
+         int quadrant = node.getQuadrant(x, y);
+         node.setChild(quadrant, put(node.getChild(quadrant), x, y, z));
+      }
+      else if (!node.isLeaf())
+      {
+         node.addPoint(x, y, z, parameters.getMaxSameHeightPointsPerNode());
+      }
+      else if (node.isAtSmallestResolution(parameters.getResolution()))
+      {
+         if (isHeightAppropriate(node, z))
+            node.addPoint(x, y, z, parameters.getMaxSameHeightPointsPerNode());
+      }
+      else if (isNotYetAtReasonableResolution(node) || Math.abs(node.getAverageHeight() - z) >= parameters.getHeightThreshold())
+      {
+         double[] points = node.divide();
+
+         for (int i = 0; i < points.length; i += 3)
+            put(node, points[i], points[i + 1], points[i + 2]);
+         put(node, x, y, z);
+      }
+      else
+      {
+         node.addPoint(x, y, z, parameters.getMaxSameHeightPointsPerNode());
+      }
+
+      return node;
+   }
+
+   private QuadTreeForGroundSnapshotNode getWritableNode(QuadTreeForGroundSnapshotNode node)
+   {
+      if (node.getVersion() == workingVersion)
+         return node;
+      else
+         return new QuadTreeForGroundSnapshotNode(node, workingVersion);
+   }
+
+   private boolean isNotYetAtReasonableResolution(QuadTreeForGroundSnapshotNode node)
+   {
+      Box nodeBounds = node.getBounds();
+      return Math.abs(nodeBounds.maxX - nodeBounds.minX) > MAXIMUM_LEAF_SIZE_TO_RESOLUTION_RATIO * parameters.getResolution();
+   }
+
+   private boolean isHeightAppropriate(QuadTreeForGroundSnapshotNode leaf, double z)
+   {
+      double heightDifference = z - leaf.getAverageHeight();
+      double maxMultiLevelZChangeToFilterNoise = parameters.getMaxMultiLevelZChangeToFilterNoise();
+
+      if (heightDifference > 0.0 && heightDifference < maxMultiLevelZChangeToFilterNoise) // higher, but not more than maxMultiLevelZChangeToFilterNoise, then keep it.
+         return true;
+      else if (heightDifference < 0.0 && Math.abs(heightDifference) > maxMultiLevelZChangeToFilterNoise) // lower, but at least maxMultiLevelZChangeToFilterNoise, then keep it.
+         return true;
+      else
+         return false;
+   }
+
+   private void recordInsertion(double x, double y, double z)
+   {
+      int capacity = insertionHistory.length / 3;
+
+      if (insertionHistorySize == capacity)
+      {
+         int oldest = 3 * insertionHistoryStart;
+         workingRoot = remove(workingRoot, insertionHistory[oldest], insertionHistory[oldest + 1], insertionHistory[oldest + 2]);
+         insertionHistoryStart = (insertionHistoryStart + 1) % capacity;
+         insertionHistorySize--;
+      }
+
+      int newest = 3 * ((insertionHistoryStart + insertionHistorySize) % capacity);
+      insertionHistory[newest] = x;
+      insertionHistory[newest + 1] = y;
+      insertionHistory[newest + 2] = z;
+      insertionHistorySize++;
+   }
+
+   /**
+    * Removes the point if it is still in the tree, it may have already been replaced by a more recent
+    * point or filtered out when its leaf was divided. Empty nodes are merged into their parent.
+    */
+   private QuadTreeForGroundSnapshotNode remove(QuadTreeForGroundSnapshotNode node, double x, double y, double z)
+   {
+      if (node.hasChildren())
+      {
+         int quadrant = node.getQuadrant(x, y);
+         QuadTreeForGroundSnapshotNode child = node.getChild(quadrant);
+         QuadTreeForGroundSnapshotNode newChild = remove(child, x, y, z);
+
+         if (newChild == child)
+            return node;
+
+         node = getWritableNode(node);
+         node.setChild(quadrant, newChild);
+
+         if (node.getChild(QuadTreeForGroundSnapshotNode.NW).isEmpty() && node.getChild(QuadTreeForGroundSnapshotNode.NE).isEmpty()
+               && node.getChild(QuadTreeForGroundSnapshotNode.SE).isEmpty() && node.getChild(QuadTreeForGroundSnapshotNode.SW).isEmpty())
+            node.merge();
+
+         return node;
+      }
+      else if (node.isLeaf() && node.hasPoint(x, y, z))
+      {
+         node = getWritableNode(node);
+         node.removePoint(x, y, z);
+         return node;
+      }
+      else
+      {
+         return node;
+      }
+   }
+}
@@ -0,0 +1,176 @@
+package us.ihmc.robotics.quadTree;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+
+import us.ihmc.euclid.tuple3D.Point3D;
+import us.ihmc.euclid.tuple3D.interfaces.Point3DBasics;
+
+/**
+ * Immutable view of a {@link ConcurrentQuadTreeForGround} as it was when published.
+ * <p>
+ * The queries mirror the ones of {@link QuadTreeForGround} but do not need any synchronization and
+ * can be done from any thread while the writer keeps inserting points.
+ * </p>
+ */
+public class QuadTreeForGroundSnapshot
+{
+   private final ConcurrentQuadTreeForGround owner;
+   private final QuadTreeForGroundSnapshotNode root;
+   private final long version;
+   private final double defaultHeightWhenNoPoints;
+   private final double resolution;
+   private final double maxAllowableXYDistanceForAPointToBeConsideredClose;
+
+   QuadTreeForGroundSnapshot(ConcurrentQuadTreeForGround owner, QuadTreeForGroundSnapshotNode root, long version, double defaultHeightWhenNoPoints,
+                             double resolution, double maxAllowableXYDistanceForAPointToBeConsideredClose)
+   {
+      this.owner = owner;
+      this.root = root;
+      this.version = version;
+      this.defaultHeightWhenNoPoints = defaultHeightWhenNoPoints;
+      this.resolution = resolution;
+      this.maxAllowableXYDistanceForAPointToBeConsideredClose = maxAllowableXYDistanceForAPointToBeConsideredClose;
+   }
+
+   /**
+    * @return the number of times the tree was published before this snapshot.
+    */
+   public long getVersion()
+   {
+      return version;
+   }
+
+   public QuadTreeForGroundSnapshotNode getRootNode()
+   {
+      return root;
+   }
+
+   public Box getBounds()
+   {
+      return root.getBounds();
+   }
+
+   public double getResolution()
+   {
+      return resolution;
+   }
+
+   public double getDefaultHeightWhenNoPoints()
+   {
+      return defaultHeightWhenNoPoints;
+   }
+
+   public boolean isEmpty()
+   {
+      return root.isEmpty();
+   }
+
+   public double getHeightAtPoint(double x, double y)
+   {
+      if (!root.getBounds().containsOrEquals(x, y))
+         return Double.NaN;
+
+      PointAndDistance pointAndDistance = new PointAndDistance(new Point3D(Double.NaN, Double.NaN, Double.NaN),
+                                                               maxAllowableXYDistanceForAPointToBeConsideredClose);
+      root.getClosestPointAndDistance(x, y, resolution, pointAndDistance);
+
+      double heightToReturn = pointAndDistance.getPoint().getZ();
+
+      if (Double.isNaN(heightToReturn))
+         heightToReturn = defaultHeightWhenNoPoints;
+      return heightToReturn;
+   }
+
+   public void getClosestPoint(double xQuery, double yQuery, Point3DBasics pointToPack)
+   {
+      PointAndDistance pointAndDistance = new PointAndDistance(new Point3D(Double.NaN, Double.NaN, Double.NaN), Double.POSITIVE_INFINITY);
+      root.getClosestPointAndDistance(xQuery, yQuery, resolution, pointAndDistance);
+      pointToPack.set(pointAndDistance.getPoint());
+   }
+
+   public void getAllPointsWithinDistance(double x, double y, double distance, List<Point3D> pointsWithinDistanceToPack)
+   {
+      if (distance < 0.0)
+         return;
+
+      root.getAllPointsWithinDistance(x, y, distance, pointsWithinDistanceToPack);
+   }
+
+   public void getAllPointsWithinBounds(Box bounds, List<Point3D> pointsWithinBoundsToPack)
+   {
+      root.getAllPointsWithinBounds(bounds, pointsWithinBoundsToPack);
+   }
+
+   public void getCellAverageStoredPoints(Collection<Point3D> pointsToPack)
+   {
+      Point3D averagePoint = new Point3D();
+
+      for (QuadTreeForGroundSnapshotNode leaf : getLeaves(new ArrayList<>()))
+      {
+         leaf.getAveragePoint(averagePoint);
+         pointsToPack.add(new Point3D(averagePoint));
+      }
+   }
+
+   public <C extends Collection<QuadTreeForGroundSnapshotNode>> C getLeaves(C leavesToPack)
+   {
+      root.getAllLeaves(leavesToPack);
+      return leavesToPack;
+   }
+
+   /**
+    * Finds the leaves that changed since an older snapshot of the same tree.
+    * <p>
+    * Only the subtrees that were modified in between are visited, the others being shared by the two
+    * snapshots.
+    * </p>
+    *
+    * @param previous            an older snapshot of the same tree. If {@code null}, all the leaves of
+    *                            this snapshot are reported as new.
+    * @param newLeavesToPack     the leaves that were added or modified since {@code previous}.
+    * @param removedLeavesToPack the leaves of {@code previous} that do not exist anymore, because they
+    *                            were divided or the tree was cleared.
+    */
+   public void getLeavesChangedSince(QuadTreeForGroundSnapshot previous, Collection<QuadTreeForGroundSnapshotNode> newLeavesToPack,
+                                     Collection<QuadTreeForGroundSnapshotNode> removedLeavesToPack)
+   {
+      if (previous == null)
+      {
+         root.getAllLeaves(newLeavesToPack);
+         return;
+      }
+
+      if (previous.owner != owner)
+         throw new IllegalArgumentException("The two snapshots do not belong to the same tree.");
+
+      getLeavesChangedSince(previous.root, root, newLeavesToPack, removedLeavesToPack);
+   }
+
+   private static void getLeavesChangedSince(QuadTreeForGroundSnapshotNode previousNode, QuadTreeForGroundSnapshotNode currentNode,
+                                             Collection<QuadTreeForGroundSnapshotNode> newLeavesToPack,
+                                             Collection<QuadTreeForGroundSnapshotNode> removedLeavesToPack)
+   {
+      if (previousNode == currentNode)
+         return;
+
+      if (currentNode.hasChildren() && previousNode.hasChildren())
+      {
+         for (int quadrant = 0; quadrant < 4; quadrant++)
+            getLeavesChangedSince(previousNode.getChild(quadrant), currentNode.getChild(quadrant), newLeavesToPack, removedLeavesToPack);
+      }
+      else
+      {
+         // The node was divided, emptied, or is a leaf that got modified.
+         if (!(previousNode.isLeaf() && currentNode.isLeaf()))
+            previousNode.getAllLeaves(removedLeavesToPack);
+         currentNode.getAllLeaves(newLeavesToPack);
+      }
+   }
+
+   public int getNumberOfLeaves()
+   {
+      return getLeaves(new ArrayList<>()).size();
+   }
+}
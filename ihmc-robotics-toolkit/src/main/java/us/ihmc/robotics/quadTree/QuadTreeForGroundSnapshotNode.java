@@ -0,0 +1,361 @@
+package us.ihmc.robotics.quadTree;
+
+import java.util.Collection;
+import java.util.List;
+
+import us.ihmc.euclid.tuple3D.Point3D;
+import us.ihmc.euclid.tuple3D.interfaces.Point3DBasics;
+
+/**
+ * Node of a {@link ConcurrentQuadTreeForGround}.
+ * <p>
+ * A node is only modified by the writer before the version it belongs to is published. Once
+ * reachable from a {@link QuadTreeForGroundSnapshot} it never changes anymore, the writer copies it
+ * instead. As a result, two snapshots share every node of the subtrees that did not change between
+ * them.
+ * </p>
+ */
+public class QuadTreeForGroundSnapshotNode
+{
+   public static final int NW = 0;
+   public static final int NE = 1;
+   public static final int SE = 2;
+   public static final int SW = 3;
+
+   private static final double[] NO_POINTS = new double[0];
+
+   private final Box bounds;
+   private final long version;
+
+   private QuadTreeForGroundSnapshotNode[] children = null;
+   /** The points of the leaf, packed as (x, y, z) and sorted from the least to the most recent. */
+   private double[] points = NO_POINTS;
+   private double averageX = Double.NaN;
+   private double averageY = Double.NaN;
+   private double averageZ = Double.NaN;
+
+   QuadTreeForGroundSnapshotNode(Box bounds, long version)
+   {
+      this.bounds = bounds;
+      this.version = version;
+   }
+
+   QuadTreeForGroundSnapshotNode(QuadTreeForGroundSnapshotNode other, long version)
+   {
+      this.bounds = other.bounds;
+      this.version = version;
+
+      if (other.children != null)
+         children = other.children.clone();
+      points = other.points;
+      averageX = other.averageX;
+      averageY = other.averageY;
+      averageZ = other.averageZ;
+   }
+
+   /**
+    * @return the version of the tree in which this node was last modified.
+    */
+   public long getVersion()
+   {
+      return version;
+   }
+
+   public Box getBounds()
+   {
+      return bounds;
+   }
+
+   public boolean hasChildren()
+   {
+      return children != null;
+   }
+
+   public boolean isLeaf()
+   {
+      return points.length > 0;
+   }
+
+   public boolean isEmpty()
+   {
+      return children == null && points.length == 0;
+   }
+
+   /**
+    * @param quadrant one of {@link #NW}, {@link #NE}, {@link #SE}, {@link #SW}.
+    * @return the child in the given quadrant or {@code null} if this node has no children.
+    */
+   public QuadTreeForGroundSnapshotNode getChild(int quadrant)
+   {
+      return children == null ? null : children[quadrant];
+   }
+
+   public int getNumberOfPoints()
+   {
+      return points.length / 3;
+   }
+
+   public void getPoint(int index, Point3DBasics pointToPack)
+   {
+      pointToPack.set(points[3 * index], points[3 * index + 1], points[3 * index + 2]);
+   }
+
+   public double getAverageHeight()
+   {
+      return averageZ;
+   }
+
+   public void getAveragePoint(Point3DBasics averagePointToPack)
+   {
+      averagePointToPack.set(averageX, averageY, averageZ);
+   }
+
+   boolean isAtSmallestResolution(double resolution)
+   {
+      return Math.abs(bounds.maxX - bounds.minX) < resolution;
+   }
+
+   int getQuadrant(double x, double y)
+   {
+      if (x < bounds.centreX)
+         return y < bounds.centreY ? SW : NW;
+      else
+         return y < bounds.centreY ? SE : NE;
+   }
+
+   void setChild(int quadrant, QuadTreeForGroundSnapshotNode child)
+   {
+      children[quadrant] = child;
+   }
+
+   /**
+    * Creates the four children of this node and returns the points this node was holding so they can
+    * be inserted in the children.
+    */
+   double[] divide()
+   {
+      children = new QuadTreeForGroundSnapshotNode[4];
+      children[NW] = new QuadTreeForGroundSnapshotNode(new Box(bounds.minX, bounds.centreY, bounds.centreX, bounds.maxY), version);
+      children[NE] = new QuadTreeForGroundSnapshotNode(new Box(bounds.centreX, bounds.centreY, bounds.maxX, bounds.maxY), version);
+      children[SE] = new QuadTreeForGroundSnapshotNode(new Box(bounds.centreX, bounds.minY, bounds.maxX, bounds.centreY), version);
+      children[SW] = new QuadTreeForGroundSnapshotNode(new Box(bounds.minX, bounds.minY, bounds.centreX, bounds.centreY), version);
+
+      double[] pointsToRedistribute = points;
+      points = NO_POINTS;
+      averageX = averageY = averageZ = Double.NaN;
+      return pointsToRedistribute;
+   }
+
+   /**
+    * Adds the point to this leaf, replacing the least recent one when the leaf is full. The point
+    * array is never modified in place such that a copy of this node can share it.
+    */
+   void addPoint(double x, double y, double z, int maxNumberOfPoints)
+   {
+      int numberOfPoints = getNumberOfPoints();
+      double[] newPoints;
+
+      if (numberOfPoints < maxNumberOfPoints)
+      {
+         newPoints = new double[points.length + 3];
+         System.arraycopy(points, 0, newPoints, 0, points.length);
+      }
+      else
+      {
+         newPoints = new double[points.length];
+         System.arraycopy(points, 3, newPoints, 0, points.length - 3);
+      }
+
+      newPoints[newPoints.length - 3] = x;
+      newPoints[newPoints.length - 2] = y;
+      newPoints[newPoints.length - 1] = z;
+      points = newPoints;
+      updateAveragePoint();
+   }
+
+   boolean hasPoint(double x, double y, double z)
+   {
+      return indexOfPoint(x, y, z) >= 0;
+   }
+
+   void removePoint(double x, double y, double z)
+   {
+      int index = indexOfPoint(x, y, z);
+
+      if (index < 0)
+         return;
+
+      if (points.length == 3)
+      {
+         points = NO_POINTS;
+         averageX = averageY = averageZ = Double.NaN;
+         return;
+      }
+
+      double[] newPoints = new double[points.length - 3];
+      System.arraycopy(points, 0, newPoints, 0, index);
+      System.arraycopy(points, index + 3, newPoints, index, points.length - index - 3);
+      points = newPoints;
+      updateAveragePoint();
+   }
+
+   /**
+    * Removes the children of this node, they are expected to be empty.
+    */
+   void merge()
+   {
+      children = null;
+   }
+
+   private int indexOfPoint(double x, double y, double z)
+   {
+      for (int i = 0; i < points.length; i += 3)
+      {
+         if (points[i] == x && points[i + 1] == y && points[i + 2] == z)
+            return i;
+      }
+
+      return -1;
+   }
+
+   private void updateAveragePoint()
+   {
+      averageX = averageY = averageZ = 0.0;
+      for (int i = 0; i < points.length; i += 3)
+      {
+         averageX += points[i];
+         averageY += points[i + 1];
+         averageZ += points[i + 2];
+      }
+      double inverseNumberOfPoints = 3.0 / points.length;
+      averageX *= inverseNumberOfPoints;
+      averageY *= inverseNumberOfPoints;
+      averageZ *= inverseNumberOfPoints;
+   }
+
+   void getClosestPointAndDistance(double x, double y, double resolution, PointAndDistance bestSoFarToUpdate)
+   {
+      double distance = bestSoFarToUpdate.getDistance();
+
+      // exclude node if point is farther away than best distance in either axis
+      if (x < bounds.minX - distance || x > bounds.maxX + distance || y < bounds.minY - distance || y > bounds.maxY + distance)
+         return;
+
+      if (children != null)
+      {
+         int closestQuadrant = getQuadrant(x, y);
+         children[closestQuadrant].getClosestPointAndDistance(x, y, resolution, bestSoFarToUpdate);
+
+         for (int quadrant = 0; quadrant < 4; quadrant++)
+         {
+            if (quadrant != closestQuadrant)
+               children[quadrant].getClosestPointAndDistance(x, y, resolution, bestSoFarToUpdate);
+         }
+      }
+      else if (isLeaf())
+      {
+         double bestDistanceSquared = distance * distance;
+
+         if (isAtSmallestResolution(resolution))
+         {
+            double distanceSquared = distanceXYSquared(x, y, averageX, averageY);
+
+            if (distanceSquared < bestDistanceSquared)
+            {
+               bestSoFarToUpdate.getPoint().set(averageX, averageY, averageZ);
+               bestSoFarToUpdate.setDistance(Math.sqrt(distanceSquared));
+            }
+         }
+         else
+         {
+            int betterPointIndex = -1;
+
+            for (int i = 0; i < points.length; i += 3)
+            {
+               double distanceSquared = distanceXYSquared(x, y, points[i], points[i + 1]);
+
+               if (distanceSquared < bestDistanceSquared)
+               {
+                  betterPointIndex = i;
+                  bestDistanceSquared = distanceSquared;
+               }
+            }
+
+            if (betterPointIndex >= 0)
+            {
+               // Use the average for z to do some filtering...
+               bestSoFarToUpdate.getPoint().set(points[betterPointIndex], points[betterPointIndex + 1], averageZ);
+               bestSoFarToUpdate.setDistance(Math.sqrt(bestDistanceSquared));
+            }
+         }
+      }
+   }
+
+   void getAllPointsWithinDistance(double x, double y, double maxDistance, List<Point3D> pointsWithinDistanceToPack)
+   {
+      if (children != null)
+      {
+         for (QuadTreeForGroundSnapshotNode child : children)
+         {
+            if (child.bounds.calcDist(x, y) <= maxDistance)
+               child.getAllPointsWithinDistance(x, y, maxDistance, pointsWithinDistanceToPack);
+         }
+      }
+      else
+      {
+         double maxDistanceSquared = maxDistance * maxDistance;
+
+         for (int i = 0; i < points.length; i += 3)
+         {
+            if (distanceXYSquared(x, y, points[i], points[i + 1]) < maxDistanceSquared)
+               pointsWithinDistanceToPack.add(new Point3D(points[i], points[i + 1], points[i + 2]));
+         }
+      }
+   }
+
+   void getAllPointsWithinBounds(Box boundsToSearch, List<Point3D> pointsWithinBoundsToPack)
+   {
+      if (children != null)
+      {
+         for (QuadTreeForGroundSnapshotNode child : children)
+         {
+            if (child.bounds.intersects(boundsToSearch))
+               child.getAllPointsWithinBounds(boundsToSearch, pointsWithinBoundsToPack);
+         }
+      }
+      else
+      {
+         for (int i = 0; i < points.length; i += 3)
+         {
+            if (boundsToSearch.containsOrEquals(points[i], points[i + 1]))
+               pointsWithinBoundsToPack.add(new Point3D(points[i], points[i + 1], points[i + 2]));
+         }
+      }
+   }
+
+   void getAllLeaves(Collection<QuadTreeForGroundSnapshotNode> leavesToPack)
+   {
+      if (children != null)
+      {
+         for (QuadTreeForGroundSnapshotNode child : children)
+            child.getAllLeaves(leavesToPack);
+      }
+      else if (isLeaf())
+      {
+         leavesToPack.add(this);
+      }
+   }
+
+   private static double distanceXYSquared(double x0, double y0, double x1, double y1)
+   {
+      double dx = x1 - x0;
+      double dy = y1 - y0;
+      return dx * dx + dy * dy;
+   }
+
+   @Override
+   public String toString()
+   {
+      return "QuadNode{" + "bounds=" + bounds + ", numberOfPoints=" + getNumberOfPoints() + ", hasChildren=" + hasChildren() + ", version=" + version + '}';
+   }
+}
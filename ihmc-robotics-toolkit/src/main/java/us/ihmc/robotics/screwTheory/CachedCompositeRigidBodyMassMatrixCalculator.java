@@ -0,0 +1,466 @@
+package us.ihmc.robotics.screwTheory;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import org.ejml.data.DenseMatrix64F;
+import org.ejml.ops.CommonOps;
+
+import us.ihmc.euclid.matrix.interfaces.RotationMatrixReadOnly;
+import us.ihmc.euclid.referenceFrame.ReferenceFrame;
+import us.ihmc.euclid.transform.RigidBodyTransform;
+import us.ihmc.euclid.tuple3D.interfaces.Tuple3DReadOnly;
+import us.ihmc.mecano.multiBodySystem.interfaces.JointBasics;
+import us.ihmc.mecano.multiBodySystem.interfaces.RigidBodyBasics;
+import us.ihmc.mecano.spatial.SpatialInertia;
+import us.ihmc.mecano.spatial.SpatialVector;
+import us.ihmc.mecano.spatial.Twist;
+import us.ihmc.mecano.tools.MultiBodySystemTools;
+
+/**
+ * Computes the joint space mass matrix with the composite rigid body algorithm, only recomputing
+ * the blocks that depend on joints that have moved since the previous computation.
+ * <p>
+ * The block of the mass matrix coupling a joint to one of its ancestors only depends on the joints
+ * of the subtree below the joint and on the joints between the two, such that the motion of a
+ * limb only invalidates the blocks of that limb and the coupling of that limb with the joints
+ * above it, and the motion of the root joint of a floating system invalidates nothing. The motion
+ * of the joints is detected using a {@link KinematicTreeChangeTracker} which can be shared with
+ * other calculators, for instance {@link GeometricJacobian}.
+ * </p>
+ * <p>
+ * Optionally, the blocks are computed in parallel. The frames of the system are only accessed from
+ * the calling thread.
+ * </p>
+ * <p>
+ * The frames of the system have to be updated before calling {@link #compute()}. This calculator
+ * assumes that the unit twists of each joint expressed in the frame after the joint and the
+ * inertia of each rigid body do not change, {@link #reset()} has to be called otherwise.
+ * </p>
+ */
+public class CachedCompositeRigidBodyMassMatrixCalculator implements MassMatrixCalculator
+{
+   private final JointBasics[] jointsInOrder;
+   private final KinematicTreeChangeTracker changeTracker;
+
+   private final int[] trackedJointIndices;
+   private final long[] trackedJointVersions;
+   private final int[] parentIndices;
+   private final int[][] childIndices;
+   private final int[] dofOffsets;
+
+   private final DenseMatrix64F[] motionSubspaces;
+   private final DenseMatrix64F[] bodyInertias;
+   private final DenseMatrix64F[] compositeInertias;
+   /** Motion transform from the frame after the parent joint to the frame after the joint. */
+   private final DenseMatrix64F[] motionTransforms;
+   /** Forces of the composite body of a joint expressed in the frame after each of its ancestors. */
+   private final DenseMatrix64F[][] propagatedForces;
+
+   private final boolean[] hasMoved;
+   private final boolean[] isCompositeInertiaDirty;
+   private boolean isInitialized = false;
+
+   private final DenseMatrix64F massMatrix;
+
+   private final RigidBodyTransform tempTransform = new RigidBodyTransform();
+   private final DenseMatrix64F tempInertia = new DenseMatrix64F(SpatialVector.SIZE, SpatialVector.SIZE);
+
+   private final int numberOfThreads;
+   private final int[] numberOfComputedBlocks;
+   private final List<Runnable> workerTasks = new ArrayList<>();
+   private final List<Future<?>> pendingTasks = new ArrayList<>();
+   private final ExecutorService executor;
+
+   /**
+    * Creates a calculator for the subtree starting at {@code rootBody}, computing the mass matrix on
+    * the calling thread.
+    *
+    * @param rootBody the root of the system.
+    */
+   public CachedCompositeRigidBodyMassMatrixCalculator(RigidBodyBasics rootBody)
+   {
+      this(rootBody, new KinematicTreeChangeTracker(rootBody), 1);
+   }
+
+   /**
+    * @param rootBody the root of the system.
+    * @param changeTracker the tracker of a tree containing all the joints of the system, it is
+    *           updated by this calculator.
+    * @param numberOfThreads the number of threads computing the blocks of the mass matrix, including
+    *           the calling thread.
+    */
+   public CachedCompositeRigidBodyMassMatrixCalculator(RigidBodyBasics rootBody, KinematicTreeChangeTracker changeTracker, int numberOfThreads)
+   {
+      if (numberOfThreads < 1)
+         throw new IllegalArgumentException("The number of threads has to be at least 1, was " + numberOfThreads);
+
+      this.changeTracker = changeTracker;
+      this.numberOfThreads = numberOfThreads;
+
+      jointsInOrder = MultiBodySystemTools.collectSubtreeJoints(rootBody);
+      int numberOfJoints = jointsInOrder.length;
+
+      Map<JointBasics, Integer> jointIndices = new HashMap<>();
+      for (int i = 0; i < numberOfJoints; i++)
+         jointIndices.put(jointsInOrder[i], i);
+
+      trackedJointIndices = new int[numberOfJoints];
+      trackedJointVersions = new long[numberOfJoints];
+      parentIndices = new int[numberOfJoints];
+      childIndices = new int[numberOfJoints][];
+      dofOffsets = new int[numberOfJoints];
+      motionSubspaces = new DenseMatrix64F[numberOfJoints];
+      bodyInertias = new DenseMatrix64F[numberOfJoints];
+      compositeInertias = new DenseMatrix64F[numberOfJoints];
+      motionTransforms = new DenseMatrix64F[numberOfJoints];
+      propagatedForces = new DenseMatrix64F[numberOfJoints][];
+      hasMoved = new boolean[numberOfJoints];
+      isCompositeInertiaDirty = new boolean[numberOfJoints];
+
+      int dofOffset = 0;
+
+      for (int i = 0; i < numberOfJoints; i++)
+      {
+         JointBasics joint = jointsInOrder[i];
+         int numberOfDoFs = joint.getDegreesOfFreedom();
+
+         trackedJointIndices[i] = changeTracker.getJointIndex(joint);
+         Integer parentIndex = jointIndices.get(joint.getPredecessor().getParentJoint());
+         parentIndices[i] = parentIndex == null ? -1 : parentIndex;
+
+         List<? extends JointBasics> childrenJoints = joint.getSuccessor().getChildrenJoints();
+         childIndices[i] = new int[childrenJoints.size()];
+         for (int childIndex = 0; childIndex < childrenJoints.size(); childIndex++)
+            childIndices[i][childIndex] = jointIndices.get(childrenJoints.get(childIndex));
+
+         dofOffsets[i] = dofOffset;
+         dofOffset += numberOfDoFs;
+
+         motionSubspaces[i] = new DenseMatrix64F(SpatialVector.SIZE, numberOfDoFs);
+         bodyInertias[i] = new DenseMatrix64F(SpatialVector.SIZE, SpatialVector.SIZE);
+         compositeInertias[i] = new DenseMatrix64F(SpatialVector.SIZE, SpatialVector.SIZE);
+         motionTransforms[i] = new DenseMatrix64F(SpatialVector.SIZE, SpatialVector.SIZE);
+
+         int depth = 0;
+         for (int ancestor = parentIndices[i]; ancestor != -1; ancestor = parentIndices[ancestor])
+            depth++;
+
+         propagatedForces[i] = new DenseMatrix64F[depth + 1];
+         for (int level = 0; level <= depth; level++)
+            propagatedForces[i][level] = new DenseMatrix64F(SpatialVector.SIZE, numberOfDoFs);
+      }
+
+      massMatrix = new DenseMatrix64F(dofOffset, dofOffset);
+      numberOfComputedBlocks = new int[numberOfThreads];
+
+      for (int i = 0; i < numberOfThreads; i++)
+      {
+         int workerIndex = i;
+         workerTasks.add(() -> computeBlocks(workerIndex));
+      }
+
+      if (numberOfThreads > 1)
+      {
+         String threadName = getClass().getSimpleName() + "Worker";
+         executor = Executors.newFixedThreadPool(numberOfThreads - 1, runnable ->
+         {
+            Thread thread = new Thread(runnable, threadName);
+            thread.setDaemon(true);
+            return thread;
+         });
+      }
+      else
+      {
+         executor = null;
+      }
+
+      reset();
+   }
+
+   /**
+    * Discards the cached blocks and reads the inertia of the rigid bodies and the unit twists of the
+    * joints, such that the next call to {@link #compute()} recomputes the entire mass matrix.
+    */
+   public void reset()
+   {
+      Twist unitTwist = new Twist();
+      SpatialInertia inertia = new SpatialInertia();
+
+      for (int i = 0; i < jointsInOrder.length; i++)
+      {
+         JointBasics joint = jointsInOrder[i];
+         ReferenceFrame frameAfterJoint = joint.getFrameAfterJoint();
+
+         for (int dofIndex = 0; dofIndex < joint.getDegreesOfFreedom(); dofIndex++)
+         {
+            unitTwist.setIncludingFrame(joint.getUnitTwists().get(dofIndex));
+            unitTwist.changeFrame(frameAfterJoint);
+            unitTwist.get(0, dofIndex, motionSubspaces[i]);
+         }
+
+         inertia.setIncludingFrame(joint.getSuccessor().getInertia());
+         inertia.changeFrame(frameAfterJoint);
+         inertia.get(bodyInertias[i]);
+      }
+
+      isInitialized = false;
+   }
+
+   @Override
+   public void compute()
+   {
+      changeTracker.update();
+      updateTransforms();
+      updateCompositeInertias();
+
+      for (int i = 1; i < numberOfThreads; i++)
+         pendingTasks.add(executor.submit(workerTasks.get(i)));
+
+      workerTasks.get(0).run();
+      waitForPendingTasks();
+
+      isInitialized = true;
+   }
+
+   private void updateTransforms()
+   {
+      for (int i = 0; i < jointsInOrder.length; i++)
+      {
+         long version = changeTracker.getVersion(trackedJointIndices[i]);
+         hasMoved[i] = !isInitialized || version != trackedJointVersions[i];
+         trackedJointVersions[i] = version;
+
+         if (hasMoved[i] && parentIndices[i] != -1)
+         {
+            ReferenceFrame parentFrame = jointsInOrder[parentIndices[i]].getFrameAfterJoint();
+            parentFrame.getTransformToDesiredFrame(tempTransform, jointsInOrder[i].getFrameAfterJoint());
+            packMotionTransform(tempTransform, motionTransforms[i]);
+         }
+      }
+   }
+
+   private void updateCompositeInertias()
+   {
+      // Children are after their parent in the joint ordering.
+      for (int i = jointsInOrder.length - 1; i >= 0; i--)
+      {
+         boolean isDirty = !isInitialized;
+         for (int child : childIndices[i])
+            isDirty |= hasMoved[child] || isCompositeInertiaDirty[child];
+         isCompositeInertiaDirty[i] = isDirty;
+
+         if (!isDirty)
+            continue;
+
+         DenseMatrix64F compositeInertia = compositeInertias[i];
+         compositeInertia.set(bodyInertias[i]);
+
+         for (int child : childIndices[i])
+         {
+            CommonOps.multTransA(motionTransforms[child], compositeInertias[child], tempInertia);
+            CommonOps.multAdd(tempInertia, motionTransforms[child], compositeInertia);
+         }
+      }
+   }
+
+   private void computeBlocks(int workerIndex)
+   {
+      int computedBlocks = 0;
+
+      for (int i = workerIndex; i < jointsInOrder.length; i += numberOfThreads)
+      {
+         DenseMatrix64F[] forces = propagatedForces[i];
+         boolean isDirty = isCompositeInertiaDirty[i];
+
+         if (isDirty)
+         {
+            CommonOps.mult(compositeInertias[i], motionSubspaces[i], forces[0]);
+            setBlock(i, i, forces[0]);
+            computedBlocks++;
+         }
+
+         int descendant = i;
+         int level = 0;
+
+         for (int ancestor = parentIndices[i]; ancestor != -1; ancestor = parentIndices[ancestor])
+         {
+            isDirty |= hasMoved[descendant];
+
+            if (isDirty)
+            {
+               CommonOps.multTransA(motionTransforms[descendant], forces[level], forces[level + 1]);
+               setBlock(ancestor, i, forces[level + 1]);
+               computedBlocks++;
+            }
+
+            descendant = ancestor;
+            level++;
+         }
+      }
+
+      numberOfComputedBlocks[workerIndex] = computedBlocks;
+   }
+
+   /**
+    * Sets the block H<sub>ji</sub> = S<sub>j</sub><sup>T</sup> F and its transpose, F being the
+    * force of the composite body of the joint i expressed in the frame after the joint j.
+    */
+   private void setBlock(int jointIndexJ, int jointIndexI, DenseMatrix64F force)
+   {
+      DenseMatrix64F motionSubspace = motionSubspaces[jointIndexJ];
+      int rowOffset = dofOffsets[jointIndexJ];
+      int columnOffset = dofOffsets[jointIndexI];
+
+      for (int row = 0; row < motionSubspace.getNumCols(); row++)
+      {
+         for (int column = 0; column < force.getNumCols(); column++)
+         {
+            double value = 0.0;
+            for (int k = 0; k < SpatialVector.SIZE; k++)
+               value += motionSubspace.unsafe_get(k, row) * force.unsafe_get(k, column);
+
+            massMatrix.unsafe_set(rowOffset + row, columnOffset + column, value);
+            massMatrix.unsafe_set(columnOffset + column, rowOffset + row, value);
+         }
+      }
+   }
+
+   /**
+    * Packs the 6-by-6 matrix transforming a twist, angular part first, expressed in the frame
+    * {@code A} into the frame {@code B}, given the transform from {@code A} to {@code B}:
+    *
+    * <pre>
+    *     / R   0 \
+    * X = |       |
+    *     \ pR  R /
+    * </pre>
+    *
+    * where p is the skew-symmetric matrix of the translation.
+    */
+   static void packMotionTransform(RigidBodyTransform transform, DenseMatrix64F motionTransformToPack)
+   {
+      RotationMatrixReadOnly rotation = transform.getRotation();
+      Tuple3DReadOnly translation = transform.getTranslation();
+      double px = translation.getX(), py = translation.getY(), pz = translation.getZ();
+
+      motionTransformToPack.reshape(SpatialVector.SIZE, SpatialVector.SIZE);
+      motionTransformToPack.zero();
+
+      for (int column = 0; column < 3; column++)
+      {
+         double r0 = rotation.getElement(0, column);
+         double r1 = rotation.getElement(1, column);
+         double r2 = rotation.getElement(2, column);
+
+         for (int row = 0; row < 3; row++)
+         {
+            double r = rotation.getElement(row, column);
+            motionTransformToPack.unsafe_set(row, column, r);
+            motionTransformToPack.unsafe_set(row + 3, column + 3, r);
+         }
+
+         motionTransformToPack.unsafe_set(3, column, py * r2 - pz * r1);
+         motionTransformToPack.unsafe_set(4, column, pz * r0 - px * r2);
+         motionTransformToPack.unsafe_set(5, column, px * r1 - py * r0);
+      }
+   }
+
+   private void waitForPendingTasks()
+   {
+      Throwable failure = null;
+
+      for (int i = 0; i < pendingTasks.size(); i++)
+      {
+         try
+         {
+            pendingTasks.get(i).get();
+         }
+         catch (ExecutionException e)
+         {
+            if (failure == null)
+               failure = e.getCause();
+         }
+         catch (InterruptedException e)
+         {
+            if (failure == null)
+               failure = e;
+         }
+      }
+
+      pendingTasks.clear();
+
+      if (failure instanceof RuntimeException)
+         throw (RuntimeException) failure;
+      else if (failure != null)
+         throw new RuntimeException(failure);
+   }
+
+   /**
+    * @return the number of blocks of the mass matrix, counting each pair of symmetric blocks once,
+    *         that were computed during the last call to {@link #compute()}.
+    */
+   public int getNumberOfComputedBlocks()
+   {
+      int total = 0;
+      for (int i = 0; i < numberOfThreads; i++)
+         total += numberOfComputedBlocks[i];
+      return total;
+   }
+
+   /**
+    * @return the number of blocks of the mass matrix, counting each pair of symmetric blocks once,
+    *         that can be non-zero.
+    */
+   public int getNumberOfBlocks()
+   {
+      int total = 0;
+      for (int i = 0; i < jointsInOrder.length; i++)
+         total += propagatedForces[i].length;
+      return total;
+   }
+
+   /**
+    * Stops the additional threads, this calculator cannot be used afterwards when it has more than
+    * one thread.
+    */
+   public void close()
+   {
+      if (executor != null)
+         executor.shutdown();
+   }
+
+   public int getNumberOfThreads()
+   {
+      return numberOfThreads;
+   }
+
+   public KinematicTreeChangeTracker getChangeTracker()
+   {
+      return changeTracker;
+   }
+
+   @Override
+   public DenseMatrix64F getMassMatrix()
+   {
+      return massMatrix;
+   }
+
+   @Override
+   public void getMassMatrix(DenseMatrix64F massMatrixToPack)
+   {
+      massMatrixToPack.set(massMatrix);
+   }
+
+   @Override
+   public JointBasics[] getJointsInOrder()
+   {
+      return jointsInOrder;
+   }
+}
@@ -1,12 +1,22 @@
 package us.ihmc.robotics.screwTheory;
 
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
 import org.ejml.data.DenseMatrix64F;
 import org.ejml.ops.CommonOps;
 
 import us.ihmc.euclid.referenceFrame.ReferenceFrame;
 import us.ihmc.euclid.referenceFrame.exceptions.ReferenceFrameMismatchException;
+import us.ihmc.euclid.transform.RigidBodyTransform;
 import us.ihmc.mecano.multiBodySystem.RevoluteJoint;
 import us.ihmc.mecano.multiBodySystem.interfaces.JointBasics;
+import us.ihmc.mecano.multiBodySystem.interfaces.JointReadOnly;
 import us.ihmc.mecano.multiBodySystem.interfaces.RigidBodyBasics;
 import us.ihmc.mecano.spatial.SpatialVector;
 import us.ihmc.mecano.spatial.Twist;
@@ -35,6 +45,13 @@ import us.ihmc.mecano.tools.MultiBodySystemTools;
  * end-effector.
  * </ul>
  * </p>
+ * <p>
+ * When a {@link KinematicTreeChangeTracker} is provided with
+ * {@link #setChangeTracker(KinematicTreeChangeTracker)}, {@link #compute()} reuses the previous
+ * matrix if none of the joints from the base to the end-effector and from the base to the
+ * rigid-body the {@code jacobianFrame} is attached to has moved. A {@code jacobianFrame} that is not
+ * attached to a rigid-body of the tracked tree causes the matrix to be recomputed at every call.
+ * </p>
  */
 public class GeometricJacobian
 {
@@ -54,6 +71,13 @@ public class GeometricJacobian
    private final boolean allowChangeFrame;
    private final int hashCode;
 
+   private KinematicTreeChangeTracker changeTracker;
+   /** The tracking data of each frame this Jacobian has been expressed in, such that changing frame does not allocate. */
+   private final Map<ReferenceFrame, JacobianFrameTracking> jacobianFrameTrackings = new HashMap<>();
+   private JacobianFrameTracking jacobianFrameTracking;
+   private boolean hasMatrixToReuse = false;
+   private boolean wasRecomputed = false;
+
    /**
     * Creates the Jacobian for the kinematic chain described by the given joints. These joints have
     * to be ordered and going downstream (the first joint has to be the closest joint to the root of
@@ -135,10 +159,134 @@ public class GeometricJacobian
    private final Twist tempTwist = new Twist();
 
    /**
-    * Computes the Jacobian.
+    * Enables the reuse of the Jacobian matrix when the joints it depends on have not moved. The
+    * tracker has to be updated after the frames are updated and before calling {@link #compute()}.
+    *
+    * @param changeTracker the tracker of the tree this Jacobian belongs to, or {@code null} to
+    *           recompute the matrix at every call to {@link #compute()}.
+    * @throws IllegalArgumentException if the joints of this Jacobian are not tracked.
+    */
+   public void setChangeTracker(KinematicTreeChangeTracker changeTracker)
+   {
+      this.changeTracker = changeTracker;
+      hasMatrixToReuse = false;
+
+      jacobianFrameTrackings.clear();
+      jacobianFrameTracking = null;
+
+      if (changeTracker != null)
+         updateJacobianFrameTracking();
+   }
+
+   /**
+    * Gets the tracking data for the current {@code jacobianFrame}, it is only created the first time
+    * this Jacobian is expressed in that frame.
+    */
+   private void updateJacobianFrameTracking()
+   {
+      jacobianFrameTracking = jacobianFrameTrackings.get(jacobianFrame);
+
+      if (jacobianFrameTracking == null)
+      {
+         jacobianFrameTracking = createJacobianFrameTracking();
+         jacobianFrameTrackings.put(jacobianFrame, jacobianFrameTracking);
+      }
+   }
+
+   /**
+    * Collects the joints and frames the transform from {@code jacobianFrame} to the base frame
+    * depends on, such that {@link #compute()} does not need to compute this transform to find out
+    * whether the Jacobian frame has moved.
+    */
+   private JacobianFrameTracking createJacobianFrameTracking()
+   {
+      List<JointReadOnly> trackedJoints = new ArrayList<>(Arrays.asList(jointPathFromBaseToEndEffector));
+      List<ReferenceFrame> framesToBody = new ArrayList<>();
+      RigidBodyBasics jacobianFrameBody = findJacobianFrameBody(framesToBody);
+      boolean isJacobianFrameTracked = jacobianFrameBody != null && collectJointsBetween(getBase(), jacobianFrameBody, trackedJoints);
+      if (!isJacobianFrameTracked)
+         framesToBody.clear();
+
+      int[] trackedJointIndices = new int[trackedJoints.size()];
+      for (int i = 0; i < trackedJoints.size(); i++)
+         trackedJointIndices[i] = changeTracker.getJointIndex(trackedJoints.get(i));
+
+      return new JacobianFrameTracking(isJacobianFrameTracked, trackedJointIndices, framesToBody.toArray(new ReferenceFrame[framesToBody.size()]));
+   }
+
+   /**
+    * Walks up from {@code jacobianFrame} until reaching a frame fixed to a rigid-body of the tracked
+    * tree.
+    *
+    * @param framesToBodyToPack the frames visited before reaching the rigid-body. Modified.
+    * @return the rigid-body the Jacobian frame is attached to, or {@code null} if it is not attached
+    *         to the tracked tree.
+    */
+   private RigidBodyBasics findJacobianFrameBody(List<ReferenceFrame> framesToBodyToPack)
+   {
+      Map<ReferenceFrame, RigidBodyBasics> bodyFixedFrames = new HashMap<>();
+      for (JointBasics joint : changeTracker.getJoints())
+      {
+         bodyFixedFrames.put(joint.getFrameBeforeJoint(), joint.getPredecessor());
+         bodyFixedFrames.put(joint.getPredecessor().getBodyFixedFrame(), joint.getPredecessor());
+         bodyFixedFrames.put(joint.getFrameAfterJoint(), joint.getSuccessor());
+         bodyFixedFrames.put(joint.getSuccessor().getBodyFixedFrame(), joint.getSuccessor());
+      }
+
+      for (ReferenceFrame frame = jacobianFrame; frame != null; frame = frame.getParent())
+      {
+         RigidBodyBasics body = bodyFixedFrames.get(frame);
+         if (body != null)
+            return body;
+         framesToBodyToPack.add(frame);
+      }
+
+      return null;
+   }
+
+   /**
+    * Adds the joints from {@code base} and from {@code body} up to their nearest common ancestor.
+    *
+    * @return whether the two rigid-bodies are connected by joints of the tracked tree.
+    */
+   private boolean collectJointsBetween(RigidBodyBasics base, RigidBodyBasics body, List<JointReadOnly> jointsToPack)
+   {
+      Set<RigidBodyBasics> baseAncestors = new HashSet<>();
+      for (RigidBodyBasics ancestor = base; ancestor != null; ancestor = ancestor.isRootBody() ? null : ancestor.getParentJoint().getPredecessor())
+         baseAncestors.add(ancestor);
+
+      RigidBodyBasics commonAncestor = body;
+      while (!baseAncestors.contains(commonAncestor))
+      {
+         if (commonAncestor.isRootBody() || !changeTracker.isTracked(commonAncestor.getParentJoint()))
+            return false;
+         if (!jointsToPack.contains(commonAncestor.getParentJoint()))
+            jointsToPack.add(commonAncestor.getParentJoint());
+         commonAncestor = commonAncestor.getParentJoint().getPredecessor();
+      }
+
+      for (RigidBodyBasics ancestor = base; ancestor != commonAncestor; ancestor = ancestor.getParentJoint().getPredecessor())
+      {
+         if (!changeTracker.isTracked(ancestor.getParentJoint()))
+            return false;
+         if (!jointsToPack.contains(ancestor.getParentJoint()))
+            jointsToPack.add(ancestor.getParentJoint());
+      }
+
+      return true;
+   }
+
+   /**
+    * Computes the Jacobian, or reuses the previous matrix if a change tracker is used and nothing
+    * this Jacobian depends on has moved.
     */
    public void compute()
    {
+      wasRecomputed = changeTracker == null || hasMovedSinceLastCompute();
+
+      if (!wasRecomputed)
+         return;
+
       int column = 0;
       for (int jointIndex = 0; jointIndex < joints.length; jointIndex++)
       {
@@ -153,6 +301,45 @@ public class GeometricJacobian
       }
    }
 
+   private boolean hasMovedSinceLastCompute()
+   {
+      JacobianFrameTracking tracking = jacobianFrameTracking;
+      boolean hasMoved = !hasMatrixToReuse || !tracking.isJacobianFrameTracked;
+
+      for (int i = 0; i < tracking.jointIndices.length; i++)
+      {
+         long version = changeTracker.getVersion(tracking.jointIndices[i]);
+
+         if (version != tracking.jointVersions[i])
+         {
+            tracking.jointVersions[i] = version;
+            hasMoved = true;
+         }
+      }
+
+      for (int i = 0; i < tracking.framesToJacobianFrameBody.length; i++)
+      {
+         RigidBodyTransform transformToParent = tracking.framesToJacobianFrameBody[i].getTransformToParent();
+
+         if (!transformToParent.epsilonEquals(tracking.transformsToJacobianFrameBody[i], 0.0))
+         {
+            tracking.transformsToJacobianFrameBody[i].set(transformToParent);
+            hasMoved = true;
+         }
+      }
+
+      hasMatrixToReuse = true;
+      return hasMoved;
+   }
+
+   /**
+    * @return {@code false} if the last call to {@link #compute()} reused the previous matrix.
+    */
+   public boolean wasRecomputed()
+   {
+      return wasRecomputed;
+   }
+
    /**
     * Changes the frame in which the resulting twist of the end effector with respect to the base
     * frame will be expressed. The boolean {@code allowChangeFrame} has to be initialize to
@@ -170,7 +357,14 @@ public class GeometricJacobian
       if (!allowChangeFrame)
          throw new RuntimeException("Cannot change the frame of this Jacobian.");
 
+      if (jacobianFrame == this.jacobianFrame)
+         return;
+
       this.jacobianFrame = jacobianFrame;
+      hasMatrixToReuse = false;
+
+      if (changeTracker != null)
+         updateJacobianFrameTracking();
    }
 
    /**
@@ -334,6 +528,31 @@ public class GeometricJacobian
       return getEndEffector().getBodyFixedFrame();
    }
 
+   /**
+    * The joints and frames the matrix depends on when expressed in a given {@code jacobianFrame},
+    * with their state at the last call to {@link #compute()}.
+    */
+   private static class JacobianFrameTracking
+   {
+      private final boolean isJacobianFrameTracked;
+      private final int[] jointIndices;
+      private final long[] jointVersions;
+      /** The frames from {@code jacobianFrame} up to the first frame fixed to a rigid-body of the tree. */
+      private final ReferenceFrame[] framesToJacobianFrameBody;
+      private final RigidBodyTransform[] transformsToJacobianFrameBody;
+
+      private JacobianFrameTracking(boolean isJacobianFrameTracked, int[] jointIndices, ReferenceFrame[] framesToJacobianFrameBody)
+      {
+         this.isJacobianFrameTracked = isJacobianFrameTracked;
+         this.jointIndices = jointIndices;
+         this.framesToJacobianFrameBody = framesToJacobianFrameBody;
+         jointVersions = new long[jointIndices.length];
+         transformsToJacobianFrameBody = new RigidBodyTransform[framesToJacobianFrameBody.length];
+         for (int i = 0; i < framesToJacobianFrameBody.length; i++)
+            transformsToJacobianFrameBody[i] = new RigidBodyTransform(framesToJacobianFrameBody[i].getTransformToParent());
+      }
+   }
+
    private static void checkJointOrder(JointBasics[] joints)
    {
       for (int i = 1; i < joints.length; i++)
@@ -0,0 +1,111 @@
+package us.ihmc.robotics.screwTheory;
+
+import java.util.HashMap;
+import java.util.Map;
+
+import us.ihmc.euclid.transform.RigidBodyTransform;
+import us.ihmc.mecano.multiBodySystem.interfaces.JointBasics;
+import us.ihmc.mecano.multiBodySystem.interfaces.JointReadOnly;
+import us.ihmc.mecano.multiBodySystem.interfaces.RigidBodyBasics;
+import us.ihmc.mecano.tools.MultiBodySystemTools;
+
+/**
+ * Keeps track of which joints of a kinematic tree have moved, such that calculators can reuse the
+ * results that only depend on joints that have not moved.
+ * <p>
+ * Each joint is given a version which is incremented by {@link #update()} every time the transform
+ * from the frame after the joint to the frame before the joint has changed since the previous
+ * update. A calculator stores the versions of the joints it depends on and only recomputes when one
+ * of them differs. As the versions are only read, several calculators can share the same tracker,
+ * and calling {@link #update()} more than once for the same configuration has no effect.
+ * </p>
+ * <p>
+ * The tracker relies on the reference frames of the joints, {@link #update()} has to be called
+ * after the frames of the tree have been updated.
+ * </p>
+ */
+public class KinematicTreeChangeTracker
+{
+   private final JointBasics[] joints;
+   private final RigidBodyTransform[] jointTransforms;
+   private final long[] versions;
+   private final Map<JointReadOnly, Integer> jointIndices = new HashMap<>();
+
+   /**
+    * Creates a tracker for all the joints of the subtree starting at {@code rootBody}.
+    *
+    * @param rootBody the root of the tree to track.
+    */
+   public KinematicTreeChangeTracker(RigidBodyBasics rootBody)
+   {
+      joints = MultiBodySystemTools.collectSubtreeJoints(rootBody);
+      jointTransforms = new RigidBodyTransform[joints.length];
+      versions = new long[joints.length];
+
+      for (int i = 0; i < joints.length; i++)
+      {
+         jointTransforms[i] = new RigidBodyTransform(joints[i].getFrameAfterJoint().getTransformToParent());
+         jointIndices.put(joints[i], i);
+      }
+   }
+
+   /**
+    * Increments the version of each joint that has moved since the previous update.
+    *
+    * @return the number of joints that have moved.
+    */
+   public int update()
+   {
+      int numberOfChangedJoints = 0;
+
+      for (int i = 0; i < joints.length; i++)
+      {
+         RigidBodyTransform jointTransform = joints[i].getFrameAfterJoint().getTransformToParent();
+
+         if (!jointTransform.epsilonEquals(jointTransforms[i], 0.0))
+         {
+            jointTransforms[i].set(jointTransform);
+            versions[i]++;
+            numberOfChangedJoints++;
+         }
+      }
+
+      return numberOfChangedJoints;
+   }
+
+   /**
+    * @param joint a joint of the tracked tree.
+    * @return the index used to query the version of the joint.
+    * @throws IllegalArgumentException if the joint is not part of the tracked tree.
+    */
+   public int getJointIndex(JointReadOnly joint)
+   {
+      Integer jointIndex = jointIndices.get(joint);
+      if (jointIndex == null)
+         throw new IllegalArgumentException("The joint " + joint.getName() + " is not part of the tracked tree.");
+      return jointIndex;
+   }
+
+   /**
+    * @param joint the joint to look for.
+    * @return whether the joint is part of the tracked tree.
+    */
+   public boolean isTracked(JointReadOnly joint)
+   {
+      return jointIndices.containsKey(joint);
+   }
+
+   /**
+    * @param jointIndex the index of the joint as given by {@link #getJointIndex(JointReadOnly)}.
+    * @return the number of times the joint has moved, as detected by {@link #update()}.
+    */
+   public long getVersion(int jointIndex)
+   {
+      return versions[jointIndex];
+   }
+
+   public JointBasics[] getJoints()
+   {
+      return joints;
+   }
+}
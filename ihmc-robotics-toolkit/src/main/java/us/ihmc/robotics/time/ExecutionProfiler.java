@@ -0,0 +1,386 @@
+package us.ihmc.robotics.time;
+
+import java.io.PrintWriter;
+import java.lang.management.ManagementFactory;
+import java.util.Arrays;
+
+import us.ihmc.commons.Conversions;
+import us.ihmc.yoVariables.registry.YoVariableRegistry;
+import us.ihmc.yoVariables.variable.YoDouble;
+import us.ihmc.yoVariables.variable.YoLong;
+
+/**
+ * Measures for a block of code, the execution time and the number of bytes allocated by the
+ * calling thread.
+ * <p>
+ * In addition to the current and maximum values, the execution times are accumulated in a
+ * fixed-resolution histogram from which the median and 99th percentile are periodically extracted.
+ * No memory is allocated after construction, such that this profiler can be used on a real-time
+ * thread without itself being the source of garbage.
+ * </p>
+ * <p>
+ * The allocation measurement relies on the HotSpot specific {@code com.sun.management.ThreadMXBean}.
+ * When not available, the allocation variables remain at zero.
+ * </p>
+ */
+public class ExecutionProfiler
+{
+   /** Default width of a histogram bin: 1 microsecond. */
+   public static final long DEFAULT_HISTOGRAM_RESOLUTION_NANOS = 1000L;
+   /** Default number of histogram bins, with the default resolution the histogram covers 20 milliseconds. */
+   public static final int DEFAULT_NUMBER_OF_HISTOGRAM_BINS = 20000;
+   /** Default number of measurements in between two updates of the percentile variables. */
+   public static final int DEFAULT_PERCENTILE_UPDATE_PERIOD = 1000;
+
+   private static final com.sun.management.ThreadMXBean threadMXBean = getThreadMXBean();
+
+   private final String name;
+
+   private final YoDouble currentTime;
+   private final YoDouble maximumTime;
+   private final YoDouble medianTime;
+   private final YoDouble percentile99Time;
+   private final YoLong currentAllocatedBytes;
+   private final YoLong maximumAllocatedBytes;
+   private final YoLong totalAllocatedBytes;
+   private final YoLong count;
+
+   private final long histogramResolution;
+   /** The last bin is used to store any measurement exceeding the histogram range. */
+   private final int[] histogram;
+   private final int percentileUpdatePeriod;
+   private int measurementsSincePercentileUpdate = 0;
+
+   private long threadId = -1L;
+   private long allocationMeasurementOverhead = -1L;
+   private long startTime;
+   private long startAllocatedBytes;
+
+   public ExecutionProfiler(String name, YoVariableRegistry registry)
+   {
+      this(name, DEFAULT_HISTOGRAM_RESOLUTION_NANOS, DEFAULT_NUMBER_OF_HISTOGRAM_BINS, DEFAULT_PERCENTILE_UPDATE_PERIOD, registry);
+   }
+
+   /**
+    * Creates a new profiler.
+    *
+    * @param name                   prefix used for the variables of this profiler.
+    * @param histogramResolution    the width in nanoseconds of a histogram bin.
+    * @param numberOfHistogramBins  the number of bins, the histogram covers the range [0,
+    *                               {@code histogramResolution * numberOfHistogramBins}]. Measurements
+    *                               above this range are only accounted for in the maximum.
+    * @param percentileUpdatePeriod the number of measurements in between two updates of the
+    *                               percentile variables.
+    * @param registry               the registry to which the variables are attached.
+    */
+   public ExecutionProfiler(String name, long histogramResolution, int numberOfHistogramBins, int percentileUpdatePeriod, YoVariableRegistry registry)
+   {
+      if (histogramResolution <= 0L)
+         throw new IllegalArgumentException("The histogram resolution has to be strictly positive, was: " + histogramResolution);
+      if (numberOfHistogramBins <= 0)
+         throw new IllegalArgumentException("The number of histogram bins has to be strictly positive, was: " + numberOfHistogramBins);
+
+      this.name = name;
+      this.histogramResolution = histogramResolution;
+      this.percentileUpdatePeriod = Math.max(1, percentileUpdatePeriod);
+      histogram = new int[numberOfHistogramBins + 1];
+
+      currentTime = new YoDouble(name + "CurrentTime", registry);
+      maximumTime = new YoDouble(name + "MaximumTime", registry);
+      medianTime = new YoDouble(name + "MedianTime", registry);
+      percentile99Time = new YoDouble(name + "Percentile99Time", registry);
+      currentAllocatedBytes = new YoLong(name + "CurrentAllocatedBytes", registry);
+      maximumAllocatedBytes = new YoLong(name + "MaximumAllocatedBytes", registry);
+      totalAllocatedBytes = new YoLong(name + "TotalAllocatedBytes", registry);
+      count = new YoLong(name + "Count", registry);
+   }
+
+   private static com.sun.management.ThreadMXBean getThreadMXBean()
+   {
+      try
+      {
+         java.lang.management.ThreadMXBean bean = ManagementFactory.getThreadMXBean();
+
+         if (!(bean instanceof com.sun.management.ThreadMXBean))
+            return null;
+
+         com.sun.management.ThreadMXBean sunBean = (com.sun.management.ThreadMXBean) bean;
+
+         if (!sunBean.isThreadAllocatedMemorySupported())
+            return null;
+         if (!sunBean.isThreadAllocatedMemoryEnabled())
+            sunBean.setThreadAllocatedMemoryEnabled(true);
+         return sunBean;
+      }
+      catch (Throwable e)
+      {
+         return null;
+      }
+   }
+
+   /**
+    * Indicates whether the allocation measurement is supported by the running JVM.
+    *
+    * @return {@code true} if the allocated bytes are measured, {@code false} otherwise.
+    */
+   public static boolean isAllocationMeasurementSupported()
+   {
+      return threadMXBean != null;
+   }
+
+   public void startMeasurement()
+   {
+      if (threadMXBean != null)
+      {
+         Thread currentThread = Thread.currentThread();
+
+         if (threadId != currentThread.getId())
+         {
+            threadId = currentThread.getId();
+            calibrateAllocationMeasurement();
+         }
+
+         startAllocatedBytes = threadMXBean.getThreadAllocatedBytes(threadId);
+      }
+
+      startTime = System.nanoTime();
+   }
+
+   public void stopMeasurement()
+   {
+      long duration = System.nanoTime() - startTime;
+      long allocatedBytes = 0L;
+
+      if (threadMXBean != null)
+         allocatedBytes = Math.max(0L, threadMXBean.getThreadAllocatedBytes(threadId) - startAllocatedBytes - allocationMeasurementOverhead);
+
+      recordMeasurement(duration, allocatedBytes);
+   }
+
+   /**
+    * The query of the thread allocated bytes may itself allocate a few bytes depending on the JVM
+    * implementation. This overhead is constant and is measured here such that it can be removed from
+    * the measurements.
+    */
+   private void calibrateAllocationMeasurement()
+   {
+      long overhead = Long.MAX_VALUE;
+
+      for (int i = 0; i < 5; i++)
+      {
+         long first = threadMXBean.getThreadAllocatedBytes(threadId);
+         long second = threadMXBean.getThreadAllocatedBytes(threadId);
+         overhead = Math.min(overhead, second - first);
+      }
+
+      allocationMeasurementOverhead = Math.max(0L, overhead);
+   }
+
+   /**
+    * Records a new measurement.
+    *
+    * @param durationNanos  the execution time in nanoseconds.
+    * @param allocatedBytes the number of bytes allocated during the execution.
+    */
+   public void recordMeasurement(long durationNanos, long allocatedBytes)
+   {
+      count.increment();
+
+      double duration = Conversions.nanosecondsToSeconds(durationNanos);
+      currentTime.set(duration);
+      if (duration > maximumTime.getValue())
+         maximumTime.set(duration);
+
+      currentAllocatedBytes.set(allocatedBytes);
+      totalAllocatedBytes.add(allocatedBytes);
+      if (allocatedBytes > maximumAllocatedBytes.getValue())
+         maximumAllocatedBytes.set(allocatedBytes);
+
+      int binIndex = (int) Math.min(durationNanos / histogramResolution, histogram.length - 1);
+      histogram[Math.max(binIndex, 0)]++;
+
+      measurementsSincePercentileUpdate++;
+
+      if (measurementsSincePercentileUpdate >= percentileUpdatePeriod)
+         updatePercentiles();
+   }
+
+   /**
+    * Updates the variables for the median and 99th percentile from the current histogram.
+    * <p>
+    * This is performed automatically at a fixed rate, see
+    * {@link #ExecutionProfiler(String, long, int, int, YoVariableRegistry)}.
+    * </p>
+    */
+   public void updatePercentiles()
+   {
+      medianTime.set(computePercentile(0.50));
+      percentile99Time.set(computePercentile(0.99));
+      measurementsSincePercentileUpdate = 0;
+   }
+
+   /**
+    * Computes the given percentile of the execution time from the histogram.
+    * <p>
+    * The result is the upper bound of the bin containing the percentile. When the percentile falls
+    * past the histogram range, the maximum measured time is returned.
+    * </p>
+    *
+    * @param percentile the percentile to compute in [0, 1].
+    * @return the execution time in seconds.
+    */
+   public double computePercentile(double percentile)
+   {
+      long total = count.getValue();
+
+      if (total == 0L)
+         return 0.0;
+
+      long threshold = Math.max(1L, (long) Math.ceil(percentile * total));
+      long cumulative = 0L;
+
+      for (int i = 0; i < histogram.length - 1; i++)
+      {
+         cumulative += histogram[i];
+         if (cumulative >= threshold)
+            return Conversions.nanosecondsToSeconds((i + 1) * histogramResolution);
+      }
+
+      return maximumTime.getValue();
+   }
+
+   /**
+    * Clears all the measurements.
+    */
+   public void reset()
+   {
+      Arrays.fill(histogram, 0);
+      measurementsSincePercentileUpdate = 0;
+      count.set(0L);
+      currentTime.set(0.0);
+      maximumTime.set(0.0);
+      medianTime.set(0.0);
+      percentile99Time.set(0.0);
+      currentAllocatedBytes.set(0L);
+      maximumAllocatedBytes.set(0L);
+      totalAllocatedBytes.set(0L);
+   }
+
+   /**
+    * Copies all the measurements of {@code other} into this profiler, for instance to write a report
+    * from another thread while {@code other} keeps measuring.
+    *
+    * @param other the profiler to copy. Its histogram has to have the same resolution and length as
+    *              the histogram of this profiler.
+    */
+   public void set(ExecutionProfiler other)
+   {
+      if (other.histogramResolution != histogramResolution || other.histogram.length != histogram.length)
+         throw new IllegalArgumentException("The histogram of " + other.name + " does not have the same resolution or length as the histogram of " + name);
+
+      System.arraycopy(other.histogram, 0, histogram, 0, histogram.length);
+      measurementsSincePercentileUpdate = other.measurementsSincePercentileUpdate;
+      count.set(other.count.getValue());
+      currentTime.set(other.currentTime.getValue());
+      maximumTime.set(other.maximumTime.getValue());
+      medianTime.set(other.medianTime.getValue());
+      percentile99Time.set(other.percentile99Time.getValue());
+      currentAllocatedBytes.set(other.currentAllocatedBytes.getValue());
+      maximumAllocatedBytes.set(other.maximumAllocatedBytes.getValue());
+      totalAllocatedBytes.set(other.totalAllocatedBytes.getValue());
+   }
+
+   /**
+    * Copies the histogram of this profiler into the given array.
+    *
+    * @param histogramToPack the array in which the histogram is stored. Modified. Its length has to
+    *                        be at least equal to {@link #getHistogramLength()}.
+    */
+   public void getHistogram(int[] histogramToPack)
+   {
+      System.arraycopy(histogram, 0, histogramToPack, 0, histogram.length);
+   }
+
+   /**
+    * Gets the length of the histogram including the overflow bin.
+    *
+    * @return the histogram length.
+    */
+   public int getHistogramLength()
+   {
+      return histogram.length;
+   }
+
+   public long getHistogramResolution()
+   {
+      return histogramResolution;
+   }
+
+   /**
+    * Writes a plain text summary followed by the non-empty bins of the histogram.
+    *
+    * @param writer where the report is written.
+    */
+   public void writeReport(PrintWriter writer)
+   {
+      writer.println("# " + name);
+      writer.println("count, " + count.getValue());
+      writer.println("medianTimeSeconds, " + computePercentile(0.50));
+      writer.println("percentile99TimeSeconds, " + computePercentile(0.99));
+      writer.println("maximumTimeSeconds, " + maximumTime.getValue());
+      writer.println("maximumAllocatedBytes, " + maximumAllocatedBytes.getValue());
+      writer.println("totalAllocatedBytes, " + totalAllocatedBytes.getValue());
+      writer.println("binLowerBoundNanos, count");
+
+      for (int i = 0; i < histogram.length; i++)
+      {
+         if (histogram[i] != 0)
+            writer.println(i * histogramResolution + ", " + histogram[i]);
+      }
+   }
+
+   public String getName()
+   {
+      return name;
+   }
+
+   public YoDouble getCurrentTime()
+   {
+      return currentTime;
+   }
+
+   public YoDouble getMaximumTime()
+   {
+      return maximumTime;
+   }
+
+   public YoDouble getMedianTime()
+   {
+      return medianTime;
+   }
+
+   public YoDouble getPercentile99Time()
+   {
+      return percentile99Time;
+   }
+
+   public YoLong getCurrentAllocatedBytes()
+   {
+      return currentAllocatedBytes;
+   }
+
+   public YoLong getMaximumAllocatedBytes()
+   {
+      return maximumAllocatedBytes;
+   }
+
+   public YoLong getTotalAllocatedBytes()
+   {
+      return totalAllocatedBytes;
+   }
+
+   public YoLong getCount()
+   {
+      return count;
+   }
+}
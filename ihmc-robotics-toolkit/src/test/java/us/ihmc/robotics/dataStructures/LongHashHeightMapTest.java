@@ -0,0 +1,153 @@
+package us.ihmc.robotics.dataStructures;
+
+import static us.ihmc.robotics.Assert.*;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+import org.junit.jupiter.api.Test;
+
+import us.ihmc.euclid.tuple3D.Point3D;
+
+public class LongHashHeightMapTest extends AbstractHeightMapTest
+{
+   private static final double RESOLUTION = 0.1;
+   private static final double eps = 1e-7;
+
+   @Override
+   public HeightMapWithPoints getHeightMap(double minX, double minY, double maxX, double maxY, double resolution)
+   {
+      return new LongHashHeightMap(resolution);
+   }
+
+   @Test
+   public void testSameBehaviorAsDoubleHashHeightMap()
+   {
+      Random random = new Random(7864L);
+      DoubleHashHeightMap expectedMap = new DoubleHashHeightMap(RESOLUTION);
+      LongHashHeightMap map = new LongHashHeightMap(RESOLUTION, 16);
+
+      for (int i = 0; i < 20000; i++)
+      {
+         double x = -20.0 + 40.0 * random.nextDouble();
+         double y = -20.0 + 40.0 * random.nextDouble();
+         double z = random.nextInt(50) == 0 ? Double.NaN : random.nextDouble();
+         expectedMap.addPoint(x, y, z);
+         map.addPoint(x, y, z);
+      }
+
+      for (int i = 0; i < 20000; i++)
+      {
+         double x = -25.0 + 50.0 * random.nextDouble();
+         double y = -25.0 + 50.0 * random.nextDouble();
+         assertEquals(expectedMap.containsPoint(x, y), map.containsPoint(x, y));
+         assertEquals(expectedMap.getHeightAtPoint(x, y), map.getHeightAtPoint(x, y), 0.0);
+      }
+
+      for (int i = 0; i < 50; i++)
+      {
+         double xCenter = -20.0 + 40.0 * random.nextDouble();
+         double yCenter = -20.0 + 40.0 * random.nextDouble();
+         // Small and large areas, the latter go through the table instead of probing each cell.
+         double extent = i % 2 == 0 ? 3.0 * random.nextDouble() : 60.0 * random.nextDouble();
+
+         List<Point3D> expectedPoints = sortByXThenY(expectedMap.getAllPointsWithinArea(xCenter, yCenter, extent, extent));
+         List<Point3D> points = map.getAllPointsWithinArea(xCenter, yCenter, extent, extent);
+
+         assertEquals(expectedPoints.size(), points.size());
+         for (int j = 0; j < points.size(); j++)
+            assertTrue(expectedPoints.get(j).epsilonEquals(points.get(j), eps));
+      }
+
+      map.clear();
+      assertEquals(0, map.size());
+      assertFalse(map.containsPoint(0.0, 0.0));
+      assertEquals(0, map.getAllPointsWithinArea(0.0, 0.0, 100.0, 100.0).size());
+   }
+
+   @Test
+   public void testBulkInsertion()
+   {
+      Random random = new Random(2341L);
+      int numberOfPoints = 10000;
+      float[] pointCloud = new float[3 * numberOfPoints];
+      List<Point3D> points = new ArrayList<>();
+
+      for (int i = 0; i < numberOfPoints; i++)
+      {
+         Point3D point = new Point3D(-5.0 + 10.0 * random.nextDouble(), -5.0 + 10.0 * random.nextDouble(), random.nextDouble());
+         point.set((float) point.getX(), (float) point.getY(), (float) point.getZ());
+         points.add(point);
+         pointCloud[3 * i] = (float) point.getX();
+         pointCloud[3 * i + 1] = (float) point.getY();
+         pointCloud[3 * i + 2] = (float) point.getZ();
+      }
+
+      LongHashHeightMap expectedMap = new LongHashHeightMap(RESOLUTION);
+      for (Point3D point : points)
+         expectedMap.addPoint(point.getX(), point.getY(), point.getZ());
+
+      LongHashHeightMap listMap = new LongHashHeightMap(RESOLUTION);
+      assertEquals(numberOfPoints, listMap.addPoints(points));
+      LongHashHeightMap arrayMap = new LongHashHeightMap(RESOLUTION);
+      assertEquals(numberOfPoints, arrayMap.addPoints(pointCloud, numberOfPoints));
+
+      assertEquals(expectedMap.size(), listMap.size());
+      assertEquals(expectedMap.size(), arrayMap.size());
+
+      for (Point3D point : points)
+      {
+         assertEquals(expectedMap.getHeightAtPoint(point.getX(), point.getY()), listMap.getHeightAtPoint(point.getX(), point.getY()), 0.0);
+         assertEquals(expectedMap.getHeightAtPoint(point.getX(), point.getY()), arrayMap.getHeightAtPoint(point.getX(), point.getY()), 0.0);
+      }
+   }
+
+   @Test
+   public void testSlidingWindow()
+   {
+      LongHashHeightMap map = new LongHashHeightMap(RESOLUTION);
+      map.setSlidingWindow(2.0, 1.0);
+
+      assertTrue(map.addPoint(0.0, 0.0, 1.0));
+      assertTrue(map.addPoint(0.95, 0.45, 2.0));
+      assertFalse(map.addPoint(1.2, 0.0, 3.0));
+      assertFalse(map.addPoint(0.0, -0.7, 3.0));
+      assertEquals(2, map.size());
+
+      map.recenter(1.0, 0.0);
+      assertEquals(2, map.size());
+      assertTrue(map.addPoint(1.2, 0.0, 3.0));
+
+      map.recenter(1.5, 0.0);
+      assertEquals(2, map.size());
+      assertFalse(map.containsPoint(0.0, 0.0));
+      assertEquals(2.0, map.getHeightAtPoint(0.95, 0.45), eps);
+      assertEquals(3.0, map.getHeightAtPoint(1.2, 0.0), eps);
+
+      // Moving along with a robot keeps the number of cells bounded by the window.
+      Random random = new Random(976L);
+      for (int step = 0; step < 200; step++)
+      {
+         double xCenter = 0.05 * step;
+         map.recenter(xCenter, 0.0);
+         for (int i = 0; i < 500; i++)
+            map.addPoint(xCenter - 1.0 + 2.0 * random.nextDouble(), -0.5 + random.nextDouble(), random.nextDouble());
+         assertTrue(map.size() <= 21 * 11);
+      }
+
+      map.disableSlidingWindow();
+      assertTrue(map.addPoint(100.0, 100.0, 1.0));
+   }
+
+   private static List<Point3D> sortByXThenY(List<Point3D> points)
+   {
+      List<Point3D> sortedPoints = new ArrayList<>(points);
+      sortedPoints.sort((a, b) ->
+      {
+         int comparison = Double.compare(a.getX(), b.getX());
+         return comparison != 0 ? comparison : Double.compare(a.getY(), b.getY());
+      });
+      return sortedPoints;
+   }
+}
@@ -0,0 +1,158 @@
+package us.ihmc.robotics.kinematics;
+
+import static us.ihmc.robotics.Assert.*;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+import org.junit.jupiter.api.Test;
+
+import us.ihmc.commons.RandomNumbers;
+import us.ihmc.euclid.transform.RigidBodyTransform;
+import us.ihmc.euclid.tuple3D.Vector3D;
+import us.ihmc.mecano.multiBodySystem.RevoluteJoint;
+import us.ihmc.mecano.tools.MultiBodySystemRandomTools.RandomFloatingRevoluteJointChain;
+import us.ihmc.robotics.screwTheory.GeometricJacobian;
+
+public class ParallelRandomRestartInverseKinematicsCalculatorTest
+{
+   private static final Vector3D X = new Vector3D(1.0, 0.0, 0.0);
+   private static final Vector3D Y = new Vector3D(0.0, 1.0, 0.0);
+   private static final Vector3D Z = new Vector3D(0.0, 0.0, 1.0);
+   static final Vector3D[] ARM_JOINT_AXES = {Y, X, Z, Y, Z, X, Y};
+
+   static final int MAX_RESTARTS = 20;
+   static final double RESTART_TOLERANCE = 0.001;
+   private static final double MINIMUM_SUCCESS_RATE = 0.9;
+
+   @Test
+   public void testSameResultWhateverTheNumberOfThreads()
+   {
+      int numberOfTargets = 50;
+      List<double[]> referenceSolutions = null;
+      List<Boolean> referenceSuccesses = null;
+
+      for (int numberOfThreads = 1; numberOfThreads <= 4; numberOfThreads *= 2)
+      {
+         Random random = new Random(34634L);
+         RandomFloatingRevoluteJointChain arm = new RandomFloatingRevoluteJointChain(random, ARM_JOINT_AXES);
+         GeometricJacobian jacobian = createJacobian(arm);
+         List<RevoluteJoint> revoluteJoints = arm.getRevoluteJoints();
+         ParallelRandomRestartInverseKinematicsCalculator calculator = createParallelCalculator(jacobian, 50, numberOfThreads);
+
+         List<double[]> solutions = new ArrayList<>();
+         List<Boolean> successes = new ArrayList<>();
+
+         for (int i = 0; i < numberOfTargets; i++)
+         {
+            RigidBodyTransform desiredTransform = nextReachableTransform(random, jacobian, revoluteJoints);
+            setRandomPositions(random, revoluteJoints, 0.5 * Math.PI);
+
+            successes.add(calculator.solve(desiredTransform));
+            solutions.add(revoluteJoints.stream().mapToDouble(RevoluteJoint::getQ).toArray());
+         }
+
+         calculator.close();
+
+         if (referenceSolutions == null)
+         {
+            referenceSolutions = solutions;
+            referenceSuccesses = successes;
+            continue;
+         }
+
+         for (int i = 0; i < numberOfTargets; i++)
+         {
+            assertEquals(referenceSuccesses.get(i), successes.get(i));
+            assertArrayEquals(referenceSolutions.get(i), solutions.get(i), 0.0);
+         }
+      }
+   }
+
+   @Test
+   public void testSolutionReachesTarget()
+   {
+      Random random = new Random(2356L);
+      RandomFloatingRevoluteJointChain arm = new RandomFloatingRevoluteJointChain(random, ARM_JOINT_AXES);
+      GeometricJacobian jacobian = createJacobian(arm);
+      List<RevoluteJoint> revoluteJoints = arm.getRevoluteJoints();
+      ParallelRandomRestartInverseKinematicsCalculator calculator = createParallelCalculator(jacobian, 1500, 2);
+
+      int numberOfTargets = 200;
+      int numberOfSuccesses = 0;
+
+      for (int i = 0; i < numberOfTargets; i++)
+      {
+         RigidBodyTransform desiredTransform = nextReachableTransform(random, jacobian, revoluteJoints);
+         setRandomPositions(random, revoluteJoints, 0.5 * Math.PI);
+
+         boolean success = calculator.solve(desiredTransform);
+
+         if (success)
+         {
+            numberOfSuccesses++;
+            assertTrue(calculator.getErrorScalar() < RESTART_TOLERANCE);
+            RigidBodyTransform solvedTransform = jacobian.getEndEffectorFrame().getTransformToDesiredFrame(jacobian.getBaseFrame());
+            assertTrue("Test number " + i + " failed.", solvedTransform.epsilonEquals(desiredTransform, 0.02));
+         }
+      }
+
+      calculator.close();
+
+      assertTrue("Only " + numberOfSuccesses + " out of " + numberOfTargets + " reachable targets were solved.",
+                 numberOfSuccesses >= MINIMUM_SUCCESS_RATE * numberOfTargets);
+   }
+
+   static GeometricJacobian createJacobian(RandomFloatingRevoluteJointChain arm)
+   {
+      return new GeometricJacobian(arm.getRootJoint().getSuccessor(), arm.getLeafBody(), arm.getLeafBody().getBodyFixedFrame());
+   }
+
+   static ParallelRandomRestartInverseKinematicsCalculator createParallelCalculator(GeometricJacobian jacobian, int maxIterations, int numberOfThreads)
+   {
+      return new ParallelRandomRestartInverseKinematicsCalculator(MAX_RESTARTS,
+                                                                  RESTART_TOLERANCE,
+                                                                  jacobian,
+                                                                  workerJacobian -> createNumericalCalculator(workerJacobian, maxIterations),
+                                                                  numberOfThreads);
+   }
+
+   static NumericalInverseKinematicsCalculator createNumericalCalculator(GeometricJacobian jacobian, int maxIterations)
+   {
+      double lambdaLeastSquares = 0.0009;
+      double tolerance = 0.001;
+      double maxStepSize = 0.2;
+      double minRandomSearchScalar = 0.02;
+      double maxRandomSearchScalar = 0.8;
+
+      NumericalInverseKinematicsCalculator calculator = new NumericalInverseKinematicsCalculator(jacobian, lambdaLeastSquares, tolerance, maxIterations,
+                                                                                                 maxStepSize, minRandomSearchScalar, maxRandomSearchScalar);
+      calculator.setLimitJointAngles(false);
+      return calculator;
+   }
+
+   static RigidBodyTransform nextReachableTransform(Random random, GeometricJacobian jacobian, List<RevoluteJoint> revoluteJoints)
+   {
+      setRandomPositions(random, revoluteJoints, 0.5 * Math.PI);
+      return jacobian.getEndEffectorFrame().getTransformToDesiredFrame(jacobian.getBaseFrame());
+   }
+
+   static void setRandomPositions(Random random, List<RevoluteJoint> revoluteJoints, double deltaThetaMax)
+   {
+      for (RevoluteJoint revoluteJoint : revoluteJoints)
+      {
+         revoluteJoint.setQ(RandomNumbers.nextDouble(random, -deltaThetaMax, deltaThetaMax));
+         revoluteJoint.getFrameAfterJoint().update();
+      }
+   }
+
+   static void setPositions(List<RevoluteJoint> revoluteJoints, double[] positions)
+   {
+      for (int i = 0; i < revoluteJoints.size(); i++)
+      {
+         revoluteJoints.get(i).setQ(positions[i]);
+         revoluteJoints.get(i).getFrameAfterJoint().update();
+      }
+   }
+}
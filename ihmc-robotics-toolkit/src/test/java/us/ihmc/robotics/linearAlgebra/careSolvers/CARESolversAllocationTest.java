@@ -0,0 +1,89 @@
+package us.ihmc.robotics.linearAlgebra.careSolvers;
+
+import static us.ihmc.robotics.Assert.assertFalse;
+import static us.ihmc.robotics.Assert.assertTrue;
+
+import java.util.List;
+
+import org.ejml.alg.dense.decomposition.chol.CholeskyDecompositionCommon_D64;
+import org.ejml.alg.dense.decomposition.lu.LUDecompositionBase_D64;
+import org.ejml.data.DenseMatrix64F;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+
+import us.ihmc.commons.allocations.AllocationProfiler;
+import us.ihmc.commons.allocations.AllocationRecord;
+import us.ihmc.robotics.Assert;
+
+@Tag("allocation-slow")
+public class CARESolversAllocationTest
+{
+   private final AllocationProfiler allocationProfiler = new AllocationProfiler();
+
+   @BeforeEach
+   public void before()
+   {
+      AllocationProfiler.checkInstrumentation();
+
+      // These methods are "safe" as they will only allocate to increase their capacity.
+      allocationProfiler.excludeAllocationsInsideMethod(DenseMatrix64F.class.getName() + ".reshape");
+      allocationProfiler.excludeAllocationsInsideMethod(LUDecompositionBase_D64.class.getName() + ".decomposeCommonInit");
+      allocationProfiler.excludeAllocationsInsideMethod(CholeskyDecompositionCommon_D64.class.getName() + ".decompose");
+   }
+
+   /**
+    * Solves the CoM Riccati problem the way the {@code LQRMomentumController} does on the controller thread.
+    */
+   @Test
+   public void testDefectCorrectionSolverWithWarmStart()
+   {
+      DenseMatrix64F A = new DenseMatrix64F(6, 6);
+      DenseMatrix64F B = new DenseMatrix64F(6, 3);
+      DenseMatrix64F Q = new DenseMatrix64F(6, 6);
+      DenseMatrix64F R = new DenseMatrix64F(3, 3);
+      CARESolversTest.packCoMDynamics(3, 3.0, 1e2, 1e-4, A, B, Q, R);
+
+      DenseMatrix64F perturbedA = new DenseMatrix64F(6, 6);
+      DenseMatrix64F perturbedB = new DenseMatrix64F(6, 3);
+      DenseMatrix64F perturbedQ = new DenseMatrix64F(6, 6);
+      DenseMatrix64F perturbedR = new DenseMatrix64F(3, 3);
+      CARESolversTest.packCoMDynamics(3, 3.0, 1.01e2, 1e-4, perturbedA, perturbedB, perturbedQ, perturbedR);
+
+      DefectCorrectionCARESolver solver = new DefectCorrectionCARESolver(new SignFunctionCARESolver(), 6);
+      solver.setUseWarmStart(true);
+
+      // The first cold and warm started solves grow the storage to the problem size.
+      solver.setMatrices(A, B, null, Q, R);
+      solver.computeP();
+      solver.setMatrices(perturbedA, perturbedB, null, perturbedQ, perturbedR);
+      solver.computeP();
+      assertTrue(solver.isWarmStarted());
+
+      solver.resetWarmStart();
+      testInternal(() ->
+      {
+         solver.setMatrices(A, B, null, Q, R);
+         solver.computeP();
+      });
+      assertFalse(solver.isWarmStarted());
+
+      testInternal(() ->
+      {
+         solver.setMatrices(perturbedA, perturbedB, null, perturbedQ, perturbedR);
+         solver.computeP();
+      });
+      assertTrue(solver.isWarmStarted());
+   }
+
+   private void testInternal(Runnable whatToTestFor)
+   {
+      List<AllocationRecord> allocations = allocationProfiler.recordAllocations(whatToTestFor);
+
+      if (!allocations.isEmpty())
+      {
+         allocations.forEach(allocation -> System.out.println(allocation));
+         Assert.fail("Found allocations in the CARE solver.");
+      }
+   }
+}
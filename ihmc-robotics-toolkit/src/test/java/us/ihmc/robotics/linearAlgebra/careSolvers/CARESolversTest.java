@@ -4,18 +4,21 @@ import org.ejml.data.DenseMatrix64F;
 import org.ejml.ops.CommonOps;
 import org.ejml.ops.EjmlUnitTests;
 import org.junit.jupiter.api.Test;
+import us.ihmc.matrixlib.MatrixTools;
 import us.ihmc.matrixlib.NativeCommonOps;
 
 import java.util.ArrayList;
 import java.util.List;
 
 import static us.ihmc.robotics.Assert.assertEquals;
+import static us.ihmc.robotics.Assert.assertFalse;
+import static us.ihmc.robotics.Assert.assertTrue;
 
 public class CARESolversTest
 {
    private static final double epsilon = 1e-4;
 
-   private List<CARESolver> getSolvers()
+   static List<CARESolver> getSolvers()
    {
       List<CARESolver> solvers = new ArrayList<>();
       solvers.add(new EigenvectorCARESolver());
@@ -168,6 +171,162 @@ public class CARESolversTest
       }
    }
 
+   @Test
+   public void testIterationsAndResiduals()
+   {
+      int n = 3;
+      DenseMatrix64F A = new DenseMatrix64F(n, n, true, 1, -2, 3, -4, 5, 6, 7, 8, 9);
+      DenseMatrix64F B = new DenseMatrix64F(n, 1, true, 5, 6, -7);
+      DenseMatrix64F C = new DenseMatrix64F(1, n, true, 7, -8, 9);
+      DenseMatrix64F Q = new DenseMatrix64F(n, n);
+      DenseMatrix64F R = CommonOps.identity(1);
+      CommonOps.multInner(C, Q);
+
+      for (CARESolver solver : getSolvers())
+      {
+         solver.setMatrices(A, B, null, Q, R);
+         solver.computeP();
+
+         assertSolutionIsValid(A, B, Q, R, solver.getP(), epsilon);
+         assertEquals(0.0, solver.getResidual(), epsilon);
+
+         if (solver instanceof AbstractIterativeCARESolver || solver instanceof SignFunctionCARESolver)
+            assertTrue(solver.getNumberOfIterations() > 0);
+         else
+            assertEquals(0, solver.getNumberOfIterations());
+      }
+   }
+
+   @Test
+   public void testWarmStart()
+   {
+      List<AbstractIterativeCARESolver> solvers = new ArrayList<>();
+      solvers.add(new NewtonCARESolver(new SignFunctionCARESolver()));
+      solvers.add(new Newton2CARESolver(new SignFunctionCARESolver()));
+      solvers.add(new DefectCorrectionCARESolver(new SignFunctionCARESolver()));
+
+      DenseMatrix64F A = new DenseMatrix64F(6, 6);
+      DenseMatrix64F B = new DenseMatrix64F(6, 3);
+      DenseMatrix64F Q = new DenseMatrix64F(6, 6);
+      DenseMatrix64F R = new DenseMatrix64F(3, 3);
+
+      for (AbstractIterativeCARESolver solver : solvers)
+      {
+         solver.setUseWarmStart(true);
+
+         packCoMDynamics(3, 3.0, 1e2, 1e-4, A, B, Q, R);
+         solver.setMatrices(A, B, null, Q, R);
+         solver.computeP();
+         assertFalse(solver.isWarmStarted());
+
+         // small change of the weights, the previous solution is used
+         packCoMDynamics(3, 3.0, 1.01e2, 1e-4, A, B, Q, R);
+         solver.setMatrices(A, B, null, Q, R);
+         DenseMatrix64F warmStartedP = new DenseMatrix64F(solver.computeP());
+         assertTrue(solver.isWarmStarted());
+
+         SignFunctionCARESolver referenceSolver = new SignFunctionCARESolver();
+         referenceSolver.setMatrices(A, B, null, Q, R);
+         EjmlUnitTests.assertEquals(referenceSolver.computeP(), warmStartedP, epsilon);
+         assertSolutionIsValid(A, B, Q, R, warmStartedP, epsilon);
+         assertEquals(0.0, solver.getResidual(), epsilon);
+
+         // large change of the weights, the backend solver is used
+         packCoMDynamics(3, 3.0, 1e4, 1e-4, A, B, Q, R);
+         solver.setMatrices(A, B, null, Q, R);
+         solver.computeP();
+         assertFalse(solver.isWarmStarted());
+         assertSolutionIsValid(A, B, Q, R, solver.getP(), epsilon);
+      }
+   }
+
+   @Test
+   public void testWarmStartOnlyKeepsStabilizingSolution()
+   {
+      List<AbstractIterativeCARESolver> solvers = new ArrayList<>();
+      solvers.add(new NewtonCARESolver(new SignFunctionCARESolver()));
+      solvers.add(new Newton2CARESolver(new SignFunctionCARESolver()));
+      solvers.add(new DefectCorrectionCARESolver(new SignFunctionCARESolver()));
+
+      // For A' P + P A - P^2 + Q = 0 with a scalar A, the solutions are P = A +/- sqrt(A^2 + Q), and only P > A stabilizes A - P.
+      DenseMatrix64F A = new DenseMatrix64F(1, 1);
+      DenseMatrix64F B = CommonOps.identity(1);
+      DenseMatrix64F Q = new DenseMatrix64F(1, 1, true, 1e-8);
+      DenseMatrix64F R = CommonOps.identity(1);
+
+      for (AbstractIterativeCARESolver solver : solvers)
+      {
+         solver.setUseWarmStart(true);
+
+         // the stabilizing solution is close to zero
+         A.set(0, 0, -0.01);
+         solver.setMatrices(A, B, null, Q, R);
+         solver.computeP();
+         assertFalse(solver.isWarmStarted());
+
+         // the anti-stabilizing solution is now the one close to zero, which the iterations started from the previous solution converge to
+         A.set(0, 0, 0.0101);
+         solver.setMatrices(A, B, null, Q, R);
+         DenseMatrix64F P = new DenseMatrix64F(solver.computeP());
+         assertTrue(P.get(0, 0) > A.get(0, 0));
+
+         SignFunctionCARESolver referenceSolver = new SignFunctionCARESolver();
+         referenceSolver.setMatrices(A, B, null, Q, R);
+         EjmlUnitTests.assertEquals(referenceSolver.computeP(), P, epsilon);
+      }
+   }
+
+   /**
+    * Packs the Riccati problem of the {@code LQRMomentumController}, for the CoM dynamics along the given number of axes, x = [x<sub>com</sub>;
+    * xDot<sub>com</sub>], u = xDdot<sub>com</sub>, with the cost on the VRP y = x<sub>com</sub> - xDdot<sub>com</sub> / omega<sup>2</sup>.
+    */
+   static void packCoMDynamics(int axes, double omega, double vrpTrackingWeight, double momentumRateWeight, DenseMatrix64F AToPack,
+                               DenseMatrix64F BToPack, DenseMatrix64F QToPack, DenseMatrix64F RToPack)
+   {
+      int n = 2 * axes;
+      DenseMatrix64F identity = CommonOps.identity(axes);
+
+      DenseMatrix64F A = new DenseMatrix64F(n, n);
+      DenseMatrix64F C = new DenseMatrix64F(axes, n);
+      DenseMatrix64F D = new DenseMatrix64F(axes, axes);
+      DenseMatrix64F Q = new DenseMatrix64F(axes, axes);
+      DenseMatrix64F R = new DenseMatrix64F(axes, axes);
+      BToPack.reshape(n, axes);
+      BToPack.zero();
+      MatrixTools.setMatrixBlock(A, 0, axes, identity, 0, 0, axes, axes, 1.0);
+      MatrixTools.setMatrixBlock(BToPack, axes, 0, identity, 0, 0, axes, axes, 1.0);
+      MatrixTools.setMatrixBlock(C, 0, 0, identity, 0, 0, axes, axes, 1.0);
+      MatrixTools.setMatrixBlock(D, 0, 0, identity, 0, 0, axes, axes, -1.0 / (omega * omega));
+      MatrixTools.setDiagonal(Q, vrpTrackingWeight);
+      MatrixTools.setDiagonal(R, momentumRateWeight);
+
+      // R1 = D' Q D + R, N = C' Q D
+      RToPack.reshape(axes, axes);
+      NativeCommonOps.multQuad(D, Q, RToPack);
+      CommonOps.addEquals(RToPack, R);
+      DenseMatrix64F QD = new DenseMatrix64F(axes, axes);
+      CommonOps.mult(Q, D, QD);
+      DenseMatrix64F N = new DenseMatrix64F(n, axes);
+      CommonOps.multTransA(C, QD, N);
+      DenseMatrix64F R1Inverse = new DenseMatrix64F(axes, axes);
+      NativeCommonOps.invert(RToPack, R1Inverse);
+
+      // Q = C' Q C - N R1inv N'
+      QToPack.reshape(n, n);
+      NativeCommonOps.multQuad(C, Q, QToPack);
+      DenseMatrix64F NTranspose = new DenseMatrix64F(axes, n);
+      CommonOps.transpose(N, NTranspose);
+      DenseMatrix64F NR1InverseNTranspose = new DenseMatrix64F(n, n);
+      NativeCommonOps.multQuad(NTranspose, R1Inverse, NR1InverseNTranspose);
+      CommonOps.subtractEquals(QToPack, NR1InverseNTranspose);
+
+      // A = A - B R1inv N'
+      AToPack.set(A);
+      DenseMatrix64F R1InverseNTranspose = new DenseMatrix64F(axes, n);
+      CommonOps.mult(R1Inverse, NTranspose, R1InverseNTranspose);
+      CommonOps.multAdd(-1.0, BToPack, R1InverseNTranspose, AToPack);
+   }
+
    private static void assertIsSymmetric(DenseMatrix64F A, double epsilon)
    {
       for (int row = 0; row < A.getNumRows(); row++)
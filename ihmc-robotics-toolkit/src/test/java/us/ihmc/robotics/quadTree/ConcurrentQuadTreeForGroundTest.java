@@ -0,0 +1,182 @@
+package us.ihmc.robotics.quadTree;
+
+import static us.ihmc.robotics.Assert.*;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Random;
+import java.util.Set;
+
+import org.junit.jupiter.api.Test;
+
+import us.ihmc.commons.RandomNumbers;
+import us.ihmc.euclid.tuple3D.Point3D;
+
+public class ConcurrentQuadTreeForGroundTest
+{
+   private static final Box BOUNDS = new Box(-10.0, -10.0, 10.0, 10.0);
+
+   @Test
+   public void testSameHeightsAsQuadTreeForGround()
+   {
+      Random random = new Random(3453L);
+      QuadTreeForGroundParameters parameters = new QuadTreeForGroundParameters(0.05, 0.02, 0.2, 4, 0.2, -1);
+      QuadTreeForGround expectedTree = new QuadTreeForGround(BOUNDS, parameters);
+      ConcurrentQuadTreeForGround concurrentTree = new ConcurrentQuadTreeForGround(BOUNDS, parameters);
+
+      for (int batch = 0; batch < 20; batch++)
+      {
+         for (Point3D point : generateRandomPoints(random, 500, new Box(-3.0, -3.0, 3.0, 3.0)))
+         {
+            expectedTree.put(point.getX(), point.getY(), point.getZ());
+            concurrentTree.put(point.getX(), point.getY(), point.getZ());
+         }
+
+         QuadTreeForGroundSnapshot snapshot = concurrentTree.publish();
+
+         ArrayList<Point3D> expectedAveragePoints = new ArrayList<>();
+         expectedTree.getCellAverageStoredPoints(expectedAveragePoints);
+         assertEquals(expectedAveragePoints.size(), snapshot.getNumberOfLeaves());
+
+         for (int i = 0; i < 1000; i++)
+         {
+            double x = RandomNumbers.nextDouble(random, -3.5, 3.5);
+            double y = RandomNumbers.nextDouble(random, -3.5, 3.5);
+            assertEquals(expectedTree.getHeightAtPoint(x, y), snapshot.getHeightAtPoint(x, y), 1.0e-12);
+         }
+      }
+   }
+
+   @Test
+   public void testSnapshotDoesNotChangeAfterPublishing()
+   {
+      Random random = new Random(5674L);
+      QuadTreeForGroundParameters parameters = new QuadTreeForGroundParameters(0.05, 0.02, 0.2, 4, 0.2, -1);
+      ConcurrentQuadTreeForGround tree = new ConcurrentQuadTreeForGround(BOUNDS, parameters);
+
+      QuadTreeForGroundSnapshot emptySnapshot = tree.getSnapshot();
+      QuadTreeForGroundSnapshot snapshot = tree.putBatch(generateRandomPoints(random, 2000, BOUNDS));
+      assertTrue(emptySnapshot.isEmpty());
+      assertFalse(snapshot.isEmpty());
+      assertTrue(snapshot.getVersion() > emptySnapshot.getVersion());
+
+      List<Point3D> queries = generateRandomPoints(random, 500, BOUNDS);
+      double[] heights = queries.stream().mapToDouble(query -> snapshot.getHeightAtPoint(query.getX(), query.getY())).toArray();
+      int numberOfLeaves = snapshot.getNumberOfLeaves();
+
+      // Nothing published until publish() is called.
+      for (Point3D point : generateRandomPoints(random, 2000, BOUNDS))
+         tree.put(point.getX(), point.getY(), point.getZ());
+      assertTrue(snapshot == tree.getSnapshot());
+
+      tree.publish();
+      assertFalse(snapshot == tree.getSnapshot());
+      tree.clear();
+      tree.publish();
+      assertTrue(tree.getSnapshot().isEmpty());
+
+      assertTrue(emptySnapshot.isEmpty());
+      assertEquals(numberOfLeaves, snapshot.getNumberOfLeaves());
+
+      for (int i = 0; i < queries.size(); i++)
+         assertEquals(heights[i], snapshot.getHeightAtPoint(queries.get(i).getX(), queries.get(i).getY()), 0.0);
+   }
+
+   @Test
+   public void testLeavesChangedSince()
+   {
+      Random random = new Random(2342L);
+      QuadTreeForGroundParameters parameters = new QuadTreeForGroundParameters(0.05, 0.02, 0.2, 4, 0.2, -1);
+      ConcurrentQuadTreeForGround tree = new ConcurrentQuadTreeForGround(BOUNDS, parameters);
+
+      QuadTreeForGroundSnapshot previous = null;
+
+      for (int batch = 0; batch < 30; batch++)
+      {
+         QuadTreeForGroundSnapshot current;
+
+         if (batch == 20)
+         {
+            tree.clear();
+            current = tree.publish();
+         }
+         else
+         {
+            // Each batch only covers a small part of the tree.
+            double x = RandomNumbers.nextDouble(random, -2.0, 2.0);
+            double y = RandomNumbers.nextDouble(random, -2.0, 2.0);
+            current = tree.putBatch(generateRandomPoints(random, 200, new Box(x - 0.25, y - 0.25, x + 0.25, y + 0.25)));
+         }
+
+         List<QuadTreeForGroundSnapshotNode> newLeaves = new ArrayList<>();
+         List<QuadTreeForGroundSnapshotNode> removedLeaves = new ArrayList<>();
+         current.getLeavesChangedSince(previous, newLeaves, removedLeaves);
+
+         // Applying the changes to the previous leaves should give the current leaves.
+         Set<QuadTreeForGroundSnapshotNode> leaves = Collections.newSetFromMap(new IdentityHashMap<>());
+         if (previous != null)
+            previous.getLeaves(leaves);
+
+         for (QuadTreeForGroundSnapshotNode removedLeaf : removedLeaves)
+            assertTrue(leaves.remove(removedLeaf));
+
+         // A modified leaf replaces the leaf that was at the same place.
+         for (QuadTreeForGroundSnapshotNode newLeaf : newLeaves)
+         {
+            leaves.removeIf(leaf -> leaf.getBounds().minX == newLeaf.getBounds().minX && leaf.getBounds().minY == newLeaf.getBounds().minY
+                  && leaf.getBounds().maxX == newLeaf.getBounds().maxX && leaf.getBounds().maxY == newLeaf.getBounds().maxY);
+            leaves.add(newLeaf);
+            assertTrue(previous == null || newLeaf.getVersion() > previous.getVersion());
+         }
+
+         Set<QuadTreeForGroundSnapshotNode> expectedLeaves = current.getLeaves(Collections.newSetFromMap(new IdentityHashMap<>()));
+         assertEquals(expectedLeaves.size(), leaves.size());
+         assertTrue(expectedLeaves.containsAll(leaves));
+
+         if (batch > 5 && batch < 20)
+            assertTrue(newLeaves.size() < expectedLeaves.size());
+
+         previous = current;
+      }
+   }
+
+   @Test
+   public void testMaximumNumberOfPoints()
+   {
+      Random random = new Random(7834L);
+      int maximumNumberOfPoints = 500;
+      QuadTreeForGroundParameters parameters = new QuadTreeForGroundParameters(0.05, 0.02, 0.2, 4, 0.2, maximumNumberOfPoints);
+      ConcurrentQuadTreeForGround tree = new ConcurrentQuadTreeForGround(BOUNDS, parameters);
+
+      // Points going from one side to the other, the oldest have to be removed.
+      for (int batch = 0; batch < 10; batch++)
+      {
+         double x = -9.0 + 2.0 * batch;
+         QuadTreeForGroundSnapshot snapshot = tree.putBatch(generateRandomPoints(random, 200, new Box(x - 0.5, -0.5, x + 0.5, 0.5)));
+
+         int numberOfPoints = snapshot.getLeaves(new ArrayList<>()).stream().mapToInt(QuadTreeForGroundSnapshotNode::getNumberOfPoints).sum();
+         assertTrue(numberOfPoints <= maximumNumberOfPoints);
+
+         ArrayList<Point3D> oldPoints = new ArrayList<>();
+         snapshot.getAllPointsWithinBounds(new Box(-10.0, -10.0, x - 4.5, 10.0), oldPoints);
+         assertTrue(oldPoints.isEmpty());
+      }
+   }
+
+   static List<Point3D> generateRandomPoints(Random random, int numberOfPoints, Box bounds)
+   {
+      List<Point3D> points = new ArrayList<>();
+
+      for (int i = 0; i < numberOfPoints; i++)
+      {
+         double x = RandomNumbers.nextDouble(random, bounds.minX, bounds.maxX);
+         double y = RandomNumbers.nextDouble(random, bounds.minY, bounds.maxY);
+         double z = RandomNumbers.nextDouble(random, -0.1, 0.1) + 0.1 * Math.sin(x) * Math.cos(y);
+         points.add(new Point3D(x, y, z));
+      }
+
+      return points;
+   }
+}
@@ -0,0 +1,141 @@
+package us.ihmc.robotics.screwTheory;
+
+import static us.ihmc.robotics.Assert.*;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+import org.ejml.data.DenseMatrix64F;
+import org.ejml.ops.MatrixFeatures;
+import org.junit.jupiter.api.Test;
+
+import us.ihmc.euclid.tools.EuclidCoreRandomTools;
+import us.ihmc.euclid.tuple3D.Vector3D;
+import us.ihmc.mecano.multiBodySystem.RevoluteJoint;
+import us.ihmc.mecano.multiBodySystem.SixDoFJoint;
+import us.ihmc.mecano.multiBodySystem.interfaces.RigidBodyBasics;
+import us.ihmc.mecano.tools.JointStateType;
+import us.ihmc.mecano.tools.MultiBodySystemRandomTools;
+
+public class CachedCompositeRigidBodyMassMatrixCalculatorTest extends MassMatrixCalculatorTest
+{
+   private static final double EPSILON = 1.0e-10;
+
+   @Test
+   public void testKineticEnergy()
+   {
+      setUpRandomChainRobot();
+      double expectedKineticEnergy = computeKineticEnergy(joints);
+
+      CachedCompositeRigidBodyMassMatrixCalculator massMatrixCalculator = new CachedCompositeRigidBodyMassMatrixCalculator(elevator);
+      massMatrixCalculator.compute();
+      DenseMatrix64F massMatrix = massMatrixCalculator.getMassMatrix();
+      double kineticEnergyFromMassMatrix = computeKineticEnergy(joints, massMatrix);
+
+      assertEquals(expectedKineticEnergy, kineticEnergyFromMassMatrix, 1e-12);
+   }
+
+   @Test
+   public void testPartialMotionsOfHumanoid()
+   {
+      Random random = new Random(3452L);
+      Humanoid humanoid = new Humanoid(random, elevator);
+
+      DifferentialIDMassMatrixCalculator expectedCalculator = new DifferentialIDMassMatrixCalculator(worldFrame, elevator);
+      List<CachedCompositeRigidBodyMassMatrixCalculator> calculators = new ArrayList<>();
+      for (int numberOfThreads = 1; numberOfThreads <= 4; numberOfThreads++)
+         calculators.add(new CachedCompositeRigidBodyMassMatrixCalculator(elevator, new KinematicTreeChangeTracker(elevator), numberOfThreads));
+
+      for (int i = 0; i < 200; i++)
+      {
+         int motion = i == 0 ? 0 : random.nextInt(4);
+
+         if (motion == 0)
+         {
+            MultiBodySystemRandomTools.nextState(random, JointStateType.CONFIGURATION, -Math.PI / 2.0, Math.PI / 2.0, humanoid.revoluteJoints);
+            MultiBodySystemRandomTools.nextState(random, JointStateType.CONFIGURATION, humanoid.rootJoint);
+         }
+         else if (motion == 1)
+         {
+            MultiBodySystemRandomTools.nextState(random, JointStateType.CONFIGURATION, humanoid.rootJoint);
+         }
+         else if (motion == 2)
+         {
+            RevoluteJoint joint = humanoid.revoluteJoints.get(random.nextInt(humanoid.revoluteJoints.size()));
+            joint.setQ(EuclidCoreRandomTools.nextDouble(random, Math.PI / 2.0));
+         }
+         elevator.updateFramesRecursively();
+
+         expectedCalculator.compute();
+
+         for (CachedCompositeRigidBodyMassMatrixCalculator calculator : calculators)
+         {
+            calculator.compute();
+            assertTrue(MatrixFeatures.isEquals(expectedCalculator.getMassMatrix(), calculator.getMassMatrix(), EPSILON));
+
+            if (i == 0)
+               assertEquals(calculator.getNumberOfBlocks(), calculator.getNumberOfComputedBlocks());
+            else if (motion == 0)
+               assertTrue(calculator.getNumberOfComputedBlocks() > 0);
+            else if (motion == 2)
+               assertTrue(calculator.getNumberOfComputedBlocks() < calculator.getNumberOfBlocks());
+            else
+               assertEquals(0, calculator.getNumberOfComputedBlocks());
+         }
+      }
+
+      for (CachedCompositeRigidBodyMassMatrixCalculator calculator : calculators)
+         calculator.close();
+   }
+
+   @Test
+   public void testReset()
+   {
+      Random random = new Random(7653L);
+      Humanoid humanoid = new Humanoid(random, elevator);
+      elevator.updateFramesRecursively();
+
+      CachedCompositeRigidBodyMassMatrixCalculator calculator = new CachedCompositeRigidBodyMassMatrixCalculator(elevator);
+      calculator.compute();
+
+      RigidBodyBasics hand = humanoid.revoluteJoints.get(humanoid.revoluteJoints.size() - 1).getSuccessor();
+      hand.getInertia().setMass(2.0 * hand.getInertia().getMass());
+      calculator.compute();
+      assertEquals(0, calculator.getNumberOfComputedBlocks());
+
+      calculator.reset();
+      calculator.compute();
+      assertEquals(calculator.getNumberOfBlocks(), calculator.getNumberOfComputedBlocks());
+
+      DifferentialIDMassMatrixCalculator expectedCalculator = new DifferentialIDMassMatrixCalculator(worldFrame, elevator);
+      expectedCalculator.compute();
+      assertTrue(MatrixFeatures.isEquals(expectedCalculator.getMassMatrix(), calculator.getMassMatrix(), EPSILON));
+   }
+
+   /**
+    * Floating humanoid of random geometry and inertia with two 6-DoF legs, a 3-DoF spine, a 3-DoF
+    * neck, and two 7-DoF arms.
+    */
+   static class Humanoid
+   {
+      final SixDoFJoint rootJoint;
+      final List<RevoluteJoint> revoluteJoints = new ArrayList<>();
+
+      Humanoid(Random random, RigidBodyBasics elevator)
+      {
+         rootJoint = MultiBodySystemRandomTools.nextSixDoFJoint(random, "rootJoint", elevator);
+         RigidBodyBasics pelvis = MultiBodySystemRandomTools.nextRigidBody(random, "pelvis", rootJoint);
+
+         revoluteJoints.addAll(MultiBodySystemRandomTools.nextRevoluteJointChain(random, "leftLeg", pelvis, new Vector3D[] {Z, X, Y, Y, Y, X}));
+         revoluteJoints.addAll(MultiBodySystemRandomTools.nextRevoluteJointChain(random, "rightLeg", pelvis, new Vector3D[] {Z, X, Y, Y, Y, X}));
+         List<RevoluteJoint> spine = MultiBodySystemRandomTools.nextRevoluteJointChain(random, "spine", pelvis, new Vector3D[] {Z, Y, X});
+         revoluteJoints.addAll(spine);
+
+         RigidBodyBasics chest = spine.get(spine.size() - 1).getSuccessor();
+         revoluteJoints.addAll(MultiBodySystemRandomTools.nextRevoluteJointChain(random, "neck", chest, new Vector3D[] {Z, Y, Y}));
+         revoluteJoints.addAll(MultiBodySystemRandomTools.nextRevoluteJointChain(random, "rightArm", chest, new Vector3D[] {Y, X, Z, Y, Z, X, Y}));
+         revoluteJoints.addAll(MultiBodySystemRandomTools.nextRevoluteJointChain(random, "leftArm", chest, new Vector3D[] {Y, X, Z, Y, Z, X, Y}));
+      }
+   }
+}
@@ -7,6 +7,7 @@ import java.util.Random;
 
 import org.ejml.data.DenseMatrix64F;
 import org.ejml.ops.CommonOps;
+import org.ejml.ops.MatrixFeatures;
 import org.junit.jupiter.api.AfterEach;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
@@ -17,6 +18,7 @@ import us.ihmc.euclid.matrix.Matrix3D;
 import us.ihmc.euclid.referenceFrame.FrameVector3D;
 import us.ihmc.euclid.referenceFrame.ReferenceFrame;
 import us.ihmc.euclid.referenceFrame.tools.ReferenceFrameTools;
+import us.ihmc.euclid.tools.EuclidCoreRandomTools;
 import us.ihmc.euclid.tuple3D.Vector3D;
 import us.ihmc.mecano.multiBodySystem.Joint;
 import us.ihmc.mecano.multiBodySystem.OneDoFJoint;
@@ -24,6 +26,7 @@ import us.ihmc.mecano.multiBodySystem.PrismaticJoint;
 import us.ihmc.mecano.multiBodySystem.RevoluteJoint;
 import us.ihmc.mecano.multiBodySystem.RigidBody;
 import us.ihmc.mecano.multiBodySystem.SixDoFJoint;
+import us.ihmc.mecano.multiBodySystem.interfaces.JointBasics;
 import us.ihmc.mecano.multiBodySystem.interfaces.RigidBodyBasics;
 import us.ihmc.mecano.spatial.Twist;
 import us.ihmc.mecano.tools.JointStateType;
@@ -160,6 +163,99 @@ public class GeometricJacobianTest
       }
    }
 
+   @Test
+   public void testReuseWithChangeTracker() throws Exception
+   {
+      Random random = new Random(5435L);
+
+      List<OneDoFJoint> joints = MultiBodySystemRandomTools.nextOneDoFJointChain(random, 20);
+      RigidBodyBasics rootBody = MultiBodySystemTools.getRootBody(joints.get(0).getSuccessor());
+      KinematicTreeChangeTracker changeTracker = new KinematicTreeChangeTracker(rootBody);
+
+      int firstJacobianJoint = 8;
+      JointBasics[] jacobianJoints = joints.subList(firstJacobianJoint, joints.size()).toArray(new JointBasics[0]);
+      ReferenceFrame endEffectorFrame = joints.get(joints.size() - 1).getSuccessor().getBodyFixedFrame();
+
+      GeometricJacobian expectedJacobian = new GeometricJacobian(jacobianJoints, endEffectorFrame);
+      GeometricJacobian cachedJacobian = new GeometricJacobian(jacobianJoints, endEffectorFrame);
+      cachedJacobian.setChangeTracker(changeTracker);
+      cachedJacobian.compute();
+      assertTrue(cachedJacobian.wasRecomputed());
+
+      for (int i = 0; i < 1000; i++)
+      {
+         boolean moveJacobianJoint = random.nextBoolean();
+         int jointToMove = moveJacobianJoint ? firstJacobianJoint + random.nextInt(jacobianJoints.length) : random.nextInt(firstJacobianJoint);
+         joints.get(jointToMove).setQ(EuclidCoreRandomTools.nextDouble(random, Math.PI));
+         rootBody.updateFramesRecursively();
+         changeTracker.update();
+
+         expectedJacobian.compute();
+         cachedJacobian.compute();
+
+         assertTrue(moveJacobianJoint == cachedJacobian.wasRecomputed());
+         assertTrue(MatrixFeatures.isEquals(expectedJacobian.getJacobianMatrix(), cachedJacobian.getJacobianMatrix(), 1.0e-10));
+      }
+
+      expectedJacobian.changeFrame(rootBody.getBodyFixedFrame());
+      cachedJacobian.changeFrame(rootBody.getBodyFixedFrame());
+      expectedJacobian.compute();
+      cachedJacobian.compute();
+
+      assertTrue(cachedJacobian.wasRecomputed());
+      assertTrue(MatrixFeatures.isEquals(expectedJacobian.getJacobianMatrix(), cachedJacobian.getJacobianMatrix(), 1.0e-10));
+
+      // Expressed in the root body frame, the joints between the root body and the base move the Jacobian frame with respect to the base.
+      for (int i = 0; i < 100; i++)
+      {
+         joints.get(random.nextInt(firstJacobianJoint)).setQ(EuclidCoreRandomTools.nextDouble(random, Math.PI));
+         rootBody.updateFramesRecursively();
+         changeTracker.update();
+
+         expectedJacobian.compute();
+         cachedJacobian.compute();
+
+         assertTrue(cachedJacobian.wasRecomputed());
+         assertTrue(MatrixFeatures.isEquals(expectedJacobian.getJacobianMatrix(), cachedJacobian.getJacobianMatrix(), 1.0e-10));
+      }
+
+      // A frame that is not attached to the tracked tree is assumed to move at every tick.
+      expectedJacobian.changeFrame(ReferenceFrame.getWorldFrame());
+      cachedJacobian.changeFrame(ReferenceFrame.getWorldFrame());
+      for (int i = 0; i < 2; i++)
+      {
+         expectedJacobian.compute();
+         cachedJacobian.compute();
+
+         assertTrue(cachedJacobian.wasRecomputed());
+         assertTrue(MatrixFeatures.isEquals(expectedJacobian.getJacobianMatrix(), cachedJacobian.getJacobianMatrix(), 1.0e-10));
+      }
+
+      // Back to a previous frame, setting the same frame at every tick does not prevent the reuse of the matrix.
+      expectedJacobian.changeFrame(endEffectorFrame);
+      cachedJacobian.changeFrame(endEffectorFrame);
+      expectedJacobian.compute();
+      cachedJacobian.compute();
+      assertTrue(cachedJacobian.wasRecomputed());
+
+      for (int i = 0; i < 100; i++)
+      {
+         boolean moveJacobianJoint = random.nextBoolean();
+         int jointToMove = moveJacobianJoint ? firstJacobianJoint + random.nextInt(jacobianJoints.length) : random.nextInt(firstJacobianJoint);
+         joints.get(jointToMove).setQ(EuclidCoreRandomTools.nextDouble(random, Math.PI));
+         rootBody.updateFramesRecursively();
+         changeTracker.update();
+
+         expectedJacobian.changeFrame(endEffectorFrame);
+         cachedJacobian.changeFrame(endEffectorFrame);
+         expectedJacobian.compute();
+         cachedJacobian.compute();
+
+         assertTrue(moveJacobianJoint == cachedJacobian.wasRecomputed());
+         assertTrue(MatrixFeatures.isEquals(expectedJacobian.getJacobianMatrix(), cachedJacobian.getJacobianMatrix(), 1.0e-10));
+      }
+   }
+
    /**
     * Tests computation of the Jacobian for a simple 2D manipulator, as shown in
     * Duindam - Port-based modeling and control for efficient bipedal robots, p.34
@@ -0,0 +1,115 @@
+package us.ihmc.robotics.time;
+
+import static us.ihmc.robotics.Assert.*;
+
+import java.util.Arrays;
+import java.util.Random;
+
+import org.junit.jupiter.api.Test;
+
+import us.ihmc.commons.Conversions;
+import us.ihmc.yoVariables.registry.YoVariableRegistry;
+
+public class ExecutionProfilerTest
+{
+   private static final long RANDOM_SEED = 1976L;
+
+   @Test
+   public void testPercentiles()
+   {
+      Random random = new Random(RANDOM_SEED);
+      long resolution = 1000L;
+      ExecutionProfiler profiler = new ExecutionProfiler("profiler", resolution, 10000, 100, new YoVariableRegistry("testRegistry"));
+
+      int numberOfMeasurements = 5000;
+      long[] durations = new long[numberOfMeasurements];
+      long maxAllocatedBytes = 0L;
+      long totalAllocatedBytes = 0L;
+
+      for (int i = 0; i < numberOfMeasurements; i++)
+      {
+         durations[i] = 1000L + random.nextInt(5000000);
+         long allocatedBytes = random.nextInt(200);
+         maxAllocatedBytes = Math.max(maxAllocatedBytes, allocatedBytes);
+         totalAllocatedBytes += allocatedBytes;
+         profiler.recordMeasurement(durations[i], allocatedBytes);
+      }
+
+      Arrays.sort(durations);
+      double expectedMedian = Conversions.nanosecondsToSeconds(durations[numberOfMeasurements / 2 - 1]);
+      double expectedPercentile99 = Conversions.nanosecondsToSeconds(durations[(int) Math.ceil(0.99 * numberOfMeasurements) - 1]);
+      double resolutionInSeconds = Conversions.nanosecondsToSeconds(resolution);
+
+      assertEquals(numberOfMeasurements, profiler.getCount().getValue());
+      assertEquals(expectedMedian, profiler.getMedianTime().getValue(), resolutionInSeconds);
+      assertEquals(expectedPercentile99, profiler.getPercentile99Time().getValue(), resolutionInSeconds);
+      assertEquals(Conversions.nanosecondsToSeconds(durations[numberOfMeasurements - 1]), profiler.getMaximumTime().getValue(), 1.0e-12);
+      assertEquals(maxAllocatedBytes, profiler.getMaximumAllocatedBytes().getValue());
+      assertEquals(totalAllocatedBytes, profiler.getTotalAllocatedBytes().getValue());
+
+      profiler.reset();
+      assertEquals(0L, profiler.getCount().getValue());
+      assertEquals(0.0, profiler.computePercentile(0.5), 0.0);
+   }
+
+   @Test
+   public void testOverflow()
+   {
+      ExecutionProfiler profiler = new ExecutionProfiler("profiler", 1000L, 10, 1, new YoVariableRegistry("testRegistry"));
+
+      profiler.recordMeasurement(500L, 0L);
+      profiler.recordMeasurement(50000L, 0L);
+
+      assertEquals(Conversions.nanosecondsToSeconds(1000L), profiler.computePercentile(0.5), 1.0e-12);
+      assertEquals(Conversions.nanosecondsToSeconds(50000L), profiler.computePercentile(0.99), 1.0e-12);
+   }
+
+   @Test
+   public void testSnapshot()
+   {
+      Random random = new Random(RANDOM_SEED);
+      ExecutionProfiler profiler = new ExecutionProfiler("profiler", 1000L, 100, 10, new YoVariableRegistry("testRegistry"));
+      ExecutionProfiler snapshot = new ExecutionProfiler("profiler", 1000L, 100, 10, new YoVariableRegistry("snapshotRegistry"));
+
+      for (int i = 0; i < 500; i++)
+         profiler.recordMeasurement(random.nextInt(200000), random.nextInt(200));
+
+      snapshot.set(profiler);
+      profiler.recordMeasurement(50500L, 1000L);
+
+      int[] histogram = new int[profiler.getHistogramLength()];
+      int[] snapshotHistogram = new int[snapshot.getHistogramLength()];
+      profiler.getHistogram(histogram);
+      snapshot.getHistogram(snapshotHistogram);
+      histogram[50]--;
+
+      assertTrue(Arrays.equals(histogram, snapshotHistogram));
+      assertEquals(500L, snapshot.getCount().getValue());
+      assertEquals(profiler.getTotalAllocatedBytes().getValue() - 1000L, snapshot.getTotalAllocatedBytes().getValue());
+
+      ExecutionProfiler mismatchingProfiler = new ExecutionProfiler("profiler", 2000L, 100, 10, new YoVariableRegistry("otherRegistry"));
+      try
+      {
+         mismatchingProfiler.set(profiler);
+         fail("Should have thrown an exception");
+      }
+      catch (IllegalArgumentException e)
+      {
+         // Expected
+      }
+   }
+
+   @Test
+   public void testAllocationMeasurement()
+   {
+      ExecutionProfiler profiler = new ExecutionProfiler("profiler", new YoVariableRegistry("testRegistry"));
+
+      if (!ExecutionProfiler.isAllocationMeasurementSupported())
+         return;
+
+      profiler.startMeasurement();
+      double[] garbage = new double[10000];
+      profiler.stopMeasurement();
+      assertTrue(garbage.length * 8 <= profiler.getCurrentAllocatedBytes().getValue());
+   }
+}
@@ -49,3 +49,8 @@ testDependencies {
    api("us.ihmc:ihmc-commons-testing:0.28.2")
    api("us.ihmc:ihmc-robotics-toolkit-test:source")
 }
+
+benchmarksDependencies {
+   api(ihmc.sourceSetProject("main"))
+   api(ihmc.sourceSetProject("test"))
+}
@@ -0,0 +1,59 @@
+package us.ihmc.utilities.ros.msgToPacket.converter;
+
+import static us.ihmc.utilities.ros.msgToPacket.converter.GenericROSTranslationToolsTest.JOINT_STATE_SIZE;
+import static us.ihmc.utilities.ros.msgToPacket.converter.GenericROSTranslationToolsTest.POINT_CLOUD_SIZE;
+
+import java.util.Random;
+
+import org.ros.internal.message.Message;
+
+import us.ihmc.commons.Conversions;
+import us.ihmc.log.LogTools;
+import us.ihmc.utilities.ros.msgToPacket.converter.GenericROSTranslationToolsTest.DesiredAccelerationsMessage;
+
+/**
+ * Measures the time needed to convert IHMC messages to ROS messages and back for a joint state
+ * sized and a point cloud sized message.
+ */
+public class GenericROSTranslationToolsBenchmark
+{
+   public static void main(String[] args) throws Exception
+   {
+      runThroughputBenchmark("Joint state sized", JOINT_STATE_SIZE, 20000);
+      runThroughputBenchmark("Point cloud sized", POINT_CLOUD_SIZE, 200);
+   }
+
+   private static void runThroughputBenchmark(String name, int size, int numberOfRoundTrips) throws Exception
+   {
+      Random random = new Random(size);
+      DesiredAccelerationsMessage message = GenericROSTranslationToolsTest.nextMessage(random, size);
+
+      // Warmup, also creates the converters.
+      for (int i = 0; i < numberOfRoundTrips / 10; i++)
+         GenericROSTranslationTools.convertRosMessageToIHMCMessage(GenericROSTranslationTools.convertIHMCMessageToRosMessage(message));
+
+      long ihmcToROSTime = 0;
+      long rosToIHMCTime = 0;
+      DesiredAccelerationsMessage converted = null;
+
+      for (int i = 0; i < numberOfRoundTrips; i++)
+      {
+         long start = System.nanoTime();
+         Message rosMessage = GenericROSTranslationTools.convertIHMCMessageToRosMessage(message);
+         long middle = System.nanoTime();
+         converted = (DesiredAccelerationsMessage) GenericROSTranslationTools.convertRosMessageToIHMCMessage(rosMessage);
+         long end = System.nanoTime();
+
+         ihmcToROSTime += middle - start;
+         rosToIHMCTime += end - middle;
+      }
+
+      if (!message.epsilonEquals(converted, 0.0))
+         throw new RuntimeException(name + ": the converted message differs from the original.");
+
+      double roundTripsPerSecond = numberOfRoundTrips / Conversions.nanosecondsToSeconds(ihmcToROSTime + rosToIHMCTime);
+      LogTools.info(name + " (" + size + " values): IHMC to ROS " + Conversions.nanosecondsToMicroseconds((double) ihmcToROSTime / numberOfRoundTrips)
+            + " us, ROS to IHMC " + Conversions.nanosecondsToMicroseconds((double) rosToIHMCTime / numberOfRoundTrips) + " us, " + (long) roundTripsPerSecond
+            + " round trips per second.");
+   }
+}
@@ -1,19 +1,15 @@
 package us.ihmc.utilities.ros.msgToPacket.converter;
 
-import java.lang.reflect.Array;
 import java.lang.reflect.Field;
 import java.lang.reflect.InvocationTargetException;
 import java.lang.reflect.Method;
 import java.lang.reflect.Modifier;
 import java.lang.reflect.ParameterizedType;
-import java.util.ArrayList;
-import java.util.Arrays;
 import java.util.Collection;
 import java.util.HashMap;
 import java.util.HashSet;
-import java.util.List;
-import java.util.Map;
 import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
 
 import org.apache.commons.lang3.StringUtils;
 import org.reflections.ReflectionUtils;
@@ -32,9 +28,7 @@ import gnu.trove.list.array.TIntArrayList;
 import gnu.trove.list.array.TLongArrayList;
 import ihmc_msgs.Point2dRosMessage;
 import us.ihmc.commons.PrintTools;
-import us.ihmc.commons.lists.RecyclingArrayList;
 import us.ihmc.communication.packets.Packet;
-import us.ihmc.communication.ros.generators.RosExportedField;
 import us.ihmc.communication.ros.generators.RosMessagePacket;
 import us.ihmc.euclid.geometry.Pose3D;
 import us.ihmc.euclid.tuple2D.Point2D;
@@ -63,6 +57,9 @@ public class GenericROSTranslationTools
    private static final HashMap<Class<?>, String> javaClassToRosMessageTypeMap = new HashMap<>();
    private static CustomFieldConversions customFieldConversions = CustomFieldConversions.getInstance();
 
+   private static final ConcurrentHashMap<Class<?>, IHMCToROSMessageConverter> ihmcToROSMessageConverters = new ConcurrentHashMap<>();
+   private static final ConcurrentHashMap<String, ROSToIHMCMessageConverter> rosToIHMCMessageConverters = new ConcurrentHashMap<>();
+
    /* Initialize the class to message type map */
    static
    {
@@ -136,217 +133,61 @@ public class GenericROSTranslationTools
       return convertJavaObjectToRosMessage(ihmcMessage);
    }
 
-   private static Message convertJavaObjectToRosMessage(Object ihmcObject)
+   static Message convertJavaObjectToRosMessage(Object ihmcObject)
          throws InvocationTargetException, NoSuchMethodException, ClassNotFoundException, IllegalAccessException
    {
-      if (!ihmcObject.getClass().isAnnotationPresent(RosMessagePacket.class))
-         throw new IllegalArgumentException("Class " + ihmcObject.getClass().getSimpleName()
-               + " must contain RosMessagePacket class annotation to be converted.");
-
-      Class<?> ihmcMessageClass = ihmcObject.getClass();
-      String rosMessageClassNameFromIHMCMessage = getRosMessageClassNameFromIHMCMessage(ihmcMessageClass.getSimpleName());
-      RosMessagePacket rosAnnotation = ihmcMessageClass.getAnnotation(RosMessagePacket.class);
-
-      Message message = messageFactory.newFromType(rosAnnotation.rosPackage() + "/" + rosMessageClassNameFromIHMCMessage);
-
-      ArrayList<Field> fields = new ArrayList<>();
-      for (Field field : ihmcMessageClass.getFields())
-      {
-         if (field.isAnnotationPresent(RosExportedField.class))
-         {
-            fields.add(field);
-         }
-      }
-
-      convertIHMCMessageFieldsToROSFields(ihmcObject, message, fields);
-
-      return message;
+      return getIHMCToROSMessageConverter(ihmcObject.getClass()).convert(ihmcObject, messageFactory);
    }
 
-   @SuppressWarnings({"unchecked", "rawtypes"})
    public static Packet<?> convertRosMessageToIHMCMessage(Message rosMessage) throws ClassNotFoundException, NoSuchFieldException, IllegalAccessException,
          InstantiationException, InvocationTargetException, RosEnumConversionException, IllegalArgumentException, NoSuchMethodException, SecurityException
    {
-      Set<Class<?>> typesAnnotatedWith = getAllRosMessagePacketAnnotatedClasses();
-      String fullRosTypeName = rosMessage.toRawMessage().getType();
-      String rosMessageName = fullRosTypeName.split("/")[1];
-      Class<?> rosMessageClass = Class.forName(fullRosTypeName.replace("/", "."));
-
-      Class<? extends Packet> ihmcMessageClass = getIHMCMessageClassForROSMessage(typesAnnotatedWith, rosMessageName);
-
-      Map<Method, Field> rosGetterToIHMCFieldMap = new HashMap<>();
-
-      for (Method getter : ReflectionUtils.getMethods(rosMessageClass, ReflectionUtils.withPrefix("get")))
-      {
-         String fieldName = StringUtils.uncapitalize(getter.getName().replace("get", ""));
-         try
-         {
-            Field field = ihmcMessageClass.getField(fieldName);
-            rosGetterToIHMCFieldMap.put(getter, field);
-         }
-         catch (NoSuchFieldException e)
-         {
-            System.out.println("Couldn't find field " + fieldName + " for class " + ihmcMessageClass.getSimpleName());
-         }
-      }
-
-      if (!rosGetterToIHMCFieldMap.isEmpty())
-      {
-         Packet<?> ihmcMessage = ihmcMessageClass.newInstance();
-         for (Map.Entry<Method, Field> methodFieldEntry : rosGetterToIHMCFieldMap.entrySet())
-         {
-            Method rosGetter = methodFieldEntry.getKey();
-            Field ihmcField = methodFieldEntry.getValue();
-
-            Class<?> ihmcMessageFieldType = ihmcField.getType();
-            if (List.class.isAssignableFrom(rosGetter.getReturnType()) && ihmcMessageFieldType.isArray())
-            {
-               setArrayFromList(rosMessage, ihmcMessage, rosGetter, ihmcField, ihmcMessageFieldType);
-            }
-            else if (List.class.isAssignableFrom(rosGetter.getReturnType()) && ihmcMessageFieldType == RecyclingArrayList.class)
-            {
-               setRecyclingArrayListFromList(rosMessage, ihmcMessage, rosGetter, ihmcField, ihmcMessageFieldType);
-            }
-            else if (double[].class.isAssignableFrom(rosGetter.getReturnType()) && ihmcMessageFieldType == TDoubleArrayList.class)
-            {
-               setTDoubleArrayListFromArray(rosMessage, ihmcMessage, rosGetter, ihmcField, ihmcMessageFieldType);
-            }
-            else if (float[].class.isAssignableFrom(rosGetter.getReturnType()) && ihmcMessageFieldType == TFloatArrayList.class)
-            {
-               setTFloatArrayListFromArray(rosMessage, ihmcMessage, rosGetter, ihmcField, ihmcMessageFieldType);
-            }
-            else if (int[].class.isAssignableFrom(rosGetter.getReturnType()) && ihmcMessageFieldType == TIntArrayList.class)
-            {
-               setTIntArrayListFromArray(rosMessage, ihmcMessage, rosGetter, ihmcField, ihmcMessageFieldType);
-            }
-            else if (byte[].class.isAssignableFrom(rosGetter.getReturnType()) && ihmcMessageFieldType == TByteArrayList.class)
-            {
-               setTByteArrayListFromArray(rosMessage, ihmcMessage, rosGetter, ihmcField, ihmcMessageFieldType);
-            }
-            else if (ihmcMessageFieldType.isEnum())
-            {
-               setEnumFromByte(rosMessage, ihmcMessage, rosGetter, ihmcField, (Class<? extends Enum>) ihmcMessageFieldType);
-            }
-            else if (customFieldConversions.containsConverterFor(rosGetter.getReturnType()))
-            {
-               Message rosMessageField = (Message) rosGetter.invoke(rosMessage);
-               Object ihmcPacketField = customFieldConversions.convert(rosMessageField);
-               ihmcField.set(ihmcMessage, ihmcPacketField);
-            }
-            else
-            {
-               Object rosField = rosGetter.invoke(rosMessage);
-               if (rosField instanceof Message)
-                  rosField = convertRosMessageToIHMCMessage((Message) rosField);
-
-               ihmcField.set(ihmcMessage, rosField);
-            }
-         }
-
-         return ihmcMessage;
-      }
-
-      return null;
+      return getROSToIHMCMessageConverter(rosMessage.toRawMessage().getType()).convert(rosMessage);
    }
 
-   @SuppressWarnings("rawtypes")
-   private static void setEnumFromByte(Message rosMessage, Packet<?> ihmcMessage, Method rosGetter, Field ihmcField, Class<? extends Enum> fieldType)
-         throws IllegalAccessException, InvocationTargetException, RosEnumConversionException
+   /**
+    * Gets the converter for the given IHMC message class, creating it the first time the class is
+    * requested.
+    */
+   public static IHMCToROSMessageConverter getIHMCToROSMessageConverter(Class<?> ihmcMessageClass)
+         throws ClassNotFoundException, NoSuchMethodException, IllegalAccessException
    {
-      Class<? extends Enum> enumClass = fieldType;
-      byte ordinal = (byte) rosGetter.invoke(rosMessage);
+      IHMCToROSMessageConverter converter = ihmcToROSMessageConverters.get(ihmcMessageClass);
 
-      Enum[] enumConstants = enumClass.getEnumConstants();
-      if (ordinal >= enumConstants.length)
-      {
-         throw new RosEnumConversionException(enumClass, ordinal, "");
-      }
-      else
+      if (converter == null)
       {
-         ihmcField.set(ihmcMessage, enumConstants[ordinal]);
+         converter = new IHMCToROSMessageConverter(ihmcMessageClass);
+         IHMCToROSMessageConverter previous = ihmcToROSMessageConverters.putIfAbsent(ihmcMessageClass, converter);
+         if (previous != null)
+            converter = previous;
       }
+
+      return converter;
    }
 
-   private static void setArrayFromList(Message rosMessage, Packet<?> ihmcMessage, Method rosGetter, Field ihmcField, Class<?> fieldType)
-         throws IllegalAccessException, InvocationTargetException, ClassNotFoundException, InstantiationException, RosEnumConversionException,
-         NoSuchFieldException, ArrayIndexOutOfBoundsException, IllegalArgumentException, NoSuchMethodException, SecurityException
+   /**
+    * Gets the converter for the given ROS message type, e.g. {@code "ihmc_msgs/ChestTrajectoryRosMessage"},
+    * creating it the first time the type is requested.
+    */
+   public static ROSToIHMCMessageConverter getROSToIHMCMessageConverter(String rosMessageType)
+         throws ClassNotFoundException, NoSuchMethodException, IllegalAccessException
    {
-      List<?> rosValues = (List<?>) rosGetter.invoke(rosMessage);
-
-      Class<?> componentType = fieldType.getComponentType();
-      Object ihmcArray = Array.newInstance(componentType, rosValues.size());
+      ROSToIHMCMessageConverter converter = rosToIHMCMessageConverters.get(rosMessageType);
 
-      int i = 0;
-      for (Object value : rosValues)
+      if (converter == null)
       {
-         if (value instanceof Message)
-         {
-            Array.set(ihmcArray, i, convertRosMessageToIHMCMessage((Message) value));
-         }
-         else
-         {
-            Array.set(ihmcArray, i, value);
-         }
-
-         i++;
+         converter = new ROSToIHMCMessageConverter(rosMessageType);
+         ROSToIHMCMessageConverter previous = rosToIHMCMessageConverters.putIfAbsent(rosMessageType, converter);
+         if (previous != null)
+            converter = previous;
       }
 
-      ihmcField.set(ihmcMessage, ihmcArray);
-   }
-
-   private static void setTDoubleArrayListFromArray(Message rosMessage, Packet<?> ihmcMessage, Method rosGetter, Field ihmcField, Class<?> fieldType)
-         throws IllegalAccessException, IllegalArgumentException, InvocationTargetException
-   {
-      double[] rosValues = (double[]) rosGetter.invoke(rosMessage);
-      ihmcField.set(ihmcMessage, new TDoubleArrayList(rosValues));
-   }
-
-   private static void setTFloatArrayListFromArray(Message rosMessage, Packet<?> ihmcMessage, Method rosGetter, Field ihmcField, Class<?> fieldType)
-         throws IllegalAccessException, IllegalArgumentException, InvocationTargetException
-   {
-      float[] rosValues = (float[]) rosGetter.invoke(rosMessage);
-      ihmcField.set(ihmcMessage, new TFloatArrayList(rosValues));
-   }
-
-   private static void setTIntArrayListFromArray(Message rosMessage, Packet<?> ihmcMessage, Method rosGetter, Field ihmcField, Class<?> fieldType)
-         throws IllegalAccessException, IllegalArgumentException, InvocationTargetException
-   {
-      int[] rosValues = (int[]) rosGetter.invoke(rosMessage);
-      ihmcField.set(ihmcMessage, new TIntArrayList(rosValues));
+      return converter;
    }
 
-   private static void setTByteArrayListFromArray(Message rosMessage, Packet<?> ihmcMessage, Method rosGetter, Field ihmcField, Class<?> fieldType)
-         throws IllegalAccessException, IllegalArgumentException, InvocationTargetException
+   static CustomFieldConversions getCustomFieldConversions()
    {
-      byte[] rosValues = (byte[]) rosGetter.invoke(rosMessage);
-      ihmcField.set(ihmcMessage, new TByteArrayList(rosValues));
-   }
-
-   private static void setRecyclingArrayListFromList(Message rosMessage, Packet<?> ihmcMessage, Method rosGetter, Field ihmcField, Class<?> fieldType)
-         throws IllegalAccessException, InvocationTargetException, ClassNotFoundException, InstantiationException, RosEnumConversionException,
-         NoSuchFieldException, IllegalArgumentException, NoSuchMethodException, SecurityException
-   {
-      List<?> rosValues = (List<?>) rosGetter.invoke(rosMessage);
-
-      RecyclingArrayList<?> ihmcList = (RecyclingArrayList<?>) ihmcField.get(ihmcMessage);
-
-      for (Object rosValue : rosValues)
-      {
-         Object ihmcValue;
-         if (rosValue instanceof Message)
-         {
-            ihmcValue = convertRosMessageToIHMCMessage((Message) rosValue);
-         }
-         else
-         {
-            ihmcValue = rosValue;
-         }
-
-         Object ihmcSettable = ihmcList.add();
-         ihmcSettable.getClass().getMethod("set", ihmcValue.getClass()).invoke(ihmcSettable, ihmcValue);
-      }
-
-      ihmcField.set(ihmcMessage, ihmcList);
+      return customFieldConversions;
    }
 
    @SuppressWarnings({"rawtypes", "unchecked"})
@@ -472,142 +313,6 @@ public class GenericROSTranslationTools
       return inputTopicsForPackage;
    }
 
-   private static void convertIHMCMessageFieldsToROSFields(Object ihmcMessage, Message message, ArrayList<Field> fields)
-         throws IllegalAccessException, NoSuchMethodException, InvocationTargetException, ClassNotFoundException
-   {
-      for (Field field : fields)
-      {
-         if (field.getType().isAnnotationPresent(RosMessagePacket.class))
-         {
-            Message rosMessageField = convertJavaObjectToRosMessage(field.get(ihmcMessage));
-            String rosSetterForField = getRosSetterNameForField(field);
-            Method setterMethod = message.getClass().getMethod(rosSetterForField, rosMessageField.getClass().getInterfaces()[0]);
-            setterMethod.setAccessible(true);
-            setterMethod.invoke(message, rosMessageField);
-         }
-         else if (customFieldConversions.containsConverterFor(field.getType()))
-         {
-            Object fieldVariableToConvert = field.get(ihmcMessage);
-            Message rosMessageField = customFieldConversions.convert(fieldVariableToConvert);
-
-            String rosSetterForField = getRosSetterNameForField(field);
-            Method setterMethod = message.getClass().getMethod(rosSetterForField, rosMessageField.getClass().getInterfaces()[0]);
-            setterMethod.setAccessible(true);
-            setterMethod.invoke(message, rosMessageField);
-         }
-         else if (field.getType().isArray() && !field.getType().getComponentType().isPrimitive())
-         {
-            setListFromArray(ihmcMessage, message, field);
-         }
-         else if (Enum.class.isAssignableFrom(field.getType()))
-         {
-            setByteFromEnum(ihmcMessage, message, field);
-         }
-         else
-         {
-            setField(message, field, field.get(ihmcMessage));
-         }
-      }
-   }
-
-   private static void setField(Message message, Field field, Object value) throws NoSuchMethodException, InvocationTargetException, IllegalAccessException
-   {
-      Method rosSetterForField = getRosSetterForField(message.getClass(), field);
-      if (value instanceof RecyclingArrayList)
-         value = Arrays.asList(((RecyclingArrayList<?>) value).toArray());
-      else if (value instanceof TDoubleArrayList)
-         value = ((TDoubleArrayList) value).toArray();
-      else if (value instanceof TLongArrayList)
-         value = ((TLongArrayList) value).toArray();
-      else if (value instanceof TByteArrayList)
-         value = ((TByteArrayList) value).toArray();
-      else if (value instanceof TFloatArrayList)
-         value = ((TFloatArrayList) value).toArray();
-      else if (value instanceof TIntArrayList)
-         value = ((TIntArrayList) value).toArray();
-      rosSetterForField.invoke(message, value);
-   }
-
-   private static void setByteFromEnum(Object ihmcMessage, Message message, Field field)
-         throws NoSuchMethodException, InvocationTargetException, IllegalAccessException
-   {
-      Method rosSetterForField = getRosSetterForField(message.getClass(), field);
-      Enum<?> enumField = (Enum<?>) field.get(ihmcMessage);
-      if (enumField != null)
-      {
-         rosSetterForField.invoke(message, (byte) enumField.ordinal());
-      }
-   }
-
-   private static void setListFromArray(Object ihmcMessage, Message message, Field field)
-         throws NoSuchMethodException, InvocationTargetException, IllegalAccessException
-   {
-      Object[] fieldAsArray = (Object[]) field.get(ihmcMessage);
-
-      String setterMethodName = getRosSetterNameForField(field);
-      Method listSetterMethod;
-
-      if (field.getType().isArray() && field.getType().getComponentType().isPrimitive())
-      {
-         listSetterMethod = message.getClass().getMethod(setterMethodName, field.getType());
-         listSetterMethod.setAccessible(true);
-         if (fieldAsArray == null)
-         {
-            listSetterMethod.invoke(message, Array.newInstance(field.getType().getComponentType(), 0));
-         }
-         else
-         {
-            listSetterMethod.invoke(message, fieldAsArray);
-         }
-      }
-      else
-      {
-         List<Object> objects;
-
-         if (fieldAsArray == null)
-         {
-            objects = new ArrayList<>();
-         }
-         else
-         {
-            objects = Arrays.asList(fieldAsArray);
-         }
-
-         listSetterMethod = message.getClass().getMethod(setterMethodName, List.class);
-         listSetterMethod.setAccessible(true);
-         listSetterMethod.invoke(message, objects);
-      }
-
-   }
-
-   private static Method getRosSetterForField(Class<? extends Message> rosMessageClass, Field field) throws NoSuchMethodException
-   {
-      String methodName = getRosSetterNameForField(field);
-      Class<?> type = field.getType().isEnum() ? byte.class : field.getType();
-      if (type == RecyclingArrayList.class)
-         type = List.class;
-      else if (type == TByteArrayList.class)
-         type = byte[].class;
-      else if (type == TLongArrayList.class)
-         type = long[].class;
-      else if (type == TDoubleArrayList.class)
-         type = double[].class;
-      else if (type == TFloatArrayList.class)
-         type = float[].class;
-      else if (type == TIntArrayList.class)
-         type = int[].class;
-
-      Method method = rosMessageClass.getMethod(methodName, type);
-      method.setAccessible(true);
-
-      return method;
-   }
-
-   private static String getRosSetterNameForField(Field field)
-   {
-      return "set" + StringUtils.capitalize(field.getName());
-   }
-
    public static Point2D convertPoint2DRos(Point2dRosMessage point2dRosMessage)
    {
       if (point2dRosMessage == null)
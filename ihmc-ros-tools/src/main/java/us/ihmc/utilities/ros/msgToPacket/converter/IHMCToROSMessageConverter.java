@@ -0,0 +1,229 @@
+package us.ihmc.utilities.ros.msgToPacket.converter;
+
+import java.lang.invoke.MethodHandle;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.MethodType;
+import java.lang.reflect.Field;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import org.apache.commons.lang3.StringUtils;
+import org.ros.internal.message.Message;
+import org.ros.message.MessageFactory;
+
+import gnu.trove.list.array.TByteArrayList;
+import gnu.trove.list.array.TDoubleArrayList;
+import gnu.trove.list.array.TFloatArrayList;
+import gnu.trove.list.array.TIntArrayList;
+import gnu.trove.list.array.TLongArrayList;
+import us.ihmc.commons.lists.RecyclingArrayList;
+import us.ihmc.communication.ros.generators.RosExportedField;
+import us.ihmc.communication.ros.generators.RosMessagePacket;
+
+/**
+ * Converts the instances of a given IHMC message class into ROS messages.
+ * <p>
+ * All the reflective lookups needed for the conversion are done once when creating the converter.
+ * The fields are then accessed using {@link MethodHandle}s which avoids the overhead of
+ * {@link Field#get(Object)} and {@link Method#invoke(Object, Object...)}.
+ * </p>
+ * <p>
+ * Use {@link GenericROSTranslationTools#convertIHMCMessageToRosMessage(us.ihmc.communication.packets.Packet)}
+ * which creates and caches the converters as needed.
+ * </p>
+ */
+public class IHMCToROSMessageConverter
+{
+   private static final MethodType GETTER_TYPE = MethodType.methodType(Object.class, Object.class);
+   private static final MethodType SETTER_TYPE = MethodType.methodType(void.class, Object.class, Object.class);
+
+   private final Class<?> ihmcMessageClass;
+   private final String rosMessageType;
+   private final FieldConverter[] fieldConverters;
+
+   IHMCToROSMessageConverter(Class<?> ihmcMessageClass) throws ClassNotFoundException, NoSuchMethodException, IllegalAccessException
+   {
+      if (!ihmcMessageClass.isAnnotationPresent(RosMessagePacket.class))
+         throw new IllegalArgumentException("Class " + ihmcMessageClass.getSimpleName() + " must contain RosMessagePacket class annotation to be converted.");
+
+      this.ihmcMessageClass = ihmcMessageClass;
+
+      RosMessagePacket rosAnnotation = ihmcMessageClass.getAnnotation(RosMessagePacket.class);
+      String rosMessageClassName = GenericROSTranslationTools.getRosMessageClassNameFromIHMCMessage(ihmcMessageClass.getSimpleName());
+      rosMessageType = rosAnnotation.rosPackage() + "/" + rosMessageClassName;
+      Class<?> rosMessageClass = Class.forName(rosAnnotation.rosPackage() + "." + rosMessageClassName);
+
+      MethodHandles.Lookup lookup = MethodHandles.publicLookup();
+      List<FieldConverter> fieldConverters = new ArrayList<>();
+
+      for (Field field : ihmcMessageClass.getFields())
+      {
+         if (field.isAnnotationPresent(RosExportedField.class))
+            fieldConverters.add(createFieldConverter(lookup, rosMessageClass, field));
+      }
+
+      this.fieldConverters = fieldConverters.toArray(new FieldConverter[fieldConverters.size()]);
+   }
+
+   private static FieldConverter createFieldConverter(MethodHandles.Lookup lookup, Class<?> rosMessageClass, Field field)
+         throws NoSuchMethodException, IllegalAccessException
+   {
+      MethodHandle getter = lookup.unreflectGetter(field).asType(GETTER_TYPE);
+      Class<?> fieldType = field.getType();
+      String setterName = "set" + StringUtils.capitalize(field.getName());
+
+      if (fieldType.isAnnotationPresent(RosMessagePacket.class))
+      {
+         MethodHandle setter = lookup.unreflect(getSingleArgumentMethod(rosMessageClass, setterName)).asType(SETTER_TYPE);
+         return (ihmcMessage, rosMessage) ->
+         {
+            Object fieldValue = getter.invokeExact(ihmcMessage);
+            setter.invokeExact(rosMessage, (Object) GenericROSTranslationTools.convertJavaObjectToRosMessage(fieldValue));
+         };
+      }
+      else if (GenericROSTranslationTools.getCustomFieldConversions().containsConverterFor(fieldType))
+      {
+         MethodHandle setter = lookup.unreflect(getSingleArgumentMethod(rosMessageClass, setterName)).asType(SETTER_TYPE);
+         CustomFieldConversions customFieldConversions = GenericROSTranslationTools.getCustomFieldConversions();
+         return (ihmcMessage, rosMessage) ->
+         {
+            Object fieldVariableToConvert = getter.invokeExact(ihmcMessage);
+            Message rosMessageField = customFieldConversions.convert(fieldVariableToConvert);
+            setter.invokeExact(rosMessage, (Object) rosMessageField);
+         };
+      }
+      else if (fieldType.isArray() && !fieldType.getComponentType().isPrimitive())
+      {
+         MethodHandle setter = lookup.findVirtual(rosMessageClass, setterName, MethodType.methodType(void.class, List.class)).asType(SETTER_TYPE);
+         return (ihmcMessage, rosMessage) ->
+         {
+            Object fieldValue = getter.invokeExact(ihmcMessage);
+            Object[] fieldAsArray = (Object[]) fieldValue;
+            List<Object> objects = fieldAsArray == null ? new ArrayList<>() : Arrays.asList(fieldAsArray);
+            setter.invokeExact(rosMessage, (Object) objects);
+         };
+      }
+      else if (Enum.class.isAssignableFrom(fieldType))
+      {
+         MethodHandle setter = lookup.findVirtual(rosMessageClass, setterName, MethodType.methodType(void.class, byte.class));
+         MethodHandle genericSetter = setter.asType(MethodType.methodType(void.class, Object.class, byte.class));
+         return (ihmcMessage, rosMessage) ->
+         {
+            Object fieldValue = getter.invokeExact(ihmcMessage);
+            Enum<?> enumField = (Enum<?>) fieldValue;
+            if (enumField != null)
+               genericSetter.invokeExact(rosMessage, (byte) enumField.ordinal());
+         };
+      }
+      else
+      {
+         MethodHandle setter = lookup.findVirtual(rosMessageClass, setterName, MethodType.methodType(void.class, getRosFieldType(fieldType)))
+                                     .asType(SETTER_TYPE);
+         return (ihmcMessage, rosMessage) ->
+         {
+            Object fieldValue = getter.invokeExact(ihmcMessage);
+            setter.invokeExact(rosMessage, toRosValue(fieldValue));
+         };
+      }
+   }
+
+   private static Method getSingleArgumentMethod(Class<?> clazz, String methodName) throws NoSuchMethodException
+   {
+      for (Method method : clazz.getMethods())
+      {
+         if (method.getName().equals(methodName) && method.getParameterCount() == 1)
+            return method;
+      }
+
+      throw new NoSuchMethodException(clazz.getName() + "." + methodName);
+   }
+
+   private static Class<?> getRosFieldType(Class<?> fieldType)
+   {
+      if (fieldType == RecyclingArrayList.class)
+         return List.class;
+      else if (fieldType == TByteArrayList.class)
+         return byte[].class;
+      else if (fieldType == TLongArrayList.class)
+         return long[].class;
+      else if (fieldType == TDoubleArrayList.class)
+         return double[].class;
+      else if (fieldType == TFloatArrayList.class)
+         return float[].class;
+      else if (fieldType == TIntArrayList.class)
+         return int[].class;
+      else
+         return fieldType;
+   }
+
+   private static Object toRosValue(Object value)
+   {
+      if (value instanceof RecyclingArrayList)
+         return Arrays.asList(((RecyclingArrayList<?>) value).toArray());
+      else if (value instanceof TDoubleArrayList)
+         return ((TDoubleArrayList) value).toArray();
+      else if (value instanceof TLongArrayList)
+         return ((TLongArrayList) value).toArray();
+      else if (value instanceof TByteArrayList)
+         return ((TByteArrayList) value).toArray();
+      else if (value instanceof TFloatArrayList)
+         return ((TFloatArrayList) value).toArray();
+      else if (value instanceof TIntArrayList)
+         return ((TIntArrayList) value).toArray();
+      else
+         return value;
+   }
+
+   /**
+    * Creates a new ROS message and sets its fields from the given IHMC message.
+    *
+    * @param ihmcMessage the message to convert, its class has to be the one this converter was
+    *                    created for.
+    * @param messageFactory the factory used to create the ROS message.
+    * @return the new ROS message.
+    * @throws InvocationTargetException if the conversion of one of the fields failed.
+    */
+   public Message convert(Object ihmcMessage, MessageFactory messageFactory) throws InvocationTargetException
+   {
+      if (ihmcMessage.getClass() != ihmcMessageClass)
+         throw new IllegalArgumentException("Expected an instance of " + ihmcMessageClass.getSimpleName() + ", got " + ihmcMessage.getClass().getSimpleName());
+
+      Message rosMessage = messageFactory.newFromType(rosMessageType);
+
+      for (FieldConverter fieldConverter : fieldConverters)
+      {
+         try
+         {
+            fieldConverter.convert(ihmcMessage, rosMessage);
+         }
+         catch (RuntimeException | Error e)
+         {
+            throw e;
+         }
+         catch (Throwable e)
+         {
+            throw new InvocationTargetException(e);
+         }
+      }
+
+      return rosMessage;
+   }
+
+   public Class<?> getIHMCMessageClass()
+   {
+      return ihmcMessageClass;
+   }
+
+   public String getRosMessageType()
+   {
+      return rosMessageType;
+   }
+
+   private static interface FieldConverter
+   {
+      void convert(Object ihmcMessage, Object rosMessage) throws Throwable;
+   }
+}
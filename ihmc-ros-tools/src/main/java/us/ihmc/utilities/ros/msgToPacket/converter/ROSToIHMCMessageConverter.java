@@ -0,0 +1,291 @@
+package us.ihmc.utilities.ros.msgToPacket.converter;
+
+import java.lang.invoke.MethodHandle;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.MethodType;
+import java.lang.reflect.Array;
+import java.lang.reflect.Field;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.util.ArrayList;
+import java.util.List;
+
+import org.apache.commons.lang3.StringUtils;
+import org.reflections.ReflectionUtils;
+import org.ros.internal.message.Message;
+
+import gnu.trove.list.array.TByteArrayList;
+import gnu.trove.list.array.TDoubleArrayList;
+import gnu.trove.list.array.TFloatArrayList;
+import gnu.trove.list.array.TIntArrayList;
+import us.ihmc.commons.lists.RecyclingArrayList;
+import us.ihmc.communication.packets.Packet;
+
+/**
+ * Converts the ROS messages of a given type into IHMC messages.
+ * <p>
+ * All the reflective lookups needed for the conversion are done once when creating the converter.
+ * The fields are then accessed using {@link MethodHandle}s which avoids the overhead of
+ * {@link Field#set(Object, Object)} and {@link Method#invoke(Object, Object...)}.
+ * </p>
+ * <p>
+ * Use {@link GenericROSTranslationTools#convertRosMessageToIHMCMessage(Message)} which creates and
+ * caches the converters as needed.
+ * </p>
+ */
+public class ROSToIHMCMessageConverter
+{
+   private static final MethodType GETTER_TYPE = MethodType.methodType(Object.class, Object.class);
+   private static final MethodType SETTER_TYPE = MethodType.methodType(void.class, Object.class, Object.class);
+
+   private final String rosMessageType;
+   private final Class<? extends Packet<?>> ihmcMessageClass;
+   private final MethodHandle ihmcMessageConstructor;
+   private final FieldConverter[] fieldConverters;
+
+   @SuppressWarnings({"unchecked", "rawtypes"})
+   ROSToIHMCMessageConverter(String rosMessageType) throws ClassNotFoundException, NoSuchMethodException, IllegalAccessException
+   {
+      this.rosMessageType = rosMessageType;
+
+      String rosMessageName = rosMessageType.split("/")[1];
+      Class<?> rosMessageClass = Class.forName(rosMessageType.replace("/", "."));
+      Class<? extends Packet> ihmcMessageClass = GenericROSTranslationTools.getIHMCMessageClassForROSMessage(GenericROSTranslationTools.getAllRosMessagePacketAnnotatedClasses(),
+                                                                                                             rosMessageName);
+      this.ihmcMessageClass = (Class<? extends Packet<?>>) ihmcMessageClass;
+
+      MethodHandles.Lookup lookup = MethodHandles.publicLookup();
+      List<FieldConverter> fieldConverters = new ArrayList<>();
+
+      for (Method getter : ReflectionUtils.getMethods(rosMessageClass, ReflectionUtils.withPrefix("get")))
+      {
+         String fieldName = StringUtils.uncapitalize(getter.getName().replace("get", ""));
+         try
+         {
+            Field field = ihmcMessageClass.getField(fieldName);
+            fieldConverters.add(createFieldConverter(lookup, getter, field));
+         }
+         catch (NoSuchFieldException e)
+         {
+            System.out.println("Couldn't find field " + fieldName + " for class " + ihmcMessageClass.getSimpleName());
+         }
+      }
+
+      this.fieldConverters = fieldConverters.toArray(new FieldConverter[fieldConverters.size()]);
+
+      if (this.fieldConverters.length > 0)
+         ihmcMessageConstructor = lookup.findConstructor(ihmcMessageClass, MethodType.methodType(void.class)).asType(MethodType.methodType(Object.class));
+      else
+         ihmcMessageConstructor = null;
+   }
+
+   @SuppressWarnings({"rawtypes", "unchecked"})
+   private static FieldConverter createFieldConverter(MethodHandles.Lookup lookup, Method rosGetter, Field ihmcField)
+         throws IllegalAccessException, NoSuchMethodException
+   {
+      MethodHandle getter = lookup.unreflect(rosGetter).asType(GETTER_TYPE);
+      MethodHandle setter = lookup.unreflectSetter(ihmcField).asType(SETTER_TYPE);
+      Class<?> rosFieldType = rosGetter.getReturnType();
+      Class<?> ihmcFieldType = ihmcField.getType();
+
+      if (List.class.isAssignableFrom(rosFieldType) && ihmcFieldType.isArray())
+      {
+         Class<?> componentType = ihmcFieldType.getComponentType();
+         return (rosMessage, ihmcMessage) ->
+         {
+            Object fieldValue = getter.invokeExact(rosMessage);
+            List<?> rosValues = (List<?>) fieldValue;
+            Object ihmcArray = Array.newInstance(componentType, rosValues.size());
+
+            int i = 0;
+            for (Object value : rosValues)
+            {
+               if (value instanceof Message)
+                  Array.set(ihmcArray, i, GenericROSTranslationTools.convertRosMessageToIHMCMessage((Message) value));
+               else
+                  Array.set(ihmcArray, i, value);
+               i++;
+            }
+
+            setter.invokeExact(ihmcMessage, ihmcArray);
+         };
+      }
+      else if (List.class.isAssignableFrom(rosFieldType) && ihmcFieldType == RecyclingArrayList.class)
+      {
+         MethodHandle ihmcFieldGetter = lookup.unreflectGetter(ihmcField).asType(GETTER_TYPE);
+         ElementSetterCache elementSetterCache = new ElementSetterCache();
+         return (rosMessage, ihmcMessage) ->
+         {
+            Object fieldValue = getter.invokeExact(rosMessage);
+            List<?> rosValues = (List<?>) fieldValue;
+            Object ihmcFieldValue = ihmcFieldGetter.invokeExact(ihmcMessage);
+            RecyclingArrayList<?> ihmcList = (RecyclingArrayList<?>) ihmcFieldValue;
+
+            for (Object rosValue : rosValues)
+            {
+               Object ihmcValue = rosValue instanceof Message ? GenericROSTranslationTools.convertRosMessageToIHMCMessage((Message) rosValue) : rosValue;
+               Object ihmcSettable = ihmcList.add();
+               MethodHandle elementSetter = elementSetterCache.get(ihmcSettable.getClass(), ihmcValue.getClass());
+               elementSetter.invokeExact(ihmcSettable, ihmcValue);
+            }
+
+            setter.invokeExact(ihmcMessage, (Object) ihmcList);
+         };
+      }
+      else if (double[].class.isAssignableFrom(rosFieldType) && ihmcFieldType == TDoubleArrayList.class)
+      {
+         return (rosMessage, ihmcMessage) ->
+         {
+            Object fieldValue = getter.invokeExact(rosMessage);
+            setter.invokeExact(ihmcMessage, (Object) new TDoubleArrayList((double[]) fieldValue));
+         };
+      }
+      else if (float[].class.isAssignableFrom(rosFieldType) && ihmcFieldType == TFloatArrayList.class)
+      {
+         return (rosMessage, ihmcMessage) ->
+         {
+            Object fieldValue = getter.invokeExact(rosMessage);
+            setter.invokeExact(ihmcMessage, (Object) new TFloatArrayList((float[]) fieldValue));
+         };
+      }
+      else if (int[].class.isAssignableFrom(rosFieldType) && ihmcFieldType == TIntArrayList.class)
+      {
+         return (rosMessage, ihmcMessage) ->
+         {
+            Object fieldValue = getter.invokeExact(rosMessage);
+            setter.invokeExact(ihmcMessage, (Object) new TIntArrayList((int[]) fieldValue));
+         };
+      }
+      else if (byte[].class.isAssignableFrom(rosFieldType) && ihmcFieldType == TByteArrayList.class)
+      {
+         return (rosMessage, ihmcMessage) ->
+         {
+            Object fieldValue = getter.invokeExact(rosMessage);
+            setter.invokeExact(ihmcMessage, (Object) new TByteArrayList((byte[]) fieldValue));
+         };
+      }
+      else if (ihmcFieldType.isEnum())
+      {
+         Class<? extends Enum> enumClass = (Class<? extends Enum>) ihmcFieldType;
+         Enum[] enumConstants = enumClass.getEnumConstants();
+         return (rosMessage, ihmcMessage) ->
+         {
+            Object fieldValue = getter.invokeExact(rosMessage);
+            byte ordinal = (byte) fieldValue;
+
+            if (ordinal >= enumConstants.length)
+               throw new RosEnumConversionException(enumClass, ordinal, "");
+
+            setter.invokeExact(ihmcMessage, (Object) enumConstants[ordinal]);
+         };
+      }
+      else if (GenericROSTranslationTools.getCustomFieldConversions().containsConverterFor(rosFieldType))
+      {
+         CustomFieldConversions customFieldConversions = GenericROSTranslationTools.getCustomFieldConversions();
+         return (rosMessage, ihmcMessage) ->
+         {
+            Object fieldValue = getter.invokeExact(rosMessage);
+            Object ihmcPacketField = customFieldConversions.convert((Message) fieldValue);
+            setter.invokeExact(ihmcMessage, ihmcPacketField);
+         };
+      }
+      else
+      {
+         return (rosMessage, ihmcMessage) ->
+         {
+            Object rosField = getter.invokeExact(rosMessage);
+            if (rosField instanceof Message)
+               rosField = GenericROSTranslationTools.convertRosMessageToIHMCMessage((Message) rosField);
+            setter.invokeExact(ihmcMessage, rosField);
+         };
+      }
+   }
+
+   /**
+    * Creates a new IHMC message and sets its fields from the given ROS message.
+    *
+    * @param rosMessage the message to convert, its type has to be the one this converter was created
+    *                   for.
+    * @return the new IHMC message, or {@code null} if none of the ROS fields could be matched.
+    * @throws RosEnumConversionException if the value of an enum field is out of range.
+    * @throws InvocationTargetException  if the conversion of one of the fields failed.
+    */
+   public Packet<?> convert(Message rosMessage) throws RosEnumConversionException, InvocationTargetException
+   {
+      if (ihmcMessageConstructor == null)
+         return null;
+
+      try
+      {
+         Object ihmcMessage = ihmcMessageConstructor.invokeExact();
+
+         for (FieldConverter fieldConverter : fieldConverters)
+         {
+            fieldConverter.convert(rosMessage, ihmcMessage);
+         }
+
+         return (Packet<?>) ihmcMessage;
+      }
+      catch (RuntimeException | Error | RosEnumConversionException e)
+      {
+         throw e;
+      }
+      catch (Throwable e)
+      {
+         throw new InvocationTargetException(e);
+      }
+   }
+
+   public String getRosMessageType()
+   {
+      return rosMessageType;
+   }
+
+   public Class<? extends Packet<?>> getIHMCMessageClass()
+   {
+      return ihmcMessageClass;
+   }
+
+   private static interface FieldConverter
+   {
+      void convert(Object rosMessage, Object ihmcMessage) throws Throwable;
+   }
+
+   /**
+    * Remembers the {@code set} method used for the elements of a {@link RecyclingArrayList}, the
+    * element types are only known once the first element is converted.
+    */
+   private static class ElementSetterCache
+   {
+      private volatile CachedSetter cachedSetter = null;
+
+      MethodHandle get(Class<?> elementClass, Class<?> valueClass) throws NoSuchMethodException, IllegalAccessException
+      {
+         CachedSetter current = cachedSetter;
+
+         if (current == null || current.elementClass != elementClass || current.valueClass != valueClass)
+         {
+            Method setMethod = elementClass.getMethod("set", valueClass);
+            MethodHandle handle = MethodHandles.publicLookup().unreflect(setMethod).asType(SETTER_TYPE);
+            current = new CachedSetter(elementClass, valueClass, handle);
+            cachedSetter = current;
+         }
+
+         return current.setter;
+      }
+   }
+
+   private static class CachedSetter
+   {
+      private final Class<?> elementClass;
+      private final Class<?> valueClass;
+      private final MethodHandle setter;
+
+      private CachedSetter(Class<?> elementClass, Class<?> valueClass, MethodHandle setter)
+      {
+         this.elementClass = elementClass;
+         this.valueClass = valueClass;
+         this.setter = setter;
+      }
+   }
+}
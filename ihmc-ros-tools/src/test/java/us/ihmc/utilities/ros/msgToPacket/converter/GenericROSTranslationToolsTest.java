@@ -0,0 +1,147 @@
+package us.ihmc.utilities.ros.msgToPacket.converter;
+
+import static us.ihmc.robotics.Assert.assertEquals;
+import static us.ihmc.robotics.Assert.assertTrue;
+
+import java.util.Random;
+
+import org.junit.jupiter.api.Test;
+import org.ros.internal.message.Message;
+
+import gnu.trove.list.array.TDoubleArrayList;
+import ihmc_msgs.DesiredAccelerationsRosMessage;
+import us.ihmc.communication.packets.ExecutionMode;
+import us.ihmc.communication.packets.Packet;
+import us.ihmc.communication.ros.generators.RosExportedField;
+import us.ihmc.communication.ros.generators.RosMessagePacket;
+
+public class GenericROSTranslationToolsTest
+{
+   static final int JOINT_STATE_SIZE = 30;
+   static final int POINT_CLOUD_SIZE = 3 * 20000;
+
+   @Test
+   public void testRoundTrip() throws Exception
+   {
+      Random random = new Random(4531L);
+
+      for (int size : new int[] {0, 1, JOINT_STATE_SIZE, POINT_CLOUD_SIZE})
+      {
+         DesiredAccelerationsMessage expected = nextMessage(random, size);
+         Message rosMessage = GenericROSTranslationTools.convertIHMCMessageToRosMessage(expected);
+
+         assertTrue(rosMessage instanceof DesiredAccelerationsRosMessage);
+         DesiredAccelerationsRosMessage desiredAccelerationsRosMessage = (DesiredAccelerationsRosMessage) rosMessage;
+         assertEquals(size, desiredAccelerationsRosMessage.getDesiredJointAccelerations().length);
+         assertEquals((long) expected.queueingProperties.executionMode.ordinal(), (long) desiredAccelerationsRosMessage.getQueueingProperties().getExecutionMode());
+         assertEquals(expected.queueingProperties.messageId, desiredAccelerationsRosMessage.getQueueingProperties().getMessageId());
+         assertEquals(expected.uniqueId, desiredAccelerationsRosMessage.getUniqueId());
+         for (int i = 0; i < size; i++)
+            assertEquals(expected.desiredJointAccelerations.get(i), desiredAccelerationsRosMessage.getDesiredJointAccelerations()[i], 0.0);
+
+         Packet<?> actual = GenericROSTranslationTools.convertRosMessageToIHMCMessage(rosMessage);
+         assertTrue(actual instanceof DesiredAccelerationsMessage);
+         assertTrue(expected.epsilonEquals((DesiredAccelerationsMessage) actual, 0.0));
+      }
+   }
+
+   @Test
+   public void testConvertersAreCached() throws Exception
+   {
+      IHMCToROSMessageConverter ihmcToROSConverter = GenericROSTranslationTools.getIHMCToROSMessageConverter(DesiredAccelerationsMessage.class);
+      assertTrue(ihmcToROSConverter == GenericROSTranslationTools.getIHMCToROSMessageConverter(DesiredAccelerationsMessage.class));
+      assertEquals(DesiredAccelerationsRosMessage._TYPE, ihmcToROSConverter.getRosMessageType());
+
+      ROSToIHMCMessageConverter rosToIHMCConverter = GenericROSTranslationTools.getROSToIHMCMessageConverter(DesiredAccelerationsRosMessage._TYPE);
+      assertTrue(rosToIHMCConverter == GenericROSTranslationTools.getROSToIHMCMessageConverter(DesiredAccelerationsRosMessage._TYPE));
+      assertTrue(rosToIHMCConverter.getIHMCMessageClass() == DesiredAccelerationsMessage.class);
+   }
+
+   static DesiredAccelerationsMessage nextMessage(Random random, int size)
+   {
+      DesiredAccelerationsMessage message = new DesiredAccelerationsMessage();
+      for (int i = 0; i < size; i++)
+         message.desiredJointAccelerations.add(random.nextDouble());
+      message.queueingProperties.executionMode = ExecutionMode.values()[random.nextInt(ExecutionMode.values().length)];
+      message.queueingProperties.messageId = random.nextLong();
+      message.queueingProperties.previousMessageId = random.nextLong();
+      message.queueingProperties.executionDelayTime = random.nextDouble();
+      message.queueingProperties.uniqueId = random.nextLong();
+      message.uniqueId = random.nextLong();
+      return message;
+   }
+
+   @RosMessagePacket(documentation = "Test message matching ihmc_msgs/DesiredAccelerationsRosMessage.", rosPackage = "ihmc_msgs", topic = "/test/desired_accelerations")
+   public static class DesiredAccelerationsMessage extends Packet<DesiredAccelerationsMessage>
+   {
+      @RosExportedField(documentation = "Specifies the desired joint accelerations.")
+      public TDoubleArrayList desiredJointAccelerations = new TDoubleArrayList();
+      @RosExportedField(documentation = "Properties for queueing trajectories.")
+      public QueueableMessage queueingProperties = new QueueableMessage();
+      @RosExportedField(documentation = "A unique id for the current message.")
+      public long uniqueId;
+
+      public DesiredAccelerationsMessage()
+      {
+      }
+
+      @Override
+      public void set(DesiredAccelerationsMessage other)
+      {
+         desiredJointAccelerations = new TDoubleArrayList(other.desiredJointAccelerations);
+         queueingProperties.set(other.queueingProperties);
+         uniqueId = other.uniqueId;
+         setPacketInformation(other);
+      }
+
+      @Override
+      public boolean epsilonEquals(DesiredAccelerationsMessage other, double epsilon)
+      {
+         if (desiredJointAccelerations.size() != other.desiredJointAccelerations.size())
+            return false;
+         for (int i = 0; i < desiredJointAccelerations.size(); i++)
+         {
+            if (Math.abs(desiredJointAccelerations.get(i) - other.desiredJointAccelerations.get(i)) > epsilon)
+               return false;
+         }
+         return queueingProperties.epsilonEquals(other.queueingProperties, epsilon) && uniqueId == other.uniqueId;
+      }
+   }
+
+   @RosMessagePacket(documentation = "Test message matching ihmc_msgs/QueueableRosMessage.", rosPackage = "ihmc_msgs", topic = "/test/queueable")
+   public static class QueueableMessage extends Packet<QueueableMessage>
+   {
+      @RosExportedField(documentation = "The execution mode.")
+      public ExecutionMode executionMode = ExecutionMode.OVERRIDE;
+      @RosExportedField(documentation = "The ID of this message.")
+      public long messageId;
+      @RosExportedField(documentation = "The ID of the message to queue to.")
+      public long previousMessageId;
+      @RosExportedField(documentation = "The time to delay this message.")
+      public double executionDelayTime;
+      @RosExportedField(documentation = "A unique id for the current message.")
+      public long uniqueId;
+
+      public QueueableMessage()
+      {
+      }
+
+      @Override
+      public void set(QueueableMessage other)
+      {
+         executionMode = other.executionMode;
+         messageId = other.messageId;
+         previousMessageId = other.previousMessageId;
+         executionDelayTime = other.executionDelayTime;
+         uniqueId = other.uniqueId;
+         setPacketInformation(other);
+      }
+
+      @Override
+      public boolean epsilonEquals(QueueableMessage other, double epsilon)
+      {
+         return executionMode == other.executionMode && messageId == other.messageId && previousMessageId == other.previousMessageId
+               && Math.abs(executionDelayTime - other.executionDelayTime) <= epsilon && uniqueId == other.uniqueId;
+      }
+   }
+}
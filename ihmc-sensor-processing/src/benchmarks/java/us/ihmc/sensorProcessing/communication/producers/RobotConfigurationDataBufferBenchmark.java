@@ -0,0 +1,78 @@
+package us.ihmc.sensorProcessing.communication.producers;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+
+import controller_msgs.msg.dds.RobotConfigurationData;
+import us.ihmc.commons.Conversions;
+import us.ihmc.log.LogTools;
+
+/**
+ * Measures the lookup throughput of the {@link RobotConfigurationDataBuffer} for one, two and four
+ * readers while a writer continuously updates it.
+ */
+public class RobotConfigurationDataBufferBenchmark
+{
+   private static final long TIMESTAMP_PERIOD = 10;
+
+   public static void main(String[] args) throws InterruptedException
+   {
+      RobotConfigurationDataBuffer buffer = new RobotConfigurationDataBuffer();
+      RobotConfigurationData[] packets = new RobotConfigurationData[4 * RobotConfigurationDataBuffer.BUFFER_SIZE];
+      for (int i = 0; i < packets.length; i++)
+         packets[i] = new RobotConfigurationData();
+
+      for (int numberOfReaders = 1; numberOfReaders <= 4; numberOfReaders *= 2)
+      {
+         AtomicBoolean running = new AtomicBoolean(true);
+         AtomicLong numberOfLookups = new AtomicLong();
+         AtomicLong numberOfUpdates = new AtomicLong();
+
+         Thread writer = new Thread(() ->
+         {
+            long sequence = buffer.getNewestTimestamp() / TIMESTAMP_PERIOD + 1;
+            while (running.get())
+            {
+               RobotConfigurationData packet = packets[(int) (sequence % packets.length)];
+               packet.setMonotonicTime(sequence * TIMESTAMP_PERIOD);
+               buffer.update(packet);
+               sequence++;
+            }
+            numberOfUpdates.set(sequence);
+         });
+
+         List<Thread> readers = new ArrayList<>();
+         for (int readerIndex = 0; readerIndex < numberOfReaders; readerIndex++)
+         {
+            Random random = new Random(1276L + readerIndex);
+            readers.add(new Thread(() ->
+            {
+               long lookups = 0;
+               while (running.get())
+               {
+                  long timestamp = buffer.getNewestTimestamp() - random.nextInt(RobotConfigurationDataBuffer.BUFFER_SIZE / 2) * TIMESTAMP_PERIOD;
+                  buffer.floorData(timestamp);
+                  lookups++;
+               }
+               numberOfLookups.addAndGet(lookups);
+            }));
+         }
+
+         writer.start();
+         readers.forEach(Thread::start);
+         long start = System.nanoTime();
+         Thread.sleep(1000);
+         running.set(false);
+         writer.join();
+         for (Thread reader : readers)
+            reader.join();
+         double duration = Conversions.nanosecondsToSeconds(System.nanoTime() - start);
+
+         LogTools.info(numberOfReaders + " reader(s): " + (long) (numberOfLookups.get() / duration) + " lookups per second while the writer updates at "
+               + (long) (numberOfUpdates.get() / duration) + " packets per second.");
+      }
+   }
+}
@@ -2,6 +2,8 @@ package us.ihmc.sensorProcessing.communication.producers;
 
 import java.util.HashMap;
 import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.AtomicReferenceArray;
 import java.util.concurrent.locks.Condition;
 import java.util.concurrent.locks.ReentrantLock;
 
@@ -23,6 +25,18 @@ import us.ihmc.sensorProcessing.communication.packets.dataobjects.RobotConfigura
 /**
  * Buffer for RobotConfigurationData. Allows updating a fullrobotmodel based on timestamps. Make
  * sure not to share fullrobotmodels between thread
+ * <p>
+ * The buffer is a single-writer, multi-reader ring buffer that does not lock: {@link #update(RobotConfigurationData)}
+ * has to be called from a single thread, typically the thread receiving the packets, while lookups can be done from
+ * any number of threads. Every slot carries the sequence number of the packet it holds, a reader validates that
+ * sequence number before and after reading a slot and starts over if the writer overwrote it in the meantime.
+ * </p>
+ * <p>
+ * The packets are expected to be received in increasing order of {@link RobotConfigurationData#getMonotonicTime()},
+ * such that lookups can binary search the buffer. When a packet older than the newest one is received, the clock is
+ * assumed to have been reset and the buffered packets are discarded. Packets must not be modified once given to the
+ * buffer.
+ * </p>
  *
  * @author jesper
  *
@@ -32,11 +46,22 @@ public class RobotConfigurationDataBuffer implements PacketConsumer<RobotConfigu
    private static final boolean DEBUG = false;
    final static int BUFFER_SIZE = 1000;
 
-   private final RobotConfigurationData[] configurationBuffer = new RobotConfigurationData[BUFFER_SIZE];
+   private static final long NO_SEQUENCE = -1L;
+   private static final long INVALID_TIMESTAMP = Long.MIN_VALUE;
 
-   private final AtomicInteger currentIndex = new AtomicInteger();
-   private final ReentrantLock updateLock = new ReentrantLock();
-   private final Condition timestampCondition = updateLock.newCondition();
+   /** Sequence number of the packet stored in each slot, {@link #NO_SEQUENCE} while the slot is being written. */
+   private final AtomicLongArray slotSequences = new AtomicLongArray(BUFFER_SIZE);
+   private final AtomicLongArray slotTimestamps = new AtomicLongArray(BUFFER_SIZE);
+   private final AtomicReferenceArray<RobotConfigurationData> configurationBuffer = new AtomicReferenceArray<>(BUFFER_SIZE);
+
+   /** Sequence number of the newest packet, {@link #NO_SEQUENCE} when empty. Only written by the writer thread. */
+   private volatile long newestSequence = NO_SEQUENCE;
+   /** Sequence number of the first packet received after the last reset of the monotonic time. */
+   private volatile long windowStartSequence = 0L;
+
+   private final AtomicInteger numberOfWaiters = new AtomicInteger();
+   private final ReentrantLock waitLock = new ReentrantLock();
+   private final Condition timestampCondition = waitLock.newCondition();
 
    private final ThreadLocal<HashMap<FullRobotModel, FullRobotModelCache>> fullRobotModelsCache = new ThreadLocal<HashMap<FullRobotModel, FullRobotModelCache>>()
    {
@@ -47,78 +72,272 @@ public class RobotConfigurationDataBuffer implements PacketConsumer<RobotConfigu
       }
    };
 
+   public RobotConfigurationDataBuffer()
+   {
+      for (int i = 0; i < BUFFER_SIZE; i++)
+      {
+         slotSequences.set(i, NO_SEQUENCE);
+      }
+   }
+
+   /**
+    * Adds a new packet to the buffer. Must always be called from the same thread.
+    */
    public void update(RobotConfigurationData data)
    {
-      updateLock.lock();
+      long previousSequence = newestSequence;
+      long sequence = previousSequence + 1;
+      int index = toIndex(sequence);
+      long timestamp = data.getMonotonicTime();
 
-      int index = currentIndex.get();
-      index++;
-      if (index >= BUFFER_SIZE)
+      if (previousSequence != NO_SEQUENCE && timestamp < slotTimestamps.get(toIndex(previousSequence)))
       {
-         index = 0;
+         if (DEBUG)
+         {
+            System.out.println("Monotonic time went backward, discarding the buffered data.");
+         }
+         windowStartSequence = sequence;
       }
-      configurationBuffer[index] = data;
 
-      currentIndex.set(index);
+      slotSequences.set(index, NO_SEQUENCE);
+      slotTimestamps.set(index, timestamp);
+      configurationBuffer.set(index, data);
+      slotSequences.set(index, sequence);
+      newestSequence = sequence;
 
-      timestampCondition.signalAll();
-      updateLock.unlock();
+      if (numberOfWaiters.get() > 0)
+      {
+         waitLock.lock();
+         try
+         {
+            timestampCondition.signalAll();
+         }
+         finally
+         {
+            waitLock.unlock();
+         }
+      }
    }
 
    void waitForTimestamp(long timestamp)
    {
-      updateLock.lock();
-      long currentTimestamp;
-      while ((currentTimestamp = getNewestTimestamp()) < timestamp)
+      if (getNewestTimestamp() >= timestamp)
       {
-         if (DEBUG)
+         return;
+      }
+
+      numberOfWaiters.incrementAndGet();
+      waitLock.lock();
+      try
+      {
+         long currentTimestamp;
+         while ((currentTimestamp = getNewestTimestamp()) < timestamp)
          {
-            System.out.println("Current timestamp: " + currentTimestamp + ", waiting for " + timestamp);
+            if (DEBUG)
+            {
+               System.out.println("Current timestamp: " + currentTimestamp + ", waiting for " + timestamp);
+            }
+
+            try
+            {
+               timestampCondition.await();
+            }
+            catch (InterruptedException e)
+            {
+            }
          }
+      }
+      finally
+      {
+         waitLock.unlock();
+         numberOfWaiters.decrementAndGet();
+      }
+   }
 
-         try
+   public long getNewestTimestamp()
+   {
+      while (true)
+      {
+         long sequence = newestSequence;
+         if (sequence == NO_SEQUENCE)
          {
-            timestampCondition.await();
+            return -1;
          }
-         catch (InterruptedException e)
+
+         long timestamp = readTimestamp(sequence);
+         if (timestamp != INVALID_TIMESTAMP)
          {
+            return timestamp;
          }
       }
-      updateLock.unlock();
    }
 
-   public long getNewestTimestamp()
+   /**
+    * @return the last received data that has a timestamp smaller or equal to {@code timestamp}, or
+    *         {@code null} if there is no such data in the buffer.
+    */
+   RobotConfigurationData floorData(long timestamp)
    {
-      RobotConfigurationData newestConfigurationData = configurationBuffer[currentIndex.get()];
-      if (newestConfigurationData == null)
+      while (true)
       {
-         return -1;
+         long sequence = floorSequence(timestamp);
+         if (sequence == NO_SEQUENCE)
+         {
+            return null;
+         }
+
+         RobotConfigurationData data = readData(sequence);
+         if (data != null)
+         {
+            return data;
+         }
       }
-      else
+   }
+
+   /**
+    * @return the buffered data with the timestamp closest to {@code timestamp}, or {@code null} if the
+    *         buffer is empty.
+    */
+   RobotConfigurationData nearestData(long timestamp)
+   {
+      while (true)
       {
-         return newestConfigurationData.getMonotonicTime();
+         long floorSequence = floorSequence(timestamp);
+         long candidateSequence;
+
+         if (floorSequence == NO_SEQUENCE)
+         { // Older than anything in the buffer, or the buffer is empty.
+            candidateSequence = getOldestSequence();
+            if (candidateSequence == NO_SEQUENCE)
+            {
+               return null;
+            }
+         }
+         else if (floorSequence == newestSequence)
+         {
+            candidateSequence = floorSequence;
+         }
+         else
+         {
+            long floorTimestamp = readTimestamp(floorSequence);
+            long ceilingTimestamp = readTimestamp(floorSequence + 1);
+            if (floorTimestamp == INVALID_TIMESTAMP || ceilingTimestamp == INVALID_TIMESTAMP)
+            {
+               continue;
+            }
+            candidateSequence = ceilingTimestamp - timestamp < timestamp - floorTimestamp ? floorSequence + 1 : floorSequence;
+         }
+
+         RobotConfigurationData data = readData(candidateSequence);
+         if (data != null)
+         {
+            return data;
+         }
       }
    }
 
-   private RobotConfigurationData floorIndex(long key)
+   /**
+    * Binary searches the buffer for the newest packet that has a timestamp smaller or equal to
+    * {@code timestamp}.
+    *
+    * @return the sequence number of the packet or {@link #NO_SEQUENCE} if there is none.
+    */
+   private long floorSequence(long timestamp)
    {
-      int currentIndex = this.currentIndex.get();
-      for (int i = currentIndex; i >= -BUFFER_SIZE + currentIndex; i--)
+      search: while (true)
       {
-         int index = (i < 0) ? BUFFER_SIZE + i : i;
+         long newest = newestSequence;
+         if (newest == NO_SEQUENCE)
+         {
+            return NO_SEQUENCE;
+         }
+
+         long windowStart = windowStartSequence;
+         if (windowStart > newest)
+         { // The writer reset the buffer after we read the newest sequence.
+            continue;
+         }
+
+         long low = Math.max(windowStart, newest - BUFFER_SIZE + 1);
+         long high = newest;
+         long floor = NO_SEQUENCE;
+
+         while (low <= high)
+         {
+            long mid = (low + high) >>> 1;
+            long midTimestamp = readTimestamp(mid);
+
+            if (midTimestamp == INVALID_TIMESTAMP)
+            { // The oldest part of the window got overwritten, start over with the new window.
+               continue search;
+            }
+
+            if (midTimestamp <= timestamp)
+            {
+               floor = mid;
+               low = mid + 1;
+            }
+            else
+            {
+               high = mid - 1;
+            }
+         }
+
+         return floor;
+      }
+   }
 
-         RobotConfigurationData data = configurationBuffer[index];
-         if (data == null)
+   private long getOldestSequence()
+   {
+      while (true)
+      {
+         long newest = newestSequence;
+         if (newest == NO_SEQUENCE)
          {
-            break;
+            return NO_SEQUENCE;
          }
 
-         if (data.getMonotonicTime() <= key)
+         long windowStart = windowStartSequence;
+         if (windowStart <= newest)
          {
-            return data;
+            return Math.max(windowStart, newest - BUFFER_SIZE + 1);
          }
       }
-      return null;
+   }
+
+   /**
+    * @return the timestamp of the packet or {@link #INVALID_TIMESTAMP} if it has been overwritten.
+    */
+   private long readTimestamp(long sequence)
+   {
+      int index = toIndex(sequence);
+      if (slotSequences.get(index) != sequence)
+      {
+         return INVALID_TIMESTAMP;
+      }
+
+      long timestamp = slotTimestamps.get(index);
+      return slotSequences.get(index) == sequence ? timestamp : INVALID_TIMESTAMP;
+   }
+
+   /**
+    * @return the packet or {@code null} if it has been overwritten.
+    */
+   private RobotConfigurationData readData(long sequence)
+   {
+      int index = toIndex(sequence);
+      if (slotSequences.get(index) != sequence)
+      {
+         return null;
+      }
+
+      RobotConfigurationData data = configurationBuffer.get(index);
+      return slotSequences.get(index) == sequence ? data : null;
+   }
+
+   private static int toIndex(long sequence)
+   {
+      return (int) (sequence % BUFFER_SIZE);
    }
 
    /**
@@ -139,7 +358,7 @@ public class RobotConfigurationDataBuffer implements PacketConsumer<RobotConfigu
          waitForTimestamp(timestamp);
       }
 
-      RobotConfigurationData robotConfigurationData = floorIndex(timestamp);
+      RobotConfigurationData robotConfigurationData = floorData(timestamp);
       if (robotConfigurationData == null)
       {
          return -1;
@@ -148,57 +367,140 @@ public class RobotConfigurationDataBuffer implements PacketConsumer<RobotConfigu
       return robotConfigurationData.getMonotonicTime();
    }
 
-   public boolean updateFullRobotModelWithNewestData(FullRobotModel fullRobotModel, ForceSensorDataHolder forceSensorDataHolder)
+   /**
+    * Update a full robot model with the data which timestamp is the closest to the given timestamp.
+    * Optionally update force sensors
+    *
+    * @param timestamp Timestamp to get.
+    * @param model Model to update. Will call updateFramesRecursively()
+    * @param forceSensorDataHolder. Optional, update force sensor data holders
+    *
+    * @return the timestamp of the data used to update the model, -1 if the buffer is empty.
+    */
+   public long updateFullRobotModelWithNearestData(long timestamp, FullRobotModel model, ForceSensorDataHolder forceSensorDataHolder)
    {
-      int currentIndex = this.currentIndex.get() - 1;
-      if (currentIndex < 0)
+      RobotConfigurationData robotConfigurationData = nearestData(timestamp);
+      if (robotConfigurationData == null)
+      {
+         return -1;
+      }
+      updateFullRobotModel(robotConfigurationData, model, forceSensorDataHolder);
+      return robotConfigurationData.getMonotonicTime();
+   }
+
+   /**
+    * Update a full robot model by interpolating between the two packets surrounding the given
+    * timestamp. The joint and root joint states are interpolated linearly, the root orientation is
+    * interpolated with a slerp, and the force sensors are updated with the data preceding the
+    * timestamp.
+    *
+    * @param timestamp Timestamp to get.
+    * @param model Model to update. Will call updateFramesRecursively()
+    * @param forceSensorDataHolder. Optional, update force sensor data holders
+    *
+    * @return true if model is updated, false if timestamp is outside the buffered data.
+    */
+   public boolean updateFullRobotModelWithInterpolatedData(long timestamp, FullRobotModel model, ForceSensorDataHolder forceSensorDataHolder)
+   {
+      while (true)
       {
-         currentIndex = 0;
+         long floorSequence = floorSequence(timestamp);
+         if (floorSequence == NO_SEQUENCE)
+         {
+            return false;
+         }
+
+         RobotConfigurationData floorData = readData(floorSequence);
+         if (floorData == null)
+         {
+            continue;
+         }
 
+         if (floorData.getMonotonicTime() == timestamp)
+         {
+            updateFullRobotModel(floorData, model, forceSensorDataHolder);
+            return true;
+         }
+
+         if (floorSequence == newestSequence)
+         { // Newer than anything in the buffer.
+            return false;
+         }
+
+         RobotConfigurationData ceilingData = readData(floorSequence + 1);
+         if (ceilingData == null || ceilingData.getMonotonicTime() <= timestamp)
+         { // Overwritten, or a packet preceding the timestamp got received since the search.
+            continue;
+         }
+
+         long floorTimestamp = floorData.getMonotonicTime();
+         double alpha = (double) (timestamp - floorTimestamp) / (double) (ceilingData.getMonotonicTime() - floorTimestamp);
+         updateFullRobotModel(floorData, ceilingData, alpha, model, forceSensorDataHolder);
+         return true;
       }
-      RobotConfigurationData robotConfigurationData = configurationBuffer[currentIndex];
+   }
 
-      if (robotConfigurationData == null)
+   public boolean updateFullRobotModelWithNewestData(FullRobotModel fullRobotModel, ForceSensorDataHolder forceSensorDataHolder)
+   {
+      RobotConfigurationData robotConfigurationData;
+
+      do
       {
-         return false;
+         long sequence = newestSequence;
+         if (sequence == NO_SEQUENCE)
+         {
+            return false;
+         }
+         robotConfigurationData = readData(sequence);
       }
+      while (robotConfigurationData == null);
 
       updateFullRobotModel(robotConfigurationData, fullRobotModel, forceSensorDataHolder);
       return true;
    }
 
    private void updateFullRobotModel(RobotConfigurationData robotConfigurationData, FullRobotModel model, ForceSensorDataHolder forceSensorDataHolder)
+   {
+      updateFullRobotModel(robotConfigurationData, robotConfigurationData, 0.0, model, forceSensorDataHolder);
+   }
+
+   private void updateFullRobotModel(RobotConfigurationData robotConfigurationDataA, RobotConfigurationData robotConfigurationDataB, double alpha,
+                                     FullRobotModel model, ForceSensorDataHolder forceSensorDataHolder)
    {
       FullRobotModelCache fullRobotModelCache = getFullRobotModelCache(model);
 
       FloatingJointBasics rootJoint = model.getRootJoint();
-      if (robotConfigurationData.getJointNameHash() != fullRobotModelCache.jointNameHash)
-      {
-         System.out.println(robotConfigurationData.getJointNameHash());
-         System.out.println(fullRobotModelCache.jointNameHash);
-         throw new RuntimeException("Joint names do not match for RobotConfigurationData");
-      }
+      checkJointNameHash(robotConfigurationDataA, fullRobotModelCache);
+      checkJointNameHash(robotConfigurationDataB, fullRobotModelCache);
 
-      TFloatArrayList newJointAngles = robotConfigurationData.getJointAngles();
-      TFloatArrayList newJointVelocities = robotConfigurationData.getJointVelocities();
+      TFloatArrayList jointAnglesA = robotConfigurationDataA.getJointAngles();
+      TFloatArrayList jointVelocitiesA = robotConfigurationDataA.getJointVelocities();
+      TFloatArrayList jointAnglesB = robotConfigurationDataB.getJointAngles();
+      TFloatArrayList jointVelocitiesB = robotConfigurationDataB.getJointVelocities();
 
-      for (int i = 0; i < newJointAngles.size(); i++)
+      for (int i = 0; i < jointAnglesA.size(); i++)
       {
-         fullRobotModelCache.allJoints[i].setQ(newJointAngles.get(i));
-         fullRobotModelCache.allJoints[i].setQd(newJointVelocities.get(i));
+         fullRobotModelCache.allJoints[i].setQ(interpolate(jointAnglesA.get(i), jointAnglesB.get(i), alpha));
+         fullRobotModelCache.allJoints[i].setQd(interpolate(jointVelocitiesA.get(i), jointVelocitiesB.get(i), alpha));
       }
 
-      Vector3D translation = robotConfigurationData.getRootTranslation();
-      rootJoint.getJointPose().getPosition().set(translation.getX(), translation.getY(), translation.getZ());
-      Quaternion orientation = robotConfigurationData.getRootOrientation();
-      rootJoint.getJointPose().getOrientation().setQuaternion(orientation.getX(), orientation.getY(), orientation.getZ(), orientation.getS());
+      if (robotConfigurationDataA == robotConfigurationDataB)
+      {
+         Vector3D translation = robotConfigurationDataA.getRootTranslation();
+         rootJoint.getJointPose().getPosition().set(translation.getX(), translation.getY(), translation.getZ());
+         Quaternion orientation = robotConfigurationDataA.getRootOrientation();
+         rootJoint.getJointPose().getOrientation().setQuaternion(orientation.getX(), orientation.getY(), orientation.getZ(), orientation.getS());
+      }
+      else
+      {
+         rootJoint.getJointPose().getPosition().interpolate(robotConfigurationDataA.getRootTranslation(), robotConfigurationDataB.getRootTranslation(), alpha);
+         rootJoint.getJointPose().getOrientation().interpolate(robotConfigurationDataA.getRootOrientation(), robotConfigurationDataB.getRootOrientation(), alpha);
+      }
 
-      Twist rootJointTwist = new Twist();
+      Twist rootJointTwist = fullRobotModelCache.rootJointTwist;
       rootJointTwist.setIncludingFrame(rootJoint.getJointTwist());
-      Vector3D pelvisAngularVelocity = robotConfigurationData.getPelvisAngularVelocity();
-      Vector3D pelvisLinearVelocity = robotConfigurationData.getPelvisLinearVelocity();
-      rootJointTwist.getAngularPart().set(pelvisAngularVelocity);
-      rootJointTwist.getLinearPart().set(pelvisLinearVelocity);
+      rootJointTwist.getAngularPart().interpolate(robotConfigurationDataA.getPelvisAngularVelocity(), robotConfigurationDataB.getPelvisAngularVelocity(), alpha);
+      rootJointTwist.getLinearPart().interpolate(robotConfigurationDataA.getPelvisLinearVelocity(), robotConfigurationDataB.getPelvisLinearVelocity(), alpha);
       rootJoint.setJointTwist(rootJointTwist);
 
       rootJoint.getPredecessor().updateFramesRecursively();
@@ -207,13 +509,28 @@ public class RobotConfigurationDataBuffer implements PacketConsumer<RobotConfigu
       {
          for (int i = 0; i < forceSensorDataHolder.getForceSensorDefinitions().size(); i++)
          {
-            SpatialVectorMessage momentAndForceVectorForSensor = robotConfigurationData.getForceSensorData().get(i);
+            SpatialVectorMessage momentAndForceVectorForSensor = robotConfigurationDataA.getForceSensorData().get(i);
             forceSensorDataHolder.get(forceSensorDataHolder.getForceSensorDefinitions().get(i)).setWrench(momentAndForceVectorForSensor.getAngularPart(),
                                                                                                           momentAndForceVectorForSensor.getLinearPart());
          }
       }
    }
 
+   private static void checkJointNameHash(RobotConfigurationData robotConfigurationData, FullRobotModelCache fullRobotModelCache)
+   {
+      if (robotConfigurationData.getJointNameHash() != fullRobotModelCache.jointNameHash)
+      {
+         System.out.println(robotConfigurationData.getJointNameHash());
+         System.out.println(fullRobotModelCache.jointNameHash);
+         throw new RuntimeException("Joint names do not match for RobotConfigurationData");
+      }
+   }
+
+   private static double interpolate(double a, double b, double alpha)
+   {
+      return a + alpha * (b - a);
+   }
+
    private FullRobotModelCache getFullRobotModelCache(FullRobotModel fullRobotModel)
    {
       HashMap<FullRobotModel, FullRobotModelCache> cache = fullRobotModelsCache.get();
@@ -232,6 +549,7 @@ public class RobotConfigurationDataBuffer implements PacketConsumer<RobotConfigu
    {
       private final OneDoFJointBasics[] allJoints;
       private final long jointNameHash;
+      private final Twist rootJointTwist = new Twist();
 
       private FullRobotModelCache(FullRobotModel fullRobotModel)
       {
@@ -0,0 +1,153 @@
+package us.ihmc.sensorProcessing.communication.producers;
+
+import static us.ihmc.robotics.Assert.*;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReference;
+
+import org.junit.jupiter.api.Test;
+
+import controller_msgs.msg.dds.RobotConfigurationData;
+
+public class RobotConfigurationDataBufferConcurrencyTest
+{
+   private static final long TIMESTAMP_PERIOD = 10;
+
+   @Test
+   public void testLookups()
+   {
+      RobotConfigurationDataBuffer buffer = new RobotConfigurationDataBuffer();
+      assertNull(buffer.floorData(0));
+      assertNull(buffer.nearestData(0));
+      assertEquals(-1, buffer.getNewestTimestamp());
+
+      int numberOfPackets = RobotConfigurationDataBuffer.BUFFER_SIZE * 2 + 17;
+      for (int i = 0; i < numberOfPackets; i++)
+         buffer.update(createData(i));
+
+      long oldestTimestamp = (numberOfPackets - RobotConfigurationDataBuffer.BUFFER_SIZE) * TIMESTAMP_PERIOD;
+      long newestTimestamp = (numberOfPackets - 1) * TIMESTAMP_PERIOD;
+      assertEquals(newestTimestamp, buffer.getNewestTimestamp());
+
+      assertNull(buffer.floorData(oldestTimestamp - 1));
+      assertEquals(oldestTimestamp, buffer.nearestData(0).getMonotonicTime());
+      assertEquals(newestTimestamp, buffer.floorData(Long.MAX_VALUE).getMonotonicTime());
+      assertEquals(newestTimestamp, buffer.nearestData(Long.MAX_VALUE).getMonotonicTime());
+
+      for (long timestamp = oldestTimestamp; timestamp <= newestTimestamp + TIMESTAMP_PERIOD; timestamp++)
+      {
+         long expectedFloor = Math.min(newestTimestamp, timestamp - timestamp % TIMESTAMP_PERIOD);
+         assertEquals(expectedFloor, buffer.floorData(timestamp).getMonotonicTime());
+
+         long expectedNearest = timestamp % TIMESTAMP_PERIOD > TIMESTAMP_PERIOD / 2 ? expectedFloor + TIMESTAMP_PERIOD : expectedFloor;
+         assertEquals(Math.min(newestTimestamp, expectedNearest), buffer.nearestData(timestamp).getMonotonicTime());
+      }
+   }
+
+   @Test
+   public void testMonotonicTimeReset()
+   {
+      RobotConfigurationDataBuffer buffer = new RobotConfigurationDataBuffer();
+
+      for (int i = 100; i < 200; i++)
+         buffer.update(createData(i));
+
+      buffer.update(createData(3));
+      buffer.update(createData(4));
+
+      assertEquals(4 * TIMESTAMP_PERIOD, buffer.getNewestTimestamp());
+      assertNull(buffer.floorData(2 * TIMESTAMP_PERIOD));
+      assertEquals(4 * TIMESTAMP_PERIOD, buffer.floorData(150 * TIMESTAMP_PERIOD).getMonotonicTime());
+      assertEquals(3 * TIMESTAMP_PERIOD, buffer.nearestData(0).getMonotonicTime());
+   }
+
+   @Test
+   public void testConcurrentReadersAndWriter() throws InterruptedException
+   {
+      RobotConfigurationDataBuffer buffer = new RobotConfigurationDataBuffer();
+      int numberOfPackets = 500000;
+      int numberOfReaders = Math.max(2, Runtime.getRuntime().availableProcessors() - 1);
+
+      AtomicBoolean writerDone = new AtomicBoolean(false);
+      AtomicReference<String> error = new AtomicReference<>();
+      AtomicLong numberOfLookups = new AtomicLong();
+
+      List<Thread> readers = new ArrayList<>();
+      for (int readerIndex = 0; readerIndex < numberOfReaders; readerIndex++)
+      {
+         Random random = new Random(4563L + readerIndex);
+         Thread reader = new Thread(() ->
+         {
+            long lookups = 0;
+            while (!writerDone.get() && error.get() == null)
+            {
+               long newestTimestamp = buffer.getNewestTimestamp();
+               if (newestTimestamp < 0)
+                  continue;
+
+               // Query around the oldest end of the window too, where the writer overwrites the slots.
+               long timestamp = newestTimestamp - random.nextInt((int) (RobotConfigurationDataBuffer.BUFFER_SIZE * TIMESTAMP_PERIOD));
+               RobotConfigurationData floor = buffer.floorData(timestamp);
+               lookups++;
+
+               if (floor == null)
+                  continue;
+
+               String floorError = validate(floor, timestamp);
+               if (floorError != null)
+               {
+                  error.compareAndSet(null, floorError);
+                  break;
+               }
+
+               RobotConfigurationData nearest = buffer.nearestData(timestamp);
+               lookups++;
+               // The nearest data can only be further ahead if the window moved past the timestamp meanwhile.
+               if (nearest.getWallTime() != 3 * nearest.getMonotonicTime() + 1 || nearest.getMonotonicTime() < timestamp - TIMESTAMP_PERIOD / 2)
+               {
+                  error.compareAndSet(null, "Nearest " + nearest.getMonotonicTime() + " is not the closest data to " + timestamp);
+                  break;
+               }
+            }
+            numberOfLookups.addAndGet(lookups);
+         });
+         reader.start();
+         readers.add(reader);
+      }
+
+      for (int i = 0; i < numberOfPackets; i++)
+         buffer.update(createData(i));
+      writerDone.set(true);
+
+      for (Thread reader : readers)
+         reader.join();
+
+      assertNull(error.get(), error.get());
+      assertEquals((numberOfPackets - 1) * TIMESTAMP_PERIOD, buffer.getNewestTimestamp());
+      assertTrue(numberOfLookups.get() > 0);
+   }
+
+   private static String validate(RobotConfigurationData data, long timestamp)
+   {
+      long monotonicTime = data.getMonotonicTime();
+      if (data.getWallTime() != 3 * monotonicTime + 1)
+         return "Inconsistent packet " + monotonicTime;
+      if (monotonicTime > timestamp)
+         return "Floor " + monotonicTime + " is after " + timestamp;
+      if (monotonicTime + TIMESTAMP_PERIOD <= timestamp)
+         return "Floor " + monotonicTime + " is not the newest data before " + timestamp;
+      return null;
+   }
+
+   private static RobotConfigurationData createData(long sequence)
+   {
+      RobotConfigurationData data = new RobotConfigurationData();
+      data.setMonotonicTime(sequence * TIMESTAMP_PERIOD);
+      data.setWallTime(3 * sequence * TIMESTAMP_PERIOD + 1);
+      return data;
+   }
+}
@@ -56,6 +56,52 @@ public abstract class RobotConfigurationDataBufferTest
       }
    }
 
+   @Test
+   public void testInterpolatedAndNearestData()
+   {
+      RobotConfigurationDataBuffer buffer = new RobotConfigurationDataBuffer();
+      FullHumanoidRobotModel setterFullRobotModel = getFullRobotModel();
+      FullHumanoidRobotModel getterFullRobotModel = getFullRobotModel();
+
+      OneDoFJointBasics[] setterJoints = FullRobotModelUtils.getAllJointsExcludingHands(setterFullRobotModel);
+      OneDoFJointBasics[] getterJoints = FullRobotModelUtils.getAllJointsExcludingHands(getterFullRobotModel);
+      ForceSensorDefinition[] forceSensorDefinitions = setterFullRobotModel.getForceSensorDefinitions();
+      IMUDefinition[] imuDefinitions = setterFullRobotModel.getIMUDefinitions();
+
+      assertFalse(buffer.updateFullRobotModelWithInterpolatedData(0, getterFullRobotModel, null));
+      assertEquals(-1, buffer.updateFullRobotModelWithNearestData(0, getterFullRobotModel, null));
+
+      for (int i = 0; i < 10; i++)
+      {
+         RobotConfigurationData test = RobotConfigurationDataFactory.create(setterJoints, forceSensorDefinitions, imuDefinitions);
+         test.setMonotonicTime(100 + i * 10);
+         for (int j = 0; j < setterJoints.length; j++)
+         {
+            test.getJointAngles().add(i);
+            test.getJointVelocities().add(0.0f);
+         }
+         test.getRootTranslation().set(i, 0.0, 0.0);
+         buffer.receivedPacket(test);
+      }
+
+      assertFalse(buffer.updateFullRobotModelWithInterpolatedData(99, getterFullRobotModel, null));
+      assertFalse(buffer.updateFullRobotModelWithInterpolatedData(191, getterFullRobotModel, null));
+
+      assertTrue(buffer.updateFullRobotModelWithInterpolatedData(190, getterFullRobotModel, null));
+      assertEquals(9.0, getterJoints[0].getQ(), 1e-7);
+
+      assertTrue(buffer.updateFullRobotModelWithInterpolatedData(142, getterFullRobotModel, null));
+      assertEquals(4.2, getterJoints[0].getQ(), 1e-7);
+      assertEquals(4.2, getterFullRobotModel.getRootJoint().getJointPose().getPosition().getX(), 1e-7);
+
+      assertEquals(140, buffer.updateFullRobotModelWithNearestData(144, getterFullRobotModel, null));
+      assertEquals(4.0, getterJoints[0].getQ(), 1e-7);
+      assertEquals(150, buffer.updateFullRobotModelWithNearestData(146, getterFullRobotModel, null));
+      assertEquals(5.0, getterJoints[0].getQ(), 1e-7);
+      assertEquals(100, buffer.updateFullRobotModelWithNearestData(0, getterFullRobotModel, null));
+      assertEquals(190, buffer.updateFullRobotModelWithNearestData(1000, getterFullRobotModel, null));
+   }
+
    @Test
    public void testWaitForTimestamp()
    {
@@ -18,6 +18,7 @@ import us.ihmc.graphicsDescription.instructions.Graphics3DAddModelFileInstructio
 import us.ihmc.graphicsDescription.instructions.Graphics3DPrimitiveInstruction;
 import us.ihmc.graphicsDescription.instructions.primitives.Graphics3DRotateInstruction;
 import us.ihmc.graphicsDescription.instructions.primitives.Graphics3DTranslateInstruction;
+import us.ihmc.modelFileLoaders.SdfLoader.SDFCache;
 import us.ihmc.modelFileLoaders.SdfLoader.xmlDescription.SDFGeometry;
 import us.ihmc.modelFileLoaders.SdfLoader.xmlDescription.SDFGeometry.Mesh;
 import us.ihmc.modelFileLoaders.SdfLoader.xmlDescription.SDFInertia;
@@ -43,7 +44,7 @@ import us.ihmc.simulationconstructionset.Robot;
 
 public abstract class SDFRobotWriter
 {
-   private final JAXBContext context = JAXBContext.newInstance(SDFRoot.class);
+   private final JAXBContext context = SDFCache.getSDFRootContext();
    private final Marshaller marshaller = context.createMarshaller();
 
    private final Robot scsRobot;
@@ -0,0 +1,79 @@
+package us.ihmc.stateEstimation.ekf;
+
+import java.util.Random;
+
+import org.ejml.data.DenseMatrix64F;
+import org.ejml.ops.MatrixFeatures;
+
+import us.ihmc.commons.Conversions;
+import us.ihmc.ekf.filter.FilterTools;
+import us.ihmc.ekf.filter.FilterTools.ProccessNoiseModel;
+import us.ihmc.ekf.filter.StateEstimator;
+import us.ihmc.log.LogTools;
+import us.ihmc.stateEstimation.ekf.BlockSparseStateEstimatorTest.TestRobot;
+import us.ihmc.yoVariables.registry.YoVariableRegistry;
+
+/**
+ * Compares the time per tick of the dense {@link StateEstimator} with the
+ * {@link BlockSparseStateEstimator} on the robot of {@link BlockSparseStateEstimatorTest} for an
+ * increasing number of joints.
+ */
+public class BlockSparseStateEstimatorBenchmark
+{
+   private static final double dt = 0.001;
+
+   public static void main(String[] args)
+   {
+      FilterTools.proccessNoiseModel = ProccessNoiseModel.ONLY_ACCELERATION_VARIANCE;
+      int numberOfWarmupTicks = 20;
+      int numberOfTicks = 20;
+      DenseMatrix64F denseState = new DenseMatrix64F(0, 0);
+      DenseMatrix64F blockSparseState = new DenseMatrix64F(0, 0);
+
+      for (int numberOfJoints = 16; numberOfJoints <= 256; numberOfJoints *= 2)
+      {
+         YoVariableRegistry denseRegistry = new YoVariableRegistry("dense");
+         TestRobot denseRobot = new TestRobot(numberOfJoints, denseRegistry);
+         StateEstimator denseEstimator = new StateEstimator(denseRobot.sensors, denseRobot.robotState, denseRegistry);
+
+         YoVariableRegistry blockSparseRegistry = new YoVariableRegistry("blockSparse");
+         TestRobot blockSparseRobot = new TestRobot(numberOfJoints, blockSparseRegistry);
+         BlockSparseStateEstimator blockSparseEstimator = new BlockSparseStateEstimator(blockSparseRobot.sensors, blockSparseRobot.robotState,
+                                                                                        blockSparseRobot.subStates, blockSparseRegistry);
+
+         Random random = new Random(3874L);
+         double denseTime = 0.0;
+         double blockSparseTime = 0.0;
+
+         for (int tick = 0; tick < numberOfWarmupTicks + numberOfTicks; tick++)
+         {
+            denseRobot.setRandomMeasurements(random, tick * dt);
+            blockSparseRobot.copyMeasurements(denseRobot);
+
+            long startTime = System.nanoTime();
+            denseEstimator.predict();
+            denseEstimator.correct();
+            long denseDuration = System.nanoTime() - startTime;
+
+            startTime = System.nanoTime();
+            blockSparseEstimator.predict();
+            blockSparseEstimator.correct();
+            long blockSparseDuration = System.nanoTime() - startTime;
+
+            if (tick >= numberOfWarmupTicks)
+            {
+               denseTime += Conversions.nanosecondsToMilliseconds((double) denseDuration);
+               blockSparseTime += Conversions.nanosecondsToMilliseconds((double) blockSparseDuration);
+            }
+         }
+
+         denseRobot.robotState.getStateVector(denseState);
+         blockSparseRobot.robotState.getStateVector(blockSparseState);
+         if (!MatrixFeatures.isEquals(denseState, blockSparseState, 1.0e-6))
+            throw new RuntimeException("The dense and block sparse estimates differ with " + numberOfJoints + " joints.");
+
+         LogTools.info(numberOfJoints + " joints: dense " + denseTime / numberOfTicks + " ms/tick, block sparse " + blockSparseTime / numberOfTicks
+               + " ms/tick");
+      }
+   }
+}
@@ -0,0 +1,444 @@
+package us.ihmc.stateEstimation.ekf;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import org.ejml.data.DenseMatrix64F;
+import org.ejml.ops.CommonOps;
+
+import gnu.trove.list.array.TIntArrayList;
+import us.ihmc.ekf.filter.RobotState;
+import us.ihmc.ekf.filter.StateEstimator;
+import us.ihmc.ekf.filter.sensor.Sensor;
+import us.ihmc.ekf.filter.state.State;
+import us.ihmc.yoVariables.registry.YoVariableRegistry;
+import us.ihmc.yoVariables.variable.YoInteger;
+
+/**
+ * An extended Kalman filter computing the same estimate as the {@link StateEstimator} while
+ * exploiting the block structure of the error covariance of a legged robot.
+ * <p>
+ * The robot state is made of sub-states, typically the pose of the root body and one state per
+ * joint, whose dynamics are independent: the state transition and the process noise are block
+ * diagonal. The covariance between two sub-states only becomes non-zero when a sensor measures
+ * both of them, or measures sub-states correlated with them. This filter keeps track of the
+ * non-zero blocks of the covariance and only computes these:
+ * <ul>
+ * <li>The prediction updates each non-zero block with the state transition of its two sub-states.
+ * <li>The correction processes the sensors one after the other, which is equivalent to the
+ * batch update of the {@link StateEstimator} as the measurement noise of different sensors is
+ * uncorrelated. Each sensor only updates the blocks correlated with the sub-states it measures.
+ * </ul>
+ * Joints that are only measured by their own encoders, such as the arm joints of a humanoid,
+ * remain uncorrelated with the rest of the state and cost a constant time per tick.
+ * </p>
+ * <p>
+ * The sensors are expected to not have states of their own, such as estimated biases.
+ * </p>
+ */
+public class BlockSparseStateEstimator
+{
+   private final YoVariableRegistry registry = new YoVariableRegistry(getClass().getSimpleName());
+   private final YoInteger numberOfCovarianceBlocks = new YoInteger("NumberOfCovarianceBlocks", registry);
+
+   private final RobotState robotState;
+   private final List<Sensor> sensors;
+
+   private final int stateSize;
+   private final int numberOfBlocks;
+   private final State[] blockStates;
+   private final int[] blockStarts;
+   private final int[] blockSizes;
+
+   private final DenseMatrix64F[] blockFMatrices;
+   private final DenseMatrix64F[] blockQMatrices;
+
+   /** The error covariance. Only the blocks marked as correlated can be non-zero. */
+   private final DenseMatrix64F covariance;
+   private final boolean[][] correlatedBlocks;
+   private final TIntArrayList[] correlatedBlockLists;
+
+   private final DenseMatrix64F stateVector = new DenseMatrix64F(0, 0);
+   private final DenseMatrix64F stateCorrection;
+
+   private final DenseMatrix64F measurementJacobian = new DenseMatrix64F(0, 0);
+   private final DenseMatrix64F measurementCovariance = new DenseMatrix64F(0, 0);
+   private final DenseMatrix64F residual = new DenseMatrix64F(0, 0);
+   private final DenseMatrix64F innovation = new DenseMatrix64F(0, 0);
+   private final DenseMatrix64F innovationCovariance = new DenseMatrix64F(0, 0);
+   private final DenseMatrix64F covarianceTimesJacobianTranspose = new DenseMatrix64F(0, 0);
+   private final DenseMatrix64F kalmanGain = new DenseMatrix64F(0, 0);
+
+   private final TIntArrayList measuredBlocks = new TIntArrayList();
+   private final TIntArrayList measuredIndices = new TIntArrayList();
+   private final TIntArrayList updatedBlocks = new TIntArrayList();
+   private final TIntArrayList updatedIndices = new TIntArrayList();
+   private final boolean[] isUpdatedBlock;
+   /** Position of each state index in {@link #updatedIndices}, only valid for the updated indices. */
+   private final int[] updatedPositions;
+
+   private final double[] tempBlock;
+
+   /**
+    * @param sensors the sensors to correct the state with.
+    * @param robotState the state to estimate.
+    * @param subStates the states composing {@code robotState}, in the same order.
+    * @param parentRegistry the registry to add the variables of this filter to.
+    */
+   public BlockSparseStateEstimator(List<Sensor> sensors, RobotState robotState, List<? extends State> subStates, YoVariableRegistry parentRegistry)
+   {
+      this.robotState = robotState;
+      this.sensors = new ArrayList<>(sensors);
+
+      numberOfBlocks = subStates.size();
+      blockStates = subStates.toArray(new State[numberOfBlocks]);
+      blockStarts = new int[numberOfBlocks];
+      blockSizes = new int[numberOfBlocks];
+      blockFMatrices = new DenseMatrix64F[numberOfBlocks];
+      blockQMatrices = new DenseMatrix64F[numberOfBlocks];
+
+      int size = 0;
+      int maximumBlockSize = 0;
+      for (int block = 0; block < numberOfBlocks; block++)
+      {
+         blockStarts[block] = size;
+         blockSizes[block] = blockStates[block].getSize();
+         blockFMatrices[block] = new DenseMatrix64F(blockSizes[block], blockSizes[block]);
+         blockQMatrices[block] = new DenseMatrix64F(blockSizes[block], blockSizes[block]);
+         size += blockSizes[block];
+         maximumBlockSize = Math.max(maximumBlockSize, blockSizes[block]);
+      }
+      stateSize = size;
+
+      if (stateSize != robotState.getSize())
+         throw new IllegalArgumentException("The sub-states have a total size of " + stateSize + " but the robot state has a size of " + robotState.getSize());
+
+      covariance = new DenseMatrix64F(stateSize, stateSize);
+      stateCorrection = new DenseMatrix64F(stateSize, 1);
+      correlatedBlocks = new boolean[numberOfBlocks][numberOfBlocks];
+      correlatedBlockLists = new TIntArrayList[numberOfBlocks];
+      for (int block = 0; block < numberOfBlocks; block++)
+         correlatedBlockLists[block] = new TIntArrayList();
+      isUpdatedBlock = new boolean[numberOfBlocks];
+      updatedPositions = new int[stateSize];
+      tempBlock = new double[maximumBlockSize * maximumBlockSize];
+
+      reset();
+      parentRegistry.addChild(registry);
+   }
+
+   /**
+    * Resets the error covariance to identity.
+    */
+   public void reset()
+   {
+      CommonOps.setIdentity(covariance);
+
+      for (int block = 0; block < numberOfBlocks; block++)
+      {
+         for (int otherBlock = 0; otherBlock < numberOfBlocks; otherBlock++)
+            correlatedBlocks[block][otherBlock] = block == otherBlock;
+         correlatedBlockLists[block].resetQuick();
+         correlatedBlockLists[block].add(block);
+      }
+
+      numberOfCovarianceBlocks.set(numberOfBlocks);
+   }
+
+   /**
+    * Predicts the state and propagates the non-zero blocks of the error covariance.
+    */
+   public void predict()
+   {
+      robotState.predict();
+
+      for (int block = 0; block < numberOfBlocks; block++)
+      {
+         blockStates[block].getFMatrix(blockFMatrices[block]);
+         blockStates[block].getQMatrix(blockQMatrices[block]);
+      }
+
+      for (int block = 0; block < numberOfBlocks; block++)
+      {
+         TIntArrayList correlatedBlockList = correlatedBlockLists[block];
+
+         for (int i = 0; i < correlatedBlockList.size(); i++)
+         {
+            int otherBlock = correlatedBlockList.getQuick(i);
+            if (otherBlock >= block)
+               propagateBlock(block, otherBlock);
+         }
+      }
+   }
+
+   /**
+    * Computes P<sub>ij</sub> = F<sub>i</sub> P<sub>ij</sub> F<sub>j</sub><sup>T</sup> (+
+    * Q<sub>i</sub> if i = j) and sets P<sub>ji</sub> = P<sub>ij</sub><sup>T</sup>.
+    */
+   private void propagateBlock(int block, int otherBlock)
+   {
+      double[] P = covariance.data;
+      double[] Fi = blockFMatrices[block].data;
+      double[] Fj = blockFMatrices[otherBlock].data;
+      int rowStart = blockStarts[block];
+      int colStart = blockStarts[otherBlock];
+      int rows = blockSizes[block];
+      int cols = blockSizes[otherBlock];
+
+      // tempBlock = Fi * Pij
+      for (int row = 0; row < rows; row++)
+      {
+         for (int col = 0; col < cols; col++)
+         {
+            double sum = 0.0;
+            for (int k = 0; k < rows; k++)
+               sum += Fi[row * rows + k] * P[(rowStart + k) * stateSize + colStart + col];
+            tempBlock[row * cols + col] = sum;
+         }
+      }
+
+      // Pij = tempBlock * Fj^T
+      for (int row = 0; row < rows; row++)
+      {
+         for (int col = 0; col < cols; col++)
+         {
+            double sum = 0.0;
+            for (int k = 0; k < cols; k++)
+               sum += tempBlock[row * cols + k] * Fj[col * cols + k];
+            P[(rowStart + row) * stateSize + colStart + col] = sum;
+         }
+      }
+
+      if (block == otherBlock)
+      {
+         double[] Q = blockQMatrices[block].data;
+         for (int row = 0; row < rows; row++)
+         {
+            for (int col = 0; col < cols; col++)
+               P[(rowStart + row) * stateSize + colStart + col] += Q[row * cols + col];
+         }
+      }
+      else
+      {
+         for (int row = 0; row < rows; row++)
+         {
+            for (int col = 0; col < cols; col++)
+               P[(colStart + col) * stateSize + rowStart + row] = P[(rowStart + row) * stateSize + colStart + col];
+         }
+      }
+   }
+
+   /**
+    * Corrects the state with the measurements of all the sensors. The measurement Jacobians and
+    * residuals are all computed at the predicted state, as in the batch update.
+    */
+   public void correct()
+   {
+      robotState.getStateVector(stateVector);
+      CommonOps.fill(stateCorrection, 0.0);
+
+      for (int sensorIdx = 0; sensorIdx < sensors.size(); sensorIdx++)
+      {
+         Sensor sensor = sensors.get(sensorIdx);
+         sensor.getMeasurementJacobian(measurementJacobian, robotState);
+         sensor.getRMatrix(measurementCovariance);
+         sensor.getResidual(residual, robotState);
+         correct(sensor, measurementJacobian, measurementCovariance, residual);
+      }
+
+      CommonOps.addEquals(stateVector, stateCorrection);
+      robotState.setStateVector(stateVector);
+   }
+
+   private void correct(Sensor sensor, DenseMatrix64F H, DenseMatrix64F R, DenseMatrix64F residual)
+   {
+      int measurementSize = H.getNumRows();
+      if (measurementSize == 0)
+         return;
+
+      findMeasuredBlocks(H);
+      findUpdatedBlocks();
+
+      int numberOfMeasuredIndices = measuredIndices.size();
+      int numberOfUpdatedIndices = updatedIndices.size();
+      double[] P = covariance.data;
+      double[] dx = stateCorrection.data;
+
+      // P * H^T, only the rows of the blocks correlated with the measured blocks are non-zero.
+      covarianceTimesJacobianTranspose.reshape(numberOfUpdatedIndices, measurementSize);
+      for (int i = 0; i < numberOfUpdatedIndices; i++)
+      {
+         int rowOffset = updatedIndices.getQuick(i) * stateSize;
+
+         for (int row = 0; row < measurementSize; row++)
+         {
+            double sum = 0.0;
+            for (int k = 0; k < numberOfMeasuredIndices; k++)
+            {
+               int index = measuredIndices.getQuick(k);
+               sum += P[rowOffset + index] * H.unsafe_get(row, index);
+            }
+            covarianceTimesJacobianTranspose.unsafe_set(i, row, sum);
+         }
+      }
+
+      // S = H * P * H^T + R and the innovation r - H * dx.
+      innovationCovariance.reshape(measurementSize, measurementSize);
+      innovationCovariance.set(R);
+      innovation.reshape(measurementSize, 1);
+      for (int row = 0; row < measurementSize; row++)
+      {
+         double correction = 0.0;
+
+         for (int k = 0; k < numberOfMeasuredIndices; k++)
+         {
+            int index = measuredIndices.getQuick(k);
+            double h = H.unsafe_get(row, index);
+            int position = updatedPositions[index];
+
+            for (int col = 0; col < measurementSize; col++)
+               innovationCovariance.add(row, col, h * covarianceTimesJacobianTranspose.unsafe_get(position, col));
+
+            correction += h * dx[index];
+         }
+
+         innovation.set(row, residual.get(row) - correction);
+      }
+
+      if (!CommonOps.invert(innovationCovariance))
+         throw new RuntimeException("The innovation covariance of the sensor " + sensor.getName() + " is singular.");
+
+      // K = P * H^T * S^-1
+      kalmanGain.reshape(numberOfUpdatedIndices, measurementSize);
+      CommonOps.mult(covarianceTimesJacobianTranspose, innovationCovariance, kalmanGain);
+
+      // dx = dx + K * innovation and P = P - K * H * P
+      for (int i = 0; i < numberOfUpdatedIndices; i++)
+      {
+         int index = updatedIndices.getQuick(i);
+         int rowOffset = index * stateSize;
+
+         double correction = 0.0;
+         for (int row = 0; row < measurementSize; row++)
+            correction += kalmanGain.unsafe_get(i, row) * innovation.get(row);
+         dx[index] += correction;
+
+         for (int j = 0; j < numberOfUpdatedIndices; j++)
+         {
+            double sum = 0.0;
+            for (int row = 0; row < measurementSize; row++)
+               sum += kalmanGain.unsafe_get(i, row) * covarianceTimesJacobianTranspose.unsafe_get(j, row);
+            P[rowOffset + updatedIndices.getQuick(j)] -= sum;
+         }
+      }
+
+      correlateUpdatedBlocks();
+   }
+
+   /**
+    * Finds the blocks of the state that have a non-zero column in the measurement Jacobian.
+    */
+   private void findMeasuredBlocks(DenseMatrix64F H)
+   {
+      measuredBlocks.resetQuick();
+      measuredIndices.resetQuick();
+
+      for (int block = 0; block < numberOfBlocks; block++)
+      {
+         if (isBlockMeasured(H, block))
+         {
+            measuredBlocks.add(block);
+            for (int i = 0; i < blockSizes[block]; i++)
+               measuredIndices.add(blockStarts[block] + i);
+         }
+      }
+   }
+
+   private boolean isBlockMeasured(DenseMatrix64F H, int block)
+   {
+      for (int row = 0; row < H.getNumRows(); row++)
+      {
+         for (int col = blockStarts[block]; col < blockStarts[block] + blockSizes[block]; col++)
+         {
+            if (H.unsafe_get(row, col) != 0.0)
+               return true;
+         }
+      }
+
+      return false;
+   }
+
+   /**
+    * Finds the blocks of the state correlated with the measured blocks, these are the ones updated
+    * by the measurement.
+    */
+   private void findUpdatedBlocks()
+   {
+      for (int i = 0; i < updatedBlocks.size(); i++)
+         isUpdatedBlock[updatedBlocks.getQuick(i)] = false;
+      updatedBlocks.resetQuick();
+      updatedIndices.resetQuick();
+
+      for (int i = 0; i < measuredBlocks.size(); i++)
+      {
+         TIntArrayList correlatedBlockList = correlatedBlockLists[measuredBlocks.getQuick(i)];
+
+         for (int j = 0; j < correlatedBlockList.size(); j++)
+         {
+            int block = correlatedBlockList.getQuick(j);
+
+            if (!isUpdatedBlock[block])
+            {
+               isUpdatedBlock[block] = true;
+               updatedBlocks.add(block);
+            }
+         }
+      }
+
+      for (int i = 0; i < updatedBlocks.size(); i++)
+      {
+         int block = updatedBlocks.getQuick(i);
+
+         for (int j = 0; j < blockSizes[block]; j++)
+         {
+            int index = blockStarts[block] + j;
+            updatedPositions[index] = updatedIndices.size();
+            updatedIndices.add(index);
+         }
+      }
+   }
+
+   private void correlateUpdatedBlocks()
+   {
+      for (int i = 0; i < updatedBlocks.size(); i++)
+      {
+         int block = updatedBlocks.getQuick(i);
+
+         for (int j = 0; j < updatedBlocks.size(); j++)
+         {
+            int otherBlock = updatedBlocks.getQuick(j);
+
+            if (!correlatedBlocks[block][otherBlock])
+            {
+               correlatedBlocks[block][otherBlock] = true;
+               correlatedBlockLists[block].add(otherBlock);
+               numberOfCovarianceBlocks.increment();
+            }
+         }
+      }
+   }
+
+   public void getCovariance(DenseMatrix64F covarianceToPack)
+   {
+      covarianceToPack.reshape(stateSize, stateSize);
+      covarianceToPack.set(covariance);
+   }
+
+   /**
+    * @return the number of blocks of the error covariance that can be non-zero.
+    */
+   public int getNumberOfCovarianceBlocks()
+   {
+      return numberOfCovarianceBlocks.getIntegerValue();
+   }
+}
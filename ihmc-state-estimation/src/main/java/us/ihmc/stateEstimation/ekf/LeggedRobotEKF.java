@@ -20,6 +20,7 @@ import us.ihmc.ekf.filter.sensor.implementations.AngularVelocitySensor;
 import us.ihmc.ekf.filter.sensor.implementations.JointPositionSensor;
 import us.ihmc.ekf.filter.sensor.implementations.JointVelocitySensor;
 import us.ihmc.ekf.filter.sensor.implementations.LinearAccelerationSensor;
+import us.ihmc.ekf.filter.state.State;
 import us.ihmc.ekf.filter.state.implementations.JointState;
 import us.ihmc.ekf.filter.state.implementations.PoseState;
 import us.ihmc.euclid.referenceFrame.ReferenceFrame;
@@ -60,6 +61,9 @@ import us.ihmc.yoVariables.variable.YoFrameVector3D;
  * - Creates foot linear velocity sensors for feet in contact</br>
  * <p>
  * This class sets up the estimator and wraps it in the {@link StateEstimatorController} interface.
+ * <p>
+ * By default the covariance is updated with the {@link BlockSparseStateEstimator} which computes the
+ * same estimate as the dense {@link StateEstimator} but scales with the number of joints.
  *
  * @author Georg Wiedebach
  */
@@ -90,7 +94,10 @@ public class LeggedRobotEKF implements StateEstimatorController
    private final List<ForceSensorDataReadOnly> forceSensorOutputs = new ArrayList<>();
    private final List<ReferenceFrame> forceSensorMeasurementFrames = new ArrayList<>();
 
+   /** The dense filter, {@code null} if the block sparse filter is used. */
    private final StateEstimator stateEstimator;
+   /** The block sparse filter, {@code null} if the dense filter is used. */
+   private final BlockSparseStateEstimator blockSparseStateEstimator;
 
    private final RigidBodyTransform rootTransform = new RigidBodyTransform();
    private final Twist rootTwist = new Twist();
@@ -110,6 +117,19 @@ public class LeggedRobotEKF implements StateEstimatorController
                          Map<String, ImmutablePair<ReferenceFrame, ForceSensorDefinition>> forceSensorMap, SensorOutputMapReadOnly rawSensorOutput,
                          SensorOutputMapReadOnly processedSensorOutput, double dt, double gravity, Map<String, String> jointGroups,
                          YoGraphicsListRegistry graphicsListRegistry, List<OneDoFJointBasics> referenceJoints)
+   {
+      this(rootJoint, oneDoFJoints, primaryImuName, imuSensorMap, forceSensorMap, rawSensorOutput, processedSensorOutput, dt, gravity, jointGroups,
+           graphicsListRegistry, referenceJoints, true);
+   }
+
+   /**
+    * @param useBlockSparseCovariance whether to use the {@link BlockSparseStateEstimator} instead of
+    *           the dense {@link StateEstimator}.
+    */
+   public LeggedRobotEKF(FloatingJointBasics rootJoint, List<OneDoFJointBasics> oneDoFJoints, String primaryImuName, Map<String, IMUDefinition> imuSensorMap,
+                         Map<String, ImmutablePair<ReferenceFrame, ForceSensorDefinition>> forceSensorMap, SensorOutputMapReadOnly rawSensorOutput,
+                         SensorOutputMapReadOnly processedSensorOutput, double dt, double gravity, Map<String, String> jointGroups,
+                         YoGraphicsListRegistry graphicsListRegistry, List<OneDoFJointBasics> referenceJoints, boolean useBlockSparseCovariance)
    {
       FilterTools.proccessNoiseModel = ProccessNoiseModel.ONLY_ACCELERATION_VARIANCE;
 
@@ -124,7 +144,19 @@ public class LeggedRobotEKF implements StateEstimatorController
       createFootSensors(rootJoint, forceSensorMap, processedSensorOutput, dt, gravity, graphicsListRegistry, sensors);
 
       RobotState robotState = new RobotState(rootState, jointStates);
-      stateEstimator = new StateEstimator(sensors, robotState, registry);
+      if (useBlockSparseCovariance)
+      {
+         List<State> subStates = new ArrayList<>();
+         subStates.add(rootState);
+         subStates.addAll(jointStates);
+         stateEstimator = null;
+         blockSparseStateEstimator = new BlockSparseStateEstimator(sensors, robotState, subStates, registry);
+      }
+      else
+      {
+         stateEstimator = new StateEstimator(sensors, robotState, registry);
+         blockSparseStateEstimator = null;
+      }
 
       yoRootPose = new YoFramePose3D("RootPoseEKF", ReferenceFrame.getWorldFrame(), registry);
       yoRootTwist = new YoFixedFrameTwist("RootTwistEKF", rootJoint.getFrameAfterJoint(), rootJoint.getFrameBeforeJoint(), rootJoint.getFrameAfterJoint(),
@@ -221,11 +253,17 @@ public class LeggedRobotEKF implements StateEstimatorController
 
       fixRobot.set(fixRobotRequest.get());
 
-      stateEstimator.predict();
+      if (blockSparseStateEstimator != null)
+         blockSparseStateEstimator.predict();
+      else
+         stateEstimator.predict();
       updateRobot();
 
       updateSensors();
-      stateEstimator.correct();
+      if (blockSparseStateEstimator != null)
+         blockSparseStateEstimator.correct();
+      else
+         stateEstimator.correct();
       updateRobot();
 
       updateYoVariables();
@@ -310,7 +348,10 @@ public class LeggedRobotEKF implements StateEstimatorController
       rootTwist.setToZero(rootJoint.getFrameAfterJoint(), rootJoint.getFrameBeforeJoint(), rootJoint.getFrameAfterJoint());
       rootState.initialize(rootJointTransform, rootTwist);
 
-      stateEstimator.reset();
+      if (blockSparseStateEstimator != null)
+         blockSparseStateEstimator.reset();
+      else
+         stateEstimator.reset();
       for (int i = 0; i < linearAccelerationSensors.size(); i++)
       {
          linearAccelerationSensors.get(i).resetBias();
@@ -0,0 +1,247 @@
+package us.ihmc.stateEstimation.ekf;
+
+import static us.ihmc.robotics.Assert.*;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+import org.ejml.data.DenseMatrix64F;
+import org.ejml.ops.CommonOps;
+import org.ejml.ops.MatrixFeatures;
+import org.junit.jupiter.api.Test;
+
+import us.ihmc.ekf.filter.FilterTools;
+import us.ihmc.ekf.filter.FilterTools.ProccessNoiseModel;
+import us.ihmc.ekf.filter.RobotState;
+import us.ihmc.ekf.filter.StateEstimator;
+import us.ihmc.ekf.filter.sensor.Sensor;
+import us.ihmc.ekf.filter.sensor.implementations.JointPositionSensor;
+import us.ihmc.ekf.filter.sensor.implementations.JointVelocitySensor;
+import us.ihmc.ekf.filter.state.State;
+import us.ihmc.ekf.filter.state.implementations.JointState;
+import us.ihmc.ekf.filter.state.implementations.PoseState;
+import us.ihmc.euclid.referenceFrame.ReferenceFrame;
+import us.ihmc.euclid.tuple3D.Point3D;
+import us.ihmc.mecano.multiBodySystem.RigidBody;
+import us.ihmc.mecano.multiBodySystem.SixDoFJoint;
+import us.ihmc.stateEstimation.head.PositionSensor;
+import us.ihmc.yoVariables.registry.YoVariableRegistry;
+
+public class BlockSparseStateEstimatorTest
+{
+   private static final double dt = 0.001;
+   private static final int numberOfLegJoints = 12;
+
+   @Test
+   public void testSameEstimateAsDenseFilter()
+   {
+      FilterTools.proccessNoiseModel = ProccessNoiseModel.ONLY_ACCELERATION_VARIANCE;
+      int numberOfJoints = 30;
+
+      YoVariableRegistry denseRegistry = new YoVariableRegistry("dense");
+      TestRobot denseRobot = new TestRobot(numberOfJoints, denseRegistry);
+      StateEstimator denseEstimator = new StateEstimator(denseRobot.sensors, denseRobot.robotState, denseRegistry);
+
+      YoVariableRegistry registry = new YoVariableRegistry("blockSparse");
+      TestRobot blockSparseRobot = new TestRobot(numberOfJoints, registry);
+      BlockSparseStateEstimator blockSparseEstimator = new BlockSparseStateEstimator(blockSparseRobot.sensors, blockSparseRobot.robotState,
+                                                                                     blockSparseRobot.subStates, registry);
+
+      Random random = new Random(4986L);
+      DenseMatrix64F expectedState = new DenseMatrix64F(0, 0);
+      DenseMatrix64F actualState = new DenseMatrix64F(0, 0);
+      DenseMatrix64F expectedCovariance = new DenseMatrix64F(0, 0);
+      DenseMatrix64F actualCovariance = new DenseMatrix64F(0, 0);
+
+      for (int tick = 0; tick < 500; tick++)
+      {
+         double time = tick * dt;
+         denseRobot.setRandomMeasurements(random, time);
+         blockSparseRobot.copyMeasurements(denseRobot);
+
+         denseEstimator.predict();
+         denseEstimator.correct();
+         blockSparseEstimator.predict();
+         blockSparseEstimator.correct();
+
+         denseRobot.robotState.getStateVector(expectedState);
+         blockSparseRobot.robotState.getStateVector(actualState);
+         expectedCovariance.set(denseEstimator.getCovariance());
+         blockSparseEstimator.getCovariance(actualCovariance);
+
+         assertTrue("State differs at tick " + tick, MatrixFeatures.isEquals(expectedState, actualState, 1.0e-9));
+         assertTrue("Covariance differs at tick " + tick, MatrixFeatures.isEquals(expectedCovariance, actualCovariance, 1.0e-9));
+      }
+
+      // The pose and the leg joints are correlated through the leg sensors, the other joints remain independent.
+      int expectedNumberOfBlocks = (numberOfLegJoints + 1) * (numberOfLegJoints + 1) + numberOfJoints - numberOfLegJoints;
+      assertEquals(expectedNumberOfBlocks, blockSparseEstimator.getNumberOfCovarianceBlocks());
+   }
+
+   /**
+    * A floating robot with one pose state and one state per joint. Each joint has an encoder, the
+    * first {@link BlockSparseStateEstimatorTest#numberOfLegJoints} joints are split in two legs each
+    * measured with the pose by a {@link LegSensor}, and a position sensor measures the pose.
+    */
+   static class TestRobot
+   {
+      final RobotState robotState;
+      final List<State> subStates = new ArrayList<>();
+      final List<Sensor> sensors = new ArrayList<>();
+
+      private final List<JointPositionSensor> jointPositionSensors = new ArrayList<>();
+      private final List<JointVelocitySensor> jointVelocitySensors = new ArrayList<>();
+      private final double[] jointPositions;
+      private final double[] jointVelocities;
+      private final List<LegSensor> legSensors = new ArrayList<>();
+      private final PositionSensor positionSensor;
+      private final Point3D position = new Point3D();
+
+      public TestRobot(int numberOfJoints, YoVariableRegistry registry)
+      {
+         SixDoFJoint rootJoint = new SixDoFJoint("root", new RigidBody("elevator", ReferenceFrame.getWorldFrame()));
+         PoseState poseState = new PoseState("root", dt, rootJoint.getFrameAfterJoint(), registry);
+         subStates.add(poseState);
+
+         List<JointState> jointStates = new ArrayList<>();
+         for (int i = 0; i < numberOfJoints; i++)
+         {
+            String jointName = "joint" + i;
+            JointState jointState = new JointState(jointName, jointName, dt, registry);
+            jointStates.add(jointState);
+            subStates.add(jointState);
+
+            JointPositionSensor jointPositionSensor = new JointPositionSensor(jointName, jointName, dt, registry);
+            JointVelocitySensor jointVelocitySensor = new JointVelocitySensor(jointName, jointName, dt, registry);
+            jointPositionSensors.add(jointPositionSensor);
+            jointVelocitySensors.add(jointVelocitySensor);
+            sensors.add(jointPositionSensor);
+            sensors.add(jointVelocitySensor);
+         }
+         jointPositions = new double[numberOfJoints];
+         jointVelocities = new double[numberOfJoints];
+
+         robotState = new RobotState(poseState, jointStates);
+
+         int legStart = 0;
+         for (int leg = 0; leg < 2; leg++)
+         {
+            List<State> legStates = subStates.subList(1 + legStart, 1 + legStart + numberOfLegJoints / 2);
+            LegSensor legSensor = new LegSensor("leg" + leg, subStates, legStates);
+            legSensors.add(legSensor);
+            sensors.add(legSensor);
+            legStart += numberOfLegJoints / 2;
+         }
+
+         positionSensor = new PositionSensor("position", dt, registry);
+         sensors.add(positionSensor);
+      }
+
+      public void setRandomMeasurements(Random random, double time)
+      {
+         for (int i = 0; i < jointPositions.length; i++)
+         {
+            jointPositions[i] = Math.sin(time + i) + 0.01 * random.nextGaussian();
+            jointVelocities[i] = Math.cos(time + i) + 0.01 * random.nextGaussian();
+         }
+         for (LegSensor legSensor : legSensors)
+            legSensor.measurement = 0.1 * random.nextGaussian();
+         position.set(0.1 * time + 0.01 * random.nextGaussian(), 0.01 * random.nextGaussian(), 1.0 + 0.01 * random.nextGaussian());
+         updateSensors();
+      }
+
+      public void copyMeasurements(TestRobot other)
+      {
+         System.arraycopy(other.jointPositions, 0, jointPositions, 0, jointPositions.length);
+         System.arraycopy(other.jointVelocities, 0, jointVelocities, 0, jointVelocities.length);
+         for (int i = 0; i < legSensors.size(); i++)
+            legSensors.get(i).measurement = other.legSensors.get(i).measurement;
+         position.set(other.position);
+         updateSensors();
+      }
+
+      private void updateSensors()
+      {
+         for (int i = 0; i < jointPositions.length; i++)
+         {
+            jointPositionSensors.get(i).setJointPositionMeasurement(jointPositions[i]);
+            jointVelocitySensors.get(i).setJointVelocityMeasurement(jointVelocities[i]);
+         }
+         positionSensor.setMeasurement(position);
+      }
+   }
+
+   /**
+    * A linear sensor measuring the sum of the first entry of the pose state and of some joint
+    * states, standing for a foot velocity sensor correlating the pose and the leg joints.
+    */
+   private static class LegSensor extends Sensor
+   {
+      private final String name;
+      private final int[] measuredIndices;
+      private final DenseMatrix64F stateVector = new DenseMatrix64F(0, 0);
+      private double measurement;
+
+      public LegSensor(String name, List<State> allStates, List<State> legStates)
+      {
+         this.name = name;
+
+         List<State> measuredStates = new ArrayList<>();
+         measuredStates.add(allStates.get(0));
+         measuredStates.addAll(legStates);
+         measuredIndices = new int[measuredStates.size()];
+
+         for (int i = 0; i < measuredStates.size(); i++)
+         {
+            int index = 0;
+            for (State state : allStates)
+            {
+               if (state == measuredStates.get(i))
+                  break;
+               index += state.getSize();
+            }
+            measuredIndices[i] = index;
+         }
+      }
+
+      @Override
+      public String getName()
+      {
+         return name;
+      }
+
+      @Override
+      public int getMeasurementSize()
+      {
+         return 1;
+      }
+
+      @Override
+      public void getMeasurementJacobian(DenseMatrix64F jacobianToPack, RobotState robotState)
+      {
+         jacobianToPack.reshape(1, robotState.getSize());
+         CommonOps.fill(jacobianToPack, 0.0);
+         for (int index : measuredIndices)
+            jacobianToPack.set(0, index, 1.0);
+      }
+
+      @Override
+      public void getResidual(DenseMatrix64F residualToPack, RobotState robotState)
+      {
+         robotState.getStateVector(stateVector);
+         double predictedMeasurement = 0.0;
+         for (int index : measuredIndices)
+            predictedMeasurement += stateVector.get(index);
+         residualToPack.reshape(1, 1);
+         residualToPack.set(0, measurement - predictedMeasurement);
+      }
+
+      @Override
+      public void getRMatrix(DenseMatrix64F noiseCovarianceToPack)
+      {
+         noiseCovarianceToPack.reshape(1, 1);
+         noiseCovarianceToPack.set(0, 0.01);
+      }
+   }
+}
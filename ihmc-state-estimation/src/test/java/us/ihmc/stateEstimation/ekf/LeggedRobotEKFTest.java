@@ -0,0 +1,209 @@
+package us.ihmc.stateEstimation.ekf;
+
+import static us.ihmc.robotics.Assert.*;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+
+import org.ejml.data.DenseMatrix64F;
+import org.ejml.ops.MatrixFeatures;
+import org.junit.jupiter.api.Test;
+
+import us.ihmc.euclid.referenceFrame.ReferenceFrame;
+import us.ihmc.euclid.transform.RigidBodyTransform;
+import us.ihmc.euclid.tuple3D.Vector3D;
+import us.ihmc.mecano.multiBodySystem.RevoluteJoint;
+import us.ihmc.mecano.multiBodySystem.RigidBody;
+import us.ihmc.mecano.multiBodySystem.SixDoFJoint;
+import us.ihmc.mecano.multiBodySystem.interfaces.JointBasics;
+import us.ihmc.mecano.multiBodySystem.interfaces.OneDoFJointBasics;
+import us.ihmc.mecano.multiBodySystem.interfaces.RigidBodyBasics;
+import us.ihmc.mecano.tools.JointStateType;
+import us.ihmc.mecano.tools.MultiBodySystemRandomTools;
+import us.ihmc.mecano.tools.MultiBodySystemTools;
+import us.ihmc.robotics.sensors.ForceSensorDataHolder;
+import us.ihmc.robotics.sensors.ForceSensorDataHolderReadOnly;
+import us.ihmc.robotics.sensors.IMUDefinition;
+import us.ihmc.sensorProcessing.imu.IMUSensor;
+import us.ihmc.sensorProcessing.sensorProcessors.OneDoFJointStateReadOnly;
+import us.ihmc.sensorProcessing.sensorProcessors.SensorOutputMapReadOnly;
+import us.ihmc.yoVariables.parameters.DefaultParameterReader;
+
+public class LeggedRobotEKFTest
+{
+   private static final double dt = 0.001;
+   private static final double gravity = -9.81;
+   private static final String primaryImuName = "pelvisImu";
+   private static final String handImuName = "handImu";
+
+   private static final Vector3D X = new Vector3D(1.0, 0.0, 0.0);
+   private static final Vector3D Y = new Vector3D(0.0, 1.0, 0.0);
+   private static final Vector3D Z = new Vector3D(0.0, 0.0, 1.0);
+
+   @Test
+   public void testBlockSparseCovarianceGivesSameEstimate()
+   {
+      long seed = 2398L;
+      TestRobot measuredRobot = new TestRobot(new Random(seed));
+      TestRobot denseRobot = new TestRobot(new Random(seed));
+      TestRobot blockSparseRobot = new TestRobot(new Random(seed));
+      TestSensorOutput sensorOutput = new TestSensorOutput(measuredRobot);
+
+      LeggedRobotEKF denseEKF = denseRobot.createEKF(sensorOutput, measuredRobot, false);
+      LeggedRobotEKF blockSparseEKF = blockSparseRobot.createEKF(sensorOutput, measuredRobot, true);
+      denseEKF.initializeEstimator(new RigidBodyTransform());
+      blockSparseEKF.initializeEstimator(new RigidBodyTransform());
+
+      Random random = new Random(6734L);
+      DenseMatrix64F expectedState = new DenseMatrix64F(0, 0);
+      DenseMatrix64F actualState = new DenseMatrix64F(0, 0);
+
+      for (int tick = 0; tick < 500; tick++)
+      {
+         sensorOutput.setRandomMeasurements(random, tick * dt);
+
+         denseEKF.doControl();
+         blockSparseEKF.doControl();
+
+         for (JointStateType stateType : new JointStateType[] {JointStateType.CONFIGURATION, JointStateType.VELOCITY})
+         {
+            MultiBodySystemTools.extractJointsState(denseRobot.joints, stateType, expectedState);
+            MultiBodySystemTools.extractJointsState(blockSparseRobot.joints, stateType, actualState);
+            assertTrue("Joint " + stateType + " differs at tick " + tick, MatrixFeatures.isEquals(expectedState, actualState, 1.0e-8));
+         }
+      }
+   }
+
+   /**
+    * A floating robot with two 6-DoF legs and a 7-DoF arm, with an IMU on the pelvis and one on the
+    * hand such that the hand IMU correlates the pose and the arm joints.
+    */
+   private static class TestRobot
+   {
+      private final SixDoFJoint rootJoint;
+      private final List<OneDoFJointBasics> oneDoFJoints = new ArrayList<>();
+      private final List<JointBasics> joints = new ArrayList<>();
+      private final Map<String, IMUDefinition> imuDefinitions = new HashMap<>();
+
+      public TestRobot(Random random)
+      {
+         RigidBodyBasics elevator = new RigidBody("elevator", ReferenceFrame.getWorldFrame());
+         rootJoint = MultiBodySystemRandomTools.nextSixDoFJoint(random, "rootJoint", elevator);
+         RigidBodyBasics pelvis = MultiBodySystemRandomTools.nextRigidBody(random, "pelvis", rootJoint);
+
+         oneDoFJoints.addAll(MultiBodySystemRandomTools.nextRevoluteJointChain(random, "leftLeg", pelvis, new Vector3D[] {Z, X, Y, Y, Y, X}));
+         oneDoFJoints.addAll(MultiBodySystemRandomTools.nextRevoluteJointChain(random, "rightLeg", pelvis, new Vector3D[] {Z, X, Y, Y, Y, X}));
+         List<RevoluteJoint> arm = MultiBodySystemRandomTools.nextRevoluteJointChain(random, "arm", pelvis, new Vector3D[] {Y, X, Z, Y, Z, X, Y});
+         oneDoFJoints.addAll(arm);
+         joints.add(rootJoint);
+         joints.addAll(oneDoFJoints);
+
+         RigidBodyBasics hand = arm.get(arm.size() - 1).getSuccessor();
+         imuDefinitions.put(primaryImuName, new IMUDefinition(primaryImuName, pelvis, new RigidBodyTransform()));
+         imuDefinitions.put(handImuName, new IMUDefinition(handImuName, hand, new RigidBodyTransform()));
+         elevator.updateFramesRecursively();
+      }
+
+      public LeggedRobotEKF createEKF(SensorOutputMapReadOnly sensorOutput, TestRobot measuredRobot, boolean useBlockSparseCovariance)
+      {
+         LeggedRobotEKF ekf = new LeggedRobotEKF(rootJoint, oneDoFJoints, primaryImuName, imuDefinitions, Collections.emptyMap(), sensorOutput, sensorOutput,
+                                                 dt, gravity, Collections.emptyMap(), null, measuredRobot.oneDoFJoints, useBlockSparseCovariance);
+         new DefaultParameterReader().readParametersInRegistry(ekf.getYoVariableRegistry());
+         return ekf;
+      }
+   }
+
+   /**
+    * Provides noisy joint encoders and IMU measurements of the measured robot.
+    */
+   private static class TestSensorOutput implements SensorOutputMapReadOnly
+   {
+      private final TestRobot measuredRobot;
+      private final Map<OneDoFJointBasics, OneDoFJointStateReadOnly> jointOutputs = new HashMap<>();
+      private final List<OneDoFJointStateReadOnly> jointOutputList = new ArrayList<>();
+      private final List<IMUSensor> imuOutputs = new ArrayList<>();
+      private final ForceSensorDataHolder forceSensorOutputs = new ForceSensorDataHolder(Collections.emptyList());
+
+      private final Vector3D angularVelocity = new Vector3D();
+      private final Vector3D linearAcceleration = new Vector3D();
+
+      public TestSensorOutput(TestRobot measuredRobot)
+      {
+         this.measuredRobot = measuredRobot;
+
+         for (OneDoFJointBasics joint : measuredRobot.oneDoFJoints)
+         {
+            OneDoFJointStateReadOnly jointOutput = OneDoFJointStateReadOnly.createFromOneDoFJoint(joint, true);
+            jointOutputs.put(joint, jointOutput);
+            jointOutputList.add(jointOutput);
+         }
+
+         imuOutputs.add(new IMUSensor(measuredRobot.imuDefinitions.get(primaryImuName), null));
+         imuOutputs.add(new IMUSensor(measuredRobot.imuDefinitions.get(handImuName), null));
+      }
+
+      public void setRandomMeasurements(Random random, double time)
+      {
+         List<OneDoFJointBasics> joints = measuredRobot.oneDoFJoints;
+         for (int i = 0; i < joints.size(); i++)
+         {
+            joints.get(i).setQ(Math.sin(time + i) + 0.01 * random.nextGaussian());
+            joints.get(i).setQd(Math.cos(time + i) + 0.01 * random.nextGaussian());
+         }
+
+         for (IMUSensor imuOutput : imuOutputs)
+         {
+            angularVelocity.set(0.1 * random.nextGaussian(), 0.1 * random.nextGaussian(), 0.1 * random.nextGaussian());
+            linearAcceleration.set(0.1 * random.nextGaussian(), 0.1 * random.nextGaussian(), -gravity + 0.1 * random.nextGaussian());
+            imuOutput.setAngularVelocityMeasurement(angularVelocity);
+            imuOutput.setLinearAccelerationMeasurement(linearAcceleration);
+         }
+      }
+
+      @Override
+      public long getWallTime()
+      {
+         return 0;
+      }
+
+      @Override
+      public long getMonotonicTime()
+      {
+         return 0;
+      }
+
+      @Override
+      public long getSyncTimestamp()
+      {
+         return 0;
+      }
+
+      @Override
+      public OneDoFJointStateReadOnly getOneDoFJointOutput(OneDoFJointBasics oneDoFJoint)
+      {
+         return jointOutputs.get(oneDoFJoint);
+      }
+
+      @Override
+      public List<? extends OneDoFJointStateReadOnly> getOneDoFJointOutputs()
+      {
+         return jointOutputList;
+      }
+
+      @Override
+      public List<? extends IMUSensor> getIMUOutputs()
+      {
+         return imuOutputs;
+      }
+
+      @Override
+      public ForceSensorDataHolderReadOnly getForceSensorOutputs()
+      {
+         return forceSensorOutputs;
+      }
+   }
+}
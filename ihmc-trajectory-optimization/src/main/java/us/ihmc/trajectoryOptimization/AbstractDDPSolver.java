@@ -1,6 +1,15 @@
 package us.ihmc.trajectoryOptimization;
 
+import java.util.ArrayList;
+import java.util.IdentityHashMap;
 import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.function.Supplier;
+import java.util.function.UnaryOperator;
 
 import org.ejml.data.DenseMatrix64F;
 import org.ejml.factory.DecompositionFactory;
@@ -70,6 +79,13 @@ public abstract class AbstractDDPSolver<E extends Enum> implements DDPSolverInte
 
    protected double lineSearchGain = 1.0;
 
+   /** Minimum number of time steps for which the function approximations are computed by a thread. */
+   private static final int minimumTimeStepsPerThread = 25;
+
+   private final List<Worker> workers = new ArrayList<>();
+   private final List<Future<?>> pendingTasks = new ArrayList<>();
+   private ExecutorService executor;
+
    public AbstractDDPSolver(DiscreteHybridDynamics<E> dynamics, boolean debug)
    {
       this.dynamics = dynamics;
@@ -120,6 +136,119 @@ public abstract class AbstractDDPSolver<E extends Enum> implements DDPSolverInte
       Q_XX_col = new DenseMatrix64F(stateSize, 1);
       Q_UX_col = new DenseMatrix64F(controlSize, 1);
       Q_UU_col = new DenseMatrix64F(controlSize, 1);
+
+      workers.add(new Worker(dynamics, null));
+   }
+
+   /**
+    * Sets the number of threads used to compute the function approximations and, in {@link DDPSolver}, to evaluate the step sizes of the line search.
+    * <p>
+    * The dynamics and the cost functions keep temporary variables, so each additional thread uses its own copies. The copies have to be equivalent to the
+    * originals, including the time step size of the dynamics, such that the solution does not depend on the number of threads.
+    * </p>
+    *
+    * @param numberOfThreads the number of threads, including the calling thread.
+    * @param dynamicsFactory creates the copy of the dynamics of this solver used by an additional thread.
+    * @param costFunctionCopier creates the copy of a cost function used by an additional thread, called once per thread, cost function, and solve such
+    *           that the copies reflect the changes made to the cost functions between solves.
+    */
+   public void setNumberOfThreads(int numberOfThreads, Supplier<? extends DiscreteHybridDynamics<E>> dynamicsFactory,
+                                  UnaryOperator<LQTrackingCostFunction<E>> costFunctionCopier)
+   {
+      if (numberOfThreads < 1)
+         throw new IllegalArgumentException("The number of threads has to be at least 1, was " + numberOfThreads);
+
+      close();
+
+      for (int i = 1; i < numberOfThreads; i++)
+         workers.add(new Worker(dynamicsFactory.get(), costFunctionCopier));
+
+      if (numberOfThreads > 1)
+      {
+         String threadName = getClass().getSimpleName() + "Worker";
+         executor = Executors.newFixedThreadPool(numberOfThreads - 1, runnable ->
+         {
+            Thread thread = new Thread(runnable, threadName);
+            thread.setDaemon(true);
+            return thread;
+         });
+      }
+   }
+
+   /**
+    * Stops the additional threads, the solver keeps working on the calling thread only.
+    */
+   public void close()
+   {
+      if (executor != null)
+      {
+         executor.shutdown();
+         executor = null;
+      }
+
+      while (workers.size() > 1)
+         workers.remove(workers.size() - 1);
+   }
+
+   public int getNumberOfThreads()
+   {
+      return workers.size();
+   }
+
+   /**
+    * Discards the copies of the cost functions used by the additional threads, they are copied again from the current cost functions when next needed.
+    * <p>
+    * Called at the start of {@link #computeSequence} and {@link #computeOnePass}, has to be called after modifying a cost function when calling the passes
+    * directly.
+    * </p>
+    */
+   public void refreshCostFunctionCopies()
+   {
+      for (int i = 0; i < workers.size(); i++)
+         workers.get(i).costFunctionCopies.clear();
+   }
+
+   protected Worker getWorker(int threadIndex)
+   {
+      return workers.get(threadIndex);
+   }
+
+   /**
+    * Runs a task on one of the additional threads, {@link #waitForPendingTasks()} has to be called before using its result.
+    */
+   protected void submit(Runnable task)
+   {
+      pendingTasks.add(executor.submit(task));
+   }
+
+   protected void waitForPendingTasks()
+   {
+      Throwable failure = null;
+
+      for (int i = 0; i < pendingTasks.size(); i++)
+      {
+         try
+         {
+            pendingTasks.get(i).get();
+         }
+         catch (ExecutionException e)
+         {
+            if (failure == null)
+               failure = e.getCause();
+         }
+         catch (InterruptedException e)
+         {
+            if (failure == null)
+               failure = e;
+         }
+      }
+
+      pendingTasks.clear();
+
+      if (failure instanceof RuntimeException)
+         throw (RuntimeException) failure;
+      else if (failure != null)
+         throw new RuntimeException(failure);
    }
 
    @Override
@@ -214,8 +343,37 @@ public abstract class AbstractDDPSolver<E extends Enum> implements DDPSolverInte
       optimalSequence.setState(0, initialState);
    }
 
+   /**
+    * The function approximations of the time steps are independent, the time steps are split in contiguous chunks computed by the different threads.
+    */
    public void computeFunctionApproximations(E dynamicsState, LQTrackingCostFunction<E> costFunction, int startIndex, int endIndex)
    {
+      int numberOfTimeSteps = endIndex - startIndex + 1;
+      int numberOfChunks = Math.min(workers.size(), numberOfTimeSteps / minimumTimeStepsPerThread);
+
+      if (numberOfChunks <= 1)
+      {
+         computeFunctionApproximations(workers.get(0), dynamicsState, costFunction, startIndex, endIndex);
+         return;
+      }
+
+      for (int chunk = 1; chunk < numberOfChunks; chunk++)
+      {
+         Worker worker = workers.get(chunk);
+         int chunkStartIndex = startIndex + chunk * numberOfTimeSteps / numberOfChunks;
+         int chunkEndIndex = startIndex + (chunk + 1) * numberOfTimeSteps / numberOfChunks - 1;
+         submit(() -> computeFunctionApproximations(worker, dynamicsState, costFunction, chunkStartIndex, chunkEndIndex));
+      }
+
+      computeFunctionApproximations(workers.get(0), dynamicsState, costFunction, startIndex, startIndex + numberOfTimeSteps / numberOfChunks - 1);
+      waitForPendingTasks();
+   }
+
+   private void computeFunctionApproximations(Worker worker, E dynamicsState, LQTrackingCostFunction<E> costFunction, int startIndex, int endIndex)
+   {
+      DiscreteHybridDynamics<E> dynamics = worker.getDynamics();
+      costFunction = worker.getCostFunction(costFunction);
+
       for (int t = startIndex; t <= endIndex; t++)
       {
          DenseMatrix64F currentState = optimalSequence.getState(t);
@@ -341,10 +499,18 @@ public abstract class AbstractDDPSolver<E extends Enum> implements DDPSolverInte
    }
 
 
-   private final DenseMatrix64F stateError = new DenseMatrix64F(0, 0);
    void computeUpdatedControl(DenseMatrix64F currentState, DenseMatrix64F updatedState, DenseMatrix64F feedbackGainMatrix, DenseMatrix64F feedforwardControl,
                               DenseMatrix64F currentControl, DenseMatrix64F updatedControlToPack)
    {
+      computeUpdatedControl(workers.get(0), lineSearchGain, currentState, updatedState, feedbackGainMatrix, feedforwardControl, currentControl,
+                            updatedControlToPack);
+   }
+
+   void computeUpdatedControl(Worker worker, double lineSearchGain, DenseMatrix64F currentState, DenseMatrix64F updatedState,
+                              DenseMatrix64F feedbackGainMatrix, DenseMatrix64F feedforwardControl, DenseMatrix64F currentControl,
+                              DenseMatrix64F updatedControlToPack)
+   {
+      DenseMatrix64F stateError = worker.stateError;
       stateError.reshape(currentState.getNumRows(), 1);
       CommonOps.subtract(updatedState, currentState, stateError);
 
@@ -419,6 +585,8 @@ public abstract class AbstractDDPSolver<E extends Enum> implements DDPSolverInte
       int startIndex = 0;
       int endIndex = optimalSequence.size() - 1;
 
+      refreshCostFunctionCopies();
+
       for (int iterations = 0; iterations < 20; iterations++)
       {
          boolean lastIteration = false;
@@ -466,6 +634,8 @@ public abstract class AbstractDDPSolver<E extends Enum> implements DDPSolverInte
       double cost, cost0;
       cost0 = Double.MAX_VALUE;
 
+      refreshCostFunctionCopies();
+
       for (int iterations = 0; iterations < 20; iterations++)
       {
          boolean lastIteration = false;
@@ -524,6 +694,7 @@ public abstract class AbstractDDPSolver<E extends Enum> implements DDPSolverInte
    public void computeOnePass(List<E> dynamicsStates, List<LQTrackingCostFunction<E>> costFunctions, List<LQTrackingCostFunction<E>> terminalCostFunctions,
                               TIntArrayList startIndices, TIntArrayList endIndices)
    {
+      refreshCostFunctionCopies();
 
       boolean lastIteration = false;
       for (int segment = 0; segment < dynamicsStates.size(); segment++)
@@ -579,4 +750,36 @@ public abstract class AbstractDDPSolver<E extends Enum> implements DDPSolverInte
    @Override
    public abstract boolean backwardPass(E dynamicsState, int startIndex, int endIndex, LQTrackingCostFunction<E> terminalCostFunction,
                                         DiscreteOptimizationData trajectory);
+
+   /**
+    * What a thread needs to evaluate the dynamics and the cost functions independently from the other threads.
+    */
+   protected class Worker
+   {
+      private final DiscreteHybridDynamics<E> dynamics;
+      private final UnaryOperator<LQTrackingCostFunction<E>> costFunctionCopier;
+      private final Map<LQTrackingCostFunction<E>, LQTrackingCostFunction<E>> costFunctionCopies = new IdentityHashMap<>();
+      private final DenseMatrix64F stateError = new DenseMatrix64F(0, 0);
+
+      private Worker(DiscreteHybridDynamics<E> dynamics, UnaryOperator<LQTrackingCostFunction<E>> costFunctionCopier)
+      {
+         this.dynamics = dynamics;
+         this.costFunctionCopier = costFunctionCopier;
+      }
+
+      public DiscreteHybridDynamics<E> getDynamics()
+      {
+         return dynamics;
+      }
+
+      /**
+       * @return the copy of {@code costFunction} owned by this worker, or {@code costFunction} itself for the calling thread.
+       */
+      public LQTrackingCostFunction<E> getCostFunction(LQTrackingCostFunction<E> costFunction)
+      {
+         if (costFunction == null || costFunctionCopier == null)
+            return costFunction;
+         return costFunctionCopies.computeIfAbsent(costFunction, costFunctionCopier);
+      }
+   }
 }
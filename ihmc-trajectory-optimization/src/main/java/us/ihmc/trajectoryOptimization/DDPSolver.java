@@ -1,9 +1,13 @@
 package us.ihmc.trajectoryOptimization;
 
+import java.util.ArrayList;
+import java.util.List;
+
 import org.ejml.data.DenseMatrix64F;
+
+import gnu.trove.list.array.TDoubleArrayList;
 import us.ihmc.commons.MathTools;
 import us.ihmc.commons.PrintTools;
-import us.ihmc.commons.lists.RecyclingArrayList;
 
 public class DDPSolver<E extends Enum> extends AbstractDDPSolver<E> implements DDPSolverInterface<E>
 {
@@ -11,7 +15,22 @@ public class DDPSolver<E extends Enum> extends AbstractDDPSolver<E> implements D
    private static final double lineSearchStartGain = 1.0;
    private static final double lineSearchGainMinimum = 0.0;
 
-   private final DiscreteOptimizationData previousSequence;
+   /** The step sizes tried by the line search, in order. */
+   private static final TDoubleArrayList lineSearchGains = new TDoubleArrayList();
+   static
+   {
+      double gain = lineSearchStartGain;
+      lineSearchGains.add(gain);
+      while (gain != lineSearchGainMinimum)
+      {
+         gain = Math.max(gain - lineSearchScaling, lineSearchGainMinimum);
+         lineSearchGains.add(gain);
+      }
+   }
+
+   /** The sequence computed by each thread for its step size, the first one is used by the calling thread. */
+   private final List<DiscreteOptimizationSequence> candidateSequences = new ArrayList<>();
+   private double[] candidateCosts = new double[0];
 
    public DDPSolver(DiscreteHybridDynamics<E> dynamics)
    {
@@ -22,10 +41,7 @@ public class DDPSolver<E extends Enum> extends AbstractDDPSolver<E> implements D
    {
       super(dynamics, debug);
 
-      int stateSize = dynamics.getStateVectorSize();
-      int controlSize = dynamics.getControlVectorSize();
-
-      previousSequence = new DiscreteOptimizationSequence(stateSize, controlSize);
+      candidateSequences.add(new DiscreteOptimizationSequence(dynamics.getStateVectorSize(), dynamics.getControlVectorSize()));
    }
 
    @Override
@@ -33,9 +49,7 @@ public class DDPSolver<E extends Enum> extends AbstractDDPSolver<E> implements D
                                          DiscreteOptimizationData desiredSequence, DiscreteSequence constantsSequence,
                                          DiscreteSequence feedbackGainSequence, DiscreteSequence feedForwardSequence)
    {
-      super.initializeFromLQRSolution(dynamicsState, costFunction, optimalSequence, desiredSequence, constantsSequence, feedBackGainSequence, feedForwardSequence);
-
-      previousSequence.setZero(optimalSequence);
+      super.initializeFromLQRSolution(dynamicsState, costFunction, optimalSequence, desiredSequence, constantsSequence, feedbackGainSequence, feedForwardSequence);
    }
 
    @Override
@@ -43,7 +57,8 @@ public class DDPSolver<E extends Enum> extends AbstractDDPSolver<E> implements D
    {
       super.initializeSequencesFromDesireds(initialState, desiredSequence, constantsSequence);
 
-      previousSequence.setZero(desiredSequence);
+      for (int i = 0; i < candidateSequences.size(); i++)
+         candidateSequences.get(i).setZero(desiredSequence);
    }
 
 
@@ -102,42 +117,79 @@ public class DDPSolver<E extends Enum> extends AbstractDDPSolver<E> implements D
       return success;
    }
 
+   /**
+    * Tries the step sizes of the line search in decreasing order until the forward pass does not diverge. The step sizes are evaluated concurrently, one per
+    * thread, and the first one that does not diverge is kept, which gives the same result as trying them one after the other.
+    */
    @Override
    public double forwardPass(E dynamicsState, int startIndex, int endIndex, LQTrackingCostFunction<E> costFunction, DenseMatrix64F initialState,
                              DiscreteOptimizationData updatedSequence)
    {
-      lineSearchGain = lineSearchStartGain;
-      boolean iterate = true;
-      boolean lastIteration = false;
-      double updatedCost = 0.0;
-      while(iterate)
+      int numberOfThreads = getNumberOfThreads();
+
+      while (candidateSequences.size() < numberOfThreads)
+         candidateSequences.add(new DiscreteOptimizationSequence(dynamics.getStateVectorSize(), dynamics.getControlVectorSize()));
+      if (candidateCosts.length < numberOfThreads)
+         candidateCosts = new double[numberOfThreads];
+
+      for (int i = 0; i < numberOfThreads; i++)
       {
-         updatedCost = solveForwardDDPPassInternal(dynamicsState, startIndex, endIndex, costFunction, initialState, previousSequence);
+         if (candidateSequences.get(i).size() != desiredSequence.size())
+            candidateSequences.get(i).setZero(desiredSequence);
+      }
 
-         if (Double.isInfinite(updatedCost))
-         {
-            if (lastIteration)
-               break;
+      for (int firstCandidate = 0; firstCandidate < lineSearchGains.size(); firstCandidate += numberOfThreads)
+      {
+         int numberOfCandidates = Math.min(numberOfThreads, lineSearchGains.size() - firstCandidate);
 
-            lineSearchGain = Math.max(lineSearchGain - lineSearchScaling, lineSearchGainMinimum);
-            PrintTools.info("Solution diverged, decrease line search gain to " + lineSearchGain + " and trying again.");
-         }
-         else
+         for (int i = 1; i < numberOfCandidates; i++)
          {
-            updatedSequence.set(previousSequence);
-            iterate = false;
+            int threadIndex = i;
+            double gain = lineSearchGains.get(firstCandidate + i);
+            submit(() -> candidateCosts[threadIndex] = solveForwardDDPPassInternal(getWorker(threadIndex), gain, dynamicsState, startIndex, endIndex,
+                                                                                  costFunction, initialState, candidateSequences.get(threadIndex)));
          }
 
-         if (lineSearchGain == lineSearchGainMinimum)
-            lastIteration = true;
+         candidateCosts[0] = solveForwardDDPPassInternal(getWorker(0), lineSearchGains.get(firstCandidate), dynamicsState, startIndex, endIndex, costFunction,
+                                                         initialState, candidateSequences.get(0));
+         waitForPendingTasks();
+
+         for (int i = 0; i < numberOfCandidates; i++)
+         {
+            int candidate = firstCandidate + i;
+            lineSearchGain = lineSearchGains.get(candidate);
+
+            if (!Double.isInfinite(candidateCosts[i]))
+            {
+               copyForwardPass(candidateSequences.get(i), startIndex, endIndex, updatedSequence);
+               return candidateCosts[i];
+            }
+
+            if (candidate < lineSearchGains.size() - 1)
+               PrintTools.info("Solution diverged, decrease line search gain to " + lineSearchGains.get(candidate + 1) + " and trying again.");
+         }
       }
 
-      return updatedCost;
+      return Double.POSITIVE_INFINITY;
+   }
+
+   /**
+    * Copies the states and controls computed by a forward pass.
+    */
+   private static void copyForwardPass(DiscreteOptimizationData candidateSequence, int startIndex, int endIndex, DiscreteOptimizationData updatedSequence)
+   {
+      for (int t = startIndex; t <= endIndex; t++)
+         updatedSequence.setState(t, candidateSequence.getState(t));
+      for (int t = startIndex; t < endIndex; t++)
+         updatedSequence.setControl(t, candidateSequence.getControl(t));
    }
 
-   private double solveForwardDDPPassInternal(E dynamicsState, int startIndex, int endIndex, LQTrackingCostFunction<E> costFunction, DenseMatrix64F initialState,
-                                              DiscreteOptimizationData updatedSequence)
+   private double solveForwardDDPPassInternal(Worker worker, double lineSearchGain, E dynamicsState, int startIndex, int endIndex,
+                                              LQTrackingCostFunction<E> costFunction, DenseMatrix64F initialState, DiscreteOptimizationData updatedSequence)
    {
+      DiscreteHybridDynamics<E> dynamics = worker.getDynamics();
+      costFunction = worker.getCostFunction(costFunction);
+
       updatedSequence.setState(startIndex, initialState);
 
       double cost = 0.0;
@@ -152,7 +204,8 @@ public class DDPSolver<E extends Enum> extends AbstractDDPSolver<E> implements D
          if (isStateDiverging(updatedState, state))
             return Double.POSITIVE_INFINITY;
 
-         computeUpdatedControl(state, updatedState, feedBackGainSequence.get(t), feedForwardSequence.get(t), optimalSequence.getControl(t), updatedControl);
+         computeUpdatedControl(worker, lineSearchGain, state, updatedState, feedBackGainSequence.get(t), feedForwardSequence.get(t),
+                               optimalSequence.getControl(t), updatedControl);
 
          if (t < desiredSequence.size() - 1)
             dynamics.getNextState(dynamicsState, updatedState, updatedControl, constants, updatedSequence.getState(t + 1));
@@ -0,0 +1,57 @@
+package us.ihmc.simulationConstructionSetTools.util.ground;
+
+import java.util.Random;
+
+import us.ihmc.log.LogTools;
+
+/**
+ * Compares the time of a height query on a cinder block field of increasing size when going through
+ * the bounding box grid of the {@link CombinedTerrainObject3D} versus a linear search over all its
+ * terrain objects.
+ */
+public class CombinedTerrainObjectBenchmark
+{
+   public static void main(String[] args)
+   {
+      Random random = new Random(2374L);
+      int numberOfQueries = 20000;
+      double[][] queries = new double[numberOfQueries][3];
+      for (double[] query : queries)
+      {
+         query[0] = 60.0 * random.nextDouble();
+         query[1] = 60.0 * random.nextDouble();
+         query[2] = 0.5 * random.nextDouble();
+      }
+
+      for (int blocksPerSide : new int[] {10, 40, 100})
+      {
+         CombinedTerrainObject3D combinedTerrainObject = CombinedTerrainObjectTest.createCinderBlockField(random, blocksPerSide, blocksPerSide);
+         double scale = 60.0 / (blocksPerSide * 0.4);
+
+         long linearTime = 0;
+         long gridTime = 0;
+         double sum = 0.0;
+
+         for (int run = 0; run < 2; run++)
+         { // The first run is the warmup.
+            long start = System.nanoTime();
+            for (double[] query : queries)
+               sum += CombinedTerrainObjectTest.linearHeightAt(combinedTerrainObject, query[0] / scale, query[1] / scale, query[2]);
+            linearTime = System.nanoTime() - start;
+
+            start = System.nanoTime();
+            for (double[] query : queries)
+               sum -= combinedTerrainObject.heightAt(query[0] / scale, query[1] / scale, query[2]);
+            gridTime = System.nanoTime() - start;
+         }
+
+         if (Math.abs(sum) > 1.0e-6)
+            throw new RuntimeException("The grid and the linear search disagree, difference of the summed heights: " + sum);
+
+         TerrainObjectBoundingBoxGrid grid = combinedTerrainObject.getBoundingBoxGrid();
+         LogTools.info(combinedTerrainObject.getTerrainObjects().size() + " blocks, " + grid.getNumberOfCellsX() + "x" + grid.getNumberOfCellsY()
+               + " cells: linear search " + (double) linearTime / numberOfQueries + " ns per query, grid " + (double) gridTime / numberOfQueries
+               + " ns per query.");
+      }
+   }
+}
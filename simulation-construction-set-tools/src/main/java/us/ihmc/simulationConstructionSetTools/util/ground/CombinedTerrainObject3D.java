@@ -37,6 +37,9 @@ public class CombinedTerrainObject3D implements TerrainObject3D, HeightMapWithNo
 
    private final ArrayList<Shape3DReadOnly> terrainCollisionShapes = new ArrayList<>();
 
+   /** Built on the first query after the terrain is assembled, cleared whenever an object is added. */
+   private TerrainObjectBoundingBoxGrid boundingBoxGrid = null;
+
    public CombinedTerrainObject3D(String name)
    {
       linkGraphics = new Graphics3DObject();
@@ -142,6 +145,7 @@ public class CombinedTerrainObject3D implements TerrainObject3D, HeightMapWithNo
    public void addTerrainObject(TerrainObject3D object)
    {
       terrainObjects.add(object);
+      boundingBoxGrid = null;
       linkGraphics.combine(object.getLinkGraphics());
 
       if (object.getTerrainCollisionShapes() != null)
@@ -169,6 +173,32 @@ public class CombinedTerrainObject3D implements TerrainObject3D, HeightMapWithNo
       return terrainObjects;
    }
 
+   /**
+    * Gets the grid used to find the terrain objects close to a query point, building it if needed.
+    * <p>
+    * The grid is rebuilt when objects are added, but not when a terrain object changes after being
+    * added, in which case {@link #clearBoundingBoxGrid()} has to be called.
+    * </p>
+    */
+   public TerrainObjectBoundingBoxGrid getBoundingBoxGrid()
+   {
+      TerrainObjectBoundingBoxGrid grid = boundingBoxGrid;
+
+      // The list of objects is exposed and may have been modified directly.
+      if (grid == null || grid.getNumberOfObjects() != terrainObjects.size())
+      {
+         grid = new TerrainObjectBoundingBoxGrid(terrainObjects);
+         boundingBoxGrid = grid;
+      }
+
+      return grid;
+   }
+
+   public void clearBoundingBoxGrid()
+   {
+      boundingBoxGrid = null;
+   }
+
    @Override
    public Graphics3DObject getLinkGraphics()
    {
@@ -190,9 +220,11 @@ public class CombinedTerrainObject3D implements TerrainObject3D, HeightMapWithNo
       intersectionToPack.set(x, y, 0.0);
       normalToPack.set(0.0, 0.0, 1.0);
 
-      for (int i = 0; i < terrainObjects.size(); i++)
+      int[] candidateIndices = getBoundingBoxGrid().getCandidateObjectIndices(x, y);
+
+      for (int i = 0; i < candidateIndices.length; i++)
       {
-         TerrainObject3D terrainObject = terrainObjects.get(i);
+         TerrainObject3D terrainObject = terrainObjects.get(candidateIndices[i]);
          if (terrainObject.isClose(x, y, z))
          {
             boolean localIsInside = terrainObject.checkIfInside(x, y, z, localIntersection, localNormal);
@@ -297,9 +329,11 @@ public class CombinedTerrainObject3D implements TerrainObject3D, HeightMapWithNo
    {
       double heightAt = Double.NEGATIVE_INFINITY;
 
-      for (int i = 0; i < terrainObjects.size(); i++)
+      int[] candidateIndices = getBoundingBoxGrid().getCandidateObjectIndices(x, y);
+
+      for (int i = 0; i < candidateIndices.length; i++)
       {
-         TerrainObject3D terrainObject = terrainObjects.get(i);
+         TerrainObject3D terrainObject = terrainObjects.get(candidateIndices[i]);
 
          if (terrainObject.isClose(x, y, z))
          {
@@ -323,9 +357,11 @@ public class CombinedTerrainObject3D implements TerrainObject3D, HeightMapWithNo
    {
       double heightAt = Double.NEGATIVE_INFINITY;
 
-      for (int i = 0; i < terrainObjects.size(); i++)
+      int[] candidateIndices = getBoundingBoxGrid().getCandidateObjectIndices(x, y);
+
+      for (int i = 0; i < candidateIndices.length; i++)
       {
-         TerrainObject3D terrainObject = terrainObjects.get(i);
+         TerrainObject3D terrainObject = terrainObjects.get(candidateIndices[i]);
 
          if (terrainObject.isClose(x, y, z))
          {
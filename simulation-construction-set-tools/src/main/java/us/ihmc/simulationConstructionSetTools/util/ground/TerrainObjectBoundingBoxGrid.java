@@ -0,0 +1,277 @@
+package us.ihmc.simulationConstructionSetTools.util.ground;
+
+import java.util.Arrays;
+import java.util.List;
+
+import us.ihmc.euclid.geometry.BoundingBox3D;
+import us.ihmc.simulationconstructionset.util.ground.TerrainObject3D;
+
+/**
+ * Static uniform grid in the XY-plane over the bounding boxes of a list of terrain objects.
+ * <p>
+ * For a given query point, the grid provides the indices of the terrain objects which bounding box
+ * may contain the point such that a ground query only needs to check these objects instead of all
+ * of them. The indices are always sorted in increasing order, i.e. the order in which the objects
+ * were added, such that the result of a query is the same as when iterating over all the objects.
+ * </p>
+ * <p>
+ * Objects without bounding box or with an unbounded one are candidates for every query, so are
+ * objects much larger than the others such as the ground, which would otherwise stretch the grid.
+ * </p>
+ * <p>
+ * The grid does not track changes to the objects, it has to be re-created if an object moves.
+ * </p>
+ */
+public class TerrainObjectBoundingBoxGrid
+{
+   /** Upper bound on the number of cells per object in the grid. */
+   private static final int MAXIMUM_CELLS_PER_OBJECT = 4;
+   private static final int MINIMUM_NUMBER_OF_CELLS = 64;
+   /** Objects larger than this many times the median object are candidates for every query. */
+   private static final double LARGE_OBJECT_EXTENT_RATIO = 50.0;
+
+   private final int numberOfObjects;
+
+   private final double xMin, yMin;
+   private final double cellSize;
+   private final int numberOfCellsX, numberOfCellsY;
+
+   /** Candidate object indices for each cell, indexed by {@code xIndex * numberOfCellsY + yIndex}. */
+   private final int[][] cellObjectIndices;
+   /** Candidate object indices for query points outside the grid, i.e. the objects not stored in the grid. */
+   private final int[] unboundedObjectIndices;
+
+   public TerrainObjectBoundingBoxGrid(List<? extends TerrainObject3D> terrainObjects)
+   {
+      numberOfObjects = terrainObjects.size();
+
+      // Objects without finite bounding box, or much larger than the others such as the ground, are not stored in the grid.
+      boolean[] isUnbounded = new boolean[numberOfObjects];
+      double[] extents = new double[numberOfObjects];
+      int numberOfBoundedObjects = 0;
+
+      for (int i = 0; i < numberOfObjects; i++)
+      {
+         BoundingBox3D boundingBox = terrainObjects.get(i).getBoundingBox();
+
+         if (!isBounded(boundingBox))
+            isUnbounded[i] = true;
+         else
+            extents[numberOfBoundedObjects++] = Math.max(boundingBox.getMaxX() - boundingBox.getMinX(), boundingBox.getMaxY() - boundingBox.getMinY());
+      }
+
+      Arrays.sort(extents, 0, numberOfBoundedObjects);
+      double medianExtent = numberOfBoundedObjects == 0 ? 0.0 : extents[numberOfBoundedObjects / 2];
+
+      double xMin = Double.POSITIVE_INFINITY, yMin = Double.POSITIVE_INFINITY;
+      double xMax = Double.NEGATIVE_INFINITY, yMax = Double.NEGATIVE_INFINITY;
+      int numberOfUnboundedObjects = 0;
+      numberOfBoundedObjects = 0;
+
+      for (int i = 0; i < numberOfObjects; i++)
+      {
+         BoundingBox3D boundingBox = terrainObjects.get(i).getBoundingBox();
+
+         if (!isUnbounded[i])
+         {
+            double extent = Math.max(boundingBox.getMaxX() - boundingBox.getMinX(), boundingBox.getMaxY() - boundingBox.getMinY());
+            isUnbounded[i] = extent > LARGE_OBJECT_EXTENT_RATIO * medianExtent && numberOfObjects > 1;
+         }
+
+         if (isUnbounded[i])
+         {
+            numberOfUnboundedObjects++;
+            continue;
+         }
+
+         xMin = Math.min(xMin, boundingBox.getMinX());
+         yMin = Math.min(yMin, boundingBox.getMinY());
+         xMax = Math.max(xMax, boundingBox.getMaxX());
+         yMax = Math.max(yMax, boundingBox.getMaxY());
+         numberOfBoundedObjects++;
+      }
+
+      unboundedObjectIndices = new int[numberOfUnboundedObjects];
+      for (int i = 0, k = 0; i < numberOfObjects; i++)
+      {
+         if (isUnbounded[i])
+            unboundedObjectIndices[k++] = i;
+      }
+
+      if (numberOfBoundedObjects == 0)
+      {
+         this.xMin = this.yMin = 0.0;
+         cellSize = 1.0;
+         numberOfCellsX = numberOfCellsY = 0;
+         cellObjectIndices = new int[0][];
+         return;
+      }
+
+      double xLength = xMax - xMin;
+      double yLength = yMax - yMin;
+
+      // Cells about the size of the median object, enlarged when the objects are sparse such that the grid remains small.
+      int maximumNumberOfCells = Math.max(MINIMUM_NUMBER_OF_CELLS, MAXIMUM_CELLS_PER_OBJECT * numberOfBoundedObjects);
+      double cellSize = medianExtent;
+      cellSize = Math.max(cellSize, Math.sqrt(xLength * yLength / maximumNumberOfCells));
+      cellSize = Math.max(cellSize, Math.max(xLength, yLength) / maximumNumberOfCells);
+      if (cellSize <= 0.0)
+         cellSize = 1.0;
+
+      this.xMin = xMin;
+      this.yMin = yMin;
+      this.cellSize = cellSize;
+      numberOfCellsX = Math.max(1, (int) Math.ceil(xLength / cellSize));
+      numberOfCellsY = Math.max(1, (int) Math.ceil(yLength / cellSize));
+      int numberOfCells = numberOfCellsX * numberOfCellsY;
+
+      // First pass: count the objects per cell, the second pass fills the cells.
+      int[] cellSizes = new int[numberOfCells];
+      int[][] cells = new int[numberOfCells][];
+      boolean[] isEverywhere = Arrays.copyOf(isUnbounded, numberOfObjects);
+      int numberOfEverywhereObjects = numberOfUnboundedObjects;
+
+      for (int pass = 0; pass < 2; pass++)
+      {
+         for (int i = 0; i < numberOfObjects; i++)
+         {
+            if (isEverywhere[i])
+               continue;
+
+            BoundingBox3D boundingBox = terrainObjects.get(i).getBoundingBox();
+            int xIndexMin = toXIndex(boundingBox.getMinX());
+            int xIndexMax = toXIndex(boundingBox.getMaxX());
+            int yIndexMin = toYIndex(boundingBox.getMinY());
+            int yIndexMax = toYIndex(boundingBox.getMaxY());
+
+            if (pass == 0 && (xIndexMax - xIndexMin + 1) * (yIndexMax - yIndexMin + 1) > numberOfCells / 2)
+            {
+               isEverywhere[i] = true;
+               numberOfEverywhereObjects++;
+               continue;
+            }
+
+            for (int xIndex = xIndexMin; xIndex <= xIndexMax; xIndex++)
+            {
+               for (int yIndex = yIndexMin; yIndex <= yIndexMax; yIndex++)
+               {
+                  int cellIndex = xIndex * numberOfCellsY + yIndex;
+                  if (pass == 0)
+                     cellSizes[cellIndex]++;
+                  else
+                     cells[cellIndex][cellSizes[cellIndex]++] = i;
+               }
+            }
+         }
+
+         if (pass == 0)
+         {
+            for (int cellIndex = 0; cellIndex < numberOfCells; cellIndex++)
+            {
+               cells[cellIndex] = new int[cellSizes[cellIndex]];
+               cellSizes[cellIndex] = 0;
+            }
+         }
+      }
+
+      int[] everywhereObjectIndices = new int[numberOfEverywhereObjects];
+      for (int i = 0, k = 0; i < numberOfObjects; i++)
+      {
+         if (isEverywhere[i])
+            everywhereObjectIndices[k++] = i;
+      }
+
+      cellObjectIndices = new int[numberOfCells][];
+      for (int cellIndex = 0; cellIndex < numberOfCells; cellIndex++)
+      {
+         if (cells[cellIndex].length == 0)
+            cellObjectIndices[cellIndex] = everywhereObjectIndices;
+         else
+            cellObjectIndices[cellIndex] = mergeSorted(cells[cellIndex], everywhereObjectIndices);
+      }
+   }
+
+   private static boolean isBounded(BoundingBox3D boundingBox)
+   {
+      if (boundingBox == null)
+         return false;
+
+      return Double.isFinite(boundingBox.getMinX()) && Double.isFinite(boundingBox.getMaxX()) && Double.isFinite(boundingBox.getMinY())
+            && Double.isFinite(boundingBox.getMaxY());
+   }
+
+   private static int[] mergeSorted(int[] a, int[] b)
+   {
+      if (b.length == 0)
+         return a;
+
+      int[] merged = new int[a.length + b.length];
+      int i = 0, j = 0, k = 0;
+
+      while (i < a.length && j < b.length)
+         merged[k++] = a[i] < b[j] ? a[i++] : b[j++];
+      while (i < a.length)
+         merged[k++] = a[i++];
+      while (j < b.length)
+         merged[k++] = b[j++];
+
+      return merged;
+   }
+
+   private int toXIndex(double x)
+   {
+      return Math.min(numberOfCellsX - 1, Math.max(0, (int) ((x - xMin) / cellSize)));
+   }
+
+   private int toYIndex(double y)
+   {
+      return Math.min(numberOfCellsY - 1, Math.max(0, (int) ((y - yMin) / cellSize)));
+   }
+
+   /**
+    * Gets the indices of the terrain objects that may be close to the given point.
+    * <p>
+    * The returned array is owned by the grid and must not be modified.
+    * </p>
+    *
+    * @param x the x-coordinate of the query point.
+    * @param y the y-coordinate of the query point.
+    * @return the indices, in increasing order, of the candidate objects.
+    */
+   public int[] getCandidateObjectIndices(double x, double y)
+   {
+      double xLocal = (x - xMin) / cellSize;
+      double yLocal = (y - yMin) / cellSize;
+
+      // The max bounds are inclusive, hence the tolerance of one cell on the upper side.
+      if (!(xLocal >= 0.0 && yLocal >= 0.0 && xLocal <= numberOfCellsX && yLocal <= numberOfCellsY))
+         return unboundedObjectIndices;
+
+      int xIndex = Math.min(numberOfCellsX - 1, (int) xLocal);
+      int yIndex = Math.min(numberOfCellsY - 1, (int) yLocal);
+      return cellObjectIndices[xIndex * numberOfCellsY + yIndex];
+   }
+
+   /**
+    * @return the number of terrain objects this grid was built for.
+    */
+   public int getNumberOfObjects()
+   {
+      return numberOfObjects;
+   }
+
+   public int getNumberOfCellsX()
+   {
+      return numberOfCellsX;
+   }
+
+   public int getNumberOfCellsY()
+   {
+      return numberOfCellsY;
+   }
+
+   public double getCellSize()
+   {
+      return cellSize;
+   }
+}
@@ -1,5 +1,9 @@
 package us.ihmc.simulationConstructionSetTools.util.ground;
 
+import static us.ihmc.robotics.Assert.*;
+
+import java.util.Random;
+
 import org.junit.jupiter.api.Test;
 
 import org.junit.jupiter.api.Tag;
@@ -7,10 +11,13 @@ import org.junit.jupiter.api.Disabled;
 import us.ihmc.euclid.geometry.ConvexPolygon2D;
 import us.ihmc.euclid.geometry.interfaces.Vertex2DSupplier;
 import us.ihmc.euclid.tools.EuclidCoreTestTools;
+import us.ihmc.euclid.transform.RigidBodyTransform;
 import us.ihmc.euclid.tuple3D.Point3D;
 import us.ihmc.euclid.tuple3D.Vector3D;
+import us.ihmc.graphicsDescription.appearance.YoAppearance;
 import us.ihmc.simulationConstructionSetTools.util.ground.CombinedTerrainObject3D;
 import us.ihmc.simulationConstructionSetTools.util.ground.RotatableConvexPolygonTerrainObject;
+import us.ihmc.simulationconstructionset.util.ground.TerrainObject3D;
 
 public class CombinedTerrainObjectTest
 {
@@ -53,4 +60,139 @@ public class CombinedTerrainObjectTest
       combinedTerrainObject.addTerrainObject(secondBox);
    }
 
+   @Test
+   public void testGridQueriesMatchLinearSearch()
+   {
+      Random random = new Random(5489L);
+      CombinedTerrainObject3D combinedTerrainObject = createCinderBlockField(random, 40, 40);
+
+      Point3D gridIntersection = new Point3D();
+      Vector3D gridNormal = new Vector3D();
+      Point3D linearIntersection = new Point3D();
+      Vector3D linearNormal = new Vector3D();
+
+      for (int i = 0; i < 100000; i++)
+      {
+         // Also query outside of the field.
+         double x = -2.0 + 20.0 * random.nextDouble();
+         double y = -2.0 + 20.0 * random.nextDouble();
+         double z = -0.1 + 0.5 * random.nextDouble();
+
+         assertEquals(linearHeightAt(combinedTerrainObject, x, y, z), combinedTerrainObject.heightAt(x, y, z), 0.0);
+
+         double gridHeight = combinedTerrainObject.heightAndNormalAt(x, y, z, gridNormal);
+         double linearHeight = linearHeightAndNormalAt(combinedTerrainObject, x, y, z, linearNormal);
+         assertEquals(linearHeight, gridHeight, 0.0);
+         if (Double.isFinite(linearHeight))
+            EuclidCoreTestTools.assertTuple3DEquals(linearNormal, gridNormal, 0.0);
+
+         boolean gridIsInside = combinedTerrainObject.checkIfInside(x, y, z, gridIntersection, gridNormal);
+         boolean linearIsInside = linearCheckIfInside(combinedTerrainObject, x, y, z, linearIntersection, linearNormal);
+         assertEquals(linearIsInside, gridIsInside);
+         EuclidCoreTestTools.assertTuple3DEquals(linearIntersection, gridIntersection, 0.0);
+         EuclidCoreTestTools.assertTuple3DEquals(linearNormal, gridNormal, 0.0);
+      }
+   }
+
+   @Test
+   public void testGridIsRebuiltWhenAddingObjects()
+   {
+      CombinedTerrainObject3D combinedTerrainObject = new CombinedTerrainObject3D("Test");
+      combinedTerrainObject.addBox(0.0, 0.0, 1.0, 1.0, 0.5);
+      assertEquals(0.5, combinedTerrainObject.heightAt(0.5, 0.5, 1.0), 1.0e-12);
+      assertEquals(Double.NEGATIVE_INFINITY, combinedTerrainObject.heightAt(3.5, 0.5, 1.0), 0.0);
+
+      combinedTerrainObject.addBox(3.0, 0.0, 4.0, 1.0, 0.25);
+      assertEquals(0.25, combinedTerrainObject.heightAt(3.5, 0.5, 1.0), 1.0e-12);
+      assertEquals(2, combinedTerrainObject.getBoundingBoxGrid().getNumberOfObjects());
+   }
+
+   /**
+    * Creates a field of 0.4m by 0.2m cinder blocks, some of them stacked and tilted, on top of a
+    * ground box.
+    */
+   static CombinedTerrainObject3D createCinderBlockField(Random random, int numberOfBlocksLong, int numberOfBlocksWide)
+   {
+      double blockLength = 0.4;
+      double blockWidth = 0.2;
+      double blockHeight = 0.15;
+
+      CombinedTerrainObject3D combinedTerrainObject = new CombinedTerrainObject3D("CinderBlockField");
+      combinedTerrainObject.addBox(-1.0, -1.0, numberOfBlocksLong * blockLength + 1.0, numberOfBlocksWide * blockLength + 1.0, -0.05, 0.0);
+
+      for (int i = 0; i < numberOfBlocksLong; i++)
+      {
+         for (int j = 0; j < numberOfBlocksWide; j++)
+         {
+            int numberOfLayers = random.nextInt(3);
+
+            for (int layer = 0; layer <= numberOfLayers; layer++)
+            {
+               RigidBodyTransform location = new RigidBodyTransform();
+               location.setRotationYawPitchRollAndZeroTranslation(random.nextInt(4) * Math.PI / 2.0, layer == numberOfLayers ? 0.25 * random.nextDouble() : 0.0,
+                                                                  0.0);
+               location.getTranslation().set((i + 0.5) * blockLength, (j + 0.5) * blockLength, (layer + 0.5) * blockHeight);
+               combinedTerrainObject.addRotatableBox(location, blockLength, blockWidth, blockHeight, YoAppearance.Gray());
+            }
+         }
+      }
+
+      return combinedTerrainObject;
+   }
+
+   static double linearHeightAt(CombinedTerrainObject3D combinedTerrainObject, double x, double y, double z)
+   {
+      double heightAt = Double.NEGATIVE_INFINITY;
+
+      for (TerrainObject3D terrainObject : combinedTerrainObject.getTerrainObjects())
+      {
+         if (terrainObject.isClose(x, y, z) && terrainObject.getHeightMapIfAvailable() != null)
+            heightAt = Math.max(heightAt, terrainObject.getHeightMapIfAvailable().heightAt(x, y, z));
+      }
+
+      return heightAt;
+   }
+
+   private static double linearHeightAndNormalAt(CombinedTerrainObject3D combinedTerrainObject, double x, double y, double z, Vector3D normalToPack)
+   {
+      double heightAt = Double.NEGATIVE_INFINITY;
+
+      for (TerrainObject3D terrainObject : combinedTerrainObject.getTerrainObjects())
+      {
+         if (terrainObject.isClose(x, y, z) && terrainObject.getHeightMapIfAvailable() != null)
+         {
+            if (terrainObject.getHeightMapIfAvailable().heightAt(x, y, z) > heightAt)
+               heightAt = terrainObject.getHeightMapIfAvailable().heightAndNormalAt(x, y, z, normalToPack);
+         }
+      }
+
+      return heightAt;
+   }
+
+   private static boolean linearCheckIfInside(CombinedTerrainObject3D combinedTerrainObject, double x, double y, double z, Point3D intersectionToPack,
+                                              Vector3D normalToPack)
+   {
+      Point3D pointToCheck = new Point3D(x, y, z);
+      Point3D localIntersection = new Point3D();
+      Vector3D localNormal = new Vector3D();
+      double smallestDistance = Double.MAX_VALUE;
+      boolean isInside = false;
+
+      intersectionToPack.set(x, y, 0.0);
+      normalToPack.set(0.0, 0.0, 1.0);
+
+      for (TerrainObject3D terrainObject : combinedTerrainObject.getTerrainObjects())
+      {
+         if (terrainObject.isClose(x, y, z) && terrainObject.checkIfInside(x, y, z, localIntersection, localNormal)
+               && pointToCheck.distance(localIntersection) < smallestDistance)
+         {
+            smallestDistance = pointToCheck.distance(localIntersection);
+            intersectionToPack.set(localIntersection);
+            normalToPack.set(localNormal);
+            isInside = true;
+         }
+      }
+
+      return isInside;
+   }
 }
@@ -61,6 +61,12 @@ testDependencies {
    api("us.ihmc:ihmc-avatar-interfaces-test:source")
 }
 
+benchmarksDependencies {
+   api(ihmc.sourceSetProject("main"))
+   api(ihmc.sourceSetProject("test"))
+   api("us.ihmc:ihmc-avatar-interfaces-benchmarks:source")
+}
+
 ihmc.jarWithLibFolder()
 tasks.getByPath("installDist").dependsOn("compositeJar")
 
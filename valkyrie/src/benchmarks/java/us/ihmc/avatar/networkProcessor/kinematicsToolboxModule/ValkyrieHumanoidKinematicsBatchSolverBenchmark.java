@@ -0,0 +1,27 @@
+package us.ihmc.avatar.networkProcessor.kinematicsToolboxModule;
+
+import us.ihmc.avatar.drcRobot.DRCRobotModel;
+import us.ihmc.avatar.drcRobot.RobotTarget;
+import us.ihmc.valkyrie.ValkyrieRobotModel;
+
+public class ValkyrieHumanoidKinematicsBatchSolverBenchmark extends HumanoidKinematicsBatchSolverBenchmark
+{
+   private final DRCRobotModel robotModel = new ValkyrieRobotModel(RobotTarget.SCS);
+
+   @Override
+   public DRCRobotModel getRobotModel()
+   {
+      return robotModel;
+   }
+
+   @Override
+   public String getSimpleRobotName()
+   {
+      return robotModel.getSimpleRobotName();
+   }
+
+   public static void main(String[] args) throws Exception
+   {
+      new ValkyrieHumanoidKinematicsBatchSolverBenchmark().runThroughputVersusNumberOfWorkers();
+   }
+}
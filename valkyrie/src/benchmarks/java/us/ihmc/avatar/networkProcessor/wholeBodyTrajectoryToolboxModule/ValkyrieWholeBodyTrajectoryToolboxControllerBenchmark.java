@@ -0,0 +1,34 @@
+package us.ihmc.avatar.networkProcessor.wholeBodyTrajectoryToolboxModule;
+
+import us.ihmc.avatar.drcRobot.DRCRobotModel;
+import us.ihmc.avatar.drcRobot.RobotTarget;
+import us.ihmc.valkyrie.ValkyrieRobotModel;
+
+public class ValkyrieWholeBodyTrajectoryToolboxControllerBenchmark extends AvatarWholeBodyTrajectoryToolboxControllerBenchmark
+{
+   private final DRCRobotModel robotModel = new ValkyrieRobotModel(RobotTarget.SCS);
+   private final DRCRobotModel ghostRobotModel = new ValkyrieRobotModel(RobotTarget.SCS);
+
+   @Override
+   public DRCRobotModel getRobotModel()
+   {
+      return robotModel;
+   }
+
+   @Override
+   public String getSimpleRobotName()
+   {
+      return robotModel.getSimpleRobotName();
+   }
+
+   @Override
+   public DRCRobotModel getGhostRobotModel()
+   {
+      return ghostRobotModel;
+   }
+
+   public static void main(String[] args)
+   {
+      new ValkyrieWholeBodyTrajectoryToolboxControllerBenchmark().runOneBigCircleTimeToSolutionVersusNumberOfWorkers();
+   }
+}
@@ -0,0 +1,31 @@
+package us.ihmc.avatar.networkProcessor.kinematicsToolboxModule;
+
+import org.junit.jupiter.api.Test;
+
+import us.ihmc.avatar.drcRobot.DRCRobotModel;
+import us.ihmc.avatar.drcRobot.RobotTarget;
+import us.ihmc.valkyrie.ValkyrieRobotModel;
+
+public class ValkyrieHumanoidKinematicsBatchSolverTest extends HumanoidKinematicsBatchSolverTest
+{
+   private final DRCRobotModel robotModel = new ValkyrieRobotModel(RobotTarget.SCS);
+
+   @Override
+   @Test
+   public void testRandomHandPositions() throws Exception
+   {
+      super.testRandomHandPositions();
+   }
+
+   @Override
+   public DRCRobotModel getRobotModel()
+   {
+      return robotModel;
+   }
+
+   @Override
+   public String getSimpleRobotName()
+   {
+      return robotModel.getSimpleRobotName();
+   }
+}